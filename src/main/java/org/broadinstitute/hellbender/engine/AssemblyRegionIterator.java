@@ -15,6 +15,7 @@ import org.broadinstitute.hellbender.utils.iterators.ReadCachingIterator;
 import org.broadinstitute.hellbender.utils.locusiterator.IntervalAlignmentContextIterator;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.MemoryBudgetedReadQueue;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.util.*;
@@ -24,7 +25,9 @@ import java.util.*;
  * that shard, using the provided {@link AssemblyRegionEvaluator} to determine the boundaries between assembly
  * regions.
  *
- * Loads the reads from the shard as lazily as possible to minimize memory usage.
+ * Loads the reads from the shard as lazily as possible to minimize memory usage. Reads waiting to be assigned to a
+ * region are held in a {@link MemoryBudgetedReadQueue}, which can be given a memory budget to bound their footprint
+ * in pathological pileups.
  *
  * This iterator represents the core of the {@link AssemblyRegionWalker} traversal.
  *
@@ -44,12 +47,13 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
     private final int assemblyRegionPadding;
     private final double activeProbThreshold;
     private final int maxProbPropagationDistance;
+    private final long readCacheBudget;
     
     private AssemblyRegion readyRegion;
     private Queue<AssemblyRegion> pendingRegions;
     private List<GATKRead> previousRegionReads;
     private final ReadCachingIterator readCachingIterator;
-    private Queue<GATKRead> readCache;
+    private final MemoryBudgetedReadQueue readCache;
     private final Iterator<AlignmentContext> locusIterator;
     private final LocusIteratorByState libs;
     private final ActivityProfile activityProfile;
@@ -81,6 +85,30 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
                                   final double activeProbThreshold,
                                   final int maxProbPropagationDistance,
                                   final boolean includeReadsWithDeletionsInIsActivePileups) {
+        this(readShard, readHeader, reference, features, evaluator, minRegionSize, maxRegionSize, assemblyRegionPadding,
+                activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups, MemoryBudgetedReadQueue.NO_BUDGET);
+    }
+
+    /**
+     * Constructs an AssemblyRegionIterator over a provided read shard, bounding the memory retained by reads
+     * waiting to be assigned to a region
+     *
+     * @param readCacheBudget maximum number of bytes of reads to retain while waiting for regions to become ready,
+     *                        or {@link MemoryBudgetedReadQueue#NO_BUDGET}. See {@link MemoryBudgetedReadQueue}
+     *                        for how the budget is enforced.
+     */
+    public AssemblyRegionIterator(final MultiIntervalShard<GATKRead> readShard,
+                                  final SAMFileHeader readHeader,
+                                  final ReferenceDataSource reference,
+                                  final FeatureManager features,
+                                  final AssemblyRegionEvaluator evaluator,
+                                  final int minRegionSize,
+                                  final int maxRegionSize,
+                                  final int assemblyRegionPadding,
+                                  final double activeProbThreshold,
+                                  final int maxProbPropagationDistance,
+                                  final boolean includeReadsWithDeletionsInIsActivePileups,
+                                  final long readCacheBudget) {
 
         Utils.nonNull(readShard);
         Utils.nonNull(readHeader);
@@ -91,6 +119,7 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         Utils.validateArg(assemblyRegionPadding >= 0, "assemblyRegionPadding must be >= 0");
         Utils.validateArg(activeProbThreshold >= 0.0, "activeProbThreshold must be >= 0.0");
         Utils.validateArg(maxProbPropagationDistance >= 0, "maxProbPropagationDistance must be >= 0");
+        Utils.validateArg(readCacheBudget >= 0, "readCacheBudget must be >= 0");
 
         this.readShard = readShard;
         this.readHeader = readHeader;
@@ -102,12 +131,13 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         this.assemblyRegionPadding = assemblyRegionPadding;
         this.activeProbThreshold = activeProbThreshold;
         this.maxProbPropagationDistance = maxProbPropagationDistance;
+        this.readCacheBudget = readCacheBudget;
 
         this.readyRegion = null;
         this.previousRegionReads = null;
         this.pendingRegions = new ArrayDeque<>();
         this.readCachingIterator = new ReadCachingIterator(readShard.iterator());
-        this.readCache = new ArrayDeque<>();
+        this.readCache = new MemoryBudgetedReadQueue(readHeader, readCacheBudget);
         this.activityProfile = new BandPassActivityProfile(null, maxProbPropagationDistance, activeProbThreshold, BandPassActivityProfile.MAX_FILTER_SIZE, BandPassActivityProfile.DEFAULT_SIGMA, readHeader);
 
         // We wrap our LocusIteratorByState inside an IntervalAlignmentContextIterator so that we get empty loci
@@ -117,6 +147,9 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         this.locusIterator = new IntervalAlignmentContextIterator(libs, intervalLocusIterator, readHeader.getSequenceDictionary());
 
         readyRegion = loadNextAssemblyRegion();
+        if ( readyRegion == null ) {
+            logReadCacheFootprint();
+        }
     }
 
     @Override
@@ -133,6 +166,9 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         final AssemblyRegion toReturn = readyRegion;
         previousRegionReads = toReturn.getReads();
         readyRegion = loadNextAssemblyRegion();
+        if ( readyRegion == null ) {
+            logReadCacheFootprint();
+        }
         return toReturn;
     }
 
@@ -159,6 +195,10 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
             final ActivityProfileState profile = evaluator.isActive(pileup, pileupRefContext, pileupFeatureContext);
             activityProfile.add(profile);
 
+            // Move the reads newly-read by our locus iterator into the read cache as we go, so that they count
+            // against its budget. Note that the cache is (crucially) maintained in coordinate order.
+            readCachingIterator.consumeCachedReads(readCache::add);
+
             // A pending region only becomes ready once our locus iterator has advanced beyond the end of its extended span
             // (this ensures that we've loaded all reads that belong in the new region)
             if ( ! pendingRegions.isEmpty() && IntervalUtils.isAfter(pileup.getLocation(), pendingRegions.peek().getExtendedSpan(), readHeader.getSequenceDictionary()) ) {
@@ -207,9 +247,8 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
             }
         }
 
-        // Update our read cache with the reads newly-read by our locus iterator.
-        // Note that the cache is (crucially) maintained in coordinate order.
-        readCache.addAll(readCachingIterator.consumeCachedReads());
+        // Update our read cache with any reads newly-read by our locus iterator since the last locus.
+        readCachingIterator.consumeCachedReads(readCache::add);
 
         // Add all reads from the cache that belong in this region
         while ( ! readCache.isEmpty() ) {
@@ -222,7 +261,7 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
             }
 
             // Ok, we're going to consume this read
-            readCache.poll();
+            readCache.remove();
 
             // Add the read if it overlaps the region's extended span. If it doesn't, it must end before the
             // start of the region's extended span, so we discard it.
@@ -232,6 +271,33 @@ public class AssemblyRegionIterator implements Iterator<AssemblyRegion> {
         }
     }
 
+    private void logReadCacheFootprint() {
+        if ( readCacheBudget == MemoryBudgetedReadQueue.NO_BUDGET ) {
+            logger.debug(String.format("Peak memory retained by cached reads for shard %s: %d bytes",
+                    describeShardSpan(), readCache.getPeakFootprint()));
+        } else {
+            logger.info(String.format("Peak memory retained by cached reads for shard %s: %d bytes of a %d byte budget (%d reads spilled, %d reads downsampled)",
+                    describeShardSpan(), readCache.getPeakFootprint(), readCacheBudget, readCache.getNumSpilled(), readCache.getNumDownsampled()));
+        }
+    }
+
+    /**
+     * @return the span of the intervals of the shard, or the intervals themselves if they are on different contigs
+     */
+    private String describeShardSpan() {
+        final List<SimpleInterval> intervals = readShard.getIntervals();
+        if ( intervals.isEmpty() ) {
+            return "(empty)";
+        }
+        final String contig = intervals.get(0).getContig();
+        if ( ! intervals.stream().allMatch(interval -> interval.getContig().equals(contig)) ) {
+            return Utils.join(", ", intervals.toArray());
+        }
+        final int start = intervals.stream().mapToInt(SimpleInterval::getStart).min().getAsInt();
+        final int end = intervals.stream().mapToInt(SimpleInterval::getEnd).max().getAsInt();
+        return new SimpleInterval(contig, start, end).toString();
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException("remove() not supported by AssemblyRegionIterator");
@@ -50,6 +50,7 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     public static final String PROPAGATION_LONG_NAME = "max-prob-propagation-distance";
     public static final String PROFILE_OUT_LONG_NAME = "activity-profile-out";
     public static final String ASSEMBLY_REGION_OUT_LONG_NAME = "assembly-region-out";
+    public static final String READ_CACHE_BUDGET_LONG_NAME = "assembly-region-read-cache-budget-mb";
 
     @Advanced
     @Argument(fullName = MIN_ASSEMBLY_LONG_NAME, doc = "Minimum size of an assembly region", optional = true)
@@ -74,6 +75,16 @@ public abstract class AssemblyRegionWalker extends GATKTool {
     @Argument(fullName = PROPAGATION_LONG_NAME, doc="Upper limit on how many bases away probability mass can be moved around when calculating the boundaries between active and inactive assembly regions", optional = true)
     protected int maxProbPropagationDistance = defaultMaxProbPropagationDistance();
 
+    /**
+     * Reads are held in memory between the locus at which they are first seen and the assembly region they are
+     * assigned to. In pathological pileups (eg., extreme coverage with {@link #maxReadsPerAlignmentStart} disabled)
+     * these reads can exhaust the heap. If set, once the cached reads exceed half of this budget, further reads are
+     * kept in compact BAM-encoded form, and once they exceed the full budget, further reads are randomly downsampled.
+     */
+    @Advanced
+    @Argument(fullName = READ_CACHE_BUDGET_LONG_NAME, doc="Memory budget in megabytes for reads cached while waiting for assembly regions. Set to 0 to disable.", optional = true)
+    protected int readCacheBudgetMb = 0;
+
     /**
      * If provided, this walker will write out its activity profile (per bp probabilities of being active)
      * to this file in the IGV formatted TAB deliminated output:
@@ -171,6 +182,10 @@ public abstract class AssemblyRegionWalker extends GATKTool {
             throw new CommandLineException.BadArgumentValue("maxReadsPerAlignmentStart must be >= 0");
         }
 
+        if ( readCacheBudgetMb < 0 ) {
+            throw new CommandLineException.BadArgumentValue("readCacheBudgetMb must be >= 0");
+        }
+
         final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
 
@@ -279,7 +294,7 @@ public abstract class AssemblyRegionWalker extends GATKTool {
      * @param features FeatureManager
      */
     private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
-        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups());
+        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), minAssemblyRegionSize, maxAssemblyRegionSize, assemblyRegionPadding, activeProbThreshold, maxProbPropagationDistance, includeReadsWithDeletionsInIsActivePileups(), readCacheBudgetMb * 1024L * 1024L);
 
         // Call into the tool implementation to process each assembly region from this shard.
         while ( assemblyRegionIter.hasNext() ) {
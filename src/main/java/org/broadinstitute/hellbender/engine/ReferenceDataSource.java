@@ -50,6 +50,14 @@ public interface ReferenceDataSource extends GATKDataSource<Byte>, AutoCloseable
         return new ReferenceMemorySource(bases, referenceSequenceDictionary);
     }
 
+    /**
+     * Wrap the given data source so that all queries to it are serialized, making it safe to share between threads.
+     * Closing the returned data source closes the wrapped one.
+     */
+    public static ReferenceDataSource synchronizedDataSource(final ReferenceDataSource dataSource) {
+        return dataSource instanceof SynchronizedReferenceDataSource ? dataSource : new SynchronizedReferenceDataSource(dataSource);
+    }
+
     /**
      * Query a specific interval on this reference, and get back all bases spanning that interval at once.
      * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
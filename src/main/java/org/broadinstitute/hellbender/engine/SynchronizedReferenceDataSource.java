@@ -0,0 +1,53 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Iterator;
+
+/**
+ * A {@link ReferenceDataSource} that serializes all queries to a wrapped (non-thread-safe) data source,
+ * so that it may be shared by {@link ReferenceContext}s used on different threads.
+ *
+ * Create instances via {@link ReferenceDataSource#synchronizedDataSource(ReferenceDataSource)}.
+ */
+final class SynchronizedReferenceDataSource implements ReferenceDataSource {
+
+    private final ReferenceDataSource dataSource;
+
+    SynchronizedReferenceDataSource(final ReferenceDataSource dataSource) {
+        this.dataSource = Utils.nonNull(dataSource);
+    }
+
+    @Override
+    public synchronized Iterator<Byte> iterator() {
+        return dataSource.iterator();
+    }
+
+    @Override
+    public synchronized ReferenceSequence queryAndPrefetch(final SimpleInterval interval) {
+        return dataSource.queryAndPrefetch(interval);
+    }
+
+    @Override
+    public synchronized ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+        return dataSource.queryAndPrefetch(contig, start, stop);
+    }
+
+    @Override
+    public synchronized Iterator<Byte> query(final SimpleInterval interval) {
+        return dataSource.query(interval);
+    }
+
+    @Override
+    public synchronized SAMSequenceDictionary getSequenceDictionary() {
+        return dataSource.getSequenceDictionary();
+    }
+
+    @Override
+    public synchronized void close() {
+        dataSource.close();
+    }
+}
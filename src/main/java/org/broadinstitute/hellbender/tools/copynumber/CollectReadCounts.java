@@ -21,6 +21,7 @@ import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinarySimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.HDF5SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.Metadata;
@@ -55,7 +56,7 @@ import java.util.stream.Collectors;
  *         and all other common arguments for interval padding or merging must be set to their defaults.
  *     </li>
  *     <li>
- *         Output file format.  This can be used to select TSV or HDF5 output.
+ *         Output file format.  This can be used to select TSV, HDF5, or binary output.
  *     </li>
  * </ul>
  *
@@ -72,6 +73,10 @@ import java.util.stream.Collectors;
  *         <a href="http://www.pytables.org/">PyTables</a> or <a href="http://www.h5py.org/">h5py</a>.
  *         The TSV format has a SAM-style header containing a read group sample name, a sequence dictionary, a row specifying the column headers contained in
  *         {@link SimpleCountCollection.SimpleCountTableColumn}, and the corresponding entry rows.
+ *         The binary format is a compact, memory-mappable layout described in {@link BinarySimpleCountCollection}.
+ *         Binary files collected over the same intervals share an identical interval header, so that cohort tools
+ *         such as {@link CreateReadCountPanelOfNormals} and {@link DetermineGermlineContigPloidy} can load their counts
+ *         without parsing intervals.
  *     </li>
  * </ul>
  *
@@ -101,7 +106,7 @@ public final class CollectReadCounts extends ReadWalker {
     private static final int DEFAULT_MINIMUM_MAPPING_QUALITY = 30;
 
     enum Format {
-        TSV, HDF5
+        TSV, HDF5, BINARY
     }
 
     public static final String FORMAT_LONG_NAME = "format";
@@ -191,10 +196,15 @@ public final class CollectReadCounts extends ReadWalker {
                         .map(i -> new SimpleCount(i, intervalMultiset.count(i)))
                         .collect(Collectors.toList()));
 
-        if (format == Format.HDF5) {
-            readCounts.writeHDF5(outputCountsFile);
-        } else {
-            readCounts.write(outputCountsFile);
+        switch (format) {
+            case HDF5:
+                readCounts.writeHDF5(outputCountsFile);
+                break;
+            case BINARY:
+                readCounts.writeBinary(outputCountsFile);
+                break;
+            default:
+                readCounts.write(outputCountsFile);
         }
 
         return "SUCCESS";
@@ -20,6 +20,7 @@ import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStanda
 import org.broadinstitute.hellbender.tools.copynumber.denoising.GCBiasCorrector;
 import org.broadinstitute.hellbender.tools.copynumber.denoising.HDF5SVDReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AnnotatedIntervalCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinarySimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -29,8 +30,10 @@ import org.broadinstitute.hellbender.utils.io.IOUtils;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
 import java.util.stream.Collectors;
 
 /**
@@ -71,7 +74,7 @@ import java.util.stream.Collectors;
  *
  * <ul>
  *     <li>
- *         Counts files (TSV or HDF5 output of {@link CollectReadCounts}).
+ *         Counts files (TSV, HDF5, or binary output of {@link CollectReadCounts}).
  *     </li>
  *     <li>
  *         (Optional) GC-content annotated-intervals file from {@link AnnotateIntervals}.
@@ -109,6 +112,14 @@ import java.util.stream.Collectors;
  *          -O cnv.pon.hdf5
  * </pre>
  *
+ * <p>
+ *     For panels too large to hold in memory, the {@code out-of-core} option can be specified.
+ *     The read counts are then streamed one sample at a time into a temporary HDF5 file and
+ *     preprocessed by passes over blocks of at most {@code maximum-chunk-size} values, giving identical results;
+ *     the SVD is performed by a randomized algorithm that also only requires such passes,
+ *     rather than by Spark, and so the eigensamples may differ slightly from those found in memory.
+ * </p>
+ *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 @CommandLineProgramProperties(
@@ -129,6 +140,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     public static final String IMPUTE_ZEROS_LONG_NAME = "do-impute-zeros";
     public static final String EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME = "extreme-outlier-truncation-percentile";
     public static final String MAXIMUM_CHUNK_SIZE = "maximum-chunk-size";
+    public static final String OUT_OF_CORE_LONG_NAME = "out-of-core";
 
     //default values for filtering
     private static final double DEFAULT_MINIMUM_INTERVAL_MEDIAN_PERCENTILE = 10.0;
@@ -143,7 +155,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     private static final int DEFAULT_MAXIMUM_CHUNK_SIZE = HDF5Utils.MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX / DEFAULT_CHUNK_DIVISOR;
 
     @Argument(
-            doc = "Input TSV or HDF5 files containing integer read counts in genomic intervals for all samples in the panel of normals (output of CollectReadCounts).  " +
+            doc = "Input TSV, HDF5, or binary files containing integer read counts in genomic intervals for all samples in the panel of normals (output of CollectReadCounts).  " +
                     "Intervals must be identical and in the same order for all samples.",
             fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
             shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME,
@@ -251,6 +263,16 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
     )
     private int maximumChunkSize = DEFAULT_MAXIMUM_CHUNK_SIZE;
 
+    @Advanced
+    @Argument(
+            doc = "If true, create the panel of normals without holding the full matrix of read counts in memory.  " +
+                    "Read counts are streamed into a temporary HDF5 file, which is read in blocks of at most the " +
+                    "maximum chunk size to perform filtering and to compute a randomized truncated SVD.",
+            fullName = OUT_OF_CORE_LONG_NAME,
+            optional = true
+    )
+    private boolean isOutOfCore = false;
+
     @Override
     protected void runPipeline(final JavaSparkContext ctx) {
         if (!new HDF5Library().load(null)) {  //Note: passing null means using the default temp dir.
@@ -269,6 +291,10 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
         final File firstReadCountFile = inputReadCountFiles.get(0);
         logger.info(String.format("Retrieving intervals from first read-counts file (%s)...", firstReadCountFile));
         final SimpleCountCollection firstReadCounts = SimpleCountCollection.read(firstReadCountFile);
+        //if the first file is binary, remaining binary files with an identical interval header are loaded without decoding intervals
+        final BinarySimpleCountCollection firstBinaryReadCounts = BinarySimpleCountCollection.isBinaryFile(firstReadCountFile)
+                ? new BinarySimpleCountCollection(firstReadCountFile)
+                : null;
         final SAMSequenceDictionary sequenceDictionary = firstReadCounts.getMetadata().getSequenceDictionary();
         final List<SimpleInterval> intervals = firstReadCounts.getIntervals();
         Utils.validateArg(firstReadCounts.size() <= maximumChunkSize,
@@ -282,17 +308,30 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
                 ? null
                 : annotatedIntervals.getRecords().stream().mapToDouble(i -> i.getAnnotationSet().getGCContent()).toArray();
 
-        //validate input read-counts files (i.e., check intervals and that only integer counts are contained)
-        //and aggregate as a RealMatrix with dimensions numIntervals x numSamples
-        final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, sequenceDictionary, intervals);
+        if (isOutOfCore) {
+            //validate input read-counts files as they are streamed one sample at a time
+            final Iterator<double[]> readCountIterator = readCountIterator(logger, inputReadCountFiles, firstBinaryReadCounts, sequenceDictionary, intervals);
+
+            //create the PoN
+            logger.info("Creating the panel of normals out of core...");
+            HDF5SVDReadCountPanelOfNormals.createOutOfCore(outputPanelOfNormalsFile, getCommandLine(),
+                    sequenceDictionary, readCountIterator, sampleFilenames, intervals, intervalGCContent,
+                    minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                    extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
+                    maximumChunkSize);
+        } else {
+            //validate input read-counts files (i.e., check intervals and that only integer counts are contained)
+            //and aggregate as a RealMatrix with dimensions numIntervals x numSamples
+            final RealMatrix readCountMatrix = constructReadCountMatrix(logger, inputReadCountFiles, firstBinaryReadCounts, sequenceDictionary, intervals);
 
-        //create the PoN
-        logger.info("Creating the panel of normals...");
-        HDF5SVDReadCountPanelOfNormals.create(outputPanelOfNormalsFile, getCommandLine(),
-                sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
-                minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
-                extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
-                maximumChunkSize, ctx);
+            //create the PoN
+            logger.info("Creating the panel of normals...");
+            HDF5SVDReadCountPanelOfNormals.create(outputPanelOfNormalsFile, getCommandLine(),
+                    sequenceDictionary, readCountMatrix, sampleFilenames, intervals, intervalGCContent,
+                    minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                    extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile, numEigensamplesRequested,
+                    maximumChunkSize, ctx);
+        }
 
         logger.info("Panel of normals successfully created.");
     }
@@ -310,6 +349,7 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
 
     private static RealMatrix constructReadCountMatrix(final Logger logger,
                                                        final List<File> inputReadCountFiles,
+                                                       final BinarySimpleCountCollection firstBinaryReadCounts,
                                                        final SAMSequenceDictionary sequenceDictionary,
                                                        final List<SimpleInterval> intervals) {
         logger.info("Validating and aggregating input read-counts files...");
@@ -321,14 +361,58 @@ public final class CreateReadCountPanelOfNormals extends SparkCommandLineProgram
             final int sampleIndex = inputReadCountFilesIterator.nextIndex();
             final File inputReadCountFile = inputReadCountFilesIterator.next();
             logger.info(String.format("Aggregating read-counts file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
-            final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
-            if (!CopyNumberArgumentValidationUtils.isSameDictionary(readCounts.getMetadata().getSequenceDictionary(), sequenceDictionary)) {
-                logger.warn(String.format("Sequence dictionary for read-counts file %s does not match those in other read-counts files.", inputReadCountFile));
-            }
-            Utils.validateArg(readCounts.getIntervals().equals(intervals),
-                    String.format("Intervals for read-counts file %s do not match those in other read-counts files.", inputReadCountFile));
-            readCountMatrix.setRow(sampleIndex, readCounts.getCounts());
+            readCountMatrix.setRow(sampleIndex, readAndValidateCounts(logger, inputReadCountFile, firstBinaryReadCounts, sequenceDictionary, intervals));
         }
         return readCountMatrix;
     }
+
+    /**
+     * Returns an iterator over the read counts for each sample, which are read and validated only as they are requested.
+     */
+    private static Iterator<double[]> readCountIterator(final Logger logger,
+                                                        final List<File> inputReadCountFiles,
+                                                        final BinarySimpleCountCollection firstBinaryReadCounts,
+                                                        final SAMSequenceDictionary sequenceDictionary,
+                                                        final List<SimpleInterval> intervals) {
+        logger.info("Validating and streaming input read-counts files...");
+        final int numSamples = inputReadCountFiles.size();
+        final ListIterator<File> inputReadCountFilesIterator = inputReadCountFiles.listIterator();
+        return new Iterator<double[]>() {
+            @Override
+            public boolean hasNext() {
+                return inputReadCountFilesIterator.hasNext();
+            }
+
+            @Override
+            public double[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int sampleIndex = inputReadCountFilesIterator.nextIndex();
+                final File inputReadCountFile = inputReadCountFilesIterator.next();
+                logger.info(String.format("Streaming read-counts file %s (%d / %d)", inputReadCountFile, sampleIndex + 1, numSamples));
+                return readAndValidateCounts(logger, inputReadCountFile, firstBinaryReadCounts, sequenceDictionary, intervals);
+            }
+        };
+    }
+
+    private static double[] readAndValidateCounts(final Logger logger,
+                                                  final File inputReadCountFile,
+                                                  final BinarySimpleCountCollection firstBinaryReadCounts,
+                                                  final SAMSequenceDictionary sequenceDictionary,
+                                                  final List<SimpleInterval> intervals) {
+        if (firstBinaryReadCounts != null && BinarySimpleCountCollection.isBinaryFile(inputReadCountFile)) {
+            final BinarySimpleCountCollection binaryReadCounts = new BinarySimpleCountCollection(inputReadCountFile);
+            if (binaryReadCounts.hasSameIntervalHeader(firstBinaryReadCounts)) {
+                return binaryReadCounts.getCounts();
+            }
+        }
+        final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
+        if (!CopyNumberArgumentValidationUtils.isSameDictionary(readCounts.getMetadata().getSequenceDictionary(), sequenceDictionary)) {
+            logger.warn(String.format("Sequence dictionary for read-counts file %s does not match those in other read-counts files.", inputReadCountFile));
+        }
+        Utils.validateArg(readCounts.getIntervals().equals(intervals),
+                String.format("Intervals for read-counts file %s do not match those in other read-counts files.", inputReadCountFile));
+        return readCounts.getCounts();
+    }
 }
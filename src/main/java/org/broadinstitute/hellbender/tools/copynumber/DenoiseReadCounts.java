@@ -60,7 +60,7 @@ import java.io.File;
  *
  * <ul>
  *     <li>
- *         Counts TSV or HDF5 file from {@link CollectReadCounts}.
+ *         Counts TSV, HDF5, or binary file from {@link CollectReadCounts}.
  *     </li>
  *     <li>
  *         (Optional) Panel-of-normals from {@link CreateReadCountPanelOfNormals}.
@@ -126,7 +126,7 @@ import java.io.File;
 @BetaFeature
 public final class DenoiseReadCounts extends CommandLineProgram {
     @Argument(
-            doc = "Input TSV or HDF5 file containing integer read counts in genomic intervals for a single case sample (output of CollectReadCounts).",
+            doc = "Input TSV, HDF5, or binary file containing integer read counts in genomic intervals for a single case sample (output of CollectReadCounts).",
             fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
             shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME
     )
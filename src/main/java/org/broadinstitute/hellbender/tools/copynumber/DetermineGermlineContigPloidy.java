@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgume
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberStandardArgument;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.GermlineContigPloidyHybridADVIArgumentCollection;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.GermlineContigPloidyModelArgumentCollection;
+import org.broadinstitute.hellbender.tools.copynumber.formats.collections.BinarySimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CoveragePerContigCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleIntervalCollection;
@@ -29,8 +30,8 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 /**
- * Determines the integer ploidy state of all contigs for germline samples given counts data. These should be either
- * HDF5 or TSV count files generated by {@link CollectReadCounts}.
+ * Determines the integer ploidy state of all contigs for germline samples given counts data. These should be
+ * HDF5, TSV, or binary count files generated by {@link CollectReadCounts}.
  *
  * <h3>Introduction</h3>
  *
@@ -311,12 +312,29 @@ public final class DetermineGermlineContigPloidy extends CommandLineProgram {
         final List<CoveragePerContig> coveragePerContigs = new ArrayList<>(numSamples);
         final List<String> contigs = intervals.stream().map(SimpleInterval::getContig).distinct()
                 .collect(Collectors.toList());
+        //if the first file is binary, remaining binary files with an identical interval header are loaded without decoding intervals
+        final File firstReadCountFile = inputReadCountFiles.get(0);
+        final BinarySimpleCountCollection firstBinaryReadCounts = BinarySimpleCountCollection.isBinaryFile(firstReadCountFile)
+                ? new BinarySimpleCountCollection(firstReadCountFile)
+                : null;
         final ListIterator<File> inputReadCountFilesIterator = inputReadCountFiles.listIterator();
         while (inputReadCountFilesIterator.hasNext()) {
             final int sampleIndex = inputReadCountFilesIterator.nextIndex();
             final File inputReadCountFile = inputReadCountFilesIterator.next();
             logger.info(String.format("Aggregating read-count file %s (%d / %d)",
                     inputReadCountFile, sampleIndex + 1, numSamples));
+            if (firstBinaryReadCounts != null && BinarySimpleCountCollection.isBinaryFile(inputReadCountFile)) {
+                final BinarySimpleCountCollection binaryReadCounts = new BinarySimpleCountCollection(inputReadCountFile);
+                if (binaryReadCounts.hasSameIntervalHeader(firstBinaryReadCounts)) {
+                    final double[] counts = binaryReadCounts.getCounts();
+                    final LinkedHashMap<String, Integer> coveragePerContig = new LinkedHashMap<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        coveragePerContig.merge(intervals.get(i).getContig(), (int) counts[i], Integer::sum);
+                    }
+                    coveragePerContigs.add(new CoveragePerContig(binaryReadCounts.getSampleName(), coveragePerContig));
+                    continue;
+                }
+            }
             final SimpleCountCollection readCounts = SimpleCountCollection.read(inputReadCountFile);
             if (!CopyNumberArgumentValidationUtils.isSameDictionary(
                     readCounts.getMetadata().getSequenceDictionary(), metadata.getSequenceDictionary())) {
@@ -27,7 +27,7 @@ import java.util.stream.Collectors;
 
 /**
  * Calls copy-number variants in germline samples given their counts and the corresponding output of
- * {@link DetermineGermlineContigPloidy}. The former should be either HDF5 or TSV count files generated by
+ * {@link DetermineGermlineContigPloidy}. The former should be HDF5, TSV, or binary count files generated by
  * {@link CollectReadCounts}.
  *
  * <h3>Introduction</h3>
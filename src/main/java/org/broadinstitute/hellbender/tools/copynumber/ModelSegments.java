@@ -234,6 +234,7 @@ public final class ModelSegments extends CommandLineProgram {
     public static final String KERNEL_APPROXIMATION_DIMENSION_LONG_NAME = "kernel-approximation-dimension";
     public static final String WINDOW_SIZE_LONG_NAME = "window-size";
     public static final String NUMBER_OF_CHANGEPOINTS_PENALTY_FACTOR_LONG_NAME = "number-of-changepoints-penalty-factor";
+    public static final String NUMBER_OF_SEGMENTATION_THREADS_LONG_NAME = "number-of-segmentation-threads";
 
     //MCMC argument names
     public static final String MINOR_ALLELE_FRACTION_PRIOR_ALPHA_LONG_NAME = "minor-allele-fraction-prior-alpha";
@@ -241,6 +242,7 @@ public final class ModelSegments extends CommandLineProgram {
     public static final String NUMBER_OF_BURN_IN_SAMPLES_COPY_RATIO_LONG_NAME = "number-of-burn-in-samples-copy-ratio";
     public static final String NUM_SAMPLES_ALLELE_FRACTION_LONG_NAME = "number-of-samples-allele-fraction";
     public static final String NUM_BURN_IN_ALLELE_FRACTION_LONG_NAME = "number-of-burn-in-samples-allele-fraction";
+    public static final String NUMBER_OF_MCMC_CHAINS_LONG_NAME = "number-of-mcmc-chains";
 
     //smoothing argument names
     public static final String SMOOTHING_CREDIBLE_INTERVAL_THRESHOLD_COPY_RATIO_LONG_NAME = "smoothing-credible-interval-threshold-copy-ratio";
@@ -377,6 +379,17 @@ public final class ModelSegments extends CommandLineProgram {
     )
     private double numChangepointsPenaltyFactor = 1.;
 
+    @Argument(
+            doc = "Maximum number of chromosomes to segment in parallel.  " +
+                    "Peak memory used by segmentation grows with this number, as each chromosome being segmented holds " +
+                    "its own N x (kernel approximation dimension) matrix.  " +
+                    "Segmentation results do not depend on this number.",
+            fullName = NUMBER_OF_SEGMENTATION_THREADS_LONG_NAME,
+            minValue = 1,
+            optional = true
+    )
+    private int numSegmentationThreads = 2;
+
     @Argument(
             doc = "Alpha hyperparameter for the 4-parameter beta-distribution prior on segment minor-allele fraction. " +
                     "The prior for the minor-allele fraction f in each segment is assumed to be Beta(alpha, 1, 0, 1/2). " +
@@ -419,6 +432,17 @@ public final class ModelSegments extends CommandLineProgram {
     )
     private int numBurnInAlleleFraction = 50;
 
+    @Argument(
+            doc = "Number of independent MCMC chains to run in parallel for both the copy-ratio and allele-fraction models.  " +
+                    "The specified numbers of samples and burn-in samples are taken from each chain and post-burn-in samples " +
+                    "from all chains are pooled.  If more than one chain is run, potential scale reduction factors " +
+                    "are logged to diagnose convergence.",
+            fullName = NUMBER_OF_MCMC_CHAINS_LONG_NAME,
+            optional = true,
+            minValue = 1
+    )
+    private int numChains = 1;
+
     @Argument(
             doc = "Number of 10% equal-tailed credible-interval widths to use for copy-ratio segmentation smoothing.",
             fullName = SMOOTHING_CREDIBLE_INTERVAL_THRESHOLD_COPY_RATIO_LONG_NAME,
@@ -494,7 +518,7 @@ public final class ModelSegments extends CommandLineProgram {
                     .findSegmentation(maxNumSegmentsPerChromosome,
                             kernelVarianceCopyRatio, kernelVarianceAlleleFraction, kernelScalingAlleleFraction, kernelApproximationDimension,
                             ImmutableSet.copyOf(windowSizes).asList(),
-                            numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+                            numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, numSegmentationThreads);
         }
 
         logger.info("Modeling available denoised copy ratios and heterozygous allelic counts...");
@@ -503,7 +527,7 @@ public final class ModelSegments extends CommandLineProgram {
         final MultidimensionalModeller modeller = new MultidimensionalModeller(
                 multidimensionalSegments, denoisedCopyRatios, hetAllelicCounts, alleleFractionPrior,
                 numSamplesCopyRatio, numBurnInCopyRatio,
-                numSamplesAlleleFraction, numBurnInAlleleFraction);
+                numSamplesAlleleFraction, numBurnInAlleleFraction, numChains);
 
         //write initial segments and parameters to file
         writeModeledSegmentsAndParameterFiles(modeller, BEGIN_FIT_FILE_TAG);
@@ -575,7 +599,7 @@ public final class ModelSegments extends CommandLineProgram {
         return new CopyRatioKernelSegmenter(denoisedCopyRatios)
                 .findSegmentation(maxNumChangepointsPerChromosome, kernelVarianceCopyRatio, kernelApproximationDimension,
                         ImmutableSet.copyOf(windowSizes).asList(),
-                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, numSegmentationThreads);
     }
 
     private AllelicCountCollection genotypeHets(final SampleLocatableMetadata metadata,
@@ -706,7 +730,7 @@ public final class ModelSegments extends CommandLineProgram {
         return new AlleleFractionKernelSegmenter(hetAllelicCounts)
                 .findSegmentation(maxNumChangepointsPerChromosome, kernelVarianceAlleleFraction, kernelApproximationDimension,
                         ImmutableSet.copyOf(windowSizes).asList(),
-                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor);
+                        numChangepointsPenaltyFactor, numChangepointsPenaltyFactor, numSegmentationThreads);
     }
 
     private void writeModeledSegmentsAndParameterFiles(final MultidimensionalModeller modeller,
@@ -18,16 +18,19 @@ import org.broadinstitute.hdf5.HDF5LibException;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
+import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5TiledDoubleMatrix;
 import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.spark.SparkConverter;
+import org.broadinstitute.hellbender.utils.svd.RandomizedTruncatedSVD;
 
 import java.io.File;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -94,6 +97,15 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
     private static final int NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION = 100;
     private static final double EPSILON = 1E-9;
 
+    //parameters for the randomized SVD used when creating the panel out of core
+    private static final int RANDOMIZED_SVD_OVERSAMPLING = 10;
+    private static final int RANDOMIZED_SVD_NUM_POWER_ITERATIONS = 2;
+    private static final int RANDOMIZED_SVD_SEED = 1216;
+
+    //paths in the scratch file used when creating the panel out of core
+    private static final String SCRATCH_FRACTIONAL_COVERAGE_PATH = "/fractional_coverage";
+    private static final String SCRATCH_STANDARDIZED_VALUES_PATH = "/standardized_values";
+
     /**
      * The version number is a double where the integer part is the
      * major version and the decimal part is the minor version.
@@ -293,25 +305,10 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                             minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
                             extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile);
 
-            //filter samples and intervals
-            final List<String> panelSampleFilenames = IntStream.range(0, originalSampleFilenames.size())
-                    .filter(sampleIndex -> !preprocessedStandardizedResult.filterSamples[sampleIndex])
-                    .mapToObj(originalSampleFilenames::get).collect(Collectors.toList());
-            final List<SimpleInterval> panelIntervals = IntStream.range(0, originalIntervals.size())
-                    .filter(intervalIndex -> !preprocessedStandardizedResult.filterIntervals[intervalIndex])
-                    .mapToObj(originalIntervals::get).collect(Collectors.toList());
-
-            logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
-            pon.writePanelSampleFilenames(panelSampleFilenames);
-
-            logger.info(String.format("Writing panel intervals (%d)...", panelIntervals.size()));
-            pon.writePanelIntervals(panelIntervals);
-
-            //get panel interval fractional medians (calculated as an intermediate result during preprocessing)
-            final double[] panelIntervalFractionalMedians = preprocessedStandardizedResult.panelIntervalFractionalMedians;
-
-            logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
-            pon.writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
+            //filter samples and intervals and write panel interval fractional medians (calculated as an intermediate result during preprocessing)
+            pon.writePanelSampleFilenamesIntervalsAndFractionalMedians(originalSampleFilenames, originalIntervals,
+                    preprocessedStandardizedResult.filterSamples, preprocessedStandardizedResult.filterIntervals,
+                    preprocessedStandardizedResult.panelIntervalFractionalMedians);
 
             final int numPanelSamples = preprocessedStandardizedResult.preprocessedStandardizedValues.getRowDimension();
             final int numPanelIntervals = preprocessedStandardizedResult.preprocessedStandardizedValues.getColumnDimension();
@@ -329,15 +326,7 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
                         ctx, preprocessedStandardizedResult.preprocessedStandardizedValues.transpose(), NUM_SLICES_FOR_SPARK_MATRIX_CONVERSION)
                         .computeSVD(numEigensamples, true, EPSILON);
                 final double[] singularValues = svd.s().toArray();    //should be in decreasing order (with corresponding matrices below)
-                if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
-                    //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
-                    throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
-                            "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
-                }
-                if (singularValues.length < numEigensamples) {
-                    logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
-                            numEigensamples, singularValues.length));
-                }
+                validateSingularValues(singularValues, numEigensamples);
                 final double[][] eigensampleVectors = SparkConverter.convertSparkRowMatrixToRealMatrix(svd.U(), numPanelIntervals).getData();
 
                 logger.info(String.format("Writing singular values (%d)...", singularValues.length));
@@ -361,6 +350,152 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         logger.info(String.format("Read-count panel of normals written to %s.", outFile));
     }
 
+    /**
+     * Create the panel of normals and write it to an HDF5 file, without holding the full matrix of read counts in memory.
+     * Read counts for each sample are consumed from {@code originalReadCounts} (in the same order as
+     * {@code originalSampleFilenames}) and written both to the panel and, after transformation to fractional coverage,
+     * to a tiled matrix in a temporary HDF5 file; filtering, imputation, truncation, and standardization
+     * are then performed by passes over blocks of this matrix and the SVD is computed by a randomized algorithm
+     * (see {@link RandomizedTruncatedSVD}) that also requires only passes over blocks of samples.
+     * At most {@code maximumChunkSize} values are held in memory in each block, if possible.
+     * The panel of normals produced has the same format as that produced by {@link #create}; up to the
+     * approximation error of the randomized SVD, it also has the same contents.
+     * If the file exists, it will be overwritten.
+     */
+    public static void createOutOfCore(final File outFile,
+                                       final String commandLine,
+                                       final SAMSequenceDictionary sequenceDictionary,
+                                       final Iterator<double[]> originalReadCounts,
+                                       final List<String> originalSampleFilenames,
+                                       final List<SimpleInterval> originalIntervals,
+                                       final double[] intervalGCContent,
+                                       final double minimumIntervalMedianPercentile,
+                                       final double maximumZerosInSamplePercentage,
+                                       final double maximumZerosInIntervalPercentage,
+                                       final double extremeSampleMedianPercentile,
+                                       final boolean doImputeZeros,
+                                       final double extremeOutlierTruncationPercentile,
+                                       final int numEigensamplesRequested,
+                                       final int maximumChunkSize) {
+        final File scratchFile = IOUtils.createTempFile("create-read-count-panel-of-normals-scratch", ".hdf5");
+        try (final HDF5File file = new HDF5File(outFile, HDF5File.OpenMode.CREATE);
+             final HDF5File scratch = new HDF5File(scratchFile, HDF5File.OpenMode.CREATE)) {
+            logger.info("Creating " + outFile.getAbsolutePath() + "...");
+            final HDF5SVDReadCountPanelOfNormals pon = new HDF5SVDReadCountPanelOfNormals(file);
+
+            logger.info(String.format("Writing version number (" + PON_VERSION_STRING_FORMAT + ")...", CURRENT_PON_VERSION));
+            pon.writeVersion(CURRENT_PON_VERSION);
+
+            logger.info("Writing command line...");
+            pon.writeCommandLine(commandLine);
+
+            logger.info("Writing sequence dictionary...");
+            pon.writeSequenceDictionary(sequenceDictionary);
+
+            //stream read counts into the panel and fractional coverage into the scratch file
+            final int numOriginalSamples = originalSampleFilenames.size();
+            final int numOriginalIntervals = originalIntervals.size();
+            logger.info(String.format("Writing original read counts (%d x %d) and transforming to fractional coverage...",
+                    numOriginalIntervals, numOriginalSamples));
+            final HDF5TiledDoubleMatrix fractionalCoverage = new HDF5TiledDoubleMatrix(
+                    scratch, SCRATCH_FRACTIONAL_COVERAGE_PATH, numOriginalSamples, numOriginalIntervals, maximumChunkSize);
+            try (final HDF5Utils.ChunkedDoubleMatrixWriter originalReadCountsWriter = new HDF5Utils.ChunkedDoubleMatrixWriter(
+                    file, ORIGINAL_READ_COUNTS_PATH, numOriginalIntervals, maximumChunkSize)) {
+                while (originalReadCounts.hasNext()) {
+                    final double[] sampleReadCounts = originalReadCounts.next();
+                    originalReadCountsWriter.writeRow(sampleReadCounts);
+                    fractionalCoverage.writeRow(
+                            SVDDenoisingUtils.transformToFractionalCoverageAndCorrectGCBias(sampleReadCounts, intervalGCContent));
+                }
+                Utils.validate(originalReadCountsWriter.getNumRowsWritten() == numOriginalSamples,
+                        "Number of samples in read counts does not match number of sample filenames.");
+            }
+
+            logger.info(String.format("Writing original sample filenames (%d)...", originalSampleFilenames.size()));
+            pon.writeOriginalSampleFilenames(originalSampleFilenames);
+
+            logger.info(String.format("Writing original intervals (%d)...", originalIntervals.size()));
+            pon.writeOriginalIntervals(originalIntervals);
+
+            if (intervalGCContent != null) {
+                logger.info(String.format("Writing GC-content annotations for original intervals (%d)...", intervalGCContent.length));
+                pon.writeOriginalIntervalGCContent(intervalGCContent);
+            }
+
+            //preprocess and standardize read counts and determine filters
+            //(standardized values for the panel are written to the scratch file)
+            logger.info("Preprocessing and standardizing read counts...");
+            final SVDDenoisingUtils.OutOfCorePreprocessedStandardizedResult preprocessedStandardizedResult =
+                    SVDDenoisingUtils.preprocessAndStandardizePanel(fractionalCoverage,
+                            minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                            extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile,
+                            scratch, SCRATCH_STANDARDIZED_VALUES_PATH, maximumChunkSize);
+
+            //filter samples and intervals and write panel interval fractional medians (calculated as an intermediate result during preprocessing)
+            pon.writePanelSampleFilenamesIntervalsAndFractionalMedians(originalSampleFilenames, originalIntervals,
+                    preprocessedStandardizedResult.filterSamples, preprocessedStandardizedResult.filterIntervals,
+                    preprocessedStandardizedResult.panelIntervalFractionalMedians);
+
+            final RandomizedTruncatedSVD.RowBlockMatrix preprocessedStandardizedValues = preprocessedStandardizedResult.preprocessedStandardizedValues;
+            final int numPanelSamples = preprocessedStandardizedValues.getNumRows();
+            final int numPanelIntervals = preprocessedStandardizedValues.getNumColumns();
+
+            //perform SVD, handling number of eigensamples requested vs. that available in filtered panel vs. that available from actual decomposition
+            final int numEigensamples = Math.min(numEigensamplesRequested, Math.min(numPanelSamples, numPanelIntervals));
+            if (numEigensamples < numEigensamplesRequested) {
+                logger.warn(String.format("%d eigensamples were requested but only %d are available in the panel of normals...",
+                        numEigensamplesRequested, numEigensamples));
+            }
+            logger.info(String.format("Performing randomized SVD (truncated at %d eigensamples) of standardized counts (transposed to %d x %d)...",
+                    numEigensamples, numPanelIntervals, numPanelSamples));
+            if (numPanelSamples > 1 && numEigensamples > 0) {
+                final RandomizedTruncatedSVD svd = RandomizedTruncatedSVD.compute(preprocessedStandardizedValues, numEigensamples,
+                        RANDOMIZED_SVD_OVERSAMPLING, RANDOMIZED_SVD_NUM_POWER_ITERATIONS, RANDOMIZED_SVD_SEED);
+                //as in the Spark SVD, singular values below a threshold relative to the largest are dropped
+                final double[] allSingularValues = svd.getSingularValues();
+                final double singularValueThreshold = EPSILON * allSingularValues[0];
+                final int numSingularValues = (int) Arrays.stream(allSingularValues).filter(s -> s > singularValueThreshold).count();
+                final double[] singularValues = Arrays.copyOf(allSingularValues, numSingularValues);
+                validateSingularValues(singularValues, numEigensamples);
+                //the right singular vectors of the samples x intervals matrix are the eigensamples
+                final double[][] transposedEigensampleVectors = Arrays.copyOf(svd.getTransposedRightSingularVectors(), numSingularValues);
+
+                logger.info(String.format("Writing singular values (%d)...", singularValues.length));
+                pon.writeSingularValues(singularValues);
+
+                logger.info(String.format("Writing eigensample vectors (transposed to %d x %d)...", transposedEigensampleVectors.length, numPanelIntervals));
+                pon.writeTransposedEigensampleVectors(transposedEigensampleVectors, maximumChunkSize);
+            } else {
+                //if the panel only contains a single sample or zero eigensamples were requested,
+                //we do not store singular values or eigenvectors in the panel
+                logger.info("No eigensamples could be computed because only a single sample was provided or no eigensamples were requested.");
+            }
+        } catch (final RuntimeException exception) {
+            //if any exceptions encountered, delete partial output and rethrow
+            logger.warn(String.format("Exception encountered during creation of panel of normals (%s).  Attempting to delete partial output in %s...",
+                    exception, outFile.getAbsolutePath()));
+            IOUtils.tryDelete(outFile);
+            throw new GATKException(String.format("Could not create panel of normals.  It may be necessary to use stricter parameters for filtering.  " +
+                    "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME),  exception);
+        } finally {
+            IOUtils.tryDelete(scratchFile);
+        }
+        logger.info(String.format("Read-count panel of normals written to %s.", outFile));
+    }
+
+    private static void validateSingularValues(final double[] singularValues,
+                                               final int numEigensamples) {
+        if (singularValues.length == 0 || Arrays.stream(singularValues).noneMatch(s -> s > EPSILON)) {
+            //if the panel contains more than one sample, we require that at least one non-negligible singular value is found
+            throw new UserException(String.format("No non-zero singular values were found.  It may be necessary to use stricter parameters for filtering.  " +
+                    "For example, use a larger value of %s.", CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
+        }
+        if (singularValues.length < numEigensamples) {
+            logger.warn(String.format("Attempted to truncate at %d eigensamples, but only %d non-zero singular values were found...",
+                    numEigensamples, singularValues.length));
+        }
+    }
+
     //PRIVATE WRITERS (write values to HDF5 file)
     //these are private to prevent fields from being written individually, which could leave the file in a bad state
 
@@ -407,6 +542,28 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         file.makeDoubleArray(PANEL_INTERVAL_FRACTIONAL_MEDIANS_PATH, panelIntervalFractionalMedians);
     }
 
+    private void writePanelSampleFilenamesIntervalsAndFractionalMedians(final List<String> originalSampleFilenames,
+                                                                        final List<SimpleInterval> originalIntervals,
+                                                                        final boolean[] filterSamples,
+                                                                        final boolean[] filterIntervals,
+                                                                        final double[] panelIntervalFractionalMedians) {
+        final List<String> panelSampleFilenames = IntStream.range(0, originalSampleFilenames.size())
+                .filter(sampleIndex -> !filterSamples[sampleIndex])
+                .mapToObj(originalSampleFilenames::get).collect(Collectors.toList());
+        final List<SimpleInterval> panelIntervals = IntStream.range(0, originalIntervals.size())
+                .filter(intervalIndex -> !filterIntervals[intervalIndex])
+                .mapToObj(originalIntervals::get).collect(Collectors.toList());
+
+        logger.info(String.format("Writing panel sample filenames (%d)...", panelSampleFilenames.size()));
+        writePanelSampleFilenames(panelSampleFilenames);
+
+        logger.info(String.format("Writing panel intervals (%d)...", panelIntervals.size()));
+        writePanelIntervals(panelIntervals);
+
+        logger.info(String.format("Writing panel interval fractional medians (%d)...", panelIntervalFractionalMedians.length));
+        writePanelIntervalFractionalMedians(panelIntervalFractionalMedians);
+    }
+
     private void writeSingularValues(final double[] singularValues) {
         file.makeDoubleArray(PANEL_SINGULAR_VALUES_PATH, singularValues);
     }
@@ -416,4 +573,9 @@ public final class HDF5SVDReadCountPanelOfNormals implements SVDReadCountPanelOf
         HDF5Utils.writeChunkedDoubleMatrix(file, PANEL_EIGENSAMPLE_VECTORS_PATH,
                 new Array2DRowRealMatrix(eigensampleVectors, false).transpose().getData(), maximumChunkSize);
     }
-}
\ No newline at end of file
+
+    private void writeTransposedEigensampleVectors(final double[][] transposedEigensampleVectors,
+                                                   final int maximumChunkSize) {
+        HDF5Utils.writeChunkedDoubleMatrix(file, PANEL_EIGENSAMPLE_VECTORS_PATH, transposedEigensampleVectors, maximumChunkSize);
+    }
+}
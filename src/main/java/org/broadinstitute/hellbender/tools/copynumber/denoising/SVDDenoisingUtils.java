@@ -8,20 +8,27 @@ import org.apache.commons.math3.stat.descriptive.rank.Median;
 import org.apache.commons.math3.stat.descriptive.rank.Percentile;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hdf5.HDF5File;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.copynumber.CreateReadCountPanelOfNormals;
 import org.broadinstitute.hellbender.tools.copynumber.arguments.CopyNumberArgumentValidationUtils;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleCountCollection;
+import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5TiledDoubleMatrix;
+import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5Utils;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.MatrixSummaryUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.svd.RandomizedTruncatedSVD;
 
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * Utility class for package-private methods for performing SVD-based denoising and related operations.
@@ -38,6 +45,10 @@ public final class SVDDenoisingUtils {
     private static final double INV_LN2 = MathUtils.INV_LOG_2;
     private static final double LN2_EPSILON = Math.log(EPSILON) * INV_LN2;
 
+    //out-of-core percentiles are found by a radix selection on the 64 bits of each value, 16 bits per pass
+    private static final int RADIX_BITS = 16;
+    private static final int RADIX = 1 << RADIX_BITS;
+
     private SVDDenoisingUtils() {}
 
     static final class PreprocessedStandardizedResult {
@@ -100,6 +111,325 @@ public final class SVDDenoisingUtils {
         return preprocessedStandardizedResult;
     }
 
+    /**
+     * Result of the out-of-core version of {@link #preprocessAndStandardizePanel}.  The preprocessed and standardized
+     * values are not held in memory, but can be read in blocks of panel samples from a chunked matrix
+     * stored in a scratch HDF5 file.
+     */
+    static final class OutOfCorePreprocessedStandardizedResult {
+        final RandomizedTruncatedSVD.RowBlockMatrix preprocessedStandardizedValues;
+        final double[] panelIntervalFractionalMedians;
+        final boolean[] filterSamples;
+        final boolean[] filterIntervals;
+
+        private OutOfCorePreprocessedStandardizedResult(final RandomizedTruncatedSVD.RowBlockMatrix preprocessedStandardizedValues,
+                                                        final double[] panelIntervalFractionalMedians,
+                                                        final boolean[] filterSamples,
+                                                        final boolean[] filterIntervals) {
+            this.preprocessedStandardizedValues = preprocessedStandardizedValues;
+            this.panelIntervalFractionalMedians = panelIntervalFractionalMedians;
+            this.filterSamples = filterSamples;
+            this.filterIntervals = filterIntervals;
+        }
+    }
+
+    /**
+     * Transform read counts for a single sample in the panel to fractional coverage and perform optional GC-bias correction,
+     * identically to the first step of {@link #preprocessAndStandardizePanel}.  This is used to build the input to
+     * the out-of-core version of the latter one sample at a time.
+     * The original {@code readCounts} is not modified.
+     * If {@code intervalGCContent} is null, GC-bias correction will not be performed.
+     */
+    static double[] transformToFractionalCoverageAndCorrectGCBias(final double[] readCounts,
+                                                                  final double[] intervalGCContent) {
+        final Array2DRowRealMatrix result = new Array2DRowRealMatrix(new double[][]{readCounts});
+        final double sampleSum = MathUtils.rowSums(result)[0];
+        result.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
+            @Override
+            public double visit(int sampleIndex, int intervalIndex, double value) {
+                return value / sampleSum;
+            }
+        });
+        if (intervalGCContent != null) {
+            GCBiasCorrector.correctGCBias(result, intervalGCContent);
+        }
+        return result.getDataRef()[0];
+    }
+
+    /**
+     * Out-of-core version of {@link #preprocessAndStandardizePanel}, which gives identical results but only holds
+     * blocks of samples or intervals in memory at any time.
+     * The dimensions of {@code fractionalCoverage} should be samples x intervals; it should hold the output of
+     * {@link #transformToFractionalCoverageAndCorrectGCBias} for each sample and is not modified.
+     * Filters and imputed and truncated values are calculated in separate passes over blocks of samples or intervals.
+     * The preprocessed and standardized values for the panel are written to {@code standardizedValuesPath}
+     * in {@code scratchFile} as a chunked matrix with chunks of at most {@code maximumChunkSize} values.
+     */
+    static OutOfCorePreprocessedStandardizedResult preprocessAndStandardizePanel(final HDF5TiledDoubleMatrix fractionalCoverage,
+                                                                                 final double minimumIntervalMedianPercentile,
+                                                                                 final double maximumZerosInSamplePercentage,
+                                                                                 final double maximumZerosInIntervalPercentage,
+                                                                                 final double extremeSampleMedianPercentile,
+                                                                                 final boolean doImputeZeros,
+                                                                                 final double extremeOutlierTruncationPercentile,
+                                                                                 final HDF5File scratchFile,
+                                                                                 final String standardizedValuesPath,
+                                                                                 final int maximumChunkSize) {
+        Utils.nonNull(fractionalCoverage);
+        Utils.nonNull(scratchFile);
+        Utils.nonNull(standardizedValuesPath);
+        final int numOriginalSamples = fractionalCoverage.getNumRows();
+        final int numOriginalIntervals = fractionalCoverage.getNumColumns();
+
+        final boolean[] filterSamples = new boolean[numOriginalSamples];
+        final boolean[] filterIntervals = new boolean[numOriginalIntervals];
+
+        logger.info("Preprocessing read counts...");
+        logger.info(String.format("Calculating interval medians in %d blocks of intervals...", fractionalCoverage.getNumColumnBlocks()));
+        final double[] originalIntervalMedians = new double[numOriginalIntervals];
+        final Median medianCalculator = new Median();
+        for (int columnBlockIndex = 0; columnBlockIndex < fractionalCoverage.getNumColumnBlocks(); columnBlockIndex++) {
+            final double[][] transposedColumnBlock = fractionalCoverage.readTransposedColumnBlock(columnBlockIndex);
+            final int firstIntervalIndex = fractionalCoverage.getColumnBlockStart(columnBlockIndex);
+            for (int i = 0; i < transposedColumnBlock.length; i++) {
+                originalIntervalMedians[firstIntervalIndex + i] = medianCalculator.evaluate(transposedColumnBlock[i]);
+            }
+        }
+
+        //filter intervals by fractional median
+        if (minimumIntervalMedianPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering intervals with median (across samples) less than or equal to the %.2f percentile...", minimumIntervalMedianPercentile));
+            //calculate percentile
+            final double minimumIntervalMedianThreshold = new Percentile(minimumIntervalMedianPercentile).evaluate(originalIntervalMedians);
+            //filter intervals
+            IntStream.range(0, numOriginalIntervals)
+                    .filter(intervalIndex -> originalIntervalMedians[intervalIndex] <= minimumIntervalMedianThreshold)
+                    .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+            logger.info(String.format("After filtering, %d out of %d intervals remain...", countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+        }
+
+        //values are divided by interval medians as they are read in each of the passes below
+        //(only intervals not already filtered are divided by their medians in the in-core version, and the other intervals are not used)
+
+        //filter samples by percentage of zero-coverage intervals not already filtered and
+        //filter intervals by percentage of zero-coverage samples not already filtered;
+        //the samples that pass the first filter are known as each sample is read, so both are done in a single pass
+        final boolean doFilterSamplesByZeros = maximumZerosInSamplePercentage != 100.;
+        final boolean doFilterIntervalsByZeros = maximumZerosInIntervalPercentage != 100.;
+        final int maxZerosInSample = doFilterSamplesByZeros
+                ? calculateMaximumZerosCount(countNumberPassingFilter(filterIntervals), maximumZerosInSamplePercentage)
+                : numOriginalIntervals;
+        final int[] numZerosInIntervals = new int[numOriginalIntervals];
+        if (doFilterSamplesByZeros || doFilterIntervalsByZeros) {
+            forEachSample(fractionalCoverage, (sampleIndex, sampleFractionalCoverage) -> {
+                int numZerosInSample = 0;
+                for (int intervalIndex = 0; intervalIndex < numOriginalIntervals; intervalIndex++) {
+                    if (!filterIntervals[intervalIndex] && sampleFractionalCoverage[intervalIndex] / originalIntervalMedians[intervalIndex] == 0.) {
+                        numZerosInSample++;
+                    }
+                }
+                if (doFilterSamplesByZeros && numZerosInSample > maxZerosInSample) {
+                    filterSamples[sampleIndex] = true;
+                    return;
+                }
+                for (int intervalIndex = 0; intervalIndex < numOriginalIntervals; intervalIndex++) {
+                    if (!filterIntervals[intervalIndex] && sampleFractionalCoverage[intervalIndex] / originalIntervalMedians[intervalIndex] == 0.) {
+                        numZerosInIntervals[intervalIndex]++;
+                    }
+                }
+            });
+        }
+        if (!doFilterSamplesByZeros) {
+            logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering samples with a fraction of zero-coverage intervals above %.2f percent...", maximumZerosInSamplePercentage));
+            logger.info(String.format("After filtering, %d out of %d samples remain...", countNumberPassingFilter(filterSamples), numOriginalSamples));
+        }
+        if (!doFilterIntervalsByZeros) {
+            logger.info(String.format("A value of 100 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering intervals with a fraction of zero-coverage samples above %.2f percent...", maximumZerosInIntervalPercentage));
+            final int maxZerosInInterval = calculateMaximumZerosCount(countNumberPassingFilter(filterSamples), maximumZerosInIntervalPercentage);
+            IntStream.range(0, numOriginalIntervals)
+                    .filter(intervalIndex -> !filterIntervals[intervalIndex] && numZerosInIntervals[intervalIndex] > maxZerosInInterval)
+                    .forEach(intervalIndex -> filterIntervals[intervalIndex] = true);
+            logger.info(String.format("After filtering, %d out of %d intervals remain...", countNumberPassingFilter(filterIntervals), numOriginalIntervals));
+        }
+
+        //filter samples with extreme medians
+        if (extremeSampleMedianPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding filtering step will be skipped...",
+                    CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME));
+        } else {
+            logger.info(String.format("Filtering samples with a median (across intervals) below the %.2f percentile or above the %.2f percentile...",
+                    extremeSampleMedianPercentile, 100. - extremeSampleMedianPercentile));
+            //calculate the medians for all samples (which, although unnecessary, makes bookkeeping easier) across intervals not already filtered
+            final double[] sampleMedians = new double[numOriginalSamples];
+            forEachSample(fractionalCoverage, (sampleIndex, sampleFractionalCoverage) ->
+                    sampleMedians[sampleIndex] = medianCalculator.evaluate(IntStream.range(0, numOriginalIntervals)
+                            .filter(intervalIndex -> !filterIntervals[intervalIndex])
+                            .mapToDouble(intervalIndex -> sampleFractionalCoverage[intervalIndex] / originalIntervalMedians[intervalIndex])
+                            .toArray()));
+            //calculate percentiles
+            final double minimumSampleMedianThreshold = new Percentile(extremeSampleMedianPercentile).evaluate(sampleMedians);
+            final double maximumSampleMedianThreshold = new Percentile(100. - extremeSampleMedianPercentile).evaluate(sampleMedians);
+            //filter samples
+            IntStream.range(0, numOriginalSamples)
+                    .filter(sampleIndex -> sampleMedians[sampleIndex] < minimumSampleMedianThreshold || sampleMedians[sampleIndex] > maximumSampleMedianThreshold)
+                    .forEach(sampleIndex -> filterSamples[sampleIndex] = true);
+            logger.info(String.format("After filtering, %d out of %d samples remain...", countNumberPassingFilter(filterSamples), numOriginalSamples));
+        }
+
+        final int[] panelIntervalIndices = IntStream.range(0, numOriginalIntervals).filter(intervalIndex -> !filterIntervals[intervalIndex]).toArray();
+        final int[] panelSampleIndices = IntStream.range(0, numOriginalSamples).filter(sampleIndex -> !filterSamples[sampleIndex]).toArray();
+        final int numPanelIntervals = panelIntervalIndices.length;
+        final int numPanelSamples = panelSampleIndices.length;
+        final double[] panelIntervalFractionalMedians = Arrays.stream(panelIntervalIndices)
+                .mapToDouble(intervalIndex -> originalIntervalMedians[intervalIndex]).toArray();
+
+        //impute zeros as median of non-zero values in interval
+        final double[] intervalNonZeroMedians;
+        if (!doImputeZeros) {
+            logger.info("Skipping imputation of zero-coverage values...");
+            intervalNonZeroMedians = null;
+        } else {
+            intervalNonZeroMedians = new double[numPanelIntervals];
+            long numImputed = 0;
+            int panelIntervalIndex = 0;
+            for (int columnBlockIndex = 0; columnBlockIndex < fractionalCoverage.getNumColumnBlocks(); columnBlockIndex++) {
+                final int firstIntervalIndex = fractionalCoverage.getColumnBlockStart(columnBlockIndex);
+                final int lastIntervalIndex = firstIntervalIndex + fractionalCoverage.getNumColumnsPerBlock() - 1;
+                if (panelIntervalIndex == numPanelIntervals || panelIntervalIndices[panelIntervalIndex] > lastIntervalIndex) {
+                    continue;
+                }
+                final double[][] transposedColumnBlock = fractionalCoverage.readTransposedColumnBlock(columnBlockIndex);
+                for (; panelIntervalIndex < numPanelIntervals && panelIntervalIndices[panelIntervalIndex] <= lastIntervalIndex; panelIntervalIndex++) {
+                    final int intervalIndex = panelIntervalIndices[panelIntervalIndex];
+                    final double[] intervalFractionalCoverage = transposedColumnBlock[intervalIndex - firstIntervalIndex];
+                    final double[] values = Arrays.stream(panelSampleIndices)
+                            .mapToDouble(sampleIndex -> intervalFractionalCoverage[sampleIndex] / originalIntervalMedians[intervalIndex])
+                            .toArray();
+                    final double[] nonZeroValues = Arrays.stream(values).filter(value -> value > 0.).toArray();
+                    intervalNonZeroMedians[panelIntervalIndex] = medianCalculator.evaluate(nonZeroValues);
+                    numImputed += Arrays.stream(values).filter(value -> value == 0.).count();
+                }
+            }
+            logger.info(String.format("%d zero-coverage values were imputed to the median of the non-zero values in the corresponding interval...",
+                    numImputed));
+        }
+
+        //preprocessed values for the panel are recomputed from the fractional coverage in each remaining pass
+        final Consumer<PanelSampleConsumer> panelPass = panelSampleConsumer -> {
+            final double[] panelSampleValues = new double[numPanelIntervals];
+            final int[] panelSampleIndex = {0};
+            forEachSample(fractionalCoverage, (sampleIndex, sampleFractionalCoverage) -> {
+                if (filterSamples[sampleIndex]) {
+                    return;
+                }
+                for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                    final int intervalIndex = panelIntervalIndices[panelIntervalIndex];
+                    final double value = sampleFractionalCoverage[intervalIndex] / originalIntervalMedians[intervalIndex];
+                    panelSampleValues[panelIntervalIndex] = doImputeZeros && value == 0. ? intervalNonZeroMedians[panelIntervalIndex] : value;
+                }
+                panelSampleConsumer.accept(panelSampleIndex[0]++, panelSampleValues);
+            });
+        };
+
+        //truncate extreme values to the corresponding percentile
+        final double minimumOutlierTruncationThreshold;
+        final double maximumOutlierTruncationThreshold;
+        if (extremeOutlierTruncationPercentile == 0.) {
+            logger.info(String.format("A value of 0 was provided for argument %s, so the corresponding truncation step will be skipped...",
+                    CreateReadCountPanelOfNormals.EXTREME_OUTLIER_TRUNCATION_PERCENTILE_LONG_NAME));
+            minimumOutlierTruncationThreshold = Double.NEGATIVE_INFINITY;
+            maximumOutlierTruncationThreshold = Double.POSITIVE_INFINITY;
+        } else {
+            logger.info("Calculating percentiles for truncation of extreme values...");
+            final double[] outlierTruncationThresholds = calculatePercentiles(
+                    new double[]{extremeOutlierTruncationPercentile, 100. - extremeOutlierTruncationPercentile},
+                    valueConsumer -> panelPass.accept((panelSampleIndex, panelSampleValues) -> {
+                        for (final double value : panelSampleValues) {
+                            valueConsumer.accept(value);
+                        }
+                    }));
+            minimumOutlierTruncationThreshold = outlierTruncationThresholds[0];
+            maximumOutlierTruncationThreshold = outlierTruncationThresholds[1];
+        }
+
+        //truncate and standardize in a final pass, writing the standardized values before the median of sample medians is subtracted
+        logger.info("Truncating and standardizing read counts...");
+        logger.info("Dividing by sample medians and transforming to log2 space...");
+        final long[] numTruncated = {0};
+        final double[] sampleLog2Medians = new double[numPanelSamples];
+        try (final HDF5Utils.ChunkedDoubleMatrixWriter writer =
+                     new HDF5Utils.ChunkedDoubleMatrixWriter(scratchFile, standardizedValuesPath, numPanelIntervals, maximumChunkSize)) {
+            panelPass.accept((panelSampleIndex, panelSampleValues) -> {
+                final double[] standardizedValues = new double[numPanelIntervals];
+                for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                    final double value = panelSampleValues[panelIntervalIndex];
+                    if (value < minimumOutlierTruncationThreshold) {
+                        numTruncated[0]++;
+                        standardizedValues[panelIntervalIndex] = minimumOutlierTruncationThreshold;
+                    } else if (value > maximumOutlierTruncationThreshold) {
+                        numTruncated[0]++;
+                        standardizedValues[panelIntervalIndex] = maximumOutlierTruncationThreshold;
+                    } else {
+                        standardizedValues[panelIntervalIndex] = value;
+                    }
+                }
+                final double sampleMedian = medianCalculator.evaluate(standardizedValues);
+                ParamUtils.isPositive(sampleMedian, numPanelSamples == 1
+                        ? "Sample does not have a non-negative sample median."
+                        : String.format("Sample at index %s does not have a non-negative sample median.", panelSampleIndex));
+                for (int panelIntervalIndex = 0; panelIntervalIndex < numPanelIntervals; panelIntervalIndex++) {
+                    standardizedValues[panelIntervalIndex] = safeLog2(standardizedValues[panelIntervalIndex] / sampleMedian);
+                }
+                sampleLog2Medians[panelSampleIndex] = medianCalculator.evaluate(standardizedValues);
+                writer.writeRow(standardizedValues);
+            });
+        }
+        if (extremeOutlierTruncationPercentile != 0.) {
+            logger.info(String.format("%d values below the %.2f percentile or above the %.2f percentile were truncated to the corresponding value...",
+                    numTruncated[0], extremeOutlierTruncationPercentile, 100. - extremeOutlierTruncationPercentile));
+        }
+        logger.info("Panel read counts preprocessed.");
+
+        logger.info("Subtracting median of sample medians...");
+        final double medianOfSampleMedians = new Median().evaluate(sampleLog2Medians);
+        final RandomizedTruncatedSVD.RowBlockMatrix preprocessedStandardizedValues = new RandomizedTruncatedSVD.RowBlockMatrix() {
+            @Override
+            public int getNumRows() {
+                return numPanelSamples;
+            }
+
+            @Override
+            public int getNumColumns() {
+                return numPanelIntervals;
+            }
+
+            @Override
+            public void forEachRowBlock(final RandomizedTruncatedSVD.RowBlockConsumer rowBlockConsumer) {
+                HDF5Utils.readChunkedDoubleMatrix(scratchFile, standardizedValuesPath, (firstRowIndex, matrixChunk) -> {
+                    for (final double[] row : matrixChunk) {
+                        for (int panelIntervalIndex = 0; panelIntervalIndex < row.length; panelIntervalIndex++) {
+                            row[panelIntervalIndex] -= medianOfSampleMedians;
+                        }
+                    }
+                    rowBlockConsumer.accept(firstRowIndex, matrixChunk);
+                });
+            }
+        };
+        logger.info("Panel read counts standardized.");
+
+        return new OutOfCorePreprocessedStandardizedResult(
+                preprocessedStandardizedValues, panelIntervalFractionalMedians, filterSamples, filterIntervals);
+    }
+
     /**
      * Perform SVD-based denoising of integer read counts for a single sample using a panel of normals.
      * Only the eigensamples (which are sorted by singular value in decreasing order) specified by
@@ -447,6 +777,141 @@ public final class SVDDenoisingUtils {
         return standardizedValues.subtract(projection);
     }
 
+    @FunctionalInterface
+    private interface PanelSampleConsumer {
+        void accept(final int sampleIndex, final double[] sampleValues);
+    }
+
+    /**
+     * Passes each row of {@code matrix} (i.e., the values for each sample) to {@code sampleConsumer}, in order.
+     */
+    private static void forEachSample(final HDF5TiledDoubleMatrix matrix,
+                                      final PanelSampleConsumer sampleConsumer) {
+        for (int rowBlockIndex = 0; rowBlockIndex < matrix.getNumRowBlocks(); rowBlockIndex++) {
+            final double[][] rowBlock = matrix.readRowBlock(rowBlockIndex);
+            final int firstSampleIndex = matrix.getRowBlockStart(rowBlockIndex);
+            for (int i = 0; i < rowBlock.length; i++) {
+                sampleConsumer.accept(firstSampleIndex + i, rowBlock[i]);
+            }
+        }
+    }
+
+    /**
+     * Calculates percentiles of values that are passed to a {@link DoubleConsumer} by {@code valuesPass},
+     * which may be too many to hold in memory.  Results are identical to those of {@link Percentile#evaluate}
+     * with the default estimation type, for which NaNs are removed.  Each order statistic required is found exactly
+     * by a radix selection on the bits of the values, which requires four calls to {@code valuesPass}.
+     */
+    static double[] calculatePercentiles(final double[] percentiles,
+                                         final Consumer<DoubleConsumer> valuesPass) {
+        Utils.nonNull(percentiles);
+        Utils.nonNull(valuesPass);
+        Arrays.stream(percentiles).forEach(p -> ParamUtils.inRange(p, 0., 100., "Percentiles must be in [0, 100]."));
+
+        //the first pass counts the values and selects the most significant digit of each order statistic
+        final long[] numValues = {0};
+        final long[] firstDigitCounts = new long[RADIX];
+        valuesPass.accept(value -> {
+            if (!Double.isNaN(value)) {
+                numValues[0]++;
+                firstDigitCounts[(int) (toSortableBits(value) >>> (Long.SIZE - RADIX_BITS))]++;
+            }
+        });
+        if (numValues[0] == 0) {
+            final double[] result = new double[percentiles.length];
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+
+        //determine the order statistics required (using the legacy estimation in Percentile)
+        final long length = numValues[0];
+        final double[] positions = Arrays.stream(percentiles)
+                .map(p -> p == 0. ? 0. : p == 100. ? length : (p / 100d) * (length + 1))
+                .toArray();
+        final long[] ranks = Arrays.stream(positions)
+                .mapToObj(position -> position < 1 ? LongStream.of(0)
+                        : position >= length ? LongStream.of(length - 1)
+                        : LongStream.of((long) Math.floor(position) - 1, (long) Math.floor(position)))
+                .flatMapToLong(rankStream -> rankStream)
+                .distinct()
+                .toArray();
+
+        //select the remaining digits of each order statistic from most to least significant
+        final long[] prefixes = new long[ranks.length];
+        final long[] remainingRanks = ranks.clone();
+        for (int rankIndex = 0; rankIndex < ranks.length; rankIndex++) {
+            prefixes[rankIndex] = selectDigit(firstDigitCounts, remainingRanks, rankIndex);
+        }
+        for (int shift = Long.SIZE - 2 * RADIX_BITS; shift >= 0; shift -= RADIX_BITS) {
+            final int digitShift = shift;
+            final long[][] digitCounts = new long[ranks.length][RADIX];
+            valuesPass.accept(value -> {
+                if (!Double.isNaN(value)) {
+                    final long bits = toSortableBits(value);
+                    final long prefix = bits >>> (digitShift + RADIX_BITS);
+                    for (int rankIndex = 0; rankIndex < prefixes.length; rankIndex++) {
+                        if (prefix == prefixes[rankIndex]) {
+                            digitCounts[rankIndex][(int) ((bits >>> digitShift) & (RADIX - 1))]++;
+                        }
+                    }
+                }
+            });
+            for (int rankIndex = 0; rankIndex < ranks.length; rankIndex++) {
+                prefixes[rankIndex] = (prefixes[rankIndex] << RADIX_BITS) | selectDigit(digitCounts[rankIndex], remainingRanks, rankIndex);
+            }
+        }
+
+        final double[] result = new double[percentiles.length];
+        for (int i = 0; i < percentiles.length; i++) {
+            final double position = positions[i];
+            if (position < 1) {
+                result[i] = fromSortableBits(prefixes[indexOf(ranks, 0)]);
+            } else if (position >= length) {
+                result[i] = fromSortableBits(prefixes[indexOf(ranks, length - 1)]);
+            } else {
+                final double floorPosition = Math.floor(position);
+                final double lower = fromSortableBits(prefixes[indexOf(ranks, (long) floorPosition - 1)]);
+                final double upper = fromSortableBits(prefixes[indexOf(ranks, (long) floorPosition)]);
+                result[i] = lower + (position - floorPosition) * (upper - lower);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the digit containing the order statistic with the remaining rank {@code remainingRanks[rankIndex]}
+     * (among values with the digits selected so far) and updates the remaining rank to that among values with this digit.
+     */
+    private static long selectDigit(final long[] digitCounts,
+                                    final long[] remainingRanks,
+                                    final int rankIndex) {
+        for (int digit = 0; digit < digitCounts.length; digit++) {
+            if (remainingRanks[rankIndex] < digitCounts[digit]) {
+                return digit;
+            }
+            remainingRanks[rankIndex] -= digitCounts[digit];
+        }
+        throw new IllegalStateException("Rank exceeds the number of values.");
+    }
+
+    private static int indexOf(final long[] values,
+                               final long value) {
+        return IntStream.range(0, values.length).filter(i -> values[i] == value).findFirst().getAsInt();
+    }
+
+    /**
+     * Maps a double to a long with the same order when compared as unsigned integers
+     * (which is also the order used when sorting doubles).
+     */
+    private static long toSortableBits(final double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits < 0 ? ~bits : bits | Long.MIN_VALUE;
+    }
+
+    private static double fromSortableBits(final long sortableBits) {
+        return Double.longBitsToDouble(sortableBits < 0 ? sortableBits & Long.MAX_VALUE : ~sortableBits);
+    }
+
     private static int countNumberPassingFilter(final boolean[] filter) {
         final int numPassingFilter = (int) IntStream.range(0, filter.length).filter(i -> !filter[i]).count();
         if (numPassingFilter == 0) {
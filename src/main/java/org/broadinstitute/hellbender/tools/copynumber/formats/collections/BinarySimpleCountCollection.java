@@ -0,0 +1,278 @@
+package org.broadinstitute.hellbender.tools.copynumber.formats.collections;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMTextHeaderCodec;
+import htsjdk.samtools.util.BufferedLineReader;
+import htsjdk.samtools.util.Lazy;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Helper class for {@link SimpleCountCollection} used to read/write a compact binary format that can be memory-mapped.
+ * Class is only visible so that it can be referenced in documentation and so that cohort tools can
+ * load counts without decoding intervals.
+ *
+ * <p>
+ *     All values are big-endian and data is stored in the following order:
+ * </p>
+ * <ul>
+ *     <li>
+ *         magic bytes {@code GATKRCB} followed by a single byte containing the format version
+ *     </li>
+ *     <li>
+ *         sample name: length in bytes (int) followed by the UTF-8 encoded name
+ *     </li>
+ *     <li>
+ *         interval header, consisting of
+ *         <ul>
+ *             <li>
+ *                 sequence dictionary: length in bytes (int) followed by the UTF-8 encoded SAM-style header
+ *             </li>
+ *             <li>
+ *                 intervals: the number N of intervals (int) followed by N triples of
+ *                 contig index in the sequence dictionary, start, and end (ints)
+ *             </li>
+ *         </ul>
+ *     </li>
+ *     <li>
+ *         counts: N ints
+ *     </li>
+ * </ul>
+ * <p>
+ *     Count files collected over the same intervals share a byte-identical interval header,
+ *     so that a file can be checked against another using {@link #hasSameIntervalHeader} and its counts
+ *     read directly from the mapped file using {@link #getCounts}, without decoding the sequence dictionary or intervals.
+ * </p>
+ */
+public final class BinarySimpleCountCollection {
+    private static final byte[] MAGIC = "GATKRCB".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 1;
+
+    private final File file;
+    private final String sampleName;
+    private final ByteBuffer intervalHeader;
+    private final int numIntervals;
+    private final IntBuffer counts;
+    private final Lazy<SAMSequenceDictionary> sequenceDictionary;
+    private final Lazy<List<SimpleInterval>> intervals;
+
+    /**
+     * Maps the file and reads the sample name.  The sequence dictionary and intervals are decoded lazily.
+     */
+    public BinarySimpleCountCollection(final File file) {
+        IOUtils.canReadFile(file);
+        this.file = file;
+        final ByteBuffer buffer = map(file);
+        try {
+            Utils.validate(isBinaryHeader(buffer), "File is not a binary read-counts file.");
+            final String sampleName = readString(buffer);
+            final int intervalHeaderStart = buffer.position();
+            final int sequenceDictionaryLength = buffer.getInt();
+            final ByteBuffer sequenceDictionaryBytes = slice(buffer, buffer.position(), sequenceDictionaryLength);
+            buffer.position(buffer.position() + sequenceDictionaryLength);
+            final int numIntervals = buffer.getInt();
+            Utils.validate(numIntervals > 0 && (long) numIntervals * 4 * Integer.BYTES <= buffer.remaining(),
+                    "Number of intervals is inconsistent with file size.");
+            final int intervalsStart = buffer.position();
+            final int countsStart = intervalsStart + 3 * Integer.BYTES * numIntervals;
+            Utils.validate(countsStart + Integer.BYTES * numIntervals == buffer.limit(),
+                    "Number of intervals is inconsistent with file size.");
+            this.sampleName = sampleName;
+            this.numIntervals = numIntervals;
+            intervalHeader = slice(buffer, intervalHeaderStart, countsStart - intervalHeaderStart);
+            counts = slice(buffer, countsStart, Integer.BYTES * numIntervals).asIntBuffer();
+            sequenceDictionary = new Lazy<>(() -> new SAMTextHeaderCodec()
+                    .decode(BufferedLineReader.fromString(StandardCharsets.UTF_8.decode(sequenceDictionaryBytes.duplicate()).toString()),
+                            file.getAbsolutePath())
+                    .getSequenceDictionary());
+            final IntBuffer intervalValues = slice(buffer, intervalsStart, countsStart - intervalsStart).asIntBuffer();
+            intervals = new Lazy<>(() -> decodeIntervals(intervalValues, numIntervals, sequenceDictionary.get()));
+        } catch (final IllegalStateException | IllegalArgumentException | BufferUnderflowException e) {
+            throw new UserException.MalformedFile(file, "Could not read binary read-counts file.", e);
+        }
+    }
+
+    /**
+     * @return true if the file starts with the magic bytes of the binary format
+     */
+    public static boolean isBinaryFile(final File file) {
+        IOUtils.canReadFile(file);
+        final byte[] header = new byte[HEADER_LENGTH];
+        try (final DataInputStream inputStream = new DataInputStream(new FileInputStream(file))) {
+            inputStream.readFully(header);
+        } catch (final EOFException e) {
+            return false;
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+        return isBinaryHeader(ByteBuffer.wrap(header));
+    }
+
+    public String getSampleName() {
+        return sampleName;
+    }
+
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary.get();
+    }
+
+    public SampleLocatableMetadata getMetadata() {
+        return new SimpleSampleLocatableMetadata(sampleName, sequenceDictionary.get());
+    }
+
+    public int size() {
+        return numIntervals;
+    }
+
+    public List<SimpleInterval> getIntervals() {
+        return intervals.get();
+    }
+
+    /**
+     * @return counts read directly from the mapped file
+     */
+    public double[] getCounts() {
+        final IntBuffer countValues = counts.duplicate();
+        final double[] result = new double[numIntervals];
+        for (int i = 0; i < numIntervals; i++) {
+            result[i] = countValues.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the sequence dictionaries and intervals of both files are identical,
+     *         which is checked by comparing their encodings without decoding either
+     */
+    public boolean hasSameIntervalHeader(final BinarySimpleCountCollection other) {
+        Utils.nonNull(other);
+        return intervalHeader.equals(other.intervalHeader);
+    }
+
+    /**
+     * @param intervals note that no particular sort order is assumed or checked for here,
+     *                  but this package-protected method should only be called by {@link SimpleCountCollection#writeBinary},
+     *                  which enforces the order specified by {@link AbstractSampleLocatableCollection}
+     */
+    static void write(final File outFile,
+                      final SampleLocatableMetadata metadata,
+                      final List<SimpleInterval> intervals,
+                      final double[] counts) {
+        Utils.nonNull(outFile);
+        Utils.nonNull(metadata);
+        Utils.nonEmpty(intervals);
+        Utils.nonNull(counts);
+
+        Utils.validateArg(intervals.size() == counts.length, "Number of intervals and counts must match.");
+        Utils.validateArg(intervals.stream().distinct().count() == intervals.size(), "Intervals must all be unique.");
+        Utils.validateArg(Arrays.stream(counts).allMatch(c -> c >= 0 && c <= Integer.MAX_VALUE && c == Math.rint(c)),
+                "Counts must all be non-negative integers.");
+
+        final SAMSequenceDictionary sequenceDictionary = metadata.getSequenceDictionary();
+        final StringWriter stringWriter = new StringWriter();
+        new SAMTextHeaderCodec().encode(stringWriter, new SAMFileHeader(sequenceDictionary));
+        try (final DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outFile)))) {
+            outputStream.write(MAGIC);
+            outputStream.writeByte(VERSION);
+            writeBytes(outputStream, metadata.getSampleName().getBytes(StandardCharsets.UTF_8));
+            writeBytes(outputStream, stringWriter.toString().getBytes(StandardCharsets.UTF_8));
+            outputStream.writeInt(intervals.size());
+            for (final SimpleInterval interval : intervals) {
+                final int contigIndex = sequenceDictionary.getSequenceIndex(interval.getContig());
+                Utils.validateArg(contigIndex >= 0,
+                        String.format("Contig %s is not in the sequence dictionary.", interval.getContig()));
+                outputStream.writeInt(contigIndex);
+                outputStream.writeInt(interval.getStart());
+                outputStream.writeInt(interval.getEnd());
+            }
+            for (final double count : counts) {
+                outputStream.writeInt((int) count);
+            }
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(outFile, e);
+        }
+    }
+
+    private static ByteBuffer map(final File file) {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new UserException.MalformedFile(file, "Binary read-counts file is too large.");
+            }
+            //the mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (final IOException e) {
+            throw new UserException.CouldNotReadInputFile(file, e);
+        }
+    }
+
+    private static boolean isBinaryHeader(final ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_LENGTH) {
+            return false;
+        }
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        return Arrays.equals(magic, MAGIC) && buffer.get() == VERSION;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer,
+                                    final int start,
+                                    final int length) {
+        Utils.validate(length >= 0 && start + length <= buffer.limit(), "Length is inconsistent with file size.");
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(start);
+        duplicate.limit(start + length);
+        return duplicate.slice();
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        final ByteBuffer bytes = slice(buffer, buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private static void writeBytes(final DataOutputStream outputStream,
+                                   final byte[] bytes) throws IOException {
+        outputStream.writeInt(bytes.length);
+        outputStream.write(bytes);
+    }
+
+    private static List<SimpleInterval> decodeIntervals(final IntBuffer intervalValues,
+                                                        final int numIntervals,
+                                                        final SAMSequenceDictionary sequenceDictionary) {
+        final IntBuffer values = intervalValues.duplicate();
+        final List<SimpleInterval> intervals = new ArrayList<>(numIntervals);
+        for (int i = 0; i < numIntervals; i++) {
+            final String contig = sequenceDictionary.getSequence(values.get()).getSequenceName();
+            final int start = values.get();
+            final int end = values.get();
+            intervals.add(new SimpleInterval(contig, start, end));
+        }
+        return intervals;
+    }
+}
@@ -19,7 +19,7 @@ import java.util.stream.IntStream;
 
 /**
  * Simple data structure to pass and read/write a List of {@link SimpleCount} objects.
- * Supports both TSV and HDF5.
+ * Supports TSV, HDF5, and a memory-mappable binary format (see {@link BinarySimpleCountCollection}).
  *
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
@@ -63,6 +63,9 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
 
     public static SimpleCountCollection read(final File file) {
         IOUtils.canReadFile(file);
+        if (BinarySimpleCountCollection.isBinaryFile(file)) {
+            return readBinary(file);
+        }
         try {
             return readHDF5(new HDF5File(file));
         } catch (final HDF5LibException e) {
@@ -87,11 +90,26 @@ public final class SimpleCountCollection extends AbstractSampleLocatableCollecti
         return new SimpleCountCollection(metadata, simpleCounts);
     }
 
+    private static SimpleCountCollection readBinary(final File file) {
+        final BinarySimpleCountCollection binaryCountCollection = new BinarySimpleCountCollection(file);
+        final List<SimpleInterval> intervals = binaryCountCollection.getIntervals();
+        final double[] counts = binaryCountCollection.getCounts();
+        final List<SimpleCount> simpleCounts = IntStream.range(0, intervals.size())
+                .mapToObj(i -> new SimpleCount(intervals.get(i), (int) counts[i]))
+                .collect(Collectors.toList());
+        return new SimpleCountCollection(binaryCountCollection.getMetadata(), simpleCounts);
+    }
+
     public void writeHDF5(final File file) {
         Utils.nonNull(file);
         HDF5SimpleCountCollection.write(file, getMetadata(), getIntervals(), getCounts());
     }
 
+    public void writeBinary(final File file) {
+        Utils.nonNull(file);
+        BinarySimpleCountCollection.write(file, getMetadata(), getIntervals(), getCounts());
+    }
+
     public double[] getCounts() {
         return getRecords().stream().mapToDouble(SimpleCount::getCount).toArray();
     }
@@ -5,10 +5,7 @@ import org.apache.commons.math3.util.FastMath;
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.AllelicCount;
 import org.broadinstitute.hellbender.utils.MathUtils;
 
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.IntStream;
 
 import static org.apache.commons.math3.util.FastMath.sqrt;
@@ -47,26 +44,35 @@ import static org.broadinstitute.hellbender.utils.MathUtils.log10ToLog;
 final class AlleleFractionLikelihoods {
     private static final double EPSILON = 1E-10;
 
-    private static final FunctionCache logGammaCache = new FunctionCache(Gamma::logGamma);
-    private static final FunctionCache logCache = new FunctionCache(FastMath::log);
-
-    private static final class FunctionCache extends LinkedHashMap<Double, Double> {
-        private static final long serialVersionUID = 19841647L;
-        private static final int MAX_SIZE = 100_000;
-
-        private final Function<Double, Double> mappingFunction;
-
-        FunctionCache(final Function<Double, Double> mappingFunction) {
-            this.mappingFunction = mappingFunction;
-        }
-
-        Double computeIfAbsent(final Double key) {
-            return super.computeIfAbsent(key, mappingFunction);
+    /**
+     * The alt and ref counts of a batch of hets (e.g., those in a segment) stored in primitive arrays, along with the
+     * parameter-independent part of the outlier log-likelihood for each het.  Evaluating the likelihood over a batch
+     * (which is done many times for the same hets during slice sampling) avoids repeated traversal of lists of
+     * {@link AllelicCount} records and repeated calculation of log factorials.  Instances are immutable and
+     * can be shared between threads.
+     */
+    static final class AllelicCountBatch {
+        private final int[] altCounts;
+        private final int[] refCounts;
+        private final double[] outlierLogLikelihoodsWithoutPi;
+
+        AllelicCountBatch(final List<? extends AllelicCount> allelicCounts) {
+            final int size = allelicCounts.size();
+            altCounts = new int[size];
+            refCounts = new int[size];
+            outlierLogLikelihoodsWithoutPi = new double[size];
+            for (int i = 0; i < size; i++) {
+                final AllelicCount allelicCount = allelicCounts.get(i);
+                final int a = allelicCount.getAltReadCount();
+                final int r = allelicCount.getRefReadCount();
+                altCounts[i] = a;
+                refCounts[i] = r;
+                outlierLogLikelihoodsWithoutPi[i] = log10ToLog(log10Factorial(a) + log10Factorial(r) - log10Factorial(a + r + 1));
+            }
         }
 
-        @Override
-        protected boolean removeEldestEntry(final Map.Entry<Double, Double> eldest) {
-            return size() >= MAX_SIZE;
+        int size() {
+            return altCounts.length;
         }
     }
 
@@ -75,22 +81,32 @@ final class AlleleFractionLikelihoods {
     static double segmentLogLikelihood(final AlleleFractionGlobalParameters parameters,
                                        final double minorFraction,
                                        final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment) {
+        return segmentLogLikelihood(parameters, minorFraction, new AllelicCountBatch(allelicCountsInSegment));
+    }
+
+    static double segmentLogLikelihood(final AlleleFractionGlobalParameters parameters,
+                                       final double minorFraction,
+                                       final AllelicCountBatch allelicCountsInSegment) {
         final double alpha = parameters.getAlpha();
         final double beta = parameters.getBeta();
         final double pi = parameters.getOutlierProbability();
 
         //we compute some quantities that will be reused
-        final double logPi = logCache.computeIfAbsent(pi);
-        final double logNotPi = logCache.computeIfAbsent((1 - pi) / 2);
-        final double logcCommon = alpha * logCache.computeIfAbsent(beta) - logGammaCache.computeIfAbsent(alpha);
+        final double logPi = FastMath.log(pi);
+        final double logNotPi = FastMath.log((1 - pi) / 2);
+        final double logcCommon = alpha * FastMath.log(beta) - Gamma.logGamma(alpha);
         final double majorFraction = 1 - minorFraction;
         final double logMinorFraction = log(minorFraction);
         final double logMajorFraction = log(majorFraction);
 
+        final int[] altCounts = allelicCountsInSegment.altCounts;
+        final int[] refCounts = allelicCountsInSegment.refCounts;
+        final double[] outlierLogLikelihoodsWithoutPi = allelicCountsInSegment.outlierLogLikelihoodsWithoutPi;
+
         double logLikelihood = 0.;
-        for (final AllelicCount allelicCount : allelicCountsInSegment) {
-            final int a = allelicCount.getAltReadCount();
-            final int r = allelicCount.getRefReadCount();
+        for (int i = 0; i < altCounts.length; i++) {
+            final int a = altCounts[i];
+            final int r = refCounts[i];
             final int n = a + r;
 
             //alt-minor calculation
@@ -113,7 +129,7 @@ final class AlleleFractionLikelihoods {
                     - n * log(majorFraction + minorFraction * lambda0RefMinor);
             final double refMinorLogLikelihood = logNotPi + logcRefMinor + Gamma.logGamma(rhoRefMinor) - rhoRefMinor * log(tauRefMinor);
 
-            final double outlierLogLikelihood = logPi + log10ToLog(log10Factorial(a) + log10Factorial(r) - log10Factorial(a + r + 1));
+            final double outlierLogLikelihood = logPi + outlierLogLikelihoodsWithoutPi[i];
 
             logLikelihood += MathUtils.logSumExp(altMinorLogLikelihood, refMinorLogLikelihood, outlierLogLikelihood);
         }
@@ -127,7 +143,7 @@ final class AlleleFractionLikelihoods {
                                 final AlleleFractionState.MinorFractions minorFractions,
                                 final AlleleFractionSegmentedData data) {
         return IntStream.range(0, data.getNumSegments())
-                .mapToDouble(segment -> segmentLogLikelihood(parameters, minorFractions.get(segment), data.getIndexedAllelicCountsInSegment(segment)))
+                .mapToDouble(segment -> segmentLogLikelihood(parameters, minorFractions.get(segment), data.getAllelicCountBatchInSegment(segment)))
                 .sum();
     }
 
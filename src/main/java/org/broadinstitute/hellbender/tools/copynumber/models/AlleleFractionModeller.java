@@ -1,5 +1,9 @@
 package org.broadinstitute.hellbender.tools.copynumber.models;
 
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.AllelicCountCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.ParameterDecileCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleIntervalCollection;
@@ -11,6 +15,8 @@ import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
 import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
+import org.broadinstitute.hellbender.utils.mcmc.PosteriorSummaryUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
 import java.util.function.Function;
@@ -54,19 +60,38 @@ import java.util.stream.IntStream;
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class AlleleFractionModeller {
+    private static final Logger logger = LogManager.getLogger(AlleleFractionModeller.class);
+
     private static final double MAX_REASONABLE_MEAN_BIAS = AlleleFractionInitializer.MAX_REASONABLE_MEAN_BIAS;
     private static final double MAX_REASONABLE_BIAS_VARIANCE = AlleleFractionInitializer.MAX_REASONABLE_BIAS_VARIANCE;
     private static final double MAX_REASONABLE_OUTLIER_PROBABILITY = AlleleFractionInitializer.MAX_REASONABLE_OUTLIER_PROBABILITY;
     private static final double MIN_MINOR_FRACTION_SAMPLING_WIDTH = 1E-3;
+    private static final double MAX_MINOR_FRACTION = 0.5;
+
+    //additional Markov chains start from the state of the first chain with all parameters perturbed by this many
+    //approximate posterior standard deviations, so that their initial states are overdispersed
+    //(as assumed by the potential scale reduction factor)
+    private static final double INITIAL_STATE_DISPERSION = 3.;
+    private static final int MAX_PERTURBATION_ATTEMPTS = 100;
+    private static final int INITIAL_STATE_RANDOM_SEED = 13;
 
     private final SampleLocatableMetadata metadata;
-    private final ParameterizedModel<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> model;
+    //models for each Markov chain; additional chains are initialized from a perturbed state of the first when they are first run
+    private final List<ParameterizedModel<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData>> models = new ArrayList<>();
+
+    private final double meanBiasSamplingWidths;
+    private final double biasVarianceSamplingWidths;
+    private final double outlierProbabilitySamplingWidths;
+    private final List<Double> minorFractionsSliceSamplingWidths;
 
     private final List<Double> meanBiasSamples = new ArrayList<>();
     private final List<Double> biasVarianceSamples = new ArrayList<>();
     private final List<Double> outlierProbabilitySamples = new ArrayList<>();
     private final List<AlleleFractionState.MinorFractions> minorFractionsSamples = new ArrayList<>();
 
+    private final Map<AlleleFractionParameter, Double> globalParameterPotentialScaleReductionFactors = new EnumMap<>(AlleleFractionParameter.class);
+    private final List<Double> minorFractionsPotentialScaleReductionFactors = new ArrayList<>();
+
     /**
      * Constructs an allele-fraction model given allelic counts and segments.
      * {@link AlleleFractionInitializer} is used for initialization and slice-sampling widths are estimated.
@@ -89,14 +114,14 @@ public final class AlleleFractionModeller {
         final AlleleFractionState.MinorFractions initialMinorFractions = initialState.minorFractions();
 
         //if we approximate conditionals as normal, we can guess the width from the curvature at the mode and use as the slice-sampling widths
-        final double meanBiasSamplingWidths = approximatePosteriorWidthAtMode(meanBias ->
+        meanBiasSamplingWidths = approximatePosteriorWidthAtMode(meanBias ->
                 AlleleFractionLikelihoods.logLikelihood(initialParameters.copyWithNewMeanBias(meanBias), initialMinorFractions, data), initialParameters.getMeanBias());
-        final double biasVarianceSamplingWidths = approximatePosteriorWidthAtMode(biasVariance ->
+        biasVarianceSamplingWidths = approximatePosteriorWidthAtMode(biasVariance ->
                 AlleleFractionLikelihoods.logLikelihood(initialParameters.copyWithNewBiasVariance(biasVariance), initialMinorFractions, data), initialParameters.getBiasVariance());
-        final double outlierProbabilitySamplingWidths = approximatePosteriorWidthAtMode(outlierProbability ->
+        outlierProbabilitySamplingWidths = approximatePosteriorWidthAtMode(outlierProbability ->
                 AlleleFractionLikelihoods.logLikelihood(initialParameters.copyWithNewOutlierProbability(outlierProbability), initialMinorFractions, data), initialParameters.getOutlierProbability());
 
-        final List<Double> minorFractionsSliceSamplingWidths = IntStream.range(0, data.getNumSegments()).boxed()
+        minorFractionsSliceSamplingWidths = IntStream.range(0, data.getNumSegments()).boxed()
                 .map(segment -> approximatePosteriorWidthAtMode(
                         f -> AlleleFractionLikelihoods.segmentLogLikelihood(initialParameters, f, data.getIndexedAllelicCountsInSegment(segment)), initialMinorFractions.get(segment)))
                 .map(w -> Math.max(w, MIN_MINOR_FRACTION_SAMPLING_WIDTH))
@@ -111,12 +136,12 @@ public final class AlleleFractionModeller {
         final ParameterSampler<AlleleFractionState.MinorFractions, AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> minorFractionsSampler =
                 new AlleleFractionSamplers.MinorFractionsSampler(prior, minorFractionsSliceSamplingWidths);
 
-        model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
+        models.add(new ParameterizedModel.GibbsBuilder<>(initialState, data)
                 .addParameterSampler(AlleleFractionParameter.MEAN_BIAS, meanBiasSampler, Double.class)
                 .addParameterSampler(AlleleFractionParameter.BIAS_VARIANCE, biasVarianceSampler, Double.class)
                 .addParameterSampler(AlleleFractionParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
                 .addParameterSampler(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, minorFractionsSampler, AlleleFractionState.MinorFractions.class)
-                .build();
+                .build());
     }
 
     /**
@@ -127,15 +152,109 @@ public final class AlleleFractionModeller {
      * @param numBurnIn     number of burn-in samples to discard
      */
     void fitMCMC(final int numSamples, final int numBurnIn) {
+        fitMCMC(numSamples, numBurnIn, 1);
+    }
+
+    /**
+     * Adds {@code numChains * (numSamples - numBurnIn)} Markov-Chain Monte-Carlo samples of the parameter posteriors
+     * (generated using Gibbs sampling of {@code numChains} independent chains, which are run in parallel) to the
+     * collections held internally.  Samples are pooled in chain order, so that the samples for a single chain are
+     * identical to those generated by {@link #fitMCMC(int, int)}.  If more than one chain is run, potential scale
+     * reduction factors are calculated to diagnose convergence.
+     * @param numSamples    total number of samples per posterior per chain
+     * @param numBurnIn     number of burn-in samples to discard from each chain
+     * @param numChains     number of independent chains
+     */
+    void fitMCMC(final int numSamples, final int numBurnIn, final int numChains) {
+        ParamUtils.isPositive(numChains, "Number of chains must be positive.");
+
         //run MCMC
-        final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
-        gibbsSampler.runMCMC();
+        while (models.size() < numChains) {
+            final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(INITIAL_STATE_RANDOM_SEED + models.size()));
+            models.add(models.get(0).copy(state -> perturbState(state, rng)));
+        }
+        final List<GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData>> gibbsSamplers =
+                GibbsSampler.runMCMCInParallel(numSamples, models.subList(0, numChains),
+                        Math.min(numChains, Runtime.getRuntime().availableProcessors()));
 
         //update posterior samples
-        meanBiasSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MEAN_BIAS, Double.class, numBurnIn));
-        biasVarianceSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.BIAS_VARIANCE, Double.class, numBurnIn));
-        outlierProbabilitySamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
-        minorFractionsSamples.addAll(gibbsSampler.getSamples(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, AlleleFractionState.MinorFractions.class, numBurnIn));
+        final List<List<Double>> meanBiasChainSamples = new ArrayList<>(numChains);
+        final List<List<Double>> biasVarianceChainSamples = new ArrayList<>(numChains);
+        final List<List<Double>> outlierProbabilityChainSamples = new ArrayList<>(numChains);
+        final List<List<AlleleFractionState.MinorFractions>> minorFractionsChainSamples = new ArrayList<>(numChains);
+        for (final GibbsSampler<AlleleFractionParameter, AlleleFractionState, AlleleFractionSegmentedData> gibbsSampler : gibbsSamplers) {
+            meanBiasChainSamples.add(gibbsSampler.getSamples(AlleleFractionParameter.MEAN_BIAS, Double.class, numBurnIn));
+            biasVarianceChainSamples.add(gibbsSampler.getSamples(AlleleFractionParameter.BIAS_VARIANCE, Double.class, numBurnIn));
+            outlierProbabilityChainSamples.add(gibbsSampler.getSamples(AlleleFractionParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
+            minorFractionsChainSamples.add(gibbsSampler.getSamples(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, AlleleFractionState.MinorFractions.class, numBurnIn));
+        }
+        meanBiasChainSamples.forEach(meanBiasSamples::addAll);
+        biasVarianceChainSamples.forEach(biasVarianceSamples::addAll);
+        outlierProbabilityChainSamples.forEach(outlierProbabilitySamples::addAll);
+        minorFractionsChainSamples.forEach(minorFractionsSamples::addAll);
+
+        //diagnose convergence
+        globalParameterPotentialScaleReductionFactors.clear();
+        minorFractionsPotentialScaleReductionFactors.clear();
+        if (numChains > 1 && numSamples - numBurnIn > 1) {
+            globalParameterPotentialScaleReductionFactors.put(AlleleFractionParameter.MEAN_BIAS,
+                    PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(meanBiasChainSamples));
+            globalParameterPotentialScaleReductionFactors.put(AlleleFractionParameter.BIAS_VARIANCE,
+                    PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(biasVarianceChainSamples));
+            globalParameterPotentialScaleReductionFactors.put(AlleleFractionParameter.OUTLIER_PROBABILITY,
+                    PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(outlierProbabilityChainSamples));
+            final int numSegments = minorFractionsChainSamples.get(0).get(0).size();
+            for (int segment = 0; segment < numSegments; segment++) {
+                final int j = segment;
+                minorFractionsPotentialScaleReductionFactors.add(PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(
+                        minorFractionsChainSamples.stream()
+                                .map(chainSamples -> chainSamples.stream().map(s -> s.get(j)).collect(Collectors.toList()))
+                                .collect(Collectors.toList())));
+            }
+            logPotentialScaleReductionFactors();
+        }
+    }
+
+    /**
+     * Returns an overdispersed initial state for an additional Markov chain, given the current state of the first chain.
+     */
+    private AlleleFractionState perturbState(final AlleleFractionState state, final RandomGenerator rng) {
+        final double meanBias = perturb(rng, state.meanBias(), INITIAL_STATE_DISPERSION * meanBiasSamplingWidths,
+                0., MAX_REASONABLE_MEAN_BIAS);
+        final double biasVariance = perturb(rng, state.biasVariance(), INITIAL_STATE_DISPERSION * biasVarianceSamplingWidths,
+                0., MAX_REASONABLE_BIAS_VARIANCE);
+        final double outlierProbability = perturb(rng, state.outlierProbability(), INITIAL_STATE_DISPERSION * outlierProbabilitySamplingWidths,
+                0., MAX_REASONABLE_OUTLIER_PROBABILITY);
+        final AlleleFractionState.MinorFractions minorFractions = new AlleleFractionState.MinorFractions(
+                IntStream.range(0, state.minorFractions().size())
+                        .mapToObj(segment -> perturb(rng, state.segmentMinorFraction(segment),
+                                INITIAL_STATE_DISPERSION * minorFractionsSliceSamplingWidths.get(segment), 0., MAX_MINOR_FRACTION))
+                        .collect(Collectors.toList()));
+        return new AlleleFractionState(meanBias, biasVariance, outlierProbability, minorFractions);
+    }
+
+    //returns a draw from a normal distribution around value, truncated to (min, max] (or value itself if no draw is within bounds)
+    private static double perturb(final RandomGenerator rng, final double value, final double standardDeviation,
+                                  final double min, final double max) {
+        for (int attempt = 0; attempt < MAX_PERTURBATION_ATTEMPTS; attempt++) {
+            final double perturbedValue = value + standardDeviation * rng.nextGaussian();
+            if (min < perturbedValue && perturbedValue <= max) {
+                return perturbedValue;
+            }
+        }
+        return value;
+    }
+
+    private void logPotentialScaleReductionFactors() {
+        final double maxMinorFractionsPotentialScaleReductionFactor = minorFractionsPotentialScaleReductionFactors.stream()
+                .filter(r -> !Double.isNaN(r)).mapToDouble(r -> r).max().orElse(Double.NaN);
+        logger.info(String.format("Potential scale reduction factors for global parameters: %s; maximum for minor-allele fractions: %.3f",
+                globalParameterPotentialScaleReductionFactors, maxMinorFractionsPotentialScaleReductionFactor));
+        if (globalParameterPotentialScaleReductionFactors.values().stream().anyMatch(r -> r > PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD) ||
+                maxMinorFractionsPotentialScaleReductionFactor > PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD) {
+            logger.warn(String.format("Potential scale reduction factors exceed %.1f; allele-fraction MCMC chains may not have converged.  " +
+                    "Consider increasing the number of samples and burn-in samples.", PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD));
+        }
     }
 
     List<Double> getMeanBiasSamples() {
@@ -154,6 +273,22 @@ public final class AlleleFractionModeller {
         return Collections.unmodifiableList(minorFractionsSamples);
     }
 
+    /**
+     * Returns the potential scale reduction factors for the global parameters from the last call to {@link #fitMCMC},
+     * which are only available if more than one chain was run.
+     */
+    Map<AlleleFractionParameter, Double> getGlobalParameterPotentialScaleReductionFactors() {
+        return Collections.unmodifiableMap(globalParameterPotentialScaleReductionFactors);
+    }
+
+    /**
+     * Returns the potential scale reduction factors for the minor-allele fractions from the last call to {@link #fitMCMC},
+     * which are only available if more than one chain was run.
+     */
+    List<Double> getMinorFractionsPotentialScaleReductionFactors() {
+        return Collections.unmodifiableList(minorFractionsPotentialScaleReductionFactors);
+    }
+
     /**
      * Should only be called after {@link #fitMCMC} has been called.
      */
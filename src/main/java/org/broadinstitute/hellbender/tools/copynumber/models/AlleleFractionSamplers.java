@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.utils.mcmc.SliceSampler;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -132,7 +133,7 @@ final class AlleleFractionSamplers {
                     minorFractions.add(Double.NaN);
                 } else {
                     final Function<Double, Double> segmentLogLikelihoodEstimate = segmentLogLikelihoodFromSubsample(
-                            rng, state.globalParameters(), allelicCountsInSegment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
+                            rng, state.globalParameters(), data, segment, NUM_POINTS_SEGMENT_SUBSAMPLE_THRESHOLD);
                     final SliceSampler sampler = new SliceSampler(rng,
                             f -> logPrior.apply(f) + segmentLogLikelihoodEstimate.apply(f),
                             MIN_MINOR_FRACTION, MAX_MINOR_FRACTION, sliceSamplingWidths.get(segment));
@@ -152,6 +153,8 @@ final class AlleleFractionSamplers {
                 : allelicCounts;
     }
 
+    //the counts in each segment (or in the subsample of the counts from each segment) are batched once per call,
+    //so that the returned function can be evaluated repeatedly by the slice sampler without further allocation
     private static Function<AlleleFractionGlobalParameters, Double> logLikelihoodFromSubsample(final RandomGenerator rng,
                                                                                                final AlleleFractionState.MinorFractions minorFractions,
                                                                                                final AlleleFractionSegmentedData data,
@@ -159,14 +162,19 @@ final class AlleleFractionSamplers {
         final List<AlleleFractionSegmentedData.IndexedAllelicCount> subsampledAllelicCounts =
                 subsample(rng, data.getIndexedAllelicCounts(), numPointsSubsampleThreshold);
         final double scalingFactor = (double) data.getNumPoints() / subsampledAllelicCounts.size();
-        final Map<Integer, List<AlleleFractionSegmentedData.IndexedAllelicCount>> segmentIndexToSubsampledAllelicCountsInSegmentMap =
-                subsampledAllelicCounts.stream()
-                        .collect(Collectors.groupingBy(AlleleFractionSegmentedData.IndexedAllelicCount::getSegmentIndex, Collectors.toList()));
+        final Map<Integer, AlleleFractionLikelihoods.AllelicCountBatch> segmentIndexToSubsampledAllelicCountBatchMap =
+                subsampledAllelicCounts.size() == data.getNumPoints()
+                        ? IntStream.range(0, data.getNumSegments()).boxed()
+                                .filter(segmentIndex -> data.getAllelicCountBatchInSegment(segmentIndex).size() > 0)
+                                .collect(Collectors.toMap(Function.identity(), data::getAllelicCountBatchInSegment, (b1, b2) -> b1, TreeMap::new))
+                        : subsampledAllelicCounts.stream()
+                                .collect(Collectors.groupingBy(AlleleFractionSegmentedData.IndexedAllelicCount::getSegmentIndex, TreeMap::new,
+                                        Collectors.collectingAndThen(Collectors.toList(), AlleleFractionLikelihoods.AllelicCountBatch::new)));
         return parameters -> {
             double logLikelihood = 0.;
-            for (final int segmentIndex : segmentIndexToSubsampledAllelicCountsInSegmentMap.keySet()) {
+            for (final Map.Entry<Integer, AlleleFractionLikelihoods.AllelicCountBatch> entry : segmentIndexToSubsampledAllelicCountBatchMap.entrySet()) {
                 logLikelihood += AlleleFractionLikelihoods.segmentLogLikelihood(
-                        parameters, minorFractions.get(segmentIndex), segmentIndexToSubsampledAllelicCountsInSegmentMap.get(segmentIndex));
+                        parameters, minorFractions.get(entry.getKey()), entry.getValue());
             }
             return scalingFactor * logLikelihood;
         };
@@ -174,11 +182,17 @@ final class AlleleFractionSamplers {
 
     private static Function<Double, Double> segmentLogLikelihoodFromSubsample(final RandomGenerator rng,
                                                                               final AlleleFractionGlobalParameters parameters,
-                                                                              final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment,
+                                                                              final AlleleFractionSegmentedData data,
+                                                                              final int segmentIndex,
                                                                               final int numPointsSubsampleThreshold) {
+        final List<AlleleFractionSegmentedData.IndexedAllelicCount> allelicCountsInSegment = data.getIndexedAllelicCountsInSegment(segmentIndex);
         final List<AlleleFractionSegmentedData.IndexedAllelicCount> subsampledAllelicCountsInSegment =
                 subsample(rng, allelicCountsInSegment, numPointsSubsampleThreshold);
         final double scalingFactor = (double) allelicCountsInSegment.size() / subsampledAllelicCountsInSegment.size();
-        return minorFraction -> scalingFactor * AlleleFractionLikelihoods.segmentLogLikelihood(parameters, minorFraction, subsampledAllelicCountsInSegment);
+        final AlleleFractionLikelihoods.AllelicCountBatch subsampledAllelicCountBatch =
+                subsampledAllelicCountsInSegment.size() == allelicCountsInSegment.size()
+                        ? data.getAllelicCountBatchInSegment(segmentIndex)
+                        : new AlleleFractionLikelihoods.AllelicCountBatch(subsampledAllelicCountsInSegment);
+        return minorFraction -> scalingFactor * AlleleFractionLikelihoods.segmentLogLikelihood(parameters, minorFraction, subsampledAllelicCountBatch);
     }
 }
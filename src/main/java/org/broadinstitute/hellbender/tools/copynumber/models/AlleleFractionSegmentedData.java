@@ -28,6 +28,7 @@ final class AlleleFractionSegmentedData implements DataCollection {
 
     private final List<IndexedAllelicCount> indexedAllelicCounts;
     private final List<IndexRange> indexRangesPerSegment;
+    private final List<AlleleFractionLikelihoods.AllelicCountBatch> allelicCountBatchesPerSegment;
 
     AlleleFractionSegmentedData(final AllelicCountCollection allelicCounts,
                                 final SimpleIntervalCollection segments) {
@@ -36,6 +37,7 @@ final class AlleleFractionSegmentedData implements DataCollection {
 
         indexedAllelicCounts = new ArrayList<>(allelicCounts.size());
         indexRangesPerSegment = new ArrayList<>(segments.size());
+        allelicCountBatchesPerSegment = new ArrayList<>(segments.size());
 
         final OverlapDetector<AllelicCount> allelicCountOverlapDetector = allelicCounts.getOverlapDetector();
         final Comparator<Locatable> comparator = allelicCounts.getComparator();
@@ -51,6 +53,7 @@ final class AlleleFractionSegmentedData implements DataCollection {
                     .map(i -> new IndexedAllelicCount(allelicCountsInSegment.get(i), segmentStartIndex + i, si))
                     .forEach(indexedAllelicCounts::add);
             indexRangesPerSegment.add(new IndexRange(segmentStartIndex, segmentStartIndex + allelicCountsInSegment.size()));
+            allelicCountBatchesPerSegment.add(new AlleleFractionLikelihoods.AllelicCountBatch(allelicCountsInSegment));
             startIndex += allelicCountsInSegment.size();
         }
     }
@@ -80,6 +83,14 @@ final class AlleleFractionSegmentedData implements DataCollection {
                 indexRangesPerSegment.get(segmentIndex).from, indexRangesPerSegment.get(segmentIndex).to));
     }
 
+    /**
+     * Returns the counts in the segment as a {@link AlleleFractionLikelihoods.AllelicCountBatch},
+     * which is built once at construction for use in likelihood evaluations.
+     */
+    AlleleFractionLikelihoods.AllelicCountBatch getAllelicCountBatchInSegment(final int segmentIndex) {
+        return allelicCountBatchesPerSegment.get(segmentIndex);
+    }
+
     static final class IndexedAllelicCount extends AllelicCount {
         private final int index;
         private final int segmentIndex;
@@ -66,4 +66,11 @@ final class AlleleFractionState extends ParameterizedState<AlleleFractionParamet
     MinorFractions minorFractions() {
         return get(AlleleFractionParameter.MINOR_ALLELE_FRACTIONS, MinorFractions.class);
     }
+
+    //overridden so that copies (e.g., those held by the models for additional Markov chains) are also AlleleFractionStates
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <S extends ParameterizedState<AlleleFractionParameter>> S copy() {
+        return (S) new AlleleFractionState(meanBias(), biasVariance(), outlierProbability(), minorFractions());
+    }
 }
\ No newline at end of file
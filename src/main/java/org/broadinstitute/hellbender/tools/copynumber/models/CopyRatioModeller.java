@@ -1,5 +1,10 @@
 package org.broadinstitute.hellbender.tools.copynumber.models;
 
+import org.apache.commons.math3.distribution.BetaDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.CopyRatioCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.ParameterDecileCollection;
 import org.broadinstitute.hellbender.tools.copynumber.formats.collections.SimpleIntervalCollection;
@@ -11,6 +16,7 @@ import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
 import org.broadinstitute.hellbender.utils.mcmc.GibbsSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterSampler;
 import org.broadinstitute.hellbender.utils.mcmc.ParameterizedModel;
+import org.broadinstitute.hellbender.utils.mcmc.PosteriorSummaryUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
@@ -28,6 +34,8 @@ import java.util.stream.Collectors;
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class CopyRatioModeller {
+    private static final Logger logger = LogManager.getLogger(CopyRatioModeller.class);
+
     private static final double EPSILON = 1E-6;
     static final double LOG2_COPY_RATIO_MIN = -50.;
     static final double LOG2_COPY_RATIO_MAX = 10.;
@@ -38,13 +46,28 @@ public final class CopyRatioModeller {
     private static final double OUTLIER_PROBABILITY_PRIOR_ALPHA = 5.;
     private static final double OUTLIER_PROBABILITY_PRIOR_BETA = 95.;
 
+    //additional Markov chains start from the state of the first chain with segment means perturbed by this many
+    //approximate posterior standard deviations and the variance perturbed by this factor (in log space), so that their
+    //initial states are overdispersed (as assumed by the potential scale reduction factor)
+    private static final double INITIAL_SEGMENT_MEANS_DISPERSION = 3.;
+    private static final double INITIAL_LOG_VARIANCE_DISPERSION = 1.;
+    private static final int MAX_PERTURBATION_ATTEMPTS = 100;
+    private static final int INITIAL_STATE_RANDOM_SEED = 13;
+
     private final SampleLocatableMetadata metadata;
-    private final ParameterizedModel<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> model;
+    //models for each Markov chain; additional chains are initialized from a perturbed state of the first when they are first run
+    private final List<ParameterizedModel<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData>> models = new ArrayList<>();
+
+    private final double varianceMax;
+    private final double meanSliceSamplingWidth;
 
     private final List<Double> varianceSamples = new ArrayList<>();
     private final List<Double> outlierProbabilitySamples = new ArrayList<>();
     private final List<CopyRatioState.SegmentMeans> segmentMeansSamples = new ArrayList<>();
 
+    private final Map<CopyRatioParameter, Double> globalParameterPotentialScaleReductionFactors = new EnumMap<>(CopyRatioParameter.class);
+    private final List<Double> segmentMeansPotentialScaleReductionFactors = new ArrayList<>();
+
     /**
      * Constructs a copy-ratio model given copy ratios and segments.
      * Initial point estimates of parameters are set to empirical estimates where available.
@@ -69,8 +92,8 @@ public final class CopyRatioModeller {
         final double varianceEstimateOrNaN = data.estimateVariance();
         final double varianceEstimate = Double.isNaN(varianceEstimateOrNaN) ? VARIANCE_MIN : Math.max(varianceEstimateOrNaN, VARIANCE_MIN);
         final double varianceSliceSamplingWidth = 2. * varianceEstimate;
-        final double varianceMax = Math.max(10. * varianceEstimate, dataRange * dataRange);
-        final double meanSliceSamplingWidth = Math.sqrt(varianceEstimate * data.getNumSegments() / data.getNumPoints());
+        varianceMax = Math.max(10. * varianceEstimate, dataRange * dataRange);
+        meanSliceSamplingWidth = Math.sqrt(varianceEstimate * data.getNumSegments() / data.getNumPoints());
         final List<Double> segmentMeans = data.estimateSegmentMeans().stream()
                 .map(m -> Math.max(LOG2_COPY_RATIO_MIN, Math.min(LOG2_COPY_RATIO_MAX, m)))
                 .collect(Collectors.toList());
@@ -93,12 +116,12 @@ public final class CopyRatioModeller {
         final ParameterSampler<CopyRatioState.OutlierIndicators, CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> outlierIndicatorsSampler =
                 new CopyRatioSamplers.OutlierIndicatorsSampler(outlierUniformLogLikelihood);
 
-        model = new ParameterizedModel.GibbsBuilder<>(initialState, data)
+        models.add(new ParameterizedModel.GibbsBuilder<>(initialState, data)
                 .addParameterSampler(CopyRatioParameter.VARIANCE, varianceSampler, Double.class)
                 .addParameterSampler(CopyRatioParameter.OUTLIER_PROBABILITY, outlierProbabilitySampler, Double.class)
                 .addParameterSampler(CopyRatioParameter.SEGMENT_MEANS, segmentMeansSampler, CopyRatioState.SegmentMeans.class)
                 .addParameterSampler(CopyRatioParameter.OUTLIER_INDICATORS, outlierIndicatorsSampler, CopyRatioState.OutlierIndicators.class)
-                .build();
+                .build());
     }
 
     /**
@@ -109,18 +132,107 @@ public final class CopyRatioModeller {
      * @param numBurnIn     number of burn-in samples to discard
      */
     void fitMCMC(final int numSamples,
-                        final int numBurnIn) {
+                 final int numBurnIn) {
+        fitMCMC(numSamples, numBurnIn, 1);
+    }
+
+    /**
+     * Adds {@code numChains * (numSamples - numBurnIn)} Markov-Chain Monte-Carlo samples of the parameter posteriors
+     * (generated using Gibbs sampling of {@code numChains} independent chains, which are run in parallel) to the
+     * collections held internally.  Samples are pooled in chain order, so that the samples for a single chain are
+     * identical to those generated by {@link #fitMCMC(int, int)}.  If more than one chain is run, potential scale
+     * reduction factors are calculated to diagnose convergence.
+     * @param numSamples    total number of samples per posterior per chain
+     * @param numBurnIn     number of burn-in samples to discard from each chain
+     * @param numChains     number of independent chains
+     */
+    void fitMCMC(final int numSamples,
+                 final int numBurnIn,
+                 final int numChains) {
         ParamUtils.isPositiveOrZero(numBurnIn, "Number of burn-in samples must be non-negative.");
         Utils.validateArg(numBurnIn < numSamples, "Number of samples must be greater than number of burn-in samples.");
+        ParamUtils.isPositive(numChains, "Number of chains must be positive.");
 
         //run MCMC
-        final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler = new GibbsSampler<>(numSamples, model);
-        gibbsSampler.runMCMC();
+        while (models.size() < numChains) {
+            final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(INITIAL_STATE_RANDOM_SEED + models.size()));
+            models.add(models.get(0).copy(state -> perturbState(state, rng)));
+        }
+        final List<GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData>> gibbsSamplers =
+                GibbsSampler.runMCMCInParallel(numSamples, models.subList(0, numChains),
+                        Math.min(numChains, Runtime.getRuntime().availableProcessors()));
 
         //update posterior samples
-        varianceSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.VARIANCE, Double.class, numBurnIn));
-        outlierProbabilitySamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
-        segmentMeansSamples.addAll(gibbsSampler.getSamples(CopyRatioParameter.SEGMENT_MEANS, CopyRatioState.SegmentMeans.class, numBurnIn));
+        final List<List<Double>> varianceChainSamples = new ArrayList<>(numChains);
+        final List<List<Double>> outlierProbabilityChainSamples = new ArrayList<>(numChains);
+        final List<List<CopyRatioState.SegmentMeans>> segmentMeansChainSamples = new ArrayList<>(numChains);
+        for (final GibbsSampler<CopyRatioParameter, CopyRatioState, CopyRatioSegmentedData> gibbsSampler : gibbsSamplers) {
+            varianceChainSamples.add(gibbsSampler.getSamples(CopyRatioParameter.VARIANCE, Double.class, numBurnIn));
+            outlierProbabilityChainSamples.add(gibbsSampler.getSamples(CopyRatioParameter.OUTLIER_PROBABILITY, Double.class, numBurnIn));
+            segmentMeansChainSamples.add(gibbsSampler.getSamples(CopyRatioParameter.SEGMENT_MEANS, CopyRatioState.SegmentMeans.class, numBurnIn));
+        }
+        varianceChainSamples.forEach(varianceSamples::addAll);
+        outlierProbabilityChainSamples.forEach(outlierProbabilitySamples::addAll);
+        segmentMeansChainSamples.forEach(segmentMeansSamples::addAll);
+
+        //diagnose convergence
+        globalParameterPotentialScaleReductionFactors.clear();
+        segmentMeansPotentialScaleReductionFactors.clear();
+        if (numChains > 1 && numSamples - numBurnIn > 1) {
+            globalParameterPotentialScaleReductionFactors.put(CopyRatioParameter.VARIANCE,
+                    PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(varianceChainSamples));
+            globalParameterPotentialScaleReductionFactors.put(CopyRatioParameter.OUTLIER_PROBABILITY,
+                    PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(outlierProbabilityChainSamples));
+            final int numSegments = segmentMeansChainSamples.get(0).get(0).size();
+            for (int segment = 0; segment < numSegments; segment++) {
+                final int j = segment;
+                segmentMeansPotentialScaleReductionFactors.add(PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(
+                        segmentMeansChainSamples.stream()
+                                .map(chainSamples -> chainSamples.stream().map(s -> s.get(j)).collect(Collectors.toList()))
+                                .collect(Collectors.toList())));
+            }
+            logPotentialScaleReductionFactors();
+        }
+    }
+
+    /**
+     * Returns an overdispersed initial state for an additional Markov chain, given the current state of the first chain.
+     * The outlier probability is drawn from its prior and the outlier indicators are left unchanged.
+     */
+    private CopyRatioState perturbState(final CopyRatioState state, final RandomGenerator rng) {
+        final double variance = Math.exp(perturb(rng, Math.log(state.variance()), INITIAL_LOG_VARIANCE_DISPERSION,
+                Math.log(VARIANCE_MIN), Math.log(varianceMax)));
+        final double outlierProbability = new BetaDistribution(rng, OUTLIER_PROBABILITY_PRIOR_ALPHA, OUTLIER_PROBABILITY_PRIOR_BETA).sample();
+        final CopyRatioState.SegmentMeans segmentMeans = new CopyRatioState.SegmentMeans(
+                state.get(CopyRatioParameter.SEGMENT_MEANS, CopyRatioState.SegmentMeans.class).stream()
+                        .map(m -> perturb(rng, m, INITIAL_SEGMENT_MEANS_DISPERSION * meanSliceSamplingWidth, LOG2_COPY_RATIO_MIN, LOG2_COPY_RATIO_MAX))
+                        .collect(Collectors.toList()));
+        return new CopyRatioState(variance, outlierProbability, segmentMeans,
+                state.get(CopyRatioParameter.OUTLIER_INDICATORS, CopyRatioState.OutlierIndicators.class));
+    }
+
+    //returns a draw from a normal distribution around value, truncated to [min, max] (or value itself if no draw is within bounds)
+    private static double perturb(final RandomGenerator rng, final double value, final double standardDeviation,
+                                  final double min, final double max) {
+        for (int attempt = 0; attempt < MAX_PERTURBATION_ATTEMPTS; attempt++) {
+            final double perturbedValue = value + standardDeviation * rng.nextGaussian();
+            if (min <= perturbedValue && perturbedValue <= max) {
+                return perturbedValue;
+            }
+        }
+        return value;
+    }
+
+    private void logPotentialScaleReductionFactors() {
+        final double maxSegmentMeansPotentialScaleReductionFactor = segmentMeansPotentialScaleReductionFactors.stream()
+                .filter(r -> !Double.isNaN(r)).mapToDouble(r -> r).max().orElse(Double.NaN);
+        logger.info(String.format("Potential scale reduction factors for global parameters: %s; maximum for segment means: %.3f",
+                globalParameterPotentialScaleReductionFactors, maxSegmentMeansPotentialScaleReductionFactor));
+        if (globalParameterPotentialScaleReductionFactors.values().stream().anyMatch(r -> r > PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD) ||
+                maxSegmentMeansPotentialScaleReductionFactor > PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD) {
+            logger.warn(String.format("Potential scale reduction factors exceed %.1f; copy-ratio MCMC chains may not have converged.  " +
+                    "Consider increasing the number of samples and burn-in samples.", PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD));
+        }
     }
 
     List<Double> getVarianceSamples() {
@@ -135,6 +247,22 @@ public final class CopyRatioModeller {
         return Collections.unmodifiableList(segmentMeansSamples);
     }
 
+    /**
+     * Returns the potential scale reduction factors for the global parameters from the last call to {@link #fitMCMC},
+     * which are only available if more than one chain was run.
+     */
+    Map<CopyRatioParameter, Double> getGlobalParameterPotentialScaleReductionFactors() {
+        return Collections.unmodifiableMap(globalParameterPotentialScaleReductionFactors);
+    }
+
+    /**
+     * Returns the potential scale reduction factors for the segment means from the last call to {@link #fitMCMC},
+     * which are only available if more than one chain was run.
+     */
+    List<Double> getSegmentMeansPotentialScaleReductionFactors() {
+        return Collections.unmodifiableList(segmentMeansPotentialScaleReductionFactors);
+    }
+
     /**
      * Should only be called after {@link #fitMCMC} has been called.
      */
@@ -64,4 +64,13 @@ final class CopyRatioState extends ParameterizedState<CopyRatioParameter> {
     boolean outlierIndicator(final int copyRatioIndex) {
         return get(CopyRatioParameter.OUTLIER_INDICATORS, CopyRatioState.OutlierIndicators.class).get(copyRatioIndex);
     }
+
+    //overridden so that copies (e.g., those held by the models for additional Markov chains) are also CopyRatioStates
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <S extends ParameterizedState<CopyRatioParameter>> S copy() {
+        return (S) new CopyRatioState(variance(), outlierProbability(),
+                get(CopyRatioParameter.SEGMENT_MEANS, SegmentMeans.class),
+                get(CopyRatioParameter.OUTLIER_INDICATORS, OutlierIndicators.class));
+    }
 }
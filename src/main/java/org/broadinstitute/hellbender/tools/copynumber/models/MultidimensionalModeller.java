@@ -48,6 +48,7 @@ public final class MultidimensionalModeller {
     private final int numBurnInCopyRatio;
     private final int numSamplesAlleleFraction;
     private final int numBurnInAlleleFraction;
+    private final int numChains;
 
     /**
      * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
@@ -62,6 +63,25 @@ public final class MultidimensionalModeller {
                                     final int numBurnInCopyRatio,
                                     final int numSamplesAlleleFraction,
                                     final int numBurnInAlleleFraction) {
+        this(multidimensionalSegments, denoisedCopyRatios, allelicCounts, alleleFractionPrior,
+                numSamplesCopyRatio, numBurnInCopyRatio, numSamplesAlleleFraction, numBurnInAlleleFraction, 1);
+    }
+
+    /**
+     * Constructs a copy-ratio and allele-fraction modeller, specifying number of total samples
+     * and number of burn-in samples per chain and number of independent chains (which are run in parallel)
+     * for Markov-Chain Monte Carlo model fitting.  Posterior samples from all chains are pooled.
+     * An initial model fit is performed.
+     */
+    public MultidimensionalModeller(final MultidimensionalSegmentCollection multidimensionalSegments,
+                                    final CopyRatioCollection denoisedCopyRatios,
+                                    final AllelicCountCollection allelicCounts,
+                                    final AlleleFractionPrior alleleFractionPrior,
+                                    final int numSamplesCopyRatio,
+                                    final int numBurnInCopyRatio,
+                                    final int numSamplesAlleleFraction,
+                                    final int numBurnInAlleleFraction,
+                                    final int numChains) {
         Utils.validateArg(Stream.of(
                 Utils.nonNull(multidimensionalSegments).getMetadata(),
                 Utils.nonNull(denoisedCopyRatios).getMetadata(),
@@ -81,6 +101,7 @@ public final class MultidimensionalModeller {
         this.numBurnInCopyRatio = numBurnInCopyRatio;
         this.numSamplesAlleleFraction = numSamplesAlleleFraction;
         this.numBurnInAlleleFraction = numBurnInAlleleFraction;
+        this.numChains = ParamUtils.isPositive(numChains, "Number of chains must be positive.");
         logger.info("Fitting initial model...");
         fitModel();
     }
@@ -97,10 +118,10 @@ public final class MultidimensionalModeller {
         //perform MCMC to generate posterior samples
         logger.info("Fitting copy-ratio model...");
         copyRatioModeller = new CopyRatioModeller(denoisedCopyRatios, currentSegments);
-        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio);
+        copyRatioModeller.fitMCMC(numSamplesCopyRatio, numBurnInCopyRatio, numChains);
         logger.info("Fitting allele-fraction model...");
         alleleFractionModeller = new AlleleFractionModeller(allelicCounts, currentSegments, alleleFractionPrior);
-        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction);
+        alleleFractionModeller.fitMCMC(numSamplesAlleleFraction, numBurnInAlleleFraction, numChains);
 
         //update list of ModeledSegment with new PosteriorSummaries
         modeledSegments.clear();
@@ -56,6 +56,22 @@ public final class AlleleFractionKernelSegmenter {
                                                             final List<Integer> windowSizes,
                                                             final double numChangepointsPenaltyLinearFactor,
                                                             final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, 1);
+    }
+
+    /**
+     * Segments the internally held {@link AllelicCountCollection} using a separate {@link KernelSegmenter} for each chromosome.
+     * @param kernelVariance    variance of the Gaussian kernel; if zero, a linear kernel is used instead
+     * @param numThreads        maximum number of chromosomes to segment at once
+     */
+    public AlleleFractionSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                            final double kernelVariance,
+                                                            final int kernelApproximationDimension,
+                                                            final List<Integer> windowSizes,
+                                                            final double numChangepointsPenaltyLinearFactor,
+                                                            final double numChangepointsPenaltyLogLinearFactor,
+                                                            final int numThreads) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVariance, "Variance of Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositive(kernelApproximationDimension, "Dimension of kernel approximation must be positive.");
@@ -65,12 +81,13 @@ public final class AlleleFractionKernelSegmenter {
                 "Linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
         ParamUtils.isPositiveOrZero(numChangepointsPenaltyLogLinearFactor,
                 "Log-linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
 
         logger.info(String.format("Finding changepoints in %d data points and %d chromosomes...",
                 allelicCounts.size(), allelicCountsPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create allele-fraction segments
-        final List<AlleleFractionSegment> segments = new ArrayList<>();
+        //find changepoints in all chromosomes with enough points, segmenting up to numThreads chromosomes at once
+        final Map<String, List<Double>> alternateAlleleFractionsPerChromosome = new LinkedHashMap<>();
         for (final String chromosome : allelicCountsPerChromosome.keySet()) {
             final List<AllelicCount> allelicCountsInChromosome = allelicCountsPerChromosome.get(chromosome);
             final int numAllelicCountsInChromosome = allelicCountsInChromosome.size();
@@ -80,6 +97,24 @@ public final class AlleleFractionKernelSegmenter {
             if (numAllelicCountsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
                 logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
                         chromosome, numAllelicCountsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+                continue;
+            }
+            alternateAlleleFractionsPerChromosome.put(chromosome, allelicCountsInChromosome.stream()
+                    .map(AllelicCount::getAlternateAlleleFraction)
+                    .collect(Collectors.toList()));
+        }
+        final Map<String, List<Integer>> changepointsPerChromosome = KernelSegmenter.findChangepointsInParallel(
+                alternateAlleleFractionsPerChromosome, numThreads,
+                segmenter -> segmenter.findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
+                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+
+        //loop over chromosomes and create allele-fraction segments
+        final List<AlleleFractionSegment> segments = new ArrayList<>();
+        for (final String chromosome : allelicCountsPerChromosome.keySet()) {
+            final List<AllelicCount> allelicCountsInChromosome = allelicCountsPerChromosome.get(chromosome);
+            final int numAllelicCountsInChromosome = allelicCountsInChromosome.size();
+
+            if (!changepointsPerChromosome.containsKey(chromosome)) {
                 final int start = allelicCountsInChromosome.get(0).getStart();
                 final int end = allelicCountsInChromosome.get(numAllelicCountsInChromosome - 1).getEnd();
                 segments.add(new AlleleFractionSegment(
@@ -87,12 +122,7 @@ public final class AlleleFractionKernelSegmenter {
                 continue;
             }
 
-            final List<Double> alternateAlleleFractionsInChromosome = allelicCountsPerChromosome.get(chromosome).stream()
-                    .map(AllelicCount::getAlternateAlleleFraction)
-                    .collect(Collectors.toList());
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(alternateAlleleFractionsInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+            final List<Integer> changepoints = new ArrayList<>(changepointsPerChromosome.get(chromosome));
 
             if (!changepoints.contains(numAllelicCountsInChromosome)) {
                 changepoints.add(numAllelicCountsInChromosome - 1);
@@ -59,6 +59,22 @@ public final class CopyRatioKernelSegmenter {
                                                        final List<Integer> windowSizes,
                                                        final double numChangepointsPenaltyLinearFactor,
                                                        final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome, kernelVariance, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, 1);
+    }
+
+    /**
+     * Segments the internally held {@link CopyRatioCollection} using a separate {@link KernelSegmenter} for each chromosome.
+     * @param kernelVariance    variance of the Gaussian kernel; if zero, a linear kernel is used instead
+     * @param numThreads        maximum number of chromosomes to segment at once
+     */
+    public CopyRatioSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                       final double kernelVariance,
+                                                       final int kernelApproximationDimension,
+                                                       final List<Integer> windowSizes,
+                                                       final double numChangepointsPenaltyLinearFactor,
+                                                       final double numChangepointsPenaltyLogLinearFactor,
+                                                       final int numThreads) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVariance, "Variance of Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositive(kernelApproximationDimension, "Dimension of kernel approximation must be positive.");
@@ -68,12 +84,13 @@ public final class CopyRatioKernelSegmenter {
                 "Linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
         ParamUtils.isPositiveOrZero(numChangepointsPenaltyLogLinearFactor,
                 "Log-linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
 
         logger.info(String.format("Finding changepoints in %d data points and %d chromosomes...",
                 denoisedCopyRatios.size(), denoisedCopyRatiosPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create copy-ratio segments
-        final List<CopyRatioSegment> segments = new ArrayList<>();
+        //find changepoints in all chromosomes with enough points, segmenting up to numThreads chromosomes at once
+        final Map<String, List<Double>> denoisedLog2CopyRatioValuesPerChromosome = new LinkedHashMap<>();
         for (final String chromosome : denoisedCopyRatiosPerChromosome.keySet()) {
             final List<CopyRatio> denoisedCopyRatiosInChromosome = denoisedCopyRatiosPerChromosome.get(chromosome);
             final int numDenoisedCopyRatiosInChromosome = denoisedCopyRatiosInChromosome.size();
@@ -83,6 +100,24 @@ public final class CopyRatioKernelSegmenter {
             if (numDenoisedCopyRatiosInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
                 logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
                         chromosome, numDenoisedCopyRatiosInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+                continue;
+            }
+            denoisedLog2CopyRatioValuesPerChromosome.put(chromosome, denoisedCopyRatiosInChromosome.stream()
+                    .map(CopyRatio::getLog2CopyRatioValue)
+                    .collect(Collectors.toList()));
+        }
+        final Map<String, List<Integer>> changepointsPerChromosome = KernelSegmenter.findChangepointsInParallel(
+                denoisedLog2CopyRatioValuesPerChromosome, numThreads,
+                segmenter -> segmenter.findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
+                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+
+        //loop over chromosomes and create copy-ratio segments
+        final List<CopyRatioSegment> segments = new ArrayList<>();
+        for (final String chromosome : denoisedCopyRatiosPerChromosome.keySet()) {
+            final List<CopyRatio> denoisedCopyRatiosInChromosome = denoisedCopyRatiosPerChromosome.get(chromosome);
+            final int numDenoisedCopyRatiosInChromosome = denoisedCopyRatiosInChromosome.size();
+
+            if (!changepointsPerChromosome.containsKey(chromosome)) {
                 final int start = denoisedCopyRatiosPerChromosome.get(chromosome).get(0).getStart();
                 final int end = denoisedCopyRatiosPerChromosome.get(chromosome).get(numDenoisedCopyRatiosInChromosome - 1).getEnd();
                 segments.add(new CopyRatioSegment(
@@ -90,12 +125,7 @@ public final class CopyRatioKernelSegmenter {
                 continue;
             }
 
-            final List<Double> denoisedLog2CopyRatioValuesInChromosome = denoisedCopyRatiosInChromosome.stream()
-                    .map(CopyRatio::getLog2CopyRatioValue)
-                    .collect(Collectors.toList());
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(denoisedLog2CopyRatioValuesInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, KERNEL.apply(kernelVariance), kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+            final List<Integer> changepoints = new ArrayList<>(changepointsPerChromosome.get(chromosome));
 
             if (!changepoints.contains(numDenoisedCopyRatiosInChromosome)) {
                 changepoints.add(numDenoisedCopyRatiosInChromosome - 1);
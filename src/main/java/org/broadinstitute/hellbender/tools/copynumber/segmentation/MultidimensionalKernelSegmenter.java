@@ -127,6 +127,32 @@ public final class MultidimensionalKernelSegmenter {
                                                               final List<Integer> windowSizes,
                                                               final double numChangepointsPenaltyLinearFactor,
                                                               final double numChangepointsPenaltyLogLinearFactor) {
+        return findSegmentation(maxNumChangepointsPerChromosome, kernelVarianceCopyRatio, kernelVarianceAlleleFraction,
+                kernelScalingAlleleFraction, kernelApproximationDimension, windowSizes,
+                numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, 1);
+    }
+
+    /**
+     * Segments the internally held {@link CopyRatioCollection} and {@link AllelicCountCollection}
+     * using a separate {@link KernelSegmenter} for each chromosome.
+     * @param kernelVarianceCopyRatio       variance of the Gaussian kernel used for copy-ratio data;
+     *                                      if zero, a linear kernel is used instead
+     * @param kernelVarianceAlleleFraction  variance of the Gaussian kernel used for allele-fraction data;
+     *                                      if zero, a linear kernel is used instead
+     * @param kernelScalingAlleleFraction   relative scaling S of the kernel K_AF for allele-fraction data
+     *                                      to the kernel K_CR for copy-ratio data;
+     *                                      the total kernel is K_CR + S * K_AF
+     * @param numThreads                    maximum number of chromosomes to segment at once
+     */
+    public MultidimensionalSegmentCollection findSegmentation(final int maxNumChangepointsPerChromosome,
+                                                              final double kernelVarianceCopyRatio,
+                                                              final double kernelVarianceAlleleFraction,
+                                                              final double kernelScalingAlleleFraction,
+                                                              final int kernelApproximationDimension,
+                                                              final List<Integer> windowSizes,
+                                                              final double numChangepointsPenaltyLinearFactor,
+                                                              final double numChangepointsPenaltyLogLinearFactor,
+                                                              final int numThreads) {
         ParamUtils.isPositiveOrZero(maxNumChangepointsPerChromosome, "Maximum number of changepoints must be non-negative.");
         ParamUtils.isPositiveOrZero(kernelVarianceCopyRatio, "Variance of copy-ratio Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
         ParamUtils.isPositiveOrZero(kernelVarianceAlleleFraction, "Variance of allele-fraction Gaussian kernel must be non-negative (if zero, a linear kernel will be used).");
@@ -138,6 +164,7 @@ public final class MultidimensionalKernelSegmenter {
                 "Linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
         ParamUtils.isPositiveOrZero(numChangepointsPenaltyLogLinearFactor,
                 "Log-linear factor for the penalty on the number of changepoints per chromosome must be non-negative.");
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
 
         final BiFunction<MultidimensionalPoint, MultidimensionalPoint, Double> kernel = constructKernel(
                 kernelVarianceCopyRatio, kernelVarianceAlleleFraction, kernelScalingAlleleFraction);
@@ -145,8 +172,8 @@ public final class MultidimensionalKernelSegmenter {
         logger.info(String.format("Finding changepoints in (%d, %d) data points and %d chromosomes...",
                 denoisedCopyRatios.size(), allelicCounts.size(), multidimensionalPointsPerChromosome.size()));
 
-        //loop over chromosomes, find changepoints, and create allele-fraction segments
-        final List<MultidimensionalSegment> segments = new ArrayList<>();
+        //find changepoints in all chromosomes with enough points, segmenting up to numThreads chromosomes at once
+        final Map<String, List<MultidimensionalPoint>> multidimensionalPointsPerChromosomeToSegment = new LinkedHashMap<>();
         for (final String chromosome : multidimensionalPointsPerChromosome.keySet()) {
             final List<MultidimensionalPoint> multidimensionalPointsInChromosome = multidimensionalPointsPerChromosome.get(chromosome);
             final int numMultidimensionalPointsInChromosome = multidimensionalPointsInChromosome.size();
@@ -156,6 +183,22 @@ public final class MultidimensionalKernelSegmenter {
             if (numMultidimensionalPointsInChromosome < MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME) {
                 logger.warn(String.format("Number of points in chromosome %s (%d) is less than that required (%d), skipping segmentation...",
                         chromosome, numMultidimensionalPointsInChromosome, MIN_NUM_POINTS_REQUIRED_PER_CHROMOSOME));
+                continue;
+            }
+            multidimensionalPointsPerChromosomeToSegment.put(chromosome, multidimensionalPointsInChromosome);
+        }
+        final Map<String, List<Integer>> changepointsPerChromosome = KernelSegmenter.findChangepointsInParallel(
+                multidimensionalPointsPerChromosomeToSegment, numThreads,
+                segmenter -> segmenter.findChangepoints(maxNumChangepointsPerChromosome, kernel, kernelApproximationDimension,
+                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+
+        //loop over chromosomes and create multidimensional segments
+        final List<MultidimensionalSegment> segments = new ArrayList<>();
+        for (final String chromosome : multidimensionalPointsPerChromosome.keySet()) {
+            final List<MultidimensionalPoint> multidimensionalPointsInChromosome = multidimensionalPointsPerChromosome.get(chromosome);
+            final int numMultidimensionalPointsInChromosome = multidimensionalPointsInChromosome.size();
+
+            if (!changepointsPerChromosome.containsKey(chromosome)) {
                 final int start = multidimensionalPointsInChromosome.get(0).getStart();
                 final int end = multidimensionalPointsInChromosome.get(numMultidimensionalPointsInChromosome - 1).getEnd();
                 segments.add(new MultidimensionalSegment(
@@ -166,9 +209,7 @@ public final class MultidimensionalKernelSegmenter {
                 continue;
             }
 
-            final List<Integer> changepoints = new ArrayList<>(new KernelSegmenter<>(multidimensionalPointsInChromosome)
-                .findChangepoints(maxNumChangepointsPerChromosome, kernel, kernelApproximationDimension,
-                        windowSizes, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, KernelSegmenter.ChangepointSortOrder.INDEX));
+            final List<Integer> changepoints = new ArrayList<>(changepointsPerChromosome.get(chromosome));
 
             if (!changepoints.contains(numMultidimensionalPointsInChromosome)) {
                 changepoints.add(numMultidimensionalPointsInChromosome - 1);
@@ -0,0 +1,198 @@
+package org.broadinstitute.hellbender.tools.copynumber.utils;
+
+import org.broadinstitute.hdf5.HDF5File;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+
+/**
+ * A large matrix stored in an HDF5 file as a grid of tiles (submatrices), so that it can be
+ * read either as blocks of complete rows or as blocks of complete columns while holding only a single block in memory.
+ * This is used to perform out-of-core passes over matrices that are too large to fit in heap,
+ * e.g. to calculate medians of both rows and columns.
+ *
+ * <p>
+ *     The matrix is written once, row by row, using {@link #writeRow}.  Rows are buffered until a
+ *     block of {@link #getNumRowsPerBlock()} rows is filled, at which point the block is split into
+ *     tiles of {@link #getNumColumnsPerBlock()} columns that are written to the sub-paths
+ *     {@code path/tile_<row block index>_<column block index>}.  Block dimensions are chosen so that neither a block of
+ *     complete rows nor a block of complete columns contains more than the maximum block size, if possible.
+ * </p>
+ *
+ * <p>
+ *     This class is not thread-safe.
+ * </p>
+ */
+public final class HDF5TiledDoubleMatrix {
+    private static final String TILE_PATH_PREFIX = "/tile_";
+
+    private final HDF5File file;
+    private final String path;
+    private final int numRows;
+    private final int numColumns;
+    private final int numRowsPerBlock;
+    private final int numColumnsPerBlock;
+    private final int numRowBlocks;
+    private final int numColumnBlocks;
+
+    private final double[][] rowBuffer;
+    private int numRowsBuffered = 0;
+    private int numRowsWritten = 0;
+
+    /**
+     * @param maxBlockSize  the maximum number of values in a block of rows or columns held in memory;
+     *                      a block always contains at least a single row or column,
+     *                      so this is exceeded if the number of rows or columns is larger
+     */
+    public HDF5TiledDoubleMatrix(final HDF5File file,
+                                 final String path,
+                                 final int numRows,
+                                 final int numColumns,
+                                 final int maxBlockSize) {
+        Utils.nonNull(file);
+        IOUtils.canReadFile(file.getFile());
+        Utils.nonNull(path);
+        ParamUtils.isPositive(numRows, "Matrix must contain at least one row.");
+        ParamUtils.isPositive(numColumns, "Matrix must contain at least one column.");
+        ParamUtils.inRange(maxBlockSize, 1 , HDF5Utils.MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX,
+                String.format("Maximum block size must be in [1, %d].", HDF5Utils.MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX));
+        this.file = file;
+        this.path = path;
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        numRowsPerBlock = Math.min(numRows, Math.max(1, maxBlockSize / numColumns));
+        numColumnsPerBlock = Math.min(numColumns, Math.max(1, maxBlockSize / numRows));
+        numRowBlocks = (numRows + numRowsPerBlock - 1) / numRowsPerBlock;
+        numColumnBlocks = (numColumns + numColumnsPerBlock - 1) / numColumnsPerBlock;
+        rowBuffer = new double[numRowsPerBlock][];
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getNumRowsPerBlock() {
+        return numRowsPerBlock;
+    }
+
+    public int getNumColumnsPerBlock() {
+        return numColumnsPerBlock;
+    }
+
+    public int getNumRowBlocks() {
+        return numRowBlocks;
+    }
+
+    public int getNumColumnBlocks() {
+        return numColumnBlocks;
+    }
+
+    /**
+     * Adds a row to the end of the matrix.  The row is not copied and must not be modified afterwards.
+     */
+    public void writeRow(final double[] row) {
+        Utils.nonNull(row);
+        Utils.validateArg(row.length == numColumns,
+                String.format("Row contains %d values, but the matrix contains %d columns.", row.length, numColumns));
+        Utils.validate(numRowsWritten + numRowsBuffered < numRows, "All rows of the matrix have already been written.");
+        rowBuffer[numRowsBuffered++] = row;
+        if (numRowsBuffered == rowBuffer.length || numRowsWritten + numRowsBuffered == numRows) {
+            writeBufferedRowBlock();
+        }
+    }
+
+    public boolean isComplete() {
+        return numRowsWritten == numRows;
+    }
+
+    /**
+     * @return the first row in the block with index {@code rowBlockIndex}
+     */
+    public int getRowBlockStart(final int rowBlockIndex) {
+        ParamUtils.inRange(rowBlockIndex, 0, numRowBlocks - 1, "Row block index is out of range.");
+        return rowBlockIndex * numRowsPerBlock;
+    }
+
+    /**
+     * @return the first column in the block with index {@code columnBlockIndex}
+     */
+    public int getColumnBlockStart(final int columnBlockIndex) {
+        ParamUtils.inRange(columnBlockIndex, 0, numColumnBlocks - 1, "Column block index is out of range.");
+        return columnBlockIndex * numColumnsPerBlock;
+    }
+
+    /**
+     * @return complete rows of the block with index {@code rowBlockIndex} (dimensions rows in block x columns)
+     */
+    public double[][] readRowBlock(final int rowBlockIndex) {
+        validateComplete();
+        final int firstRow = getRowBlockStart(rowBlockIndex);
+        final int numRowsInBlock = Math.min(numRowsPerBlock, numRows - firstRow);
+        final double[][] rowBlock = new double[numRowsInBlock][numColumns];
+        for (int columnBlockIndex = 0; columnBlockIndex < numColumnBlocks; columnBlockIndex++) {
+            final double[][] tile = readTile(rowBlockIndex, columnBlockIndex);
+            final int firstColumn = getColumnBlockStart(columnBlockIndex);
+            for (int i = 0; i < numRowsInBlock; i++) {
+                System.arraycopy(tile[i], 0, rowBlock[i], firstColumn, tile[i].length);
+            }
+        }
+        return rowBlock;
+    }
+
+    /**
+     * @return complete columns of the block with index {@code columnBlockIndex},
+     *         transposed so that each column is contiguous (dimensions columns in block x rows)
+     */
+    public double[][] readTransposedColumnBlock(final int columnBlockIndex) {
+        validateComplete();
+        final int firstColumn = getColumnBlockStart(columnBlockIndex);
+        final int numColumnsInBlock = Math.min(numColumnsPerBlock, numColumns - firstColumn);
+        final double[][] transposedColumnBlock = new double[numColumnsInBlock][numRows];
+        for (int rowBlockIndex = 0; rowBlockIndex < numRowBlocks; rowBlockIndex++) {
+            final double[][] tile = readTile(rowBlockIndex, columnBlockIndex);
+            final int firstRow = getRowBlockStart(rowBlockIndex);
+            for (int i = 0; i < tile.length; i++) {
+                for (int j = 0; j < numColumnsInBlock; j++) {
+                    transposedColumnBlock[j][firstRow + i] = tile[i][j];
+                }
+            }
+        }
+        return transposedColumnBlock;
+    }
+
+    private void writeBufferedRowBlock() {
+        final int rowBlockIndex = numRowsWritten / numRowsPerBlock;
+        for (int columnBlockIndex = 0; columnBlockIndex < numColumnBlocks; columnBlockIndex++) {
+            final int firstColumn = getColumnBlockStart(columnBlockIndex);
+            final int numColumnsInBlock = Math.min(numColumnsPerBlock, numColumns - firstColumn);
+            final double[][] tile = new double[numRowsBuffered][numColumnsInBlock];
+            for (int i = 0; i < numRowsBuffered; i++) {
+                System.arraycopy(rowBuffer[i], firstColumn, tile[i], 0, numColumnsInBlock);
+            }
+            file.makeDoubleMatrix(getTilePath(rowBlockIndex, columnBlockIndex), tile);
+        }
+        numRowsWritten += numRowsBuffered;
+        numRowsBuffered = 0;
+        Arrays.fill(rowBuffer, null);
+    }
+
+    private double[][] readTile(final int rowBlockIndex,
+                                final int columnBlockIndex) {
+        return file.readDoubleMatrix(getTilePath(rowBlockIndex, columnBlockIndex));
+    }
+
+    private String getTilePath(final int rowBlockIndex,
+                               final int columnBlockIndex) {
+        return path + TILE_PATH_PREFIX + rowBlockIndex + "_" + columnBlockIndex;
+    }
+
+    private void validateComplete() {
+        Utils.validate(isComplete(), String.format("Only %d out of %d rows of the matrix have been written.", numRowsWritten, numRows));
+    }
+}
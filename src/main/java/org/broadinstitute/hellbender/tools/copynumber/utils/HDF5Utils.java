@@ -9,6 +9,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -131,6 +132,147 @@ public final class HDF5Utils {
         return fullMatrix;
     }
 
+    /**
+     * Reads a large matrix stored as a set of chunks (submatrices) using the sub-paths and conventions
+     * used by {@link #writeChunkedDoubleMatrix}, passing each chunk to {@code chunkConsumer} in order
+     * instead of assembling the full matrix.  Only a single chunk is held in memory at a time.
+     */
+    public static void readChunkedDoubleMatrix(final HDF5File file,
+                                               final String path,
+                                               final DoubleMatrixChunkConsumer chunkConsumer) {
+        Utils.nonNull(file);
+        IOUtils.canReadFile(file.getFile());
+        Utils.nonNull(path);
+        Utils.nonNull(chunkConsumer);
+
+        final int numRows = readNumberOfRows(file, path);
+        final int numColumns = (int) file.readDouble(path + NUMBER_OF_COLUMNS_SUB_PATH);
+        final int numChunks = (int) file.readDouble(path + NUMBER_OF_CHUNKS_SUB_PATH);
+
+        int numRowsRead = 0;
+        for (int chunkIndex = 0; chunkIndex < numChunks; chunkIndex++) {
+            final double[][] matrixChunk = file.readDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + chunkIndex);
+            if (numRowsRead + matrixChunk.length > numRows) {
+                throw new UserException.BadInput("Matrix chunk contains too many rows.");
+            }
+            if (matrixChunk[0].length != numColumns) {
+                throw new UserException.BadInput("Matrix chunk does not contain expected number of columns.");
+            }
+            chunkConsumer.accept(numRowsRead, matrixChunk);
+            numRowsRead += matrixChunk.length;
+        }
+        if (numRowsRead != numRows) {
+            throw new UserException.BadInput("Matrix chunks do not contain expected total number of rows.");
+        }
+    }
+
+    /**
+     * Reads the number of rows of a large matrix stored as a set of chunks by {@link #writeChunkedDoubleMatrix}.
+     */
+    public static int readNumberOfRows(final HDF5File file,
+                                       final String path) {
+        final String numRowsPath = path + NUMBER_OF_ROWS_SUB_PATH;
+        Utils.validateArg(file.isPresent(numRowsPath) && file.isPresent(path + NUMBER_OF_COLUMNS_SUB_PATH) && file.isPresent(path + NUMBER_OF_CHUNKS_SUB_PATH),
+                String.format("HDF5 file %s does not contain a chunked matrix in path %s.", file.getFile().getAbsolutePath(), path));
+        return (int) file.readDouble(numRowsPath);
+    }
+
+    /**
+     * Receives the chunks of a large matrix read by {@link #readChunkedDoubleMatrix(HDF5File, String, DoubleMatrixChunkConsumer)}.
+     */
+    @FunctionalInterface
+    public interface DoubleMatrixChunkConsumer {
+        /**
+         * @param firstRowIndex index of the first row of {@code matrixChunk} in the full matrix
+         * @param matrixChunk   rows of the chunk
+         */
+        void accept(final int firstRowIndex, final double[][] matrixChunk);
+    }
+
+    /**
+     * Writes a large matrix row by row, using the same chunks, sub-paths and conventions as {@link #writeChunkedDoubleMatrix},
+     * so that the full matrix never needs to be held in memory.  At most a single chunk of rows is buffered,
+     * and the number of rows and chunks are written when the writer is closed.  The matrix can be read
+     * by either of the {@code readChunkedDoubleMatrix} methods.
+     */
+    public static final class ChunkedDoubleMatrixWriter implements AutoCloseable {
+        private final HDF5File file;
+        private final String path;
+        private final int numColumns;
+        private final double[][] buffer;
+        private int numRowsBuffered = 0;
+        private int numRowsWritten = 0;
+        private int numChunksWritten = 0;
+        private boolean isClosed = false;
+
+        /**
+         * @param maxChunkSize  The maximum number of values in each chunk; see {@link #writeChunkedDoubleMatrix}.
+         */
+        public ChunkedDoubleMatrixWriter(final HDF5File file,
+                                         final String path,
+                                         final int numColumns,
+                                         final int maxChunkSize) {
+            Utils.nonNull(file);
+            IOUtils.canReadFile(file.getFile());
+            Utils.nonNull(path);
+            ParamUtils.isPositive(numColumns, "Matrix must contain at least one column.");
+            ParamUtils.inRange(maxChunkSize, 1 , MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX,
+                    String.format("Maximum chunk size must be in [1, %d].", MAX_NUMBER_OF_VALUES_PER_HDF5_MATRIX));
+            Utils.validateArg(numColumns <= maxChunkSize,
+                    String.format("Number of columns (%d) exceeds the maximum number of values allowed per chunk (%d).",
+                            numColumns, maxChunkSize));
+            this.file = file;
+            this.path = path;
+            this.numColumns = numColumns;
+            buffer = new double[maxChunkSize / numColumns][];
+        }
+
+        /**
+         * Adds a row to the end of the matrix.  The row is not copied and must not be modified afterwards.
+         */
+        public void writeRow(final double[] row) {
+            Utils.nonNull(row);
+            Utils.validateArg(row.length == numColumns,
+                    String.format("Row contains %d values, but the matrix contains %d columns.", row.length, numColumns));
+            Utils.validate(!isClosed, "Cannot write rows after the writer has been closed.");
+            buffer[numRowsBuffered++] = row;
+            if (numRowsBuffered == buffer.length) {
+                writeBufferedChunk();
+            }
+        }
+
+        public int getNumRowsWritten() {
+            return numRowsWritten + numRowsBuffered;
+        }
+
+        /**
+         * Writes any remaining rows as a final, partially filled chunk, followed by the dimensions of the matrix.
+         */
+        @Override
+        public void close() {
+            if (isClosed) {
+                return;
+            }
+            Utils.validate(getNumRowsWritten() > 0, "Matrix must contain at least one row.");
+            if (numRowsBuffered > 0) {
+                writeBufferedChunk();
+            }
+            file.makeDouble(path + NUMBER_OF_ROWS_SUB_PATH, numRowsWritten);
+            file.makeDouble(path + NUMBER_OF_COLUMNS_SUB_PATH, numColumns);
+            file.makeDouble(path + NUMBER_OF_CHUNKS_SUB_PATH, numChunksWritten);
+            isClosed = true;
+        }
+
+        private void writeBufferedChunk() {
+            final double[][] matrixChunk = numRowsBuffered == buffer.length ? buffer : Arrays.copyOf(buffer, numRowsBuffered);
+            file.makeDoubleMatrix(path + CHUNK_INDEX_PATH_SUFFIX + numChunksWritten, matrixChunk);
+            numRowsWritten += numRowsBuffered;
+            numChunksWritten++;
+            Arrays.fill(buffer, null);
+            numRowsBuffered = 0;
+        }
+    }
+
     /**
      * Given a large matrix, chunks the matrix into equally sized subsets of rows
      * (plus a subset containing the remainder, if necessary) and writes these submatrices to indexed sub-paths
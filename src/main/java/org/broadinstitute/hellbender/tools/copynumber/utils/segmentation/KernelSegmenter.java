@@ -1,21 +1,25 @@
 package org.broadinstitute.hellbender.tools.copynumber.utils.segmentation;
 
 import org.apache.commons.math3.linear.Array2DRowRealMatrix;
-import org.apache.commons.math3.linear.DefaultRealMatrixChangingVisitor;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
 import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.commons.math3.util.FastMath;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.copynumber.utils.optimization.PersistenceOptimizer;
-import org.broadinstitute.hellbender.utils.IndexRange;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -69,6 +73,14 @@ import java.util.stream.IntStream;
  * </ol>
  *
  * <p>
+ *     The N x p reduced observation matrix for the low-rank approximation is calculated in blocks of rows,
+ *     so that the N x p matrix of kernel values is never held in memory, and the local costs for each window size
+ *     are calculated in a single buffer of length N that is reused for all window sizes.  Independent data sets
+ *     (e.g., the data in each chromosome) can be segmented in parallel using
+ *     {@link #findChangepointsInParallel(Map, int, Function)}.
+ * </p>
+ *
+ * <p>
  *     Note that we break with camelCase naming convention in places to match some notation in the paper
  * </p>
  *
@@ -83,6 +95,7 @@ public final class KernelSegmenter<DATA> {
 
     private static final int RANDOM_SEED = 1216;
     private static final double EPSILON = 1E-10;
+    private static final int REDUCED_OBSERVATION_MATRIX_BLOCK_SIZE = 1024;   //number of rows of kernel values held in memory at once
 
     private final List<DATA> data;
 
@@ -132,7 +145,7 @@ public final class KernelSegmenter<DATA> {
         final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
 
         logger.debug("Calculating low-rank approximation to kernel matrix...");
-        final RealMatrix reducedObservationMatrix = calculateReducedObservationMatrix(rng, data, kernel, kernelApproximationDimension);
+        final ReducedObservationMatrix reducedObservationMatrix = calculateReducedObservationMatrix(rng, data, kernel, kernelApproximationDimension);
         final double[] kernelApproximationDiagonal = calculateKernelApproximationDiagonal(reducedObservationMatrix);
 
         logger.debug(String.format("Finding changepoint candidates for all window sizes %s...", windowSizes.toString()));
@@ -147,6 +160,67 @@ public final class KernelSegmenter<DATA> {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Finds changepoints in each of several independent data sets (e.g., the data in each chromosome) using a separate
+     * {@link KernelSegmenter} for each, segmenting up to {@code numThreads} data sets at once.  The results do not
+     * depend on the number of threads.  Note that the memory required scales with the number of data sets that are
+     * segmented at once.
+     * @param dataSets              data sets to segment
+     * @param numThreads            maximum number of data sets to segment at once
+     * @param changepointFinder     finds the changepoints using the {@link KernelSegmenter} for a data set
+     *                              (e.g., by calling {@link #findChangepoints})
+     * @return the changepoints found for each data set, in the iteration order of {@code dataSets}
+     */
+    public static <KEY, DATA> Map<KEY, List<Integer>> findChangepointsInParallel(final Map<KEY, List<DATA>> dataSets,
+                                                                                 final int numThreads,
+                                                                                 final Function<KernelSegmenter<DATA>, List<Integer>> changepointFinder) {
+        Utils.nonNull(dataSets);
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        Utils.nonNull(changepointFinder);
+
+        final Map<KEY, List<Integer>> changepoints = new LinkedHashMap<>(dataSets.size());
+        if (numThreads == 1 || dataSets.size() <= 1) {
+            dataSets.forEach((key, dataSet) -> changepoints.put(key, changepointFinder.apply(new KernelSegmenter<>(dataSet))));
+            return changepoints;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(Math.min(numThreads, dataSets.size()));
+        try {
+            final Map<KEY, Future<List<Integer>>> futures = new LinkedHashMap<>(dataSets.size());
+            dataSets.forEach((key, dataSet) -> futures.put(key, pool.submit(() -> changepointFinder.apply(new KernelSegmenter<>(dataSet)))));
+            for (final Map.Entry<KEY, Future<List<Integer>>> entry : futures.entrySet()) {
+                changepoints.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while finding changepoints.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Exception while finding changepoints.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return changepoints;
+    }
+
+    //N x p reduced observation matrix, stored in row-major order
+    private static final class ReducedObservationMatrix {
+        private final int numRows;
+        private final int numColumns;
+        private final double[] values;
+
+        private ReducedObservationMatrix(final int numRows,
+                                         final int numColumns) {
+            Utils.validateArg((long) numRows * numColumns <= Integer.MAX_VALUE,
+                    String.format("Reduced observation matrix (%d x %d) is too large; reduce the dimension of the kernel approximation.", numRows, numColumns));
+            this.numRows = numRows;
+            this.numColumns = numColumns;
+            this.values = new double[numRows * numColumns];
+        }
+    }
+
     private static final class Segment {
         private final int start;    //inclusive index of start point
         private final int end;      //inclusive index of end point
@@ -162,7 +236,7 @@ public final class KernelSegmenter<DATA> {
 
         private Segment(final int start,
                         final int end,
-                        final RealMatrix reducedObservationMatrix,
+                        final ReducedObservationMatrix reducedObservationMatrix,
                         final double[] kernelApproximationDiagonal) {
             this(start, end, calculateSegmentCost(start, end, reducedObservationMatrix, kernelApproximationDiagonal).C);
         }
@@ -187,10 +261,10 @@ public final class KernelSegmenter<DATA> {
     }
 
     //calculates the N x p reduced observation matrix, defined as Z in equation preceding Eq. 14 in https://hal.inria.fr/hal-01413230/document
-    private static <DATA> RealMatrix calculateReducedObservationMatrix(final RandomGenerator rng,
-                                                                       final List<DATA> data,
-                                                                       final BiFunction<DATA, DATA, Double> kernel,
-                                                                       final int kernelApproximationDimension) {
+    private static <DATA> ReducedObservationMatrix calculateReducedObservationMatrix(final RandomGenerator rng,
+                                                                                     final List<DATA> data,
+                                                                                     final BiFunction<DATA, DATA, Double> kernel,
+                                                                                     final int kernelApproximationDimension) {
         if (kernelApproximationDimension > data.size()) {
             logger.warn(String.format("Specified dimension of the kernel approximation (%d) exceeds the number of data points (%d) to segment; " +
                     "using all data points to calculate kernel matrix.", kernelApproximationDimension, data.size()));
@@ -219,40 +293,69 @@ public final class KernelSegmenter<DATA> {
         logger.debug(String.format("Performing SVD of kernel matrix of subsampled data (%d x %d)...", numSubsample, numSubsample));
         final SingularValueDecomposition svd = new SingularValueDecomposition(subKernelMatrix);
 
-        //calculate reduced observation matrix
-        logger.debug(String.format("Calculating reduced observation matrix (%d x %d)...", data.size(), numSubsample));
+        //calculate the p x p matrix U * S^(-1/2), stored in column-major order
         final double[] invSqrtSingularValues = Arrays.stream(svd.getSingularValues()).map(Math::sqrt).map(x -> 1. / (x + EPSILON)).toArray();
-        final RealMatrix subKernelUMatrix = new Array2DRowRealMatrix(numSubsample, numSubsample);
-        subKernelUMatrix.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
-            @Override
-            public double visit(int i, int j, double value) {
-                return svd.getU().getEntry(i, j) * invSqrtSingularValues[j];
+        final RealMatrix svdUMatrix = svd.getU();
+        final double[] subKernelUMatrixColumns = new double[numSubsample * numSubsample];
+        for (int j = 0; j < numSubsample; j++) {
+            for (int k = 0; k < numSubsample; k++) {
+                subKernelUMatrixColumns[j * numSubsample + k] = svdUMatrix.getEntry(k, j) * invSqrtSingularValues[j];
             }
-        });
-        final RealMatrix reducedKernelMatrix = new Array2DRowRealMatrix(data.size(), numSubsample);
-        reducedKernelMatrix.walkInOptimizedOrder(new DefaultRealMatrixChangingVisitor() {
-            @Override
-            public double visit(int i, int j, double value) {
-                return kernel.apply(data.get(i), dataSubsample.get(j));
+        }
+
+        //calculate reduced observation matrix, one block of rows of the N x p kernel matrix at a time
+        logger.debug(String.format("Calculating reduced observation matrix (%d x %d)...", data.size(), numSubsample));
+        final ReducedObservationMatrix reducedObservationMatrix = new ReducedObservationMatrix(data.size(), numSubsample);
+        final int blockSize = Math.min(REDUCED_OBSERVATION_MATRIX_BLOCK_SIZE, data.size());
+        final double[] reducedKernelMatrixBlock = new double[blockSize * numSubsample];
+        for (int blockStart = 0; blockStart < data.size(); blockStart += blockSize) {
+            final int numRowsInBlock = Math.min(blockSize, data.size() - blockStart);
+            for (int r = 0; r < numRowsInBlock; r++) {
+                final DATA datum = data.get(blockStart + r);
+                for (int k = 0; k < numSubsample; k++) {
+                    reducedKernelMatrixBlock[r * numSubsample + k] = kernel.apply(datum, dataSubsample.get(k));
+                }
+            }
+            for (int r = 0; r < numRowsInBlock; r++) {
+                final int blockRowOffset = r * numSubsample;
+                final int rowOffset = (blockStart + r) * numSubsample;
+                for (int j = 0; j < numSubsample; j++) {
+                    final int columnOffset = j * numSubsample;
+                    double sum = 0.;
+                    for (int k = 0; k < numSubsample; k++) {
+                        sum += reducedKernelMatrixBlock[blockRowOffset + k] * subKernelUMatrixColumns[columnOffset + k];
+                    }
+                    reducedObservationMatrix.values[rowOffset + j] = sum;
+                }
             }
-        });
-        return reducedKernelMatrix.multiply(subKernelUMatrix);
+        }
+        return reducedObservationMatrix;
     }
 
     //for N x p matrix Z_ij, returns the N-dimensional vector sum(Z_ij * Z_ij, j = 0,..., p - 1),
     //which are the diagonal elements K_ii of the approximate kernel matrix
-    private static double[] calculateKernelApproximationDiagonal(final RealMatrix reducedObservationMatrix) {
-        return new IndexRange(0, reducedObservationMatrix.getRowDimension())
-                .mapToDouble(i -> MathUtils.square(reducedObservationMatrix.getRowVector(i).getNorm()));
+    private static double[] calculateKernelApproximationDiagonal(final ReducedObservationMatrix reducedObservationMatrix) {
+        final int p = reducedObservationMatrix.numColumns;
+        final double[] kernelApproximationDiagonal = new double[reducedObservationMatrix.numRows];
+        for (int i = 0; i < reducedObservationMatrix.numRows; i++) {
+            double sumOfSquares = 0.;
+            for (int j = i * p; j < (i + 1) * p; j++) {
+                sumOfSquares += reducedObservationMatrix.values[j] * reducedObservationMatrix.values[j];
+            }
+            //square of the norm of the row, computed as in RealVector.getNorm
+            kernelApproximationDiagonal[i] = MathUtils.square(FastMath.sqrt(sumOfSquares));
+        }
+        return kernelApproximationDiagonal;
     }
 
     //finds indices of changepoint candidates from all window sizes
     private static <DATA> List<Integer> findChangepointCandidates(final List<DATA> data,
-                                                                  final RealMatrix reducedObservationMatrix,
+                                                                  final ReducedObservationMatrix reducedObservationMatrix,
                                                                   final double[] kernelApproximationDiagonal,
                                                                   final int maxNumChangepoints,
                                                                   final List<Integer> windowSizes) {
         final List<Integer> changepointCandidates = new ArrayList<>(windowSizes.size() * maxNumChangepoints);
+        final double[] windowCosts = new double[data.size()];   //reused for all window sizes
 
         //for each window size, calculate local changepoint costs at each point and add maxNumChangepoints candidates
         //(this is overkill, but we cannot guarantee that the most significant maxNumChangepoints changepoints
@@ -265,7 +368,7 @@ public final class KernelSegmenter<DATA> {
                         2 * windowSize, data.size()));
                 continue;
             }
-            final double[] windowCosts = calculateWindowCosts(reducedObservationMatrix, kernelApproximationDiagonal, windowSize);
+            calculateWindowCosts(reducedObservationMatrix, kernelApproximationDiagonal, windowSize, windowCosts);
 
             logger.debug(String.format("Finding local minima of local changepoint costs for window size %d...", windowSize));
             final List<Integer> windowCostLocalMinima = new ArrayList<>(new PersistenceOptimizer(windowCosts).getMinimaIndices());
@@ -287,12 +390,12 @@ public final class KernelSegmenter<DATA> {
                                                     final int maxNumChangepoints,
                                                     final double numChangepointsPenaltyLinearFactor,
                                                     final double numChangepointsPenaltyLogLinearFactor,
-                                                    final RealMatrix reducedObservationMatrix,
+                                                    final ReducedObservationMatrix reducedObservationMatrix,
                                                     final double[] kernelApproximationDiagonal) {
         final List<Integer> changepoints = new ArrayList<>(changepointCandidates.size());
 
         //calculate penalties as a function of the number of changepoints
-        final int numData = reducedObservationMatrix.getRowDimension();
+        final int numData = reducedObservationMatrix.numRows;
         final List<Double> changepointPenalties = IntStream.range(0, maxNumChangepoints + 1)
                 .mapToObj(numChangepoints -> calculateChangepointPenalty(
                         numChangepoints, numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, numData))
@@ -386,32 +489,33 @@ public final class KernelSegmenter<DATA> {
      */
     private static Cost calculateSegmentCost(final int start,
                                              final int end,
-                                             final RealMatrix reducedObservationMatrix,
+                                             final ReducedObservationMatrix reducedObservationMatrix,
                                              final double[] kernelApproximationDiagonal) {
-        final int N = reducedObservationMatrix.getRowDimension();
-        final int p = reducedObservationMatrix.getColumnDimension();
+        final int N = reducedObservationMatrix.numRows;
+        final int p = reducedObservationMatrix.numColumns;
+        final double[] Z = reducedObservationMatrix.values;
 
         //initialize quantities for recurrence
         double D = kernelApproximationDiagonal[start];
-        final double[] W = Arrays.copyOf(reducedObservationMatrix.getRow(start), p);
+        final double[] W = Arrays.copyOfRange(Z, start * p, (start + 1) * p);
         double V = Arrays.stream(W).map(w -> w * w).sum();
 
-        //generate indices for iteration; we need to wrap around to beginning of data if start > end
-        final List<Integer> indices = start <= end 
-                ? IntStream.range(start + 1, end + 1).boxed().collect(Collectors.toList()) 
-                : IntStream.concat(IntStream.range(start + 1, N), IntStream.range(0, end + 1)).boxed().collect(Collectors.toList());
+        //iterate over indices, wrapping around to beginning of data if start > end
+        final int numIndices = start <= end ? end - start : N - start - 1 + end + 1;
 
         //use recurrence relations to iteratively calculate cost
-        for (final int tauPrime : indices) {
+        for (int n = 1; n <= numIndices; n++) {
+            final int tauPrime = (start + n) % N;
             D += kernelApproximationDiagonal[tauPrime];
+            final int rowOffset = tauPrime * p;
             double ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(tauPrime, j) * W[j];
-                W[j] += reducedObservationMatrix.getEntry(tauPrime, j);
+                ZdotW += Z[rowOffset + j] * W[j];
+                W[j] += Z[rowOffset + j];
             }
             V += 2. * ZdotW + kernelApproximationDiagonal[tauPrime];
         }
-        final double C = D - V / (indices.size() + 1);
+        final double C = D - V / (numIndices + 1);
 
         return new Cost(D, W, V, C);
     }
@@ -429,12 +533,15 @@ public final class KernelSegmenter<DATA> {
      *                                      this is the Z matrix described in the text preceding Eq. 14, ibid
      * @param kernelApproximationDiagonal   N diagonal terms of the low-rank approximation to the kernel matrix
      * @param windowSize                    number of points to include in either flanking segment when calculating cost
+     * @param windowCosts                   N-dimensional array in which the cost at each point is stored
      */
-    private static double[] calculateWindowCosts(final RealMatrix reducedObservationMatrix,
-                                                 final double[] kernelApproximationDiagonal,
-                                                 final int windowSize) {
-        final int N = reducedObservationMatrix.getRowDimension();
-        final int p = reducedObservationMatrix.getColumnDimension();
+    private static void calculateWindowCosts(final ReducedObservationMatrix reducedObservationMatrix,
+                                             final double[] kernelApproximationDiagonal,
+                                             final int windowSize,
+                                             final double[] windowCosts) {
+        final int N = reducedObservationMatrix.numRows;
+        final int p = reducedObservationMatrix.numColumns;
+        final double[] Z = reducedObservationMatrix.values;
 
         //initialize indices of the boundaries of the two flanking segments, wrapping around to beginning of data if necessary
         int center = 0;
@@ -462,7 +569,6 @@ public final class KernelSegmenter<DATA> {
         double totalV = totalCost.V;
         double totalC = totalCost.C;
 
-        final double[] windowCosts = new double[N];
         windowCosts[center] = leftC + rightC - totalC;
 
         double ZdotW;
@@ -472,21 +578,24 @@ public final class KernelSegmenter<DATA> {
         for (center = 0; center < N; center++) {
             final int centerNext = (center + 1) % N;
             final int endNext = (end + 1) % N;
+            final int startOffset = start * p;
+            final int centerNextOffset = centerNext * p;
+            final int endNextOffset = endNext * p;
 
             //update quantities in left segment
             leftD -= kernelApproximationDiagonal[start];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(start, j) * leftW[j];
-                leftW[j] -= reducedObservationMatrix.getEntry(start, j);
+                ZdotW += Z[startOffset + j] * leftW[j];
+                leftW[j] -= Z[startOffset + j];
             }
             leftV += -2. * ZdotW + kernelApproximationDiagonal[start];
 
             leftD += kernelApproximationDiagonal[centerNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(centerNext, j) * leftW[j];
-                leftW[j] += reducedObservationMatrix.getEntry(centerNext, j);
+                ZdotW += Z[centerNextOffset + j] * leftW[j];
+                leftW[j] += Z[centerNextOffset + j];
             }
             leftV += 2. * ZdotW + kernelApproximationDiagonal[centerNext];
 
@@ -496,16 +605,16 @@ public final class KernelSegmenter<DATA> {
             rightD -= kernelApproximationDiagonal[centerNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(centerNext, j) * rightW[j];
-                rightW[j] -= reducedObservationMatrix.getEntry(centerNext, j);
+                ZdotW += Z[centerNextOffset + j] * rightW[j];
+                rightW[j] -= Z[centerNextOffset + j];
             }
             rightV += -2. * ZdotW + kernelApproximationDiagonal[centerNext];
 
             rightD += kernelApproximationDiagonal[endNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(endNext, j) * rightW[j];
-                rightW[j] += reducedObservationMatrix.getEntry(endNext, j);
+                ZdotW += Z[endNextOffset + j] * rightW[j];
+                rightW[j] += Z[endNextOffset + j];
             }
             rightV += 2. * ZdotW + kernelApproximationDiagonal[endNext];
 
@@ -515,16 +624,16 @@ public final class KernelSegmenter<DATA> {
             totalD -= kernelApproximationDiagonal[start];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(start, j) * totalW[j];
-                totalW[j] -= reducedObservationMatrix.getEntry(start, j);
+                ZdotW += Z[startOffset + j] * totalW[j];
+                totalW[j] -= Z[startOffset + j];
             }
             totalV += -2. * ZdotW + kernelApproximationDiagonal[start];
 
             totalD += kernelApproximationDiagonal[endNext];
             ZdotW = 0.;
             for (int j = 0; j < p; j++) {
-                ZdotW += reducedObservationMatrix.getEntry(endNext, j) * totalW[j];
-                totalW[j] += reducedObservationMatrix.getEntry(endNext, j);
+                ZdotW += Z[endNextOffset + j] * totalW[j];
+                totalW[j] += Z[endNextOffset + j];
             }
             totalV += 2. * ZdotW + kernelApproximationDiagonal[endNext];
 
@@ -537,6 +646,5 @@ public final class KernelSegmenter<DATA> {
             start = (start + 1) % N;
             end = endNext;
         }
-        return windowCosts;
     }
 }
\ No newline at end of file
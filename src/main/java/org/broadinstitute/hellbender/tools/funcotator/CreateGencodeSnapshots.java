@@ -0,0 +1,91 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.BetaFeature;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.help.DocumentedFeature;
+import org.broadinstitute.hellbender.cmdline.CommandLineProgram;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.DataSourceUtils;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeGtfSnapshot;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import picard.cmdline.programgroups.VariantEvaluationProgramGroup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Creates indexed binary snapshots of the GENCODE data sources in the given {@link Funcotator} data source folders.
+ *
+ * <p>
+ *     A snapshot holds the gene / transcript / exon hierarchy of a GENCODE GTF file and the sequences of its transcript
+ *     FASTA file, and is written next to the GTF file (with a "{@value GencodeGtfSnapshot#SNAPSHOT_EXTENSION}" extension).
+ *     When a data source has an up-to-date snapshot, {@link Funcotator} reads it instead of the GTF and FASTA files,
+ *     which greatly reduces its startup time.  Snapshots are not used if the size or modification time of the GTF or
+ *     FASTA file changes afterwards, so copy data sources in a way that preserves modification times (or re-create
+ *     their snapshots).
+ * </p>
+ *
+ * <h3>Usage example</h3>
+ * <pre>
+ * ./gatk CreateGencodeSnapshots \
+ *   --data-sources-path dataSourcesFolder/ \
+ *   --ref-version hg19
+ * </pre>
+ */
+@CommandLineProgramProperties(
+        summary = "Creates indexed binary snapshots of the GENCODE data sources in the given Funcotator data source folders, which speed up Funcotator startup.",
+        oneLineSummary = "Creates snapshots of Funcotator GENCODE data sources",
+        programGroup = VariantEvaluationProgramGroup.class
+)
+@DocumentedFeature
+@BetaFeature
+public final class CreateGencodeSnapshots extends CommandLineProgram {
+    private static final Logger logger = LogManager.getLogger(CreateGencodeSnapshots.class);
+
+    @Argument(
+            fullName =  FuncotatorArgumentDefinitions.REFERENCE_VERSION_LONG_NAME,
+            doc = "The version of the Human Genome reference for which to create snapshots (e.g. hg19, hg38, etc.)."
+    )
+    private String referenceVersion;
+
+    @Argument(
+            fullName =  FuncotatorArgumentDefinitions.DATA_SOURCES_PATH_LONG_NAME,
+            doc = "The path to a data source folder for Funcotator.  May be specified more than once to handle multiple data source folders."
+    )
+    private List<String> dataSourceDirectories;
+
+    @Override
+    protected Object doWork() {
+        final Map<Path, Properties> configData = DataSourceUtils.getAndValidateDataSourcesFromPaths(referenceVersion, dataSourceDirectories);
+
+        final List<Path> snapshotFiles = new ArrayList<>();
+        for ( final Map.Entry<Path, Properties> entry : configData.entrySet() ) {
+            final Properties properties = entry.getValue();
+            if ( FuncotatorArgumentDefinitions.DataSourceType.getEnum(properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_TYPE)) !=
+                    FuncotatorArgumentDefinitions.DataSourceType.GENCODE ) {
+                continue;
+            }
+
+            final Path gtfFile = entry.getKey().resolveSibling(IOUtils.getPath(properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_SRC_FILE)));
+            final Path fastaFile = entry.getKey().resolveSibling(properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_GENCODE_FASTA_PATH));
+            final Path snapshotFile = GencodeGtfSnapshot.getSnapshotPath(gtfFile);
+
+            logger.info("Creating snapshot of GENCODE data source " + properties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_NAME) + " ...");
+            GencodeGtfSnapshot.create(gtfFile, fastaFile, snapshotFile);
+            snapshotFiles.add(snapshotFile);
+        }
+
+        if ( snapshotFiles.isEmpty() ) {
+            logger.warn("No GENCODE data sources found for reference version " + referenceVersion + ".");
+        }
+
+        snapshotFiles.sort(Comparator.naturalOrder());
+        return snapshotFiles;
+    }
+}
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.funcotator;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.tribble.Feature;
 import htsjdk.tribble.util.ParsingUtils;
@@ -16,6 +17,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.DataSourceUtils;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeGtfSnapshot;
 import org.broadinstitute.hellbender.tools.funcotator.mafOutput.MafOutputRenderer;
 import org.broadinstitute.hellbender.tools.funcotator.metadata.FuncotationMetadata;
 import org.broadinstitute.hellbender.tools.funcotator.metadata.VcfFuncotationMetadata;
@@ -34,6 +36,8 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -289,10 +293,28 @@ public class Funcotator extends VariantWalker {
             fullName = FuncotatorArgumentDefinitions.LOOKAHEAD_CACHE_IN_BP_NAME,
             optional = true,
             minValue = 0,
-            doc = "Number of base-pairs to cache when querying variants."
+            doc = "Number of base-pairs to cache when querying variants.  " +
+                    "Features from the data sources are loaded and cached in windows of this size (0 disables the cache)."
     )
     private int lookaheadFeatureCachingInBp = FuncotatorArgumentDefinitions.LOOKAHEAD_CACHE_IN_BP_DEFAULT_VALUE;
 
+    @Argument(
+            fullName = FuncotatorArgumentDefinitions.FEATURE_CACHE_MAX_WINDOWS_LONG_NAME,
+            optional = true,
+            minValue = 1,
+            doc = "Maximum number of windows of features (see --" + FuncotatorArgumentDefinitions.LOOKAHEAD_CACHE_IN_BP_NAME + ") to keep in memory for each data source."
+    )
+    private int featureCacheMaxWindows = FuncotatorArgumentDefinitions.FEATURE_CACHE_MAX_WINDOWS_DEFAULT_VALUE;
+
+    @Argument(
+            fullName = FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME,
+            optional = true,
+            minValue = 1,
+            doc = "Number of threads with which to create the GENCODE (transcript) annotations.  " +
+                    "All other data sources are still annotated on a single thread, and variants are written in input order."
+    )
+    private int annotationThreads = FuncotatorArgumentDefinitions.ANNOTATION_THREADS_DEFAULT_VALUE;
+
     @Advanced
     @Hidden
     @Argument(
@@ -309,6 +331,17 @@ public class Funcotator extends VariantWalker {
 
     private final List<FeatureInput<? extends Feature>> manualLocatableFeatureInputs = new ArrayList<>();
 
+    /**
+     * Snapshots of GENCODE data sources (by data source name), which are queried directly instead of through a {@link FeatureInput}.
+     */
+    private final Map<String, GencodeGtfSnapshot> gencodeSnapshots = new LinkedHashMap<>();
+
+    /**
+     * Windowed caches of the features of the locatable data sources (by data source name).
+     * Empty if feature caching is disabled.
+     */
+    private final Map<String, WindowedFeatureCache<Feature>> featureCaches = new LinkedHashMap<>();
+
     /**
      * Whether the input variant contigs must be converted to hg19.
      * This is only the case when the input reference is b37 AND when
@@ -318,6 +351,26 @@ public class Funcotator extends VariantWalker {
 
     private FuncotationMetadata inputMetadata;
 
+    /**
+     * Maximum number of variants per annotation thread that may be waiting to be written at any one time.
+     */
+    private static final int MAX_PENDING_VARIANTS_PER_THREAD = 16;
+
+    /**
+     * Executor for the GENCODE annotation of variants.  {@code null} if {@link #annotationThreads} is 1.
+     */
+    private ExecutorService gencodeAnnotationExecutor = null;
+
+    /**
+     * Reference that can be shared by the GENCODE annotation threads.  {@code null} if {@link #annotationThreads} is 1.
+     */
+    private ReferenceDataSource annotationReferenceDataSource = null;
+
+    /**
+     * Variants whose GENCODE annotations are being created, in input order.
+     */
+    private final Deque<PendingVariant> pendingVariants = new ArrayDeque<>();
+
     //==================================================================================================================
 
     @Override
@@ -350,7 +403,7 @@ public class Funcotator extends VariantWalker {
         final Map<Path, Properties> configData = DataSourceUtils.getAndValidateDataSourcesFromPaths(referenceVersion, dataSourceDirectories);
         initializeManualFeaturesForLocatableDataSources(configData);
         dataSourceFactories.addAll(
-                DataSourceUtils.createDataSourceFuncotationFactoriesForDataSources(configData, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet)
+                DataSourceUtils.createDataSourceFuncotationFactoriesForDataSources(configData, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet, gencodeSnapshots)
         );
 
         // Sort our data source factories to ensure they're always in the same order:  gencode datasources first
@@ -387,6 +440,17 @@ public class Funcotator extends VariantWalker {
 
         // Check for reference version (in)compatibility:
         determineReferenceAndDatasourceCompatibility();
+
+        // Set up the threads for GENCODE annotation:
+        if ( annotationThreads > 1 ) {
+            logger.info("Creating GENCODE annotations with " + annotationThreads + " threads.");
+            annotationReferenceDataSource = ReferenceDataSource.synchronizedDataSource(ReferenceDataSource.of(referenceArguments.getReferencePath()));
+            final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("gencodeAnnotation-thread-%d")
+                    .setDaemon(true)
+                    .build();
+            gencodeAnnotationExecutor = Executors.newFixedThreadPool(annotationThreads, threadFactory);
+        }
     }
 
     /**
@@ -491,12 +555,22 @@ public class Funcotator extends VariantWalker {
 
     @Override
     public Object onTraversalSuccess() {
+        // Write out any variants that are still being annotated:
+        writePendingVariants(0);
         return true;
     }
 
     @Override
     public void closeTool() {
 
+        if ( gencodeAnnotationExecutor != null ) {
+            gencodeAnnotationExecutor.shutdownNow();
+            pendingVariants.clear();
+        }
+        if ( annotationReferenceDataSource != null ) {
+            annotationReferenceDataSource.close();
+        }
+
         for ( final DataSourceFuncotationFactory factory : dataSourceFactories ) {
             if ( factory != null ) {
                 factory.close();
@@ -505,6 +579,13 @@ public class Funcotator extends VariantWalker {
         if ( outputRenderer != null ) {
             outputRenderer.close();
         }
+        // The factories have already closed the snapshots they were given; closing again is a no-op, and covers any factory that was never created:
+        for ( final GencodeGtfSnapshot snapshot : gencodeSnapshots.values() ) {
+            snapshot.close();
+        }
+        for ( final WindowedFeatureCache<Feature> featureCache : featureCaches.values() ) {
+            featureCache.logStatistics();
+        }
 
     }
 
@@ -552,9 +633,11 @@ public class Funcotator extends VariantWalker {
         final Map<String, List<Feature>> featureSourceMap = new HashMap<>();
 
         for ( final FeatureInput<? extends Feature> featureInput : manualLocatableFeatureInputs ) {
-            @SuppressWarnings("unchecked")
-            final List<Feature> featureList = (List<Feature>)featureContext.getValues(featureInput);
-            featureSourceMap.put( featureInput.getName(), featureList );
+            featureSourceMap.put( featureInput.getName(), queryFeatures(featureInput.getName(), variant, window -> featureContext.getValues(featureInput, window)) );
+        }
+
+        for ( final Map.Entry<String, GencodeGtfSnapshot> snapshotEntry : gencodeSnapshots.entrySet() ) {
+            featureSourceMap.put( snapshotEntry.getKey(), queryFeatures(snapshotEntry.getKey(), variant, snapshotEntry.getValue()::getOverlappingGenes) );
         }
 
         //==============================================================================================================
@@ -564,10 +647,79 @@ public class Funcotator extends VariantWalker {
             logger.warn("Attempting to annotate with more than one GENCODE datasource.  If these have overlapping transcript IDs, errors may occur.");
         }
 
-        final List<GencodeFuncotation> transcriptFuncotations = retrieveGencodeFuncotationFactoryStream()
+        if ( gencodeAnnotationExecutor == null ) {
+            final List<GencodeFuncotation> transcriptFuncotations = createGencodeFuncotations(variant, referenceContext, featureSourceMap);
+            finishAndWriteVariant(variant, referenceContext, featureSourceMap, transcriptFuncotations);
+        }
+        else {
+            // The given reference context is backed by the (non-thread-safe) reference of the engine, so the
+            // annotation threads get an equivalent context on the shared reference:
+            final ReferenceContext threadSafeReferenceContext = new ReferenceContext(annotationReferenceDataSource, referenceContext.getInterval(), referenceContext.getWindow());
+            final Future<List<GencodeFuncotation>> transcriptFuncotations = gencodeAnnotationExecutor.submit(
+                    () -> createGencodeFuncotations(variant, threadSafeReferenceContext, featureSourceMap)
+            );
+            pendingVariants.addLast(new PendingVariant(variant, referenceContext, featureSourceMap, transcriptFuncotations));
+
+            writePendingVariants(annotationThreads * MAX_PENDING_VARIANTS_PER_THREAD);
+        }
+    }
+
+    /**
+     * Writes out the pending variants in input order.  Variants are written until the next pending variant is not yet
+     * annotated and there are no more than {@code maxPendingVariants} variants still pending.
+     * @param maxPendingVariants Maximum number of variants to leave pending.
+     */
+    private void writePendingVariants(final int maxPendingVariants) {
+        while ( !pendingVariants.isEmpty() &&
+                ( pendingVariants.size() > maxPendingVariants || pendingVariants.peekFirst().transcriptFuncotations.isDone() ) ) {
+
+            final PendingVariant pendingVariant = pendingVariants.removeFirst();
+
+            final List<GencodeFuncotation> transcriptFuncotations;
+            try {
+                transcriptFuncotations = pendingVariant.transcriptFuncotations.get();
+            }
+            catch ( final InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while annotating variant: " + pendingVariant.variant, ex);
+            }
+            catch ( final ExecutionException ex ) {
+                // Rethrow the original exception so that user errors are still reported as such:
+                if ( ex.getCause() instanceof RuntimeException ) {
+                    throw (RuntimeException)ex.getCause();
+                }
+                throw new GATKException("Error annotating variant: " + pendingVariant.variant, ex.getCause());
+            }
+
+            finishAndWriteVariant(pendingVariant.variant, pendingVariant.referenceContext, pendingVariant.featureSourceMap, transcriptFuncotations);
+        }
+    }
+
+    /**
+     * Creates the transcript (Gencode) funcotations for the given {@code variant}.
+     * May be called from several threads at once.
+     */
+    private List<GencodeFuncotation> createGencodeFuncotations(final VariantContext variant,
+                                                               final ReferenceContext referenceContext,
+                                                               final Map<String, List<Feature>> featureSourceMap) {
+        return retrieveGencodeFuncotationFactoryStream()
                 .map(gf -> gf.createFuncotations(variant, referenceContext, featureSourceMap))
                 .flatMap(List::stream)
                 .map(gf -> (GencodeFuncotation) gf).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates the funcotations for the non-Gencode data sources and the input for the given {@code variant} and writes
+     * it to the output.
+     * @param variant {@link VariantContext} to annotate.
+     * @param referenceContext {@link ReferenceContext} corresponding to the given {@code variant}.
+     * @param featureSourceMap The manually-specified features overlapping the given {@code variant}.
+     * @param transcriptFuncotations The transcript (Gencode) funcotations of the given {@code variant}.
+     */
+    private void finishAndWriteVariant(final VariantContext variant,
+                                       final ReferenceContext referenceContext,
+                                       final Map<String, List<Feature>> featureSourceMap,
+                                       final List<GencodeFuncotation> transcriptFuncotations) {
 
         //==============================================================================================================
         // Create the funcotations for non-Gencode data sources:
@@ -642,8 +794,17 @@ public class Funcotator extends VariantWalker {
                     addFeaturesForLocatableDataSource(entry.getKey(), entry.getValue(), XsvTableFeature.class);
                     break;
                 case GENCODE:
-                    // Add our features manually so we can match over them:
-                    addFeaturesForLocatableDataSource(entry.getKey(), entry.getValue(), GencodeGtfFeature.class);
+                    // Use the snapshot of the data source if it has one, which is much faster to open than the GTF file:
+                    final GencodeGtfSnapshot snapshot = DataSourceUtils.openGencodeSnapshot(entry.getKey(), entry.getValue());
+                    if ( snapshot != null ) {
+                        final String name = entry.getValue().getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_NAME);
+                        gencodeSnapshots.put(name, snapshot);
+                        addFeatureCache(name);
+                    }
+                    else {
+                        // Add our features manually so we can match over them:
+                        addFeaturesForLocatableDataSource(entry.getKey(), entry.getValue(), GencodeGtfFeature.class);
+                    }
                     break;
                 case VCF:
                     // Add our features manually so we can match over them:
@@ -665,16 +826,45 @@ public class Funcotator extends VariantWalker {
 
         final String name = dataSourceProperties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_NAME);
 
-        // Inject our features into our list of feature data sources:
+        // Inject our features into our list of feature data sources.
+        // Features are cached in our own windowed cache, so the data source does not need a lookahead cache of its own:
         final FeatureInput<? extends Feature> featureInput = addFeatureInputsAfterInitialization(
                 dataSourceFile.resolveSibling(
                         IOUtils.getPath( dataSourceProperties.getProperty(DataSourceUtils.CONFIG_FILE_FIELD_NAME_SRC_FILE) )
                 ).toUri().toString(),
                 name,
-                featureClazz, lookaheadFeatureCachingInBp);
+                featureClazz, 0);
 
         // Add our feature input to our list of manual inputs:
         manualLocatableFeatureInputs.add(featureInput);
+        addFeatureCache(name);
+    }
+
+    /**
+     * Creates the windowed feature cache for the data source with the given name, if feature caching is enabled.
+     */
+    private void addFeatureCache(final String dataSourceName) {
+        if ( lookaheadFeatureCachingInBp > 0 ) {
+            featureCaches.put(dataSourceName, new WindowedFeatureCache<>(dataSourceName, lookaheadFeatureCachingInBp, featureCacheMaxWindows));
+        }
+    }
+
+    /**
+     * Gets the features of the data source with the given name that overlap the given {@code variant}, from the data
+     * source's feature cache if it has one.
+     * @param dataSourceName Name of the data source to query.
+     * @param variant {@link VariantContext} for which to get the overlapping features.
+     * @param query Function that queries the data source for the features overlapping a given interval.
+     * @return A new {@link List} of the features overlapping {@code variant}.
+     */
+    private List<Feature> queryFeatures(final String dataSourceName,
+                                        final VariantContext variant,
+                                        final Function<SimpleInterval, List<? extends Feature>> query) {
+        final WindowedFeatureCache<Feature> featureCache = featureCaches.get(dataSourceName);
+        if ( featureCache == null ) {
+            return new ArrayList<>(query.apply(new SimpleInterval(variant)));
+        }
+        return featureCache.getFeatures(variant, query);
     }
 
     /**
@@ -712,4 +902,24 @@ public class Funcotator extends VariantWalker {
             return rawTranscriptSet;
         }
     }
+
+    /**
+     * A variant whose transcript (Gencode) funcotations are being created on the {@link #gencodeAnnotationExecutor}.
+     */
+    private static final class PendingVariant {
+        final VariantContext variant;
+        final ReferenceContext referenceContext;
+        final Map<String, List<Feature>> featureSourceMap;
+        final Future<List<GencodeFuncotation>> transcriptFuncotations;
+
+        PendingVariant(final VariantContext variant,
+                       final ReferenceContext referenceContext,
+                       final Map<String, List<Feature>> featureSourceMap,
+                       final Future<List<GencodeFuncotation>> transcriptFuncotations) {
+            this.variant = variant;
+            this.referenceContext = referenceContext;
+            this.featureSourceMap = featureSourceMap;
+            this.transcriptFuncotations = transcriptFuncotations;
+        }
+    }
 }
@@ -54,6 +54,12 @@ public class FuncotatorArgumentDefinitions {
     public static final String LOOKAHEAD_CACHE_IN_BP_NAME = "lookahead-cache-bp";
     public static final int LOOKAHEAD_CACHE_IN_BP_DEFAULT_VALUE = VariantWalkerBase.FEATURE_CACHE_LOOKAHEAD;
 
+    public static final String FEATURE_CACHE_MAX_WINDOWS_LONG_NAME = "feature-cache-max-windows";
+    public static final int FEATURE_CACHE_MAX_WINDOWS_DEFAULT_VALUE = WindowedFeatureCache.DEFAULT_MAX_WINDOWS;
+
+    public static final String ANNOTATION_THREADS_LONG_NAME = "annotation-threads";
+    public static final int ANNOTATION_THREADS_DEFAULT_VALUE = 1;
+
     public static final String FORCE_B37_TO_HG19_REFERENCE_CONTIG_CONVERSION = "force-b37-to-hg19-reference-contig-conversion";
 
     // ------------------------------------------------------------
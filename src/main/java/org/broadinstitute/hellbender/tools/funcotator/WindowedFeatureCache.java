@@ -0,0 +1,225 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.Feature;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A cache of the {@link Feature}s of a single Funcotator data source, organized in fixed-size windows of the genome.
+ *
+ * The first query that touches a window loads all features overlapping the whole window (in the sorted order in which
+ * the data source returns them), so that the features for the variants that follow in a sorted variant stream are
+ * already in memory.  Queries that only touch loaded windows are cache hits.  At most a fixed number of windows are
+ * kept, and the least recently used window is evicted when a new one is loaded.
+ *
+ * Unlike the lookahead cache in {@link org.broadinstitute.hellbender.engine.FeatureDataSource}, windows are aligned to
+ * fixed positions, so queries that step backwards a little (e.g. for variants that start before the end of a previous
+ * deletion) or that span a window boundary do not cause the features to be re-read.
+ *
+ * This class is not thread-safe.
+ *
+ * @param <T> Type of {@link Feature} in the cached data source.
+ */
+public final class WindowedFeatureCache<T extends Feature> {
+
+    private static final Logger logger = LogManager.getLogger(WindowedFeatureCache.class);
+
+    /**
+     * Default maximum number of windows in each cache.
+     */
+    public static final int DEFAULT_MAX_WINDOWS = 4;
+
+    //==================================================================================================================
+
+    /**
+     * Name of the data source whose features are cached.
+     */
+    private final String sourceName;
+
+    /**
+     * Size of each window, in bases.
+     */
+    private final int windowSize;
+
+    /**
+     * Loaded windows, in least-recently-used order.
+     */
+    private final LinkedHashMap<WindowKey, List<T>> windows;
+
+    private long numQueries = 0;
+    private long numCacheHits = 0;
+    private long numWindowsLoaded = 0;
+    private long numFeaturesLoaded = 0;
+    private long numWindowsEvicted = 0;
+
+    //==================================================================================================================
+
+    /**
+     * @param sourceName Name of the data source whose features are cached.  Must not be {@code null}.
+     * @param windowSize Size of each window, in bases.  Must be positive.
+     * @param maxWindows Maximum number of windows to keep in memory at once.  Must be positive.
+     */
+    public WindowedFeatureCache(final String sourceName, final int windowSize, final int maxWindows) {
+        Utils.nonNull(sourceName);
+        Utils.validateArg(windowSize > 0, "Window size must be positive: " + windowSize);
+        Utils.validateArg(maxWindows > 0, "Maximum number of windows must be positive: " + maxWindows);
+
+        this.sourceName = sourceName;
+        this.windowSize = windowSize;
+        this.windows = new LinkedHashMap<WindowKey, List<T>>(maxWindows + 1, 0.75f, true) {
+            static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<WindowKey, List<T>> eldest) {
+                if ( size() > maxWindows ) {
+                    ++numWindowsEvicted;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    //==================================================================================================================
+
+    /**
+     * Gets the features overlapping the given interval, loading any windows that the interval touches that are not
+     * already in the cache.
+     * @param interval The {@link Locatable} over which to query.  Must not be {@code null}.
+     * @param windowLoader Function that queries the data source for all features overlapping a given window, in sorted order.  Must not be {@code null}.
+     * @return A new {@link List} of the features overlapping {@code interval}, in the order in which {@code windowLoader} returned them.
+     */
+    public List<T> getFeatures(final Locatable interval, final Function<SimpleInterval, List<? extends T>> windowLoader) {
+        Utils.nonNull(interval);
+        Utils.nonNull(windowLoader);
+
+        ++numQueries;
+
+        final long firstWindow = getWindowIndex(interval.getStart());
+        final long lastWindow = getWindowIndex(Math.max(interval.getStart(), interval.getEnd()));
+
+        boolean hit = true;
+        final List<T> features = new ArrayList<>();
+        for ( long windowIndex = firstWindow; windowIndex <= lastWindow; ++windowIndex ) {
+            final WindowKey key = new WindowKey(interval.getContig(), windowIndex);
+            List<T> windowFeatures = windows.get(key);
+            if ( windowFeatures == null ) {
+                hit = false;
+                windowFeatures = loadWindow(key, windowLoader);
+            }
+
+            // Features that span several windows are in all of them, so after the first window we only take the
+            // features that start in the current window:
+            final int minStart = windowIndex == firstWindow ? Integer.MIN_VALUE : getWindowStart(windowIndex);
+            for ( final T feature : windowFeatures ) {
+                if ( feature.getStart() > interval.getEnd() ) {
+                    break;
+                }
+                if ( feature.getStart() >= minStart && feature.getEnd() >= interval.getStart() ) {
+                    features.add(feature);
+                }
+            }
+        }
+
+        if ( hit ) {
+            ++numCacheHits;
+        }
+        return features;
+    }
+
+    /**
+     * Logs the hit rate and load statistics of this cache.
+     */
+    public void logStatistics() {
+        logger.info(String.format("Feature cache hit rate for data source %s was %.2f%% (%d out of %d queries); " +
+                        "%d windows of %d bases (%d features) loaded, %d evicted",
+                sourceName,
+                numQueries > 0 ? ((double) numCacheHits / numQueries) * 100.0 : 0.0,
+                numCacheHits,
+                numQueries,
+                numWindowsLoaded,
+                windowSize,
+                numFeaturesLoaded,
+                numWindowsEvicted));
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    @VisibleForTesting
+    long getNumQueries() {
+        return numQueries;
+    }
+
+    @VisibleForTesting
+    long getNumCacheHits() {
+        return numCacheHits;
+    }
+
+    @VisibleForTesting
+    long getNumWindowsLoaded() {
+        return numWindowsLoaded;
+    }
+
+    @VisibleForTesting
+    long getNumWindowsEvicted() {
+        return numWindowsEvicted;
+    }
+
+    //==================================================================================================================
+
+    private List<T> loadWindow(final WindowKey key, final Function<SimpleInterval, List<? extends T>> windowLoader) {
+        final long windowEnd = Math.min((key.index + 1) * windowSize, Integer.MAX_VALUE);
+        final List<T> windowFeatures = new ArrayList<>(windowLoader.apply(new SimpleInterval(key.contig, getWindowStart(key.index), (int) windowEnd)));
+
+        ++numWindowsLoaded;
+        numFeaturesLoaded += windowFeatures.size();
+        windows.put(key, windowFeatures);
+        return windowFeatures;
+    }
+
+    private long getWindowIndex(final int position) {
+        return (Math.max(position, 1) - 1) / windowSize;
+    }
+
+    private int getWindowStart(final long windowIndex) {
+        return (int) (windowIndex * windowSize + 1);
+    }
+
+    /**
+     * Key of a window: its contig and its index on that contig.
+     */
+    private static final class WindowKey {
+        private final String contig;
+        private final long index;
+
+        WindowKey(final String contig, final long index) {
+            this.contig = contig;
+            this.index = index;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if ( this == other ) {
+                return true;
+            }
+            if ( other == null || getClass() != other.getClass() ) {
+                return false;
+            }
+            final WindowKey that = (WindowKey) other;
+            return index == that.index && contig.equals(that.contig);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * contig.hashCode() + Long.hashCode(index);
+        }
+    }
+}
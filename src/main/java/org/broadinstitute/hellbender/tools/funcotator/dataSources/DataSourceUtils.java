@@ -1,6 +1,9 @@
 package org.broadinstitute.hellbender.tools.funcotator.dataSources;
 
 import com.google.common.annotations.VisibleForTesting;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.FeatureReader;
 import htsjdk.variant.variantcontext.VariantContext;
 import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
@@ -15,10 +18,13 @@ import org.broadinstitute.hellbender.tools.funcotator.FuncotatorArgumentDefiniti
 import org.broadinstitute.hellbender.tools.funcotator.TranscriptSelectionMode;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.cosmic.CosmicFuncotationFactory;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotationFactory;
+import org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeGtfSnapshot;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.vcf.VcfFuncotationFactory;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv.LocatableXsvFuncotationFactory;
 import org.broadinstitute.hellbender.tools.funcotator.dataSources.xsv.SimpleKeyXsvFuncotationFactory;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.codecs.gencode.GencodeGtfCodec;
+import org.broadinstitute.hellbender.utils.codecs.gencode.GencodeGtfFeature;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 
 import java.io.BufferedReader;
@@ -233,11 +239,30 @@ final public class DataSourceUtils {
                                                                                                         final LinkedHashMap<String, String> annotationOverridesMap,
                                                                                                         final TranscriptSelectionMode transcriptSelectionMode,
                                                                                                         final Set<String> userTranscriptIdSet) {
+        return createDataSourceFuncotationFactoriesForDataSources(dataSourceMetaData, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet, Collections.emptyMap());
+    }
+
+    /**
+     * Create a {@link List} of {@link DataSourceFuncotationFactory} based on meta data on the data sources, overrides, and transcript reporting priority information.
+     * @param dataSourceMetaData {@link Map} of {@link Path}->{@link Properties} containing metadata about each data source.  Must not be {@code null}.
+     * @param annotationOverridesMap {@link LinkedHashMap} of {@link String}->{@link String} containing any annotation overrides to include in data sources.  Must not be {@code null}.
+     * @param transcriptSelectionMode {@link TranscriptSelectionMode} to use when choosing the transcript for detailed reporting.  Must not be {@code null}.
+     * @param userTranscriptIdSet {@link Set} of {@link String}s containing transcript IDs of interest to be selected for first.  Must not be {@code null}.
+     * @param gencodeSnapshots {@link Map} of data source name to the already-opened {@link GencodeGtfSnapshot} of that GENCODE data source (see {@link #openGencodeSnapshot(Path, Properties)}).
+     *                         GENCODE data sources without a snapshot in this map read their transcript FASTA file directly.  Must not be {@code null}.
+     * @return A {@link List} of {@link DataSourceFuncotationFactory} given the data source metadata, overrides, and transcript reporting priority information.
+     */
+    public static List<DataSourceFuncotationFactory> createDataSourceFuncotationFactoriesForDataSources(final Map<Path, Properties> dataSourceMetaData,
+                                                                                                        final LinkedHashMap<String, String> annotationOverridesMap,
+                                                                                                        final TranscriptSelectionMode transcriptSelectionMode,
+                                                                                                        final Set<String> userTranscriptIdSet,
+                                                                                                        final Map<String, GencodeGtfSnapshot> gencodeSnapshots) {
 
         Utils.nonNull(dataSourceMetaData);
         Utils.nonNull(annotationOverridesMap);
         Utils.nonNull(transcriptSelectionMode);
         Utils.nonNull(userTranscriptIdSet);
+        Utils.nonNull(gencodeSnapshots);
 
         final List<DataSourceFuncotationFactory> dataSourceFactories = new ArrayList<>(dataSourceMetaData.size());
 
@@ -265,7 +290,8 @@ final public class DataSourceUtils {
                     funcotationFactory = DataSourceUtils.createCosmicDataSource(path, properties, annotationOverridesMap);
                     break;
                 case GENCODE:
-                    funcotationFactory = DataSourceUtils.createGencodeDataSource(path, properties, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet);
+                    funcotationFactory = DataSourceUtils.createGencodeDataSource(path, properties, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet,
+                            gencodeSnapshots.get(properties.getProperty(CONFIG_FILE_FIELD_NAME_NAME)));
                     break;
                 case VCF:
                     funcotationFactory = DataSourceUtils.createVcfDataSource(path, properties, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet);
@@ -382,6 +408,27 @@ final public class DataSourceUtils {
                                                                  final LinkedHashMap<String, String> annotationOverridesMap,
                                                                  final TranscriptSelectionMode transcriptSelectionMode,
                                                                  final Set<String> userTranscriptIdSet) {
+        return createGencodeDataSource(dataSourceFile, dataSourceProperties, annotationOverridesMap, transcriptSelectionMode, userTranscriptIdSet, null);
+    }
+
+    /**
+     * Create a {@link GencodeFuncotationFactory} from filesystem resources and field overrides.
+     * @param dataSourceFile {@link Path} to the data source file.  Must not be {@code null}.
+     * @param dataSourceProperties {@link Properties} consisting of the contents of the config file for the data source.  Must not be {@code null}.
+     * @param annotationOverridesMap {@link LinkedHashMap}{@code <String->String>} containing any annotation overrides to be included in the resulting data source.  Must not be {@code null}.
+     * @param transcriptSelectionMode {@link TranscriptSelectionMode} to use when choosing the transcript for detailed reporting.  Must not be {@code null}.
+     * @param userTranscriptIdSet {@link Set} of {@link String}s containing transcript IDs of interest to be selected for first.  Must not be {@code null}.
+     * @param snapshot The already-opened {@link GencodeGtfSnapshot} of the data source (see {@link #openGencodeSnapshot(Path, Properties)}),
+     *                 from which to read the transcript sequences.  It is closed when the returned factory is closed.
+     *                 If {@code null}, the transcript FASTA file is read directly.
+     * @return A new {@link GencodeFuncotationFactory} based on the given data source file information, field overrides map, and transcript information.
+     */
+    public static GencodeFuncotationFactory createGencodeDataSource(final Path dataSourceFile,
+                                                                 final Properties dataSourceProperties,
+                                                                 final LinkedHashMap<String, String> annotationOverridesMap,
+                                                                 final TranscriptSelectionMode transcriptSelectionMode,
+                                                                 final Set<String> userTranscriptIdSet,
+                                                                 final GencodeGtfSnapshot snapshot) {
 
         Utils.nonNull(dataSourceFile);
         Utils.nonNull(dataSourceProperties);
@@ -394,16 +441,69 @@ final public class DataSourceUtils {
         final String version   = dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_VERSION);
         final String name      = dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_NAME);
 
+        final Path fastaFile = dataSourceFile.resolveSibling(fastaPath);
+
+        // Use the snapshot of the data source for the transcript sequences if we can:
+        if ( snapshot != null ) {
+            return new GencodeFuncotationFactory(snapshot.getTranscriptSequenceDataSource(),
+                    fastaFile,
+                    version,
+                    name,
+                    transcriptSelectionMode,
+                    userTranscriptIdSet,
+                    annotationOverridesMap,
+                    GencodeFuncotationFactory.DEFAULT_TRANSCRIPT_CACHE_SIZE,
+                    snapshot.getUcscGenomeVersion()
+            );
+        }
+
         // Create our gencode factory:
-        return new GencodeFuncotationFactory(dataSourceFile.resolveSibling(fastaPath),
+        final Path gtfFile = dataSourceFile.resolveSibling(IOUtils.getPath(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE)));
+        return new GencodeFuncotationFactory(fastaFile,
                         version,
                         name,
                         transcriptSelectionMode,
                         userTranscriptIdSet,
-                        annotationOverridesMap
+                        annotationOverridesMap,
+                        GencodeFuncotationFactory.DEFAULT_TRANSCRIPT_CACHE_SIZE,
+                        getGencodeUcscGenomeVersion(gtfFile)
                 );
     }
 
+    /**
+     * @return The UCSC genome version of the given GENCODE GTF file (taken from its first feature), or {@code null} if it has no features.
+     */
+    private static String getGencodeUcscGenomeVersion(final Path gtfFile) {
+        try ( final FeatureReader<GencodeGtfFeature> reader = AbstractFeatureReader.getFeatureReader(gtfFile.toUri().toString(), new GencodeGtfCodec(), false);
+              final CloseableTribbleIterator<GencodeGtfFeature> iterator = reader.iterator() ) {
+            return iterator.hasNext() ? iterator.next().getUcscGenomeVersion() : null;
+        }
+        catch ( final IOException ex ) {
+            throw new UserException.CouldNotReadInputFile(gtfFile, "Could not read GENCODE GTF file", ex);
+        }
+    }
+
+    /**
+     * Gets the {@link GencodeGtfSnapshot} for the given GENCODE data source, if it has an up-to-date snapshot.
+     * @param dataSourceFile {@link Path} to the data source file.  Must not be {@code null}.
+     * @param dataSourceProperties {@link Properties} consisting of the contents of the config file for the data source.  Must not be {@code null}.
+     * @return The opened {@link GencodeGtfSnapshot} for the given data source, or {@code null} if it has no up-to-date snapshot.
+     */
+    public static GencodeGtfSnapshot openGencodeSnapshot(final Path dataSourceFile, final Properties dataSourceProperties) {
+        Utils.nonNull(dataSourceFile);
+        Utils.nonNull(dataSourceProperties);
+
+        final Path gtfFile   = dataSourceFile.resolveSibling(IOUtils.getPath(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_SRC_FILE)));
+        final Path fastaFile = dataSourceFile.resolveSibling(dataSourceProperties.getProperty(CONFIG_FILE_FIELD_NAME_GENCODE_FASTA_PATH));
+
+        final Path snapshotFile = GencodeGtfSnapshot.getSnapshotPath(gtfFile);
+        final GencodeGtfSnapshot snapshot = GencodeGtfSnapshot.open(snapshotFile, gtfFile, fastaFile);
+        if ( snapshot != null ) {
+            logger.info("Using GENCODE snapshot: " + snapshotFile.toUri().toString());
+        }
+        return snapshot;
+    }
+
     /**
      * Create a {@link VcfFuncotationFactory} from filesystem resources and field overrides.
      * @param dataSourceFile {@link Path} to the data source file.  Must not be {@code null}.
@@ -80,6 +80,11 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     // TODO: Make this a parameter:
     final static private int referenceWindow = 10;
 
+    /**
+     * Default maximum number of transcripts for which to keep sorted coding regions and coding sequences in memory.
+     */
+    public static final int DEFAULT_TRANSCRIPT_CACHE_SIZE = 2000;
+
     /**
      * List of valid Appris Ranks used for sorting funcotations to get the "best" one.z
      */
@@ -160,10 +165,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     private final Path gencodeTranscriptFastaFile;
 
     /**
-     * The ncbiBuildVersion for this {@link GencodeFuncotationFactory}.
-     * Note: This is lazily cached.  It will be cached when first {@link GencodeGtfFeature} is received.
+     * The ncbiBuildVersion for this {@link GencodeFuncotationFactory}, used for funcotations that are not based on a
+     * {@link GencodeGtfFeature} (e.g. IGR funcotations).  May be {@code null}.
+     * This is set on construction (rather than from the first annotated feature) so that it does not depend on the
+     * order in which variants are annotated.
      */
-    private String ncbiBuildVersion = null;
+    private final String ncbiBuildVersion;
 
     /**
      * Comparator to be used when sorting {@link Funcotation}s created by this {@link GencodeFuncotationFactory}.
@@ -171,6 +178,17 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      */
     private final Comparator<GencodeFuncotation> gencodeFuncotationComparator;
 
+    /**
+     * LRU cache of per-transcript data (sorted coding regions and the coding sequence from the transcript FASTA file),
+     * so that nearby variants in the same transcript do not recompute or re-read it.
+     * Keyed by {@link #getTranscriptCacheKey(GencodeGtfTranscriptFeature)}.
+     * All access must be synchronized on the cache, as funcotations may be created on several threads at once.
+     */
+    private final Map<String, CachedTranscriptInfo> transcriptCache;
+
+    private long transcriptCacheHits = 0;
+    private long transcriptCacheMisses = 0;
+
     //==================================================================================================================
     // Constructors:
 
@@ -180,10 +198,50 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                      final TranscriptSelectionMode transcriptSelectionMode,
                                      final Set<String> userRequestedTranscripts,
                                      final LinkedHashMap<String, String> annotationOverrides) {
+        this(gencodeTranscriptFastaFile, version, name, transcriptSelectionMode, userRequestedTranscripts, annotationOverrides, DEFAULT_TRANSCRIPT_CACHE_SIZE, null);
+    }
+
+    /**
+     * @param ncbiBuildVersion The NCBI build of the GENCODE data source (e.g. from {@link GencodeGtfFeature#getUcscGenomeVersion()}),
+     *                         to report in IGR funcotations.  May be {@code null}.
+     */
+    public GencodeFuncotationFactory(final Path gencodeTranscriptFastaFile,
+                                     final String version,
+                                     final String name,
+                                     final TranscriptSelectionMode transcriptSelectionMode,
+                                     final Set<String> userRequestedTranscripts,
+                                     final LinkedHashMap<String, String> annotationOverrides,
+                                     final int transcriptCacheSize,
+                                     final String ncbiBuildVersion) {
+        this(ReferenceDataSource.of(gencodeTranscriptFastaFile), gencodeTranscriptFastaFile, version, name, transcriptSelectionMode, userRequestedTranscripts, annotationOverrides, transcriptCacheSize, ncbiBuildVersion);
+    }
+
+    /**
+     * Creates a {@link GencodeFuncotationFactory} that reads transcript sequences from the given {@link ReferenceDataSource}
+     * (e.g. one from a {@link GencodeGtfSnapshot}) rather than from the transcript FASTA file itself.
+     * The given {@code transcriptSequenceDataSource} will be closed when this factory is closed.
+     * @param transcriptSequenceDataSource {@link ReferenceDataSource} with the same sequences as the GENCODE transcript FASTA file.
+     * @param gencodeTranscriptFastaFile The GENCODE transcript FASTA file from which {@code transcriptSequenceDataSource} was created.
+     * @param ncbiBuildVersion The NCBI build of the GENCODE data source (e.g. from {@link GencodeGtfSnapshot#getUcscGenomeVersion()}),
+     *                         to report in IGR funcotations.  May be {@code null}.
+     */
+    public GencodeFuncotationFactory(final ReferenceDataSource transcriptSequenceDataSource,
+                                     final Path gencodeTranscriptFastaFile,
+                                     final String version,
+                                     final String name,
+                                     final TranscriptSelectionMode transcriptSelectionMode,
+                                     final Set<String> userRequestedTranscripts,
+                                     final LinkedHashMap<String, String> annotationOverrides,
+                                     final int transcriptCacheSize,
+                                     final String ncbiBuildVersion) {
+
+        Utils.nonNull(transcriptSequenceDataSource);
+        ParamUtils.isPositive(transcriptCacheSize, "Transcript cache size must be positive.");
 
         this.gencodeTranscriptFastaFile = gencodeTranscriptFastaFile;
 
-        transcriptFastaReferenceDataSource = ReferenceDataSource.of(gencodeTranscriptFastaFile);
+        // The transcript sequences may be queried by several annotation threads at once:
+        transcriptFastaReferenceDataSource = ReferenceDataSource.synchronizedDataSource(transcriptSequenceDataSource);
         transcriptIdMap = createTranscriptIdMap(transcriptFastaReferenceDataSource);
 
         this.transcriptSelectionMode = transcriptSelectionMode;
@@ -192,6 +250,8 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         this.name = name;
 
+        this.ncbiBuildVersion = ncbiBuildVersion;
+
         // Go through each requested transcript and remove the version numbers from them if they exist:
         this.userRequestedTranscripts = new HashSet<>();
         for ( final String transcript : userRequestedTranscripts ) {
@@ -203,6 +263,14 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         // Initialize overrides / defaults:
         initializeAnnotationOverrides( annotationOverrides );
+
+        transcriptCache = new LinkedHashMap<String, CachedTranscriptInfo>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedTranscriptInfo> eldest) {
+                return size() > transcriptCacheSize;
+            }
+        };
     }
 
     //==================================================================================================================
@@ -220,6 +288,10 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
     @Override
     public void close() {
+        synchronized ( transcriptCache ) {
+            logger.debug("Transcript cache for " + getName() + ": " + transcriptCacheHits + " hits, " + transcriptCacheMisses + " misses.");
+            transcriptCache.clear();
+        }
         transcriptFastaReferenceDataSource.close();
     }
 
@@ -567,11 +639,6 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         final List<GencodeFuncotation> outputFuncotations = new ArrayList<>();
 
-        // Cache the ncbiBuildVersion:
-        if ( ncbiBuildVersion == null ) {
-            ncbiBuildVersion = gtfFeature.getUcscGenomeVersion();
-        }
-
         final List<GencodeGtfTranscriptFeature> basicTranscripts = gtfFeature.getTranscripts().stream()
                 .filter(GencodeFuncotationFactory::isBasic).collect(Collectors.toList());
 
@@ -629,12 +696,14 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         final VariantContext variantToUse = variant;
 
+        // Get the cached transcript info first, since this sorts the exons in the transcript (if necessary) before we look at them:
+        final CachedTranscriptInfo transcriptInfo = getCachedTranscriptInfo(transcript);
+
         // Find the sub-feature of transcript that contains our variant:
         final GencodeGtfFeature containingSubfeature = getContainingGtfSubfeature(variantToUse, transcript);
 
         // Make sure the sub-regions in the transcript actually contain the variant:
-        // TODO: this is slow, and repeats work that is done later in the process (we call getSortedCdsAndStartStopPositions when creating the sequence comparison)
-        final int startPosInTranscript =  FuncotatorUtils.getStartPositionInTranscript(variantToUse, getSortedCdsAndStartStopPositions(transcript), transcript.getGenomicStrand() );
+        final int startPosInTranscript =  FuncotatorUtils.getStartPositionInTranscript(variantToUse, transcriptInfo.sortedCodingRegions, transcript.getGenomicStrand() );
 
         // Determine what kind of region we're in and handle it in it's own way:
         if ( containingSubfeature == null ) {
@@ -651,7 +720,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
             }
             else {
                 // We have a coding region variant
-                gencodeFuncotation = createExonFuncotation(variantToUse, altAllele, gtfFeature, reference, transcript, (GencodeGtfExonFeature) containingSubfeature);
+                gencodeFuncotation = createExonFuncotation(variantToUse, altAllele, gtfFeature, reference, transcript, transcriptInfo, (GencodeGtfExonFeature) containingSubfeature);
             }
         }
         else if ( GencodeGtfUTRFeature.class.isAssignableFrom(containingSubfeature.getClass()) ) {
@@ -676,6 +745,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * @param gtfFeature The {@link GencodeGtfGeneFeature} in which the given {@code variant} occurs.
      * @param reference The {@link ReferenceContext} for the current data set.
      * @param transcript The {@link GencodeGtfTranscriptFeature} in which the given {@code variant} occurs.
+     * @param transcriptInfo The {@link CachedTranscriptInfo} for the given {@code transcript}.
      * @param exon The {@link GencodeGtfExonFeature} in which the given {@code variant} occurs.
      * @return A {@link GencodeFuncotation} containing information about the given {@code variant} given the corresponding {@code exon}.
      */
@@ -684,15 +754,16 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                                      final GencodeGtfGeneFeature gtfFeature,
                                                      final ReferenceContext reference,
                                                      final GencodeGtfTranscriptFeature transcript,
+                                                     final CachedTranscriptInfo transcriptInfo,
                                                      final GencodeGtfExonFeature exon) {
 
         // Before we get started, check to see if this is a non-protein-coding feature.
         // If it is, we must handle it differently:
         if ( gtfFeature.getGeneType() != GencodeGtfFeature.GeneTranscriptType.PROTEIN_CODING) {
-            return createCodingRegionFuncotationForNonProteinCodingFeature(variant, altAllele, gtfFeature, reference, transcript, exon);
+            return createCodingRegionFuncotationForNonProteinCodingFeature(variant, altAllele, gtfFeature, reference, transcript, transcriptInfo, exon);
         }
         else {
-            return createCodingRegionFuncotationForProteinCodingFeature(variant, altAllele, gtfFeature, reference, transcript, exon);
+            return createCodingRegionFuncotationForProteinCodingFeature(variant, altAllele, gtfFeature, reference, transcript, transcriptInfo, exon);
         }
     }
 
@@ -703,6 +774,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * @param gtfFeature The {@link GencodeGtfGeneFeature} in which the given {@code variant} occurs.
      * @param reference The {@link ReferenceContext} for the current data set.
      * @param transcript The {@link GencodeGtfTranscriptFeature} in which the given {@code variant} occurs.
+     * @param transcriptInfo The {@link CachedTranscriptInfo} for the given {@code transcript}.
      * @param exon The {@link GencodeGtfExonFeature} in which the given {@code variant} occurs.
      * @return A {@link GencodeFuncotation} containing information about the given {@code variant} given the corresponding {@code exon}.
      */
@@ -711,11 +783,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                                                                        final GencodeGtfGeneFeature gtfFeature,
                                                                                        final ReferenceContext reference,
                                                                                        final GencodeGtfTranscriptFeature transcript,
+                                                                                       final CachedTranscriptInfo transcriptInfo,
                                                                                        final GencodeGtfExonFeature exon) {
 
         // Get the list of exons by their locations so we can use them to determine our location in the transcript and get
         // the transcript code itself:
-        final List<? extends Locatable> exonPositionList = getSortedCdsAndStartStopPositions(transcript);
+        final List<? extends Locatable> exonPositionList = transcriptInfo.sortedCodingRegions;
 
         // Setup the "trivial" fields of the gencodeFuncotation:
         final GencodeFuncotationBuilder gencodeFuncotationBuilder = createGencodeFuncotationBuilderWithTrivialFieldsPopulated(variant, altAllele, gtfFeature, transcript);
@@ -728,7 +801,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         // Set up our SequenceComparison object so we can calculate some useful fields more easily
         // These fields can all be set without knowing the alternate allele:
-        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, transcriptIdMap, transcriptFastaReferenceDataSource, false);
+        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, null, false);
 
         // Set our transcript position to be the start point in the transcript of the variant:
         gencodeFuncotationBuilder.setTranscriptPos(
@@ -766,6 +839,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
      * @param gtfFeature The {@link GencodeGtfGeneFeature} in which the given {@code variant} occurs.
      * @param reference The {@link ReferenceContext} for the current data set.
      * @param transcript The {@link GencodeGtfTranscriptFeature} in which the given {@code variant} occurs.
+     * @param transcriptInfo The {@link CachedTranscriptInfo} for the given {@code transcript}.
      * @param exon The {@link GencodeGtfExonFeature} in which the given {@code variant} occurs.
      * @return A {@link GencodeFuncotation} containing information about the given {@code variant} given the corresponding {@code exon}.
      */
@@ -774,11 +848,12 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                                                                     final GencodeGtfGeneFeature gtfFeature,
                                                                                     final ReferenceContext reference,
                                                                                     final GencodeGtfTranscriptFeature transcript,
+                                                                                    final CachedTranscriptInfo transcriptInfo,
                                                                                     final GencodeGtfExonFeature exon) {
 
         // Get the list of exons by their locations so we can use them to determine our location in the transcript and get
         // the transcript code itself:
-        final List<? extends Locatable> exonPositionList = getSortedCdsAndStartStopPositions(transcript);
+        final List<? extends Locatable> exonPositionList = transcriptInfo.sortedCodingRegions;
 
         // NOTE: Regardless of strandedness, we always report the alleles as if they appeared in the forward direction.
         final GencodeFuncotation.VariantType variantType =
@@ -796,7 +871,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
 
         // Set up our SequenceComparison object so we can calculate some useful fields more easily
         // These fields can all be set without knowing the alternate allele:
-        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, transcriptIdMap, transcriptFastaReferenceDataSource, true);
+        final SequenceComparison sequenceComparison = createSequenceComparison(variant, altAllele, reference, transcript, exonPositionList, getCodingSequence(transcript, transcriptInfo), true);
 
         // Set our transcript position to be the start point in the transcript of the variant:
         gencodeFuncotationBuilder.setTranscriptPos(
@@ -861,7 +936,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
     static List<? extends Locatable> getSortedCdsAndStartStopPositions(final GencodeGtfTranscriptFeature transcript) {
 
         // Sort by exon number first:
-        transcript.getExons().sort((lhs, rhs) -> lhs.getExonNumber() < rhs.getExonNumber() ? -1 : (lhs.getExonNumber() > rhs.getExonNumber() ) ? 1 : 0 );
+        sortExonsByExonNumber(transcript);
 
         final List<Locatable> regionList = new ArrayList<>(transcript.getExons().size());
         for ( final GencodeGtfExonFeature exon : transcript.getExons() ) {
@@ -898,6 +973,76 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         return regionList;
     }
 
+    /**
+     * Sorts the exons of the given {@code transcript} by exon number.
+     * NOTE: Transcripts may be shared between annotation threads, so this only sorts (i.e. modifies) the exon list when
+     *       it is not already sorted.
+     */
+    private static void sortExonsByExonNumber(final GencodeGtfTranscriptFeature transcript) {
+        final Comparator<GencodeGtfExonFeature> exonNumberComparator = Comparator.comparingInt(GencodeGtfExonFeature::getExonNumber);
+        if ( !isSorted(transcript.getExons(), exonNumberComparator) ) {
+            transcript.getExons().sort(exonNumberComparator);
+        }
+    }
+
+    private static <T> boolean isSorted(final List<T> list, final Comparator<? super T> comparator) {
+        for ( int i = 1; i < list.size(); ++i ) {
+            if ( comparator.compare(list.get(i - 1), list.get(i)) > 0 ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the {@link CachedTranscriptInfo} for the given {@code transcript} from {@link #transcriptCache}, creating it if necessary.
+     * This also sorts the exons of the given {@code transcript}, which may be a different object than the one from
+     * which the cached info was created.
+     * @param transcript The {@link GencodeGtfTranscriptFeature} for which to get the cached info.
+     * @return The {@link CachedTranscriptInfo} for the given {@code transcript}.
+     */
+    private CachedTranscriptInfo getCachedTranscriptInfo(final GencodeGtfTranscriptFeature transcript) {
+        final String key = getTranscriptCacheKey(transcript);
+        synchronized ( transcriptCache ) {
+            CachedTranscriptInfo transcriptInfo = transcriptCache.get(key);
+            if ( transcriptInfo == null ) {
+                ++transcriptCacheMisses;
+                transcriptInfo = new CachedTranscriptInfo(getSortedCdsAndStartStopPositions(transcript));
+                transcriptCache.put(key, transcriptInfo);
+            }
+            else {
+                ++transcriptCacheHits;
+                sortExonsByExonNumber(transcript);
+            }
+            return transcriptInfo;
+        }
+    }
+
+    /**
+     * Gets the coding sequence for the given {@code transcript} from the transcript FASTA file, reading it only the first
+     * time it is requested for the given {@code transcriptInfo}.
+     * @return The coding sequence of the transcript, or {@code null} if the transcript does not occur in the transcript FASTA file.
+     */
+    private String getCodingSequence(final GencodeGtfTranscriptFeature transcript, final CachedTranscriptInfo transcriptInfo) {
+        if ( !transcriptIdMap.containsKey(transcript.getTranscriptId()) ) {
+            return null;
+        }
+        synchronized ( transcriptInfo ) {
+            if ( transcriptInfo.codingSequence == null ) {
+                transcriptInfo.codingSequence = getCodingSequenceFromTranscriptFasta(transcript.getTranscriptId(), transcriptIdMap, transcriptFastaReferenceDataSource);
+            }
+            return transcriptInfo.codingSequence;
+        }
+    }
+
+    /**
+     * Transcript IDs are not necessarily unique across the genome (e.g. for transcripts in the pseudo-autosomal regions),
+     * so the location of the transcript is part of its cache key.
+     */
+    private static String getTranscriptCacheKey(final GencodeGtfTranscriptFeature transcript) {
+        return transcript.getTranscriptId() + '@' + transcript.getContig() + ':' + transcript.getStart() + '-' + transcript.getEnd();
+    }
+
     /**
      * Gets the {@link org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode.GencodeFuncotation.VariantClassification} of the given {@code altAllele} for the given {@code variant}.
      * @param variant The {@link VariantContext} to classify.
@@ -1408,6 +1553,33 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                                                        final ReferenceDataSource transcriptFastaReferenceDataSource,
                                                        final boolean processSequenceInformation) {
 
+        final String transcriptCodingSequence =
+                ( processSequenceInformation && transcriptIdMap.containsKey(transcript.getTranscriptId()) )
+                        ? getCodingSequenceFromTranscriptFasta(transcript.getTranscriptId(), transcriptIdMap, transcriptFastaReferenceDataSource)
+                        : null;
+
+        return createSequenceComparison(variant, alternateAllele, reference, transcript, exonPositionList, transcriptCodingSequence, processSequenceInformation);
+    }
+
+    /**
+     * Creates a {@link org.broadinstitute.hellbender.tools.funcotator.SequenceComparison} object with the fields populated.
+     * @param variant The {@link VariantContext} for the current variant.
+     * @param alternateAllele The current alternate {@link Allele} for the variant.
+     * @param reference The {@link ReferenceContext} for the current sample set.
+     * @param transcript The {@link GencodeGtfTranscriptFeature} for the current gene feature / alt allele.
+     * @param exonPositionList A {@link List} of {@link htsjdk.samtools.util.Locatable} objects representing exon positions in the transcript.
+     * @param transcriptCodingSequence The coding sequence of the given {@code transcript} from the transcript FASTA file, or {@code null} if it does not occur in that file.
+     * @param processSequenceInformation If {@code true} will attempt to process and create sequence information for the given {@code variant}.
+     * @return A populated {@link org.broadinstitute.hellbender.tools.funcotator.SequenceComparison} object.
+     */
+    private static SequenceComparison createSequenceComparison(final VariantContext variant,
+                                                               final Allele alternateAllele,
+                                                               final ReferenceContext reference,
+                                                               final GencodeGtfTranscriptFeature transcript,
+                                                               final List<? extends htsjdk.samtools.util.Locatable> exonPositionList,
+                                                               final String transcriptCodingSequence,
+                                                               final boolean processSequenceInformation) {
+
         final SequenceComparison sequenceComparison = new SequenceComparison();
 
         // Get the contig:
@@ -1506,13 +1678,10 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         // Get the coding sequence for the transcript if we have a transcript sequence for this variant:
 
         if ( processSequenceInformation ) {
-            if ( transcriptIdMap.containsKey(transcript.getTranscriptId()) ) {
-
-                // NOTE: This can't be null because of the Funcotator input args.
-                final String transcriptSequence = getCodingSequenceFromTranscriptFasta(transcript.getTranscriptId(), transcriptIdMap, transcriptFastaReferenceDataSource);
+            if ( transcriptCodingSequence != null ) {
 
                 // Get the transcript sequence as described by the given exonPositionList:
-                sequenceComparison.setTranscriptCodingSequence(new ReferenceSequence(transcript.getTranscriptId(), transcript.getStart(), transcriptSequence.getBytes()));
+                sequenceComparison.setTranscriptCodingSequence(new ReferenceSequence(transcript.getTranscriptId(), transcript.getStart(), transcriptCodingSequence.getBytes()));
 
                 // Get the in-frame/codon-aligned CODING region containing the reference allele:
                 // NOTE: We are calling this with Strand.POSITIVE because we have already reverse complemented the reference sequence.
@@ -1850,9 +2019,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                 .setChromosome(variant.getContig())
                 .setAnnotationTranscript(FuncotationMap.NO_TRANSCRIPT_AVAILABLE_KEY);
 
-        // If we have a cached value for the ncbiBuildVersion, we should add it:
-        // NOTE: This will only be true if we have previously annotated a non-IGR variant.
-        // TODO: This is issue #4404
+        // If we know the ncbiBuildVersion of our data source, we should add it:
         if ( ncbiBuildVersion != null ) {
             funcotationBuilder.setNcbiBuild( ncbiBuildVersion );
         }
@@ -1900,9 +2067,7 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
                 .setOtherTranscripts(Collections.emptyList())
                 .setAnnotationTranscript(annotationTranscript);
 
-        // If we have a cached value for the ncbiBuildVersion, we should add it:
-        // NOTE: This will only be true if we have previously annotated a non-IGR variant.
-        // TODO: This is issue #4404
+        // If we know the ncbiBuildVersion of our data source, we should add it:
         if ( ncbiBuildVersion != null ) {
             funcotationBuilder.setNcbiBuild( ncbiBuildVersion );
         }
@@ -2113,4 +2278,23 @@ public class GencodeFuncotationFactory extends DataSourceFuncotationFactory {
         int fivePrimeUtrEnd;
     }
 
+    /**
+     * Data about a transcript that does not depend on the variant being annotated, cached in {@link #transcriptCache}.
+     */
+    private static final class CachedTranscriptInfo {
+        /**
+         * The start codon, CDS, and stop codon regions of the transcript, in exon-number order.
+         * See {@link #getSortedCdsAndStartStopPositions(GencodeGtfTranscriptFeature)}.
+         */
+        final List<? extends Locatable> sortedCodingRegions;
+
+        /**
+         * The coding sequence of the transcript from the transcript FASTA file.  Lazily loaded (guarded by this object).
+         */
+        String codingSequence;
+
+        CachedTranscriptInfo(final List<? extends Locatable> sortedCodingRegions) {
+            this.sortedCodingRegions = Collections.unmodifiableList(sortedCodingRegions);
+        }
+    }
 }
@@ -0,0 +1,874 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.util.Locatable;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.CloseableTribbleIterator;
+import htsjdk.tribble.FeatureReader;
+import htsjdk.tribble.annotation.Strand;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.codecs.gencode.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A precompiled, indexed binary snapshot of a GENCODE data source: the gene / transcript / exon hierarchy of a GENCODE
+ * GTF file, and the sequences of the corresponding GENCODE transcript FASTA file.
+ *
+ * Opening a snapshot only reads its (small) index.  The gene and sequence records themselves are memory-mapped lazily,
+ * one segment at a time, as regions are queried, and genes are only decoded when they overlap a query.  This avoids
+ * parsing the GTF file and the FASTA index / dictionary at startup, which dominates the run time of short Funcotator jobs.
+ *
+ * A snapshot for a GTF file is stored next to it, with the {@link #SNAPSHOT_EXTENSION} extension appended
+ * (see {@link #getSnapshotPath(Path)}).  Snapshots record the size and last-modified time of each of the files from which
+ * they were created, so that {@link #open(Path, Path, Path)} does not use stale snapshots.  Copying a data source
+ * without preserving modification times therefore makes its snapshot stale.
+ *
+ * File layout (all numbers big-endian):
+ * <pre>
+ *     MAGIC, format version
+ *     gene and sequence records
+ *     index: source file fingerprints, UCSC genome version, per-contig gene index (sorted by start), sequence index, max record length
+ *     index offset, MAGIC
+ * </pre>
+ *
+ * Instances are safe to query from multiple threads.
+ */
+public final class GencodeGtfSnapshot implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(GencodeGtfSnapshot.class);
+
+    /**
+     * Extension appended to the path of a GTF file to get the path of its snapshot.
+     */
+    public static final String SNAPSHOT_EXTENSION = ".gsnap";
+
+    private static final byte[] MAGIC = "GATKGSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int FORMAT_VERSION = 3;
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+    private static final int FOOTER_LENGTH = Long.BYTES + MAGIC.length;
+
+    /**
+     * Size of the regions of the snapshot that are memory-mapped at once.
+     */
+    private static final int SEGMENT_SIZE = 1 << 26;
+
+    /**
+     * Number of decoded genes to keep, so that consecutive queries in the same gene share feature objects.
+     */
+    private static final int DECODED_GENE_CACHE_SIZE = 256;
+
+    // Value types of optional fields:
+    private static final byte OPTIONAL_FIELD_STRING = 0;
+    private static final byte OPTIONAL_FIELD_LONG = 1;
+    private static final byte OPTIONAL_FIELD_FEATURE_TAG = 2;
+    private static final byte OPTIONAL_FIELD_TRANSCRIPT_SUPPORT_LEVEL = 3;
+    private static final byte OPTIONAL_FIELD_REMAP_STATUS = 4;
+    private static final byte OPTIONAL_FIELD_REMAP_TARGET_STATUS = 5;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long dataEnd;
+    private final int maxRecordLength;
+    private final MappedByteBuffer[] segments;
+
+    private final String ucscGenomeVersion;
+
+    private final Map<String, ContigIndex> contigIndices;
+    private final Map<String, SequenceIndexEntry> sequenceIndex;
+    private final SAMSequenceDictionary sequenceDictionary;
+
+    private final Map<Long, GencodeGtfGeneFeature> decodedGeneCache;
+
+    //==================================================================================================================
+    // Creating snapshots:
+
+    /**
+     * Gets the path of the snapshot for the given GENCODE GTF file.
+     */
+    public static Path getSnapshotPath(final Path gtfFile) {
+        Utils.nonNull(gtfFile);
+        return gtfFile.resolveSibling(gtfFile.getFileName().toString() + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * Creates a snapshot of the given GENCODE GTF file and its transcript FASTA file.
+     * @param gtfFile GENCODE GTF file.  Must not be {@code null}.
+     * @param transcriptFastaFile GENCODE transcript FASTA file (with .fai and .dict files).  Must not be {@code null}.
+     * @param snapshotFile Path to which to write the snapshot.  Must not be {@code null}.
+     */
+    public static void create(final Path gtfFile, final Path transcriptFastaFile, final Path snapshotFile) {
+        Utils.nonNull(gtfFile);
+        Utils.nonNull(transcriptFastaFile);
+        Utils.nonNull(snapshotFile);
+
+        final Map<String, List<GeneIndexEntry>> geneIndex = new LinkedHashMap<>();
+        final List<SequenceIndexEntry> sequenceEntries = new ArrayList<>();
+        String ucscGenomeVersion = null;
+        int maxRecordLength = 0;
+
+        try ( final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(snapshotFile));
+              final DataOutputStream dataOutputStream = new DataOutputStream(outputStream) ) {
+
+            dataOutputStream.write(MAGIC);
+            dataOutputStream.writeInt(FORMAT_VERSION);
+            long offset = HEADER_LENGTH;
+
+            // Genes:
+            final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+            final DataOutputStream recordOutput = new DataOutputStream(recordBytes);
+            try ( final FeatureReader<GencodeGtfFeature> reader = AbstractFeatureReader.getFeatureReader(gtfFile.toUri().toString(), new GencodeGtfCodec(), false);
+                  final CloseableTribbleIterator<GencodeGtfFeature> iterator = reader.iterator() ) {
+                while ( iterator.hasNext() ) {
+                    final GencodeGtfGeneFeature gene = (GencodeGtfGeneFeature) iterator.next();
+                    if ( ucscGenomeVersion == null ) {
+                        ucscGenomeVersion = gene.getUcscGenomeVersion();
+                    }
+
+                    recordBytes.reset();
+                    writeGene(recordOutput, gene);
+                    recordOutput.flush();
+                    recordBytes.writeTo(dataOutputStream);
+
+                    geneIndex.computeIfAbsent(gene.getContig(), k -> new ArrayList<>())
+                            .add(new GeneIndexEntry(gene.getStart(), gene.getEnd(), offset, recordBytes.size()));
+                    offset += recordBytes.size();
+                    maxRecordLength = Math.max(maxRecordLength, recordBytes.size());
+                }
+            }
+
+            // Transcript sequences (as they would be returned by the FASTA file's ReferenceDataSource):
+            try ( final ReferenceDataSource fastaDataSource = ReferenceDataSource.of(transcriptFastaFile) ) {
+                for ( final SAMSequenceRecord sequence : fastaDataSource.getSequenceDictionary().getSequences() ) {
+                    final byte[] bases = sequence.getSequenceLength() == 0 ? new byte[0] :
+                            fastaDataSource.queryAndPrefetch(sequence.getSequenceName(), 1, sequence.getSequenceLength()).getBases();
+                    dataOutputStream.write(bases);
+                    sequenceEntries.add(new SequenceIndexEntry(sequence.getSequenceName(), bases.length, offset));
+                    offset += bases.length;
+                    maxRecordLength = Math.max(maxRecordLength, bases.length);
+                }
+            }
+
+            // Index:
+            final long indexOffset = offset;
+            SourceFingerprint.of(gtfFile).write(dataOutputStream);
+            SourceFingerprint.of(transcriptFastaFile).write(dataOutputStream);
+            writeNullableString(dataOutputStream, ucscGenomeVersion);
+
+            dataOutputStream.writeInt(geneIndex.size());
+            for ( final Map.Entry<String, List<GeneIndexEntry>> contigEntry : geneIndex.entrySet() ) {
+                final List<GeneIndexEntry> genes = contigEntry.getValue();
+                genes.sort(Comparator.comparingInt((GeneIndexEntry g) -> g.start).thenComparingInt(g -> g.end));
+
+                dataOutputStream.writeUTF(contigEntry.getKey());
+                dataOutputStream.writeInt(genes.size());
+                for ( final GeneIndexEntry gene : genes ) {
+                    dataOutputStream.writeInt(gene.start);
+                    dataOutputStream.writeInt(gene.end);
+                    dataOutputStream.writeLong(gene.offset);
+                    dataOutputStream.writeInt(gene.length);
+                }
+            }
+
+            dataOutputStream.writeInt(sequenceEntries.size());
+            for ( final SequenceIndexEntry sequence : sequenceEntries ) {
+                dataOutputStream.writeUTF(sequence.name);
+                dataOutputStream.writeInt(sequence.length);
+                dataOutputStream.writeLong(sequence.offset);
+            }
+            dataOutputStream.writeInt(maxRecordLength);
+
+            dataOutputStream.writeLong(indexOffset);
+            dataOutputStream.write(MAGIC);
+        }
+        catch ( final IOException ex ) {
+            throw new UserException.CouldNotCreateOutputFile(snapshotFile.toUri().toString(), "Could not write GENCODE snapshot", ex);
+        }
+
+        logger.info("Wrote GENCODE snapshot of " + geneIndex.values().stream().mapToInt(List::size).sum() + " genes and " +
+                sequenceEntries.size() + " transcript sequences to: " + snapshotFile.toUri().toString());
+    }
+
+    //==================================================================================================================
+    // Reading snapshots:
+
+    /**
+     * Opens the given snapshot.  Only the index of the snapshot is read.
+     */
+    public static GencodeGtfSnapshot open(final Path snapshotFile) {
+        Utils.nonNull(snapshotFile);
+        return new GencodeGtfSnapshot(snapshotFile, null);
+    }
+
+    /**
+     * Opens the given snapshot if it is up to date with the given source files.  Only the index of the snapshot is read.
+     * @param snapshotFile Snapshot to open.  Must not be {@code null}.
+     * @param gtfFile GENCODE GTF file from which the snapshot should have been created.  Must not be {@code null}.
+     * @param transcriptFastaFile GENCODE transcript FASTA file from which the snapshot should have been created.  Must not be {@code null}.
+     * @return The opened snapshot, or {@code null} if the snapshot does not exist, cannot be read, or was created from
+     * files that differ from the given GTF and transcript FASTA files.
+     */
+    public static GencodeGtfSnapshot open(final Path snapshotFile, final Path gtfFile, final Path transcriptFastaFile) {
+        Utils.nonNull(snapshotFile);
+        Utils.nonNull(gtfFile);
+        Utils.nonNull(transcriptFastaFile);
+
+        if ( !Files.isRegularFile(snapshotFile) ) {
+            return null;
+        }
+
+        final List<SourceFingerprint> sourceFingerprints;
+        try {
+            sourceFingerprints = Arrays.asList(SourceFingerprint.of(gtfFile), SourceFingerprint.of(transcriptFastaFile));
+        }
+        catch ( final IOException ex ) {
+            logger.warn("Could not read the source files of GENCODE snapshot " + snapshotFile.toUri().toString() + ": " + ex.getMessage());
+            return null;
+        }
+
+        try {
+            return new GencodeGtfSnapshot(snapshotFile, sourceFingerprints);
+        }
+        catch ( final StaleSnapshotException ex ) {
+            logger.warn("GENCODE snapshot is out of date and will not be used (re-create it to speed up startup): " + snapshotFile.toUri().toString());
+            return null;
+        }
+        catch ( final UserException ex ) {
+            logger.warn("GENCODE snapshot will not be used (re-create it to speed up startup): " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param expectedSourceFingerprints Fingerprints of the GTF and transcript FASTA files from which the snapshot must
+     *                                   have been created, or {@code null} to not check the source files.
+     * @throws StaleSnapshotException if the snapshot was not created from files with the expected fingerprints.
+     */
+    private GencodeGtfSnapshot(final Path path, final List<SourceFingerprint> expectedSourceFingerprints) {
+        this.path = path;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        }
+        catch ( final IOException ex ) {
+            throw new UserException.CouldNotReadInputFile(path, "Could not open GENCODE snapshot", ex);
+        }
+
+        try {
+            final long fileSize = channel.size();
+            if ( fileSize < HEADER_LENGTH + FOOTER_LENGTH ) {
+                throw new UserException.MalformedFile(path, "File is too short to be a GENCODE snapshot.");
+            }
+
+            final ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+            checkMagic(header);
+            final int version = header.getInt();
+            if ( version != FORMAT_VERSION ) {
+                throw new UserException.MalformedFile(path, "Unsupported GENCODE snapshot version: " + version + " (expected " + FORMAT_VERSION + ").  Please re-create it.");
+            }
+
+            final ByteBuffer footer = readFully(channel, fileSize - FOOTER_LENGTH, FOOTER_LENGTH);
+            dataEnd = footer.getLong();
+            checkMagic(footer);
+            if ( dataEnd < HEADER_LENGTH || dataEnd > fileSize - FOOTER_LENGTH ) {
+                throw new UserException.MalformedFile(path, "Invalid index offset in GENCODE snapshot: " + dataEnd);
+            }
+
+            final byte[] indexBytes = new byte[Math.toIntExact(fileSize - FOOTER_LENGTH - dataEnd)];
+            readFully(channel, dataEnd, indexBytes.length).get(indexBytes);
+            final DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+
+            final List<SourceFingerprint> sourceFingerprints = Arrays.asList(SourceFingerprint.read(index), SourceFingerprint.read(index));
+            if ( expectedSourceFingerprints != null && !sourceFingerprints.equals(expectedSourceFingerprints) ) {
+                throw new StaleSnapshotException();
+            }
+            ucscGenomeVersion = readNullableString(index);
+
+            final int numContigs = index.readInt();
+            contigIndices = new HashMap<>(numContigs * 2);
+            for ( int i = 0; i < numContigs; ++i ) {
+                final String contig = index.readUTF();
+                contigIndices.put(contig, ContigIndex.read(index));
+            }
+
+            final int numSequences = index.readInt();
+            sequenceIndex = new HashMap<>(numSequences * 2);
+            final List<SAMSequenceRecord> sequenceRecords = new ArrayList<>(numSequences);
+            for ( int i = 0; i < numSequences; ++i ) {
+                final SequenceIndexEntry sequence = new SequenceIndexEntry(index.readUTF(), index.readInt(), index.readLong());
+                sequenceIndex.put(sequence.name, sequence);
+                sequenceRecords.add(new SAMSequenceRecord(sequence.name, sequence.length));
+            }
+            sequenceDictionary = new SAMSequenceDictionary(sequenceRecords);
+
+            maxRecordLength = index.readInt();
+        }
+        catch ( final IOException | RuntimeException ex ) {
+            try {
+                channel.close();
+            }
+            catch ( final IOException closeException ) {
+                ex.addSuppressed(closeException);
+            }
+            if ( ex instanceof RuntimeException ) {
+                throw (RuntimeException) ex;
+            }
+            throw new UserException.CouldNotReadInputFile(path, "Could not read GENCODE snapshot", ex);
+        }
+
+        segments = new MappedByteBuffer[Math.toIntExact((dataEnd + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        decodedGeneCache = new LinkedHashMap<Long, GencodeGtfGeneFeature>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, GencodeGtfGeneFeature> eldest) {
+                return size() > DECODED_GENE_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * @return The genes (with all of their transcripts, exons, and sub-features) that overlap the given {@code interval},
+     * in order of their start positions.  Never {@code null}.
+     */
+    public List<GencodeGtfGeneFeature> getOverlappingGenes(final Locatable interval) {
+        Utils.nonNull(interval);
+
+        final ContigIndex contigIndex = contigIndices.get(interval.getContig());
+        if ( contigIndex == null ) {
+            return Collections.emptyList();
+        }
+
+        final List<GencodeGtfGeneFeature> genes = new ArrayList<>();
+        for ( int i = contigIndex.getFirstOverlapping(interval.getStart()); i < contigIndex.size() && contigIndex.starts[i] <= interval.getEnd(); ++i ) {
+            if ( contigIndex.ends[i] >= interval.getStart() ) {
+                genes.add(getGene(contigIndex.offsets[i], contigIndex.lengths[i]));
+            }
+        }
+        return genes;
+    }
+
+    /**
+     * @return The contigs that have genes in this snapshot.
+     */
+    public Set<String> getContigs() {
+        return Collections.unmodifiableSet(contigIndices.keySet());
+    }
+
+    /**
+     * @return The UCSC genome version of the features in this snapshot.  May be {@code null}.
+     */
+    public String getUcscGenomeVersion() {
+        return ucscGenomeVersion;
+    }
+
+    /**
+     * Gets a {@link ReferenceDataSource} over the transcript sequences in this snapshot, which returns the same
+     * sequences (with the same sequence names) as a {@link ReferenceDataSource} on the transcript FASTA file from which
+     * this snapshot was created.
+     *
+     * NOTE: Closing the returned {@link ReferenceDataSource} closes this snapshot.
+     */
+    public ReferenceDataSource getTranscriptSequenceDataSource() {
+        return new TranscriptSequenceDataSource();
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        }
+        catch ( final IOException ex ) {
+            throw new GATKException("Could not close GENCODE snapshot: " + path.toUri().toString(), ex);
+        }
+    }
+
+    //==================================================================================================================
+    // Helper methods:
+
+    private GencodeGtfGeneFeature getGene(final long offset, final int length) {
+        synchronized ( decodedGeneCache ) {
+            final GencodeGtfGeneFeature gene = decodedGeneCache.get(offset);
+            if ( gene != null ) {
+                return gene;
+            }
+        }
+
+        final GencodeGtfGeneFeature gene;
+        try {
+            gene = readGene(new DataInputStream(new ByteArrayInputStream(getRecord(offset, length))), ucscGenomeVersion);
+        }
+        catch ( final IOException ex ) {
+            throw new UserException.MalformedFile(path, "Could not decode gene at offset " + offset, ex);
+        }
+
+        synchronized ( decodedGeneCache ) {
+            // Another thread may have decoded it in the meantime, in which case we share its objects:
+            return decodedGeneCache.computeIfAbsent(offset, k -> gene);
+        }
+    }
+
+    /**
+     * @return A copy of the bytes of the record at the given {@code offset}, mapping its segment of the file if necessary.
+     */
+    private byte[] getRecord(final long offset, final int length) {
+        Utils.validateArg(offset >= HEADER_LENGTH && offset + length <= dataEnd, () -> "Invalid record: " + offset + " + " + length);
+        final int segmentIndex = (int)(offset / SEGMENT_SIZE);
+        final ByteBuffer segment = getSegment(segmentIndex).duplicate();
+        segment.position((int)(offset - (long)segmentIndex * SEGMENT_SIZE));
+        final byte[] record = new byte[length];
+        segment.get(record);
+        return record;
+    }
+
+    /**
+     * Segments overlap by {@link #maxRecordLength} bytes, so that every record lies within the segment in which it starts.
+     */
+    private MappedByteBuffer getSegment(final int segmentIndex) {
+        synchronized ( segments ) {
+            if ( segments[segmentIndex] == null ) {
+                final long start = (long)segmentIndex * SEGMENT_SIZE;
+                final long end = Math.min(dataEnd, start + SEGMENT_SIZE + maxRecordLength);
+                try {
+                    segments[segmentIndex] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                }
+                catch ( final IOException ex ) {
+                    throw new UserException.CouldNotReadInputFile(path, "Could not map GENCODE snapshot", ex);
+                }
+            }
+            return segments[segmentIndex];
+        }
+    }
+
+    private static ByteBuffer readFully(final FileChannel channel, final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while ( buffer.hasRemaining() ) {
+            if ( channel.read(buffer, position + buffer.position()) < 0 ) {
+                throw new EOFException("Unexpected end of GENCODE snapshot.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean hasMagic(final ByteBuffer buffer) {
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        return Arrays.equals(magic, MAGIC);
+    }
+
+    private void checkMagic(final ByteBuffer buffer) {
+        if ( !hasMagic(buffer) ) {
+            throw new UserException.MalformedFile(path, "File is not a GENCODE snapshot.");
+        }
+    }
+
+    //==================================================================================================================
+    // Feature serialization:
+
+    @VisibleForTesting
+    static void writeGene(final DataOutput out, final GencodeGtfGeneFeature gene) throws IOException {
+        out.writeUTF(gene.getContig());
+        writeFeature(out, gene);
+        out.writeInt(gene.getTranscripts().size());
+        for ( final GencodeGtfTranscriptFeature transcript : gene.getTranscripts() ) {
+            writeFeature(out, transcript);
+
+            out.writeInt(transcript.getExons().size());
+            for ( final GencodeGtfExonFeature exon : transcript.getExons() ) {
+                writeFeature(out, exon);
+                writeNullableFeature(out, exon.getCds());
+                writeNullableFeature(out, exon.getStartCodon());
+                writeNullableFeature(out, exon.getStopCodon());
+            }
+
+            out.writeInt(transcript.getUtrs().size());
+            for ( final GencodeGtfUTRFeature utr : transcript.getUtrs() ) {
+                writeFeature(out, utr);
+            }
+
+            out.writeInt(transcript.getSelenocysteines().size());
+            for ( final GencodeGtfSelenocysteineFeature selenocysteine : transcript.getSelenocysteines() ) {
+                writeFeature(out, selenocysteine);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static GencodeGtfGeneFeature readGene(final DataInput in, final String ucscGenomeVersion) throws IOException {
+        final String contig = in.readUTF();
+        final GencodeGtfGeneFeature gene = (GencodeGtfGeneFeature) readFeature(in, contig, ucscGenomeVersion);
+        final int numTranscripts = in.readInt();
+        for ( int i = 0; i < numTranscripts; ++i ) {
+            final GencodeGtfTranscriptFeature transcript = (GencodeGtfTranscriptFeature) readFeature(in, contig, ucscGenomeVersion);
+
+            final int numExons = in.readInt();
+            for ( int j = 0; j < numExons; ++j ) {
+                final GencodeGtfExonFeature exon = (GencodeGtfExonFeature) readFeature(in, contig, ucscGenomeVersion);
+                if ( in.readBoolean() ) {
+                    exon.setCds((GencodeGtfCDSFeature) readFeature(in, contig, ucscGenomeVersion));
+                }
+                if ( in.readBoolean() ) {
+                    exon.setStartCodon((GencodeGtfStartCodonFeature) readFeature(in, contig, ucscGenomeVersion));
+                }
+                if ( in.readBoolean() ) {
+                    exon.setStopCodon((GencodeGtfStopCodonFeature) readFeature(in, contig, ucscGenomeVersion));
+                }
+                transcript.addExon(exon);
+            }
+
+            final int numUtrs = in.readInt();
+            for ( int j = 0; j < numUtrs; ++j ) {
+                transcript.addUtr((GencodeGtfUTRFeature) readFeature(in, contig, ucscGenomeVersion));
+            }
+
+            final int numSelenocysteines = in.readInt();
+            for ( int j = 0; j < numSelenocysteines; ++j ) {
+                transcript.addSelenocysteine((GencodeGtfSelenocysteineFeature) readFeature(in, contig, ucscGenomeVersion));
+            }
+
+            gene.addTranscript(transcript);
+        }
+        return gene;
+    }
+
+    private static void writeNullableFeature(final DataOutput out, final GencodeGtfFeature feature) throws IOException {
+        out.writeBoolean(feature != null);
+        if ( feature != null ) {
+            writeFeature(out, feature);
+        }
+    }
+
+    /**
+     * Writes the data of a single GTF line.  The contig and UCSC genome version are shared by all features in a gene,
+     * so they are not written here.
+     */
+    private static void writeFeature(final DataOutput out, final GencodeGtfFeature feature) throws IOException {
+        out.writeInt(feature.getFeatureOrderNumber());
+        out.writeInt(feature.getStart());
+        out.writeInt(feature.getEnd());
+        writeEnum(out, feature.getAnnotationSource());
+        writeEnum(out, feature.getFeatureType());
+        writeEnum(out, feature.getGenomicStrand());
+        writeEnum(out, feature.getGenomicPhase());
+        writeNullableString(out, feature.getGeneId());
+        writeNullableString(out, feature.getTranscriptId());
+        writeEnum(out, feature.getGeneType());
+        writeEnum(out, feature.getGeneStatus());
+        writeNullableString(out, feature.getGeneName());
+        writeEnum(out, feature.getTranscriptType());
+        writeEnum(out, feature.getTranscriptStatus());
+        writeNullableString(out, feature.getTranscriptName());
+        out.writeInt(feature.getExonNumber());
+        writeNullableString(out, feature.getExonId());
+        writeEnum(out, feature.getLocusLevel());
+
+        out.writeInt(feature.getOptionalFields().size());
+        for ( final GencodeGtfFeature.OptionalField<?> field : feature.getOptionalFields() ) {
+            out.writeUTF(field.getName());
+            final Object value = field.getValue();
+            if ( value instanceof String ) {
+                out.writeByte(OPTIONAL_FIELD_STRING);
+                out.writeUTF((String) value);
+            }
+            else if ( value instanceof Long ) {
+                out.writeByte(OPTIONAL_FIELD_LONG);
+                out.writeLong((Long) value);
+            }
+            else if ( value instanceof GencodeGtfFeature.FeatureTag ) {
+                out.writeByte(OPTIONAL_FIELD_FEATURE_TAG);
+                writeEnum(out, (Enum<?>) value);
+            }
+            else if ( value instanceof GencodeGtfFeature.TranscriptSupportLevel ) {
+                out.writeByte(OPTIONAL_FIELD_TRANSCRIPT_SUPPORT_LEVEL);
+                writeEnum(out, (Enum<?>) value);
+            }
+            else if ( value instanceof GencodeGtfFeature.RemapStatus ) {
+                out.writeByte(OPTIONAL_FIELD_REMAP_STATUS);
+                writeEnum(out, (Enum<?>) value);
+            }
+            else if ( value instanceof GencodeGtfFeature.RemapTargetStatus ) {
+                out.writeByte(OPTIONAL_FIELD_REMAP_TARGET_STATUS);
+                writeEnum(out, (Enum<?>) value);
+            }
+            else {
+                throw new GATKException("Unexpected value type for optional field " + field.getName() + ": " + (value == null ? null : value.getClass()));
+            }
+        }
+
+        writeNullableString(out, feature.getAnonymousOptionalFields());
+    }
+
+    private static GencodeGtfFeature readFeature(final DataInput in, final String contig, final String ucscGenomeVersion) throws IOException {
+        final int featureOrderNumber = in.readInt();
+        final int start = in.readInt();
+        final int end = in.readInt();
+        final GencodeGtfFeature.AnnotationSource annotationSource = readEnum(in, GencodeGtfFeature.AnnotationSource.class);
+        final GencodeGtfFeature.FeatureType featureType = readEnum(in, GencodeGtfFeature.FeatureType.class);
+        final Strand genomicStrand = readEnum(in, Strand.class);
+        final GencodeGtfFeature.GenomicPhase genomicPhase = readEnum(in, GencodeGtfFeature.GenomicPhase.class);
+        final String geneId = readNullableString(in);
+        final String transcriptId = readNullableString(in);
+        final GencodeGtfFeature.GeneTranscriptType geneType = readEnum(in, GencodeGtfFeature.GeneTranscriptType.class);
+        final GencodeGtfFeature.GeneTranscriptStatus geneStatus = readEnum(in, GencodeGtfFeature.GeneTranscriptStatus.class);
+        final String geneName = readNullableString(in);
+        final GencodeGtfFeature.GeneTranscriptType transcriptType = readEnum(in, GencodeGtfFeature.GeneTranscriptType.class);
+        final GencodeGtfFeature.GeneTranscriptStatus transcriptStatus = readEnum(in, GencodeGtfFeature.GeneTranscriptStatus.class);
+        final String transcriptName = readNullableString(in);
+        final int exonNumber = in.readInt();
+        final String exonId = readNullableString(in);
+        final GencodeGtfFeature.LocusLevel locusLevel = readEnum(in, GencodeGtfFeature.LocusLevel.class);
+
+        final int numOptionalFields = in.readInt();
+        final List<GencodeGtfFeature.OptionalField<?>> optionalFields = new ArrayList<>(numOptionalFields);
+        for ( int i = 0; i < numOptionalFields; ++i ) {
+            final String name = in.readUTF();
+            final byte valueType = in.readByte();
+            switch ( valueType ) {
+                case OPTIONAL_FIELD_STRING:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, in.readUTF()));
+                    break;
+                case OPTIONAL_FIELD_LONG:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, in.readLong()));
+                    break;
+                case OPTIONAL_FIELD_FEATURE_TAG:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, readEnum(in, GencodeGtfFeature.FeatureTag.class)));
+                    break;
+                case OPTIONAL_FIELD_TRANSCRIPT_SUPPORT_LEVEL:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, readEnum(in, GencodeGtfFeature.TranscriptSupportLevel.class)));
+                    break;
+                case OPTIONAL_FIELD_REMAP_STATUS:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, readEnum(in, GencodeGtfFeature.RemapStatus.class)));
+                    break;
+                case OPTIONAL_FIELD_REMAP_TARGET_STATUS:
+                    optionalFields.add(new GencodeGtfFeature.OptionalField<>(name, readEnum(in, GencodeGtfFeature.RemapTargetStatus.class)));
+                    break;
+                default:
+                    throw new IOException("Unexpected optional field value type: " + valueType);
+            }
+        }
+
+        final String anonymousOptionalFields = readNullableString(in);
+
+        final GencodeGtfFeature feature = GencodeGtfFeature.create(new GencodeGtfFeatureBaseData(
+                featureOrderNumber, contig, annotationSource, featureType, start, end, genomicStrand, genomicPhase,
+                geneId, transcriptId, geneType, geneStatus, geneName, transcriptType, transcriptStatus, transcriptName,
+                exonNumber, exonId, locusLevel, optionalFields, anonymousOptionalFields));
+        feature.setUcscGenomeVersion(ucscGenomeVersion);
+        return feature;
+    }
+
+    /**
+     * Enums are written by name, so that snapshots do not depend on the order of enum constants.
+     */
+    private static void writeEnum(final DataOutput out, final Enum<?> value) throws IOException {
+        writeNullableString(out, value == null ? null : value.name());
+    }
+
+    private static <E extends Enum<E>> E readEnum(final DataInput in, final Class<E> enumClass) throws IOException {
+        final String name = readNullableString(in);
+        try {
+            return name == null ? null : Enum.valueOf(enumClass, name);
+        }
+        catch ( final IllegalArgumentException ex ) {
+            throw new IOException("Unknown " + enumClass.getSimpleName() + " value: " + name, ex);
+        }
+    }
+
+    private static void writeNullableString(final DataOutput out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if ( value != null ) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableString(final DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    //==================================================================================================================
+    // Helper Data Types:
+
+    private static final class GeneIndexEntry {
+        final int start;
+        final int end;
+        final long offset;
+        final int length;
+
+        GeneIndexEntry(final int start, final int end, final long offset, final int length) {
+            this.start = start;
+            this.end = end;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The genes on one contig, sorted by start position, as parallel arrays.
+     * {@link #maxEnds}[i] is the largest end position of genes 0 through i.  It never decreases, so the first gene
+     * that may overlap a query can be found by binary search.
+     */
+    private static final class ContigIndex {
+        final int[] starts;
+        final int[] ends;
+        final int[] maxEnds;
+        final long[] offsets;
+        final int[] lengths;
+
+        private ContigIndex(final int numGenes) {
+            starts = new int[numGenes];
+            ends = new int[numGenes];
+            maxEnds = new int[numGenes];
+            offsets = new long[numGenes];
+            lengths = new int[numGenes];
+        }
+
+        static ContigIndex read(final DataInput in) throws IOException {
+            final ContigIndex contigIndex = new ContigIndex(in.readInt());
+            int maxEnd = 0;
+            for ( int i = 0; i < contigIndex.size(); ++i ) {
+                contigIndex.starts[i] = in.readInt();
+                contigIndex.ends[i] = in.readInt();
+                contigIndex.offsets[i] = in.readLong();
+                contigIndex.lengths[i] = in.readInt();
+                maxEnd = Math.max(maxEnd, contigIndex.ends[i]);
+                contigIndex.maxEnds[i] = maxEnd;
+            }
+            return contigIndex;
+        }
+
+        int size() {
+            return starts.length;
+        }
+
+        /**
+         * @return The index of the first gene that may overlap a query starting at {@code start}
+         * (all genes before it end before {@code start}).
+         */
+        int getFirstOverlapping(final int start) {
+            int low = 0;
+            int high = size();
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( maxEnds[mid] < start ) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class SequenceIndexEntry {
+        final String name;
+        final int length;
+        final long offset;
+
+        SequenceIndexEntry(final String name, final int length, final long offset) {
+            this.name = name;
+            this.length = length;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * The size and last-modified time of a source file of a snapshot.
+     */
+    private static final class SourceFingerprint {
+        final long size;
+        final long lastModifiedMillis;
+
+        SourceFingerprint(final long size, final long lastModifiedMillis) {
+            this.size = size;
+            this.lastModifiedMillis = lastModifiedMillis;
+        }
+
+        static SourceFingerprint of(final Path file) throws IOException {
+            return new SourceFingerprint(Files.size(file), Files.getLastModifiedTime(file).toMillis());
+        }
+
+        static SourceFingerprint read(final DataInput in) throws IOException {
+            return new SourceFingerprint(in.readLong(), in.readLong());
+        }
+
+        void write(final DataOutput out) throws IOException {
+            out.writeLong(size);
+            out.writeLong(lastModifiedMillis);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if ( this == o ) {
+                return true;
+            }
+            if ( !(o instanceof SourceFingerprint) ) {
+                return false;
+            }
+            final SourceFingerprint that = (SourceFingerprint) o;
+            return size == that.size && lastModifiedMillis == that.lastModifiedMillis;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(lastModifiedMillis);
+        }
+    }
+
+    /**
+     * Thrown when a snapshot was not created from the expected source files.
+     */
+    private static final class StaleSnapshotException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * {@link ReferenceDataSource} view of the transcript sequences in this snapshot.
+     */
+    private final class TranscriptSequenceDataSource implements ReferenceDataSource {
+
+        @Override
+        public ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+            final SequenceIndexEntry sequence = sequenceIndex.get(contig);
+            if ( sequence == null ) {
+                throw new UserException.MissingContigInSequenceDictionary(contig, sequenceDictionary);
+            }
+            Utils.validateArg(start >= 1 && stop <= sequence.length && start <= stop + 1,
+                    () -> "Invalid interval " + contig + ":" + start + "-" + stop + " for sequence of length " + sequence.length);
+
+            final int length = (int)(stop - start + 1);
+            final byte[] bases = length == 0 ? new byte[0] : getRecord(sequence.offset + start - 1, length);
+            return new ReferenceSequence(contig, sequenceDictionary.getSequenceIndex(contig), bases);
+        }
+
+        @Override
+        public SAMSequenceDictionary getSequenceDictionary() {
+            return sequenceDictionary;
+        }
+
+        @Override
+        public Iterator<Byte> iterator() {
+            throw new UnsupportedOperationException("Iteration over all transcript sequences is not supported.");
+        }
+
+        @Override
+        public void close() {
+            GencodeGtfSnapshot.this.close();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.funcotator.mafOutput;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
@@ -16,14 +17,20 @@ import org.broadinstitute.hellbender.tools.funcotator.metadata.SamplePairExtract
 import org.broadinstitute.hellbender.tools.funcotator.metadata.TumorNormalPair;
 import org.broadinstitute.hellbender.tools.funcotator.vcfOutput.VcfOutputRenderer;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.runtime.AsynchronousStreamWriter;
 
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * A Funcotator output renderer for writing to MAF files.
@@ -46,6 +53,17 @@ public class MafOutputRenderer extends OutputRenderer {
 
     static final Logger logger = LogManager.getLogger(MafOutputRenderer.class);
 
+    /**
+     * Size (in bytes) of the blocks in which the output is buffered before being written (or compressed).
+     */
+    @VisibleForTesting
+    static final int OUTPUT_BLOCK_SIZE = 1 << 20;
+
+    /**
+     * Pattern matching {@link VcfOutputRenderer#OTHER_TRANSCRIPT_DELIMITER}, which must be replaced in the Other_Transcripts field.
+     */
+    private static final Pattern OTHER_TRANSCRIPT_DELIMITER_PATTERN = Pattern.compile(VcfOutputRenderer.OTHER_TRANSCRIPT_DELIMITER);
+
     /**
      * Default set of columns to include in this {@link MafOutputRenderer}.
      * Order of the columns is preserved by the {@link LinkedHashMap}, while still being able to access each field via
@@ -96,6 +114,21 @@ public class MafOutputRenderer extends OutputRenderer {
     /** The tumor normal pairs discovered in the input */
     private final List<TumorNormalPair> tnPairs;
 
+    /**
+     * Layout of the output columns, compiled from the header when the first row is written.
+     * {@code null} until then.
+     */
+    private CompiledLayout compiledLayout = null;
+
+    /** Number of rows rendered with {@link #compiledLayout}. */
+    @VisibleForTesting
+    long numRowsRenderedWithCompiledLayout = 0;
+
+    /**
+     * Background compressor for the output, if the output file is gzipped ({@code null} otherwise).
+     */
+    private BackgroundCompressingOutputStream compressingOutputStream = null;
+
     //==================================================================================================================
     // Constructors:
 
@@ -206,9 +239,18 @@ public class MafOutputRenderer extends OutputRenderer {
         // Cache the manual annotation string so we can pass it easily into any Funcotations:
         manualAnnotationSerializedString = (manualAnnotations.size() != 0 ? MafOutputRendererConstants.FIELD_DELIMITER + String.join( MafOutputRendererConstants.FIELD_DELIMITER, manualAnnotations.values() ) + MafOutputRendererConstants.FIELD_DELIMITER : "");
 
-        // Open the output object:
+        // Open the output object.
+        // Gzipped output is compressed on a background thread while the next block of rows is rendered:
         try {
-            printWriter = new PrintWriter(Files.newOutputStream(outputFilePath));
+            final OutputStream outputStream;
+            if ( outputFilePath.toString().endsWith(".gz") ) {
+                compressingOutputStream = new BackgroundCompressingOutputStream(Files.newOutputStream(outputFilePath), OUTPUT_BLOCK_SIZE);
+                outputStream = compressingOutputStream;
+            }
+            else {
+                outputStream = new BufferedOutputStream(Files.newOutputStream(outputFilePath), OUTPUT_BLOCK_SIZE);
+            }
+            printWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(outputStream), OUTPUT_BLOCK_SIZE));
         }
         catch (final IOException ex) {
             throw new UserException("Error opening output file path: " + outputFilePath.toUri().toString(), ex);
@@ -254,12 +296,26 @@ public class MafOutputRenderer extends OutputRenderer {
             for (final String txId : txToFuncotationMap.getTranscriptList()) {
 
                 final List<Funcotation> funcotations = txToFuncotationMap.get(txId);
+
+                // Render the row straight into the output with our compiled column layout, if we can:
+                if ( (compiledLayout != null) && compiledLayout.render(altAllele, funcotations) ) {
+                    ++numRowsRenderedWithCompiledLayout;
+                    for ( final String value : compiledLayout.rowValues ) {
+                        writeString(value);
+                        writeString(MafOutputRendererConstants.FIELD_DELIMITER);
+                    }
+                    writeLine(manualAnnotationSerializedString);
+                    continue;
+                }
+
                 final LinkedHashMap<String, String> mafCompliantOutputMap = createMafCompliantOutputMap(altAllele, funcotations);
 
                 // Write our header if we have to:
                 if (!hasWrittenHeader) {
                     // Please note that we are implicitly using the ordering of a LinkedHashMap under the hood.
-                    writeHeader(new ArrayList<>(mafCompliantOutputMap.keySet()));
+                    final List<String> columns = new ArrayList<>(mafCompliantOutputMap.keySet());
+                    writeHeader(columns);
+                    compiledLayout = CompiledLayout.compile(columns, defaultMap, outputFieldNameMap, overrideAnnotations, this);
                 }
 
                 // Write the output (with manual annotations at the end):
@@ -272,7 +328,13 @@ public class MafOutputRenderer extends OutputRenderer {
         }
     }
 
-    private LinkedHashMap<String, String> createMafCompliantOutputMap(final Allele altAllele, final List<Funcotation> funcotations) {
+    /**
+     * Creates the MAF-compliant output values (in column order) of the row for the given {@code altAllele} and
+     * {@code funcotations}.  This is the general (slow) path of {@link #write(VariantContext, FuncotationMap)}, which
+     * is used for the first row and for any rows that do not fit the column layout of the first row.
+     */
+    @VisibleForTesting
+    LinkedHashMap<String, String> createMafCompliantOutputMap(final Allele altAllele, final List<Funcotation> funcotations) {
         // Create our output maps:
         final LinkedHashMap<String, Object> outputMap = new LinkedHashMap<>(defaultMap);
         final LinkedHashMap<String, Object> extraFieldOutputMap = new LinkedHashMap<>();
@@ -338,8 +400,8 @@ public class MafOutputRenderer extends OutputRenderer {
         // Massage the OtherTranscripts field:
         if ( finalOutMap.containsKey(MafOutputRendererConstants.FieldName_Other_Transcripts) ) {
             finalOutMap.put(
-                    MafOutputRendererConstants.FieldName_Other_Transcripts, finalOutMap.get(MafOutputRendererConstants.FieldName_Other_Transcripts)
-                            .replaceAll(VcfOutputRenderer.OTHER_TRANSCRIPT_DELIMITER, MafOutputRendererConstants.OTHER_TRANSCRIPT_DELIMITER)
+                    MafOutputRendererConstants.FieldName_Other_Transcripts,
+                    replaceOtherTranscriptDelimiters(finalOutMap.get(MafOutputRendererConstants.FieldName_Other_Transcripts))
             );
         }
 
@@ -356,14 +418,26 @@ public class MafOutputRenderer extends OutputRenderer {
      */
     @VisibleForTesting
     void adjustIndelAlleleInformationForMafOutput(final LinkedHashMap<String, String> outputMap) {
+        if ( outputMap.containsKey(MafOutputRendererConstants.FieldName_Variant_Type) ) {
+            adjustIndelAlleleInformationForMafOutput(outputMap::get, outputMap::put);
+        }
+    }
+
+    /**
+     * Adjusts the MAF fields relating to INDEL alleles, reading and writing the fields with the given accessors.
+     * See {@link #adjustIndelAlleleInformationForMafOutput(LinkedHashMap)}.
+     * @param getter Gets the value of the given MAF field.
+     * @param setter Sets the value of the given MAF field.
+     */
+    private static void adjustIndelAlleleInformationForMafOutput(final Function<String, String> getter, final BiConsumer<String, String> setter) {
         // Massage the start/end/alleles in the case of INDELs
         // (Because MAF has different conventions from VCF for start/end positions of INDELs)
-        if ( outputMap.containsKey(MafOutputRendererConstants.FieldName_Variant_Type) &&
-            (outputMap.get(MafOutputRendererConstants.FieldName_Variant_Type).equals(MafOutputRendererConstants.FieldValue_Variant_Type_Insertion) ||
-             outputMap.get(MafOutputRendererConstants.FieldName_Variant_Type).equals(MafOutputRendererConstants.FieldValue_Variant_Type_Deletion)) ) {
+        final String variantType = getter.apply(MafOutputRendererConstants.FieldName_Variant_Type);
+        if ( variantType.equals(MafOutputRendererConstants.FieldValue_Variant_Type_Insertion) ||
+             variantType.equals(MafOutputRendererConstants.FieldValue_Variant_Type_Deletion) ) {
 
-            final int refAlleleLength = outputMap.get(MafOutputRendererConstants.FieldName_Reference_Allele).length();
-            final int altAlleleLength = outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).length();
+            final int refAlleleLength = getter.apply(MafOutputRendererConstants.FieldName_Reference_Allele).length();
+            final int altAlleleLength = getter.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).length();
 
             // TODO: port these changes to GencodeFuncotationFactory (issue: https://github.com/broadinstitute/gatk/issues/4378)
             // Check to see if it's an insertion:
@@ -373,10 +447,10 @@ public class MafOutputRenderer extends OutputRenderer {
                 //    Replace the ref_allele with "-"
                 //    Replace the Tumor_Seq_Allele1 with "-"
                 //    Set the End_Position to be Start_Position + 1 (All Insertions should have length 1 to represent the bases between which the insertion occurs).
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).substring(refAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Reference_Allele,  MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
+                setter.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, getter.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2).substring(refAlleleLength));
+                setter.accept(MafOutputRendererConstants.FieldName_Reference_Allele,  MafOutputRendererConstants.EmptyAllele);
+                setter.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, MafOutputRendererConstants.EmptyAllele);
+                setter.accept(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(getter.apply(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
             }
             // Check to see if it's a deletion:
             else if ( refAlleleLength > altAlleleLength ) {
@@ -386,15 +460,22 @@ public class MafOutputRenderer extends OutputRenderer {
                 //    Replace the alt_allele with "-"
                 //    Increment the Start_Position by 1 (start position should be inclusive of the first base deleted)
                 //    Increment the End_Position by M-1 where M = length(ref_allele) (end position should be inclusive of the last base deleted)
-                outputMap.put(MafOutputRendererConstants.FieldName_Reference_Allele,  outputMap.get(MafOutputRendererConstants.FieldName_Reference_Allele).substring(altAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, outputMap.get(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1).substring(altAlleleLength));
-                outputMap.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, MafOutputRendererConstants.EmptyAllele);
-                outputMap.put(MafOutputRendererConstants.FieldName_Start_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
-                outputMap.put(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(outputMap.get(MafOutputRendererConstants.FieldName_End_Position)) + refAlleleLength - 1));
+                setter.accept(MafOutputRendererConstants.FieldName_Reference_Allele,  getter.apply(MafOutputRendererConstants.FieldName_Reference_Allele).substring(altAlleleLength));
+                setter.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1, getter.apply(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele1).substring(altAlleleLength));
+                setter.accept(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, MafOutputRendererConstants.EmptyAllele);
+                setter.accept(MafOutputRendererConstants.FieldName_Start_Position, String.valueOf(Integer.valueOf(getter.apply(MafOutputRendererConstants.FieldName_Start_Position)) + 1));
+                setter.accept(MafOutputRendererConstants.FieldName_End_Position, String.valueOf(Integer.valueOf(getter.apply(MafOutputRendererConstants.FieldName_End_Position)) + refAlleleLength - 1));
             }
         }
     }
 
+    /**
+     * @return The given Other_Transcripts {@code value} with the VCF delimiters between transcripts replaced with MAF delimiters.
+     */
+    private static String replaceOtherTranscriptDelimiters(final String value) {
+        return OTHER_TRANSCRIPT_DELIMITER_PATTERN.matcher(value).replaceAll(MafOutputRendererConstants.OTHER_TRANSCRIPT_DELIMITER);
+    }
+
     /**
      * Transforms a given {@code value} to the equivalent MAF-valid value based on the given {@code key}.
      * @param key The {@code key} off of which to base the transformation.  This key is the final (transformed) key for output (i.e. the column name in the MAF file).
@@ -756,6 +837,307 @@ public class MafOutputRenderer extends OutputRenderer {
     //==================================================================================================================
     // Helper Data Types:
 
+    /**
+     * The output column layout of a {@link MafOutputRenderer}, compiled once from the columns of the header.
+     * Renders each row into a reusable array of column values, without building the intermediate maps of
+     * {@link #createMafCompliantOutputMap(Allele, List)}, but with exactly the same rules for choosing, aliasing, and
+     * transforming the values.
+     *
+     * Rows whose fields would add columns other than the extra (non-default) columns of the header are not rendered,
+     * so that they can be written by the general path as before.
+     */
+    private static final class CompiledLayout {
+
+        private final MafOutputRenderer renderer;
+
+        /** Output columns, in order.  The default columns come first, followed by any extra columns. */
+        private final String[] columns;
+
+        /** Default values of the default columns. */
+        private final String[] defaultValues;
+
+        /** Indices of the columns that can be filled from aliased fields, in priority order. */
+        private final int[] aliasedColumns;
+
+        /** Slots of the aliases of each of {@link #aliasedColumns}, in priority order. */
+        private final int[][] aliasSlots;
+
+        /** Slots and values of the override annotations. */
+        private final int[] overrideSlots;
+        private final String[] overrideValues;
+
+        /** Whether each column needs {@link MafOutputRenderer#mafTransform(String, String)}. */
+        private final boolean[] needsTransform;
+
+        private final int otherTranscriptsColumn;
+        private final int variantTypeColumn;
+        private final Map<String, Integer> columnIndices = new HashMap<>();
+        private final Function<String, String> columnGetter;
+        private final BiConsumer<String, String> columnSetter;
+
+        /**
+         * Funcotation field names are mapped to slots, which hold the values of the fields for the current row.
+         * A slot is set (or consumed by an aliased column) in the current row iff its stamp equals {@link #rowStamp}.
+         */
+        private final Map<String, Integer> slotIndices = new HashMap<>();
+        private String[] slotValues = new String[0];
+        private int[] slotSetStamps = new int[0];
+        private int[] slotConsumedStamps = new int[0];
+        private int[] slotColumns = new int[0];
+
+        /** Slots set in the current row, in the order in which they were first set. */
+        private int[] rowSlots = new int[0];
+        private int numRowSlots = 0;
+        private int rowStamp = 0;
+
+        /** Values of the current row, in column order. */
+        final String[] rowValues;
+
+        private CompiledLayout(final MafOutputRenderer renderer,
+                               final List<String> columns,
+                               final LinkedHashMap<String, String> defaultMap,
+                               final Map<String, List<String>> outputFieldNameMap,
+                               final LinkedHashMap<String, String> overrideAnnotations) {
+            this.renderer = renderer;
+            this.columns = columns.toArray(new String[0]);
+            this.defaultValues = defaultMap.values().toArray(new String[0]);
+            this.rowValues = new String[this.columns.length];
+            this.needsTransform = new boolean[this.columns.length];
+
+            for ( int i = 0; i < this.columns.length; ++i ) {
+                columnIndices.put(this.columns[i], i);
+                final int slot = getSlot(this.columns[i]);
+                slotColumns[slot] = i;
+                needsTransform[i] = this.columns[i].equals(MafOutputRendererConstants.FieldName_Variant_Classification) ||
+                        this.columns[i].equals(MafOutputRendererConstants.FieldName_Chromosome) ||
+                        this.columns[i].equals(MafOutputRendererConstants.FieldName_Other_Transcripts);
+            }
+            otherTranscriptsColumn = columnIndices.getOrDefault(MafOutputRendererConstants.FieldName_Other_Transcripts, -1);
+            variantTypeColumn = columnIndices.getOrDefault(MafOutputRendererConstants.FieldName_Variant_Type, -1);
+
+            aliasedColumns = new int[outputFieldNameMap.size()];
+            aliasSlots = new int[outputFieldNameMap.size()][];
+            int i = 0;
+            for ( final Map.Entry<String, List<String>> entry : outputFieldNameMap.entrySet() ) {
+                aliasedColumns[i] = columnIndices.get(entry.getKey());
+                aliasSlots[i] = entry.getValue().stream().mapToInt(this::getSlot).toArray();
+                ++i;
+            }
+
+            overrideSlots = new int[overrideAnnotations.size()];
+            overrideValues = new String[overrideAnnotations.size()];
+            i = 0;
+            for ( final Map.Entry<String, String> entry : overrideAnnotations.entrySet() ) {
+                overrideSlots[i] = getSlot(entry.getKey());
+                overrideValues[i] = entry.getValue();
+                ++i;
+            }
+
+            columnGetter = name -> rowValues[columnIndices.get(name)];
+            columnSetter = (name, value) -> rowValues[columnIndices.get(name)] = value;
+        }
+
+        /**
+         * Compiles the layout for the given header {@code columns}.
+         * @return The compiled layout, or {@code null} if the columns do not start with the default columns (in which
+         * case all rows must be rendered by the general path).
+         */
+        static CompiledLayout compile(final List<String> columns,
+                                      final LinkedHashMap<String, String> defaultMap,
+                                      final Map<String, List<String>> outputFieldNameMap,
+                                      final LinkedHashMap<String, String> overrideAnnotations,
+                                      final MafOutputRenderer renderer) {
+            if ( (columns.size() < defaultMap.size()) ||
+                    !new ArrayList<>(defaultMap.keySet()).equals(columns.subList(0, defaultMap.size())) ||
+                    !defaultMap.keySet().containsAll(outputFieldNameMap.keySet()) ) {
+                return null;
+            }
+            return new CompiledLayout(renderer, columns, defaultMap, outputFieldNameMap, overrideAnnotations);
+        }
+
+        /**
+         * Renders the row for the given {@code altAllele} and {@code funcotations} into {@link #rowValues}.
+         * @return {@code true} if the row was rendered; {@code false} if its fields do not fit this layout.
+         */
+        boolean render(final Allele altAllele, final List<Funcotation> funcotations) {
+            ++rowStamp;
+            numRowSlots = 0;
+
+            // Collect the field values (later values of the same field replace earlier ones), then the overrides:
+            for ( final Funcotation funcotation : funcotations ) {
+                if ( funcotation.getAltAllele().equals(altAllele) ) {
+                    for ( final String field : funcotation.getFieldNames() ) {
+                        final String value = funcotation.getField(field);
+                        setSlot(getSlot(field), value != null ? value : MafOutputRendererConstants.UNKNOWN_VALUE_STRING);
+                    }
+                }
+            }
+            for ( int i = 0; i < overrideSlots.length; ++i ) {
+                setSlot(overrideSlots[i], overrideValues[i]);
+            }
+
+            // Fill the aliased columns with their highest-priority field that has not been used by an earlier column:
+            System.arraycopy(defaultValues, 0, rowValues, 0, defaultValues.length);
+            for ( int i = 0; i < aliasedColumns.length; ++i ) {
+                for ( final int slot : aliasSlots[i] ) {
+                    if ( (slotSetStamps[slot] == rowStamp) && (slotConsumedStamps[slot] != rowStamp) ) {
+                        rowValues[aliasedColumns[i]] = slotValues[slot];
+                        slotConsumedStamps[slot] = rowStamp;
+                        break;
+                    }
+                }
+            }
+
+            // All other fields go into the column of the same name, and must match the extra columns in order:
+            int nextExtraColumn = defaultValues.length;
+            for ( int i = 0; i < numRowSlots; ++i ) {
+                final int slot = rowSlots[i];
+                if ( slotConsumedStamps[slot] == rowStamp ) {
+                    continue;
+                }
+                final int column = slotColumns[slot];
+                if ( column >= defaultValues.length ) {
+                    if ( column != nextExtraColumn ) {
+                        return false;
+                    }
+                    ++nextExtraColumn;
+                }
+                else if ( column < 0 ) {
+                    return false;
+                }
+                rowValues[column] = slotValues[slot];
+            }
+            if ( nextExtraColumn != columns.length ) {
+                return false;
+            }
+
+            // Now make the values MAF compliant:
+            for ( int i = 0; i < columns.length; ++i ) {
+                if ( needsTransform[i] ) {
+                    rowValues[i] = renderer.mafTransform(columns[i], rowValues[i]);
+                }
+            }
+            if ( otherTranscriptsColumn >= 0 ) {
+                rowValues[otherTranscriptsColumn] = replaceOtherTranscriptDelimiters(rowValues[otherTranscriptsColumn]);
+            }
+            if ( variantTypeColumn >= 0 ) {
+                adjustIndelAlleleInformationForMafOutput(columnGetter, columnSetter);
+            }
+            return true;
+        }
+
+        private int getSlot(final String fieldName) {
+            final Integer slot = slotIndices.get(fieldName);
+            if ( slot != null ) {
+                return slot;
+            }
+
+            final int newSlot = slotIndices.size();
+            if ( newSlot == slotValues.length ) {
+                final int capacity = Math.max(16, 2 * slotValues.length);
+                slotValues = Arrays.copyOf(slotValues, capacity);
+                slotSetStamps = Arrays.copyOf(slotSetStamps, capacity);
+                slotConsumedStamps = Arrays.copyOf(slotConsumedStamps, capacity);
+                slotColumns = Arrays.copyOf(slotColumns, capacity);
+                rowSlots = Arrays.copyOf(rowSlots, capacity);
+            }
+            slotColumns[newSlot] = -1;
+            slotIndices.put(fieldName, newSlot);
+            return newSlot;
+        }
+
+        private void setSlot(final int slot, final String value) {
+            if ( slotSetStamps[slot] != rowStamp ) {
+                slotSetStamps[slot] = rowStamp;
+                rowSlots[numRowSlots++] = slot;
+            }
+            slotValues[slot] = value;
+        }
+    }
+
+    /**
+     * An {@link OutputStream} that gzips its output on a background thread.
+     * Output is collected in blocks of a fixed size, and each full block is compressed and written while the next one
+     * is being filled.
+     */
+    private static final class BackgroundCompressingOutputStream extends OutputStream {
+        private final int blockSize;
+        private final GZIPOutputStream gzipOutputStream;
+        private final ExecutorService compressionExecutor;
+        private final AsynchronousStreamWriter<ByteArrayOutputStream> asyncWriter;
+
+        /** Block being filled. */
+        private ByteArrayOutputStream currentBlock;
+
+        /** Block that is being (or was last) compressed, to be reused when it is done. */
+        private ByteArrayOutputStream spareBlock;
+
+        private boolean isClosed = false;
+
+        BackgroundCompressingOutputStream(final OutputStream outputStream, final int blockSize) throws IOException {
+            this.blockSize = blockSize;
+            this.gzipOutputStream = new GZIPOutputStream(new BufferedOutputStream(outputStream, blockSize), blockSize);
+            this.compressionExecutor = Executors.newSingleThreadExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("maf-output-compressor-%d").setDaemon(true).build());
+            this.asyncWriter = new AsynchronousStreamWriter<>(compressionExecutor, gzipOutputStream, block -> block);
+            this.currentBlock = new ByteArrayOutputStream(blockSize);
+            this.spareBlock = new ByteArrayOutputStream(blockSize);
+        }
+
+        @Override
+        public void write(final int b) {
+            currentBlock.write(b);
+            if ( currentBlock.size() >= blockSize ) {
+                startCompressingCurrentBlock();
+            }
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            currentBlock.write(bytes, offset, length);
+            if ( currentBlock.size() >= blockSize ) {
+                startCompressingCurrentBlock();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if ( currentBlock.size() > 0 ) {
+                startCompressingCurrentBlock();
+            }
+            asyncWriter.waitForPreviousBatchCompletion();
+            gzipOutputStream.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if ( isClosed ) {
+                return;
+            }
+            isClosed = true;
+            try {
+                flush();
+                gzipOutputStream.close();
+            }
+            finally {
+                compressionExecutor.shutdownNow();
+            }
+        }
+
+        /**
+         * Hands the current block to the background thread (once it has finished with the previous block) and starts
+         * filling the spare block.
+         */
+        private void startCompressingCurrentBlock() {
+            asyncWriter.waitForPreviousBatchCompletion();
+            final ByteArrayOutputStream fullBlock = currentBlock;
+            asyncWriter.startBatchWrite(Collections.singletonList(fullBlock));
+            spareBlock.reset();
+            currentBlock = spareBlock;
+            spareBlock = fullBlock;
+        }
+    }
+
     //------------------------------------------------------------------------------------------------------------------
     // Columns:
     
@@ -15,6 +15,9 @@ public class BwaArgumentCollection implements Serializable {
     public static final String SINGLE_END_ALIGNMENT_SHORT_NAME = "se";
     public static final String BWA_MEM_INDEX_IMAGE_FULL_NAME = "bwa-mem-index-image";
     public static final String BWA_MEM_INDEX_IMAGE_SHORT_NAME = "image";
+    public static final String WARM_UP_INDEX_IMAGE_FULL_NAME = "warm-up-bwa-mem-index-image";
+    public static final String BWA_THREADS_FULL_NAME = "bwa-threads";
+    public static final String READS_PER_BATCH_FULL_NAME = "bwa-reads-per-batch";
 
     /**
      * The BWA-MEM index image file name that you've distributed to each executor. The image file can be generated using
@@ -35,4 +38,35 @@ public class BwaArgumentCollection implements Serializable {
             shortName = SINGLE_END_ALIGNMENT_SHORT_NAME,
             optional = true)
     public boolean singleEndAlignment = false;
+
+    /**
+     * Load the index image on every executor with a dedicated Spark job before aligning any reads, rather than on
+     * demand by the first alignment task that runs on each executor.
+     */
+    @Argument(doc = "Load the BWA-MEM index image on every executor before aligning",
+            fullName = WARM_UP_INDEX_IMAGE_FULL_NAME,
+            optional = true)
+    public boolean warmUpIndexImage = false;
+
+    /**
+     * Number of threads used by BWA-MEM to align the reads of each Spark task. Executors with many cores can then run
+     * fewer, larger tasks (e.g., set spark.task.cpus to the same value) without leaving cores idle.
+     */
+    @Argument(doc = "Number of threads BWA-MEM uses within each Spark task",
+            fullName = BWA_THREADS_FULL_NAME,
+            minValue = 1,
+            optional = true)
+    public int bwaThreads = 1;
+
+    /**
+     * Number of reads aligned by BWA-MEM in each batch within a partition. With more than one batch per partition,
+     * the conversion of each aligned batch into output reads overlaps with the alignment of the next batch.
+     * Note that BWA-MEM estimates the insert-size distribution for paired-end alignment from each batch, so
+     * batches should be large enough for a reliable estimate. The default, 0, aligns each partition as a single batch.
+     */
+    @Argument(doc = "Number of reads aligned in each batch within a partition (0 means the whole partition)",
+            fullName = READS_PER_BATCH_FULL_NAME,
+            minValue = 0,
+            optional = true)
+    public int readsPerBatch = 0;
 }
@@ -63,7 +63,10 @@ public final class BwaSpark extends GATKSparkTool {
     @Override
     protected void runTool(final JavaSparkContext ctx) {
         try ( final BwaSparkEngine bwaEngine =
-                      new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), bwaArgs.indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary()) ) {
+                      new BwaSparkEngine(ctx, referenceArguments.getReferenceFileName(), bwaArgs.indexImageFile, getHeaderForReads(), getReferenceSequenceDictionary(), bwaArgs.bwaThreads, bwaArgs.readsPerBatch) ) {
+            if (bwaArgs.warmUpIndexImage) {
+                bwaEngine.warmUpIndex();
+            }
             final JavaRDD<GATKRead> reads;
             if (bwaArgs.singleEndAlignment) {
                 reads = bwaEngine.alignUnpaired(getReads());
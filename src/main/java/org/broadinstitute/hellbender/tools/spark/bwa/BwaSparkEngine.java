@@ -4,6 +4,7 @@ import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMRecord;
 import htsjdk.samtools.SAMSequenceDictionary;
 import org.apache.spark.SparkFiles;
+import org.apache.spark.TaskContext;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
@@ -16,6 +17,11 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The BwaSparkEngine provides a simple interface for transforming a JavaRDD<GATKRead> in which the reads are paired
@@ -34,8 +40,12 @@ public final class BwaSparkEngine implements AutoCloseable {
     private final String indexFileName;
     private final boolean resolveIndexFileName;
     private final Broadcast<SAMFileHeader> broadcastHeader;
+    private final int nThreads;
+    private final int readsPerBatch;
 
     /**
+     * Creates an engine that aligns each partition in a single batch on a single thread.
+     *
      * @param ctx           the Spark context
      * @param referenceFile the path to the reference file named <i>_prefix_.fa</i>, which is used to find the image file with name <i>_prefix_.fa.img</i>.
      *                      Can be <code>null</code> if the indexFileName is provided.
@@ -46,11 +56,37 @@ public final class BwaSparkEngine implements AutoCloseable {
     public BwaSparkEngine(final JavaSparkContext ctx,
                           final String referenceFile,
                           final String indexFileName,
-                          SAMFileHeader inputHeader,
+                          final SAMFileHeader inputHeader,
                           final SAMSequenceDictionary refDictionary) {
+        this(ctx, referenceFile, indexFileName, inputHeader, refDictionary, 1, 0);
+    }
+
+    /**
+     * @param ctx           the Spark context
+     * @param referenceFile the path to the reference file named <i>_prefix_.fa</i>, which is used to find the image file with name <i>_prefix_.fa.img</i>.
+     *                      Can be <code>null</code> if the indexFileName is provided.
+     * @param indexFileName the index image file name that already exists, or <code>null</code> to have the image file automatically distributed.
+     * @param inputHeader   the SAM file header to use for reads
+     * @param refDictionary the sequence dictionary to use for reads if the SAM file header doesn't have one (or it's empty)
+     * @param nThreads      the number of threads BWA uses to align each batch of reads within a partition.
+     * @param readsPerBatch the number of reads aligned in each batch within a partition, or 0 to align each partition
+     *                      as a single batch. When a partition has several batches, the alignment of a batch overlaps
+     *                      with the conversion of the previous batch into aligned reads.
+     */
+    public BwaSparkEngine(final JavaSparkContext ctx,
+                          final String referenceFile,
+                          final String indexFileName,
+                          SAMFileHeader inputHeader,
+                          final SAMSequenceDictionary refDictionary,
+                          final int nThreads,
+                          final int readsPerBatch) {
         Utils.nonNull(referenceFile);
         Utils.nonNull(inputHeader);
+        Utils.validateArg(nThreads > 0, "the number of threads must be positive");
+        Utils.validateArg(readsPerBatch >= 0, "the number of reads per batch cannot be negative");
         this.ctx = ctx;
+        this.nThreads = nThreads;
+        this.readsPerBatch = readsPerBatch;
         if (indexFileName != null) {
             this.indexFileName = indexFileName;
             this.resolveIndexFileName = false;
@@ -100,8 +136,26 @@ public final class BwaSparkEngine implements AutoCloseable {
         final Broadcast<SAMFileHeader> broadcastHeader = this.broadcastHeader;
         final String indexFileName = this.indexFileName;
         final boolean resolveIndexFileName = this.resolveIndexFileName;
+        final int nThreads = this.nThreads;
+        final int readsPerBatch = this.readsPerBatch;
         return unalignedReads.mapPartitions(itr ->
-                new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, broadcastHeader.value(), pairedAlignment).apply(itr));
+                new ReadAligner(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName, broadcastHeader.value(),
+                                pairedAlignment, nThreads, readsPerBatch).apply(itr));
+    }
+
+    /**
+     * Loads the index image on every executor before any alignment task runs, so that the tasks of the first
+     * alignment stage don't all stall (and compete for memory and disk) loading it.
+     * Optional: the index image is loaded on demand anyway.
+     */
+    public void warmUpIndex() {
+        final String indexFileName = this.indexFileName;
+        final boolean resolveIndexFileName = this.resolveIndexFileName;
+        final int nJobs = ctx.defaultParallelism();
+        final List<Integer> jobList = new ArrayList<>(nJobs);
+        for ( int idx = 0; idx != nJobs; ++idx ) jobList.add(idx);
+        ctx.parallelize(jobList, nJobs).foreach(idx ->
+                BwaMemIndexCache.getInstance(resolveIndexFileName ? SparkFiles.get(indexFileName) : indexFileName));
     }
 
     @Override
@@ -111,55 +165,100 @@ public final class BwaSparkEngine implements AutoCloseable {
     }
 
     private static final class ReadAligner {
-        private final BwaMemIndex bwaMemIndex;
+        private final String indexFileName;
         private final SAMFileHeader readsHeader;
         private final boolean alignsPairs;
+        private final int nThreads;
+        private final int readsPerBatch;
 
         // assumes 128Mb partitions, with reads needing about 100bytes each when BAM compressed
         private static final int READS_PER_PARTITION_GUESS = 1500000;
 
-        ReadAligner( final String indexFileName, final SAMFileHeader readsHeader, final boolean alignsPairs) {
-            this.bwaMemIndex = BwaMemIndexCache.getInstance(indexFileName);
+        ReadAligner( final String indexFileName, final SAMFileHeader readsHeader, final boolean alignsPairs,
+                     final int nThreads, final int readsPerBatch ) {
+            this.indexFileName = indexFileName;
             this.readsHeader = readsHeader;
             this.alignsPairs = alignsPairs;
+            this.nThreads = nThreads;
+            // never split a pair across batches
+            this.readsPerBatch = alignsPairs ? (readsPerBatch + 1) & ~1 : readsPerBatch;
             if ( alignsPairs && readsHeader.getSortOrder() != SAMFileHeader.SortOrder.queryname ) {
                 throw new UserException("Input must be queryname sorted unless you use single-ended alignment mode.");
             }
         }
 
         Iterator<GATKRead> apply( final Iterator<GATKRead> readItr ) {
-            final List<GATKRead> inputReads = new ArrayList<>(READS_PER_PARTITION_GUESS);
-            while ( readItr.hasNext() ) {
-                inputReads.add(readItr.next());
+            final List<GATKRead> firstBatch = nextBatch(readItr);
+            if ( firstBatch.isEmpty() ) {
+                return Collections.emptyIterator();
             }
-            final int nReads = inputReads.size();
+            if ( !readItr.hasNext() ) {
+                // a single batch: nothing to overlap, so just align it on this thread
+                final BwaMemIndex bwaMemIndex = BwaMemIndexCache.acquireInstance(indexFileName);
+                try ( final BwaMemAligner aligner = createAligner(bwaMemIndex) ) {
+                    return convertAlignments(firstBatch, alignBatch(aligner, firstBatch),
+                                             bwaMemIndex.getReferenceContigNames()).iterator();
+                } finally {
+                    BwaMemIndexCache.releaseInstance(bwaMemIndex);
+                }
+            }
+            final PipelinedAlignmentIterator alignedItr = new PipelinedAlignmentIterator(readItr, firstBatch);
+            final TaskContext taskContext = TaskContext.get();
+            if ( taskContext != null ) {
+                // make sure we clean up if the task doesn't consume all the reads (e.g., because of a failure downstream)
+                taskContext.addTaskCompletionListener(context -> alignedItr.finish());
+            }
+            return alignedItr;
+        }
+
+        /** Pulls the next batch of reads from the input, validating read pairs along the way. */
+        private List<GATKRead> nextBatch( final Iterator<GATKRead> readItr ) {
+            final List<GATKRead> batch =
+                    new ArrayList<>(readsPerBatch > 0 ? readsPerBatch : READS_PER_PARTITION_GUESS);
+            while ( readItr.hasNext() && (readsPerBatch <= 0 || batch.size() < readsPerBatch) ) {
+                batch.add(readItr.next());
+            }
+            final int nReads = batch.size();
             if ( alignsPairs ) {
                 if ( (nReads & 1) != 0 ) {
                     throw new GATKException("We're supposed to be aligning paired reads, but there are an odd number of them.");
                 }
                 for ( int idx = 0; idx != nReads; idx += 2 ) {
-                    final String readName1 = inputReads.get(idx).getName();
-                    final String readName2 = inputReads.get(idx+1).getName();
+                    final String readName1 = batch.get(idx).getName();
+                    final String readName2 = batch.get(idx+1).getName();
                     if ( !Objects.equals(readName1,readName2) ) {
                         throw new GATKException("Read pair has varying template name: "+readName1+" .vs "+readName2);
                     }
                 }
             }
-            final List<List<BwaMemAlignment>> allAlignments;
-            if ( nReads == 0 ) allAlignments = Collections.emptyList();
-            else {
-                final List<byte[]> seqs = new ArrayList<>(nReads);
-                for (final GATKRead read : inputReads) {
-                    seqs.add(read.getBases());
-                }
-                final BwaMemAligner aligner = new BwaMemAligner(bwaMemIndex);
-                // we are dealing with interleaved, paired reads.  tell BWA that they're paired.
-                if (alignsPairs) {
-                    aligner.alignPairs();
-                }
-                allAlignments = aligner.alignSeqs(seqs);
+            return batch;
+        }
+
+        private BwaMemAligner createAligner( final BwaMemIndex bwaMemIndex ) {
+            final BwaMemAligner aligner = new BwaMemAligner(bwaMemIndex);
+            // we are dealing with interleaved, paired reads.  tell BWA that they're paired.
+            if (alignsPairs) {
+                aligner.alignPairs();
+            }
+            aligner.setNThreadsOption(nThreads);
+            return aligner;
+        }
+
+        private List<List<BwaMemAlignment>> alignBatch( final BwaMemAligner aligner, final List<GATKRead> batch ) {
+            final List<byte[]> seqs = new ArrayList<>(batch.size());
+            for (final GATKRead read : batch) {
+                seqs.add(read.getBases());
             }
-            final List<String> refNames = bwaMemIndex.getReferenceContigNames();
+            final long startNanos = System.nanoTime();
+            final List<List<BwaMemAlignment>> alignments = aligner.alignSeqs(seqs);
+            BwaMemIndexCache.recordAlignment(indexFileName, seqs.size(), System.nanoTime() - startNanos);
+            return alignments;
+        }
+
+        private List<GATKRead> convertAlignments( final List<GATKRead> inputReads,
+                                                  final List<List<BwaMemAlignment>> allAlignments,
+                                                  final List<String> refNames ) {
+            final int nReads = inputReads.size();
             final List<GATKRead> outputReads = new ArrayList<>(allAlignments.stream().mapToInt(List::size).sum());
             for ( int idx = 0; idx != nReads; ++idx ) {
                 final GATKRead originalRead = inputReads.get(idx);
@@ -179,7 +278,120 @@ public final class BwaSparkEngine implements AutoCloseable {
                     outputReads.add(rec);
                 }
             }
-            return outputReads.iterator();
+            return outputReads;
+        }
+
+        /**
+         * Aligns a partition batch by batch: while the reads of one batch are being converted and handed downstream
+         * on the task thread, the next batch is being aligned by BWA on a background thread.
+         * The input iterator is only ever accessed from the task thread.
+         */
+        private final class PipelinedAlignmentIterator implements Iterator<GATKRead> {
+            private final Iterator<GATKRead> readItr;
+            private final BwaMemIndex bwaMemIndex;
+            private final BwaMemAligner aligner;
+            private final ExecutorService alignmentExecutor;
+            private List<GATKRead> pendingBatch;
+            private Future<List<List<BwaMemAlignment>>> pendingAlignments;
+            private Iterator<GATKRead> currentItr = Collections.emptyIterator();
+            private boolean finished;
+
+            PipelinedAlignmentIterator( final Iterator<GATKRead> readItr, final List<GATKRead> firstBatch ) {
+                this.readItr = readItr;
+                this.bwaMemIndex = BwaMemIndexCache.acquireInstance(indexFileName);
+                BwaMemAligner newAligner = null;
+                ExecutorService newExecutor = null;
+                try {
+                    newAligner = createAligner(bwaMemIndex);
+                    newExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                        final Thread thread = new Thread(runnable, "bwa-alignment");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    this.aligner = newAligner;
+                    this.alignmentExecutor = newExecutor;
+                    submit(firstBatch);
+                } catch ( final RuntimeException | Error e ) {
+                    // finish() won't ever be called, so give back what we got so far
+                    if ( newExecutor != null ) {
+                        newExecutor.shutdownNow();
+                    }
+                    if ( newAligner != null ) {
+                        newAligner.close();
+                    }
+                    BwaMemIndexCache.releaseInstance(bwaMemIndex);
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                while ( !currentItr.hasNext() ) {
+                    if ( pendingBatch == null ) {
+                        finish();
+                        return false;
+                    }
+                    final List<GATKRead> batch = pendingBatch;
+                    final List<List<BwaMemAlignment>> alignments;
+                    try {
+                        alignments = pendingAlignments.get();
+                    } catch ( final InterruptedException e ) {
+                        Thread.currentThread().interrupt();
+                        throw new GATKException("Interrupted while waiting for BWA alignments", e);
+                    } catch ( final ExecutionException e ) {
+                        throw new GATKException("BWA alignment failed", e.getCause());
+                    }
+                    // get the next batch going before converting this one
+                    pendingBatch = null;
+                    pendingAlignments = null;
+                    if ( readItr.hasNext() ) {
+                        submit(nextBatch(readItr));
+                    }
+                    currentItr = convertAlignments(batch, alignments, bwaMemIndex.getReferenceContigNames()).iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public GATKRead next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException("no more aligned reads");
+                }
+                return currentItr.next();
+            }
+
+            private void submit( final List<GATKRead> batch ) {
+                pendingBatch = batch;
+                pendingAlignments = alignmentExecutor.submit(() -> alignBatch(aligner, batch));
+            }
+
+            /**
+             * Stops the background thread and gives back the index. Safe to call more than once.
+             * This may be called from the task-completion listener of a killed task, on a thread that has already been
+             * interrupted, so the aligner and index are closed by the alignment thread itself, as its last task: that
+             * way they are never freed while an alignment is still running in native code.
+             */
+            synchronized void finish() {
+                if ( finished ) {
+                    return;
+                }
+                finished = true;
+                if ( pendingAlignments != null ) {
+                    // nobody is going to look at these, so don't start them if they haven't been started
+                    pendingAlignments.cancel(false);
+                }
+                alignmentExecutor.execute(() -> {
+                    aligner.close();
+                    BwaMemIndexCache.releaseInstance(bwaMemIndex);
+                });
+                alignmentExecutor.shutdown();
+                try {
+                    alignmentExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+                } catch ( final InterruptedException e ) {
+                    // the alignment thread still closes everything once it's done
+                    Thread.currentThread().interrupt();
+                }
+            }
         }
     }
 }
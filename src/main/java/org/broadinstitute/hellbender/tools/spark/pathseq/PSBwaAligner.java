@@ -19,12 +19,10 @@ import java.util.List;
  */
 public final class PSBwaAligner {
 
-    private final BwaMemIndex bwaIndex;
     private final PSBwaArgumentCollection bwaArgs;
     private final boolean pairedAlignment;
 
     public PSBwaAligner(final PSBwaArgumentCollection bwaArgs, final boolean pairedAlignment) {
-        this.bwaIndex = BwaMemIndexCache.getInstance(bwaArgs.bwaImage);
         this.bwaArgs = bwaArgs;
         this.pairedAlignment = pairedAlignment;
     }
@@ -56,17 +54,6 @@ public final class PSBwaAligner {
     }
 
     public Iterator<GATKRead> apply(final Iterator<GATKRead> itr, final SAMFileHeader header) {
-        //Create aligner and set options
-        final BwaMemAligner aligner = new BwaMemAligner(bwaIndex);
-        if (pairedAlignment) {
-            aligner.alignPairs();
-        }
-        aligner.setMaxXAHitsAltOption(bwaArgs.maxAlternateHits);
-        aligner.setMaxXAHitsOption(bwaArgs.maxAlternateHits);
-        aligner.setMinSeedLengthOption(bwaArgs.seedLength);
-        aligner.setOutputScoreThresholdOption(bwaArgs.scoreThreshold);
-        aligner.setNThreadsOption(bwaArgs.bwaThreads);
-
         //Get list of reads on the partition
         final List<GATKRead> reads = new ArrayList<>();
         while (itr.hasNext()) {
@@ -81,11 +68,29 @@ public final class PSBwaAligner {
             return new ArrayList<GATKRead>(0).iterator();
         }
 
-        //Align read sequences
-        final List<String> refNames = bwaIndex.getReferenceContigNames();
-        final List<List<BwaMemAlignment>> alignments = aligner.alignSeqs(reads, GATKRead::getBases);
-        for (int i = 0; i < reads.size(); i++) {
-            reads.set(i, applyAlignments(reads.get(i), alignments.get(i), refNames, header));
+        final BwaMemIndex bwaIndex = BwaMemIndexCache.acquireInstance(bwaArgs.bwaImage);
+        try {
+            //Create aligner and set options
+            final BwaMemAligner aligner = new BwaMemAligner(bwaIndex);
+            if (pairedAlignment) {
+                aligner.alignPairs();
+            }
+            aligner.setMaxXAHitsAltOption(bwaArgs.maxAlternateHits);
+            aligner.setMaxXAHitsOption(bwaArgs.maxAlternateHits);
+            aligner.setMinSeedLengthOption(bwaArgs.seedLength);
+            aligner.setOutputScoreThresholdOption(bwaArgs.scoreThreshold);
+            aligner.setNThreadsOption(bwaArgs.bwaThreads);
+
+            //Align read sequences
+            final List<String> refNames = bwaIndex.getReferenceContigNames();
+            final long startNanos = System.nanoTime();
+            final List<List<BwaMemAlignment>> alignments = aligner.alignSeqs(reads, GATKRead::getBases);
+            BwaMemIndexCache.recordAlignment(bwaArgs.bwaImage, numReads, System.nanoTime() - startNanos);
+            for (int i = 0; i < reads.size(); i++) {
+                reads.set(i, applyAlignments(reads.get(i), alignments.get(i), refNames, header));
+            }
+        } finally {
+            BwaMemIndexCache.releaseInstance(bwaIndex);
         }
         return reads.iterator();
     }
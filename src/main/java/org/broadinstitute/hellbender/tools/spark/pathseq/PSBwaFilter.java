@@ -19,14 +19,14 @@ import java.util.List;
  */
 public class PSBwaFilter {
 
-    private final BwaMemIndex bwaIndex;
+    private final String indexFileName;
     private final int minIdent;
     private final int minSeedLength, numThreads;
     private final boolean bPaired;
 
     public PSBwaFilter(final String indexFileName, final int minIdent,
                        final int minSeedLength, final int numThreads, final boolean bPaired) {
-        this.bwaIndex = BwaMemIndexCache.getInstance(indexFileName);
+        this.indexFileName = indexFileName;
         this.minIdent = minIdent;
         this.minSeedLength = minSeedLength;
         this.numThreads = numThreads;
@@ -35,17 +35,6 @@ public class PSBwaFilter {
 
     public Iterator<GATKRead> apply(final Iterator<GATKRead> itr) {
 
-        //Initialize aligner
-        final BwaMemAligner aligner = new BwaMemAligner(bwaIndex);
-        if (bPaired) {
-            aligner.alignPairs();
-        }
-        aligner.setMaxXAHitsAltOption(0);
-        aligner.setMaxXAHitsOption(0);
-        aligner.setMinSeedLengthOption(minSeedLength);
-        aligner.setOutputScoreThresholdOption(0);
-        aligner.setNThreadsOption(numThreads);
-
         //Collect reads
         final List<GATKRead> reads = new ArrayList<>();
         while (itr.hasNext()) {
@@ -61,7 +50,26 @@ public class PSBwaFilter {
         }
 
         //Do alignment
-        final List<List<BwaMemAlignment>> alignments = aligner.alignSeqs(reads, GATKRead::getBases);
+        final List<List<BwaMemAlignment>> alignments;
+        final BwaMemIndex bwaIndex = BwaMemIndexCache.acquireInstance(indexFileName);
+        try {
+            //Initialize aligner
+            final BwaMemAligner aligner = new BwaMemAligner(bwaIndex);
+            if (bPaired) {
+                aligner.alignPairs();
+            }
+            aligner.setMaxXAHitsAltOption(0);
+            aligner.setMaxXAHitsOption(0);
+            aligner.setMinSeedLengthOption(minSeedLength);
+            aligner.setOutputScoreThresholdOption(0);
+            aligner.setNThreadsOption(numThreads);
+
+            final long startNanos = System.nanoTime();
+            alignments = aligner.alignSeqs(reads, GATKRead::getBases);
+            BwaMemIndexCache.recordAlignment(indexFileName, numReads, System.nanoTime() - startNanos);
+        } finally {
+            BwaMemIndexCache.releaseInstance(bwaIndex);
+        }
 
         //Filter reads if they map sufficiently well to the reference
         final HostAlignmentReadFilter hostFilter = new HostAlignmentReadFilter(minIdent);
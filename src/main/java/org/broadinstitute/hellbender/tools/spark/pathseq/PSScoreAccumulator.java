@@ -0,0 +1,256 @@
+package org.broadinstitute.hellbender.tools.spark.pathseq;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Accumulates the taxonomic abundance scores of a stream of alignment hits, as computed by
+ * {@link PSScorer#computeTaxScores}, into primitive arrays indexed by the dense taxon ordinals of a {@link PSTree}
+ * (see {@link PSTree#getSortedNodeIds()}). Tree traversals are done on primitive parent/depth arrays, so no
+ * per-hit collections are created.
+ * <p>
+ * The accumulated scores are extracted as {@link PartialScores}, a compact sparse representation that only
+ * contains the taxa that were hit, which can be merged with the partial scores of other partitions.
+ */
+public final class PSScoreAccumulator {
+
+    private static final int SELF_SCORE = 0;
+    private static final int DESCENDENT_SCORE = 1;
+    private static final int TOTAL_READS = 2;
+    private static final int UNAMBIGUOUS_READS = 3;
+    private static final int NUM_FIELDS = 4;
+    private static final int NO_PARENT = -1;
+
+    private final boolean divideByGenomeLength;
+    private final int[] taxIds; //Ordinal -> tax ID, in ascending order
+    private final int[] parents; //Ordinal -> parent ordinal
+    private final int[] depths; //Ordinal -> distance to the root
+    private final long[] lengths; //Ordinal -> reference length
+    private final double[] scores; //Ordinal * NUM_FIELDS + field -> value
+    private final boolean[] touched; //Ordinal -> whether the taxon has a score
+    private final int[] visitStamps; //Ordinal -> last stamp with which the taxon was visited
+    private int currentStamp = 0;
+    private int[] hitOrdinals = new int[16];
+    private final Set<Integer> invalidIds = new HashSet<>();
+
+    public PSScoreAccumulator(final PSTree tree, final boolean divideByGenomeLength) {
+        Utils.nonNull(tree, "Tree cannot be null");
+        this.divideByGenomeLength = divideByGenomeLength;
+        taxIds = tree.getSortedNodeIds();
+        final int numNodes = taxIds.length;
+        parents = new int[numNodes];
+        lengths = new long[numNodes];
+        for (int ordinal = 0; ordinal < numNodes; ordinal++) {
+            final int parent = tree.getParentOf(taxIds[ordinal]);
+            parents[ordinal] = parent == PSTree.NULL_NODE ? NO_PARENT : Arrays.binarySearch(taxIds, parent);
+            if (parents[ordinal] < 0) parents[ordinal] = NO_PARENT;
+            lengths[ordinal] = tree.getLengthOf(taxIds[ordinal]);
+        }
+        depths = new int[numNodes];
+        Arrays.fill(depths, -1);
+        for (int ordinal = 0; ordinal < numNodes; ordinal++) {
+            computeDepth(ordinal);
+        }
+        scores = new double[numNodes * NUM_FIELDS];
+        touched = new boolean[numNodes];
+        visitStamps = new int[numNodes];
+    }
+
+    /**
+     * Adds the scores of an alignment hit. Hits to taxa that are not in the tree or have a reference length of 0 are
+     * ignored and can be retrieved with {@link #getInvalidTaxIds()}.
+     */
+    public void add(final PSPathogenAlignmentHit hit) {
+        Utils.nonNull(hit, "Hit cannot be null");
+
+        //Unique, valid hits
+        int stamp = nextStamp();
+        int numHits = 0;
+        for (final int taxId : hit.taxIDs) {
+            final int ordinal = Arrays.binarySearch(taxIds, taxId);
+            if (ordinal < 0 || lengths[ordinal] == 0) {
+                invalidIds.add(taxId);
+            } else if (visitStamps[ordinal] != stamp) {
+                visitStamps[ordinal] = stamp;
+                if (numHits == hitOrdinals.length) {
+                    hitOrdinals = Arrays.copyOf(hitOrdinals, 2 * numHits);
+                }
+                hitOrdinals[numHits++] = ordinal;
+            }
+        }
+        if (numHits == 0) return;
+
+        //Unambiguous read scores for the lowest common ancestor and its ancestors
+        int lowestCommonAncestor = hitOrdinals[0];
+        for (int i = 1; i < numHits; i++) {
+            lowestCommonAncestor = getLCA(lowestCommonAncestor, hitOrdinals[i]);
+        }
+        for (int ordinal = lowestCommonAncestor; ordinal != NO_PARENT; ordinal = parents[ordinal]) {
+            scores[ordinal * NUM_FIELDS + UNAMBIGUOUS_READS] += hit.numMates;
+            touched[ordinal] = true;
+        }
+
+        //Scores normalized by genome length and degree of ambiguity (number of hits), and the "reads" score of each
+        //unique hit and ancestor
+        stamp = nextStamp();
+        for (int i = 0; i < numHits; i++) {
+            final int hitOrdinal = hitOrdinals[i];
+            double score = hit.numMates / (double) numHits;
+            if (divideByGenomeLength) score *= PSScorer.SCORE_GENOME_LENGTH_UNITS / lengths[hitOrdinal];
+            scores[hitOrdinal * NUM_FIELDS + SELF_SCORE] += score;
+            for (int ordinal = parents[hitOrdinal]; ordinal != NO_PARENT; ordinal = parents[ordinal]) {
+                scores[ordinal * NUM_FIELDS + DESCENDENT_SCORE] += score;
+            }
+            for (int ordinal = hitOrdinal; ordinal != NO_PARENT && visitStamps[ordinal] != stamp; ordinal = parents[ordinal]) {
+                visitStamps[ordinal] = stamp;
+                scores[ordinal * NUM_FIELDS + TOTAL_READS] += hit.numMates;
+                touched[ordinal] = true;
+            }
+        }
+    }
+
+    /**
+     * Returns the tax IDs of hits that were ignored because they were not in the tree or had a reference length of 0.
+     */
+    public Set<Integer> getInvalidTaxIds() {
+        return Collections.unmodifiableSet(invalidIds);
+    }
+
+    /**
+     * Returns the scores accumulated so far, for the taxa that have a score only.
+     */
+    public PartialScores getPartialScores() {
+        int numTouched = 0;
+        for (final boolean isTouched : touched) {
+            if (isTouched) numTouched++;
+        }
+        final int[] partialTaxIds = new int[numTouched];
+        final double[] partialValues = new double[numTouched * NUM_FIELDS];
+        int index = 0;
+        for (int ordinal = 0; ordinal < taxIds.length; ordinal++) {
+            if (touched[ordinal]) {
+                partialTaxIds[index] = taxIds[ordinal];
+                System.arraycopy(scores, ordinal * NUM_FIELDS, partialValues, index * NUM_FIELDS, NUM_FIELDS);
+                index++;
+            }
+        }
+        return new PartialScores(partialTaxIds, partialValues);
+    }
+
+    private int getLCA(int a, int b) {
+        while (depths[a] > depths[b]) a = parents[a];
+        while (depths[b] > depths[a]) b = parents[b];
+        while (a != b) {
+            a = parents[a];
+            b = parents[b];
+            if (a == NO_PARENT || b == NO_PARENT) {
+                //This should never happen if the tree structure has been checked
+                throw new GATKException.ShouldNeverReachHereException("Could not find common ancester of node set.");
+            }
+        }
+        return a;
+    }
+
+    private int computeDepth(final int ordinal) {
+        //Walk up to the first node with a known depth, then fill in the depths on the way back
+        int top = ordinal;
+        int steps = 0;
+        while (depths[top] < 0 && parents[top] != NO_PARENT) {
+            top = parents[top];
+            if (++steps > taxIds.length) {
+                throw new GATKException("The tree contains a cycle at node " + taxIds[ordinal]);
+            }
+        }
+        if (depths[top] < 0) depths[top] = 0;
+        int depth = depths[top] + steps;
+        for (int node = ordinal; node != top; node = parents[node]) {
+            depths[node] = depth--;
+        }
+        return depths[ordinal];
+    }
+
+    private int nextStamp() {
+        if (++currentStamp == Integer.MAX_VALUE) {
+            Arrays.fill(visitStamps, 0);
+            currentStamp = 1;
+        }
+        return currentStamp;
+    }
+
+    /**
+     * Sparse taxonomic scores: the tax IDs that have a score, in ascending order, and their score fields.
+     * This is what gets shipped between partitions, so it is kept as two flat arrays.
+     */
+    public static final class PartialScores implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final int[] taxIds;
+        private final double[] values;
+
+        public PartialScores() {
+            this(new int[0], new double[0]);
+        }
+
+        private PartialScores(final int[] taxIds, final double[] values) {
+            this.taxIds = taxIds;
+            this.values = values;
+        }
+
+        public int size() {
+            return taxIds.length;
+        }
+
+        /**
+         * Returns the sum of these and other partial scores.
+         */
+        public PartialScores merge(final PartialScores other) {
+            Utils.nonNull(other, "Cannot merge partial scores with null");
+            if (other.taxIds.length == 0) return this;
+            if (taxIds.length == 0) return other;
+            final int[] mergedTaxIds = new int[taxIds.length + other.taxIds.length];
+            final double[] mergedValues = new double[mergedTaxIds.length * NUM_FIELDS];
+            int i = 0, j = 0, k = 0;
+            while (i < taxIds.length || j < other.taxIds.length) {
+                final int taxIdA = i < taxIds.length ? taxIds[i] : Integer.MAX_VALUE;
+                final int taxIdB = j < other.taxIds.length ? other.taxIds[j] : Integer.MAX_VALUE;
+                if (i < taxIds.length && (j == other.taxIds.length || taxIdA <= taxIdB)) {
+                    mergedTaxIds[k] = taxIdA;
+                    System.arraycopy(values, i * NUM_FIELDS, mergedValues, k * NUM_FIELDS, NUM_FIELDS);
+                    i++;
+                    if (j < other.taxIds.length && taxIdA == taxIdB) {
+                        for (int field = 0; field < NUM_FIELDS; field++) {
+                            mergedValues[k * NUM_FIELDS + field] += other.values[j * NUM_FIELDS + field];
+                        }
+                        j++;
+                    }
+                } else {
+                    mergedTaxIds[k] = taxIdB;
+                    System.arraycopy(other.values, j * NUM_FIELDS, mergedValues, k * NUM_FIELDS, NUM_FIELDS);
+                    j++;
+                }
+                k++;
+            }
+            return new PartialScores(Arrays.copyOf(mergedTaxIds, k), Arrays.copyOf(mergedValues, k * NUM_FIELDS));
+        }
+
+        /**
+         * Converts to a map of tax ID to PSPathogenTaxonScore, taking reference lengths from the tree.
+         */
+        public Map<Integer, PSPathogenTaxonScore> toTaxonScores(final PSTree tree) {
+            Utils.nonNull(tree, "Tree cannot be null");
+            final Map<Integer, PSPathogenTaxonScore> taxonScores = new HashMap<>(taxIds.length * 2);
+            for (int i = 0; i < taxIds.length; i++) {
+                final PSPathogenTaxonScore score = new PSPathogenTaxonScore();
+                score.setReferenceLength(tree.getLengthOf(taxIds[i]));
+                score.addSelfScore(values[i * NUM_FIELDS + SELF_SCORE]);
+                score.addDescendentScore(values[i * NUM_FIELDS + DESCENDENT_SCORE]);
+                score.addTotalReads((int) values[i * NUM_FIELDS + TOTAL_READS]);
+                score.addUnambiguousReads((int) values[i * NUM_FIELDS + UNAMBIGUOUS_READS]);
+                taxonScores.put(taxIds[i], score);
+            }
+            return taxonScores;
+        }
+    }
+}
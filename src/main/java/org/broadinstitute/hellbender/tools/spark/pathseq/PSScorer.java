@@ -5,12 +5,10 @@ import com.esotericsoftware.kryo.io.Input;
 import htsjdk.samtools.*;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.broadcast.Broadcast;
 import org.broadinstitute.hellbender.exceptions.UserException;
-import org.broadinstitute.hellbender.tools.spark.sv.utils.SVUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -64,11 +62,13 @@ public final class PSScorer {
         //Compute taxonomic scores from the alignment hits
         final JavaRDD<PSPathogenAlignmentHit> alignmentHits = readHits.map(Tuple2::_2);
         final boolean divideByGenomeLength = scoreArgs.divideByGenomeLength; //To prevent serialization of PSScorer
-        final JavaPairRDD<Integer, PSPathogenTaxonScore> taxScoresRdd = alignmentHits
-                .mapPartitionsToPair(iter -> computeTaxScores(iter, taxonomyDatabaseBroadcast.value(), divideByGenomeLength));
+        final JavaRDD<PSScoreAccumulator.PartialScores> partialScoresRdd = alignmentHits
+                .mapPartitions(iter -> Collections.singletonList(accumulateTaxScores(iter, taxonomyDatabaseBroadcast.value().tree, divideByGenomeLength)).iterator());
 
-        //Reduce scores by taxon and compute normalized scores
-        Map<Integer, PSPathogenTaxonScore> taxScoresMap = new HashMap<>(taxScoresRdd.reduceByKey(PSPathogenTaxonScore::add).collectAsMap());
+        //Merge the partition scores and compute normalized scores
+        final PSScoreAccumulator.PartialScores partialScores = partialScoresRdd
+                .treeAggregate(new PSScoreAccumulator.PartialScores(), PSScoreAccumulator.PartialScores::merge, PSScoreAccumulator.PartialScores::merge);
+        Map<Integer, PSPathogenTaxonScore> taxScoresMap = partialScores.toTaxonScores(taxDB.tree);
         taxScoresMap = computeNormalizedScores(taxScoresMap, taxDB.tree, scoreArgs.notNormalizedByKingdom);
 
         //Write scores to file
@@ -283,58 +283,26 @@ public final class PSScorer {
     public static Iterator<Tuple2<Integer, PSPathogenTaxonScore>> computeTaxScores(final Iterator<PSPathogenAlignmentHit> taxonHits,
                                                                                   final PSTaxonomyDatabase taxonomyDatabase,
                                                                                   final boolean divideByGenomeLength) {
-        final PSTree tree = taxonomyDatabase.tree;
-        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = new HashMap<>();
-        final Set<Integer> invalidIds = new HashSet<>();
-        while (taxonHits.hasNext()) {
-            final PSPathogenAlignmentHit hit = taxonHits.next();
-            final Set<Integer> hitTaxIds = new HashSet<>(hit.taxIDs);
-            final Set<Integer> hitInvalidTaxIds = new HashSet<>(SVUtils.hashMapCapacity(hitTaxIds.size()));
-            for (final int taxId : hitTaxIds) {
-                if (!tree.hasNode(taxId) || tree.getLengthOf(taxId) == 0) hitInvalidTaxIds.add(taxId);
-            }
-            hitTaxIds.removeAll(hitInvalidTaxIds);
-            invalidIds.addAll(hitInvalidTaxIds);
-
-            //Number of genomes hit by this read and number of mates in the tuple (1 for single, 2 for pair)
-            final int numHits = hitTaxIds.size();
-            if (numHits == 0) continue;
-
-            //Unambiguous read scores for the lowest common ancestor and its ancestors
-            final int lowestCommonAncestor = tree.getLCA(hitTaxIds);
-            final List<Integer> lcaPath = tree.getPathOf(lowestCommonAncestor);
-            for (final int taxId : lcaPath) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addUnambiguousReads(hit.numMates);
-            }
-
-            //Scores normalized by genome length and degree of ambiguity (number of hits)
-            final Set<Integer> hitPathNodes = new HashSet<>(); //Set of all unique hits and ancestors
-            for (final int taxId : hitTaxIds) {
-                double score = hit.numMates / (double) numHits;
-                if (divideByGenomeLength) score *= SCORE_GENOME_LENGTH_UNITS / tree.getLengthOf(taxId);
-                //Get list containing this node and its ancestors
-                final List<Integer> path = tree.getPathOf(taxId);
-                hitPathNodes.addAll(path);
-                for (final int pathTaxId : path) {
-                    final PSPathogenTaxonScore info = getOrAddScoreInfo(pathTaxId, taxIdsToScores, tree);
-                    if (pathTaxId == taxId) {
-                        info.addSelfScore(score);
-                    } else {
-                        info.addDescendentScore(score);
-                    }
-                    taxIdsToScores.put(pathTaxId, info);
-                }
-            }
+        final Map<Integer, PSPathogenTaxonScore> taxIdsToScores = accumulateTaxScores(taxonHits, taxonomyDatabase.tree, divideByGenomeLength)
+                .toTaxonScores(taxonomyDatabase.tree);
+        return taxIdsToScores.entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
+    }
 
-            //"reads" score is the number of reads that COULD belong to each node i.e. an upper-bound
-            for (final int taxId : hitPathNodes) {
-                getOrAddScoreInfo(taxId, taxIdsToScores, tree).addTotalReads(hit.numMates);
-            }
+    /**
+     * Computes abundance scores into a compact partial score vector that can be merged with those of other partitions.
+     * Scores are accumulated in primitive arrays indexed by the tree's node ordinals (see {@link PSScoreAccumulator}).
+     */
+    public static PSScoreAccumulator.PartialScores accumulateTaxScores(final Iterator<PSPathogenAlignmentHit> taxonHits,
+                                                                       final PSTree tree,
+                                                                       final boolean divideByGenomeLength) {
+        final PSScoreAccumulator accumulator = new PSScoreAccumulator(tree, divideByGenomeLength);
+        while (taxonHits.hasNext()) {
+            accumulator.add(taxonHits.next());
         }
-        PSUtils.logItemizedWarning(logger, invalidIds, "The following taxonomic ID hits were ignored because " +
+        PSUtils.logItemizedWarning(logger, accumulator.getInvalidTaxIds(), "The following taxonomic ID hits were ignored because " +
                 "they either could not be found in the tree or had a reference length of 0 (this may happen when " +
                 "the catalog file, taxdump file, and/or pathogen reference are inconsistent)");
-        return taxIdsToScores.entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
+        return accumulator.getPartialScores();
     }
 
     /**
@@ -398,23 +366,6 @@ public final class PSScorer {
         }
     }
 
-    /**
-     * Helper function for handling PSPathogenTaxonScore retrieval from the taxScores map
-     */
-    private static PSPathogenTaxonScore getOrAddScoreInfo(final int taxId,
-                                                          final Map<Integer, PSPathogenTaxonScore> taxScores,
-                                                          final PSTree tree) {
-        final PSPathogenTaxonScore score;
-        if (taxScores.containsKey(taxId)) {
-            score = taxScores.get(taxId);
-        } else {
-            score = new PSPathogenTaxonScore();
-            score.setReferenceLength(tree.getLengthOf(taxId));
-            taxScores.put(taxId, score);
-        }
-        return score;
-    }
-
     /**
      * Reads taxonomy database that has been serialized to a file
      */
@@ -206,6 +206,16 @@ public class PSTree {
         return tree.keySet();
     }
 
+    /**
+     * Returns the node IDs in ascending order. The index of each ID serves as a dense ordinal for the node that is
+     * consistent across equal trees.
+     */
+    public int[] getSortedNodeIds() {
+        final int[] ids = tree.keySet().stream().mapToInt(Integer::intValue).toArray();
+        Arrays.sort(ids);
+        return ids;
+    }
+
     public String getNameOf(final int id) {
         Utils.validateArg(tree.containsKey(id), "Could not get name of node id " + id + " because it does not exist");
         return tree.get(id).getName();
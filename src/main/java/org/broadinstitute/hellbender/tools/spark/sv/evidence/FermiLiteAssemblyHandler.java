@@ -8,6 +8,7 @@ import org.broadinstitute.hellbender.tools.spark.utils.HopscotchMultiMap;
 import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAligner;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemAlignment;
+import org.broadinstitute.hellbender.utils.bwa.BwaMemIndex;
 import org.broadinstitute.hellbender.utils.bwa.BwaMemIndexCache;
 import org.broadinstitute.hellbender.utils.fermi.FermiLiteAssembler;
 import org.broadinstitute.hellbender.utils.fermi.FermiLiteAssembly;
@@ -99,15 +100,20 @@ public final class FermiLiteAssemblyHandler implements FindBreakpointEvidenceSpa
         }
 
         // align the assembled contigs to the genomic reference
-        try ( final BwaMemAligner aligner = new BwaMemAligner(BwaMemIndexCache.getInstance(alignerIndexFile)) ) {
+        final BwaMemIndex alignerIndex = BwaMemIndexCache.acquireInstance(alignerIndexFile);
+        try ( final BwaMemAligner aligner = new BwaMemAligner(alignerIndex) ) {
             aligner.setIntraCtgOptions();
             aligner.setZDropOption(zDropoff);
             final List<byte[]> sequences =
                     assembly.getContigs().stream()
                             .map(Contig::getSequence)
                             .collect(SVUtils.arrayListCollector(assembly.getNContigs()));
+            final long startNanos = System.nanoTime();
             final List<List<BwaMemAlignment>> alignments = aligner.alignSeqs(sequences);
+            BwaMemIndexCache.recordAlignment(alignerIndexFile, sequences.size(), System.nanoTime() - startNanos);
             return new AlignedAssemblyOrExcuse(intervalID, assembly, secondsInAssembly, alignments);
+        } finally {
+            BwaMemIndexCache.releaseInstance(alignerIndex);
         }
     }
 
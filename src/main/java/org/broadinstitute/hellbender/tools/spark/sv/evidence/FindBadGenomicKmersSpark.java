@@ -17,7 +17,6 @@ import org.broadinstitute.hellbender.engine.spark.GATKSparkTool;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.tools.spark.sv.StructuralVariationDiscoveryArgumentCollection;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.*;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchMap;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
 import scala.Tuple2;
@@ -87,6 +86,10 @@ public final class FindBadGenomicKmersSpark extends GATKSparkTool {
     @Argument(doc = "maximum kmer DUST score", fullName = "kmer-max-dust-score")
     private int maxDUSTScore = StructuralVariationDiscoveryArgumentCollection.FindBreakpointEvidenceSparkArgumentCollection.MAX_DUST_SCORE;
 
+    @Argument(doc = "maximum number of distinct kmers per partition to count in memory before spilling to disk",
+            fullName = "max-kmers-in-memory", optional = true, minValue = 1)
+    private int maxKmersInMemory = SpillingKmerCounter.DEFAULT_MAX_KMERS_IN_MEMORY;
+
     @Argument(doc = "additional high copy kmers (mitochondrion, e.g.) fasta file name",
             fullName = "high-copy-fasta", optional = true)
     private String highCopyFastaFilename;
@@ -103,7 +106,8 @@ public final class FindBadGenomicKmersSpark extends GATKSparkTool {
         SAMSequenceDictionary dict = null;
         if ( hdr != null ) dict = hdr.getSequenceDictionary();
         final ReferenceMultiSource referenceMultiSource = getReference();
-        Collection<SVKmer> killList = findBadGenomicKmers(ctx, kSize, maxDUSTScore, referenceMultiSource, dict);
+        Collection<SVKmer> killList = findBadGenomicKmers(ctx, kSize, maxDUSTScore, maxKmersInMemory,
+                                                            referenceMultiSource, dict);
         if ( highCopyFastaFilename != null ) {
             killList = SVUtils.uniquify(killList, processFasta(kSize, maxDUSTScore, highCopyFastaFilename));
         }
@@ -118,6 +122,18 @@ public final class FindBadGenomicKmersSpark extends GATKSparkTool {
                                              final int maxDUSTScore,
                                              final ReferenceMultiSource ref,
                                              final SAMSequenceDictionary readsDict ) {
+        return findBadGenomicKmers(ctx, kSize, maxDUSTScore, SpillingKmerCounter.DEFAULT_MAX_KMERS_IN_MEMORY,
+                                    ref, readsDict);
+    }
+
+    /** Find high copy number kmers in the reference sequence */
+    @VisibleForTesting
+    static List<SVKmer> findBadGenomicKmers( final JavaSparkContext ctx,
+                                             final int kSize,
+                                             final int maxDUSTScore,
+                                             final int maxKmersInMemory,
+                                             final ReferenceMultiSource ref,
+                                             final SAMSequenceDictionary readsDict ) {
         // Generate reference sequence RDD.
         final SAMSequenceDictionary dict = ref.getReferenceSequenceDictionary(readsDict);
         if ( dict == null ) throw new GATKException("No reference dictionary available");
@@ -125,53 +141,58 @@ public final class FindBadGenomicKmersSpark extends GATKSparkTool {
                                                         REF_RECORD_LEN, REF_RECORDS_PER_PARTITION);
 
         // Find the high copy number kmers
-        return collectUbiquitousKmersInReference(kSize, maxDUSTScore, MAX_KMER_FREQ, refRDD);
+        return collectUbiquitousKmersInReference(kSize, maxDUSTScore, MAX_KMER_FREQ, maxKmersInMemory, refRDD);
+    }
+
+    @VisibleForTesting
+    static List<SVKmer> collectUbiquitousKmersInReference(final int kSize,
+                                                          final int maxDUSTScore,
+                                                          final int maxKmerFreq,
+                                                          final JavaRDD<byte[]> refRDD) {
+        return collectUbiquitousKmersInReference(kSize, maxDUSTScore, maxKmerFreq,
+                                                 SpillingKmerCounter.DEFAULT_MAX_KMERS_IN_MEMORY, refRDD);
     }
 
     /**
      * Do a map/reduce on an RDD of genomic sequences:
      * Kmerize, mapping to a pair <kmer,1>, reduce by summing values by key, filter out <kmer,N> where
      * N <= MAX_KMER_FREQ, and collect the high frequency kmers back in the driver.
+     * The counting on each side of the shuffle is done by a SpillingKmerCounter, which holds no more than
+     * maxKmersInMemory distinct kmers in memory.
      */
     @VisibleForTesting
     static List<SVKmer> collectUbiquitousKmersInReference(final int kSize,
                                                           final int maxDUSTScore,
                                                           final int maxKmerFreq,
+                                                          final int maxKmersInMemory,
                                                           final JavaRDD<byte[]> refRDD) {
         Utils.nonNull(refRDD, "reference bases RDD is null");
         Utils.validateArg(kSize > 0, "provided kmer size is non positive");
         Utils.validateArg(maxDUSTScore > 0, "provided DUST filter score is non positive");
         Utils.validateArg(maxKmerFreq > 0, "provided kmer frequency is non positive");
+        Utils.validateArg(maxKmersInMemory > 0, "provided maximum number of kmers in memory is non positive");
 
         final int nPartitions = refRDD.getNumPartitions();
         final int hashSize = 2*REF_RECORDS_PER_PARTITION;
         return refRDD
                 .mapPartitions(seqItr -> {
-                    final HopscotchMap<SVKmer, Integer, KmerAndCount> kmerCounts = new HopscotchMap<>(hashSize);
+                    final SpillingKmerCounter kmerCounts = SpillingKmerCounter.forSparkTask(hashSize, maxKmersInMemory);
                     while ( seqItr.hasNext() ) {
                         final byte[] seq = seqItr.next();
                         SVDUSTFilteredKmerizer.canonicalStream(seq, kSize, maxDUSTScore, new SVKmerLong())
-                                .forEach(kmer -> {
-                                    final KmerAndCount entry = kmerCounts.find(kmer);
-                                    if ( entry == null ) kmerCounts.add(new KmerAndCount((SVKmerLong)kmer));
-                                    else entry.bumpCount();
-                                });
+                                .forEach(kmer -> kmerCounts.add((SVKmerLong)kmer));
                     }
                     return kmerCounts.iterator();
                 })
                 .mapToPair(entry -> new Tuple2<>(entry.getKey(), entry.getValue()))
                 .partitionBy(new HashPartitioner(nPartitions))
                 .mapPartitions(pairItr -> {
-                    final HopscotchMap<SVKmer, Integer, KmerAndCount> kmerCounts = new HopscotchMap<>(hashSize);
+                    final SpillingKmerCounter kmerCounts = SpillingKmerCounter.forSparkTask(hashSize, maxKmersInMemory);
                     while ( pairItr.hasNext() ) {
                         final Tuple2<SVKmer, Integer> pair = pairItr.next();
-                        final SVKmer kmer = pair._1();
-                        final int count = pair._2();
-                        KmerAndCount entry = kmerCounts.find(kmer);
-                        if ( entry == null ) kmerCounts.add(new KmerAndCount((SVKmerLong)kmer, count));
-                        else entry.bumpCount(count);
+                        kmerCounts.add((SVKmerLong)pair._1(), pair._2());
                     }
-                    return kmerCounts.stream()
+                    return Utils.stream(kmerCounts)
                             .filter(kmerAndCount -> kmerAndCount.grabCount() > maxKmerFreq)
                             .map(KmerAndCount::getKey).iterator();
                 })
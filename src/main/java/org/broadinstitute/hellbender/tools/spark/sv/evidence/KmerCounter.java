@@ -4,7 +4,7 @@ import org.broadinstitute.hellbender.tools.spark.sv.utils.KmerAndCount;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmer;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerLong;
 import org.broadinstitute.hellbender.tools.spark.sv.utils.SVKmerizer;
-import org.broadinstitute.hellbender.tools.spark.utils.HopscotchMap;
+import org.broadinstitute.hellbender.tools.spark.sv.utils.SpillingKmerCounter;
 import org.broadinstitute.hellbender.tools.spark.utils.HopscotchUniqueMultiMap;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
@@ -13,30 +13,34 @@ import java.util.Iterator;
 /**
  * Iterates over reads, kmerizing them, and counting up just the kmers that appear in a passed-in set.
  * The counts are returned as a KmerAndCount iterator.
+ * Counts are kept in a SpillingKmerCounter, so at most maxKmersInMemory distinct kmers are held in memory at once.
  */
 public final class KmerCounter {
     private final int kSize;
     private final int kmersPerPartitionGuess;
+    private final int maxKmersInMemory;
     private final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap;
 
     public KmerCounter( final int kSize, final int kmersPerPartitionGuess,
                         final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
+        this(kSize, kmersPerPartitionGuess, SpillingKmerCounter.DEFAULT_MAX_KMERS_IN_MEMORY, kmerMap);
+    }
+
+    public KmerCounter( final int kSize, final int kmersPerPartitionGuess, final int maxKmersInMemory,
+                        final HopscotchUniqueMultiMap<SVKmer, Integer, KmerAndInterval> kmerMap ) {
         this.kSize = kSize;
         this.kmerMap = kmerMap;
         this.kmersPerPartitionGuess = kmersPerPartitionGuess;
+        this.maxKmersInMemory = maxKmersInMemory;
     }
 
     public Iterator<KmerAndCount> apply( final Iterator<GATKRead> readItr ) {
-        final HopscotchMap<SVKmer, Integer, KmerAndCount> counts = new HopscotchMap<>(kmersPerPartitionGuess);
+        final SpillingKmerCounter counts = SpillingKmerCounter.forSparkTask(kmersPerPartitionGuess, maxKmersInMemory);
         while ( readItr.hasNext() ) {
             final GATKRead read = readItr.next();
             SVKmerizer.canonicalStream(read.getBases(), kSize, new SVKmerLong())
                     .forEach(kmer -> {
-                        if ( kmerMap.contains(kmer) ) {
-                            final KmerAndCount kmerAndCount = counts.find(kmer);
-                            if ( kmerAndCount != null ) kmerAndCount.bumpCount();
-                            else counts.add(new KmerAndCount((SVKmerLong)kmer));
-                        }
+                        if ( kmerMap.contains(kmer) ) counts.add((SVKmerLong)kmer);
                     });
         }
         return counts.iterator();
@@ -0,0 +1,401 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.spark.TaskContext;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Counts SVKmerLongs without creating an object per distinct kmer.
+ * <p>
+ * The two longs of each kmer and its int count are kept in parallel primitive arrays that form an open-addressing
+ * (linear probing) hash table.  The table grows until it holds maxKmersInMemory distinct kmers.  When it is full, its
+ * entries are sorted and spilled to a run file on local disk, and the table is cleared.  When the counts are iterated,
+ * the runs are merged, summing the counts of equal kmers, so each kmer is reported exactly once.  (If there are more
+ * than MAX_RUNS_PER_MERGE runs, they're first merged in batches into larger runs to limit the number of open files.)
+ * If nothing was spilled, the counts are iterated straight out of the table.</p>
+ * <p>
+ * The counter can be iterated only once.  Spill files are deleted when the iteration is exhausted or the counter is
+ * closed (and on exit, in any case).</p>
+ */
+public final class SpillingKmerCounter implements AutoCloseable, Iterable<KmerAndCount> {
+    // 6M kmers fill 8M buckets to the maximum load factor, so the table never grows past 8M buckets of 20 bytes
+    // (160MiB).  The last resize holds the 4M-bucket and 8M-bucket arrays at once, so the peak is 240MiB.
+    // That's per task, i.e., per concurrently running executor core.
+    public static final int DEFAULT_MAX_KMERS_IN_MEMORY = 6*1024*1024;
+
+    @VisibleForTesting static final double LOAD_FACTOR = .75;
+    private static final int MIN_CAPACITY = 16;
+    private static final int BYTES_PER_RUN_ENTRY = 2*Long.BYTES + Integer.BYTES;
+    private static final int RUN_BUFFER_SIZE = 64*1024;
+    @VisibleForTesting static final int MAX_RUNS_PER_MERGE = 64;
+
+    private final int maxKmersInMemory;
+    private final File spillDirectory;
+    private final List<File> runFiles = new ArrayList<>();
+
+    // a zero count marks an empty bucket
+    private long[] valsHigh;
+    private long[] valsLow;
+    private int[] counts;
+    private int size;
+    private boolean iterated;
+    private MergingIterator merger;
+
+    /**
+     * @param initialCapacity the number of distinct kmers we expect to see (it's just a guess -- the table will grow)
+     * @param maxKmersInMemory the number of distinct kmers to hold in memory before spilling to disk
+     * @param spillDirectory where to write the spill files, or null for the default temp directory
+     */
+    public SpillingKmerCounter( final int initialCapacity, final int maxKmersInMemory, final File spillDirectory ) {
+        Utils.validateArg(initialCapacity >= 0, "initial capacity is negative: " + initialCapacity);
+        Utils.validateArg(maxKmersInMemory > 0, "maximum number of kmers in memory must be positive: " + maxKmersInMemory);
+        this.maxKmersInMemory = maxKmersInMemory;
+        this.spillDirectory = spillDirectory;
+        allocate(capacityFor(Math.min(initialCapacity, maxKmersInMemory)));
+    }
+
+    public SpillingKmerCounter( final int initialCapacity ) {
+        this(initialCapacity, DEFAULT_MAX_KMERS_IN_MEMORY, null);
+    }
+
+    /**
+     * Returns a counter for use in the current Spark task.  It spills to the executor's local scratch directories
+     * rather than to java.io.tmpdir, and it's closed (deleting any spill files) when the task completes, even if the
+     * task fails or is cancelled before the counts are exhausted.
+     */
+    public static SpillingKmerCounter forSparkTask( final int initialCapacity, final int maxKmersInMemory ) {
+        final SpillingKmerCounter counter =
+                new SpillingKmerCounter(initialCapacity, maxKmersInMemory, SparkUtils.getLocalScratchDirectory());
+        final TaskContext taskContext = TaskContext.get();
+        if ( taskContext != null ) {
+            taskContext.addTaskCompletionListener(context -> counter.close());
+        }
+        return counter;
+    }
+
+    public void add( final SVKmerLong kmer ) { add(kmer.getValHigh(), kmer.getValLow(), 1); }
+
+    public void add( final SVKmerLong kmer, final int count ) { add(kmer.getValHigh(), kmer.getValLow(), count); }
+
+    /** number of distinct kmers currently held in memory */
+    public int sizeInMemory() { return size; }
+
+    /** number of runs spilled to disk so far */
+    public int getNSpills() { return runFiles.size(); }
+
+    /**
+     * Returns the kmers and their total counts.  If there have been spills, the kmers will be in sorted order.
+     * May be called only once.
+     */
+    @Override
+    public Iterator<KmerAndCount> iterator() {
+        if ( iterated ) throw new IllegalStateException("kmer counts may be iterated only once");
+        iterated = true;
+        if ( runFiles.isEmpty() ) return new TableIterator();
+        if ( size > 0 ) spill();
+        valsHigh = valsLow = null;
+        counts = null;
+        // limit the number of files open at once by merging runs in batches, if necessary
+        while ( runFiles.size() > MAX_RUNS_PER_MERGE ) {
+            final List<File> runs = new ArrayList<>(runFiles.subList(0, MAX_RUNS_PER_MERGE));
+            runFiles.subList(0, MAX_RUNS_PER_MERGE).clear();
+            runFiles.add(mergeRuns(runs));
+        }
+        merger = new MergingIterator();
+        return merger;
+    }
+
+    /** Delete any spill files. */
+    @Override
+    public void close() {
+        if ( merger != null ) merger.close();
+        deleteRuns(runFiles);
+        valsHigh = valsLow = null;
+        counts = null;
+        size = 0;
+    }
+
+    private void add( final long valHigh, final long valLow, final int count ) {
+        Utils.validateArg(count > 0, "count must be positive: " + count);
+        if ( iterated ) throw new IllegalStateException("can't add kmers after the counts have been iterated");
+        final int mask = counts.length - 1;
+        int idx = hashToIndex(valHigh, valLow, mask);
+        while ( counts[idx] != 0 ) {
+            if ( valsHigh[idx] == valHigh && valsLow[idx] == valLow ) {
+                counts[idx] += count;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+        valsHigh[idx] = valHigh;
+        valsLow[idx] = valLow;
+        counts[idx] = count;
+        if ( ++size >= maxKmersInMemory ) spill();
+        else if ( size > LOAD_FACTOR * counts.length ) resize();
+    }
+
+    private void resize() {
+        final long[] oldValsHigh = valsHigh;
+        final long[] oldValsLow = valsLow;
+        final int[] oldCounts = counts;
+        allocate(2*oldCounts.length);
+        final int mask = counts.length - 1;
+        for ( int oldIdx = 0; oldIdx != oldCounts.length; ++oldIdx ) {
+            if ( oldCounts[oldIdx] == 0 ) continue;
+            int idx = hashToIndex(oldValsHigh[oldIdx], oldValsLow[oldIdx], mask);
+            while ( counts[idx] != 0 ) idx = (idx + 1) & mask;
+            valsHigh[idx] = oldValsHigh[oldIdx];
+            valsLow[idx] = oldValsLow[oldIdx];
+            counts[idx] = oldCounts[oldIdx];
+        }
+    }
+
+    /** Sort the table's entries, write them to a new run file, and clear the table. */
+    private void spill() {
+        // squeeze the entries to the front of the arrays
+        int nEntries = 0;
+        for ( int idx = 0; idx != counts.length; ++idx ) {
+            if ( counts[idx] == 0 ) continue;
+            valsHigh[nEntries] = valsHigh[idx];
+            valsLow[nEntries] = valsLow[idx];
+            counts[nEntries] = counts[idx];
+            ++nEntries;
+        }
+        sort(0, nEntries);
+
+        final File runFile = IOUtils.createTempFileInDirectory("kmerCounts", ".run", spillDirectory);
+        try ( final DataOutputStream os =
+                      new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), RUN_BUFFER_SIZE)) ) {
+            for ( int idx = 0; idx != nEntries; ++idx ) {
+                os.writeLong(valsHigh[idx]);
+                os.writeLong(valsLow[idx]);
+                os.writeInt(counts[idx]);
+            }
+        } catch ( final IOException ioe ) {
+            throw new GATKException("Unable to spill kmer counts to " + runFile, ioe);
+        }
+        runFiles.add(runFile);
+
+        Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    // quicksort of the first nEntries of the parallel arrays by kmer value (same order as SVKmerLong.compareTo)
+    private void sort( int from, int to ) {
+        while ( to - from > 16 ) {
+            final int mid = (from + to) >>> 1;
+            final long pivotHigh = valsHigh[mid];
+            final long pivotLow = valsLow[mid];
+            int lo = from;
+            int hi = to - 1;
+            while ( lo <= hi ) {
+                while ( compare(valsHigh[lo], valsLow[lo], pivotHigh, pivotLow) < 0 ) ++lo;
+                while ( compare(valsHigh[hi], valsLow[hi], pivotHigh, pivotLow) > 0 ) --hi;
+                if ( lo <= hi ) swap(lo++, hi--);
+            }
+            // recurse on the smaller partition, loop on the larger one
+            if ( hi + 1 - from < to - lo ) {
+                sort(from, hi + 1);
+                from = lo;
+            } else {
+                sort(lo, to);
+                to = hi + 1;
+            }
+        }
+        for ( int idx = from + 1; idx < to; ++idx ) {
+            for ( int idx2 = idx; idx2 > from &&
+                    compare(valsHigh[idx2-1], valsLow[idx2-1], valsHigh[idx2], valsLow[idx2]) > 0; --idx2 ) {
+                swap(idx2 - 1, idx2);
+            }
+        }
+    }
+
+    private void swap( final int idx1, final int idx2 ) {
+        final long tmpHigh = valsHigh[idx1]; valsHigh[idx1] = valsHigh[idx2]; valsHigh[idx2] = tmpHigh;
+        final long tmpLow = valsLow[idx1]; valsLow[idx1] = valsLow[idx2]; valsLow[idx2] = tmpLow;
+        final int tmpCount = counts[idx1]; counts[idx1] = counts[idx2]; counts[idx2] = tmpCount;
+    }
+
+    private static int compare( final long high1, final long low1, final long high2, final long low2 ) {
+        final int result = Long.compare(high1, high2);
+        return result != 0 ? result : Long.compare(low1, low2);
+    }
+
+    private void allocate( final int capacity ) {
+        valsHigh = new long[capacity];
+        valsLow = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    private File mergeRuns( final List<File> runs ) {
+        final File runFile = IOUtils.createTempFileInDirectory("kmerCounts", ".run", spillDirectory);
+        final RunMerger runMerger = new RunMerger(runs);
+        try ( final DataOutputStream os =
+                      new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), RUN_BUFFER_SIZE)) ) {
+            while ( runMerger.advance() ) {
+                os.writeLong(runMerger.valHigh);
+                os.writeLong(runMerger.valLow);
+                os.writeInt(runMerger.getCount());
+            }
+        } catch ( final IOException ioe ) {
+            runMerger.close();
+            throw new GATKException("Unable to merge kmer counts into " + runFile, ioe);
+        }
+        return runFile;
+    }
+
+    private static void deleteRuns( final List<File> runs ) {
+        for ( final File runFile : runs ) {
+            if ( !runFile.delete() && runFile.exists() ) runFile.deleteOnExit();
+        }
+        runs.clear();
+    }
+
+    private static int capacityFor( final int nKmers ) {
+        final long minCapacity = Math.max(MIN_CAPACITY, (long)Math.ceil(nKmers / LOAD_FACTOR) + 1);
+        final long capacity = Long.highestOneBit(minCapacity - 1) << 1;
+        if ( capacity > (1 << 30) ) throw new GATKException("kmer counts table too large: " + nKmers + " kmers");
+        return (int)capacity;
+    }
+
+    private static int hashToIndex( final long valHigh, final long valLow, final int mask ) {
+        final long hash = SVUtils.fnvLong64(SVUtils.fnvLong64(valHigh), valLow);
+        return (int)(hash ^ (hash >>> 32)) & mask;
+    }
+
+    private final class TableIterator implements Iterator<KmerAndCount> {
+        private int idx = advance(0);
+
+        @Override public boolean hasNext() { return idx < counts.length; }
+
+        @Override public KmerAndCount next() {
+            if ( !hasNext() ) throw new NoSuchElementException("kmer counts exhausted");
+            final KmerAndCount result = new KmerAndCount(new SVKmerLong(valsHigh[idx], valsLow[idx]), counts[idx]);
+            idx = advance(idx + 1);
+            return result;
+        }
+
+        private int advance( int nextIdx ) {
+            while ( nextIdx < counts.length && counts[nextIdx] == 0 ) ++nextIdx;
+            return nextIdx;
+        }
+    }
+
+    /** Reads one run file sequentially. */
+    private static final class RunReader {
+        private final DataInputStream is;
+        private long entriesLeft;
+        private long valHigh;
+        private long valLow;
+        private int count;
+
+        RunReader( final File runFile ) {
+            try {
+                is = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile), RUN_BUFFER_SIZE));
+            } catch ( final IOException ioe ) {
+                throw new GATKException("Unable to open kmer counts spill file " + runFile, ioe);
+            }
+            entriesLeft = runFile.length() / BYTES_PER_RUN_ENTRY;
+        }
+
+        /** read the next entry, returning false (and closing the file) if there isn't one */
+        boolean advance() {
+            try {
+                if ( entriesLeft == 0 ) {
+                    is.close();
+                    return false;
+                }
+                entriesLeft -= 1;
+                valHigh = is.readLong();
+                valLow = is.readLong();
+                count = is.readInt();
+                return true;
+            } catch ( final IOException ioe ) {
+                throw new GATKException("Unable to read kmer counts spill file", ioe);
+            }
+        }
+
+        void close() {
+            try {
+                is.close();
+            } catch ( final IOException ioe ) {
+                throw new GATKException("Unable to close kmer counts spill file", ioe);
+            }
+        }
+    }
+
+    /** K-way merge of sorted runs, summing the counts of equal kmers.  Deletes the runs when it's exhausted. */
+    private static final class RunMerger {
+        private final List<File> runs;
+        private final PriorityQueue<RunReader> queue;
+        private long valHigh;
+        private long valLow;
+        private long count;
+
+        RunMerger( final List<File> runs ) {
+            this.runs = runs;
+            queue = new PriorityQueue<>(runs.size(), (r1, r2) -> compare(r1.valHigh, r1.valLow, r2.valHigh, r2.valLow));
+            for ( final File runFile : runs ) {
+                final RunReader reader = new RunReader(runFile);
+                if ( reader.advance() ) queue.add(reader);
+            }
+        }
+
+        /** merge the next kmer, returning false (and deleting the runs) if there isn't one */
+        boolean advance() {
+            RunReader reader = queue.poll();
+            if ( reader == null ) {
+                deleteRuns(runs);
+                return false;
+            }
+            valHigh = reader.valHigh;
+            valLow = reader.valLow;
+            count = 0;
+            while ( true ) {
+                count += reader.count;
+                if ( reader.advance() ) queue.add(reader);
+                reader = queue.peek();
+                if ( reader == null || reader.valHigh != valHigh || reader.valLow != valLow ) break;
+                queue.poll();
+            }
+            return true;
+        }
+
+        int getCount() { return (int)Math.min(count, Integer.MAX_VALUE); }
+
+        void close() {
+            queue.forEach(RunReader::close);
+            queue.clear();
+            deleteRuns(runs);
+        }
+    }
+
+    private final class MergingIterator implements Iterator<KmerAndCount> {
+        private final RunMerger runMerger;
+        private boolean hasNext;
+
+        MergingIterator() {
+            runMerger = new RunMerger(new ArrayList<>(runFiles));
+            runFiles.clear();
+            hasNext = runMerger.advance();
+        }
+
+        @Override public boolean hasNext() { return hasNext; }
+
+        @Override public KmerAndCount next() {
+            if ( !hasNext ) throw new NoSuchElementException("kmer counts exhausted");
+            final KmerAndCount result =
+                    new KmerAndCount(new SVKmerLong(runMerger.valHigh, runMerger.valLow), runMerger.getCount());
+            hasNext = runMerger.advance();
+            return result;
+        }
+
+        void close() { runMerger.close(); }
+    }
+}
@@ -12,7 +12,6 @@ import org.broadinstitute.hellbender.engine.*;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
-import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.recalibration.BaseRecalibrationEngine;
@@ -22,8 +21,6 @@ import org.broadinstitute.hellbender.utils.recalibration.RecalibrationArgumentCo
 import picard.cmdline.programgroups.ReadDataManipulationProgramGroup;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -111,6 +108,8 @@ public final class BaseRecalibrator extends ReadWalker {
      * values of the individual covariates and will change depending on which covariates were specified at runtime. The last
      * three items are the data- that is, number of observations for this combination of covariates, number of reference mismatches,
      * and the raw empirical quality score calculated by phred-scaling the mismatch rate.   Use '/dev/stdout' to print to standard out.
+     * If the file name ends with ".grpb", the table is written in a compact binary form instead, which all tools that read
+     * recalibration tables accept.  Its values are rounded as in the text form, so both forms recalibrate identically.
      */
     @Argument(shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, fullName = StandardArgumentDefinitions.OUTPUT_LONG_NAME, doc = "The output recalibration table file to create", optional = false)
     private File recalTableFile = null;
@@ -210,11 +209,6 @@ public final class BaseRecalibrator extends ReadWalker {
     }
 
     private void generateReport() {
-        try ( PrintStream recalTableStream = new PrintStream(recalTableFile) ) {
-            RecalUtils.outputRecalibrationReport(recalTableStream, recalArgs, quantizationInfo, recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates());
-        }
-        catch (final IOException e) {
-            throw new UserException.CouldNotCreateOutputFile(recalTableFile, e);
-        }
+        RecalUtils.outputRecalibrationReport(recalTableFile, recalArgs, quantizationInfo, recalibrationEngine.getFinalRecalibrationTables(), recalibrationEngine.getCovariates());
     }
 }
\ No newline at end of file
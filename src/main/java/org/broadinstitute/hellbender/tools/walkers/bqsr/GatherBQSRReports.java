@@ -20,6 +20,8 @@ import java.util.List;
 )
 @DocumentedFeature
 public final class GatherBQSRReports extends CommandLineProgram {
+    public static final String READER_THREADS_LONG_NAME = "reader-threads";
+
     @Argument(fullName = StandardArgumentDefinitions.INPUT_LONG_NAME,
             shortName = StandardArgumentDefinitions.INPUT_SHORT_NAME, doc="List of scattered BQSR report files")
     public final List<File> inputReports = new ArrayList<>();
@@ -28,13 +30,19 @@ public final class GatherBQSRReports extends CommandLineProgram {
             shortName = StandardArgumentDefinitions.OUTPUT_SHORT_NAME, doc="File to output the gathered file to")
     public File outputReport;
 
+    /**
+     * The reports are still combined in the order in which they are given, so the gathered report is the same
+     * regardless of the number of threads.
+     */
+    @Argument(fullName = READER_THREADS_LONG_NAME, doc = "Number of threads used to load the input reports", minValue = 1, optional = true)
+    public int readerThreads = 1;
 
     @Override
     protected Object doWork() {
         inputReports.forEach(IOUtil::assertFileIsReadable);
         IOUtil.assertFileIsWritable(outputReport);
 
-        RecalibrationReport.gatherReportsIntoOneFile(inputReports, outputReport);
+        RecalibrationReport.gatherReportsIntoOneFile(inputReports, outputReport, readerThreads);
 
         return 0;
     }
@@ -22,6 +22,8 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
 
     public static final String MAX_MNP_DISTANCE_LONG_NAME = "max-mnp-distance";
     public static final String MAX_MNP_DISTANCE_SHORT_NAME = "mnp-dist";
+    public static final String ACTIVE_REGION_PRESCREEN_MAX_EVIDENCE_LONG_NAME = "active-region-prescreen-max-evidence";
+    public static final String VALIDATE_ACTIVE_REGION_PRESCREEN_LONG_NAME = "validate-active-region-prescreen";
 
     /**
      * You can use this argument to specify that HC should process a single sample out of a multisample BAM file. This
@@ -121,6 +123,30 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
     @Argument(fullName = "just-determine-active-regions", doc = "Just determine ActiveRegions, don't perform assembly or calling", optional = true)
     public boolean justDetermineActiveRegions = false;
 
+    /**
+     * If set to a value >= 0, loci are first screened with a single pass over the pileup that counts the reads
+     * with a mismatching base, a deletion, or an adjacent indel or soft-clip.  Loci with no more than this many such reads
+     * (over all samples) are considered inactive without computing the reference-vs-any genotype likelihoods.
+     *
+     * With a value of 0, loci are only skipped when all of their reads support the reference, in which case the
+     * full computation also reports a single sample as inactive.  Higher values trade sensitivity for speed.
+     * Use --validate-active-region-prescreen to measure how often the screen disagrees with the full computation.
+     */
+    @Advanced
+    @Argument(fullName = ACTIVE_REGION_PRESCREEN_MAX_EVIDENCE_LONG_NAME,
+            doc = "Treat loci with at most this many non-reference reads as inactive without computing likelihoods (disabled if negative)", optional = true)
+    public int activeRegionPrescreenMaxEvidence = -1;
+
+    /**
+     * Compute the full activity probability at the loci screened out by --active-region-prescreen-max-evidence and
+     * report how many of them would have had a non-zero probability.  The full probability is used for the output,
+     * so this mode is only for evaluating the accuracy of the screen.
+     */
+    @Hidden
+    @Argument(fullName = VALIDATE_ACTIVE_REGION_PRESCREEN_LONG_NAME,
+            doc = "Check the loci screened out as inactive against the full activity calculation", optional = true)
+    public boolean validateActiveRegionPrescreen = false;
+
     /**
      * This argument is intended for benchmarking and scalability testing.
      */
@@ -56,7 +56,8 @@ import java.util.stream.Collectors;
  * -Get the appropriate VCF or GVCF writer (depending on our arguments) from {@link #makeVCFWriter}
  * -Write the appropriate VCF header via {@link #writeHeader}
  * -Repeatedly call {@link #isActive} to identify active vs. inactive regions
- * -Repeatedly call {@link #callRegion} to call variants in each region, and add them to your writer
+ * -Repeatedly call {@link #callRegion} to call variants in each region, and add them to your writer (or pass your
+ *  writer to {@link #callRegion(AssemblyRegion, FeatureContext, VariantContextWriter)} to do this directly)
  * -When done, call {@link #shutdown}. Close the writer you got from {@link #makeVCFWriter} yourself.
  */
 public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
@@ -95,6 +96,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
     private SmithWatermanAligner aligner;
 
+    // statistics of the active region pre-screen, see HaplotypeCallerArgumentCollection#activeRegionPrescreenMaxEvidence
+    private long numPrescreenedLoci = 0;
+    private long numPrescreenedLociWithActivity = 0;
+    private double maxPrescreenedActiveProb = 0.0;
+
     public static final byte MIN_TAIL_QUALITY_WITH_ERROR_CORRECTION = 6;
 
     /**
@@ -457,6 +463,29 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             return new ActivityProfileState(ref.getInterval(), 0.0);
         }
 
+        if ( hcArgs.activeRegionPrescreenMaxEvidence >= 0 && ReferenceConfidenceModel.countNonRefEvidence(context.getBasePileup(),
+                ref.getBase(), hcArgs.minBaseQualityScore, hcArgs.activeRegionPrescreenMaxEvidence) <= hcArgs.activeRegionPrescreenMaxEvidence ) {
+            // too little evidence of variation to be worth computing the likelihoods
+            numPrescreenedLoci++;
+            if ( ! hcArgs.validateActiveRegionPrescreen ) {
+                return new ActivityProfileState(ref.getInterval(), 0.0);
+            }
+            final ActivityProfileState state = calculateActivityProfileState(context, ref);
+            if ( state.isActiveProb() > 0.0 ) {
+                numPrescreenedLociWithActivity++;
+                maxPrescreenedActiveProb = Math.max(maxPrescreenedActiveProb, state.isActiveProb());
+            }
+            return state;
+        }
+
+        return calculateActivityProfileState(context, ref);
+    }
+
+    /**
+     * Computes the probability that a locus with a non-empty pileup is active from the reference-vs-any genotype
+     * likelihoods of each sample.
+     */
+    private ActivityProfileState calculateActivityProfileState( final AlignmentContext context, final ReferenceContext ref ) {
         final int ploidy = activeRegionEvaluationGenotyperEngine.getConfiguration().genotypeArgs.samplePloidy;
         final List<Allele> noCall = GATKVariantContextUtils.noCallAlleles(ploidy); // used to noCall all genotypes until the exact model is applied
 
@@ -499,6 +528,33 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      * @return List of variants discovered in the region (may be empty)
      */
     public List<VariantContext> callRegion(final AssemblyRegion region, final FeatureContext features) {
+        return callRegion(region, features, Optional.empty());
+    }
+
+    /**
+     * Generate variant calls for an assembly region, and add them to writer
+     *
+     * If writer is a {@link GVCFWriter}, reference confidence sites are written to it as the values of their
+     * genotypes, without creating a VariantContext for each site.
+     *
+     * @param region region to assemble and perform variant calling on
+     * @param features Features overlapping the assembly region
+     * @param writer the writer to which the variants discovered in the region are added
+     */
+    public void callRegion(final AssemblyRegion region, final FeatureContext features, final VariantContextWriter writer) {
+        Utils.nonNull(writer);
+        final Optional<GVCFWriter> gvcfWriter = writer instanceof GVCFWriter ? Optional.of((GVCFWriter) writer) : Optional.empty();
+        callRegion(region, features, gvcfWriter).forEach(writer::add);
+    }
+
+    /**
+     * Generate variant calls for an assembly region
+     *
+     * @param gvcfWriter if present, the reference confidence (along with the calls among it) is written there directly
+     *                   instead of being included in the result
+     * @return List of variants discovered in the region that still need to be written (may be empty)
+     */
+    private List<VariantContext> callRegion(final AssemblyRegion region, final FeatureContext features, final Optional<GVCFWriter> gvcfWriter) {
         if ( hcArgs.justDetermineActiveRegions ) {
             // we're benchmarking ART and/or the active region determination code in the HC, just leave without doing any work
             return NO_CALLS;
@@ -515,7 +571,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
         if( ! region.isActive() ) {
             // Not active so nothing to do!
-            return referenceModelForNoVariation(region, true, VCpriors);
+            return referenceModelForNoVariation(region, true, VCpriors, gvcfWriter);
         }
 
         final List<VariantContext> givenAlleles = new ArrayList<>();
@@ -524,11 +580,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
 
             // No alleles found in this region so nothing to do!
             if ( givenAlleles.isEmpty() ) {
-                return referenceModelForNoVariation(region, true, VCpriors);
+                return referenceModelForNoVariation(region, true, VCpriors, gvcfWriter);
             }
         } else if( region.size() == 0 ) {
             // No reads here so nothing to do!
-            return referenceModelForNoVariation(region, true, VCpriors);
+            return referenceModelForNoVariation(region, true, VCpriors, gvcfWriter);
         }
 
         // run the local assembler, getting back a collection of information on how we should proceed
@@ -542,7 +598,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         final AssemblyRegionTrimmer.Result trimmingResult = trimmer.trim(region, allVariationEvents);
 
         if ( ! trimmingResult.isVariationPresent() && ! hcArgs.disableOptimizations ) {
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, gvcfWriter);
         }
 
         final AssemblyResultSet assemblyResult =
@@ -561,7 +617,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         // abort early if something is out of the acceptable range
         // TODO is this ever true at this point??? perhaps GGA. Need to check.
         if( ! assemblyResult.isVariationPresent() && ! hcArgs.disableOptimizations ) {
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, gvcfWriter);
         }
 
         // For sure this is not true if gVCF is on.
@@ -572,7 +628,7 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         // TODO is this ever true at this point??? perhaps GGA. Need to check.
         if ( regionForGenotyping.size() == 0 && ! hcArgs.disableOptimizations ) {
             // no reads remain after filtering so nothing else to do!
-            return referenceModelForNoVariation(region, false, VCpriors);
+            return referenceModelForNoVariation(region, false, VCpriors, gvcfWriter);
         }
 
         // evaluate each sample's reads against all haplotypes
@@ -622,22 +678,29 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
         if ( emitReferenceConfidence() ) {
             if ( !containsCalls(calledHaplotypes) ) {
                 // no called all of the potential haplotypes
-                return referenceModelForNoVariation(region, false, VCpriors);
+                return referenceModelForNoVariation(region, false, VCpriors, gvcfWriter);
             }
             else {
                 final List<VariantContext> result = new LinkedList<>();
                 // output left-flanking non-variant section:
                 if (trimmingResult.hasLeftFlankingRegion()) {
-                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantLeftFlankRegion(), false, VCpriors));
+                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantLeftFlankRegion(), false, VCpriors, gvcfWriter));
                 }
                 // output variant containing region.
-                result.addAll(referenceConfidenceModel.calculateRefConfidence(assemblyResult.getReferenceHaplotype(),
-                        calledHaplotypes.getCalledHaplotypes(), assemblyResult.getPaddedReferenceLoc(), regionForGenotyping,
-                        readLikelihoods, genotypingEngine.getPloidyModel(), calledHaplotypes.getCalls(), hcArgs.genotypeArgs.supportVariants != null,
-                        VCpriors));
+                if ( gvcfWriter.isPresent() ) {
+                    referenceConfidenceModel.calculateRefConfidence(assemblyResult.getReferenceHaplotype(),
+                            calledHaplotypes.getCalledHaplotypes(), assemblyResult.getPaddedReferenceLoc(), regionForGenotyping,
+                            readLikelihoods, genotypingEngine.getPloidyModel(), calledHaplotypes.getCalls(), hcArgs.genotypeArgs.supportVariants != null,
+                            VCpriors, gvcfWriter.get());
+                } else {
+                    result.addAll(referenceConfidenceModel.calculateRefConfidence(assemblyResult.getReferenceHaplotype(),
+                            calledHaplotypes.getCalledHaplotypes(), assemblyResult.getPaddedReferenceLoc(), regionForGenotyping,
+                            readLikelihoods, genotypingEngine.getPloidyModel(), calledHaplotypes.getCalls(), hcArgs.genotypeArgs.supportVariants != null,
+                            VCpriors));
+                }
                 // output right-flanking non-variant section:
                 if (trimmingResult.hasRightFlankingRegion()) {
-                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantRightFlankRegion(), false, VCpriors));
+                    result.addAll(referenceModelForNoVariation(trimmingResult.nonVariantRightFlankRegion(), false, VCpriors, gvcfWriter));
                 }
                 return result;
             }
@@ -663,9 +726,11 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      *
      * @param region the region to return a no-variation result
      * @param needsToBeFinalized should the region be finalized before computing the ref model (should be false if already done)
+     * @param gvcfWriter if present, the ref model is written there directly instead of being returned
      * @return a list of variant contexts (can be empty) to emit for this ref region
      */
-    private List<VariantContext> referenceModelForNoVariation(final AssemblyRegion region, final boolean needsToBeFinalized, final List<VariantContext> VCpriors) {
+    private List<VariantContext> referenceModelForNoVariation(final AssemblyRegion region, final boolean needsToBeFinalized, final List<VariantContext> VCpriors,
+                                                              final Optional<GVCFWriter> gvcfWriter) {
         if ( emitReferenceConfidence() ) {
             //TODO - why the activeRegion cannot manage its own one-time finalization and filtering?
             //TODO - perhaps we can remove the last parameter of this method and the three lines bellow?
@@ -677,6 +742,13 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
             final SimpleInterval paddedLoc = region.getExtendedSpan();
             final Haplotype refHaplotype = AssemblyBasedCallerUtils.createReferenceHaplotype(region, paddedLoc, referenceReader);
             final List<Haplotype> haplotypes = Collections.singletonList(refHaplotype);
+            if ( gvcfWriter.isPresent() ) {
+                referenceConfidenceModel.calculateRefConfidence(refHaplotype, haplotypes,
+                        paddedLoc, region, createDummyStratifiedReadMap(refHaplotype, samplesList, region),
+                        genotypingEngine.getPloidyModel(), Collections.emptyList(), hcArgs.genotypeArgs.supportVariants != null, VCpriors,
+                        gvcfWriter.get());
+                return NO_CALLS;
+            }
             return referenceConfidenceModel.calculateRefConfidence(refHaplotype, haplotypes,
                     paddedLoc, region, createDummyStratifiedReadMap(refHaplotype, samplesList, region),
                     genotypingEngine.getPloidyModel(), Collections.emptyList(), hcArgs.genotypeArgs.supportVariants != null, VCpriors);
@@ -704,6 +776,13 @@ public final class HaplotypeCallerEngine implements AssemblyRegionEvaluator {
      * Shutdown this HC engine, closing resources as appropriate
      */
     public void shutdown() {
+        if ( hcArgs.activeRegionPrescreenMaxEvidence >= 0 ) {
+            logger.info(String.format("Active region pre-screen treated %d loci as inactive", numPrescreenedLoci));
+            if ( hcArgs.validateActiveRegionPrescreen ) {
+                logger.info(String.format("Active region pre-screen validation: %d of these loci had a non-zero activity probability (max %.3g)",
+                        numPrescreenedLociWithActivity, maxPrescreenedActiveProb));
+            }
+        }
         likelihoodCalculationEngine.close();
         aligner.close();
         if ( haplotypeBAMWriter.isPresent() ) {
@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import com.google.common.annotations.VisibleForTesting;
+import it.unimi.dsi.fastutil.longs.Long2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.*;
@@ -9,6 +11,9 @@ import java.util.*;
  * generic utility class that counts kmers
  *
  * Basically you add kmers to the counter, and it tells you how many occurrences of each kmer it's seen.
+ *
+ * Kmers added from a byte[] with {@link #addAllKmers} are counted by their packed value (see {@link PackedKmer}) when
+ * possible, and only turned into {@link Kmer}s once per distinct kmer when the counts are queried.
  */
 public final class KMerCounter {
 
@@ -16,6 +21,11 @@ public final class KMerCounter {
      * A map of for each kmer to its num occurrences in addKmers
      */
     private final Map<Kmer, CountedKmer> countsByKMer = new HashMap<>();
+
+    /**
+     * Counts of packed kmers that have not yet been moved into countsByKMer, or null if kmers are too long to be packed
+     */
+    private final Long2IntLinkedOpenHashMap packedCounts;
     private final int kmerLength;
 
     /**
@@ -26,6 +36,7 @@ public final class KMerCounter {
     public KMerCounter(final int kmerLength) {
         Utils.validateArg( kmerLength > 0, () -> "kmerLength must be > 0 but got " + kmerLength);
         this.kmerLength = kmerLength;
+        packedCounts = PackedKmer.canPack(kmerLength) ? new Long2IntLinkedOpenHashMap() : null;
     }
 
     /**
@@ -35,6 +46,7 @@ public final class KMerCounter {
      */
     public int getKmerCount(final Kmer kmer) {
         Utils.nonNull(kmer, "kmer cannot be null");
+        flushPackedCounts();
         final CountedKmer counted = countsByKMer.get(kmer);
         return counted == null ? 0 : counted.count;
     }
@@ -44,6 +56,7 @@ public final class KMerCounter {
      * @return a non-null collection
      */
     public Collection<CountedKmer> getCountedKmers() {
+        flushPackedCounts();
         return countsByKMer.values();
     }
 
@@ -67,6 +80,9 @@ public final class KMerCounter {
      */
     public void clear() {
         countsByKMer.clear();
+        if ( packedCounts != null ) {
+            packedCounts.clear();
+        }
     }
 
     /**
@@ -87,8 +103,44 @@ public final class KMerCounter {
         countFromMap.count += kmerCount;
     }
 
+    /**
+     * Add one occurrence of each kmer in bases, computing packed kmers by a rolling update
+     *
+     * Kmers that cannot be packed are backed by bases, which must therefore not be modified afterwards.
+     *
+     * @param bases a non-null array of bases, which may be shorter than the kmer length
+     */
+    public void addAllKmers(final byte[] bases) {
+        Utils.nonNull(bases, "bases cannot be null");
+        long packed = PackedKmer.NOT_PACKABLE;
+        for ( int offset = 0; offset <= bases.length - kmerLength; offset++ ) {
+            if ( packedCounts != null ) {
+                packed = PackedKmer.roll(packed, bases, offset, kmerLength);
+            }
+            if ( packed == PackedKmer.NOT_PACKABLE ) {
+                addKmer(new Kmer(bases, offset, kmerLength), 1);
+            } else {
+                packedCounts.addTo(packed, 1);
+            }
+        }
+    }
+
+    /**
+     * Move the counts of packed kmers into countsByKMer, so that each distinct kmer has a single CountedKmer
+     */
+    private void flushPackedCounts() {
+        if ( packedCounts == null || packedCounts.isEmpty() ) {
+            return;
+        }
+        for ( final Long2IntMap.Entry entry : packedCounts.long2IntEntrySet() ) {
+            addKmer(new Kmer(PackedKmer.unpack(entry.getLongKey(), kmerLength)), entry.getIntValue());
+        }
+        packedCounts.clear();
+    }
+
     @Override
     public String toString() {
+        flushPackedCounts();
         final StringBuilder b = new StringBuilder("KMerCounter{");
         b.append("counting ").append(countsByKMer.size()).append(" distinct kmers");
         b.append("\n}");
@@ -141,10 +141,11 @@ public final class Kmer {
         int dist = 0;
         if (length == other.length()) {
             final byte[] f2 = other.bases;
+            final int start2 = other.start;
             for (int i=0; i < length; i++) {
-                if (bases[start + i] != f2[i]) {
+                if (bases[start + i] != f2[start2 + i]) {
                     differingIndeces[dist] = i;
-                    differingBases[dist++] = f2[i];
+                    differingBases[dist++] = f2[start2 + i];
                     if (dist > maxDistance) {
                         return -1;
                     }
@@ -0,0 +1,115 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Map from kmers of a fixed length to values, looked up directly from a range of a larger byte[].
+ *
+ * Kmers of up to {@link PackedKmer#MAX_LENGTH} bases are keyed by their packed value in a primitive map, so that
+ * neither lookups nor insertions allocate a {@link Kmer}.  Longer kmers, and kmers with bases that cannot be packed,
+ * are kept in a map of {@link Kmer}s.
+ *
+ * @param <V> the type of the values
+ */
+public final class KmerMap<V> {
+    private final int kmerLength;
+    private final Long2ObjectLinkedOpenHashMap<V> packedMap;
+    private final Map<Kmer, V> kmerMap = new LinkedHashMap<>();
+
+    /**
+     * Create a new empty map
+     * @param kmerLength the length of the kmers in this map, must be >= 1
+     */
+    public KmerMap(final int kmerLength) {
+        Utils.validateArg(kmerLength > 0, () -> "kmerLength must be > 0 but got " + kmerLength);
+        this.kmerLength = kmerLength;
+        packedMap = PackedKmer.canPack(kmerLength) ? new Long2ObjectLinkedOpenHashMap<>() : null;
+    }
+
+    public int getKmerLength() {
+        return kmerLength;
+    }
+
+    /**
+     * Get the value for the kmer spanning start -> start + kmerLength in bases
+     * @return the value, or null if the kmer is not in this map
+     */
+    public V get(final byte[] bases, final int start) {
+        final long packed = pack(bases, start);
+        return packed == PackedKmer.NOT_PACKABLE ? kmerMap.get(new Kmer(bases, start, kmerLength)) : packedMap.get(packed);
+    }
+
+    /**
+     * Get the value for kmer
+     * @return the value, or null if the kmer is not in this map, which is always the case if it has a different length
+     */
+    public V get(final Kmer kmer) {
+        Utils.nonNull(kmer);
+        return kmer.length() == kmerLength ? get(kmer.bases(), 0) : null;
+    }
+
+    public boolean containsKey(final byte[] bases, final int start) {
+        final long packed = pack(bases, start);
+        return packed == PackedKmer.NOT_PACKABLE ? kmerMap.containsKey(new Kmer(bases, start, kmerLength)) : packedMap.containsKey(packed);
+    }
+
+    /**
+     * Associate value with the kmer spanning start -> start + kmerLength in bases
+     *
+     * If the kmer cannot be packed, bases is referenced by the key of the map, so it must not be modified afterwards.
+     *
+     * @return the previous value for the kmer, or null if there was none
+     */
+    public V put(final byte[] bases, final int start, final V value) {
+        final long packed = pack(bases, start);
+        return packed == PackedKmer.NOT_PACKABLE ? kmerMap.put(new Kmer(bases, start, kmerLength), value) : packedMap.put(packed, value);
+    }
+
+    /**
+     * Remove the kmer spanning all of bases, if it is in this map
+     * @return the previous value for the kmer, or null if there was none
+     */
+    public V remove(final byte[] bases) {
+        if (bases.length != kmerLength) {
+            return null;
+        }
+        final long packed = pack(bases, 0);
+        return packed == PackedKmer.NOT_PACKABLE ? kmerMap.remove(new Kmer(bases)) : packedMap.remove(packed);
+    }
+
+    /**
+     * @return the values in this map, in insertion order among kmers that can be packed and among those that cannot be
+     */
+    public Collection<V> values() {
+        if (packedMap == null || kmerMap.isEmpty()) {
+            return packedMap == null ? kmerMap.values() : packedMap.values();
+        }
+        final List<V> values = new ArrayList<>(size());
+        values.addAll(packedMap.values());
+        values.addAll(kmerMap.values());
+        return values;
+    }
+
+    public int size() {
+        return (packedMap == null ? 0 : packedMap.size()) + kmerMap.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        if (packedMap != null) {
+            packedMap.clear();
+        }
+        kmerMap.clear();
+    }
+
+    private long pack(final byte[] bases, final int start) {
+        Utils.validateArg(start >= 0 && start + kmerLength <= bases.length, () -> "kmer at " + start + " does not fit in " + bases.length + " bases");
+        return packedMap == null ? PackedKmer.NOT_PACKABLE : PackedKmer.pack(bases, start, kmerLength);
+    }
+}
@@ -0,0 +1,128 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Set of kmers of a fixed length, looked up directly from a range of a larger byte[].
+ *
+ * Kmers of up to {@link PackedKmer#MAX_LENGTH} bases are stored by their packed value in a primitive set, so that
+ * neither lookups nor insertions allocate a {@link Kmer}.  Longer kmers, and kmers with bases that cannot be packed,
+ * are kept in a set of {@link Kmer}s.
+ */
+public final class KmerSet {
+    private final int kmerLength;
+    private final LongOpenHashSet packedSet;
+    private final Set<Kmer> kmerSet = new HashSet<>();
+
+    /**
+     * Create a new empty set
+     * @param kmerLength the length of the kmers in this set, must be >= 1
+     */
+    public KmerSet(final int kmerLength) {
+        Utils.validateArg(kmerLength > 0, () -> "kmerLength must be > 0 but got " + kmerLength);
+        this.kmerLength = kmerLength;
+        packedSet = PackedKmer.canPack(kmerLength) ? new LongOpenHashSet() : null;
+    }
+
+    public int getKmerLength() {
+        return kmerLength;
+    }
+
+    /**
+     * Add the kmer spanning start -> start + kmerLength in bases
+     *
+     * If the kmer cannot be packed, bases is referenced by this set, so it must not be modified afterwards.
+     *
+     * @return true if the kmer was not already in this set
+     */
+    public boolean add(final byte[] bases, final int start) {
+        return add(pack(bases, start), bases, start);
+    }
+
+    /**
+     * Add all kmers of bases starting between start and stop - kmerLength (inclusive), computing packed kmers by
+     * a rolling update.
+     *
+     * If some kmers cannot be packed, bases is referenced by this set, so it must not be modified afterwards.
+     *
+     * @param repeated if not null, kmers that were already in this set are added to it
+     */
+    public void addAll(final byte[] bases, final int start, final int stop, final KmerSet repeated) {
+        Utils.validateArg(start >= 0 && stop <= bases.length, () -> "range " + start + '-' + stop + " does not fit in " + bases.length + " bases");
+        Utils.validateArg(repeated == null || repeated.kmerLength == kmerLength, "repeated kmers must have the same length");
+        long packed = PackedKmer.NOT_PACKABLE;
+        for (int i = start; i <= stop - kmerLength; i++) {
+            if (packedSet != null) {
+                packed = PackedKmer.roll(packed, bases, i, kmerLength);
+            }
+            if (!add(packed, bases, i) && repeated != null) {
+                repeated.add(packed, bases, i);
+            }
+        }
+    }
+
+    /**
+     * Add all kmers of other to this set
+     */
+    public void addAll(final KmerSet other) {
+        Utils.validateArg(other.kmerLength == kmerLength, "kmers must have the same length");
+        if (packedSet != null) {
+            packedSet.addAll(other.packedSet);
+        }
+        kmerSet.addAll(other.kmerSet);
+    }
+
+    public boolean contains(final byte[] bases, final int start) {
+        final long packed = pack(bases, start);
+        return packed == PackedKmer.NOT_PACKABLE ? kmerSet.contains(new Kmer(bases, start, kmerLength)) : packedSet.contains(packed);
+    }
+
+    /**
+     * @return true if kmer is in this set, which is never the case if it has a different length
+     */
+    public boolean contains(final Kmer kmer) {
+        Utils.nonNull(kmer);
+        return kmer.length() == kmerLength && contains(kmer.bases(), 0);
+    }
+
+    public int size() {
+        return (packedSet == null ? 0 : packedSet.size()) + kmerSet.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        if (packedSet != null) {
+            packedSet.clear();
+        }
+        kmerSet.clear();
+    }
+
+    /**
+     * @return a new set containing a {@link Kmer} for each kmer in this set.  Not intended for performance-critical code
+     */
+    public Set<Kmer> toKmers() {
+        final Set<Kmer> kmers = new LinkedHashSet<>(kmerSet);
+        if (packedSet != null) {
+            for (final LongIterator it = packedSet.iterator(); it.hasNext(); ) {
+                kmers.add(new Kmer(PackedKmer.unpack(it.nextLong(), kmerLength)));
+            }
+        }
+        return kmers;
+    }
+
+    private boolean add(final long packed, final byte[] bases, final int start) {
+        return packed == PackedKmer.NOT_PACKABLE ? kmerSet.add(new Kmer(bases, start, kmerLength)) : packedSet.add(packed);
+    }
+
+    private long pack(final byte[] bases, final int start) {
+        Utils.validateArg(start >= 0 && start + kmerLength <= bases.length, () -> "kmer at " + start + " does not fit in " + bases.length + " bases");
+        return packedSet == null ? PackedKmer.NOT_PACKABLE : PackedKmer.pack(bases, start, kmerLength);
+    }
+}
@@ -0,0 +1,96 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Utilities for packing kmers of up to {@link #MAX_LENGTH} bases into a long, two bits per base.
+ *
+ * Only the upper-case bases A, C, G and T can be packed, so that two kmers have the same packed value if and only if
+ * their {@link Kmer}s are equal.  Kmers containing any other base are reported as {@link #NOT_PACKABLE} and must be
+ * handled through {@link Kmer} instead.
+ */
+public final class PackedKmer {
+    /**
+     * The longest kmer that fits in a long, keeping the sign bit clear so that no kmer packs to {@link #NOT_PACKABLE}
+     */
+    public static final int MAX_LENGTH = 31;
+
+    public static final long NOT_PACKABLE = -1L;
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+    private static final int[] CODES = new int[256];
+    static {
+        Arrays.fill(CODES, -1);
+        for (int i = 0; i < BASES.length; i++) {
+            CODES[BASES[i]] = i;
+        }
+    }
+
+    private PackedKmer() {}
+
+    /**
+     * @return true if kmers of this length fit in a long
+     */
+    public static boolean canPack(final int length) {
+        return length > 0 && length <= MAX_LENGTH;
+    }
+
+    /**
+     * Pack the kmer spanning start -> start + length in bases
+     *
+     * @param bases an array of bases
+     * @param start the start of the kmer in bases
+     * @param length the length of the kmer, must be between 1 and {@link #MAX_LENGTH}
+     * @return the packed kmer, or {@link #NOT_PACKABLE} if it contains a base other than A, C, G or T
+     */
+    public static long pack(final byte[] bases, final int start, final int length) {
+        Utils.validateArg(canPack(length), () -> "length must be between 1 and " + MAX_LENGTH + " but got " + length);
+        long packed = 0;
+        for (int i = start, stop = start + length; i < stop; i++) {
+            final int code = CODES[bases[i] & 0xFF];
+            if (code < 0) {
+                return NOT_PACKABLE;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    /**
+     * Pack the kmer spanning start -> start + length in bases, given the packed kmer starting one base earlier.
+     *
+     * This only needs to look at the last base of the kmer, unless the previous kmer could not be packed.
+     *
+     * @param previous the packed kmer at start - 1, or {@link #NOT_PACKABLE}
+     * @param bases an array of bases
+     * @param start the start of the kmer in bases
+     * @param length the length of the kmer, must be between 1 and {@link #MAX_LENGTH}
+     * @return the packed kmer, or {@link #NOT_PACKABLE} if it contains a base other than A, C, G or T
+     */
+    public static long roll(final long previous, final byte[] bases, final int start, final int length) {
+        if (previous == NOT_PACKABLE) {
+            return pack(bases, start, length);
+        }
+        final int code = CODES[bases[start + length - 1] & 0xFF];
+        return code < 0 ? NOT_PACKABLE : ((previous << 2) | code) & ((1L << (2 * length)) - 1);
+    }
+
+    /**
+     * @param packed a packed kmer
+     * @param length the length of the kmer
+     * @return a new array containing the bases of the kmer
+     */
+    public static byte[] unpack(final long packed, final int length) {
+        Utils.validateArg(canPack(length), () -> "length must be between 1 and " + MAX_LENGTH + " but got " + length);
+        Utils.validateArg(packed >= 0, "cannot unpack a kmer that could not be packed");
+        final byte[] bases = new byte[length];
+        long remaining = packed;
+        for (int i = length - 1; i >= 0; i--) {
+            bases[i] = BASES[(int) (remaining & 3)];
+            remaining >>>= 2;
+        }
+        return bases;
+    }
+}
@@ -137,10 +137,7 @@ public final class ReadErrorCorrector {
             return;
         }
 
-        final byte[] readBases = read.getBases();
-        for (int offset = 0; offset <= readBases.length-kmerLength; offset++ )  {
-            countsByKMer.addKmer(new Kmer(readBases,offset,kmerLength),1);
-        }
+        countsByKMer.addAllKmers(read.getBases());
     }
 
     /**
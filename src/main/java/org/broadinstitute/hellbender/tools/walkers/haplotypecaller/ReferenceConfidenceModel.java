@@ -29,8 +29,10 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter;
 
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 
@@ -238,6 +240,53 @@ public final class ReferenceConfidenceModel {
                                                        final List<VariantContext> variantCalls,
                                                        final boolean applyPriors,
                                                        final List<VariantContext> VCpriors) {
+        final List<VariantContext> results = new ArrayList<>();
+        calculateRefConfidence(refHaplotype, calledHaplotypes, paddedReferenceLoc, activeRegion, readLikelihoods,
+                ploidyModel, variantCalls, applyPriors, VCpriors, results::add, null);
+        return results;
+    }
+
+    /**
+     * Calculate the reference confidence for a single sample given the its read data, and write it to gvcfWriter
+     *
+     * This writes the same records as adding each of the variant contexts returned by
+     * {@link #calculateRefConfidence(Haplotype, Collection, SimpleInterval, AssemblyRegion, ReadLikelihoods, PloidyModel, List, boolean, List)}
+     * to gvcfWriter, except that reference confidence sites are passed to {@link GVCFWriter#addHomRefSite} as the
+     * GQ, DP and PLs of their genotype, so that no VariantContext is created for them unless priors are applied.
+     *
+     * @param gvcfWriter the non-null writer to which the reference confidence and the calls in variantCalls are written
+     */
+    public void calculateRefConfidence(final Haplotype refHaplotype,
+                                       final Collection<Haplotype> calledHaplotypes,
+                                       final SimpleInterval paddedReferenceLoc,
+                                       final AssemblyRegion activeRegion,
+                                       final ReadLikelihoods<Haplotype> readLikelihoods,
+                                       final PloidyModel ploidyModel,
+                                       final List<VariantContext> variantCalls,
+                                       final boolean applyPriors,
+                                       final List<VariantContext> VCpriors,
+                                       final GVCFWriter gvcfWriter) {
+        Utils.nonNull(gvcfWriter, "gvcfWriter cannot be null");
+        calculateRefConfidence(refHaplotype, calledHaplotypes, paddedReferenceLoc, activeRegion, readLikelihoods,
+                ploidyModel, variantCalls, applyPriors, VCpriors, gvcfWriter::add, gvcfWriter);
+    }
+
+    /**
+     * Pass the variant contexts in variantCalls and the reference confidence at every other position of the active
+     * region to variantConsumer, in order.  If gvcfWriter is not null, reference confidence sites without priors
+     * are written to it directly instead.
+     */
+    private void calculateRefConfidence(final Haplotype refHaplotype,
+                                        final Collection<Haplotype> calledHaplotypes,
+                                        final SimpleInterval paddedReferenceLoc,
+                                        final AssemblyRegion activeRegion,
+                                        final ReadLikelihoods<Haplotype> readLikelihoods,
+                                        final PloidyModel ploidyModel,
+                                        final List<VariantContext> variantCalls,
+                                        final boolean applyPriors,
+                                        final List<VariantContext> VCpriors,
+                                        final Consumer<VariantContext> variantConsumer,
+                                        final GVCFWriter gvcfWriter) {
         Utils.nonNull(refHaplotype, "refHaplotype cannot be null");
         Utils.nonNull(calledHaplotypes, "calledHaplotypes cannot be null");
         Utils.validateArg(calledHaplotypes.contains(refHaplotype), "calledHaplotypes must contain the refHaplotype");
@@ -252,7 +301,6 @@ public final class ReferenceConfidenceModel {
         final SimpleInterval refSpan = activeRegion.getSpan();
         final List<ReadPileup> refPileups = getPileupsOverReference(refHaplotype, calledHaplotypes, paddedReferenceLoc, activeRegion, refSpan, readLikelihoods);
         final byte[] ref = refHaplotype.getBases();
-        final List<VariantContext> results = new ArrayList<>(refSpan.size());
         final String sampleName = readLikelihoods.getSample(0);
 
         final int globalRefOffset = refSpan.getStart() - activeRegion.getExtendedSpan().getStart();
@@ -264,21 +312,37 @@ public final class ReferenceConfidenceModel {
             final List<VariantContext> currentPriors = getMatchingPriors(curPos, overlappingSite, VCpriors);
             if ( overlappingSite != null && overlappingSite.getStart() == curPos.getStart() ) {
                 if (applyPriors) {
-                    results.add(PosteriorProbabilitiesUtils.calculatePosteriorProbs(overlappingSite, currentPriors,
+                    variantConsumer.accept(PosteriorProbabilitiesUtils.calculatePosteriorProbs(overlappingSite, currentPriors,
                             numRefSamplesForPrior, options));
                 }
                 else {
-                    results.add(overlappingSite);
+                    variantConsumer.accept(overlappingSite);
                 }
+            } else if ( gvcfWriter != null && !applyPriors ) {
+                // emit the reference confidence without creating a variant context
+                addReferenceConfidenceSite(gvcfWriter, ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset);
             } else {
                 // otherwise emit a reference confidence variant context
-                results.add(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, currentPriors));
+                variantConsumer.accept(makeReferenceConfidenceVariantContext(ploidy, ref, sampleName, globalRefOffset, pileup, curPos, offset, applyPriors, currentPriors));
             }
         }
-
-        return results;
     }
 
+    private void addReferenceConfidenceSite(final GVCFWriter gvcfWriter,
+                                            final int ploidy,
+                                            final byte[] ref,
+                                            final String sampleName,
+                                            final int globalRefOffset,
+                                            final ReadPileup pileup,
+                                            final Locatable curPos,
+                                            final int offset) {
+        final int refOffset = offset + globalRefOffset;
+        final byte refBase = ref[refOffset];
+        final RefVsAnyResult homRefCalc = calcGenotypeLikelihoodsOfRefVsAny(ploidy, pileup, refBase, BASE_QUAL_THRESHOLD, null);
+        final int[] leastConfidenceGLsAsPLs = calcLeastConfidencePLs(ploidy, ref, refOffset, pileup, homRefCalc);
+        gvcfWriter.addHomRefSite(sampleName, curPos.getContig(), curPos.getStart(), Allele.create(refBase, true), ploidy,
+                GATKVariantContextUtils.calculateGQFromPLs(leastConfidenceGLsAsPLs), homRefCalc.getDP(), leastConfidenceGLsAsPLs);
+    }
 
    private VariantContext makeReferenceConfidenceVariantContext(final int ploidy,
                                                                  final byte[] ref,
@@ -301,6 +365,23 @@ public final class ReferenceConfidenceModel {
         gb.AD(homRefCalc.getAD());
         gb.DP(homRefCalc.getDP());
 
+        final int[] leastConfidenceGLsAsPLs = calcLeastConfidencePLs(ploidy, ref, refOffset, pileup, homRefCalc);
+        gb.GQ(GATKVariantContextUtils.calculateGQFromPLs(leastConfidenceGLsAsPLs));
+        gb.PL(leastConfidenceGLsAsPLs);
+
+        if(!applyPriors) {
+            return vcb.genotypes(gb.make()).make();
+        }
+        else {
+            return PosteriorProbabilitiesUtils.calculatePosteriorProbs(vcb.genotypes(gb.make()).make(), VCpriors, numRefSamplesForPrior, options);
+            //TODO FIXME: after new-qual refactoring, these should be static calls to AF calculator
+        }
+    }
+
+    /**
+     * Calculate the PLs of the hom-ref genotype at a reference confidence site from its SNP and indel likelihoods
+     */
+    private int[] calcLeastConfidencePLs(final int ploidy, final byte[] ref, final int refOffset, final ReadPileup pileup, final RefVsAnyResult homRefCalc) {
         // genotype likelihood calculation
         final GenotypeLikelihoods snpGLs = GenotypeLikelihoods.fromLog10Likelihoods(homRefCalc.getGenotypeLikelihoodsCappedByHomRefLikelihood());
         final int nIndelInformativeReads = calcNIndelInformativeReads(pileup, refOffset, ref, indelInformativeDepthIndelSize);
@@ -313,18 +394,7 @@ public final class ReferenceConfidenceModel {
         // far less confident that the ref base is actually the only thing here.  So we take 0,10,100
         // as our GLs for the site.
         final GenotypeLikelihoods leastConfidenceGLs = getGLwithWorstGQ(indelGLs, snpGLs);
-
-        final int[] leastConfidenceGLsAsPLs = leastConfidenceGLs.getAsPLs();
-        gb.GQ(GATKVariantContextUtils.calculateGQFromPLs(leastConfidenceGLsAsPLs));
-        gb.PL(leastConfidenceGLsAsPLs);
-
-        if(!applyPriors) {
-            return vcb.genotypes(gb.make()).make();
-        }
-        else {
-            return PosteriorProbabilitiesUtils.calculatePosteriorProbs(vcb.genotypes(gb.make()).make(), VCpriors, numRefSamplesForPrior, options);
-            //TODO FIXME: after new-qual refactoring, these should be static calls to AF calculator
-        }
+        return leastConfidenceGLs.getAsPLs();
     }
 
     /**
@@ -427,9 +497,40 @@ public final class ReferenceConfidenceModel {
         return result;
     }
 
-    private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips) {
-        final boolean isAlt = element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
+    /**
+     * Count the elements of pileup that {@link #calcGenotypeLikelihoodsOfRefVsAny} would treat as evidence against
+     * the reference, i.e. mismatching bases, deletions and bases adjacent to an indel or a soft-clip.
+     *
+     * This is a single pass over the pileup without any likelihood computation, so it can be used to quickly screen out
+     * loci with no (or very little) evidence of variation.
+     *
+     * @param pileup the read backed pileup containing the data we want to evaluate
+     * @param refBase the reference base at this pileup position
+     * @param minBaseQual the min base quality for a read in the pileup at the pileup position to be included in the count
+     * @param maxCount stop counting once the count exceeds this value
+     * @return the number of non-reference evidence elements, or any value greater than maxCount if there are more than maxCount
+     */
+    public static int countNonRefEvidence(final ReadPileup pileup, final byte refBase, final byte minBaseQual, final int maxCount) {
+        Utils.nonNull(pileup);
+        int count = 0;
+        for (final PileupElement p : pileup) {
+            if (!p.isDeletion() && p.getQual() <= minBaseQual) {
+                continue;
+            }
+            if (isNonRefEvidence(p, refBase) && ++count > maxCount) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isNonRefEvidence(final PileupElement element, final byte refBase) {
+        return element.getBase() != refBase || element.isDeletion() || element.isBeforeDeletionStart()
                 || element.isAfterDeletionEnd() || element.isBeforeInsertion() || element.isAfterInsertion() || element.isNextToSoftClip();
+    }
+
+    private void applyPileupElementRefVsNonRefLikelihoodAndCount(final byte refBase, final int likelihoodCount, final double log10Ploidy, final RefVsAnyResult result, final PileupElement element, final byte qual, final MathUtils.RunningAverage hqSoftClips) {
+        final boolean isAlt = isNonRefEvidence(element, refBase);
         final double referenceLikelihood;
         final double nonRefLikelihood;
         if (isAlt) {
@@ -5,7 +5,6 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.jgrapht.EdgeFactory;
-import org.jgrapht.alg.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 
 import java.io.File;
@@ -461,16 +460,18 @@ public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extend
      * regardless of its direction, from the reference source vertex
      */
     public final void removeVerticesNotConnectedToRefRegardlessOfEdgeDirection() {
-        final Collection<V> toRemove = new HashSet<>(vertexSet());
-
         final V refV = getReferenceSourceVertex();
-        if ( refV != null ) {
-            for ( final V v : new BaseGraphIterator<>(this, refV, true, true) ) {
-                toRemove.remove(v);
-            }
+        if ( refV == null ) {
+            removeAllVertices(new ArrayList<>(vertexSet()));
+            return;
         }
 
-        removeAllVertices(toRemove);
+        final IndexedGraph<V,E> indexedGraph = new IndexedGraph<>(this);
+        final boolean[] toRemove = indexedGraph.reachableFrom(indexedGraph.getVertexId(refV), true, true);
+        for ( int v = 0; v < toRemove.length; v++ ) {
+            toRemove[v] = !toRemove[v];
+        }
+        removeAllVertices(indexedGraph.getVertices(toRemove));
     }
 
     /**
@@ -485,23 +486,20 @@ public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extend
             throw new IllegalStateException("Graph must have ref source and sink vertices");
         }
 
+        final IndexedGraph<V,E> indexedGraph = new IndexedGraph<>(this);
+
         // get the set of vertices we can reach by going forward from the ref source
-        final Collection<V> onPathFromRefSource = new HashSet<>(vertexSet().size());
-        for ( final V v : new BaseGraphIterator<>(this, getReferenceSourceVertex(), false, true) ) {
-            onPathFromRefSource.add(v);
-        }
+        final boolean[] onPathFromRefSource = indexedGraph.reachableFrom(indexedGraph.getVertexId(getReferenceSourceVertex()), false, true);
 
         // get the set of vertices we can reach by going backward from the ref sink
-        final Collection<V> onPathFromRefSink = new HashSet<>(vertexSet().size());
-        for ( final V v : new BaseGraphIterator<>(this, getReferenceSinkVertex(), true, false) ) {
-            onPathFromRefSink.add(v);
-        }
+        final boolean[] onPathFromRefSink = indexedGraph.reachableFrom(indexedGraph.getVertexId(getReferenceSinkVertex()), true, false);
 
         // we want to remove anything that's not in both the sink and source sets
-        final Collection<V> verticesToRemove = new HashSet<>(vertexSet());
-        onPathFromRefSource.retainAll(onPathFromRefSink);
-        verticesToRemove.removeAll(onPathFromRefSource);
-        removeAllVertices(verticesToRemove);
+        final boolean[] verticesToRemove = new boolean[indexedGraph.numberOfVertices()];
+        for ( int v = 0; v < verticesToRemove.length; v++ ) {
+            verticesToRemove[v] = !(onPathFromRefSource[v] && onPathFromRefSink[v]);
+        }
+        removeAllVertices(indexedGraph.getVertices(verticesToRemove));
 
         // simple sanity checks that this algorithm is working.
         if ( getSinks().size() > 1 ) {
@@ -690,7 +688,7 @@ public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extend
      * @return {@code true} if the graph has cycles, {@code false} otherwise.
      */
     public final boolean hasCycles() {
-        return new CycleDetector<>(this).detectCycles();
+        return new IndexedGraph<>(this).hasCycles();
     }
 
     @Override
@@ -698,74 +696,4 @@ public abstract class BaseGraph<V extends BaseVertex, E extends BaseEdge> extend
     public BaseGraph<V,E> clone()  {
         return (BaseGraph<V,E>) super.clone();
     }
-
-    /**
-     * General iterator that can iterate over all vertices in a BaseGraph, following either
-     * incoming, outgoing edge (as well as both or none) edges.  Supports traversal of graphs
-     * with cycles and other crazy structures.  Will only ever visit each vertex once.  The
-     * order in which the vertices are visited is undefined.
-     */
-    private static final class BaseGraphIterator<T extends BaseVertex, E extends BaseEdge> implements Iterator<T>, Iterable<T> {
-        final Collection<T> visited = new HashSet<>();
-        final Deque<T> toVisit = new LinkedList<>();
-        final BaseGraph<T,E> graph;
-        final boolean followIncomingEdges;
-        final boolean followOutgoingEdges;
-
-        /**
-         * Create a new BaseGraphIterator starting its traversal at start
-         *
-         * Note that if both followIncomingEdges and followOutgoingEdges are false, we simply return the
-         * start vertex
-         *
-         * @param graph the graph to iterator over.  Cannot be null
-         * @param start the vertex to start at.  Cannot be null
-         * @param followIncomingEdges should we follow incoming edges during our
-         *                            traversal? (goes backward through the graph)
-         * @param followOutgoingEdges should we follow outgoing edges during out traversal?
-         */
-        private BaseGraphIterator(final BaseGraph<T,E> graph, final T start,
-                                 final boolean followIncomingEdges, final boolean followOutgoingEdges) {
-            Utils.nonNull(graph, "graph cannot be null");
-            Utils.nonNull(start, "start cannot be null");
-            Utils.validateArg(graph.containsVertex(start), () -> "start " + start + " must be in graph but it isn't");
-            this.graph = graph;
-            this.followIncomingEdges = followIncomingEdges;
-            this.followOutgoingEdges = followOutgoingEdges;
-
-            toVisit.add(start);
-        }
-
-        @Override
-        public Iterator<T> iterator() {
-            return this;
-        }
-
-        @Override
-        public boolean hasNext() {
-            return ! toVisit.isEmpty();
-        }
-
-        @Override
-        public T next() {
-            final T v = toVisit.pop();
-
-            if ( ! visited.contains(v) ) {
-                visited.add(v);
-                if ( followIncomingEdges ) {
-                    toVisit.addAll(graph.incomingVerticesOf(v));
-                }
-                if ( followOutgoingEdges ) {
-                    toVisit.addAll(graph.outgoingVerticesOf(v));
-                }
-            }
-
-            return v;
-        }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException("Doesn't implement remove");
-        }
-    }
 }
@@ -0,0 +1,383 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+
+/**
+ * Immutable array-backed snapshot of a {@link BaseGraph} for running whole-graph algorithms without
+ * going through the jgrapht adjacency maps and sets.
+ *
+ * <p>
+ *     Vertices and edges are given consecutive integer ids following the iteration order of
+ *     {@link BaseGraph#vertexSet()} and {@link BaseGraph#edgeSet()}.  Adjacency is stored in compressed sparse row form:
+ *     the outgoing edge ids of vertex {@code v} are {@code outEdges[outOffsets[v]]} to {@code outEdges[outOffsets[v+1]-1]},
+ *     in the order of {@link BaseGraph#outgoingEdgesOf}, and likewise for incoming edges.
+ *     Edge endpoints, pruning multiplicities and reference flags are held in primitive arrays.
+ * </p>
+ *
+ * <p>
+ *     The snapshot does not track later changes to the graph, so algorithms that modify the graph compute
+ *     what to change on the snapshot first and then apply the changes to the graph.
+ *     All algorithms visit vertices and edges in the same order as their {@link BaseGraph} counterparts
+ *     and therefore produce identical results.
+ * </p>
+ */
+public final class IndexedGraph<V extends BaseVertex, E extends BaseEdge> {
+    private final List<V> vertices;
+    private final List<E> edges;
+    private final Map<V, Integer> vertexIds;
+
+    private final int[] edgeSource;
+    private final int[] edgeTarget;
+    private final int[] pruningMultiplicity;
+    private final boolean[] isRef;
+
+    private final int[] outOffsets;
+    private final int[] outEdges;
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    /**
+     * Creates a snapshot of the current state of the graph.
+     * @param graph the graph to index.  Cannot be null
+     */
+    public IndexedGraph(final BaseGraph<V, E> graph) {
+        Utils.nonNull(graph, "graph cannot be null");
+        vertices = new ArrayList<>(graph.vertexSet());
+        edges = new ArrayList<>(graph.edgeSet());
+        final int numVertices = vertices.size();
+        final int numEdges = edges.size();
+
+        vertexIds = new HashMap<>(2 * numVertices);
+        for (int v = 0; v < numVertices; v++) {
+            vertexIds.put(vertices.get(v), v);
+        }
+        final Map<E, Integer> edgeIds = new HashMap<>(2 * numEdges);
+        edgeSource = new int[numEdges];
+        edgeTarget = new int[numEdges];
+        pruningMultiplicity = new int[numEdges];
+        isRef = new boolean[numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            final E edge = edges.get(e);
+            edgeIds.put(edge, e);
+            edgeSource[e] = vertexIds.get(graph.getEdgeSource(edge));
+            edgeTarget[e] = vertexIds.get(graph.getEdgeTarget(edge));
+            pruningMultiplicity[e] = edge.getPruningMultiplicity();
+            isRef[e] = edge.isRef();
+        }
+
+        outOffsets = new int[numVertices + 1];
+        outEdges = new int[numEdges];
+        inOffsets = new int[numVertices + 1];
+        inEdges = new int[numEdges];
+        for (int v = 0; v < numVertices; v++) {
+            final V vertex = vertices.get(v);
+            outOffsets[v + 1] = fill(graph.outgoingEdgesOf(vertex), edgeIds, outEdges, outOffsets[v]);
+            inOffsets[v + 1] = fill(graph.incomingEdgesOf(vertex), edgeIds, inEdges, inOffsets[v]);
+        }
+    }
+
+    private static <E> int fill(final Collection<E> edges, final Map<E, Integer> edgeIds, final int[] destination, final int start) {
+        int offset = start;
+        for (final E edge : edges) {
+            destination[offset++] = edgeIds.get(edge);
+        }
+        return offset;
+    }
+
+    public int numberOfVertices() {
+        return vertices.size();
+    }
+
+    public int numberOfEdges() {
+        return edges.size();
+    }
+
+    public V getVertex(final int vertexId) {
+        return vertices.get(vertexId);
+    }
+
+    public E getEdge(final int edgeId) {
+        return edges.get(edgeId);
+    }
+
+    /**
+     * @return the id of the vertex, or -1 if it was not in the graph when the snapshot was taken
+     */
+    public int getVertexId(final V vertex) {
+        final Integer id = vertexIds.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    public int getEdgeSource(final int edgeId) {
+        return edgeSource[edgeId];
+    }
+
+    public int getEdgeTarget(final int edgeId) {
+        return edgeTarget[edgeId];
+    }
+
+    public int getPruningMultiplicity(final int edgeId) {
+        return pruningMultiplicity[edgeId];
+    }
+
+    public boolean isRef(final int edgeId) {
+        return isRef[edgeId];
+    }
+
+    public int outDegreeOf(final int vertexId) {
+        return outOffsets[vertexId + 1] - outOffsets[vertexId];
+    }
+
+    public int inDegreeOf(final int vertexId) {
+        return inOffsets[vertexId + 1] - inOffsets[vertexId];
+    }
+
+    /**
+     * @return the id of the {@code i}-th outgoing edge of the vertex, in the order of {@link BaseGraph#outgoingEdgesOf}
+     */
+    public int outgoingEdge(final int vertexId, final int i) {
+        return outEdges[outOffsets[vertexId] + i];
+    }
+
+    /**
+     * @return the id of the {@code i}-th incoming edge of the vertex, in the order of {@link BaseGraph#incomingEdgesOf}
+     */
+    public int incomingEdge(final int vertexId, final int i) {
+        return inEdges[inOffsets[vertexId] + i];
+    }
+
+    /**
+     * @return the vertices flagged in {@code flags}, indexed by vertex id
+     */
+    public List<V> getVertices(final boolean[] flags) {
+        Utils.validateArg(flags.length == vertices.size(), "flags must have one entry per vertex");
+        final List<V> result = new ArrayList<>();
+        for (int v = 0; v < flags.length; v++) {
+            if (flags[v]) {
+                result.add(vertices.get(v));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the edges flagged in {@code flags}, indexed by edge id
+     */
+    public List<E> getEdges(final boolean[] flags) {
+        Utils.validateArg(flags.length == edges.size(), "flags must have one entry per edge");
+        final List<E> result = new ArrayList<>();
+        for (int e = 0; e < flags.length; e++) {
+            if (flags[e]) {
+                result.add(edges.get(e));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks for the presence of directed cycles using an iterative depth-first search.
+     *
+     * @return {@code true} if the graph has cycles, {@code false} otherwise.
+     */
+    public boolean hasCycles() {
+        final int numVertices = vertices.size();
+        // 0 = unvisited, 1 = on the current search path, 2 = finished
+        final byte[] state = new byte[numVertices];
+        final int[] stack = new int[numVertices];
+        final int[] cursor = new int[numVertices];
+        for (int root = 0; root < numVertices; root++) {
+            if (state[root] != 0) {
+                continue;
+            }
+            int depth = 0;
+            stack[0] = root;
+            cursor[0] = outOffsets[root];
+            state[root] = 1;
+            while (depth >= 0) {
+                final int v = stack[depth];
+                if (cursor[depth] < outOffsets[v + 1]) {
+                    final int child = edgeTarget[outEdges[cursor[depth]++]];
+                    if (state[child] == 1) {
+                        return true;
+                    } else if (state[child] == 0) {
+                        state[child] = 1;
+                        depth++;
+                        stack[depth] = child;
+                        cursor[depth] = outOffsets[child];
+                    }
+                } else {
+                    state[v] = 2;
+                    depth--;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds all vertices that can be reached from the start vertex.
+     *
+     * @param start the id of the vertex to start at
+     * @param followIncomingEdges should we follow incoming edges? (goes backward through the graph)
+     * @param followOutgoingEdges should we follow outgoing edges?
+     * @return flags indexed by vertex id, including the start vertex
+     */
+    public boolean[] reachableFrom(final int start, final boolean followIncomingEdges, final boolean followOutgoingEdges) {
+        Utils.validIndex(start, vertices.size());
+        final boolean[] reached = new boolean[vertices.size()];
+        final int[] queue = new int[vertices.size()];
+        int head = 0;
+        int tail = 0;
+        reached[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            final int v = queue[head++];
+            if (followIncomingEdges) {
+                for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                    final int u = edgeSource[inEdges[i]];
+                    if (!reached[u]) {
+                        reached[u] = true;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+            if (followOutgoingEdges) {
+                for (int i = outOffsets[v]; i < outOffsets[v + 1]; i++) {
+                    final int u = edgeTarget[outEdges[i]];
+                    if (!reached[u]) {
+                        reached[u] = true;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * Finds the edges of all linear chains that must be kept by {@link LowWeightChainPruner}, i.e. those chains that
+     * contain a reference edge or an edge with pruning multiplicity >= pruneFactor.
+     *
+     * <p>
+     *     A linear chain starts at a vertex with out-degree > 1, in-degree > 1, or a source with out-degree > 0,
+     *     follows one of its outgoing edges and extends through vertices with in-degree <= 1 and out-degree 1
+     *     until it would revisit one of its vertices.
+     * </p>
+     *
+     * @param pruneFactor the integer pruning factor
+     * @return flags indexed by edge id
+     */
+    public boolean[] findLinearChainEdgesToKeep(final int pruneFactor) {
+        final int numVertices = vertices.size();
+        final boolean[] keep = new boolean[edges.size()];
+        final int[] chainEdges = new int[edges.size()];
+        // the chain (numbered from 1) that last visited each vertex, so that we can detect cycles without clearing
+        final int[] visitedByChain = new int[numVertices];
+        int chain = 0;
+        for (int start = 0; start < numVertices; start++) {
+            final int outDegree = outDegreeOf(start);
+            final int inDegree = inDegreeOf(start);
+            if (outDegree <= 1 && inDegree <= 1 && (inDegree != 0 || outDegree == 0)) {
+                continue;
+            }
+            for (int i = outOffsets[start]; i < outOffsets[start + 1]; i++) {
+                chain++;
+                visitedByChain[start] = chain;
+                int length = 0;
+                int edge = outEdges[i];
+                boolean mustBeKept = false;
+                while (true) {
+                    chainEdges[length++] = edge;
+                    mustBeKept |= pruningMultiplicity[edge] >= pruneFactor || isRef[edge];
+                    final int last = edgeTarget[edge];
+                    visitedByChain[last] = chain;
+                    if (outDegreeOf(last) != 1 || inDegreeOf(last) > 1) {
+                        break;
+                    }
+                    edge = outEdges[outOffsets[last]];
+                    if (visitedByChain[edgeTarget[edge]] == chain) {
+                        break;
+                    }
+                }
+                if (mustBeKept) {
+                    for (int j = 0; j < length; j++) {
+                        keep[chainEdges[j]] = true;
+                    }
+                }
+            }
+        }
+        return keep;
+    }
+
+    /**
+     * Finds the edges and vertices to remove from the graph to get rid of cycles on the paths starting at the sources,
+     * as done by {@link KBestHaplotypeFinder}.
+     *
+     * <p>
+     *     Every path from a source is explored until it reaches a sink.  Edges that lead back to a vertex already on the
+     *     current path are flagged for removal, as are vertices from which no sink can be reached without such an edge.
+     * </p>
+     *
+     * @param sources ids of the considered source vertices.
+     * @param isSink flags indexed by vertex id marking the considered sink vertices.
+     * @param edgesToRemove flags indexed by edge id, updated with the edges to remove.
+     * @param verticesToRemove flags indexed by vertex id, updated with the vertices to remove.
+     * @return {@code true} if some sink vertex is reachable from some source, {@code false} otherwise.
+     */
+    public boolean findCycleEdgesAndDeadVertices(final int[] sources, final boolean[] isSink,
+                                                 final boolean[] edgesToRemove, final boolean[] verticesToRemove) {
+        final int numVertices = vertices.size();
+        Utils.validateArg(isSink.length == numVertices && verticesToRemove.length == numVertices, "flags must have one entry per vertex");
+        Utils.validateArg(edgesToRemove.length == edges.size(), "flags must have one entry per edge");
+        // vertices on the current path are distinct, so the path can never be longer than the number of vertices
+        final int[] path = new int[numVertices];
+        final int[] cursor = new int[numVertices];
+        final boolean[] reachesSink = new boolean[numVertices];
+        final boolean[] onPath = new boolean[numVertices];
+
+        boolean foundSomePath = false;
+        for (final int source : sources) {
+            if (isSink[source]) {
+                foundSomePath = true;
+                continue;
+            }
+            int depth = 0;
+            path[0] = source;
+            cursor[0] = outOffsets[source];
+            reachesSink[0] = false;
+            onPath[source] = true;
+            while (true) {
+                final int v = path[depth];
+                if (cursor[depth] < outOffsets[v + 1]) {
+                    final int edge = outEdges[cursor[depth]++];
+                    final int child = edgeTarget[edge];
+                    if (onPath[child]) {
+                        edgesToRemove[edge] = true;
+                    } else if (isSink[child]) {
+                        reachesSink[depth] = true;
+                    } else {
+                        depth++;
+                        path[depth] = child;
+                        cursor[depth] = outOffsets[child];
+                        reachesSink[depth] = false;
+                        onPath[child] = true;
+                    }
+                } else {
+                    onPath[v] = false;
+                    if (!reachesSink[depth]) {
+                        verticesToRemove[v] = true;
+                    }
+                    if (depth == 0) {
+                        foundSomePath |= reachesSink[0];
+                        break;
+                    }
+                    depth--;
+                    reachesSink[depth] |= reachesSink[depth + 1];
+                }
+            }
+        }
+        return foundSomePath;
+    }
+}
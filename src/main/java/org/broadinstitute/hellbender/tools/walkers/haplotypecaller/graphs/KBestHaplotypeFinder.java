@@ -3,7 +3,6 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
-import org.jgrapht.alg.CycleDetector;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -69,7 +68,8 @@ public final class KBestHaplotypeFinder extends AbstractList<KBestHaplotype> {
         //TODO Once that is solve, the if-else below should be substituted by a throw if there is any cycles,
         //TODO just the line commented out below if you want to trade early-bug-fail for speed.
         //this.graph = graph;
-        this.graph = new CycleDetector<>(graph).detectCycles() ? removeCycles(graph,sources,sinks) : graph;
+        final IndexedGraph<SeqVertex, BaseEdge> indexedGraph = new IndexedGraph<>(graph);
+        this.graph = indexedGraph.hasCycles() ? removeCycles(graph, indexedGraph, sources, sinks) : graph;
 
         finderByVertex = new HashMap<>(this.graph.vertexSet().size());
         this.sinks = sinks;
@@ -128,79 +128,40 @@ public final class KBestHaplotypeFinder extends AbstractList<KBestHaplotype> {
      * Removes edges that produces cycles and also dead vertices that do not lead to any sink vertex.
      *
      * @param original graph to modify.
+     * @param indexedGraph snapshot of the original graph used to search for the edges and vertices to remove.
      * @param sources considered source vertices.
      * @param sinks considered sink vertices.
      * @return never {@code null}.
      */
-    private static SeqGraph removeCycles(final SeqGraph original, final Collection<SeqVertex> sources, final Set<SeqVertex> sinks) {
-        final Set<BaseEdge> edgesToRemove = new HashSet<>(original.edgeSet().size());
-        final Set<SeqVertex> vertexToRemove = new HashSet<>(original.vertexSet().size());
-
-        boolean foundSomePath = false;
-        for (final SeqVertex source : sources) {
-            final Set<SeqVertex> parentVertices = new HashSet<>(original.vertexSet().size());
-            foundSomePath = findGuiltyVerticesAndEdgesToRemoveCycles(original, source, sinks, edgesToRemove, vertexToRemove, parentVertices) || foundSomePath;
+    private static SeqGraph removeCycles(final SeqGraph original, final IndexedGraph<SeqVertex, BaseEdge> indexedGraph,
+                                         final Collection<SeqVertex> sources, final Set<SeqVertex> sinks) {
+        final int[] sourceIds = sources.stream().mapToInt(indexedGraph::getVertexId).toArray();
+        final boolean[] isSink = new boolean[indexedGraph.numberOfVertices()];
+        for (final SeqVertex sink : sinks) {
+            isSink[indexedGraph.getVertexId(sink)] = true;
         }
+        final boolean[] edgesToRemove = new boolean[indexedGraph.numberOfEdges()];
+        final boolean[] vertexToRemove = new boolean[indexedGraph.numberOfVertices()];
+
+        final boolean foundSomePath = indexedGraph.findCycleEdgesAndDeadVertices(sourceIds, isSink, edgesToRemove, vertexToRemove);
 
         if (!foundSomePath) {
             throw new IllegalStateException("could not find any path from the source vertex to the sink vertex after removing cycles: "
                     + Arrays.toString(sources.toArray()) + " => " + Arrays.toString(sinks.toArray()));
         }
 
-        if (edgesToRemove.isEmpty() && vertexToRemove.isEmpty()) {
+        final List<BaseEdge> guiltyEdges = indexedGraph.getEdges(edgesToRemove);
+        final List<SeqVertex> guiltyVertices = indexedGraph.getVertices(vertexToRemove);
+        if (guiltyEdges.isEmpty() && guiltyVertices.isEmpty()) {
             throw new IllegalStateException("cannot find a way to remove the cycles");
         }
 
         final SeqGraph result = original.clone();
-        result.removeAllEdges(edgesToRemove);
-        result.removeAllVertices(vertexToRemove);
+        result.removeAllEdges(guiltyEdges);
+        result.removeAllVertices(guiltyVertices);
         return result;
     }
 
-    /**
-     * Recursive call that looks for edges and vertices that need to be removed to get rid of cycles.
-     *
-     * @param graph the original graph.
-     * @param currentVertex current search vertex.
-     * @param sinks considered sink vertices.
-     * @param edgesToRemove collection  of edges that need to be removed in order to get rid of cycles.
-     * @param verticesToRemove collection of vertices that can be removed.
-     * @param parentVertices collection of vertices that preceded the {@code currentVertex}; i.e. the it can be
-     *                       reached from those vertices using edges existing in {@code graph}.
-     *
-     * @return {@code true} to indicate that the some sink vertex is reachable by {@code currentVertex},
-     *  {@code false} otherwise.
-     */
-    private static boolean findGuiltyVerticesAndEdgesToRemoveCycles(final SeqGraph graph,
-                                                                    final SeqVertex currentVertex,
-                                                                    final Set<SeqVertex> sinks,
-                                                                    final Set<BaseEdge> edgesToRemove,
-                                                                    final Set<SeqVertex> verticesToRemove,
-                                                                    final Set<SeqVertex> parentVertices) {
-        if (sinks.contains(currentVertex)) {
-            return true;
-        }
-
-        final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(currentVertex);
-        parentVertices.add(currentVertex);
-
-        boolean reachesSink = false;
-        for (final BaseEdge edge : outgoingEdges) {
-            final SeqVertex child = graph.getEdgeTarget(edge);
-            if (parentVertices.contains(child)) {
-                edgesToRemove.add(edge);
-            } else {
-                final boolean childReachSink = findGuiltyVerticesAndEdgesToRemoveCycles(graph, child, sinks, edgesToRemove, verticesToRemove, parentVertices);
-                reachesSink = reachesSink || childReachSink;
-            }
-        }
-        parentVertices.remove(currentVertex);
-        if (!reachesSink) {
-            verticesToRemove.add(currentVertex);
-        }
-        return reachesSink;
-    }
-
     @Override
     public KBestHaplotype get(final int index) {
         Utils.validIndex(index, size());
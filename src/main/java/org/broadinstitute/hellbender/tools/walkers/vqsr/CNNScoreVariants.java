@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.vqsr;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import htsjdk.variant.variantcontext.writer.VariantContextWriter;
@@ -15,15 +16,20 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.io.IOUtils;
 import  org.broadinstitute.hellbender.utils.io.Resource;
+import org.broadinstitute.hellbender.utils.python.BinaryFrameWriter;
 import org.broadinstitute.hellbender.utils.python.StreamingPythonScriptExecutor;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
-import org.broadinstitute.hellbender.utils.runtime.AsynchronousStreamWriter;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFHeaderLines;
 import picard.cmdline.programgroups.VariantFilteringProgramGroup;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.StreamSupport;
 
 
@@ -154,6 +160,14 @@ public class CNNScoreVariants extends VariantWalker {
     @Argument(fullName = "intra-op-threads", shortName = "intra-op-threads", doc = "Number of intra-op parallelism threads to use for Tensorflow", minValue = 0, maxValue = 4096, optional = true)
     private int intraOpThreads = 0;
 
+    @Advanced
+    @Argument(fullName = "tensor-threads", shortName = "tensor-threads", doc = "Number of threads used to build the data sent to python for each batch of variants", minValue = 1, maxValue = 4096, optional = true)
+    private int tensorThreads = 2;
+
+    @Advanced
+    @Argument(fullName = "batches-in-flight", shortName = "batches-in-flight", doc = "Maximum number of batches queued for python inference at once", minValue = 1, maxValue = 64, optional = true)
+    private int batchesInFlight = 2;
+
     @Advanced
     @Argument(fullName = "output-tensor-dir", shortName = "output-tensor-dir", doc = "Optional directory where tensors can be saved for debugging or visualization.", optional = true)
     private String outputTensorsDir = "";
@@ -168,14 +182,17 @@ public class CNNScoreVariants extends VariantWalker {
 
     // Create the Python executor. This doesn't actually start the Python process, but verifies that
     // the requestedPython executable exists and can be located.
-    final StreamingPythonScriptExecutor<String> pythonExecutor = new StreamingPythonScriptExecutor<>(true);
+    final StreamingPythonScriptExecutor<ByteArrayOutputStream> pythonExecutor = new StreamingPythonScriptExecutor<>(true);
+
+    // Variants (with the reference bases and reads needed to score them) waiting to be put in a batch
+    private List<PendingVariant> pendingVariants = new ArrayList<>();
 
-    private List<String> batchList = new ArrayList<>(inferenceBatchSize);
+    // Batches whose data for python is being built on the tensor threads, in traversal order
+    private final Deque<Future<List<ByteArrayOutputStream>>> batchesInPreparation = new ArrayDeque<>();
+    private ExecutorService tensorExecutor;
 
-    private int curBatchSize = 0;
     private int windowEnd = windowSize / 2;
     private int windowStart = windowSize / 2;
-    private boolean waitforBatchCompletion = false;
     private File scoreFile;
 
     private String scoreKey;
@@ -231,8 +248,10 @@ public class CNNScoreVariants extends VariantWalker {
 
         // Start the Python process and initialize a stream writer for streaming data to the Python code
         pythonExecutor.start(Collections.emptyList(), enableJournal);
-        pythonExecutor.initStreamWriter(AsynchronousStreamWriter.stringSerializer);
-        batchList = new ArrayList<>(transferBatchSize);
+        pythonExecutor.initStreamWriter(variantFrames -> variantFrames, StreamingPythonScriptExecutor.DataTransferMode.BINARY_FRAMES);
+        pendingVariants = new ArrayList<>(transferBatchSize);
+        tensorExecutor = Executors.newFixedThreadPool(tensorThreads,
+                new ThreadFactoryBuilder().setNameFormat("cnn-tensor-builder-%d").setDaemon(true).build());
 
         // Execute Python code to open our output file, where it will write the contents of everything it reads
         // from the stream.
@@ -272,90 +291,100 @@ public class CNNScoreVariants extends VariantWalker {
     @Override
     public void apply(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
         referenceContext.setWindow(windowStart, windowEnd);
-        if (tensorType.isReadsRequired()) {
-            transferReadsToPythonViaFifo(variant, readsContext, referenceContext);
-        } else {
-            transferToPythonViaFifo(variant, referenceContext);
+        final byte[] referenceBases = Arrays.copyOfRange(referenceContext.getBases(), 0, windowSize);
+        final List<GATKRead> reads = tensorType.isReadsRequired() ? getReads(variant, readsContext) : null;
+        pendingVariants.add(new PendingVariant(variant, referenceBases, reads));
+        if (pendingVariants.size() == transferBatchSize) {
+            submitBatch();
         }
-        sendBatchIfReady();
     }
 
-    private void transferToPythonViaFifo(final VariantContext variant, final ReferenceContext referenceContext) {
-        try {
-            final String outDat = String.format("%s\t%s\t%s\t%s\n",
-                    getVariantDataString(variant),
-                    new String(Arrays.copyOfRange(referenceContext.getBases(), 0, windowSize), "UTF-8"),
-                    getVariantInfoString(variant),
-                    variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER");
-            batchList.add(outDat);
-            curBatchSize++;
-        } catch (UnsupportedEncodingException e) {
-            throw new GATKException("Trying to make string from reference, but unsupported encoding UTF-8.", e);
+    private List<GATKRead> getReads(final VariantContext variant, final ReadsContext readsContext) {
+        final List<GATKRead> reads = new ArrayList<>();
+        readsContext.iterator().forEachRemaining(reads::add);
+        if (reads.isEmpty()) {
+            logger.warn("No reads at contig:" + variant.getContig() + " site:" + String.valueOf(variant.getStart()));
         }
-
+        return reads;
     }
 
-    private void sendBatchIfReady() {
-        if (curBatchSize == transferBatchSize) {
-            if (waitforBatchCompletion == true) {
-                // wait for the last batch to complete before we start a new one
-                pythonExecutor.waitForPreviousBatchCompletion();
-                waitforBatchCompletion = false;
+    /**
+     * Hands the pending variants to the tensor threads, and sends every batch that is ready to python in traversal order.
+     * Once enough batches are being prepared to keep the tensor threads busy, waits for the oldest one.
+     */
+    private void submitBatch() {
+        final List<PendingVariant> batch = pendingVariants;
+        pendingVariants = new ArrayList<>(transferBatchSize);
+        batchesInPreparation.addLast(tensorExecutor.submit(() -> {
+            final List<ByteArrayOutputStream> batchFrames = new ArrayList<>(batch.size());
+            for (final PendingVariant pendingVariant : batch) {
+                batchFrames.add(getVariantFrames(pendingVariant));
             }
-            executePythonCommand();
-            waitforBatchCompletion = true;
-            curBatchSize = 0;
-            batchList = new ArrayList<>(transferBatchSize);
+            return batchFrames;
+        }));
+
+        while (!batchesInPreparation.isEmpty() && (batchesInPreparation.peekFirst().isDone() || batchesInPreparation.size() > tensorThreads)) {
+            sendBatch(batchesInPreparation.removeFirst());
         }
     }
 
-    private void transferReadsToPythonViaFifo(final VariantContext variant, final ReadsContext readsContext, final ReferenceContext referenceContext) {
-        StringBuilder sb = new StringBuilder(FIFO_STRING_INITIAL_CAPACITY);
+    /**
+     * Queues a prepared batch for inference, first waiting for python to finish the oldest batch if the maximum
+     * number of batches are already in flight.
+     */
+    private void sendBatch(final Future<List<ByteArrayOutputStream>> preparedBatch) {
+        final List<ByteArrayOutputStream> batchFrames;
         try {
-            sb.append(String.format("%s\t%s\t%s\t%s\t",
-                    getVariantDataString(variant),
-                    new String(Arrays.copyOfRange(referenceContext.getBases(), 0, windowSize), "UTF-8"),
-                    getVariantInfoString(variant),
-                    variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER"));
-        } catch (UnsupportedEncodingException e) {
-            throw new GATKException("Trying to make string from reference, but unsupported encoding UTF-8.", e);
-        }
-        Iterator<GATKRead> readIt = readsContext.iterator();
-        if (!readIt.hasNext()) {
-            logger.warn("No reads at contig:" + variant.getContig() + " site:" + String.valueOf(variant.getStart()));
-        }
-        while (readIt.hasNext()) {
-            sb.append(GATKReadToString(readIt.next()));
+            batchFrames = preparedBatch.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new GATKException("Error when building the data for a batch of variants.", e);
         }
-        sb.append("\n");
-        batchList.add(sb.toString());
-        curBatchSize++;
-    }
 
-    private String GATKReadToString(GATKRead read) {
-        StringBuilder sb = new StringBuilder(FIFO_STRING_INITIAL_CAPACITY);
-        sb.append(read.getBasesString() + "\t");
-
-        appendQualityBytes(sb, read.getBaseQualities());
-        sb.append(read.getCigar().toString() + "\t");
-        sb.append(read.isReverseStrand() + "\t");
-        sb.append((read.isPaired() ? read.mateIsReverseStrand() : "false") + "\t");
-        sb.append(read.isFirstOfPair() + "\t");
-        sb.append(read.getMappingQuality() + "\t");
-        sb.append(Integer.toString(read.getUnclippedStart()) + "\t");
-        return sb.toString();
+        if (pythonExecutor.getNumQueuedBatches() >= batchesInFlight) {
+            pythonExecutor.waitForOldestQueuedBatchCompletion();
+        }
+        final String pythonCommand = String.format(
+                "vqsr_cnn.score_and_write_batch(args, model, tempFile, %d, %d, '%s')",
+                batchFrames.size(),
+                inferenceBatchSize,
+                outputTensorsDir) + NL;
+        pythonExecutor.startQueuedBatchWrite(pythonCommand, batchFrames);
     }
 
-    private void appendQualityBytes(StringBuilder sb, byte[] qualities) {
-        if(qualities.length == 0) {
-            sb.append("\t");
-            return;
+    /**
+     * Serializes a variant as the binary frames read by vqsr_cnn.score_and_write_batch: a string frame with the tab
+     * delimited variant fields, reference sequence, annotations and variant type; a frame with the number of reads
+     * (-1 if no reads are used); and, for each read, a string frame with its tab delimited fields followed by a frame
+     * with its base qualities.
+     */
+    private ByteArrayOutputStream getVariantFrames(final PendingVariant pendingVariant) {
+        final VariantContext variant = pendingVariant.variant;
+        final BinaryFrameWriter frameWriter = new BinaryFrameWriter(new ByteArrayOutputStream(FIFO_STRING_INITIAL_CAPACITY));
+        frameWriter.writeString(String.format("%s\t%s\t%s\t%s",
+                getVariantDataString(variant),
+                new String(pendingVariant.referenceBases, StandardCharsets.UTF_8),
+                getVariantInfoString(variant),
+                variant.isSNP() ? "SNP" : variant.isIndel() ? "INDEL" : "OTHER"));
+        if (pendingVariant.reads == null) {
+            frameWriter.writeInt(-1);
+        } else {
+            frameWriter.writeInt(pendingVariant.reads.size());
+            for (final GATKRead read : pendingVariant.reads) {
+                writeReadFrames(frameWriter, read);
+            }
         }
+        return frameWriter.getStream();
+    }
 
-        for (int i = 0; i < qualities.length - 1; i++) {
-            sb.append(Integer.toString(qualities[i]) + ",");
-        }
-        sb.append(Integer.toString(qualities[qualities.length - 1]) + "\t");
+    private void writeReadFrames(final BinaryFrameWriter frameWriter, final GATKRead read) {
+        frameWriter.writeString(read.getBasesString() + "\t" +
+                read.getCigar().toString() + "\t" +
+                read.isReverseStrand() + "\t" +
+                (read.isPaired() ? read.mateIsReverseStrand() : "false") + "\t" +
+                read.isFirstOfPair() + "\t" +
+                read.getMappingQuality() + "\t" +
+                read.getUnclippedStart());
+        frameWriter.writeInt8Array(read.getBaseQualities());
     }
 
     private String getVariantDataString(final VariantContext variant) {
@@ -378,13 +407,16 @@ public class CNNScoreVariants extends VariantWalker {
 
     @Override
     public Object onTraversalSuccess() {
-        if (waitforBatchCompletion) {
-            pythonExecutor.waitForPreviousBatchCompletion();
+        if (!pendingVariants.isEmpty()) {
+            submitBatch();
         }
-        if (curBatchSize > 0) {
-            executePythonCommand();
-            pythonExecutor.waitForPreviousBatchCompletion();
+        while (!batchesInPreparation.isEmpty()) {
+            sendBatch(batchesInPreparation.removeFirst());
         }
+        while (pythonExecutor.getNumQueuedBatches() > 0) {
+            pythonExecutor.waitForOldestQueuedBatchCompletion();
+        }
+        tensorExecutor.shutdown();
 
         pythonExecutor.sendSynchronousCommand("tempFile.close()" + NL);
         pythonExecutor.terminate();
@@ -394,13 +426,11 @@ public class CNNScoreVariants extends VariantWalker {
         return true;
     }
 
-    private void executePythonCommand() {
-        final String pythonCommand = String.format(
-                "vqsr_cnn.score_and_write_batch(args, model, tempFile, %d, %d, '%s')",
-                curBatchSize,
-                inferenceBatchSize,
-                outputTensorsDir) + NL;
-        pythonExecutor.startBatchWrite(pythonCommand, batchList);
+    @Override
+    public void closeTool() {
+        if (tensorExecutor != null) {
+            tensorExecutor.shutdownNow();
+        }
     }
 
 
@@ -481,5 +511,19 @@ public class CNNScoreVariants extends VariantWalker {
         }
     }
 
+    /**
+     * A variant together with the reference bases and reads needed to build the data sent to python for it.  These
+     * are collected on the traversal thread, since the reads and reference data sources are not thread-safe.
+     */
+    private static final class PendingVariant {
+        private final VariantContext variant;
+        private final byte[] referenceBases;
+        private final List<GATKRead> reads; // null for tensor types that do not require reads
+
+        PendingVariant(final VariantContext variant, final byte[] referenceBases, final List<GATKRead> reads) {
+            this.variant = variant;
+            this.referenceBases = referenceBases;
+            this.reads = reads;
+        }
+    }
 }
-
@@ -10,6 +10,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 import Jama.Matrix;
 
@@ -17,6 +20,11 @@ class GaussianMixtureModel {
 
     protected final static Logger logger = LogManager.getLogger(GaussianMixtureModel.class);
 
+    /**
+     * Number of data evaluated together in a block.  Blocks are the unit of parallel work.
+     */
+    static final int BLOCK_SIZE = 1024;
+
     private final List<MultivariateGaussian> gaussians;
     private final double shrinkage;
     private final double dirichletParameter;
@@ -59,7 +67,7 @@ class GaussianMixtureModel {
 
     }
 
-    public void initializeRandomModel( final List<VariantDatum> data, final int numKMeansIterations ) {
+    public void initializeRandomModel( final VariantDataManager.AnnotationMatrix data, final int numKMeansIterations, final ForkJoinPool pool ) {
 
         // initialize random Gaussian means // BUGBUG: this is broken up this way to match the order of calls to rand.nextDouble() in the old code
         for( final MultivariateGaussian gaussian : gaussians ) {
@@ -68,7 +76,7 @@ class GaussianMixtureModel {
 
         // initialize means using K-means algorithm
         logger.info( "Initializing model with " + numKMeansIterations + " k-means iterations..." );
-        initializeMeansUsingKMeans( data, numKMeansIterations );
+        initializeMeansUsingKMeans( data, numKMeansIterations, pool );
 
         // initialize uniform mixture coefficients, random covariance matrices, and initial hyperparameters
         for( final MultivariateGaussian gaussian : gaussians ) {
@@ -81,38 +89,40 @@ class GaussianMixtureModel {
         }
     }
 
-    private void initializeMeansUsingKMeans( final List<VariantDatum> data, final int numIterations ) {
+    private void initializeMeansUsingKMeans( final VariantDataManager.AnnotationMatrix data, final int numIterations, final ForkJoinPool pool ) {
 
+        final int[] assignments = new int[data.getNumData()];
+        final int[] numAssigned = new int[gaussians.size()];
         int ttt = 0;
         while( ttt++ < numIterations ) {
             // E step: assign each variant to the nearest cluster
-            for( final VariantDatum datum : data ) {
-                double minDistance = Double.MAX_VALUE;
-                MultivariateGaussian minGaussian = null;
-                datum.assignment = minGaussian;
-                for( final MultivariateGaussian gaussian : gaussians ) {
-                    final double dist = gaussian.calculateDistanceFromMeanSquared( datum );
-                    if( dist < minDistance ) {
-                        minDistance = dist;
-                        minGaussian = gaussian;
+            forEachRange( pool, data.getNumData(), BLOCK_SIZE, (from, to) -> {
+                final double[] distances = new double[to - from];
+                final double[] minDistances = new double[to - from];
+                Arrays.fill(minDistances, Double.MAX_VALUE);
+                Arrays.fill(assignments, from, to, -1);
+                for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                    gaussians.get(gaussianIndex).calculateDistanceFromMeanSquared( data, from, to, distances );
+                    for( int ddd = 0; ddd < distances.length; ddd++ ) {
+                        if( distances[ddd] < minDistances[ddd] ) {
+                            minDistances[ddd] = distances[ddd];
+                            assignments[from + ddd] = gaussianIndex;
+                        }
                     }
                 }
-                datum.assignment = minGaussian;
-            }
-
-            // M step: update gaussian means based on assigned variants
-            for( final MultivariateGaussian gaussian : gaussians ) {
-                gaussian.zeroOutMu();
-                int numAssigned = 0;
+            });
 
-                for( final VariantDatum datum : data ) {
-                    if( datum.assignment.equals(gaussian) ) {
-                        numAssigned++;
-                        gaussian.incrementMu( datum );
-                    }
+            // M step: update gaussian means based on assigned variants (re-initializing empty clusters in order, so
+            // that the random number generator is called in the same order as with a single thread)
+            forEachRange( pool, gaussians.size(), 1, (from, to) -> {
+                for( int gaussianIndex = from; gaussianIndex < to; gaussianIndex++ ) {
+                    numAssigned[gaussianIndex] = gaussians.get(gaussianIndex).sumAssignedData( data, assignments, gaussianIndex );
                 }
-                if( numAssigned != 0 ) {
-                    gaussian.divideEqualsMu( ((double) numAssigned) );
+            });
+            for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                final MultivariateGaussian gaussian = gaussians.get(gaussianIndex);
+                if( numAssigned[gaussianIndex] != 0 ) {
+                    gaussian.divideEqualsMu( ((double) numAssigned[gaussianIndex]) );
                 } else {
                     gaussian.initializeRandomMu( Utils.getRandomGenerator() );
                 }
@@ -120,32 +130,37 @@ class GaussianMixtureModel {
         }
     }
 
-    public void expectationStep( final List<VariantDatum> data ) {
+    public void expectationStep( final VariantDataManager.AnnotationMatrix data, final ForkJoinPool pool ) {
 
         for( final MultivariateGaussian gaussian : gaussians ) {
             gaussian.precomputeDenominatorForVariationalBayes( getSumHyperParameterLambda() );
         }
 
-        for( final VariantDatum datum : data ) {
-            final double[] pVarInGaussianLog10 = gaussians.stream().mapToDouble(g -> g.evaluateDatumLog10(datum)).toArray();
-            final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pVarInGaussianLog10, false);
-            int gaussianIndex = 0;
-            for( final MultivariateGaussian gaussian : gaussians ) {
-                gaussian.assignPVarInGaussian( pVarInGaussianNormalized[gaussianIndex++] );
+        forEachRange( pool, data.getNumData(), BLOCK_SIZE, (from, to) -> {
+            final double[][] pVarInGaussianLog10 = evaluateDataLog10( data, from, to );
+            final double[] pDatumInGaussianLog10 = new double[gaussians.size()];
+            for( int ddd = 0; ddd < to - from; ddd++ ) {
+                for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                    pDatumInGaussianLog10[gaussianIndex] = pVarInGaussianLog10[gaussianIndex][ddd];
+                }
+                final double[] pVarInGaussianNormalized = MathUtils.normalizeLog10DeleteMePlease( pDatumInGaussianLog10, false);
+                for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                    gaussians.get(gaussianIndex).setPVarInGaussian( from + ddd, pVarInGaussianNormalized[gaussianIndex] );
+                }
             }
-        }
+        });
     }
 
-    public void maximizationStep( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts));
+    public void maximizationStep( final VariantDataManager.AnnotationMatrix data, final ForkJoinPool pool ) {
+        forEachGaussian( pool, g -> g.maximizeGaussian( data, empiricalMu, empiricalSigma, shrinkage, dirichletParameter, priorCounts) );
     }
 
     private double getSumHyperParameterLambda() {
         return gaussians.stream().mapToDouble(g -> g.hyperParameter_lambda).sum();
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
-        gaussians.forEach(g -> g.evaluateFinalModelParameters(data));
+    public void evaluateFinalModelParameters( final VariantDataManager.AnnotationMatrix data, final ForkJoinPool pool ) {
+        forEachGaussian( pool, g -> g.evaluateFinalModelParameters(data) );
         normalizePMixtureLog10();
     }
 
@@ -190,11 +205,30 @@ class GaussianMixtureModel {
         return MathUtils.log10sumLog10(values);
     }
 
-    public double evaluateDatum( final VariantDatum datum ) {
-        for( final boolean isNull : datum.isNull ) {
-            if( isNull ) {
-                return evaluateDatumMarginalized( datum );
+    /**
+     * Evaluates the given data, none of which may have missing annotations, in one block.  This gives the same
+     * results as calling {@link #evaluateDatum} on each datum.
+     * @param data data without missing annotations
+     * @param result array in which the log10 probability of {@code data.get(i)} is stored at index {@code offset + i}
+     */
+    public void evaluateData( final List<VariantDatum> data, final double[] result, final int offset ) {
+        if( data.isEmpty() ) {
+            return;
+        }
+        final VariantDataManager.AnnotationMatrix matrix = new VariantDataManager.AnnotationMatrix( data );
+        final double[][] pVarInGaussianLog10 = evaluateDataLog10( matrix, 0, matrix.getNumData() );
+        final double[] pDatumInGaussianLog10 = new double[gaussians.size()];
+        for( int ddd = 0; ddd < matrix.getNumData(); ddd++ ) {
+            for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+                pDatumInGaussianLog10[gaussianIndex] = gaussians.get(gaussianIndex).pMixtureLog10 + pVarInGaussianLog10[gaussianIndex][ddd];
             }
+            result[offset + ddd] = nanTolerantLog10SumLog10(pDatumInGaussianLog10); // Sum(pi_k * p(v|n,k))
+        }
+    }
+
+    public double evaluateDatum( final VariantDatum datum ) {
+        if( hasNullAnnotation( datum ) ) {
+            return evaluateDatumMarginalized( datum );
         }
         // Fill an array with the log10 probability coming from each Gaussian and then use MathUtils to sum them up correctly
         final double[] pVarInGaussianLog10 = new double[gaussians.size()];
@@ -244,6 +278,78 @@ class GaussianMixtureModel {
         return Math.log10( sumPVarInGaussian / ((double) numRandomDraws) );
     }
 
+    static boolean hasNullAnnotation( final VariantDatum datum ) {
+        for( final boolean isNull : datum.isNull ) {
+            if( isNull ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the log10 density of each Gaussian (without its mixture coefficient) at each datum in [from, to) of the
+     *         given matrix, indexed by Gaussian and then by datum relative to {@code from}
+     */
+    private double[][] evaluateDataLog10( final VariantDataManager.AnnotationMatrix data, final int from, final int to ) {
+        final double[][] pVarInGaussianLog10 = new double[gaussians.size()][to - from];
+        final double[] crossProdTmp = new double[to - from];
+        for( int gaussianIndex = 0; gaussianIndex < gaussians.size(); gaussianIndex++ ) {
+            gaussians.get(gaussianIndex).evaluateDataLog10( data, from, to, pVarInGaussianLog10[gaussianIndex], crossProdTmp );
+        }
+        return pVarInGaussianLog10;
+    }
+
+    private void forEachGaussian( final ForkJoinPool pool, final Consumer<MultivariateGaussian> action ) {
+        forEachRange( pool, gaussians.size(), 1, (from, to) -> gaussians.subList(from, to).forEach(action) );
+    }
+
+    /**
+     * Runs the given action over [0, size) in parallel in the given pool, in contiguous ranges of {@code grainSize}
+     * elements (except for the last one).  The ranges do not depend on the number of threads in the pool, and the
+     * action is responsible for writing its results only to the elements in its range.
+     */
+    static void forEachRange( final ForkJoinPool pool, final int size, final int grainSize, final RangeAction action ) {
+        Utils.nonNull(pool);
+        Utils.nonNull(action);
+        Utils.validateArg(grainSize > 0, "grainSize must be positive");
+        if( size > 0 ) {
+            pool.invoke(new RangeTask(action, 0, size, grainSize));
+        }
+    }
+
+    @FunctionalInterface
+    interface RangeAction {
+        void apply( final int from, final int to );
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient RangeAction action;
+        private final int from;
+        private final int to;
+        private final int grainSize;
+
+        RangeTask( final RangeAction action, final int from, final int to, final int grainSize ) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.grainSize = grainSize;
+        }
+
+        @Override
+        protected void compute() {
+            final int numGrains = (to - from + grainSize - 1) / grainSize;
+            if( numGrains <= 1 ) {
+                action.apply(from, to);
+            } else {
+                final int middle = from + (numGrains / 2) * grainSize;
+                invokeAll(new RangeTask(action, from, middle, grainSize), new RangeTask(action, middle, to, grainSize));
+            }
+        }
+    }
+
     protected List<MultivariateGaussian> getModelGaussians() {return Collections.unmodifiableList(gaussians);}
 
     protected int getNumAnnotations() {return empiricalMu.length;}
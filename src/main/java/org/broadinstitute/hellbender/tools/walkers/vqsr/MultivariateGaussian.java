@@ -7,7 +7,6 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.collections.ExpandingArrayList;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 
 import Jama.Matrix;
@@ -23,13 +22,11 @@ class MultivariateGaussian {
     private double cachedDenomLog10;
     private Matrix cachedSigmaInverse;
     final private double[] pVarInGaussian;
-    int pVarInGaussianIndex;
 
     public MultivariateGaussian( final int numVariants, final int numAnnotations  ) {
         mu = new double[numAnnotations];
         sigma = new Matrix(numAnnotations, numAnnotations);
         pVarInGaussian = new double[numVariants];
-        pVarInGaussianIndex = 0;
     }
 
     public void zeroOutMu() {
@@ -67,18 +64,47 @@ class MultivariateGaussian {
         sigma.setMatrix(0, mu.length - 1, 0, mu.length - 1, tmp);
     }
 
-    public double calculateDistanceFromMeanSquared( final VariantDatum datum ) {
-        return MathUtils.distanceSquared( datum.annotations, mu );
-    }
-
-    public void incrementMu( final VariantDatum datum ) {
-        incrementMu( datum, 1.0 );
+    /**
+     * Computes the squared distance from the mean of this Gaussian of each datum in [from, to) of the given matrix.
+     * @param result array in which the distance of datum {@code from + i} is stored at index {@code i}
+     */
+    public void calculateDistanceFromMeanSquared( final VariantDataManager.AnnotationMatrix data, final int from, final int to, final double[] result ) {
+        final double[] values = data.getValues();
+        final int length = to - from;
+        Arrays.fill(result, 0, length, 0.0);
+        for( int jjj = 0; jjj < mu.length; jjj++ ) {
+            final int offset = data.getColumnOffset(jjj) + from;
+            for( int ddd = 0; ddd < length; ddd++ ) {
+                final double diff = values[offset + ddd] - mu[jjj];
+                result[ddd] += diff * diff;
+            }
+        }
     }
 
-    public void incrementMu( final VariantDatum datum, final double prob ) {
+    /**
+     * Sets the mean of this Gaussian to the sum of the data assigned to it by the k-means algorithm.
+     * @param assignments index of the Gaussian to which each datum of {@code data} is assigned
+     * @param gaussianIndex index of this Gaussian
+     * @return the number of data assigned to this Gaussian
+     */
+    public int sumAssignedData( final VariantDataManager.AnnotationMatrix data, final int[] assignments, final int gaussianIndex ) {
+        final double[] values = data.getValues();
+        zeroOutMu();
+        int numAssigned = 0;
+        for( final int assignment : assignments ) {
+            if( assignment == gaussianIndex ) {
+                numAssigned++;
+            }
+        }
         for( int jjj = 0; jjj < mu.length; jjj++ ) {
-            mu[jjj] += prob * datum.annotations[jjj];
+            final int offset = data.getColumnOffset(jjj);
+            for( int ddd = 0; ddd < assignments.length; ddd++ ) {
+                if( assignments[ddd] == gaussianIndex ) {
+                    mu[jjj] += values[offset + ddd];
+                }
+            }
         }
+        return numAssigned;
     }
 
     public void divideEqualsMu( final double x ) {
@@ -140,28 +166,54 @@ class MultivariateGaussian {
         return (( -0.5 * sumKernel ) / Math.log(10.0)) + cachedDenomLog10; // This is the definition of a Gaussian PDF Log10
     }
 
-    public void assignPVarInGaussian( final double pVar ) {
-        pVarInGaussian[pVarInGaussianIndex++] = pVar;
+    /**
+     * Block version of {@link #evaluateDatumLog10} that evaluates each datum in [from, to) of the given matrix, with
+     * the same arithmetic (and therefore the same results) as evaluating the data one at a time.
+     * @param result array in which the log10 density of datum {@code from + i} is stored at index {@code i}
+     * @param crossProdTmp workspace with room for at least {@code to - from} values
+     */
+    public void evaluateDataLog10( final VariantDataManager.AnnotationMatrix data, final int from, final int to, final double[] result, final double[] crossProdTmp ) {
+        final double[][] sigmaInverse = cachedSigmaInverse.getArray();
+        final double[] values = data.getValues();
+        final int length = to - from;
+        Arrays.fill(result, 0, length, 0.0);
+        for( int iii = 0; iii < mu.length; iii++ ) {
+            Arrays.fill(crossProdTmp, 0, length, 0.0);
+            for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                final int offset = data.getColumnOffset(jjj) + from;
+                final double muJ = mu[jjj];
+                final double sigmaInverseJI = sigmaInverse[jjj][iii];
+                for( int ddd = 0; ddd < length; ddd++ ) {
+                    crossProdTmp[ddd] += (values[offset + ddd] - muJ) * sigmaInverseJI;
+                }
+            }
+            final int offset = data.getColumnOffset(iii) + from;
+            final double muI = mu[iii];
+            for( int ddd = 0; ddd < length; ddd++ ) {
+                result[ddd] += crossProdTmp[ddd] * (values[offset + ddd] - muI);
+            }
+        }
+        for( int ddd = 0; ddd < length; ddd++ ) {
+            result[ddd] = (( -0.5 * result[ddd] ) / Math.log(10.0)) + cachedDenomLog10;
+        }
+    }
+
+    public void setPVarInGaussian( final int datumIndex, final double pVar ) {
+        pVarInGaussian[datumIndex] = pVar;
     }
 
     public void resetPVarInGaussian() {
         Arrays.fill(pVarInGaussian, 0.0);
-        pVarInGaussianIndex = 0;
     }
 
-    public void maximizeGaussian(final List<VariantDatum> data, final double[] empiricalMu, final Matrix empiricalSigma,
+    public void maximizeGaussian(final VariantDataManager.AnnotationMatrix data, final double[] empiricalMu, final Matrix empiricalSigma,
                                  final double SHRINKAGE, final double DIRICHLET_PARAMETER, final double DEGREES_OF_FREEDOM ) {
         sumProb = 1E-10;
         final Matrix wishart = new Matrix(mu.length, mu.length);
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        incrementWeightedMu( data );
         divideEqualsMu( sumProb );
 
         final double shrinkageFactor = (SHRINKAGE * sumProb) / (SHRINKAGE + sumProb);
@@ -172,18 +224,7 @@ class MultivariateGaussian {
             }
         }
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                double deltaMu = prob * (datum.annotations[iii]-mu[iii]);
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, deltaMu * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
+        incrementWeightedSigma( data );
 
         sigma.plusEquals( empiricalSigma );
         sigma.plusEquals( wishart );
@@ -199,32 +240,59 @@ class MultivariateGaussian {
         resetPVarInGaussian(); // clean up some memory
     }
 
-    public void evaluateFinalModelParameters( final List<VariantDatum> data ) {
+    public void evaluateFinalModelParameters( final VariantDataManager.AnnotationMatrix data ) {
         sumProb = 0.0;
         zeroOutMu();
         zeroOutSigma();
 
-        int datumIndex = 0;
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            sumProb += prob;
-            incrementMu( datum, prob );
-        }
+        incrementWeightedMu( data );
         divideEqualsMu( sumProb );
 
-        datumIndex = 0;
-        final Matrix pVarSigma = new Matrix(mu.length, mu.length);
-        for( final VariantDatum datum : data ) {
-            final double prob = pVarInGaussian[datumIndex++];
-            for( int iii = 0; iii < mu.length; iii++ ) {
-                for( int jjj = 0; jjj < mu.length; jjj++ ) {
-                    pVarSigma.set(iii, jjj, prob * (datum.annotations[iii]-mu[iii]) * (datum.annotations[jjj]-mu[jjj]));
-                }
-            }
-            sigma.plusEquals( pVarSigma );
-        }
+        incrementWeightedSigma( data );
         sigma.timesEquals( 1.0 / sumProb );
 
         resetPVarInGaussian(); // clean up some memory
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the probability of each datum to {@link #sumProb} and the probability-weighted data to {@link #mu}.
+     * Every sum is accumulated in datum order, so the results do not depend on how the data are laid out.
+     */
+    private void incrementWeightedMu( final VariantDataManager.AnnotationMatrix data ) {
+        final double[] values = data.getValues();
+        final int numData = data.getNumData();
+        for( int ddd = 0; ddd < numData; ddd++ ) {
+            sumProb += pVarInGaussian[ddd];
+        }
+        for( int jjj = 0; jjj < mu.length; jjj++ ) {
+            final int offset = data.getColumnOffset(jjj);
+            double sum = mu[jjj];
+            for( int ddd = 0; ddd < numData; ddd++ ) {
+                sum += pVarInGaussian[ddd] * values[offset + ddd];
+            }
+            mu[jjj] = sum;
+        }
+    }
+
+    /**
+     * Adds the probability-weighted scatter matrix of the data around {@link #mu} to {@link #sigma}, accumulating each
+     * element in datum order.
+     */
+    private void incrementWeightedSigma( final VariantDataManager.AnnotationMatrix data ) {
+        final double[] values = data.getValues();
+        final int numData = data.getNumData();
+        for( int iii = 0; iii < mu.length; iii++ ) {
+            final int offsetI = data.getColumnOffset(iii);
+            final double muI = mu[iii];
+            for( int jjj = 0; jjj < mu.length; jjj++ ) {
+                final int offsetJ = data.getColumnOffset(jjj);
+                final double muJ = mu[jjj];
+                double sum = sigma.get(iii, jjj);
+                for( int ddd = 0; ddd < numData; ddd++ ) {
+                    sum += pVarInGaussian[ddd] * (values[offsetI + ddd] - muI) * (values[offsetJ + ddd] - muJ);
+                }
+                sigma.set(iii, jjj, sum);
+            }
+        }
+    }
+}
@@ -461,4 +461,57 @@ public class VariantDataManager {
             recalWriter.add(builder.make());
         }
     }
+
+    /**
+     * The annotation values of a list of {@link VariantDatum}s, stored as one contiguous column-major matrix so that the
+     * Gaussian mixture model can loop over the values of each annotation for a block of variants without chasing a
+     * separate array per variant.
+     */
+    static final class AnnotationMatrix {
+        private final int numData;
+        private final int numAnnotations;
+        private final double[] values; // the value of annotation a for datum d is at values[a * numData + d]
+
+        AnnotationMatrix( final List<VariantDatum> data ) {
+            Utils.nonNull(data);
+            Utils.validateArg(!data.isEmpty(), "No data found.");
+
+            numData = data.size();
+            numAnnotations = data.get(0).annotations.length;
+            Utils.validateArg((long) numData * numAnnotations <= Integer.MAX_VALUE, "Too many data for a single annotation matrix: " + numData);
+            values = new double[numData * numAnnotations];
+
+            int datumIndex = 0;
+            for( final VariantDatum datum : data ) {
+                Utils.validateArg(datum.annotations.length == numAnnotations, "All data must have the same number of annotations.");
+                for( int iii = 0; iii < numAnnotations; iii++ ) {
+                    values[iii * numData + datumIndex] = datum.annotations[iii];
+                }
+                datumIndex++;
+            }
+        }
+
+        int getNumData() {
+            return numData;
+        }
+
+        int getNumAnnotations() {
+            return numAnnotations;
+        }
+
+        double get( final int datumIndex, final int annotationIndex ) {
+            return values[annotationIndex * numData + datumIndex];
+        }
+
+        /**
+         * @return the backing array of this matrix, in which the values of annotation {@code a} start at {@link #getColumnOffset}({@code a})
+         */
+        double[] getValues() {
+            return values;
+        }
+
+        int getColumnOffset( final int annotationIndex ) {
+            return annotationIndex * numData;
+        }
+    }
 }
@@ -29,7 +29,6 @@ final class VariantDatum {
     public SimpleInterval loc;
     public int worstAnnotation;
     public double worstValue;
-    public MultivariateGaussian assignment; // used in K-means implementation
     public boolean isAggregate; // this datum was provided to aid in modeling but isn't part of the input callset
     public Allele referenceAllele;
     public Allele alternateAllele;
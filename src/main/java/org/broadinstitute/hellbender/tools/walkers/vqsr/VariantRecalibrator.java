@@ -720,6 +720,7 @@ public class VariantRecalibrator extends MultiVariantWalker {
 
     @Override
     public void closeTool(){
+        engine.close();
         if (recalWriter != null) {
             recalWriter.close();
         }
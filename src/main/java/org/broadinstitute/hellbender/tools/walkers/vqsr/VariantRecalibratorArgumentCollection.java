@@ -85,6 +85,14 @@ final class VariantRecalibratorArgumentCollection {
     @Argument(fullName = "prior-counts", doc = "The number of prior counts to use in the variational Bayes algorithm.", optional = true)
     public double PRIOR_COUNTS = 20.0;
 
+    /**
+     * The number of threads used to fit the Gaussian mixture models and to evaluate the variants against them.
+     * The results do not depend on the number of threads.
+     */
+    @Advanced
+    @Argument(fullName = "model-threads", doc = "Number of threads to use for fitting and evaluating the Gaussian mixture models", minValue = 1, optional = true)
+    public int MODEL_THREADS = 4;
+
     /**
      * The number of variants to use in building the Gaussian mixture model. Training sets larger than this will be randomly downsampled.
      */
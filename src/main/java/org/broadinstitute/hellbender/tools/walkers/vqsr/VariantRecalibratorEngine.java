@@ -6,6 +6,7 @@ import org.apache.logging.log4j.LogManager;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class VariantRecalibratorEngine {
 
@@ -21,6 +22,9 @@ public class VariantRecalibratorEngine {
 
     private final static double MIN_PROB_CONVERGENCE = 2E-3;
 
+    // the pool in which the models are fit and evaluated, created on first use because the arguments are not yet parsed when this engine is created
+    private ForkJoinPool pool = null;
+
     /////////////////////////////
     // Public Methods to interface with the Engine
     /////////////////////////////
@@ -37,14 +41,15 @@ public class VariantRecalibratorEngine {
             throw new IllegalArgumentException("maxGaussians must be a positive integer but found: " + maxGaussians);
         }
 
+        final VariantDataManager.AnnotationMatrix matrix = new VariantDataManager.AnnotationMatrix( data );
         final GaussianMixtureModel model = new GaussianMixtureModel(
                 maxGaussians,
-                data.size(),
-                data.get(0).annotations.length,
+                matrix.getNumData(),
+                matrix.getNumAnnotations(),
                 VRAC.SHRINKAGE,
                 VRAC.DIRICHLET_PARAMETER,
                 VRAC.PRIOR_COUNTS );
-        variationalBayesExpectationMaximization( model, data );
+        variationalBayesExpectationMaximization( model, matrix );
         return model;
     }
 
@@ -60,8 +65,23 @@ public class VariantRecalibratorEngine {
         }
 
         logger.info("Evaluating full set of " + data.size() + " variants...");
-        for( final VariantDatum datum : data ) {
-            final double thisLod = evaluateDatum( datum, model );
+
+        // Evaluate the data without missing annotations in parallel, and then (in order, since both marginalization and
+        // contrastive evaluation draw random numbers) the data with missing annotations
+        final double[] lods = new double[data.size()];
+        GaussianMixtureModel.forEachRange( getPool(), data.size(), GaussianMixtureModel.BLOCK_SIZE, (from, to) -> {
+            int blockStart = from;
+            for( int iii = from; iii <= to; iii++ ) {
+                if( iii == to || GaussianMixtureModel.hasNullAnnotation(data.get(iii)) ) {
+                    model.evaluateData( data.subList(blockStart, iii), lods, blockStart );
+                    blockStart = iii + 1;
+                }
+            }
+        });
+
+        for( int datumIndex = 0; datumIndex < data.size(); datumIndex++ ) {
+            final VariantDatum datum = data.get(datumIndex);
+            final double thisLod = GaussianMixtureModel.hasNullAnnotation(datum) ? evaluateDatum( datum, model ) : lods[datumIndex];
             if( Double.isNaN(thisLod) ) {
                 logger.warn("Evaluate datum returned a NaN.");
                 model.failedToConverge = true;
@@ -77,21 +97,34 @@ public class VariantRecalibratorEngine {
     }
 
     public void calculateWorstPerformingAnnotation( final List<VariantDatum> data, final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
-        for( final VariantDatum datum : data ) {
-            int worstAnnotation = -1;
-            double minProb = Double.MAX_VALUE;
-            double worstValue = -1;
-            for( int iii = 0; iii < datum.annotations.length; iii++ ) {
-                final Double goodProbLog10 = goodModel.evaluateDatumInOneDimension(datum, iii);
-                final Double badProbLog10 = badModel.evaluateDatumInOneDimension(datum, iii);
-                if( goodProbLog10 != null && badProbLog10 != null ) {
-                    final double prob = goodProbLog10 - badProbLog10;
-                    if(prob < minProb) { minProb = prob; worstAnnotation = iii; worstValue = datum.annotations[iii];}
-                }
+        GaussianMixtureModel.forEachRange( getPool(), data.size(), GaussianMixtureModel.BLOCK_SIZE,
+                (from, to) -> data.subList(from, to).forEach(datum -> calculateWorstPerformingAnnotation(datum, goodModel, badModel)) );
+    }
+
+    /**
+     * Shuts down the threads used to fit and evaluate the models.
+     */
+    public void close() {
+        if ( pool != null ) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private static void calculateWorstPerformingAnnotation( final VariantDatum datum, final GaussianMixtureModel goodModel, final GaussianMixtureModel badModel ) {
+        int worstAnnotation = -1;
+        double minProb = Double.MAX_VALUE;
+        double worstValue = -1;
+        for( int iii = 0; iii < datum.annotations.length; iii++ ) {
+            final Double goodProbLog10 = goodModel.evaluateDatumInOneDimension(datum, iii);
+            final Double badProbLog10 = badModel.evaluateDatumInOneDimension(datum, iii);
+            if( goodProbLog10 != null && badProbLog10 != null ) {
+                final double prob = goodProbLog10 - badProbLog10;
+                if(prob < minProb) { minProb = prob; worstAnnotation = iii; worstValue = datum.annotations[iii];}
             }
-            datum.worstAnnotation = worstAnnotation;
-            datum.worstValue = worstValue;
         }
+        datum.worstAnnotation = worstAnnotation;
+        datum.worstValue = worstValue;
     }
 
 
@@ -99,21 +132,21 @@ public class VariantRecalibratorEngine {
     // Private Methods used for generating a GaussianMixtureModel
     /////////////////////////////
 
-    private void variationalBayesExpectationMaximization( final GaussianMixtureModel model, final List<VariantDatum> data ) {
+    private void variationalBayesExpectationMaximization( final GaussianMixtureModel model, final VariantDataManager.AnnotationMatrix data ) {
 
-        model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS );
+        model.initializeRandomModel( data, VRAC.NUM_KMEANS_ITERATIONS, getPool() );
 
         // The VBEM loop
         model.normalizePMixtureLog10();
-        model.expectationStep( data );
+        model.expectationStep( data, getPool() );
         double currentChangeInMixtureCoefficients;
         int iteration = 0;
         logger.info("Finished iteration " + iteration + ".");
         while( iteration < VRAC.MAX_ITERATIONS ) {
             iteration++;
-            model.maximizationStep( data );
+            model.maximizationStep( data, getPool() );
             currentChangeInMixtureCoefficients = model.normalizePMixtureLog10();
-            model.expectationStep( data );
+            model.expectationStep( data, getPool() );
             if( iteration % 5 == 0 ) { // cut down on the number of output lines so that users can read the warning messages
                 logger.info("Finished iteration " + iteration + ". \tCurrent change in mixture coefficients = " + String.format("%.5f", currentChangeInMixtureCoefficients));
             }
@@ -123,7 +156,14 @@ public class VariantRecalibratorEngine {
             }
         }
 
-        model.evaluateFinalModelParameters( data );
+        model.evaluateFinalModelParameters( data, getPool() );
+    }
+
+    private ForkJoinPool getPool() {
+        if ( pool == null ) {
+            pool = new ForkJoinPool( VRAC.MODEL_THREADS );
+        }
+        return pool;
     }
 
     /////////////////////////////
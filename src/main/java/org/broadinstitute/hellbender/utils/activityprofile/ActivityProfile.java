@@ -10,21 +10,38 @@ import java.util.*;
 /**
  * Class holding information about per-base activity scores for
  * assembly region traversal
+ *
+ * The probabilities of the states are kept in a ring buffer of doubles, so that adding states to the profile and
+ * popping regions off its front don't allocate or shift any per-state objects.  {@link ActivityProfileState}s are
+ * only created for the supporting states of the regions that are returned.
  */
 public class ActivityProfile {
-    protected final List<ActivityProfileState> stateList;
+    private static final int INITIAL_CAPACITY = 256;
+
     protected final Set<SimpleInterval> restrictToIntervals;
 
     protected final int maxProbPropagationDistance;
     protected final double activeProbThreshold;
 
-    protected SimpleInterval regionStartLoc = null;
-    protected SimpleInterval regionStopLoc = null;
+    /**
+     * The contig, first position and last added position of this profile.  contig is null when no state
+     * has been added since this profile was last emptied.
+     */
+    private String contig = null;
+    private int regionStart = -1;
+    private int regionStop = -1;
+
+    /**
+     * Ring buffer of the probabilities of the states, starting at regionStart.  The capacity is always a power of 2.
+     */
+    private double[] probs = new double[INITIAL_CAPACITY];
+    private int head = 0;
+    private int numStates = 0;
 
     protected SAMFileHeader samHeader;
 
     /**
-     * A cached value of the regionStartLoc contig length, to make calls to
+     * A cached value of the current contig length, to make calls to
      * getCurrentContigLength efficient
      */
     protected int contigLength = -1;
@@ -45,7 +62,6 @@ public class ActivityProfile {
      * @param intervals only include states that are within these intervals, if not null
      */
     public ActivityProfile(final int maxProbPropagationDistance, final double activeProbThreshold, final Set<SimpleInterval> intervals, final SAMFileHeader header) {
-        this.stateList = new ArrayList<>();
         this.restrictToIntervals = intervals;
         this.maxProbPropagationDistance = maxProbPropagationDistance;
         this.activeProbThreshold = activeProbThreshold;
@@ -55,8 +71,8 @@ public class ActivityProfile {
     @Override
     public String toString() {
         return "ActivityProfile{" +
-                "start=" + regionStartLoc +
-                ", stop=" + regionStopLoc +
+                "start=" + (contig == null ? null : new SimpleInterval(contig, regionStart, regionStart)) +
+                ", stop=" + (contig == null ? null : new SimpleInterval(contig, regionStop, regionStop)) +
                 '}';
     }
 
@@ -79,7 +95,7 @@ public class ActivityProfile {
      * @return the number of profile results
      */
     public int size() {
-        return stateList.size();
+        return numStates;
     }
 
     /**
@@ -87,7 +103,7 @@ public class ActivityProfile {
      * @return true if the profile is empty (ie., contains no ActivityProfileStates)
      */
     public boolean isEmpty() {
-        return stateList.isEmpty();
+        return numStates == 0;
     }
 
     /**
@@ -95,23 +111,39 @@ public class ActivityProfile {
      * @return a potentially null SimpleInterval.  Will be null if this profile is empty
      */
     public SimpleInterval getSpan() {
-        return isEmpty() ? null : regionStartLoc.spanWith(regionStopLoc);
+        // after popping regions, the first remaining state can come after the last added position
+        return isEmpty() ? null : new SimpleInterval(contig, Math.min(regionStart, regionStop), Math.max(regionStart, regionStop));
     }
 
     public String getContig() {
-        return regionStartLoc.getContig();
+        return contig;
     }
 
     public int getEnd() {
-        return regionStopLoc.getEnd();
+        return regionStop;
     }
 
     /**
      * Get the list of activity profile results in this object
+     *
+     * This is a view of this profile: each call to get() creates a new state with the current probability at
+     * that position, and setting the probability of such a state doesn't affect this profile.
+     *
      * @return a non-null, ordered list of activity profile results
      */
     protected List<ActivityProfileState> getStateList() {
-        return stateList;
+        return new AbstractList<ActivityProfileState>() {
+            @Override
+            public ActivityProfileState get(final int index) {
+                Utils.validIndex(index, numStates);
+                return new ActivityProfileState(new SimpleInterval(contig, regionStart + index, regionStart + index), getProb(index));
+            }
+
+            @Override
+            public int size() {
+                return numStates;
+            }
+        };
     }
 
     /**
@@ -119,31 +151,21 @@ public class ActivityProfile {
      * @return a non-null array
      */
     protected double[] getProbabilitiesAsArray() {
-        final double[] probs = new double[getStateList().size()];
-        int i = 0;
-        for ( final ActivityProfileState state : getStateList() ) {
-            probs[i++] = state.isActiveProb();
+        final double[] result = new double[numStates];
+        for ( int i = 0; i < numStates; i++ ) {
+            result[i] = probs[(head + i) & (probs.length - 1)];
         }
-        return probs;
+        return result;
     }
 
     /**
-     * Helper function that gets the interval for a site offset from relativeLoc, protecting ourselves from
-     * falling off the edge of the contig.
+     * Is position on the current contig?
      *
-     * @param relativeLoc the location offset is relative to
-     * @param offset the offset from relativeLoc where we'd like to create a GenomeLoc
-     * @return a SimpleInterval with relativeLoc.start + offset, if this is on the contig, null otherwise
+     * @param position a position on the contig of this profile
+     * @return true if position is between 1 and the length of the current contig
      */
-    protected SimpleInterval getLocForOffset(final SimpleInterval relativeLoc, final int offset) {
-        Utils.nonNull(relativeLoc);
-
-        final int start = relativeLoc.getStart() + offset;
-        if ( start < 1 || start > getCurrentContigLength() ) {
-            return null;
-        } else {
-            return new SimpleInterval(regionStartLoc.getContig(), start, start);
-        }
+    protected boolean isOnCurrentContig(final int position) {
+        return position >= 1 && position <= getCurrentContigLength();
     }
 
     /**
@@ -171,85 +193,103 @@ public class ActivityProfile {
         Utils.nonNull(state);
         final SimpleInterval loc = state.getLoc();
 
-        if ( regionStartLoc == null ) {
-            regionStartLoc = loc;
-            regionStopLoc = loc;
-            contigLength = samHeader.getSequence(regionStartLoc.getContig()).getSequenceLength();
+        if ( contig == null ) {
+            contig = loc.getContig();
+            regionStart = loc.getStart();
+            regionStop = loc.getStart();
+            contigLength = samHeader.getSequence(contig).getSequenceLength();
         } else {
-            Utils.validateArg( regionStopLoc.getStart() == loc.getStart() - 1, () ->
-                    "Bad add call to ActivityProfile: loc " + loc + " not immediately after last loc " + regionStopLoc);
-            regionStopLoc = loc;
+            Utils.validateArg( regionStop == loc.getStart() - 1, () ->
+                    "Bad add call to ActivityProfile: loc " + loc + " not immediately after last loc " + new SimpleInterval(contig, regionStop, regionStop));
+            regionStop = loc.getStart();
         }
 
-        final Collection<ActivityProfileState> processedStates = processState(state);
-        for ( final ActivityProfileState processedState : processedStates ) {
-            incorporateSingleState(processedState);
-        }
+        processState(state);
     }
 
     /**
-     * Incorporate a single activity profile state into the current list of states
+     * Add probability to the state at position
      *
-     * If state's position occurs immediately after the last position in this profile, then
-     * the state is appended to the state list.  If it's within the existing states list,
-     * the prob of stateToAdd is added to its corresponding state in the list.  If the
-     * position would be before the start of this profile, stateToAdd is simply ignored.
+     * If position occurs immediately after the last position in this profile, then
+     * a state with this probability is appended to the profile.  If it's within the existing states,
+     * prob is added to the probability of the corresponding state.  If the
+     * position would be before the start of this profile, prob is simply ignored.
      *
-     * @param stateToAdd the state we want to add to the states list
+     * @param position the position of the state we want to add to
+     * @param prob the probability to add
      */
-    private void incorporateSingleState(final ActivityProfileState stateToAdd) {
-        Utils.nonNull(stateToAdd);
-        final int position = stateToAdd.getOffset(regionStartLoc);
+    protected final void incorporateSingleState(final int position, final double prob) {
+        final int offset = position - regionStart;
         // should we allow this?  probably not
-        Utils.validateArg(position <= size(), () -> "Must add state contiguous to existing states: adding " + stateToAdd);
+        Utils.validateArg(offset <= numStates, () -> "Must add state contiguous to existing states: adding " + prob + " at " + position);
 
-        if ( position >= 0 ) {
+        if ( offset >= 0 ) {
             // ignore states starting before this region's start
-            if ( position < size() ) {
-                stateList.get(position).setIsActiveProb(stateList.get(position).isActiveProb() + stateToAdd.isActiveProb());
+            if ( offset == numStates ) {
+                if ( numStates == probs.length ) {
+                    grow();
+                }
+                probs[(head + numStates) & (probs.length - 1)] = prob;
+                numStates++;
             } else {
-                Utils.validateArg(position == size(), "position == size but it wasn't");
-                stateList.add(stateToAdd);
+                probs[(head + offset) & (probs.length - 1)] += prob;
             }
         }
     }
 
+    private void grow() {
+        final double[] newProbs = new double[probs.length * 2];
+        for ( int i = 0; i < numStates; i++ ) {
+            newProbs[i] = probs[(head + i) & (probs.length - 1)];
+        }
+        probs = newProbs;
+        head = 0;
+    }
+
     /**
-     * Process justAddedState, returning a collection of derived states that actually be added to the stateList
-     *
-     * The purpose of this function is to transform justAddedStates, if needed, into a series of atomic states
-     * that we actually want to track.  For example, if state is for soft clips, we transform that single
-     * state into a list of states that surround the state up to the distance of the soft clip.
+     * Process justAddedState, adding the probabilities of the derived states that we actually want to track
+     * to this profile via {@link #incorporateDerivedState}
      *
-     * Can be overridden by subclasses to transform states in any way
+     * The purpose of this function is to transform justAddedStates, if needed, into a series of atomic states.
+     * For example, if state is for soft clips, we transform that single state into a series of states that
+     * surround the state up to the distance of the soft clip.
      *
-     * There's no particular contract for the output states, except that they can never refer to states
-     * beyond the current end of the stateList unless the explicitly include preceding states before
-     * the reference.  So for example if the current state list is [1, 2, 3] this function could return
-     * [1,2,3,4,5] but not [1,2,3,5].
+     * The derived states can never refer to states beyond the current end of this profile unless they
+     * explicitly include the preceding states before it, in order.  So for example if the current profile
+     * covers positions [1, 2, 3] the derived states could be at [1,2,3,4,5] but not [1,2,3,5].
      *
-     * @param justAddedState the state our client provided to use to add to the list
-     * @return a list of derived states that should actually be added to this profile's state list
+     * @param justAddedState the state our client provided to use to add to the profile
      */
-    protected Collection<ActivityProfileState> processState(final ActivityProfileState justAddedState) {
+    protected final void processState(final ActivityProfileState justAddedState) {
+        final int justAddedPosition = justAddedState.getLoc().getStart();
         if ( justAddedState.getResultState().equals(ActivityProfileState.Type.HIGH_QUALITY_SOFT_CLIPS) ) {
             // special code to deal with the problem that high quality soft clipped bases aren't added to pileups
-            final List<ActivityProfileState> states = new ArrayList<>();
             // add no more than the max prob propagation distance num HQ clips
             final int numHQClips = Math.min(justAddedState.getResultValue().intValue(), getMaxProbPropagationDistance());
             for( int i = - numHQClips; i <= numHQClips; i++ ) {
-                final SimpleInterval loc = getLocForOffset(justAddedState.getLoc(), i);
-                if ( loc != null ) {
-                    states.add(new ActivityProfileState(loc, justAddedState.isActiveProb()));
+                if ( isOnCurrentContig(justAddedPosition + i) ) {
+                    incorporateDerivedState(justAddedPosition, justAddedPosition + i, justAddedState.isActiveProb());
                 }
             }
-
-            return states;
         } else {
-            return Collections.singletonList(justAddedState);
+            incorporateDerivedState(justAddedPosition, justAddedPosition, justAddedState.isActiveProb());
         }
     }
 
+    /**
+     * Incorporate a single state derived from the state just added to this profile
+     *
+     * Can be overridden by subclasses to spread the probability of the derived state in any way, using
+     * {@link #incorporateSingleState}.
+     *
+     * @param justAddedPosition the position of the state our client provided
+     * @param position the position of the derived state
+     * @param prob the probability of the derived state
+     */
+    protected void incorporateDerivedState(final int justAddedPosition, final int position, final double prob) {
+        incorporateSingleState(position, prob);
+    }
+
     // --------------------------------------------------------------------------------
     //
     // routines to get active regions from the profile
@@ -317,18 +357,16 @@ public class ActivityProfile {
      * @return a fully formed assembly region, or null if none can be made
      */
     private AssemblyRegion popNextReadyAssemblyRegion( final int assemblyRegionExtension, final int minRegionSize, final int maxRegionSize, final boolean forceConversion ) {
-        if ( stateList.isEmpty() ) {
+        if ( isEmpty() ) {
             return null;
         }
 
         // If we are flushing the activity profile we need to trim off the excess states so that we don't create regions outside of our current processing interval
         if( forceConversion ) {
-            final List<ActivityProfileState> statesToTrimAway = new ArrayList<>(stateList.subList(getSpan().size(), stateList.size()));
-            stateList.removeAll(statesToTrimAway);
+            numStates = Math.min(numStates, getSpan().size());
         }
 
-        final ActivityProfileState first = stateList.get(0);
-        final boolean isActiveRegion = first.isActiveProb() > activeProbThreshold;
+        final boolean isActiveRegion = getProb(0) > activeProbThreshold;
         final int offsetOfNextRegionEnd = findEndOfRegion(isActiveRegion, minRegionSize, maxRegionSize, forceConversion);
         if ( offsetOfNextRegionEnd == -1 ) {
             // couldn't find a valid ending offset, so we return null
@@ -336,17 +374,23 @@ public class ActivityProfile {
         }
 
         // we need to create the active region, and clip out the states we're extracting from this profile
-        final List<ActivityProfileState> sub = stateList.subList(0, offsetOfNextRegionEnd + 1);
-        final List<ActivityProfileState> supportingStates = new ArrayList<>(sub);
-        sub.clear();
+        final int regionSize = offsetOfNextRegionEnd + 1;
+        final List<ActivityProfileState> supportingStates = new ArrayList<>(regionSize);
+        for ( int i = 0; i < regionSize; i++ ) {
+            supportingStates.add(new ActivityProfileState(new SimpleInterval(contig, regionStart + i, regionStart + i), getProb(i)));
+        }
+        final SimpleInterval regionLoc = new SimpleInterval(contig, regionStart, regionStart + offsetOfNextRegionEnd);
+
+        head = (head + regionSize) & (probs.length - 1);
+        numStates -= regionSize;
 
         // update the start and stop locations as necessary
-        if ( stateList.isEmpty() ) {
-            regionStartLoc = regionStopLoc = null;
+        if ( isEmpty() ) {
+            contig = null;
+            regionStart = regionStop = -1;
         } else {
-            regionStartLoc = stateList.get(0).getLoc();
+            regionStart += regionSize;
         }
-        final SimpleInterval regionLoc = new SimpleInterval(first.getLoc().getContig(), first.getLoc().getStart(), first.getLoc().getStart() + offsetOfNextRegionEnd);
         return new AssemblyRegion(regionLoc, supportingStates, isActiveRegion, assemblyRegionExtension, samHeader);
     }
 
@@ -371,7 +415,7 @@ public class ActivityProfile {
      * @return the index into stateList of the last element of this region, or -1 if it cannot be found
      */
     private int findEndOfRegion(final boolean isActiveRegion, final int minRegionSize, final int maxRegionSize, final boolean forceConversion) {
-        if ( ! forceConversion && stateList.size() < maxRegionSize + getMaxProbPropagationDistance() ) {
+        if ( ! forceConversion && numStates < maxRegionSize + getMaxProbPropagationDistance() ) {
             // we really haven't finalized at the probability mass that might affect our decision, so keep
             // waiting until we do before we try to make any decisions
             return -1;
@@ -434,7 +478,7 @@ public class ActivityProfile {
     private int findFirstActivityBoundary(final boolean isActiveRegion, final int maxRegionSize) {
         Utils.validateArg(maxRegionSize > 0, "maxRegionSize must be > 0");
 
-        final int nStates = stateList.size();
+        final int nStates = numStates;
         int endOfActiveRegion = 0;
 
         while ( endOfActiveRegion < nStates && endOfActiveRegion < maxRegionSize ) {
@@ -453,9 +497,9 @@ public class ActivityProfile {
      * @return the isActiveProb of the state at index
      */
     private double getProb(final int index) {
-        Utils.validIndex(index, stateList.size());
+        Utils.validIndex(index, numStates);
 
-        return stateList.get(index).isActiveProb();
+        return probs[(head + index) & (probs.length - 1)];
     }
 
     /**
@@ -468,9 +512,9 @@ public class ActivityProfile {
      * @return true if prob at state is a minimum, false otherwise
      */
     private boolean isMinimum(final int index) {
-        Utils.validIndex(index, stateList.size());
+        Utils.validIndex(index, numStates);
 
-        if ( index == stateList.size() - 1 ) {
+        if ( index == numStates - 1 ) {
             // we cannot be at a minimum if the current position is the last in the state list
             return false;
         }
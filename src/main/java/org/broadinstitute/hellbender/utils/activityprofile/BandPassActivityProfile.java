@@ -6,8 +6,6 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Set;
 
 /**
@@ -134,27 +132,20 @@ public class BandPassActivityProfile extends ActivityProfile {
     }
 
     /**
-     * Band pass the probabilities in the ActivityProfile, producing a new profile that's band pass filtered
-     * @return a new double[] that's the band-pass filtered version of this profile
+     * Band pass the probability of each derived state, convolving it with the Gaussian kernel directly into
+     * the probabilities of this profile.  As for any derived state, the kernel is centered on the position of
+     * the state our client provided.
      */
     @Override
-    protected Collection<ActivityProfileState> processState(final ActivityProfileState justAddedState) {
-        final Collection<ActivityProfileState> states = new ArrayList<>();
-
-        for ( final ActivityProfileState superState : super.processState(justAddedState) ) {
-            if ( superState.isActiveProb() > 0.0 ) {
-                for( int i = -filterSize; i <= filterSize; i++ ) {
-                    final SimpleInterval loc = getLocForOffset(justAddedState.getLoc(), i);
-                    if ( loc != null ) {
-                        final double newProb = superState.isActiveProb() * gaussianKernel[i + filterSize];
-                        states.add(new ActivityProfileState(loc, newProb));
-                    }
+    protected void incorporateDerivedState(final int justAddedPosition, final int position, final double prob) {
+        if ( prob > 0.0 ) {
+            for( int i = -filterSize; i <= filterSize; i++ ) {
+                if ( isOnCurrentContig(justAddedPosition + i) ) {
+                    incorporateSingleState(justAddedPosition + i, prob * gaussianKernel[i + filterSize]);
                 }
-            } else {
-                states.add(justAddedState);
             }
+        } else {
+            incorporateSingleState(justAddedPosition, prob);
         }
-
-        return states;
     }
 }
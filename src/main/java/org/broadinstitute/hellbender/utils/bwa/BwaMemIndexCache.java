@@ -1,29 +1,117 @@
 package org.broadinstitute.hellbender.utils.bwa;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manage a global collection of {@link BwaMemIndex} instances.
+ * <p>
+ *     Each index image is loaded at most once per VM, even when several threads (e.g. concurrent Spark tasks on
+ *     the same executor) ask for it at the same time: the first caller loads the image while the others wait for it,
+ *     and requests for other images are not blocked in the meantime.
+ * </p>
+ * <p>
+ *     Callers that want the index to be closed safely while other threads might still be using it should obtain it
+ *     through {@link #acquireInstance} and give it back with {@link #releaseInstance}. A close request
+ *     ({@link #closeInstance}, {@link #closeInstances}) on an index that has outstanding references is deferred
+ *     until the last reference is released.
+ * </p>
+ * <p>
+ *     The cache also keeps some per-image statistics (load time, number of alignment batches, aligned sequences and
+ *     time spent aligning) that can be queried through {@link #getStatistics}.
+ * </p>
  */
 public class BwaMemIndexCache {
 
-    private final static Map<String, BwaMemIndex> instances = new HashMap<>();
+    private static final Logger logger = LogManager.getLogger(BwaMemIndexCache.class);
+
+    private final static ConcurrentMap<String, IndexEntry> instances = new ConcurrentHashMap<>();
+
+    // entries removed from the cache that still have outstanding references.
+    private final static List<IndexEntry> pendingCloses = new ArrayList<>();
 
     /**
      * Returns a {@link BwaMemIndex} instance that corresponds to  given index image file.
+     * <p>
+     *     The returned instance is not reference counted, so it stays open until it is explicitly closed.
+     *     Prefer {@link #acquireInstance} if other threads may close the instance while you are using it.
+     * </p>
+     * @param indexImageFile the target image file.
+     * @return never {@code null}.
+     */
+    public static BwaMemIndex getInstance( final String indexImageFile ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        return openInstance(indexImageFile, false);
+    }
+
+    /**
+     * Returns a {@link BwaMemIndex} instance that corresponds to given index image file and registers a reference to it.
+     * <p>
+     *     Each call must be paired with a call to {@link #releaseInstance} once the caller is done with the index.
+     *     The index won't be closed while there are outstanding references to it.
+     * </p>
      * @param indexImageFile the target image file.
      * @return never {@code null}.
      */
-    public static synchronized BwaMemIndex getInstance( final String indexImageFile ) {
+    public static BwaMemIndex acquireInstance( final String indexImageFile ) {
         Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
-        if (!instances.containsKey(indexImageFile)) {
-            instances.put(indexImageFile, new BwaMemIndex(indexImageFile));
+        return openInstance(indexImageFile, true);
+    }
+
+    /**
+     * Releases a reference previously obtained with {@link #acquireInstance}.
+     * <p>
+     *     If a close was requested while the reference was held and this was the last one, the index is closed.
+     *     Otherwise the index remains cached for later use.
+     * </p>
+     * <p>
+     *     The reference is identified by the instance rather than by its file name, so that releasing an instance that
+     *     was closed and replaced in the cache by a fresh one for the same image does not release the fresh one.
+     * </p>
+     * @param instance the instance returned by {@link #acquireInstance}.
+     * @throws IllegalStateException if there is no outstanding reference to release.
+     */
+    public static void releaseInstance( final BwaMemIndex instance ) {
+        Utils.nonNull(instance, "the input index cannot be null");
+        for ( final IndexEntry entry : instances.values() ) {
+            if ( entry.holds(instance) && entry.release() ) {
+                return;
+            }
+        }
+        // the entry might have been removed from the cache by a close request while we were holding a reference.
+        synchronized ( pendingCloses ) {
+            final Iterator<IndexEntry> it = pendingCloses.iterator();
+            while ( it.hasNext() ) {
+                final IndexEntry pendingEntry = it.next();
+                if ( pendingEntry.holds(instance) && pendingEntry.release() ) {
+                    if ( pendingEntry.isClosed() ) {
+                        it.remove();
+                    }
+                    return;
+                }
+            }
         }
-        return instances.get(indexImageFile);
+        throw new IllegalStateException("there is no outstanding reference to the index instance " + instance);
+    }
+
+    /**
+     * Returns the current number of outstanding references to an index image.
+     * @param indexImageFile the index image file name.
+     * @return 0 or greater.
+     */
+    public static int getReferenceCount( final String indexImageFile ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        final IndexEntry entry = instances.get(indexImageFile);
+        return entry == null ? 0 : entry.getReferenceCount();
     }
 
     /**
@@ -32,16 +120,18 @@ public class BwaMemIndexCache {
      *     Notice that you need to pass in exactly the same file name that was used when invoking {@link #getInstance}.
      * </p>
      * <p>
-     *     An attempt to close a missing instance, won't have any effect.
+     *     An attempt to close a missing instance, won't have any effect. If the instance is in use, as registered
+     *     by {@link #acquireInstance}, it is removed from the cache right away but only closed once its last
+     *     reference is released.
      * </p>
      *
      * @param indexImageFile the index file name of the instance to close.
      */
-    public static synchronized void closeInstance(final String indexImageFile) {
+    public static void closeInstance(final String indexImageFile) {
         Utils.nonNull(indexImageFile, "the input image file cannot be null");
-        if (instances.containsKey(indexImageFile)) {
-            instances.get(indexImageFile).close();
-            instances.remove(indexImageFile);
+        final IndexEntry entry = instances.remove(indexImageFile);
+        if ( entry != null ) {
+            closeEntry(entry);
         }
     }
 
@@ -53,22 +143,24 @@ public class BwaMemIndexCache {
      * </p>
      * @param instance the instance ot close.
      */
-    public static synchronized void closeInstance(final BwaMemIndex instance) {
+    public static void closeInstance(final BwaMemIndex instance) {
         Utils.nonNull(instance, "the input index cannot be null");
-        if (instances.values().contains(instance)) {
-            instance.close();
-            instances.values().remove(instance);
+        for ( final IndexEntry entry : instances.values() ) {
+            if ( entry.holds(instance) && instances.remove(entry.indexImageFile, entry) ) {
+                closeEntry(entry);
+            }
         }
     }
 
     /**
      * Closes all instances in the VM.
      */
-    public static synchronized void closeInstances() {
-        final Iterator<BwaMemIndex> it = instances.values().iterator();
+    public static void closeInstances() {
+        final Iterator<IndexEntry> it = instances.values().iterator();
         while (it.hasNext()) {
-            it.next().close();
+            final IndexEntry entry = it.next();
             it.remove();
+            closeEntry(entry);
         }
     }
 
@@ -83,4 +175,191 @@ public class BwaMemIndexCache {
         for ( int idx = 0; idx != nJobs; ++idx ) jobList.add(idx);
         ctx.parallelize(jobList, nJobs).foreach(idx -> closeInstances());
     }
+
+    /**
+     * Records the time spent aligning a batch of sequences against an index image.
+     * @param indexImageFile the index image file name used to obtain the index.
+     * @param nSequences number of sequences in the batch.
+     * @param elapsedNanos wall-clock time in nanoseconds spent aligning the batch.
+     */
+    public static void recordAlignment( final String indexImageFile, final int nSequences, final long elapsedNanos ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        Utils.validateArg(nSequences >= 0, "the number of sequences cannot be negative");
+        Utils.validateArg(elapsedNanos >= 0, "the elapsed time cannot be negative");
+        final IndexEntry entry = instances.get(indexImageFile);
+        if ( entry != null ) {
+            entry.recordAlignment(nSequences, elapsedNanos);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of a cached index image.
+     * @param indexImageFile the index image file name.
+     * @return {@code null} if the image is not currently in the cache.
+     */
+    public static IndexStatistics getStatistics( final String indexImageFile ) {
+        Utils.nonNull(indexImageFile, "the index image file name provided cannot be null");
+        final IndexEntry entry = instances.get(indexImageFile);
+        return entry == null ? null : entry.getStatistics();
+    }
+
+    private static BwaMemIndex openInstance( final String indexImageFile, final boolean countReference ) {
+        while ( true ) {
+            final IndexEntry entry = instances.computeIfAbsent(indexImageFile, IndexEntry::new);
+            final BwaMemIndex index = entry.open(countReference);
+            if ( index != null ) {
+                return index;
+            }
+            // the entry was closed under our feet; make sure it's gone and try again with a fresh one.
+            instances.remove(indexImageFile, entry);
+        }
+    }
+
+    private static void closeEntry( final IndexEntry entry ) {
+        synchronized ( pendingCloses ) {
+            if ( !entry.closeWhenReleased() ) {
+                pendingCloses.add(entry);
+            }
+        }
+        logger.debug(entry.getStatistics());
+    }
+
+    /**
+     * A cached index image with its reference count and statistics.
+     */
+    private static final class IndexEntry {
+        private final String indexImageFile;
+        private BwaMemIndex index;
+        private int referenceCount;
+        private boolean closeRequested;
+        private boolean closed;
+        private long loadTimeNanos;
+        private final AtomicLong nAlignmentBatches = new AtomicLong();
+        private final AtomicLong nAlignedSequences = new AtomicLong();
+        private final AtomicLong alignmentNanos = new AtomicLong();
+
+        IndexEntry( final String indexImageFile ) {
+            this.indexImageFile = indexImageFile;
+        }
+
+        /**
+         * Returns the index, loading it if this is the first request.
+         * Concurrent callers wait on this entry's monitor until the first one is done loading.
+         * @return {@code null} if this entry has already been closed.
+         */
+        synchronized BwaMemIndex open( final boolean countReference ) {
+            if ( closeRequested || closed ) {
+                return null;
+            }
+            if ( index == null ) {
+                final long startNanos = System.nanoTime();
+                try {
+                    index = new BwaMemIndex(indexImageFile);
+                } catch ( final RuntimeException e ) {
+                    closed = true;
+                    throw new GATKException("Unable to load the BWA-MEM index image " + indexImageFile, e);
+                }
+                loadTimeNanos = System.nanoTime() - startNanos;
+                logger.info(String.format("Loaded BWA-MEM index image %s in %.3f seconds.",
+                        indexImageFile, loadTimeNanos / (double)TimeUnit.SECONDS.toNanos(1)));
+            }
+            if ( countReference ) {
+                referenceCount++;
+            }
+            return index;
+        }
+
+        /**
+         * Releases a reference.
+         * @return {@code false} if there was no outstanding reference to release.
+         */
+        synchronized boolean release() {
+            if ( referenceCount == 0 ) {
+                return false;
+            }
+            if ( --referenceCount == 0 && closeRequested ) {
+                doClose();
+            }
+            return true;
+        }
+
+        /**
+         * Requests this entry to be closed, which happens immediately if there are no outstanding references.
+         * @return {@code true} if the entry got closed.
+         */
+        synchronized boolean closeWhenReleased() {
+            closeRequested = true;
+            if ( referenceCount == 0 ) {
+                doClose();
+            }
+            return closed;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        synchronized boolean holds( final BwaMemIndex instance ) {
+            return index == instance;
+        }
+
+        synchronized int getReferenceCount() {
+            return referenceCount;
+        }
+
+        void recordAlignment( final int nSequences, final long elapsedNanos ) {
+            nAlignmentBatches.incrementAndGet();
+            nAlignedSequences.addAndGet(nSequences);
+            alignmentNanos.addAndGet(elapsedNanos);
+        }
+
+        synchronized IndexStatistics getStatistics() {
+            return new IndexStatistics(indexImageFile, loadTimeNanos, referenceCount,
+                    nAlignmentBatches.get(), nAlignedSequences.get(), alignmentNanos.get());
+        }
+
+        private void doClose() {
+            if ( index != null ) {
+                index.close();
+                index = null;
+            }
+            closed = true;
+        }
+    }
+
+    /**
+     * Immutable snapshot of the usage statistics of a cached index image.
+     */
+    public static final class IndexStatistics {
+        private final String indexImageFile;
+        private final long loadTimeNanos;
+        private final int referenceCount;
+        private final long nAlignmentBatches;
+        private final long nAlignedSequences;
+        private final long alignmentNanos;
+
+        IndexStatistics( final String indexImageFile, final long loadTimeNanos, final int referenceCount,
+                         final long nAlignmentBatches, final long nAlignedSequences, final long alignmentNanos ) {
+            this.indexImageFile = indexImageFile;
+            this.loadTimeNanos = loadTimeNanos;
+            this.referenceCount = referenceCount;
+            this.nAlignmentBatches = nAlignmentBatches;
+            this.nAlignedSequences = nAlignedSequences;
+            this.alignmentNanos = alignmentNanos;
+        }
+
+        public String getIndexImageFile() { return indexImageFile; }
+        /** Time spent loading the image, or 0 if it hasn't been loaded yet. */
+        public long getLoadTimeNanos() { return loadTimeNanos; }
+        public int getReferenceCount() { return referenceCount; }
+        public long getNAlignmentBatches() { return nAlignmentBatches; }
+        public long getNAlignedSequences() { return nAlignedSequences; }
+        public long getAlignmentNanos() { return alignmentNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("BWA-MEM index image %s: loaded in %.3f s, %d alignment batches, %d sequences aligned in %.3f s.",
+                    indexImageFile, loadTimeNanos / 1e9, nAlignmentBatches, nAlignedSequences, alignmentNanos / 1e9);
+        }
+    }
 }
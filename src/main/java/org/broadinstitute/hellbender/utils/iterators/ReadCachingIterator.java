@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * Trivial wrapper around a GATKRead iterator that saves all reads returned in a cache,
@@ -53,6 +54,15 @@ public class ReadCachingIterator implements Iterator<GATKRead> {
         return oldCache;
     }
 
+    /**
+     * Pass all reads currently saved in the cache to consumer, in the order they were returned, and empty the cache.
+     * Unlike {@link #consumeCachedReads()}, this does not allocate a new cache, so it is cheap to call frequently.
+     */
+    public void consumeCachedReads(final Consumer<? super GATKRead> consumer) {
+        cache.forEach(consumer);
+        cache.clear();
+    }
+
     @Override
     public void remove() {
         throw new UnsupportedOperationException("remove() not supported");
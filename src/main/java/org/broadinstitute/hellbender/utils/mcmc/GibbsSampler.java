@@ -5,13 +5,18 @@ import org.apache.commons.math3.random.RandomGenerator;
 import org.apache.commons.math3.random.RandomGeneratorFactory;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.param.ParamUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Implements Gibbs sampling of a multivariate probability density function.
@@ -20,14 +25,14 @@ import java.util.stream.Collectors;
  * @author Samuel Lee &lt;slee@broadinstitute.org&gt;
  */
 public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection> {
-    private static final int RANDOM_SEED = 42;
-    private static final RandomGenerator rng =
-            RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+    public static final int DEFAULT_RANDOM_SEED = 42;
 
     private static final Logger logger = LogManager.getLogger(GibbsSampler.class);
     private static final int NUMBER_OF_SAMPLES_PER_LOG_ENTRY = 25;
 
     private final int numSamples;
+    private final int randomSeed;
+    private final RandomGenerator rng;
     private int numSamplesPerLogEntry;
 
     private final ParameterizedModel<V, S, T> model;
@@ -44,10 +49,24 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * @param model         {@link ParameterizedModel} to be sampled
      */
     public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model) {
+        this(numSamples, model, DEFAULT_RANDOM_SEED);
+    }
+
+    /**
+     * Constructs a GibbsSampler given the total number of samples (including burn-in), a {@link ParameterizedModel},
+     * and the seed for the {@link RandomGenerator} used by this sampler.  Each GibbsSampler holds its own
+     * {@link RandomGenerator}, so that samplers for different models can be run concurrently.
+     * @param numSamples    total number of samples; must be positive
+     * @param model         {@link ParameterizedModel} to be sampled
+     * @param randomSeed    seed for the {@link RandomGenerator}, which is reset each time {@link #runMCMC()} is called
+     */
+    public GibbsSampler(final int numSamples, final ParameterizedModel<V, S, T> model, final int randomSeed) {
         ParamUtils.isPositive(numSamples, "Number of samples must be positive.");
         Utils.validateArg(model.getUpdateMethod() == ParameterizedModel.UpdateMethod.GIBBS, "ParameterizedModel must be constructed to update using Gibbs sampling.");
         this.numSamples = numSamples;
         this.model = model;
+        this.randomSeed = randomSeed;
+        rng = RandomGeneratorFactory.createRandomGenerator(new Random(randomSeed));
         numSamplesPerLogEntry = NUMBER_OF_SAMPLES_PER_LOG_ENTRY;
         samples = new ArrayList<>(numSamples);
         samples.add(model.state());
@@ -67,7 +86,7 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
      * Progress is logged according to {@code numSamplesPerLogEntry}.
      */
     public void runMCMC() {
-        rng.setSeed(RANDOM_SEED);
+        rng.setSeed(randomSeed);
         logger.info("Starting MCMC sampling.");
         for (int sample = 1; sample < numSamples; sample++) {
             if (sample % numSamplesPerLogEntry == 0) {
@@ -98,4 +117,52 @@ public final class GibbsSampler<V extends Enum<V> & ParameterEnum, S extends Par
         return samples.stream().map(s -> s.get(parameterName, parameterValueClass)).collect(Collectors.toList())
                 .subList(numBurnIn, numSamples);
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs independent Monte Carlo Markov Chains for the given models, each initialized using the state held by its model.
+     * The chain for the model at index i uses the random seed {@code DEFAULT_RANDOM_SEED + i},
+     * so that the chain for the first model is identical to that generated by a sampler constructed with
+     * {@link #GibbsSampler(int, ParameterizedModel)}.  Models must not share mutable state
+     * (see {@link ParameterizedModel#copy()}); results do not depend on the number of threads.
+     * @param numSamples    total number of samples per chain; must be positive
+     * @param models        {@link ParameterizedModel}s to be sampled, one per chain
+     * @param numThreads    maximum number of chains to run concurrently; must be positive
+     * @return samplers with completed runs, in the order of {@code models}
+     */
+    public static <V extends Enum<V> & ParameterEnum, S extends ParameterizedState<V>, T extends DataCollection>
+    List<GibbsSampler<V, S, T>> runMCMCInParallel(final int numSamples,
+                                                  final List<ParameterizedModel<V, S, T>> models,
+                                                  final int numThreads) {
+        Utils.nonEmpty(models);
+        ParamUtils.isPositive(numThreads, "Number of threads must be positive.");
+        Utils.validateArg(models.stream().distinct().count() == models.size(), "Each chain must be given a distinct model.");
+        final List<GibbsSampler<V, S, T>> samplers = IntStream.range(0, models.size())
+                .mapToObj(chainIndex -> new GibbsSampler<>(numSamples, models.get(chainIndex), DEFAULT_RANDOM_SEED + chainIndex))
+                .collect(Collectors.toList());
+        if (numThreads == 1 || samplers.size() == 1) {
+            samplers.forEach(GibbsSampler::runMCMC);
+            return samplers;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(Math.min(numThreads, samplers.size()));
+        try {
+            final List<Future<?>> futures = samplers.stream()
+                    .map(sampler -> pool.submit(sampler::runMCMC))
+                    .collect(Collectors.toList());
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("Interrupted while running MCMC chains.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("Exception while running MCMC chains.", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return samplers;
+    }
+}
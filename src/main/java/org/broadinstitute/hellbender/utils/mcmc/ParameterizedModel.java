@@ -4,6 +4,7 @@ import org.apache.commons.math3.random.RandomGenerator;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a parameterized model.  The parameterized state of the model is represented by an
@@ -106,6 +107,35 @@ public final class ParameterizedModel<V1 extends Enum<V1> & ParameterEnum, S1 ex
         updateMethod = UpdateMethod.GIBBS;
     }
 
+    //Constructor for copy
+    private ParameterizedModel(final ParameterizedModel<V1, S1, T1> model, final S1 state) {
+        this.state = state;
+        dataCollection = model.dataCollection;
+        samplerMap = model.samplerMap;
+        updateMethod = model.updateMethod;
+    }
+
+    /**
+     * Returns a model holding a copy of the {@link ParameterizedState} held internally, which shares the
+     * {@link DataCollection} and {@link ParameterSampler}s with this model.  This can be used to run independent
+     * Markov chains (e.g., using {@link GibbsSampler#runMCMCInParallel}), in which case the samplers must not hold
+     * mutable state and the data collection must be safe to read concurrently.  Subclasses of {@link ParameterizedState}
+     * that are expected by the samplers must override {@link ParameterizedState#copy()} to return an instance of the subclass.
+     */
+    public ParameterizedModel<V1, S1, T1> copy() {
+        return copy(UnaryOperator.identity());
+    }
+
+    /**
+     * As {@link #copy()}, but the returned model holds the state obtained by applying {@code initializer} to a copy of
+     * the {@link ParameterizedState} held internally.  This can be used to start independent Markov chains from
+     * different (e.g., overdispersed) initial states.
+     * @param initializer   function returning the state of the returned model, given a copy of the state of this model
+     */
+    public ParameterizedModel<V1, S1, T1> copy(final UnaryOperator<S1> initializer) {
+        return new ParameterizedModel<>(this, initializer.apply(state()));
+    }
+
     /**
      * Returns a copy of the {@link ParameterizedState} held internally.
      * @return  copy of the {@link ParameterizedState} held internally
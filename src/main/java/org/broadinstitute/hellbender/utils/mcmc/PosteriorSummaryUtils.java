@@ -8,6 +8,7 @@ import org.apache.commons.math3.optim.univariate.SearchInterval;
 import org.apache.commons.math3.optim.univariate.UnivariateObjectiveFunction;
 import org.apache.commons.math3.stat.descriptive.moment.Mean;
 import org.apache.commons.math3.stat.descriptive.moment.StandardDeviation;
+import org.apache.commons.math3.stat.descriptive.moment.Variance;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.mllib.stat.KernelDensity;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -24,6 +25,8 @@ import java.util.List;
 public class PosteriorSummaryUtils {
     public static final double SILVERMANS_RULE_CONSTANT = 1.06;
     public static final double SILVERMANS_RULE_EXPONENT = -0.2;
+    //potential scale reduction factors above this value indicate that Markov chains have not converged
+    public static final double POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD = 1.1;
     //constants for Brent optimization
     private static final MaxEval BRENT_MAX_EVAL = new MaxEval(100);
     private static final double RELATIVE_TOLERANCE = 0.01;
@@ -145,4 +148,42 @@ public class PosteriorSummaryUtils {
         final SearchInterval searchInterval = new SearchInterval(sampleMin, sampleMax, sampleMean);
         return optimizer.optimize(objective, GoalType.MAXIMIZE, searchInterval, BRENT_MAX_EVAL).getPoint();
     }
+
+    /**
+     * Given posterior samples from multiple Markov chains of equal length, returns the potential scale reduction factor
+     * R (Gelman and Rubin 1992, "Inference from iterative simulation using multiple sequences," Statistical Science 7),
+     * which compares the between-chain and within-chain variances of the samples.  Values near 1 indicate that the chains
+     * have converged to a common distribution; values above ~1.1 indicate that more samples (or more burn-in) are needed.
+     * If all samples are identical, 1 is returned; if the samples within each chain are identical but differ between chains,
+     * {@link Double#POSITIVE_INFINITY} is returned.  If the samples contain {@link Double#NaN}, {@link Double#NaN} will be returned.
+     * @param chainSamples  posterior samples for each chain (after discarding burn-in), cannot be {@code null};
+     *                      there must be at least 2 chains, each with the same number (at least 2) of samples
+     */
+    public static double calculatePotentialScaleReductionFactor(final List<List<Double>> chainSamples) {
+        Utils.nonNull(chainSamples);
+        Utils.validateArg(chainSamples.size() >= 2, "Number of chains must be at least 2.");
+        final int numSamplesPerChain = Utils.nonNull(chainSamples.get(0)).size();
+        Utils.validateArg(numSamplesPerChain >= 2, "Number of samples per chain must be at least 2.");
+        Utils.validateArg(chainSamples.stream().allMatch(samples -> samples != null && samples.size() == numSamplesPerChain),
+                "All chains must have the same number of samples.");
+
+        final int numChains = chainSamples.size();
+        final double[] chainMeans = new double[numChains];
+        double withinChainVariance = 0.;
+        for (int chain = 0; chain < numChains; chain++) {
+            final double[] samples = Doubles.toArray(chainSamples.get(chain));
+            chainMeans[chain] = new Mean().evaluate(samples);
+            withinChainVariance += new Variance().evaluate(samples) / numChains;
+        }
+        final double betweenChainVariance = numSamplesPerChain * new Variance().evaluate(chainMeans);
+        if (Double.isNaN(withinChainVariance) || Double.isNaN(betweenChainVariance)) {
+            return Double.NaN;
+        }
+        if (withinChainVariance == 0.) {
+            return betweenChainVariance == 0. ? 1. : Double.POSITIVE_INFINITY;
+        }
+        final double pooledVariance =
+                (numSamplesPerChain - 1.) / numSamplesPerChain * withinChainVariance + betweenChainVariance / numSamplesPerChain;
+        return Math.sqrt(pooledVariance / withinChainVariance);
+    }
 }
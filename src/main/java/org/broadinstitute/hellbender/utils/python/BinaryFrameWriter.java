@@ -0,0 +1,172 @@
+package org.broadinstitute.hellbender.utils.python;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes values into the length-prefixed binary frames that are read from a binary data FIFO by the
+ * {@code readDataFrame} function in the {@code tool} module of the {@code gatktool} Python package
+ * (see {@link StreamingPythonScriptExecutor.DataTransferMode#BINARY_FRAMES}).
+ *
+ * Each frame consists of a one byte type code, the length of the payload in bytes as a little-endian 32 bit integer,
+ * and the payload. Numeric arrays are written in little-endian order, so that on the Python side they can be wrapped
+ * directly (e.g. by {@code numpy.frombuffer}) instead of being parsed from text.
+ *
+ * A writer is typically used by the item serializer of a {@link StreamingPythonScriptExecutor} to write the frames
+ * for one item:
+ *
+ * <pre>
+ *     item -> new BinaryFrameWriter().writeString(item.getName()).writeFloatArray(item.getValues()).getStream()
+ * </pre>
+ *
+ * This class is not thread-safe.
+ */
+public final class BinaryFrameWriter {
+
+    /**
+     * Type codes of the frames. These must be kept in sync with the type codes in the {@code tool} module.
+     */
+    public enum FrameType {
+        /** A UTF-8 encoded string. */
+        STRING('s', 1),
+        /** Raw bytes. */
+        BYTES('x', 1),
+        /** An array of signed 8 bit integers. */
+        INT8_ARRAY('b', Byte.BYTES),
+        /** An array of signed 32 bit integers. */
+        INT32_ARRAY('i', Integer.BYTES),
+        /** An array of signed 64 bit integers. */
+        INT64_ARRAY('q', Long.BYTES),
+        /** An array of 32 bit floats. */
+        FLOAT32_ARRAY('f', Float.BYTES),
+        /** An array of 64 bit floats. */
+        FLOAT64_ARRAY('d', Double.BYTES);
+
+        private final byte code;
+        private final int elementSize;
+
+        FrameType(final char code, final int elementSize) {
+            this.code = (byte) code;
+            this.elementSize = elementSize;
+        }
+
+        public byte getCode() {
+            return code;
+        }
+
+        public int getElementSize() {
+            return elementSize;
+        }
+    }
+
+    /**
+     * Size of the header of each frame: the type code followed by the length of the payload.
+     */
+    public static final int FRAME_HEADER_SIZE = 1 + Integer.BYTES;
+
+    private final ByteArrayOutputStream stream;
+    private ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    public BinaryFrameWriter() {
+        this(new ByteArrayOutputStream());
+    }
+
+    /**
+     * @param stream stream to which frames will be appended
+     */
+    public BinaryFrameWriter(final ByteArrayOutputStream stream) {
+        this.stream = Utils.nonNull(stream);
+    }
+
+    /**
+     * @return the stream to which frames have been written
+     */
+    public ByteArrayOutputStream getStream() {
+        return stream;
+    }
+
+    public BinaryFrameWriter writeString(final String value) {
+        Utils.nonNull(value);
+        return writeBytes(FrameType.STRING, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public BinaryFrameWriter writeBytes(final byte[] values) {
+        Utils.nonNull(values);
+        return writeBytes(FrameType.BYTES, values);
+    }
+
+    public BinaryFrameWriter writeInt8Array(final byte[] values) {
+        Utils.nonNull(values);
+        return writeBytes(FrameType.INT8_ARRAY, values);
+    }
+
+    /**
+     * Writes a single 32 bit integer, as an {@link FrameType#INT32_ARRAY} frame of length one.
+     */
+    public BinaryFrameWriter writeInt(final int value) {
+        return writeIntArray(new int[] {value});
+    }
+
+    public BinaryFrameWriter writeIntArray(final int[] values) {
+        Utils.nonNull(values);
+        startFrame(FrameType.INT32_ARRAY, values.length).asIntBuffer().put(values);
+        return endFrame();
+    }
+
+    public BinaryFrameWriter writeLongArray(final long[] values) {
+        Utils.nonNull(values);
+        startFrame(FrameType.INT64_ARRAY, values.length).asLongBuffer().put(values);
+        return endFrame();
+    }
+
+    public BinaryFrameWriter writeFloatArray(final float[] values) {
+        Utils.nonNull(values);
+        startFrame(FrameType.FLOAT32_ARRAY, values.length).asFloatBuffer().put(values);
+        return endFrame();
+    }
+
+    public BinaryFrameWriter writeDoubleArray(final double[] values) {
+        Utils.nonNull(values);
+        startFrame(FrameType.FLOAT64_ARRAY, values.length).asDoubleBuffer().put(values);
+        return endFrame();
+    }
+
+    private BinaryFrameWriter writeBytes(final FrameType type, final byte[] values) {
+        writeHeader(type, values.length);
+        stream.write(values, 0, values.length);
+        return this;
+    }
+
+    /**
+     * Writes the header of a numeric array frame, and makes the buffer large enough for its payload.
+     * @return a view of the payload region of the buffer
+     */
+    private ByteBuffer startFrame(final FrameType type, final int numElements) {
+        final long payloadSize = (long) numElements * type.getElementSize();
+        Utils.validateArg(payloadSize <= Integer.MAX_VALUE, "Array is too large for a single frame: " + numElements);
+        writeHeader(type, (int) payloadSize);
+        if (buffer.capacity() < payloadSize) {
+            buffer = ByteBuffer.allocate((int) payloadSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        buffer.clear();
+        buffer.limit((int) payloadSize);
+        return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private BinaryFrameWriter endFrame() {
+        stream.write(buffer.array(), 0, buffer.limit());
+        return this;
+    }
+
+    private void writeHeader(final FrameType type, final int payloadSize) {
+        stream.write(type.getCode());
+        stream.write(payloadSize);
+        stream.write(payloadSize >>> 8);
+        stream.write(payloadSize >>> 16);
+        stream.write(payloadSize >>> 24);
+    }
+}
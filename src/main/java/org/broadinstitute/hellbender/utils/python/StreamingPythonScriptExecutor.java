@@ -60,6 +60,7 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
     private final static String PYTHON_INITIALIZE_GATK = "tool.initializeGATK('%s')" + NL;
     private final static String PYTHON_TERMINATE_GATK = "tool.terminateGATK()" + NL;
     private final static String PYTHON_INITIALIZE_DATA_FIFO = "tool.initializeDataFIFO('%s')" + NL;
+    private final static String PYTHON_INITIALIZE_BINARY_DATA_FIFO = "tool.initializeDataFIFO('%s', binary=True)" + NL;
     private final static String PYTHON_CLOSE_DATA_FIFO = "tool.closeDataFIFO()" + NL;
     private final static String PYTHON_SEND_ACK_REQUEST = "tool.sendAck()" + NL;
 
@@ -67,6 +68,29 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
     // request until the previous one has been handled
     private boolean isAckRequestOutstanding = false;
 
+    /**
+     * How data written through the stream writer is read by the Python process.
+     */
+    public enum DataTransferMode {
+        /**
+         * The data FIFO is opened in text mode, and items are read one line at a time via {@code tool.readDataFIFO()}.
+         * Items must be serialized as newline-terminated text.
+         */
+        TEXT,
+        /**
+         * The data FIFO is opened in binary mode, and items are read one frame at a time via
+         * {@code tool.readDataFrame()}. Items must be serialized as frames via {@link BinaryFrameWriter}, which avoids
+         * formatting and parsing numeric data as text.
+         */
+        BINARY_FRAMES
+    }
+
+    private DataTransferMode dataTransferMode;
+
+    // number of batches queued via startQueuedBatchWrite whose acks have not yet been retrieved; these acks are
+    // retrieved in order, and no other ack request can be made while any of them are outstanding
+    private int numQueuedBatchAcksOutstanding = 0;
+
     /**
      * The start method must be called to actually start the remote executable.
      *
@@ -196,8 +220,12 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
         if (!isAckRequestOutstanding) {
             throw new GATKException("No ack request is outstanding. An ack request must be issued first");
         }
-        final boolean isAck = spController.waitForAck();
         isAckRequestOutstanding = false;
+        return receiveAck();
+    }
+
+    private ProcessOutput receiveAck() {
+        final boolean isAck = spController.waitForAck();
         // At every ack receipt, we want to retrieve the stdout/stderr output in case we're journaling
         final ProcessOutput po = getAccumulatedOutput();
         // if the ack was negative, throw, since the ack queue is no longer reliably in sync
@@ -227,14 +255,30 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
      * @return An {@link AsynchronousStreamWriter}
      */
     public void initStreamWriter(final Function<T, ByteArrayOutputStream> itemSerializer) {
+        initStreamWriter(itemSerializer, DataTransferMode.TEXT);
+    }
+
+    /**
+     * Obtain a stream writer that serializes and writes batches of items of type {@code T} on a background thread.
+     * @param itemSerializer {@code Function} that  accepts items of type {@code T} and converts them to a
+     *                                       {@code ByteArrayOutputStream} that is subsequently written to the stream.
+     *                       For {@link DataTransferMode#BINARY_FRAMES}, the items must be serialized via a
+     *                       {@link BinaryFrameWriter}.
+     * @param dataTransferMode how the Python process reads the data written to the stream
+     */
+    public void initStreamWriter(final Function<T, ByteArrayOutputStream> itemSerializer, final DataTransferMode dataTransferMode) {
         Utils.nonNull(itemSerializer, "An item serializer must be provided for the async writer service");
+        Utils.nonNull(dataTransferMode);
 
         dataTransferFIFOFile = spController.createDataFIFO();
+        this.dataTransferMode = dataTransferMode;
 
         // Open the FIFO for writing. Opening a FIFO for read or write will block until there is a reader/writer
         // on the other end, so before we open it, send a non blocking, ASYNCHRONOUS command to the Python process
         // to open the FIFO for reading. The Python process will then block until we open the FIFO below.
-        sendAsynchronousCommand(String.format(PYTHON_INITIALIZE_DATA_FIFO, dataTransferFIFOFile.getAbsolutePath()));
+        sendAsynchronousCommand(String.format(
+                dataTransferMode == DataTransferMode.BINARY_FRAMES ? PYTHON_INITIALIZE_BINARY_DATA_FIFO : PYTHON_INITIALIZE_DATA_FIFO,
+                dataTransferFIFOFile.getAbsolutePath()));
         try {
             dataTransferFIFOWriter = new FileOutputStream(dataTransferFIFOFile);
             asyncWriter = spController.getAsynchronousStreamWriter(dataTransferFIFOWriter, itemSerializer);
@@ -277,6 +321,78 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
         return numberOfItemsWritten;
     }
 
+    /**
+     * Request that a batch of items be written to the stream on a background thread, to be consumed by the given
+     * Python command, without waiting for previously queued batches to be consumed. The Python process executes the
+     * commands for queued batches one after another, so while it consumes one batch the data for the following
+     * batches can already be written. The completion of each queued batch must be retrieved, in the order in which
+     * the batches were queued, via {@link #waitForOldestQueuedBatchCompletion}; no other commands can be sent while
+     * queued batches are outstanding.
+     *
+     * @param pythonCommand command that will be executed asynchronously to consume the data written to the stream
+     * @param batchList a list of items to be written
+     */
+    public void startQueuedBatchWrite(final String pythonCommand, final List<T> batchList) {
+        Utils.nonNull(pythonCommand);
+        Utils.nonNull(batchList);
+        Utils.nonEmpty(batchList);
+        if (!pythonCommand.endsWith(NL)) {
+            throw new IllegalArgumentException("Python commands must be newline-terminated");
+        }
+        if (isAckRequestOutstanding) {
+            throw new GATKException("An ack request is already outstanding. The previous ack request must be retrieved" +
+                    " before a batch can be queued");
+        }
+        spController.writeProcessInput(pythonCommand);
+        spController.writeProcessInput(PYTHON_SEND_ACK_REQUEST);
+        numQueuedBatchAcksOutstanding++;
+        asyncWriter.queueBatchWrite(batchList);
+    }
+
+    /**
+     * Waits for the oldest batch that was queued via {@link #startQueuedBatchWrite(String, List)} to be written and
+     * consumed by the Python process, and returns the corresponding completed Future.
+     * @return returns null if no queued batch is outstanding, otherwise a completed Future
+     * @throws PythonScriptExecutorException if the Python command consuming the batch failed
+     */
+    public Future<Integer> waitForOldestQueuedBatchCompletion() {
+        final Future<Integer> numberOfItemsWritten = asyncWriter.waitForOldestQueuedBatchCompletion();
+        if (numberOfItemsWritten != null) {
+            numQueuedBatchAcksOutstanding--;
+            receiveAck();
+        }
+        return numberOfItemsWritten;
+    }
+
+    /**
+     * @return the number of batches queued via {@link #startQueuedBatchWrite(String, List)} that have not yet been
+     * retrieved via {@link #waitForOldestQueuedBatchCompletion}
+     */
+    public int getNumQueuedBatches() {
+        return numQueuedBatchAcksOutstanding;
+    }
+
+    /**
+     * @return the mode in which the stream writer was initialized, or null if {@link #initStreamWriter} has not been called
+     */
+    public DataTransferMode getDataTransferMode() {
+        return dataTransferMode;
+    }
+
+    /**
+     * @return the number of items that have been written to the data stream, or 0 if there is no stream writer
+     */
+    public long getNumItemsWritten() {
+        return asyncWriter == null ? 0 : asyncWriter.getNumItemsWritten();
+    }
+
+    /**
+     * @return the number of serialized bytes that have been written to the data stream, or 0 if there is no stream writer
+     */
+    public long getNumBytesWritten() {
+        return asyncWriter == null ? 0 : asyncWriter.getNumBytesWritten();
+    }
+
     /**
      * Get the Process object associated with this executor. For testing only.
      *
@@ -294,7 +410,9 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
         if (dataTransferFIFOWriter != null) {
             if (asyncWriter != null) {
                 Assert.assertTrue(asyncWriter.terminate());
+                logDataTransferStatistics();
             }
+            numQueuedBatchAcksOutstanding = 0;
             spController.writeProcessInput(PYTHON_CLOSE_DATA_FIFO);
             sendAckRequest();
             waitForAck();
@@ -338,7 +456,23 @@ public class StreamingPythonScriptExecutor<T> extends PythonExecutorBase {
         waitForAck();
     }
 
+    private void logDataTransferStatistics() {
+        final double writeTimeSeconds = asyncWriter.getWriteTimeNanos() / 1e9;
+        final double megabytesWritten = asyncWriter.getNumBytesWritten() / (1024.0 * 1024.0);
+        logger.info(String.format("Streamed %d items (%.2f MB) in %d batches to Python in %s mode; %.2f seconds spent writing (%.2f MB/s)",
+                asyncWriter.getNumItemsWritten(),
+                megabytesWritten,
+                asyncWriter.getNumBatchesWritten(),
+                dataTransferMode,
+                writeTimeSeconds,
+                writeTimeSeconds > 0 ? megabytesWritten / writeTimeSeconds : 0.0));
+    }
+
     private void sendAckRequest() {
+        if (numQueuedBatchAcksOutstanding > 0) {
+            throw new GATKException("Queued batches are outstanding. Their completion must be retrieved" +
+                    " before a new ack request can be issued");
+        }
         if (isAckRequestOutstanding) {
             throw new GATKException("An ack request is already outstanding. The previous ack request must be retrieved" +
                     " before a new ack request can be issued");
@@ -0,0 +1,188 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.BAMRecordCodec;
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMRecord;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * A FIFO queue of reads that tracks an estimate of the memory retained by the reads it holds, and keeps that estimate
+ * within a budget.
+ *
+ * While the reads held as objects exceed half of the budget, newly-added reads are kept in BAM-encoded form instead,
+ * and are only decoded again once they reach the head of the queue.  If the total footprint (reads held as objects plus
+ * encoded reads) exceeds the budget, newly-added reads are downsampled in tiers: with a footprint over the budget by
+ * k eighths of the budget, each read is kept with probability 1/2^(k+1), and no reads are kept once the footprint
+ * reaches twice the budget.
+ *
+ * A budget of {@link #NO_BUDGET} disables both spilling and downsampling, so that the queue behaves like a plain
+ * {@link ArrayDeque}, but still reports its footprint.
+ *
+ * The order of the reads is always preserved.  Reads that were spilled are returned as new objects equal to the ones
+ * that were added, without any transient attributes.
+ */
+public final class MemoryBudgetedReadQueue {
+    public static final long NO_BUDGET = 0L;
+
+    /**
+     * Rough estimate of the fixed cost of a read held as an object, including its header fields and the objects
+     * for its cigar and attributes
+     */
+    private static final int READ_OBJECT_OVERHEAD = 300;
+    private static final int CIGAR_ELEMENT_OVERHEAD = 24;
+    private static final int ENCODED_READ_OVERHEAD = 16;
+    private static final int DOWNSAMPLING_TIERS = 8;
+
+    private final SAMFileHeader header;
+    private final long budget;
+
+    // reads held as objects always precede the encoded reads
+    private final Queue<GATKRead> reads = new ArrayDeque<>();
+    private final Queue<byte[]> encodedReads = new ArrayDeque<>();
+
+    private final BAMRecordCodec codec;
+    private final ByteArrayOutputStream encodingBuffer = new ByteArrayOutputStream();
+
+    private long readBytes = 0L;
+    private long encodedBytes = 0L;
+    private long peakBytes = 0L;
+    private long numSpilled = 0L;
+    private long numDownsampled = 0L;
+
+    /**
+     * @param header header for the reads, used to encode them
+     * @param budget maximum number of bytes to retain, or {@link #NO_BUDGET}
+     */
+    public MemoryBudgetedReadQueue(final SAMFileHeader header, final long budget) {
+        Utils.nonNull(header);
+        Utils.validateArg(budget >= 0, () -> "budget must be >= 0 but got " + budget);
+        this.header = header;
+        this.budget = budget;
+        this.codec = new BAMRecordCodec(header);
+    }
+
+    /**
+     * Add read to the tail of this queue, unless it is downsampled away
+     *
+     * @return true if the read was retained
+     */
+    public boolean add(final GATKRead read) {
+        Utils.nonNull(read);
+        if ( budget != NO_BUDGET && getFootprint() > budget && ! keepWhenOverBudget() ) {
+            numDownsampled++;
+            return false;
+        }
+
+        if ( budget != NO_BUDGET && (! encodedReads.isEmpty() || readBytes > budget / 2) ) {
+            final byte[] encoded = encode(read);
+            encodedReads.add(encoded);
+            encodedBytes += encoded.length + ENCODED_READ_OVERHEAD;
+            numSpilled++;
+        } else {
+            reads.add(read);
+            readBytes += estimateFootprint(read);
+        }
+        peakBytes = Math.max(peakBytes, getFootprint());
+        return true;
+    }
+
+    /**
+     * @return the read at the head of this queue, without removing it, or null if this queue is empty
+     */
+    public GATKRead peek() {
+        if ( reads.isEmpty() && ! encodedReads.isEmpty() ) {
+            final byte[] encoded = encodedReads.poll();
+            encodedBytes -= encoded.length + ENCODED_READ_OVERHEAD;
+            final GATKRead read = decode(encoded);
+            reads.add(read);
+            readBytes += estimateFootprint(read);
+        }
+        return reads.peek();
+    }
+
+    /**
+     * @return the read at the head of this queue, which is removed
+     * @throws NoSuchElementException if this queue is empty
+     */
+    public GATKRead remove() {
+        final GATKRead read = peek();
+        if ( read == null ) {
+            throw new NoSuchElementException("remove() called on an empty queue");
+        }
+        reads.poll();
+        readBytes -= estimateFootprint(read);
+        return read;
+    }
+
+    public boolean isEmpty() {
+        return reads.isEmpty() && encodedReads.isEmpty();
+    }
+
+    public int size() {
+        return reads.size() + encodedReads.size();
+    }
+
+    /**
+     * @return the estimated number of bytes currently retained by the reads in this queue
+     */
+    public long getFootprint() {
+        return readBytes + encodedBytes;
+    }
+
+    /**
+     * @return the largest value of {@link #getFootprint()} since this queue was created
+     */
+    public long getPeakFootprint() {
+        return peakBytes;
+    }
+
+    /**
+     * @return the number of reads that were kept in encoded form when added
+     */
+    public long getNumSpilled() {
+        return numSpilled;
+    }
+
+    /**
+     * @return the number of reads that were not retained because the queue was over budget
+     */
+    public long getNumDownsampled() {
+        return numDownsampled;
+    }
+
+    /**
+     * @return a rough estimate of the number of bytes of heap retained by read
+     */
+    public static long estimateFootprint(final GATKRead read) {
+        return READ_OBJECT_OVERHEAD
+                + read.getLength()
+                + read.getBaseQualityCount()
+                + 2L * read.getName().length()
+                + (long)CIGAR_ELEMENT_OVERHEAD * read.numCigarElements();
+    }
+
+    private boolean keepWhenOverBudget() {
+        final long tier = 1 + (getFootprint() - budget) * DOWNSAMPLING_TIERS / budget;
+        return tier <= DOWNSAMPLING_TIERS && Utils.getRandomGenerator().nextInt(1 << tier) == 0;
+    }
+
+    private byte[] encode(final GATKRead read) {
+        encodingBuffer.reset();
+        codec.setOutputStream(encodingBuffer);
+        codec.encode(read.convertToSAMRecord(header));
+        return encodingBuffer.toByteArray();
+    }
+
+    private GATKRead decode(final byte[] encoded) {
+        codec.setInputStream(new ByteArrayInputStream(encoded));
+        final SAMRecord record = codec.decode();
+        record.setHeaderStrict(header);
+        return new SAMRecordToGATKReadAdapter(record);
+    }
+}
@@ -300,6 +300,20 @@ public final class RecalUtils {
         report.print(recalTableStream);
     }
 
+    /**
+     * Outputs the GATK report to a file, in binary form if its name ends with {@link GATKReport#BINARY_REPORT_EXTENSION}.
+     *
+     * @param recalTableFile the file to write
+     * @param RAC The list of shared command line arguments
+     * @param quantizationInfo Quantization info
+     * @param recalibrationTables Recalibration tables
+     * @param covariates The list of requested covariates
+     */
+    public static void outputRecalibrationReport(final File recalTableFile, final RecalibrationArgumentCollection RAC, final QuantizationInfo quantizationInfo, final RecalibrationTables recalibrationTables, final StandardCovariateList covariates) {
+        final GATKReport report = createRecalibrationGATKReport(RAC.generateReportTable(covariates.covariateNames()), quantizationInfo.generateReportTable(), generateReportTables(recalibrationTables, covariates));
+        report.print(recalTableFile);
+    }
+
     /**
      * Creates a consolidated RecalibrationReport report from the tables.
      *
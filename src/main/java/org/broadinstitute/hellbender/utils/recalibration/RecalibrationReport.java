@@ -15,18 +15,25 @@ import org.broadinstitute.hellbender.utils.report.GATKReport;
 import org.broadinstitute.hellbender.utils.report.GATKReportTable;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.InputStream;
-import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
 /**
  * This class has all the static functionality for reading a recalibration report file into memory. 
@@ -79,14 +86,19 @@ public final class RecalibrationReport {
      * @param output a file to write the recalibration reports to
      */
     public static void gatherReportsIntoOneFile(final List<File> inputs, final File output) {
+        gatherReportsIntoOneFile(inputs, output, 1);
+    }
+
+    /**
+     * Gather multiple {@link RecalibrationReport}s into a single file
+     * @param inputs a list of {@link RecalibrationReport} files to gather
+     * @param output a file to write the recalibration reports to
+     * @param numThreads number of threads used to load the inputs, see {@link #gatherReports(List, int)}
+     */
+    public static void gatherReportsIntoOneFile(final List<File> inputs, final File output, final int numThreads) {
         Utils.nonNull(inputs, "inputs");
         Utils.nonNull(output, "output");
-        try (final PrintStream outputFile = new PrintStream(output)){
-            final GATKReport report = gatherReports(inputs);
-            report.print(outputFile);
-        } catch(final FileNotFoundException e) {
-            throw new UserException.CouldNotCreateOutputFile(output, e);
-        }
+        gatherReports(inputs, numThreads).print(output);
     }
 
     /**
@@ -96,30 +108,101 @@ public final class RecalibrationReport {
      * @return gathered recalibration GATK report
      */
     public static GATKReport gatherReports(final List<File> inputs) {
+        return gatherReports(inputs, 1);
+    }
+
+    /**
+     * Gathers a set of files containing {@link RecalibrationReport}s into a single {@link GATKReport}.
+     *
+     * With more than one thread, the inputs are loaded in parallel, with at most twice as many loaded reports as
+     * threads waiting to be combined.  The reports are still combined one after another in the order of the inputs,
+     * so the gathered report does not depend on the number of threads.
+     *
+     * @param inputs a list of files containing {@link RecalibrationReport}s
+     * @param numThreads number of threads used to load the inputs, 1 to load them on the calling thread only
+     * @return gathered recalibration GATK report
+     */
+    public static GATKReport gatherReports(final List<File> inputs, final int numThreads) {
         Utils.nonNull(inputs);
         Utils.nonEmpty(inputs, "Cannot gather an empty list of inputs");
+        Utils.validateArg(numThreads >= 1, "the number of threads must be at least 1");
+
+        final ExecutorService executor = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+        try {
+            // Get the read groups from each input report, which only needs the read group table of binary reports
+            final Map<File, Set<String>> inputReadGroups = loadAndReduceInOrder(inputs, executor, numThreads,
+                    input -> {
+                        final Map<File, Set<String>> readGroups = new LinkedHashMap<>();
+                        readGroups.put(input, GATKReport.loadTables(input.getPath(), Collections.singleton(RecalUtils.READGROUP_REPORT_TABLE_TITLE)).getReadGroups());
+                        return readGroups;
+                    },
+                    (readGroups, other) -> {
+                        readGroups.putAll(other);
+                        return readGroups;
+                    });
+            final SortedSet<String> allReadGroups = new TreeSet<>();
+            inputReadGroups.values().forEach(allReadGroups::addAll);
+
+            logTablesWithMissingReadGroups(allReadGroups, inputReadGroups);
+
+            final RecalibrationReport result = loadAndReduceInOrder(inputs, executor, numThreads,
+                    i -> new RecalibrationReport(new GATKReport(i), allReadGroups),
+                    RecalibrationReport::combine);
+            if (result.isEmpty()) {
+                throw new GATKException("there is no usable data in any input file");
+            }
 
-        final SortedSet<String> allReadGroups = new TreeSet<>();
-        final Map<File, Set<String>> inputReadGroups = new LinkedHashMap<>();
-
-        // Get the read groups from each input report
-        for (final File input : inputs) {
-            final GATKReport report = new GATKReport(input);
-            final Set<String> readGroups = report.getReadGroups();
-            inputReadGroups.put(input, readGroups);
-            allReadGroups.addAll(readGroups);
+            result.quantizationInfo = new QuantizationInfo(result.recalibrationTables, result.RAC.QUANTIZING_LEVELS);
+            return result.createGATKReport();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
+    }
 
-        logTablesWithMissingReadGroups(allReadGroups, inputReadGroups);
+    /**
+     * Loads each input and folds the loaded values from left to right, in the order of the inputs.
+     *
+     * @param executor the executor on which the inputs are loaded, or null to load them on the calling thread
+     * @param numThreads number of threads of the executor, which bounds the number of loaded values held at once
+     */
+    private static <T> T loadAndReduceInOrder(final List<File> inputs, final ExecutorService executor, final int numThreads,
+                                              final Function<File, T> load, final BinaryOperator<T> combine) {
+        T result = null;
+        if (executor == null) {
+            for (final File input : inputs) {
+                final T loaded = load.apply(input);
+                result = result == null ? loaded : combine.apply(result, loaded);
+            }
+            return result;
+        }
 
-        final RecalibrationReport result = inputs.stream()
-                .map(i -> new RecalibrationReport(new GATKReport(i), allReadGroups))
-                .reduce(RecalibrationReport::combine)
-                .filter(r -> !r.isEmpty())
-                .orElseThrow(() -> new GATKException("there is no usable data in any input file") );
+        final Queue<Future<T>> pending = new ArrayDeque<>();
+        final Iterator<File> remainingInputs = inputs.iterator();
+        while (remainingInputs.hasNext() || !pending.isEmpty()) {
+            while (remainingInputs.hasNext() && pending.size() < 2 * numThreads) {
+                final File input = remainingInputs.next();
+                pending.add(executor.submit(() -> load.apply(input)));
+            }
+            final T loaded = getLoaded(pending.poll());
+            result = result == null ? loaded : combine.apply(result, loaded);
+        }
+        return result;
+    }
 
-        result.quantizationInfo = new QuantizationInfo(result.recalibrationTables, result.RAC.QUANTIZING_LEVELS);
-        return result.createGATKReport();
+    private static <T> T getLoaded(final Future<T> loaded) {
+        try {
+            return loaded.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("interrupted while loading recalibration reports", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new GATKException("exception while loading recalibration reports", e.getCause());
+        }
     }
 
     /**
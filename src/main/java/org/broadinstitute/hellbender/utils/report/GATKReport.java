@@ -1,17 +1,30 @@
 package org.broadinstitute.hellbender.utils.report;
 
+import org.apache.commons.io.IOUtils;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.gcs.BucketUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.recalibration.RecalUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -19,6 +32,8 @@ import java.util.NavigableMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Container class for GATK report tables
@@ -28,6 +43,18 @@ public final class GATKReport {
     public static final String GATKREPORT_HEADER_PREFIX = "#:GATKReport.";
     public static final GATKReportVersion LATEST_REPORT_VERSION = GATKReportVersion.V1_1;
     private static final String SEPARATOR = ":";
+
+    /**
+     * Extension of the files to which {@link #print(File)} writes binary reports
+     */
+    public static final String BINARY_REPORT_EXTENSION = ".grpb";
+
+    /**
+     * A binary report starts with these bytes, followed by the binary format version, the report version, and an index
+     * of its tables; each table is then stored in its own compressed block.  See {@link #printBinary(OutputStream)}.
+     */
+    private static final byte[] BINARY_REPORT_MAGIC = "GATKRPTB".getBytes(StandardCharsets.US_ASCII);
+    private static final int BINARY_FORMAT_VERSION = 1;
     private GATKReportVersion version = LATEST_REPORT_VERSION;
 
     private final NavigableMap<String, GATKReportTable> tables = new TreeMap<>();
@@ -56,8 +83,17 @@ public final class GATKReport {
         this(file.getPath());
     }
 
+    /**
+     * Create a new GATKReport with the contents of a GATKReport in text or binary form.
+     *
+     * @param in the stream to load from
+     */
     public GATKReport(InputStream in){
-        loadReport(new InputStreamReader(in));
+        final BufferedInputStream bufferedIn = new BufferedInputStream(in);
+        if ( isBinaryReport(bufferedIn) )
+            loadBinaryReport(bufferedIn, null);
+        else
+            loadReport(new InputStreamReader(bufferedIn));
     }
 
     /**
@@ -83,6 +119,93 @@ public final class GATKReport {
         return readGroups;
     }
 
+    /**
+     * Create a new GATKReport with only some of the tables of a GATKReport on disk.
+     *
+     * Only the requested tables of a binary report are decompressed and parsed; a text report is loaded in full first.
+     *
+     * @param filename   the path to the file to load
+     * @param tableNames the names of the tables to load, which must all be in the report
+     * @return a report with just the requested tables
+     */
+    public static GATKReport loadTables(final String filename, final Collection<String> tableNames) {
+        Utils.nonNull(filename);
+        Utils.nonNull(tableNames);
+        final GATKReport report = new GATKReport();
+        try ( final BufferedInputStream in = new BufferedInputStream(BucketUtils.openFile(filename)) ) {
+            if ( isBinaryReport(in) ) {
+                report.loadBinaryReport(in, tableNames);
+            } else {
+                report.loadReport(new InputStreamReader(in));
+                report.tables.keySet().retainAll(tableNames);
+            }
+        } catch (IOException e) {
+            throw new UserException("Could not read " + RECAL_FILE, e);
+        }
+        for ( final String tableName : tableNames )
+            report.getTable(tableName);
+        return report;
+    }
+
+    /**
+     * @return whether the stream, which is left at the same position, starts with a binary report
+     */
+    private static boolean isBinaryReport(final BufferedInputStream in) {
+        final byte[] magic = new byte[BINARY_REPORT_MAGIC.length];
+        try {
+            in.mark(magic.length);
+            final int read = IOUtils.read(in, magic);
+            in.reset();
+            return read == magic.length && Arrays.equals(magic, BINARY_REPORT_MAGIC);
+        } catch (IOException e) {
+            throw new UserException("Could not read " + RECAL_FILE, e);
+        }
+    }
+
+    /**
+     * Load a GATKReport in binary form, as written by {@link #printBinary(OutputStream)}
+     *
+     * @param in         the stream to load from, positioned at the start of the report
+     * @param tableNames the names of the tables to load, or null to load all of them
+     */
+    private void loadBinaryReport(final InputStream in, final Collection<String> tableNames) {
+        try {
+            final DataInputStream dataIn = new DataInputStream(in);
+            IOUtils.skipFully(dataIn, BINARY_REPORT_MAGIC.length);
+            final int formatVersion = dataIn.readInt();
+            if ( formatVersion != BINARY_FORMAT_VERSION )
+                throw new UserException.BadInput("Unsupported binary GATK report format version " + formatVersion + " in " + RECAL_FILE);
+            version = GATKReportVersion.fromHeader(GATKREPORT_HEADER_PREFIX + dataIn.readUTF());
+
+            // read the index of the tables
+            final int nTables = dataIn.readInt();
+            final String[] tableNamesInReport = new String[nTables];
+            final long[] offsets = new long[nTables];
+            final int[] lengths = new int[nTables];
+            for ( int i = 0; i < nTables; i++ ) {
+                tableNamesInReport[i] = dataIn.readUTF();
+                offsets[i] = dataIn.readLong();
+                lengths[i] = dataIn.readInt();
+            }
+
+            // the table blocks follow the index in order, so the ones that are not needed are just skipped
+            long position = 0;
+            for ( int i = 0; i < nTables; i++ ) {
+                if ( tableNames != null && !tableNames.contains(tableNamesInReport[i]) )
+                    continue;
+                IOUtils.skipFully(dataIn, offsets[i] - position);
+                final byte[] block = new byte[lengths[i]];
+                dataIn.readFully(block);
+                position = offsets[i] + lengths[i];
+                try ( final DataInputStream tableIn = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(block))) ) {
+                    addTable(new GATKReportTable(tableIn));
+                }
+            }
+        } catch (IOException e) {
+            throw new UserException("Could not read " + RECAL_FILE, e);
+        }
+    }
+
     /**
      * Load a GATKReport from a {@link Reader}
      *
@@ -191,7 +314,65 @@ public final class GATKReport {
         }
     }
 
+    /**
+     * Print all tables contained within this container in binary form, with an index of the tables so that readers
+     * can load only the ones they need (see {@link #loadTables(String, Collection)}).
+     *
+     * @param out the stream to which the tables should be written
+     */
+    public void printBinary(final OutputStream out) {
+        try {
+            // compress each table on its own, so that it can be read without decompressing the others
+            final List<byte[]> blocks = new ArrayList<>(tables.size());
+            for ( final GATKReportTable table : tables.values() ) {
+                final ByteArrayOutputStream block = new ByteArrayOutputStream();
+                try ( final DataOutputStream tableOut = new DataOutputStream(new DeflaterOutputStream(block)) ) {
+                    table.writeBinary(tableOut);
+                }
+                blocks.add(block.toByteArray());
+            }
+
+            final DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.write(BINARY_REPORT_MAGIC);
+            dataOut.writeInt(BINARY_FORMAT_VERSION);
+            dataOut.writeUTF(getVersion().toString());
+            dataOut.writeInt(tables.size());
+            long offset = 0;
+            int i = 0;
+            for ( final String tableName : tables.keySet() ) {
+                dataOut.writeUTF(tableName);
+                dataOut.writeLong(offset);
+                dataOut.writeInt(blocks.get(i).length);
+                offset += blocks.get(i++).length;
+            }
+            for ( final byte[] block : blocks )
+                dataOut.write(block);
+            dataOut.flush();
+        } catch (IOException e) {
+            throw new GATKException("Could not write the binary GATK report", e);
+        }
+    }
 
+    /**
+     * Print all tables contained within this container to a file, in binary form if its name ends with
+     * {@link #BINARY_REPORT_EXTENSION} and as text otherwise
+     *
+     * @param output the file to which the tables should be written
+     */
+    public void print(final File output) {
+        Utils.nonNull(output);
+        try ( final OutputStream out = new BufferedOutputStream(new FileOutputStream(output)) ) {
+            if ( output.getName().endsWith(BINARY_REPORT_EXTENSION) ) {
+                printBinary(out);
+            } else {
+                final PrintStream printStream = new PrintStream(out);
+                print(printStream);
+                printStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(output, e);
+        }
+    }
 
     public Collection<GATKReportTable> getTables() {
         return tables.values();
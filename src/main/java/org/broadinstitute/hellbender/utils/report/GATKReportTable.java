@@ -4,10 +4,13 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.utils.text.TextFormattingUtils;
 
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -63,6 +66,12 @@ public final class GATKReportTable {
     private final Map<Object, Integer> columnNameToIndex;
     private final Map<Object, Integer> rowIdToIndex;
 
+    /**
+     * Whether the column widths and alignments still have to be computed from the values, which is deferred for
+     * tables read from their binary encoding until they are written as text
+     */
+    private boolean columnFormattingPending = false;
+
     private static final String COULD_NOT_READ_HEADER = "Could not read the header of this file -- ";
     private static final String COULD_NOT_READ_COLUMN_NAMES = "Could not read the column names of this file -- ";
     private static final String COULD_NOT_READ_DATA_LINE = "Could not read a data line of this table -- ";
@@ -184,6 +193,47 @@ public final class GATKReportTable {
         }
     }
 
+    /**
+     * Construct a new GATK report table from its binary encoding, as written by {@link #writeBinary(DataOutputStream)}
+     * Note that, as when reading text, the row ID mappings are just the index -> index
+     *
+     * @param in the stream positioned at the start of the table
+     * @throws IOException if the table cannot be read
+     */
+    GATKReportTable(final DataInputStream in) throws IOException {
+        tableName = in.readUTF();
+        tableDescription = in.readUTF();
+
+        // when reading from a file, we do not re-sort the rows
+        sortingWay = Sorting.DO_NOT_SORT;
+
+        final int nColumns = in.readInt();
+        final int nRows = in.readInt();
+        columnInfo = new ArrayList<>(nColumns);
+        columnNameToIndex = new LinkedHashMap<>(nColumns);
+        for ( int i = 0; i < nColumns; i++ ) {
+            final String columnName = in.readUTF();
+            addColumn(columnName, in.readUTF());
+        }
+
+        underlyingData = new ArrayList<>(nRows);
+        rowIdToIndex = new LinkedHashMap<>();
+        for ( int i = 0; i < nRows; i++ ) {
+            underlyingData.add(new Object[nColumns]);
+            rowIdToIndex.put(i, i);
+        }
+
+        // the values are stored column by column
+        for ( int columnIndex = 0; columnIndex < nColumns; columnIndex++ ) {
+            final GATKReportDataType type = columnInfo.get(columnIndex).getDataType();
+            for ( int i = 0; i < nRows; i++ ) {
+                if ( in.readBoolean() )
+                    underlyingData.get(i)[columnIndex] = readBinaryValue(in, type);
+            }
+        }
+        columnFormattingPending = true;
+    }
+
     /**
      * Construct a new GATK report table with the specified name and description
      *
@@ -482,6 +532,15 @@ public final class GATKReportTable {
           * row1  xxxx  xxxxx
          */
 
+         // tables read in binary form only compute their column formatting when it is needed
+         if ( columnFormattingPending ) {
+             for ( final Object[] row : underlyingData ) {
+                 for ( int i = 0; i < row.length; i++ )
+                     columnInfo.get(i).updateFormatting(row[i]);
+             }
+             columnFormattingPending = false;
+         }
+
          // write the table definition
          out.printf(GATKTABLE_HEADER_PREFIX + ":%d:%d", getNumColumns(), getNumRows());
 
@@ -505,34 +564,121 @@ public final class GATKReportTable {
          out.println();
 
          // write the table body
-         switch (sortingWay) {
-             case SORT_BY_COLUMN:
-                 Collections.sort(underlyingData, ROW_COMPARATOR);
-                 for ( final Object[] row : underlyingData ) {
-                     writeRow(out, row);
-                 }
-                 break;
-             case SORT_BY_ROW:
-                 // make sure that there are exactly the correct number of ID mappings
-                 if ( rowIdToIndex.size() != underlyingData.size() )
-                     throw new GATKException("There isn't a 1-to-1 mapping from row ID to index; this can happen when rows are not created consistently");
-
-                 final TreeMap<Object, Integer> sortedMap;
-                 try {
-                     sortedMap = new TreeMap<>(rowIdToIndex);
-                 } catch (ClassCastException e) {
-                     throw new GATKException("Unable to sort the rows based on the row IDs because the ID Objects are of different types");
-                 }
-                 for ( final Map.Entry<Object, Integer> rowKey : sortedMap.entrySet() )
-                     writeRow(out, underlyingData.get(rowKey.getValue()));
-                 break;
-             case DO_NOT_SORT:
-                 for ( final Object[] row : underlyingData )
-                     writeRow(out, row);
-         }
+         for ( final Object[] row : getRowsToWrite(sortingWay) )
+             writeRow(out, row);
          out.println();
      }
 
+    /**
+     * Write the table in binary form, with the column formats and the values of each typed column stored as such,
+     * in the same row order as {@link #write(PrintStream)}.  The table can be read back by
+     * {@link #GATKReportTable(DataInputStream)}.
+     *
+     * Values of {@link GATKReportDataType#Decimal} columns are stored as doubles rounded through the column format,
+     * so that they read back the same as from the text form, and the two forms are interchangeable.
+     *
+     * @param out the stream to which the table should be written
+     * @throws IOException if the table cannot be written
+     */
+    void writeBinary(final DataOutputStream out) throws IOException {
+        final List<Object[]> rows = getRowsToWrite(sortingWay);
+
+        out.writeUTF(tableName);
+        out.writeUTF(tableDescription);
+        out.writeInt(getNumColumns());
+        out.writeInt(rows.size());
+        for ( final GATKReportColumn column : columnInfo ) {
+            out.writeUTF(column.getColumnName());
+            out.writeUTF(column.getFormat());
+        }
+
+        // values of the same column are stored together, so that they compress well
+        for ( int columnIndex = 0; columnIndex < columnInfo.size(); columnIndex++ ) {
+            final GATKReportColumn column = columnInfo.get(columnIndex);
+            for ( final Object[] row : rows ) {
+                final Object value = row[columnIndex];
+                out.writeBoolean(value != null);
+                if ( value != null )
+                    writeBinaryValue(out, column, value);
+            }
+        }
+    }
+
+    private static void writeBinaryValue(final DataOutputStream out, final GATKReportColumn column, final Object value) throws IOException {
+        switch ( column.getDataType() ) {
+            case Integer:
+                out.writeLong(((Number) value).longValue());
+                break;
+            case Decimal:
+                // round as in text, so that consumers see the same values whichever form they read
+                out.writeDouble(Double.parseDouble(String.format(column.getFormat(), value)));
+                break;
+            case Boolean:
+                out.writeBoolean((Boolean) value);
+                break;
+            case Character:
+                out.writeChar((Character) value);
+                break;
+            default:
+                // other columns are read back as strings, so store them as written in text
+                final String text;
+                if ( column.getDataType().equals(GATKReportDataType.Unknown) && (value instanceof Double || value instanceof Float) )
+                    text = String.format("%.8f", value);
+                else if ( column.getFormat().equals("%s") )
+                    text = value.toString();
+                else
+                    text = String.format(column.getFormat(), value);
+                final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+        }
+    }
+
+    private static Object readBinaryValue(final DataInputStream in, final GATKReportDataType type) throws IOException {
+        switch ( type ) {
+            case Integer:
+                return in.readLong();
+            case Decimal:
+                return in.readDouble();
+            case Boolean:
+                return in.readBoolean();
+            case Character:
+                return in.readChar();
+            default:
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * @return the rows in the order in which they are written
+     */
+    private List<Object[]> getRowsToWrite(final Sorting sortingWay) {
+        switch (sortingWay) {
+            case SORT_BY_COLUMN:
+                Collections.sort(underlyingData, ROW_COMPARATOR);
+                return underlyingData;
+            case SORT_BY_ROW:
+                // make sure that there are exactly the correct number of ID mappings
+                if ( rowIdToIndex.size() != underlyingData.size() )
+                    throw new GATKException("There isn't a 1-to-1 mapping from row ID to index; this can happen when rows are not created consistently");
+
+                final TreeMap<Object, Integer> sortedMap;
+                try {
+                    sortedMap = new TreeMap<>(rowIdToIndex);
+                } catch (ClassCastException e) {
+                    throw new GATKException("Unable to sort the rows based on the row IDs because the ID Objects are of different types");
+                }
+                final List<Object[]> rows = new ArrayList<>(underlyingData.size());
+                for ( final Integer index : sortedMap.values() )
+                    rows.add(underlyingData.get(index));
+                return rows;
+            default:
+                return underlyingData;
+        }
+    }
+
     private void writeRow(final PrintStream out, final Object[] row) {
         boolean needsPadding = false;
         for ( int i = 0; i < row.length; i++ ) {
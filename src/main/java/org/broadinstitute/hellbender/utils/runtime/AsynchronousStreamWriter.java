@@ -8,8 +8,11 @@ import org.broadinstitute.hellbender.utils.Utils;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
@@ -24,6 +27,13 @@ public class AsynchronousStreamWriter<T> {
     final OutputStream streamWriter;
     final Function<T, ByteArrayOutputStream> itemSerializer;
     Future<Integer> previousBatch;
+    final Deque<Future<Integer>> queuedBatches = new ArrayDeque<>();
+
+    // throughput counters, updated by the background threads
+    private final AtomicLong numBatchesWritten = new AtomicLong();
+    private final AtomicLong numItemsWritten = new AtomicLong();
+    private final AtomicLong numBytesWritten = new AtomicLong();
+    private final AtomicLong writeTimeNanos = new AtomicLong();
 
     /**
      * @param executorService executor service to be used to dispatch background tasks
@@ -55,24 +65,57 @@ public class AsynchronousStreamWriter<T> {
         Utils.nonNull(batchList);
         Utils.nonEmpty(batchList);
 
+        if (previousBatch != null || !queuedBatches.isEmpty()) {
+            throw new IllegalStateException("Previous batch not yet complete");
+        }
+
+        previousBatch = executorService.submit(() -> writeBatch(batchList));
+    }
+
+    /**
+     * Request that a batch of items be written to the stream on a background thread once all previously queued
+     * batches have been written. Unlike {@link #startBatchWrite}, any number of queued batches may be outstanding
+     * at once; their completion must be retrieved, in the order in which they were queued, via
+     * {@link #waitForOldestQueuedBatchCompletion}.
+     *
+     * @param batchList a list of items to be written
+     */
+    public void queueBatchWrite(final List<T> batchList) {
+        Utils.nonNull(batchList);
+        Utils.nonEmpty(batchList);
+
         if (previousBatch != null) {
             throw new IllegalStateException("Previous batch not yet complete");
         }
 
-        previousBatch = executorService.submit(() -> {
-            try {
-                Integer batchSize = batchList.size();
-                for (int i = 0; i < batchList.size(); i++) {
-                    T element = batchList.get(i);
-                    itemSerializer.apply(element).writeTo(streamWriter);
-                }
-                // this can block, waiting for the stream to be consumed
-                streamWriter.flush();
-                return batchSize; // return the number of items this batch was asked to write
-            } catch (IOException e) {
-                throw new GATKException("IOException converting bytes for serialization", e);
+        final Future<Integer> predecessor = queuedBatches.peekLast();
+        queuedBatches.addLast(executorService.submit(() -> {
+            if (predecessor != null) {
+                // the executor may run several batches at once, so wait for the previous one to keep the items in order
+                predecessor.get();
             }
-        });
+            return writeBatch(batchList);
+        }));
+    }
+
+    /**
+     * Waits for the oldest batch that was queued via {@link #queueBatchWrite(List)} to complete, flushes the target
+     * stream and returns the corresponding completed Future.
+     * @return returns null if no queued batch is outstanding, otherwise a completed Future
+     */
+    public Future<Integer> waitForOldestQueuedBatchCompletion() {
+        final Future<Integer> oldestBatch = queuedBatches.pollFirst();
+        if (oldestBatch != null) {
+            waitForBatch(oldestBatch);
+        }
+        return oldestBatch;
+    }
+
+    /**
+     * @return the number of batches queued via {@link #queueBatchWrite(List)} whose completion has not yet been retrieved
+     */
+    public int getNumQueuedBatches() {
+        return queuedBatches.size();
     }
 
     /**
@@ -85,16 +128,7 @@ public class AsynchronousStreamWriter<T> {
     public Future<Integer> waitForPreviousBatchCompletion() {
         final Future<Integer> lastCompleteBatch = previousBatch;
          if (previousBatch != null) {
-            try {
-                try {
-                    previousBatch.get();
-                } catch (ExecutionException | InterruptedException e) {
-                    throw new GATKException("Interrupted during background stream write", e);
-                }
-                streamWriter.flush();
-            } catch (IOException e) {
-                throw new GATKException("IOException waiting for asynchronous batch completion", e);
-            }
+            waitForBatch(previousBatch);
             previousBatch = null;
         }
         return lastCompleteBatch;
@@ -111,9 +145,79 @@ public class AsynchronousStreamWriter<T> {
             isCancelled = previousBatch.cancel(true);
         }
         previousBatch = null;
+        if (!queuedBatches.isEmpty()) {
+            logger.warn("Cancelling outstanding asynchronous writing");
+            for (final Future<Integer> queuedBatch : queuedBatches) {
+                isCancelled &= queuedBatch.cancel(true);
+            }
+            queuedBatches.clear();
+        }
         return isCancelled;
     }
 
+    /**
+     * @return the number of batches that have been completely written to the stream
+     */
+    public long getNumBatchesWritten() {
+        return numBatchesWritten.get();
+    }
+
+    /**
+     * @return the number of items that have been completely written to the stream
+     */
+    public long getNumItemsWritten() {
+        return numItemsWritten.get();
+    }
+
+    /**
+     * @return the number of serialized bytes that have been written to the stream
+     */
+    public long getNumBytesWritten() {
+        return numBytesWritten.get();
+    }
+
+    /**
+     * @return the total time, in nanoseconds, spent serializing and writing batches (including any time spent blocked
+     * waiting for the stream to be consumed)
+     */
+    public long getWriteTimeNanos() {
+        return writeTimeNanos.get();
+    }
+
+    private Integer writeBatch(final List<T> batchList) {
+        try {
+            final long startTime = System.nanoTime();
+            Integer batchSize = batchList.size();
+            for (int i = 0; i < batchList.size(); i++) {
+                T element = batchList.get(i);
+                final ByteArrayOutputStream serializedElement = itemSerializer.apply(element);
+                serializedElement.writeTo(streamWriter);
+                numBytesWritten.addAndGet(serializedElement.size());
+                numItemsWritten.incrementAndGet();
+            }
+            // this can block, waiting for the stream to be consumed
+            streamWriter.flush();
+            numBatchesWritten.incrementAndGet();
+            writeTimeNanos.addAndGet(System.nanoTime() - startTime);
+            return batchSize; // return the number of items this batch was asked to write
+        } catch (IOException e) {
+            throw new GATKException("IOException converting bytes for serialization", e);
+        }
+    }
+
+    private void waitForBatch(final Future<Integer> batch) {
+        try {
+            try {
+                batch.get();
+            } catch (ExecutionException | InterruptedException e) {
+                throw new GATKException("Interrupted during background stream write", e);
+            }
+            streamWriter.flush();
+        } catch (IOException e) {
+            throw new GATKException("IOException waiting for asynchronous batch completion", e);
+        }
+    }
+
     /**
      * Convenience function that can be provided to an {@code AsynchronousStreamWriter} to serialize String objects.
      */
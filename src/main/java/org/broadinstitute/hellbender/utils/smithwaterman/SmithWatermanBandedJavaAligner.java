@@ -0,0 +1,441 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.Cigar;
+import htsjdk.samtools.CigarElement;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+import org.broadinstitute.hellbender.utils.read.AlignmentUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner.SWPairwiseAlignmentResult;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pairwise discrete smith-waterman alignment implemented in pure java that only fills the cells of the matrices
+ * within a band of diagonals, falling back to the full matrices when the band cannot be shown to contain the
+ * optimal alignment.  Alignments are identical to those of {@link SmithWatermanJavaAligner}.
+ *
+ * <p>
+ *     The band contains the diagonals between the main diagonal and the diagonal through the bottom-right corner
+ *     of the matrices, extended by the band width on either side.  An alignment that touches a diagonal d contains
+ *     at most as many aligned bases as there are cells on d, and alignments that are anchored at the top-left
+ *     (or bottom-right) corner additionally pay for the gaps needed to reach d from that corner.  This gives an upper
+ *     bound on the score of any alignment that leaves the band.  If the best score within the band is strictly greater
+ *     than this bound, no cell on the traceback through the full matrices can be affected by cells outside of the band,
+ *     so the traceback through the band gives the same alignment.
+ * </p>
+ *
+ * <p>
+ *     The band is filled row by row into flat primitive arrays that are reused across alignments, so that
+ *     no matrices are allocated per alignment.  Instances are therefore not thread-safe.
+ * </p>
+ *
+ * ************************************************************************
+ * ****                    IMPORTANT NOTE:                             ****
+ * ****  This class assumes that all bytes come from UPPERCASED chars! ****
+ * ************************************************************************
+ */
+public final class SmithWatermanBandedJavaAligner implements SmithWatermanAligner {
+    public static final int DEFAULT_BAND_WIDTH = 32;
+
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE / 2;
+
+    // matrices larger than this are released after each alignment, rather than held for reuse
+    private static final int MAX_RETAINED_MATRIX_SIZE = 1 << 22;
+
+    private final int bandWidth;
+
+    private int[] scores = new int[0];
+    private int[] backtrack = new int[0];
+    private int[] bestGapV = new int[0];
+    private int[] gapSizeV = new int[0];
+
+    // dimensions of the current alignment and the diagonals (row index - column index) of its band
+    private int refLength;
+    private int altLength;
+    private int minDiagonal;
+    private int maxDiagonal;
+    private int rowStride;
+
+    private long totalComputeTime = 0;
+    private long numBandedAlignments = 0;
+    private long numFullAlignments = 0;
+
+    public SmithWatermanBandedJavaAligner() {
+        this(DEFAULT_BAND_WIDTH);
+    }
+
+    /**
+     * @param bandWidth number of diagonals on either side of those between the main diagonal and
+     *                  the diagonal through the bottom-right corner to include in the band
+     */
+    public SmithWatermanBandedJavaAligner(final int bandWidth) {
+        this.bandWidth = ParamUtils.isPositiveOrZero(bandWidth, "Band width must be non-negative.");
+    }
+
+    /**
+     * Aligns the alternate sequence to the reference sequence
+     *
+     * @param reference  ref sequence
+     * @param alternate  alt sequence
+     */
+    @Override
+    public SmithWatermanAlignment align(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final long startTime = System.nanoTime();
+
+        if ( reference == null || reference.length == 0 || alternate == null || alternate.length == 0 ) {
+            throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
+        }
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+
+        // avoid running Smith-Waterman if there is an exact match of alternate in reference
+        int matchIndex = -1;
+        if (overhangStrategy == SWOverhangStrategy.SOFTCLIP || overhangStrategy == SWOverhangStrategy.IGNORE) {
+            // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
+            matchIndex = Utils.lastIndexOf(reference, alternate);
+        }
+
+        final SmithWatermanAlignment alignmentResult;
+        if (matchIndex != -1) {
+            alignmentResult = new SWPairwiseAlignmentResult(
+                    new Cigar(Collections.singletonList(SmithWatermanJavaAligner.makeElement(State.MATCH, alternate.length))), matchIndex);
+        } else {
+            alignmentResult = alignWithinBandOrFullMatrices(reference, alternate, parameters, overhangStrategy);
+            if (scores.length > MAX_RETAINED_MATRIX_SIZE) {
+                scores = new int[0];
+                backtrack = new int[0];
+            }
+        }
+
+        totalComputeTime += System.nanoTime() - startTime;
+        return alignmentResult;
+    }
+
+    private SmithWatermanAlignment alignWithinBandOrFullMatrices(final byte[] reference, final byte[] alternate,
+                                                                 final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final int lengthDifference = reference.length - alternate.length;
+        final int bandMinDiagonal = Math.min(0, lengthDifference) - bandWidth;
+        final int bandMaxDiagonal = Math.max(0, lengthDifference) + bandWidth;
+        final boolean isBandNarrowerThanMatrices = bandMinDiagonal > -alternate.length || bandMaxDiagonal < reference.length;
+        if (isBandNarrowerThanMatrices && isScoreBoundValid(parameters)) {
+            calculateMatrices(reference, alternate, parameters, overhangStrategy, bandMinDiagonal, bandMaxDiagonal);
+            if (calculateBestScore(overhangStrategy) > calculateOutOfBandScoreBound(parameters, overhangStrategy)) {
+                numBandedAlignments++;
+                return calculateCigar(overhangStrategy);
+            }
+        }
+        numFullAlignments++;
+        calculateMatrices(reference, alternate, parameters, overhangStrategy, -alternate.length, reference.length);
+        return calculateCigar(overhangStrategy);
+    }
+
+    /**
+     * The upper bound on scores outside of the band assumes that aligned bases score at most the match value
+     * and that gaps can only decrease the score.
+     */
+    private static boolean isScoreBoundValid(final SWParameters parameters) {
+        return parameters.getMatchValue() >= 0 && parameters.getMismatchPenalty() <= parameters.getMatchValue() &&
+                parameters.getGapOpenPenalty() <= 0 && parameters.getGapExtendPenalty() <= 0;
+    }
+
+    /**
+     * Calculates the SW matrices for the given sequences within the band of the given diagonals,
+     * which may contain the full matrices
+     */
+    private void calculateMatrices(final byte[] reference, final byte[] alternate, final SWParameters parameters,
+                                   final SWOverhangStrategy overhangStrategy, final int minDiagonal, final int maxDiagonal) {
+        refLength = reference.length;
+        altLength = alternate.length;
+        this.minDiagonal = minDiagonal;
+        this.maxDiagonal = maxDiagonal;
+        rowStride = Math.min(maxDiagonal - minDiagonal + 1, altLength + 1);
+        final long matrixSize = (long) (refLength + 1) * rowStride;
+        Utils.validate(matrixSize <= Integer.MAX_VALUE, "Sequences are too long for the Smith-Waterman calculation.");
+        if (scores.length < matrixSize) {
+            scores = new int[(int) matrixSize];
+            backtrack = new int[(int) matrixSize];
+        }
+        if (bestGapV.length < altLength + 1) {
+            bestGapV = new int[altLength + 1];
+            gapSizeV = new int[altLength + 1];
+        }
+        Arrays.fill(bestGapV, 0, altLength + 1, LOW_INIT_VALUE);
+        Arrays.fill(gapSizeV, 0, altLength + 1, 0);
+
+        final int w_open = parameters.getGapOpenPenalty();
+        final int w_extend = parameters.getGapExtendPenalty();
+        final int w_match = parameters.getMatchValue();
+        final int w_mismatch = parameters.getMismatchPenalty();
+
+        // we need to initialize the first row and column with gap penalties if we want to keep track of indels at the edges of alignments
+        final boolean penalizeOverhangs = overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL;
+        for (int j = 0, lastColumn = Math.min(altLength, -minDiagonal); j <= lastColumn; j++) {
+            scores[getIndex(0, j)] = penalizeOverhangs && j > 0 ? w_open + (j - 1) * w_extend : 0;
+        }
+        for (int i = 1, lastRow = Math.min(refLength, maxDiagonal); i <= lastRow; i++) {
+            scores[getIndex(i, 0)] = penalizeOverhangs ? w_open + (i - 1) * w_extend : 0;
+        }
+
+        // see SmithWatermanJavaAligner for details of the recursion, which is identical within the band;
+        // cells outside of the band are treated as unreachable
+        for (int i = 1; i <= refLength; i++) {
+            final byte a_base = reference[i - 1];
+            final int lastRowOffset = getIndex(i - 1, 0);
+            final int curRowOffset = getIndex(i, 0);
+            final int firstColumn = Math.max(1, i - maxDiagonal);
+            final int lastColumn = Math.min(altLength, i - minDiagonal);
+            int best_gap_h = LOW_INIT_VALUE;
+            int gap_size_h = 0;
+
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                final int step_diag = scores[lastRowOffset + j - 1] + (a_base == alternate[j - 1] ? w_match : w_mismatch);
+
+                int prev_gap = (i - 1 - j >= minDiagonal ? scores[lastRowOffset + j] : LOW_INIT_VALUE) + w_open;
+                bestGapV[j] += w_extend;
+                if (prev_gap > bestGapV[j]) {
+                    bestGapV[j] = prev_gap;
+                    gapSizeV[j] = 1;
+                } else {
+                    gapSizeV[j]++;
+                }
+                final int step_down = bestGapV[j];
+                final int kd = gapSizeV[j];
+
+                prev_gap = (i - j + 1 <= maxDiagonal ? scores[curRowOffset + j - 1] : LOW_INIT_VALUE) + w_open;
+                best_gap_h += w_extend;
+                if (prev_gap > best_gap_h) {
+                    best_gap_h = prev_gap;
+                    gap_size_h = 1;
+                } else {
+                    gap_size_h++;
+                }
+                final int step_right = best_gap_h;
+                final int ki = gap_size_h;
+
+                //priority here will be step diagonal, step right, step down
+                final int cell = curRowOffset + j;
+                if (step_diag >= step_down && step_diag >= step_right) {
+                    scores[cell] = Math.max(MATRIX_MIN_CUTOFF, step_diag);
+                    backtrack[cell] = 0;
+                } else if (step_right >= step_down) {
+                    scores[cell] = Math.max(MATRIX_MIN_CUTOFF, step_right);
+                    backtrack[cell] = -ki; // negative = horizontal
+                } else {
+                    scores[cell] = Math.max(MATRIX_MIN_CUTOFF, step_down);
+                    backtrack[cell] = kd; // positive = vertical
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the index of the cell in the given row and column, which must be within the band if it is to be accessed;
+     *         column 0 of rows whose band does not contain it is a virtual offset for the row
+     */
+    private int getIndex(final int row, final int column) {
+        return row * rowStride - Math.max(0, row - maxDiagonal) + column;
+    }
+
+    private boolean isInBand(final int row, final int column) {
+        final int diagonal = row - column;
+        return minDiagonal <= diagonal && diagonal <= maxDiagonal;
+    }
+
+    private int getScore(final int row, final int column) {
+        return isInBand(row, column) ? scores[getIndex(row, column)] : LOW_INIT_VALUE;
+    }
+
+    /**
+     * @return the score at which the traceback will start, as chosen by {@link #calculateCigar}
+     */
+    private int calculateBestScore(final SWOverhangStrategy overhangStrategy) {
+        if (overhangStrategy == SWOverhangStrategy.INDEL) {
+            return getScore(refLength, altLength);
+        }
+        int bestScore = LOW_INIT_VALUE;
+        for (int i = 1; i <= refLength; i++) {
+            bestScore = Math.max(bestScore, getScore(i, altLength));
+        }
+        if (overhangStrategy != SWOverhangStrategy.LEADING_INDEL) {
+            for (int j = 1; j <= altLength; j++) {
+                bestScore = Math.max(bestScore, getScore(refLength, j));
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return an upper bound on the score of any alignment that contains a cell outside of the band
+     */
+    private long calculateOutOfBandScoreBound(final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        // the bound decreases with the distance of the diagonal from the band, so it suffices to check those adjacent to the band
+        long bound = Long.MIN_VALUE;
+        if (minDiagonal > -altLength) {
+            bound = Math.max(bound, calculateScoreBound(minDiagonal - 1, parameters, overhangStrategy));
+        }
+        if (maxDiagonal < refLength) {
+            bound = Math.max(bound, calculateScoreBound(maxDiagonal + 1, parameters, overhangStrategy));
+        }
+        return bound;
+    }
+
+    /**
+     * @return an upper bound on the score of any alignment that contains a cell on the given diagonal
+     */
+    private long calculateScoreBound(final int diagonal, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final int numCellsOnDiagonal = Math.min(refLength - Math.max(diagonal, 0), altLength - Math.max(-diagonal, 0));
+        long bound = (long) parameters.getMatchValue() * numCellsOnDiagonal;
+        if (overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL) {
+            // alignment starts at the top-left corner
+            bound += calculateGapScoreBound(Math.abs(diagonal), parameters);
+        }
+        if (overhangStrategy == SWOverhangStrategy.INDEL) {
+            // alignment ends at the bottom-right corner
+            bound += calculateGapScoreBound(Math.abs(refLength - altLength - diagonal), parameters);
+        }
+        return bound;
+    }
+
+    /**
+     * @return an upper bound on the score of gaps with the given total length
+     */
+    private static long calculateGapScoreBound(final int totalGapLength, final SWParameters parameters) {
+        if (totalGapLength == 0) {
+            return 0;
+        }
+        final long open = parameters.getGapOpenPenalty();
+        final long extend = parameters.getGapExtendPenalty();
+        return Math.max(open + (totalGapLength - 1) * extend, totalGapLength * open);
+    }
+
+    /**
+     * Calculates the CIGAR for the alignment from the back track matrix, see SmithWatermanJavaAligner for details
+     *
+     * @param overhangStrategy    the strategy to use for dealing with overhangs
+     * @return non-null SWPairwiseAlignmentResult object
+     */
+    private SWPairwiseAlignmentResult calculateCigar(final SWOverhangStrategy overhangStrategy) {
+        // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
+        int p1 = 0, p2 = 0;
+
+        int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
+        int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
+
+        // if we want to consider overhangs as legitimate operators, then just start from the corner of the matrix
+        if ( overhangStrategy == SWOverhangStrategy.INDEL ) {
+            p1 = refLength;
+            p2 = altLength;
+        } else {
+            // look for the largest score on the rightmost column. we use >= combined with the traversal direction
+            // to ensure that if two scores are equal, the one closer to diagonal gets picked
+            p2 = altLength;
+            for (int i = Math.max(1, altLength + minDiagonal), lastRow = Math.min(refLength, altLength + maxDiagonal); i <= lastRow; i++) {
+                final int curScore = scores[getIndex(i, altLength)];
+                if (curScore >= maxscore) {
+                    p1 = i;
+                    maxscore = curScore;
+                }
+            }
+            // now look for a larger score on the bottom-most row
+            if ( overhangStrategy != SWOverhangStrategy.LEADING_INDEL ) {
+                for (int j = Math.max(1, refLength - maxDiagonal), lastColumn = Math.min(altLength, refLength - minDiagonal); j <= lastColumn; j++) {
+                    final int curScore = scores[getIndex(refLength, j)];
+                    if ( curScore > maxscore ||
+                            (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
+                        p1 = refLength;
+                        p2 = j;
+                        maxscore = curScore;
+                        segment_length = altLength - j; // end of sequence 2 is overhanging; we will just record it as 'M' segment
+                    }
+                }
+            }
+        }
+        final List<CigarElement> lce = new ArrayList<>(5);
+        if ( segment_length > 0 && overhangStrategy == SWOverhangStrategy.SOFTCLIP ) {
+            lce.add(SmithWatermanJavaAligner.makeElement(State.CLIP, segment_length));
+            segment_length = 0;
+        }
+
+        State state = State.MATCH;
+        do {
+            final int btr = backtrack[getIndex(p1, p2)];
+            final State new_state;
+            int step_length = 1;
+            if ( btr > 0 ) {
+                new_state = State.DELETION;
+                step_length = btr;
+            } else if ( btr < 0 ) {
+                new_state = State.INSERTION;
+                step_length = (-btr);
+            } else new_state = State.MATCH; // and step_length =1, already set above
+
+            // move to next best location in the sw matrix:
+            switch( new_state ) {
+                case MATCH:  p1--; p2--; break; // move back along the diag in the sw matrix
+                case INSERTION: p2 -= step_length; break; // move left
+                case DELETION:  p1 -= step_length; break; // move up
+            }
+
+            // now let's see if the state actually changed:
+            if ( new_state == state ) segment_length+=step_length;
+            else {
+                // state changed, lets emit previous segment, whatever it was (Insertion Deletion, or (Mis)Match).
+                lce.add(SmithWatermanJavaAligner.makeElement(state, segment_length));
+                segment_length = step_length;
+                state = new_state;
+            }
+        } while ( p1 > 0 && p2 > 0 );
+
+        // post-process the last segment we are still keeping, as in SmithWatermanJavaAligner
+        final int alignment_offset;
+        if ( overhangStrategy == SWOverhangStrategy.SOFTCLIP ) {
+            lce.add(SmithWatermanJavaAligner.makeElement(state, segment_length));
+            if ( p2 > 0 ) lce.add(SmithWatermanJavaAligner.makeElement(State.CLIP, p2));
+            alignment_offset = p1;
+        } else if ( overhangStrategy == SWOverhangStrategy.IGNORE ) {
+            lce.add(SmithWatermanJavaAligner.makeElement(state, segment_length + p2));
+            alignment_offset = p1 - p2;
+        } else {  // overhangStrategy == OverhangStrategy.INDEL || overhangStrategy == OverhangStrategy.LEADING_INDEL
+            lce.add(SmithWatermanJavaAligner.makeElement(state, segment_length));
+            if ( p1 > 0 ) {
+                lce.add(SmithWatermanJavaAligner.makeElement(State.DELETION, p1));
+            } else if ( p2 > 0 ) {
+                lce.add(SmithWatermanJavaAligner.makeElement(State.INSERTION, p2));
+            }
+            alignment_offset = 0;
+        }
+
+        Collections.reverse(lce);
+        return new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), alignment_offset);
+    }
+
+    /**
+     * @return the number of alignments so far that were computed within the band only
+     */
+    @VisibleForTesting
+    long getNumBandedAlignments() {
+        return numBandedAlignments;
+    }
+
+    /**
+     * @return the number of alignments so far that had to be computed with the full matrices
+     */
+    @VisibleForTesting
+    long getNumFullAlignments() {
+        return numFullAlignments;
+    }
+
+    @Override
+    public void close() {
+        logger.info(String.format("Total compute time in banded java Smith-Waterman : %.2f sec (%d alignments within band, %d with full matrices)",
+                totalComputeTime * 1e-9, numBandedAlignments, numFullAlignments));
+    }
+}
@@ -228,7 +228,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
     /*
      * Class to store the result of calculating the CIGAR from the back track matrix
      */
-    private static final class SWPairwiseAlignmentResult implements SmithWatermanAlignment {
+    static final class SWPairwiseAlignmentResult implements SmithWatermanAlignment {
         private final Cigar cigar;
         private final int alignmentOffset;
 
@@ -375,7 +375,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         return new SWPairwiseAlignmentResult(AlignmentUtils.consolidateCigar(new Cigar(lce)), alignment_offset);
     }
 
-    private static CigarElement makeElement(final State state, final int length) {
+    static CigarElement makeElement(final State state, final int length) {
         CigarOperator op = null;
         switch (state) {
             case MATCH: op = CigarOperator.M; break;
@@ -13,6 +13,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.log4j.Logger;
+import org.apache.spark.SparkEnv;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
@@ -107,6 +108,17 @@ public final class SparkUtils {
         }
     }
 
+    /**
+     * Returns a directory on the local disk of this executor in which Spark itself writes its scratch files, as
+     * configured by spark.local.dir or assigned by the cluster manager.
+     *
+     * @return null if there is no Spark environment in this JVM
+     */
+    public static File getLocalScratchDirectory() {
+        final SparkEnv env = SparkEnv.get();
+        return env == null ? null : new File(org.apache.spark.util.Utils.getLocalDir(env.conf()));
+    }
+
     /**
      * Determine if the <code>targetPath</code> exists.
      * @param ctx JavaSparkContext
@@ -0,0 +1,244 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.apache.commons.math3.random.RandomGenerator;
+import org.apache.commons.math3.random.RandomGeneratorFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.param.ParamUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Truncated singular value decomposition A = U S V<sup>T</sup> of a matrix that is only accessed through
+ * sequential passes over blocks of its rows, using the randomized range finder with power iterations
+ * described in Halko, Martinsson, and Tropp, "Finding structure with randomness: Probabilistic algorithms for
+ * constructing approximate matrix decompositions," SIAM Review 53 (2011).
+ *
+ * <p>
+ *     For an N x M matrix, only the N x L and M x L bases of the approximate row and column spaces
+ *     (where L is the number of singular values requested plus the oversampling) and a single block of rows are held
+ *     in memory, so this can be used to decompose matrices that do not fit in memory, as long as N and M are
+ *     individually manageable.  The matrix is read (2 * number of power iterations + 2) times.  If L is equal to
+ *     min(N, M), the decomposition is exact up to floating-point error.
+ * </p>
+ */
+public final class RandomizedTruncatedSVD {
+    private static final Logger logger = LogManager.getLogger(RandomizedTruncatedSVD.class);
+
+    //columns of the bases with a norm (after orthogonalization) below this fraction of their norm before orthogonalization
+    //are linearly dependent on the previous columns and are set to zero
+    private static final double RELATIVE_NORM_THRESHOLD = 1E-12;
+
+    /**
+     * A matrix that can be read in sequential blocks of complete rows.
+     */
+    public interface RowBlockMatrix {
+        int getNumRows();
+
+        int getNumColumns();
+
+        /**
+         * Passes each block of rows to {@code rowBlockConsumer}, in order.
+         */
+        void forEachRowBlock(final RowBlockConsumer rowBlockConsumer);
+    }
+
+    @FunctionalInterface
+    public interface RowBlockConsumer {
+        /**
+         * @param firstRowIndex index of the first row of {@code rowBlock} in the full matrix
+         * @param rowBlock      rows of the block, which should not be modified
+         */
+        void accept(final int firstRowIndex, final double[][] rowBlock);
+    }
+
+    private final double[] singularValues;
+    private final double[][] leftSingularVectors;
+    private final double[][] transposedRightSingularVectors;
+
+    private RandomizedTruncatedSVD(final double[] singularValues,
+                                   final double[][] leftSingularVectors,
+                                   final double[][] transposedRightSingularVectors) {
+        this.singularValues = singularValues;
+        this.leftSingularVectors = leftSingularVectors;
+        this.transposedRightSingularVectors = transposedRightSingularVectors;
+    }
+
+    /**
+     * @return the K largest singular values in decreasing order
+     */
+    public double[] getSingularValues() {
+        return singularValues;
+    }
+
+    /**
+     * @return the left singular vectors U (dimensions N x K)
+     */
+    public double[][] getLeftSingularVectors() {
+        return leftSingularVectors;
+    }
+
+    /**
+     * @return the transposed right singular vectors V<sup>T</sup> (dimensions K x M)
+     */
+    public double[][] getTransposedRightSingularVectors() {
+        return transposedRightSingularVectors;
+    }
+
+    /**
+     * @param numSingularValues     number K of singular values and vectors to compute;
+     *                              must be positive and no larger than min(N, M)
+     * @param oversampling          number of additional random vectors used to sample the row space of the matrix
+     * @param numPowerIterations    number of power iterations, which improve the accuracy of the decomposition
+     *                              when singular values decay slowly
+     */
+    public static RandomizedTruncatedSVD compute(final RowBlockMatrix matrix,
+                                                 final int numSingularValues,
+                                                 final int oversampling,
+                                                 final int numPowerIterations,
+                                                 final int randomSeed) {
+        Utils.nonNull(matrix);
+        final int numRows = matrix.getNumRows();
+        final int numColumns = matrix.getNumColumns();
+        ParamUtils.inRange(numSingularValues, 1, Math.min(numRows, numColumns),
+                "Number of singular values must be positive and no larger than the dimensions of the matrix.");
+        ParamUtils.isPositiveOrZero(oversampling, "Oversampling must be non-negative.");
+        ParamUtils.isPositiveOrZero(numPowerIterations, "Number of power iterations must be non-negative.");
+
+        final int numBasisVectors = Math.min(numSingularValues + oversampling, Math.min(numRows, numColumns));
+        logger.info(String.format("Performing randomized SVD of %d x %d matrix using %d basis vectors and %d power iterations...",
+                numRows, numColumns, numBasisVectors, numPowerIterations));
+
+        //random N x L test matrix, stored transposed (as are all bases below) so that basis vectors are contiguous
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(randomSeed));
+        final double[][] transposedTestMatrix = new double[numBasisVectors][numRows];
+        for (final double[] testVector : transposedTestMatrix) {
+            for (int i = 0; i < numRows; i++) {
+                testVector[i] = rng.nextGaussian();
+            }
+        }
+
+        //Q = orth(A^T Omega) is an M x L orthonormal basis for the approximate row space of A
+        double[][] rowSpaceBasis = multiplyTransposed(matrix, transposedTestMatrix);
+        orthonormalize(rowSpaceBasis);
+        for (int iteration = 0; iteration < numPowerIterations; iteration++) {
+            logger.info(String.format("Performing power iteration %d / %d...", iteration + 1, numPowerIterations));
+            final double[][] columnSpaceBasis = multiply(matrix, rowSpaceBasis);
+            orthonormalize(columnSpaceBasis);
+            rowSpaceBasis = multiplyTransposed(matrix, columnSpaceBasis);
+            orthonormalize(rowSpaceBasis);
+        }
+
+        //B = A Q is N x L, so that A ~ B Q^T = U_B S (Q V_B)^T
+        logger.info("Performing SVD of projected matrix...");
+        final double[][] transposedProjection = multiply(matrix, rowSpaceBasis);
+        final SingularValueDecomposition projectionSVD = new SingularValueDecomposition(
+                new Array2DRowRealMatrix(transposedProjection, false).transpose());
+
+        final double[] singularValues = Arrays.copyOf(projectionSVD.getSingularValues(), numSingularValues);
+        final RealMatrix projectionU = projectionSVD.getU();
+        final double[][] leftSingularVectors = projectionU.getSubMatrix(0, numRows - 1, 0, numSingularValues - 1).getData();
+        final RealMatrix projectionV = projectionSVD.getV();
+        final double[][] transposedRightSingularVectors = new double[numSingularValues][numColumns];
+        for (int k = 0; k < numSingularValues; k++) {
+            final double[] rightSingularVector = transposedRightSingularVectors[k];
+            for (int l = 0; l < numBasisVectors; l++) {
+                final double weight = projectionV.getEntry(l, k);
+                final double[] basisVector = rowSpaceBasis[l];
+                for (int j = 0; j < numColumns; j++) {
+                    rightSingularVector[j] += weight * basisVector[j];
+                }
+            }
+        }
+        return new RandomizedTruncatedSVD(singularValues, leftSingularVectors, transposedRightSingularVectors);
+    }
+
+    /**
+     * Returns (A X)<sup>T</sup> (dimensions L x N), given X<sup>T</sup> (dimensions L x M).
+     */
+    private static double[][] multiply(final RowBlockMatrix matrix,
+                                       final double[][] transposedFactor) {
+        final double[][] transposedResult = new double[transposedFactor.length][matrix.getNumRows()];
+        matrix.forEachRowBlock((firstRowIndex, rowBlock) -> {
+            for (int i = 0; i < rowBlock.length; i++) {
+                final double[] row = rowBlock[i];
+                for (int l = 0; l < transposedFactor.length; l++) {
+                    final double[] factorColumn = transposedFactor[l];
+                    double sum = 0.;
+                    for (int j = 0; j < row.length; j++) {
+                        sum += row[j] * factorColumn[j];
+                    }
+                    transposedResult[l][firstRowIndex + i] = sum;
+                }
+            }
+        });
+        return transposedResult;
+    }
+
+    /**
+     * Returns (A<sup>T</sup> X)<sup>T</sup> (dimensions L x M), given X<sup>T</sup> (dimensions L x N).
+     */
+    private static double[][] multiplyTransposed(final RowBlockMatrix matrix,
+                                                 final double[][] transposedFactor) {
+        final double[][] transposedResult = new double[transposedFactor.length][matrix.getNumColumns()];
+        matrix.forEachRowBlock((firstRowIndex, rowBlock) -> {
+            for (int i = 0; i < rowBlock.length; i++) {
+                final double[] row = rowBlock[i];
+                for (int l = 0; l < transposedFactor.length; l++) {
+                    final double weight = transposedFactor[l][firstRowIndex + i];
+                    final double[] resultColumn = transposedResult[l];
+                    for (int j = 0; j < row.length; j++) {
+                        resultColumn[j] += weight * row[j];
+                    }
+                }
+            }
+        });
+        return transposedResult;
+    }
+
+    /**
+     * Orthonormalizes the given vectors in place using modified Gram-Schmidt with reorthogonalization.
+     * Vectors that are linearly dependent on the previous vectors are set to zero.
+     */
+    private static void orthonormalize(final double[][] vectors) {
+        for (int l = 0; l < vectors.length; l++) {
+            final double[] vector = vectors[l];
+            final double originalNorm = norm(vector);
+            for (int pass = 0; pass < 2; pass++) {
+                for (int previous = 0; previous < l; previous++) {
+                    final double[] previousVector = vectors[previous];
+                    final double projection = dot(vector, previousVector);
+                    for (int j = 0; j < vector.length; j++) {
+                        vector[j] -= projection * previousVector[j];
+                    }
+                }
+            }
+            final double norm = norm(vector);
+            if (norm <= RELATIVE_NORM_THRESHOLD * originalNorm || norm == 0.) {
+                Arrays.fill(vector, 0.);
+            } else {
+                for (int j = 0; j < vector.length; j++) {
+                    vector[j] /= norm;
+                }
+            }
+        }
+    }
+
+    private static double dot(final double[] x,
+                              final double[] y) {
+        double sum = 0.;
+        for (int j = 0; j < x.length; j++) {
+            sum += x[j] * y[j];
+        }
+        return sum;
+    }
+
+    private static double norm(final double[] x) {
+        return Math.sqrt(dot(x, x));
+    }
+}
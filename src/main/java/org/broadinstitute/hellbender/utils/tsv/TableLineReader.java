@@ -0,0 +1,198 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads the physical lines of a table into a reusable character buffer.
+ * <p>
+ * Lines are located in the buffer by their offsets, so that a line can be split into its column values
+ * directly, without first copying it into a {@link String}. Line terminators are the same as
+ * {@link java.io.BufferedReader#readLine()}'s: a line feed, a carriage return, or a carriage return followed
+ * by a line feed.
+ * </p>
+ * <p>
+ * Lines that contain a {@link TableUtils#QUOTE_CHARACTER} or an {@link TableUtils#ESCAPE_CHARACTER} cannot be
+ * split on column separators alone; {@link #lineNeedsParser()} reports them so that the caller can hand them
+ * to a full CSV parser instead.
+ * </p>
+ */
+final class TableLineReader implements Closeable {
+
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final Reader reader;
+
+    private char[] buffer = new char[INITIAL_BUFFER_SIZE];
+
+    /**
+     * Offset of the first character that has not been consumed yet.
+     */
+    private int position = 0;
+
+    /**
+     * Number of valid characters in {@link #buffer}.
+     */
+    private int bufferEnd = 0;
+
+    private boolean endOfInput = false;
+
+    /**
+     * Whether the previous line ended with a carriage return, so that a line feed following it must be skipped.
+     */
+    private boolean skipLineFeed = false;
+
+    private int lineStart = 0;
+    private int lineEnd = 0;
+    private boolean lineNeedsParser = false;
+    private long lineNumber = 0;
+
+    TableLineReader(final Reader reader) {
+        this.reader = Utils.nonNull(reader, "the reader cannot be null");
+    }
+
+    /**
+     * Advances to the next line.
+     * <p>
+     * This invalidates the offsets, and possibly the buffer, of the previous line.
+     * </p>
+     *
+     * @return {@code true} if there is a next line, {@code false} at the end of the input.
+     * @throws IOException if raised when reading from the input.
+     */
+    boolean nextLine() throws IOException {
+        if (skipLineFeed) {
+            if (position == bufferEnd && !endOfInput) {
+                fill();
+            }
+            if (position < bufferEnd && buffer[position] == '\n') {
+                position++;
+            }
+            skipLineFeed = false;
+        }
+        int scan = position;
+        boolean needsParser = false;
+        while (true) {
+            while (scan < bufferEnd) {
+                final char c = buffer[scan];
+                if (c == '\n' || c == '\r') {
+                    setLine(position, scan, needsParser);
+                    position = scan + 1;
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+                needsParser |= c == TableUtils.QUOTE_CHARACTER || c == TableUtils.ESCAPE_CHARACTER;
+                scan++;
+            }
+            if (endOfInput) {
+                break;
+            }
+            final int scanned = scan - position;
+            fill();
+            scan = position + scanned;
+        }
+        if (scan > position) {
+            setLine(position, scan, needsParser);
+            position = scan;
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    private void setLine(final int start, final int end, final boolean needsParser) {
+        lineStart = start;
+        lineEnd = end;
+        lineNeedsParser = needsParser;
+        lineNumber++;
+    }
+
+    /**
+     * Moves the unconsumed characters to the start of the buffer, growing it if it is full, and reads more input.
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, bufferEnd - position);
+            bufferEnd -= position;
+            position = 0;
+        }
+        if (bufferEnd == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        final int read = reader.read(buffer, bufferEnd, buffer.length - bufferEnd);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            bufferEnd += read;
+        }
+    }
+
+    /**
+     * @return the number of lines read so far, which is the line number of the current line.
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return {@code true} if the current line contains quote or escape characters.
+     */
+    boolean lineNeedsParser() {
+        return lineNeedsParser;
+    }
+
+    /**
+     * @return the current line without its terminator.
+     */
+    String getLine() {
+        return new String(buffer, lineStart, lineEnd - lineStart);
+    }
+
+    /**
+     * @return the column values of the current line, which must not need a parser.
+     */
+    String[] splitLine() {
+        return split(buffer, lineStart, lineEnd);
+    }
+
+    /**
+     * Splits a line on {@link TableUtils#COLUMN_SEPARATOR}s.
+     * <p>
+     * For lines that contain no quote or escape characters, this gives the same values as a CSV parser configured
+     * as in {@link TableReader}.
+     * </p>
+     *
+     * @param chars the characters holding the line.
+     * @param start the offset of the first character of the line.
+     * @param end the offset after the last character of the line.
+     * @return never {@code null}, with at least one value.
+     */
+    static String[] split(final char[] chars, final int start, final int end) {
+        int numValues = 1;
+        for (int i = start; i < end; i++) {
+            if (chars[i] == TableUtils.COLUMN_SEPARATOR) {
+                numValues++;
+            }
+        }
+        final String[] values = new String[numValues];
+        int valueStart = start;
+        int valueIndex = 0;
+        for (int i = start; i < end; i++) {
+            if (chars[i] == TableUtils.COLUMN_SEPARATOR) {
+                values[valueIndex++] = new String(chars, valueStart, i - valueStart);
+                valueStart = i + 1;
+            }
+        }
+        values[valueIndex] = new String(chars, valueStart, end - valueStart);
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -1,6 +1,6 @@
 package org.broadinstitute.hellbender.utils.tsv;
 
-import com.opencsv.CSVReader;
+import com.opencsv.CSVParser;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.Utils;
@@ -34,6 +34,8 @@ import java.util.stream.Stream;
  * any special formatting characters like a new-line, the quote character itself, the column separator character or
  * the escape character {@link TableUtils#ESCAPE_CHARACTER}.</p>
  * <p>Within quotes, especial characters must be escaped using the {@link TableUtils#ESCAPE_CHARACTER}</p>
+ * <p>Lines without any quote or escape characters, which in practice are nearly all of them, are split directly on the
+ * column separator from the input buffer; only the remaining lines go through a full CSV parser.</p>
  * <h3>Implementing your own reader</h3>
  * <p>
  * Implementations control how instances of {@link R} are instantiated by extending
@@ -100,12 +102,12 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
     private final String source;
 
     /**
-     * Input text reader.
+     * Input line reader.
      * <p>
      * Keeps track of the last line number read for error reporting purposes.
      * </p>
      */
-    private final LineNumberReader reader;
+    private final TableLineReader lineReader;
 
     /**
      * Holds a reference to the column names.
@@ -113,10 +115,9 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
     private TableColumnCollection columns;
 
     /**
-     * Holds a reference to the csvReader object use to read and parse the input
-     * into {@link String} arrays.
+     * Parser for the lines that contain quote or escape characters, and for {@link #readRecord(String)}.
      */
-    private CSVReader csvReader;
+    private final CSVParser csvParser;
 
     /**
      * Indicates whether the reader has tried to fetch the next record.
@@ -182,8 +183,8 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
         Utils.nonNull(sourceReader, "the reader cannot be null");
 
         this.source = sourceName;
-        this.reader = sourceReader instanceof LineNumberReader ? (LineNumberReader) sourceReader : new LineNumberReader(sourceReader);
-        this.csvReader = new CSVReader(this.reader, TableUtils.COLUMN_SEPARATOR, TableUtils.QUOTE_CHARACTER, TableUtils.ESCAPE_CHARACTER);
+        this.lineReader = new TableLineReader(sourceReader);
+        this.csvParser = new CSVParser(TableUtils.COLUMN_SEPARATOR, TableUtils.QUOTE_CHARACTER, TableUtils.ESCAPE_CHARACTER);
         findAndProcessHeaderLine();
         this.nextRecordFetched = false;
     }
@@ -251,11 +252,12 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
      * @return never {@code null}.
      */
     private String formatExceptionMessageWithLocationInfo(final String message) {
+        final long lineNumber = lineReader.getLineNumber();
         final String explanation = message == null ? "" : ": " + message;
         if (source == null) {
-            return String.format("format error at line %d" + explanation, reader.getLineNumber());
+            return String.format("format error at line %d" + explanation, lineNumber);
         } else {
-            return String.format("format error in '%s' at line %d" + explanation, source, reader.getLineNumber());
+            return String.format("format error in '%s' at line %d" + explanation, source, lineNumber);
         }
     }
 
@@ -323,7 +325,7 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
      */
     public final R readRecord(final String line) {
         try {
-            final String[] fields = csvReader.getParser().parseLine(line);
+            final String[] fields = csvParser.parseLine(line);
             if (isCommentLine(fields) || isHeaderLine(fields)) {
                 return null;
             } else if (fields.length != columns.columnCount()) {
@@ -345,14 +347,14 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
     private R fetchNextRecord() throws IOException {
         nextRecordFetched = true;
         String[] line;
-        while ((line = csvReader.readNext()) != null) {
+        while ((line = readNextLine()) != null) {
             if (isCommentLine(line)) {
-                processCommentLine(line, reader.getLineNumber());
+                processCommentLine(line, lineReader.getLineNumber());
             } else if (!isHeaderLine(line)) {
                 if (line.length != columns.columnCount()) {
                     throw formatException(String.format("mismatch between number of values in line (%d) and number of columns (%d)", line.length, columns.columnCount()));
                 } else {
-                    final R result = createRecord(new DataLine(reader.getLineNumber(), line, columns, this::formatException));
+                    final R result = createRecord(new DataLine(lineReader.getLineNumber(), line, columns, this::formatException));
                     if (result != null) {
                         return result;
                     }
@@ -362,6 +364,46 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
         return null;
     }
 
+    /**
+     * Reads the values of the next line from the source.
+     * <p>
+     * A quoted value may span several physical lines, in which case they are all consumed.
+     * </p>
+     *
+     * @return {@code null} if there are no more lines in the input.
+     * @throws IOException if it was raised when reading from the source.
+     */
+    private String[] readNextLine() throws IOException {
+        if (!lineReader.nextLine()) {
+            return null;
+        } else {
+            return lineReader.lineNeedsParser() ? parseCurrentLine() : lineReader.splitLine();
+        }
+    }
+
+    /**
+     * Parses the current line with the CSV parser, consuming further lines while a quoted value remains open.
+     *
+     * @return {@code null} if the input ended before any value was completed.
+     * @throws IOException if it was raised when reading from the source.
+     */
+    private String[] parseCurrentLine() throws IOException {
+        String[] result = null;
+        do {
+            final String[] values = csvParser.parseLineMulti(lineReader.getLine());
+            if (values.length > 0) {
+                result = result == null ? values : concatenate(result, values);
+            }
+        } while (csvParser.isPending() && lineReader.nextLine());
+        return result;
+    }
+
+    private static String[] concatenate(final String[] first, final String[] second) {
+        final String[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
     private void processCommentLine(final String[] line, final long lineNumber) {
         final StringBuilder builder = new StringBuilder();
         builder.append(line[0].substring(TableUtils.COMMENT_PREFIX.length()));
@@ -412,9 +454,9 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
      */
     private String[] skipCommentLines() throws IOException {
         String[] line;
-        while ((line = csvReader.readNext()) != null) {
+        while ((line = readNextLine()) != null) {
             if (isCommentLine(line)) {
-                processCommentLine(line, reader.getLineNumber());
+                processCommentLine(line, lineReader.getLineNumber());
             } else {
                 break;
             }
@@ -438,7 +480,7 @@ public abstract class TableReader<R> implements Closeable, Iterable<R> {
 
     @Override
     public void close() throws IOException {
-        csvReader.close();
+        lineReader.close();
     }
 
     /**
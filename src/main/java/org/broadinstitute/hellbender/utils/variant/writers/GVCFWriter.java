@@ -153,15 +153,8 @@ public final class GVCFWriter implements VariantContextWriter {
      * @return a VariantContext to be emitted, or null if non is appropriate
      */
     protected VariantContext addHomRefSite(final VariantContext vc, final Genotype g) {
-
-        if (nextAvailableStart != -1) {
-            // don't create blocks while the hom-ref site falls before nextAvailableStart (for deletions)
-            if (vc.getStart() <= nextAvailableStart && vc.getContig().equals(contigOfNextAvailableStart)) {
-                return null;
-            }
-            // otherwise, reset to non-relevant
-            nextAvailableStart = -1;
-            contigOfNextAvailableStart = null;
+        if (isCoveredByPreviousVariant(vc.getContig(), vc.getStart())) {
+            return null;
         }
 
         final VariantContext result;
@@ -175,6 +168,67 @@ public final class GVCFWriter implements VariantContextWriter {
         return result;
     }
 
+    /**
+     * Add a single-base hom-ref site to this writer, given directly as the values of its hom-ref genotype, so that no
+     * VariantContext needs to be created for it.  This is equivalent to adding a biallelic VariantContext with alleles
+     * refAllele and {@link Allele#NON_REF_ALLELE} and a hom-ref genotype with these GQ, DP and PLs.
+     *
+     * @param sampleName the name of the sample
+     * @param contig the contig of the site
+     * @param pos the position of the site
+     * @param refAllele the reference allele at the site
+     * @param ploidy the ploidy of the hom-ref genotype
+     * @param GQ the GQ of the hom-ref genotype
+     * @param DP the DP of the hom-ref genotype
+     * @param PLs the non-null PLs of the hom-ref genotype, which are not modified or referenced by this writer
+     */
+    public void addHomRefSite(final String sampleName, final String contig, final int pos, final Allele refAllele,
+                              final int ploidy, final int GQ, final int DP, final int[] PLs) {
+        Utils.nonNull(contig);
+        Utils.nonNull(refAllele);
+        Utils.nonNull(PLs);
+
+        if (this.sampleName == null) {
+            this.sampleName = Utils.nonNull(sampleName);
+        }
+
+        if (currentBlock != null && !currentBlock.isContiguous(contig, pos)) {
+            // we've made a non-contiguous step (across interval, onto another chr), so finalize
+            emitCurrentBlock();
+        }
+
+        if (isCoveredByPreviousVariant(contig, pos)) {
+            return;
+        }
+
+        final int cappedGQ = Math.min(GQ, MAX_GENOTYPE_QUAL);
+        if (currentBlock != null && currentBlock.withinBounds(cappedGQ) && currentBlock.getPloidy() == ploidy
+                && (currentBlock.getMinPLs() == null || currentBlock.getMinPLs().length == PLs.length)) {
+            currentBlock.add(pos, GQ, DP, PLs, null);
+        } else {
+            emitCurrentBlock();
+            final Range<Integer> partition = getPartition(cappedGQ);
+            currentBlock = new HomRefBlock(contig, pos, refAllele, partition.lowerEndpoint(), partition.upperEndpoint(), ploidy);
+            currentBlock.add(pos, GQ, DP, PLs, null);
+        }
+    }
+
+    /**
+     * Is the hom-ref site at contig:pos covered by the last variant (for deletions), in which case no block is created for it
+     */
+    private boolean isCoveredByPreviousVariant(final String contig, final int pos) {
+        if (nextAvailableStart != -1) {
+            // don't create blocks while the hom-ref site falls before nextAvailableStart (for deletions)
+            if (pos <= nextAvailableStart && contig.equals(contigOfNextAvailableStart)) {
+                return true;
+            }
+            // otherwise, reset to non-relevant
+            nextAvailableStart = -1;
+            contigOfNextAvailableStart = null;
+        }
+        return false;
+    }
+
     private boolean genotypeCanBeMergedInCurrentBlock(final Genotype g) {
         return currentBlock != null
                 && currentBlock.withinBounds(Math.min(g.getGQ(), MAX_GENOTYPE_QUAL))
@@ -215,6 +269,14 @@ public final class GVCFWriter implements VariantContextWriter {
         return block;
     }
 
+    private Range<Integer> getPartition(final int gq) {
+        final Range<Integer> partition = gqPartitions.get(gq);
+        if (partition == null) {
+            throw new GATKException("GQ " + gq + " didn't fit into any partition");
+        }
+        return partition;
+    }
+
     /**
      * Add a VariantContext to this writer for emission
      *
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.utils.variant.writers;
 
 import htsjdk.samtools.util.Locatable;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import htsjdk.variant.variantcontext.Allele;
 import htsjdk.variant.variantcontext.Genotype;
 import htsjdk.variant.variantcontext.GenotypeBuilder;
@@ -14,10 +15,9 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
-import java.util.List;
 
 /**
  * Helper class for calculating a GQ band in the GVCF writer
@@ -26,18 +26,26 @@ import java.util.List;
  * and provides summary information about the entire block of genotypes.
  *
  * Genotypes within the HomRefBlock are restricted to hom-ref genotypes within a band of GQ scores
+ *
+ * Sites can be added either as Genotypes, or directly as their GQ, DP and PL values, in which case a block
+ * does not need a VariantContext until it is converted by {@link #toVariantContext}.
  */
 final class HomRefBlock implements Locatable {
 
     private static final int HOM_REF_PL_POSITION = 0;  //the first value in the minPL[] is always the HomRef
 
+    private static final String SOURCE = "HomRefBlock";
+
     private final VariantContext startingVC;
+    private final String contig;
+    private final int start;
     private final int minGQ, maxGQ;
-    private final List<Integer> DPs = new ArrayList<>();
+    private final IntArrayList DPs = new IntArrayList();
     private final Allele ref;
     private final int ploidy;
 
     private int end;
+    private int minDP = Integer.MAX_VALUE;
     private int[] minPLs = null;
     private int[] minPPs = null;
 
@@ -49,16 +57,37 @@ final class HomRefBlock implements Locatable {
      * @param upperGQBound the upperGQBound (exclusive) to use in this band
      */
     public HomRefBlock(final VariantContext startingVC, final int lowerGQBound, final int upperGQBound, final int defaultPloidy) {
-        Utils.nonNull(startingVC, "startingVC cannot be null");
+        this(Utils.nonNull(startingVC, "startingVC cannot be null"), startingVC.getContig(), startingVC.getStart(), startingVC.getReference(),
+                lowerGQBound, upperGQBound, startingVC.getMaxPloidy(defaultPloidy));
+    }
+
+    /**
+     * Create a new HomRefBlock without a starting VariantContext
+     *
+     * @param contig the contig of this band
+     * @param start the first position of this band
+     * @param ref the reference allele at start
+     * @param lowerGQBound the lowerGQBound (inclusive) to use in this band
+     * @param upperGQBound the upperGQBound (exclusive) to use in this band
+     * @param ploidy the ploidy of the genotypes in this band
+     */
+    public HomRefBlock(final String contig, final int start, final Allele ref, final int lowerGQBound, final int upperGQBound, final int ploidy) {
+        this(null, Utils.nonNull(contig, "contig cannot be null"), start, Utils.nonNull(ref, "ref cannot be null"), lowerGQBound, upperGQBound, ploidy);
+    }
+
+    private HomRefBlock(final VariantContext startingVC, final String contig, final int start, final Allele ref,
+                        final int lowerGQBound, final int upperGQBound, final int ploidy) {
         Utils.validateArg(upperGQBound <= VCFConstants.MAX_GENOTYPE_QUAL + 1, "upperGQBound must be <= " + (VCFConstants.MAX_GENOTYPE_QUAL + 1));
         if ( lowerGQBound > upperGQBound ) { throw new IllegalArgumentException("bad lowerGQBound " + lowerGQBound + " as it's >= upperGQBound " + upperGQBound); }
 
         this.startingVC = startingVC;
-        this.end = getStart() - 1;
-        this.ref = startingVC.getReference();
+        this.contig = contig;
+        this.start = start;
+        this.end = start - 1;
+        this.ref = ref;
         this.minGQ = lowerGQBound;
         this.maxGQ = upperGQBound;
-        this.ploidy = startingVC.getMaxPloidy(defaultPloidy);
+        this.ploidy = ploidy;
     }
 
     /**
@@ -70,7 +99,8 @@ final class HomRefBlock implements Locatable {
      * is no variant-context to be output into the VCF.
      */
     public VariantContext toVariantContext(String sampleName) {
-        final VariantContextBuilder vcb = new VariantContextBuilder(getStartingVC());
+        final VariantContextBuilder vcb = startingVC != null ? new VariantContextBuilder(startingVC)
+                : new VariantContextBuilder(SOURCE, contig, start, start, Arrays.asList(ref, Allele.NON_REF_ALLELE));
         vcb.attributes(new LinkedHashMap<>(2)); // clear the attributes
         vcb.stop(getEnd());
         vcb.attribute(VCFConstants.END_KEY, getEnd());
@@ -108,44 +138,62 @@ final class HomRefBlock implements Locatable {
     public void add(final int pos, final Genotype genotype) {
         Utils.nonNull(genotype, "genotype cannot be null");
         if ( ! genotype.hasPL() ) { throw new IllegalArgumentException("genotype must have PL field");}
-        if ( pos != end + 1 ) { throw new IllegalArgumentException("adding genotype at pos " + pos + " isn't contiguous with previous end " + end); }
         if ( genotype.getPloidy() != ploidy) { throw new IllegalArgumentException("cannot add a genotype with a different ploidy: " + genotype.getPloidy() + " != " + ploidy); }
+        final int[] pps = genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY) ?
+                PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype) : null;
+        add(pos, genotype.getGQ(), genotype.getDP(), genotype.getPL(), pps);
+    }
+
+    /**
+     * Add a hom-ref site with the given values to this band.
+     *
+     * Treats GQ values > 99 as 99.
+     *
+     * @param pos Current genomic position. Must be 1 base after the previous position
+     * @param GQ the GQ of the site
+     * @param DP the DP of the site, negative values are treated as 0
+     * @param PLs the non-null PLs of the site, which are not modified or referenced by this band
+     * @param PPs the phred-scaled posteriors of the site, or null if there are none
+     */
+    public void add(final int pos, final int GQ, final int DP, final int[] PLs, final int[] PPs) {
+        if ( PLs == null ) { throw new IllegalArgumentException("PLs cannot be null");}
+        if ( pos != end + 1 ) { throw new IllegalArgumentException("adding genotype at pos " + pos + " isn't contiguous with previous end " + end); }
         // Make sure the GQ is within the bounds of this band. Treat GQs > 99 as 99.
-        if ( !withinBounds(Math.min(genotype.getGQ(), VCFConstants.MAX_GENOTYPE_QUAL))) {
-            throw new IllegalArgumentException("cannot add a genotype with GQ=" + genotype.getGQ() + " because it's not within bounds ["
+        if ( !withinBounds(Math.min(GQ, VCFConstants.MAX_GENOTYPE_QUAL))) {
+            throw new IllegalArgumentException("cannot add a genotype with GQ=" + GQ + " because it's not within bounds ["
                     + this.getGQLowerBound() + ',' + this.getGQUpperBound() + ')');
         }
 
         if( minPLs == null ) {
-            minPLs = genotype.getPL();
+            minPLs = PLs.clone();
         }
         else { // otherwise take the min with the provided genotype's PLs
-            final int[] pls = genotype.getPL();
-            if (pls.length != minPLs.length) {
-                throw new GATKException("trying to merge different PL array sizes: " + pls.length + " != " + minPLs.length);
+            if (PLs.length != minPLs.length) {
+                throw new GATKException("trying to merge different PL array sizes: " + PLs.length + " != " + minPLs.length);
             }
-            for (int i = 0; i < pls.length; i++) {
-                minPLs[i] = Math.min(minPLs[i], pls[i]);
+            for (int i = 0; i < PLs.length; i++) {
+                minPLs[i] = Math.min(minPLs[i], PLs[i]);
             }
         }
 
-        if( genotype.hasExtendedAttribute(GATKVCFConstants.PHRED_SCALED_POSTERIORS_KEY)) {
+        if( PPs != null ) {
             if (minPPs == null ) {
-                minPPs = PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype);
+                minPPs = PPs.clone();
             }
-            else { // otherwise take the min with the provided genotype's PLs
-                final int[] pps = PosteriorProbabilitiesUtils.parsePosteriorsIntoPhredSpace(genotype);
-                if (pps.length != minPPs.length) {
-                    throw new GATKException("trying to merge different PP array sizes: " + pps.length + " != " + minPPs.length);
+            else { // otherwise take the min with the provided genotype's PPs
+                if (PPs.length != minPPs.length) {
+                    throw new GATKException("trying to merge different PP array sizes: " + PPs.length + " != " + minPPs.length);
                 }
-                for (int i = 0; i < pps.length; i++) {
-                    minPPs[i] = Math.min(minPPs[i], pps[i]);
+                for (int i = 0; i < PPs.length; i++) {
+                    minPPs[i] = Math.min(minPPs[i], PPs[i]);
                 }
             }
         }
 
         end = pos;
-        DPs.add(Math.max(genotype.getDP(), 0)); // DP must be >= 0
+        final int nonNegativeDP = Math.max(DP, 0); // DP must be >= 0
+        DPs.add(nonNegativeDP);
+        minDP = Math.min(minDP, nonNegativeDP);
     }
 
     /**
@@ -159,13 +207,15 @@ final class HomRefBlock implements Locatable {
 
     /** Get the min DP observed within this band */
     public int getMinDP() {
-        return Collections.min(DPs);
+        Utils.validate(!DPs.isEmpty(), "no DPs have been observed within this band");
+        return minDP;
     }
 
     /** Get the median DP observed within this band
      * If there are an even number of DPs recorded in this band the median is the mean of the two middle values */
     public int getMedianDP() {
-        return (int) Math.round(MathUtils.median(DPs));
+        Utils.validate(!DPs.isEmpty(), "cannot take the median of a band with no DPs");
+        return MathUtils.median(DPs.toIntArray());
     }
 
     /** Get the min PLs observed within this band, can be null if no PLs have yet been observed */
@@ -186,21 +236,31 @@ final class HomRefBlock implements Locatable {
     }
 
     public boolean isContiguous(final VariantContext vc) {
-        return (vc.getEnd() == getEnd() + 1) && startingVC.getContig().equals(vc.getContig());
+        return isContiguous(vc.getContig(), vc.getEnd());
     }
 
+    /**
+     * @return true if the single-base site at contig:pos immediately follows this band
+     */
+    public boolean isContiguous(final String contig, final int pos) {
+        return (pos == getEnd() + 1) && getContig().equals(contig);
+    }
+
+    /**
+     * @return the VariantContext that started this band, or null if it was created without one
+     */
     public VariantContext getStartingVC() {
         return startingVC;
     }
 
     @Override
     public String getContig() {
-        return startingVC.getContig();
+        return contig;
     }
 
     @Override
     public int getStart() {
-        return startingVC.getStart();
+        return start;
     }
 
     @Override
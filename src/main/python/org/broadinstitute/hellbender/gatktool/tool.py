@@ -8,12 +8,26 @@ and is used to pass data to Python from Java.
 
 Most of the functions in this module are intended to be called by GATK via
 the StreamingPythonScriptExecutor Java class, and are not called by Python
-code directly. The one exception is the readDataFIFO function, which can be
-used to read data that had been passed to Python by GATK Java code.
+code directly. The exceptions are the readDataFIFO and readDataFrame
+functions, which can be used to read data that had been passed to Python by
+GATK Java code.
+
+The data FIFO is opened either in text mode, in which case it is read one
+line at a time with readDataFIFO, or in binary mode, in which case it is read
+one frame at a time with readDataFrame. Each binary frame consists of a one
+byte type code, the length of the payload in bytes as a little-endian 32 bit
+integer, and the payload, and is written by the BinaryFrameWriter Java class.
 """
 
 import sys
 import os
+import struct
+import array
+
+try:
+    import numpy
+except ImportError:
+    numpy = None
 
 _ackFIFO = None
 _dataFIFO = None
@@ -76,15 +90,15 @@ def terminateGATK():
     _ackFIFO = None
 
 
-def initializeDataFIFO(dataFIFOName: str):
+def initializeDataFIFO(dataFIFOName: str, binary: bool = False):
     """
     Initialize the data FIFO for reading.
 
     Once this method has been called, the FIFO may be read using the
-    readDataFIFO function.
+    readDataFIFO function or, if binary is True, the readDataFrame function.
     """
     global _dataFIFO
-    _dataFIFO = DataFIFO(dataFIFOName)
+    _dataFIFO = DataFIFO(dataFIFOName, binary)
 
 
 def closeDataFIFO():
@@ -108,6 +122,28 @@ def readDataFIFO() -> str:
     return _dataFIFO.readLine()
 
 
+def readDataFrame():
+    """
+    Read a frame from the binary Data FIFO.
+    :return: str for string frames, bytes for raw byte frames, and for
+    numeric array frames a numpy array (or an array.array if numpy is
+    not available)
+    """
+    global _dataFIFO
+    return _dataFIFO.readFrame()
+
+
+def getDataFIFOStatistics() -> dict:
+    """
+    Return the number of lines or frames, and the number of bytes, read
+    from the Data FIFO so far.
+    """
+    global _dataFIFO
+    if _dataFIFO is None:
+        raise RuntimeError("data FIFO has not been initialized")
+    return {"itemsRead": _dataFIFO.itemsRead, "bytesRead": _dataFIFO.bytesRead}
+
+
 class AckFIFO:
     """
     Manage the FIFO used to notify GATK (via an ack) that a command has
@@ -156,13 +192,28 @@ class DataFIFO:
 
     The FIFO is written by GATK and read by Python.
     """
-    def __init__(self, dataFIFOName: str) -> None:
+    _frameHeader = struct.Struct('<ci')
+
+    # frame type codes (see BinaryFrameWriter.FrameType) mapped to the
+    # corresponding little-endian numpy dtype and array module typecode
+    _arrayTypes = {
+        b'b': ('<i1', 'b'),
+        b'i': ('<i4', 'i'),
+        b'q': ('<i8', 'q'),
+        b'f': ('<f4', 'f'),
+        b'd': ('<f8', 'd'),
+    }
+
+    def __init__(self, dataFIFOName: str, binary: bool = False) -> None:
         """Open the data stream fifo for reading"""
         self.dataFIFOName = dataFIFOName
+        self.binary = binary
+        self.itemsRead = 0
+        self.bytesRead = 0
 
         # the data fifo is always opened for read only on the python side
         readDescriptor = os.open(self.dataFIFOName, os.O_RDONLY)
-        self.fileReader = os.fdopen(readDescriptor, 'r')
+        self.fileReader = os.fdopen(readDescriptor, 'rb' if binary else 'r')
 
     def readLine(self) -> str:
         """
@@ -171,7 +222,46 @@ class DataFIFO:
         """
         if self.fileReader is None:
             raise RuntimeError("data FIFO reader has not been initialized")
-        return self.fileReader.readline()
+        line = self.fileReader.readline()
+        self.itemsRead += 1
+        self.bytesRead += len(line)
+        return line.decode('utf-8') if self.binary else line
+
+    def readFrame(self):
+        """
+        Read a single frame from the binary Data FIFO.
+        :return: the decoded frame payload
+        """
+        if self.fileReader is None:
+            raise RuntimeError("data FIFO reader has not been initialized")
+        if not self.binary:
+            raise RuntimeError("data FIFO was not opened in binary mode")
+        typeCode, length = DataFIFO._frameHeader.unpack(self._readExactly(DataFIFO._frameHeader.size))
+        payload = self._readExactly(length)
+        self.itemsRead += 1
+        self.bytesRead += DataFIFO._frameHeader.size + length
+
+        if typeCode == b's':
+            return payload.decode('utf-8')
+        elif typeCode == b'x':
+            return payload
+        elif typeCode in DataFIFO._arrayTypes:
+            dtype, typecode = DataFIFO._arrayTypes[typeCode]
+            if numpy is not None:
+                return numpy.frombuffer(payload, dtype=dtype)
+            values = array.array(typecode)
+            values.frombytes(payload)
+            if sys.byteorder != 'little':
+                values.byteswap()
+            return values
+        else:
+            raise RuntimeError("unknown data frame type: " + str(typeCode))
+
+    def _readExactly(self, length: int) -> bytes:
+        data = self.fileReader.read(length)
+        if len(data) != length:
+            raise RuntimeError("unexpected end of data FIFO")
+        return data
 
     def close(self):
         if self.fileReader is None:
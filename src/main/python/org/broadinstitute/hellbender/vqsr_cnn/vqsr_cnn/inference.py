@@ -13,7 +13,6 @@ import keras.backend as K
 from . import defines
 from . import tensor_maps
 
-READ_ELEMENTS = 8
 Read = namedtuple("Read", "seq qual cigar reverse mate_reverse first mapping_quality reference_start")
 Variant = namedtuple("Variant", "contig pos ref alt type")
 
@@ -36,7 +35,7 @@ def score_and_write_batch(args, model, file_out, batch_size, python_batch_size,
     '''Score a batch of variants with a CNN model. Write tab delimited temp file with scores.
 
     This function is tightly coupled with the CNNScoreVariants.java
-    It requires data written to the fifo in the order given by transferToPythonViaFifo
+    It requires the binary frames written to the fifo for each variant by CNNScoreVariants.getVariantFrames
 
     Arguments
         args: Namespace with command line or configuration file set arguments
@@ -54,28 +53,30 @@ def score_and_write_batch(args, model, file_out, batch_size, python_batch_size,
     read_batch = []
 
     for _ in range(batch_size):
-        fifo_line = tool.readDataFIFO()
-        fifo_data = fifo_line.split(defines.SEPARATOR_CHAR)
+        fifo_data = tool.readDataFrame().split(defines.SEPARATOR_CHAR)
+        num_reads = int(tool.readDataFrame()[0])
 
         variant_data.append(fifo_data[0] + '\t' + fifo_data[1] + '\t' + fifo_data[2] + '\t' + fifo_data[3])
         reference_batch.append(reference_string_to_tensor(fifo_data[4]))
         annotation_batch.append(annotation_string_to_tensor(args, fifo_data[5]))
         variant_types.append(fifo_data[6].strip())
 
-        fidx = 7 # 7 Because above we parsed: contig pos ref alt reference_string annotation variant_type
-        if args.tensor_name in defines.TENSOR_MAPS_2D and len(fifo_data) > fidx:
-            read_tuples = []
+        # Each read is sent as a frame with its tab delimited fields, followed by a frame with its base qualities
+        read_tuples = []
+        for _ in range(max(num_reads, 0)):
+            read_data = tool.readDataFrame().split(defines.SEPARATOR_CHAR)
+            read_tuples.append(Read(read_data[0],
+                                    tool.readDataFrame().tolist(),
+                                    read_data[1],
+                                    bool_from_java(read_data[2]),
+                                    bool_from_java(read_data[3]),
+                                    bool_from_java(read_data[4]),
+                                    int(read_data[5]),
+                                    int(read_data[6])))
+
+        # A negative number of reads means that no reads were sent for this variant
+        if args.tensor_name in defines.TENSOR_MAPS_2D and num_reads >= 0:
             var = Variant(fifo_data[0], int(fifo_data[1]), fifo_data[2], fifo_data[3], fifo_data[6])
-            while fidx+7 < len(fifo_data):
-                read_tuples.append( Read(fifo_data[fidx],
-                                         list(map(int, fifo_data[fidx+1].split(','))),
-                                         fifo_data[fidx+2],
-                                         bool_from_java(fifo_data[fidx+3]),
-                                         bool_from_java(fifo_data[fidx+4]),
-                                         bool_from_java(fifo_data[fidx+5]),
-                                         int(fifo_data[fidx+6]),
-                                         int(fifo_data[fidx+7])))
-                fidx += READ_ELEMENTS
             _, ref_start, _ = get_variant_window(args, var)
             insert_dict = get_inserts(args, read_tuples, var)
             tensor = read_tuples_to_read_tensor(args, read_tuples, ref_start, insert_dict)
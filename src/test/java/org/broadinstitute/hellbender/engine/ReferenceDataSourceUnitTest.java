@@ -15,6 +15,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public final class ReferenceDataSourceUnitTest extends GATKBaseTest {
 
@@ -94,4 +97,27 @@ public final class ReferenceDataSourceUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @Test(dataProvider = "ReferenceIntervalDataProvider")
+    public void testSynchronizedDataSource( final SimpleInterval interval, final String expectedBases ) throws Exception {
+        try (ReferenceDataSource reference = ReferenceDataSource.synchronizedDataSource(new ReferenceFileSource(TEST_REFERENCE))) {
+            Assert.assertSame(ReferenceDataSource.synchronizedDataSource(reference), reference);
+            Assert.assertEquals(reference.getSequenceDictionary().size(), 4);
+
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<String>> results = new ArrayList<>();
+                for ( int i = 0; i < 40; ++i ) {
+                    results.add(executor.submit(() -> new String(reference.queryAndPrefetch(interval).getBases())));
+                }
+                for ( final Future<String> result : results ) {
+                    Assert.assertEquals(result.get(), expectedBases,
+                            "Wrong bases returned from queryAndPrefetch() for interval " + interval);
+                }
+            }
+            finally {
+                executor.shutdownNow();
+            }
+        }
+    }
 }
@@ -114,4 +114,19 @@ public final class CollectReadCountsIntegrationTest extends CommandLineProgramTe
         final SimpleCountCollection resultCounts = SimpleCountCollection.read(resultOutputFile);
         Assert.assertEquals(expectedCounts, resultCounts);
     }
-}
\ No newline at end of file
+
+    @Test(dataProvider = "testData")
+    public void testBinaryOutput(final File inputBAMFile, final File expectedOutputFile) {
+        final File resultOutputFile = createTempFile("collect-read-counts-test", ".counts");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addInput(inputBAMFile)
+                .addArgument(StandardArgumentDefinitions.INTERVALS_LONG_NAME, INTERVALS_FILE.getAbsolutePath())
+                .addArgument(IntervalArgumentCollection.INTERVAL_MERGING_RULE_LONG_NAME, IntervalMergingRule.OVERLAPPING_ONLY.toString())
+                .addArgument(CollectReadCounts.FORMAT_LONG_NAME, CollectReadCounts.Format.BINARY.toString())
+                .addOutput(resultOutputFile);
+        runCommandLine(argsBuilder);
+        final SimpleCountCollection expectedCounts = SimpleCountCollection.read(expectedOutputFile);
+        final SimpleCountCollection resultCounts = SimpleCountCollection.read(resultOutputFile);
+        Assert.assertEquals(expectedCounts, resultCounts);
+    }
+}
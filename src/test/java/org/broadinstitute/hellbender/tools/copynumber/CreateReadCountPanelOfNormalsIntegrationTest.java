@@ -183,9 +183,11 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
             //make input files from counts matrix
             final List<File> inputTSVFiles = new ArrayList<>(NUM_SAMPLES);
             final List<File> inputHDF5Files = new ArrayList<>(NUM_SAMPLES);
+            final List<File> inputBinaryFiles = new ArrayList<>(NUM_SAMPLES);
             for (int sampleIndex = 0; sampleIndex < NUM_SAMPLES; sampleIndex++) {
                 final File inputTSVFile = createTempFile("sample-" + sampleIndex, ".tsv");
                 final File inputHDF5File = createTempFile("sample-" + sampleIndex, ".hdf5");
+                final File inputBinaryFile = createTempFile("sample-" + sampleIndex, ".counts");
                 final double[] sampleCounts = counts.getRow(sampleIndex);
                 final SimpleCountCollection scc = new SimpleCountCollection(
                         new SimpleSampleLocatableMetadata(
@@ -198,6 +200,8 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
                 inputTSVFiles.add(inputTSVFile);
                 scc.writeHDF5(inputHDF5File);
                 inputHDF5Files.add(inputHDF5File);
+                scc.writeBinary(inputBinaryFile);
+                inputBinaryFiles.add(inputBinaryFile);
             }
 
             for (final File inputAnnotatedIntervalsFile : Arrays.asList(annotatedIntervalsFile, null)) {
@@ -220,6 +224,20 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
                                 inputHDF5Files.subList(NUM_SAMPLES / 2, NUM_SAMPLES)),
                         inputAnnotatedIntervalsFile,
                         trueNumberOfEigenvalues));
+
+                //counts for all samples as binary files
+                data.add(Arrays.asList(
+                        inputBinaryFiles,
+                        inputAnnotatedIntervalsFile,
+                        trueNumberOfEigenvalues));
+
+                //mix of binary and HDF5 files
+                data.add(Arrays.asList(
+                        ListUtils.union(
+                                inputBinaryFiles.subList(0, NUM_SAMPLES / 2),
+                                inputHDF5Files.subList(NUM_SAMPLES / 2, NUM_SAMPLES)),
+                        inputAnnotatedIntervalsFile,
+                        trueNumberOfEigenvalues));
             }
         }
         return data.stream().map(List::toArray).toArray(Object[][]::new);
@@ -245,6 +263,28 @@ public final class CreateReadCountPanelOfNormalsIntegrationTest extends CommandL
         testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile);
     }
 
+    @Test(dataProvider = "dataPanelOfNormals")
+    public void testOutOfCore(final List<File> inputFiles,
+                              final File annotatedIntervalsFile,
+                              final int expectedNumberOfEigenvalues) {
+        final File resultOutputFile = createTempFile("create-read-count-panel-of-normals-test", ".tsv");
+        final ArgumentsBuilder argsBuilder = new ArgumentsBuilder()
+                .addArgument(CreateReadCountPanelOfNormals.MINIMUM_INTERVAL_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(MINIMUM_INTERVAL_MEDIAN_PERCENTILE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_SAMPLE_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE_LONG_NAME, Double.toString(MAXIMUM_ZEROS_IN_INTERVAL_PERCENTAGE))
+                .addArgument(CreateReadCountPanelOfNormals.EXTREME_SAMPLE_MEDIAN_PERCENTILE_LONG_NAME, Double.toString(EXTREME_SAMPLE_MEDIAN_PERCENTILE))
+                .addArgument(CopyNumberStandardArgument.NUMBER_OF_EIGENSAMPLES_LONG_NAME, Integer.toString(NUMBER_OF_EIGENVALUES_REQUESTED))
+                .addBooleanArgument(CreateReadCountPanelOfNormals.OUT_OF_CORE_LONG_NAME, true)
+                .addArgument(CreateReadCountPanelOfNormals.MAXIMUM_CHUNK_SIZE, Integer.toString(10 * NUM_INTERVALS))   //use many small blocks
+                .addOutput(resultOutputFile);
+        if (annotatedIntervalsFile != null) {
+            argsBuilder.addFileArgument(CopyNumberStandardArgument.ANNOTATED_INTERVALS_FILE_LONG_NAME, annotatedIntervalsFile);
+        }
+        inputFiles.forEach(argsBuilder::addInput);
+        runCommandLine(argsBuilder);
+        testPanelOfNormals(annotatedIntervalsFile, expectedNumberOfEigenvalues, resultOutputFile);
+    }
+
     @Test(dataProvider = "dataPanelOfNormals")
     public void testSingleSample(final List<File> inputFiles,
                                  final File annotatedIntervalsFile,
@@ -0,0 +1,143 @@
+package org.broadinstitute.hellbender.tools.copynumber.denoising;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.stat.descriptive.rank.Percentile;
+import org.broadinstitute.hdf5.HDF5File;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.copynumber.utils.HDF5TiledDoubleMatrix;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Tests that the out-of-core preprocessing and standardization of a panel of normals gives results identical to
+ * those of the in-core version.
+ */
+public final class SVDDenoisingUtilsUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 5;
+    private static final int NUM_SAMPLES = 40;
+    private static final int NUM_INTERVALS = 60;
+    private static final int MEAN_READ_DEPTH = 100;
+
+    /**
+     * Simulates read counts with a few samples and intervals with many zeros, a few samples with extreme depths,
+     * and a few outliers.
+     */
+    private static RealMatrix simulateReadCounts(final Random random) {
+        final double[] sampleDepths = IntStream.range(0, NUM_SAMPLES)
+                .mapToDouble(sampleIndex -> sampleIndex < 2 ? 20. : sampleIndex < 4 ? 5000. : MEAN_READ_DEPTH * (0.5 + random.nextDouble()))
+                .toArray();
+        final double[] intervalBiases = IntStream.range(0, NUM_INTERVALS).mapToDouble(intervalIndex -> 0.2 + random.nextDouble()).toArray();
+        final RealMatrix readCounts = new Array2DRowRealMatrix(NUM_SAMPLES, NUM_INTERVALS);
+        for (int sampleIndex = 0; sampleIndex < NUM_SAMPLES; sampleIndex++) {
+            for (int intervalIndex = 0; intervalIndex < NUM_INTERVALS; intervalIndex++) {
+                final double zeroProbability = sampleIndex == 4 || intervalIndex == 5 ? 0.5 : 0.01;
+                final double count = random.nextDouble() < zeroProbability
+                        ? 0.
+                        : (int) (sampleDepths[sampleIndex] * intervalBiases[intervalIndex] * (1. + 0.2 * random.nextGaussian())
+                                * (random.nextDouble() < 0.005 ? 10. : 1.));
+                readCounts.setEntry(sampleIndex, intervalIndex, Math.max(count, 0.));
+            }
+        }
+        return readCounts;
+    }
+
+    @DataProvider(name = "dataPreprocessAndStandardizePanel")
+    public Object[][] dataPreprocessAndStandardizePanel() {
+        //GC content, minimum interval median percentile, maximum zeros in sample percentage, maximum zeros in interval percentage,
+        //extreme sample median percentile, do impute zeros, extreme outlier truncation percentile, maximum block size
+        final Random random = new Random(RANDOM_SEED);
+        final double[] intervalGCContent = IntStream.range(0, NUM_INTERVALS).mapToDouble(intervalIndex -> 0.3 + 0.4 * random.nextDouble()).toArray();
+        return new Object[][]{
+                {null, 10., 5., 5., 2.5, true, 0.1, NUM_INTERVALS},
+                {null, 10., 5., 5., 2.5, true, 0.1, 250},
+                {intervalGCContent, 10., 5., 5., 2.5, true, 0.1, 1000},
+                {intervalGCContent, 0., 100., 100., 0., true, 0., 250},
+                {null, 25., 10., 20., 10., false, 5., NUM_SAMPLES * NUM_INTERVALS},
+                {null, 25., 10., 20., 10., true, 50., 100}
+        };
+    }
+
+    @Test(dataProvider = "dataPreprocessAndStandardizePanel")
+    public void testOutOfCorePreprocessAndStandardizePanel(final double[] intervalGCContent,
+                                                           final double minimumIntervalMedianPercentile,
+                                                           final double maximumZerosInSamplePercentage,
+                                                           final double maximumZerosInIntervalPercentage,
+                                                           final double extremeSampleMedianPercentile,
+                                                           final boolean doImputeZeros,
+                                                           final double extremeOutlierTruncationPercentile,
+                                                           final int maximumBlockSize) {
+        final RealMatrix readCounts = simulateReadCounts(new Random(RANDOM_SEED));
+
+        final File scratchFile = IOUtils.createTempFile("svd-denoising-utils-scratch", ".hdf5");
+        try (final HDF5File scratch = new HDF5File(scratchFile, HDF5File.OpenMode.CREATE)) {
+            final HDF5TiledDoubleMatrix fractionalCoverage = new HDF5TiledDoubleMatrix(
+                    scratch, "/fractional_coverage", NUM_SAMPLES, NUM_INTERVALS, maximumBlockSize);
+            for (final double[] sampleReadCounts : readCounts.getData()) {
+                fractionalCoverage.writeRow(SVDDenoisingUtils.transformToFractionalCoverageAndCorrectGCBias(sampleReadCounts, intervalGCContent));
+            }
+            final SVDDenoisingUtils.OutOfCorePreprocessedStandardizedResult outOfCoreResult =
+                    SVDDenoisingUtils.preprocessAndStandardizePanel(fractionalCoverage,
+                            minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                            extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile,
+                            scratch, "/standardized_values", maximumBlockSize);
+
+            final SVDDenoisingUtils.PreprocessedStandardizedResult result =
+                    SVDDenoisingUtils.preprocessAndStandardizePanel(readCounts.copy(), intervalGCContent,
+                            minimumIntervalMedianPercentile, maximumZerosInSamplePercentage, maximumZerosInIntervalPercentage,
+                            extremeSampleMedianPercentile, doImputeZeros, extremeOutlierTruncationPercentile);
+
+            Assert.assertEquals(outOfCoreResult.filterSamples, result.filterSamples);
+            Assert.assertEquals(outOfCoreResult.filterIntervals, result.filterIntervals);
+            Assert.assertEquals(outOfCoreResult.panelIntervalFractionalMedians, result.panelIntervalFractionalMedians);
+            final double[][] expectedValues = result.preprocessedStandardizedValues.getData();
+            Assert.assertEquals(outOfCoreResult.preprocessedStandardizedValues.getNumRows(), expectedValues.length);
+            Assert.assertEquals(outOfCoreResult.preprocessedStandardizedValues.getNumColumns(), expectedValues[0].length);
+            final int[] numRowsRead = {0};
+            outOfCoreResult.preprocessedStandardizedValues.forEachRowBlock((firstRowIndex, rowBlock) -> {
+                Assert.assertEquals(firstRowIndex, numRowsRead[0]);
+                for (int i = 0; i < rowBlock.length; i++) {
+                    Assert.assertEquals(rowBlock[i], expectedValues[firstRowIndex + i]);
+                }
+                numRowsRead[0] += rowBlock.length;
+            });
+            Assert.assertEquals(numRowsRead[0], expectedValues.length);
+        } finally {
+            IOUtils.tryDelete(scratchFile);
+        }
+    }
+
+    @DataProvider(name = "dataCalculatePercentiles")
+    public Object[][] dataCalculatePercentiles() {
+        final Random random = new Random(RANDOM_SEED);
+        final double[] gaussianValues = IntStream.range(0, 1001).mapToDouble(i -> random.nextGaussian()).toArray();
+        final double[] valuesWithTiesAndNaNs = IntStream.range(0, 500)
+                .mapToDouble(i -> i % 17 == 0 ? Double.NaN : i % 5 == 0 ? 0. : i % 7 == 0 ? -0. : random.nextInt(10) - 5.)
+                .toArray();
+        final double[] valuesWithInfinities = {Double.POSITIVE_INFINITY, 1E300, -1E-300, 3., Double.NEGATIVE_INFINITY, 1E-310};
+        return new Object[][]{
+                {gaussianValues},
+                {valuesWithTiesAndNaNs},
+                {valuesWithInfinities},
+                {new double[]{2.}},
+                {new double[]{Double.NaN}}
+        };
+    }
+
+    @Test(dataProvider = "dataCalculatePercentiles")
+    public void testCalculatePercentiles(final double[] values) {
+        final double[] percentiles = {0.1, 2.5, 33.3, 50., 97.5, 99.9, 100.};
+        final double[] result = SVDDenoisingUtils.calculatePercentiles(percentiles,
+                valueConsumer -> Arrays.stream(values).forEach(valueConsumer));
+        for (int i = 0; i < percentiles.length; i++) {
+            Assert.assertEquals(result[i], new Percentile(percentiles[i]).evaluate(values));
+        }
+    }
+}
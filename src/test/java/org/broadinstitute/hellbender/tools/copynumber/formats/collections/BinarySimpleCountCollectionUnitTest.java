@@ -0,0 +1,103 @@
+package org.broadinstitute.hellbender.tools.copynumber.formats.collections;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSampleLocatableMetadata;
+import org.broadinstitute.hellbender.tools.copynumber.formats.records.SimpleCount;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public final class BinarySimpleCountCollectionUnitTest extends GATKBaseTest {
+    private static final SAMSequenceDictionary SEQUENCE_DICTIONARY = new SAMSequenceDictionary(Arrays.asList(
+            new SAMSequenceRecord("1", 10000),
+            new SAMSequenceRecord("2", 20000)));
+    private static final List<SimpleInterval> INTERVALS = Arrays.asList(
+            new SimpleInterval("1", 1000, 2000),
+            new SimpleInterval("1", 5000, 6000),
+            new SimpleInterval("2", 1, 100));
+
+    @Test
+    public void basicTest() {
+        final File outputFile = createTempFile("BinaryReadCountCollection", ".counts");
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata("test-sample", SEQUENCE_DICTIONARY);
+        final double[] counts = {2, 10, 0};
+        BinarySimpleCountCollection.write(outputFile, metadata, INTERVALS, counts);
+
+        Assert.assertTrue(BinarySimpleCountCollection.isBinaryFile(outputFile));
+        final BinarySimpleCountCollection rcc = new BinarySimpleCountCollection(outputFile);
+        Assert.assertEquals(rcc.getSampleName(), "test-sample");
+        Assert.assertEquals(rcc.getMetadata(), metadata);
+        Assert.assertEquals(rcc.size(), INTERVALS.size());
+        Assert.assertEquals(rcc.getIntervals(), INTERVALS);
+        Assert.assertEquals(rcc.getCounts(), counts);
+    }
+
+    @Test
+    public void testSameIntervalHeader() {
+        final File firstFile = createTempFile("BinaryReadCountCollection", ".counts");
+        final File secondFile = createTempFile("BinaryReadCountCollection", ".counts");
+        final File differentIntervalsFile = createTempFile("BinaryReadCountCollection", ".counts");
+        BinarySimpleCountCollection.write(firstFile,
+                new SimpleSampleLocatableMetadata("sample-1", SEQUENCE_DICTIONARY), INTERVALS, new double[]{1, 2, 3});
+        BinarySimpleCountCollection.write(secondFile,
+                new SimpleSampleLocatableMetadata("another-sample", SEQUENCE_DICTIONARY), INTERVALS, new double[]{4, 5, 6});
+        BinarySimpleCountCollection.write(differentIntervalsFile,
+                new SimpleSampleLocatableMetadata("sample-1", SEQUENCE_DICTIONARY), INTERVALS.subList(0, 2), new double[]{1, 2});
+
+        final BinarySimpleCountCollection first = new BinarySimpleCountCollection(firstFile);
+        final BinarySimpleCountCollection second = new BinarySimpleCountCollection(secondFile);
+        Assert.assertTrue(second.hasSameIntervalHeader(first));
+        Assert.assertEquals(second.getCounts(), new double[]{4, 5, 6});
+        Assert.assertFalse(new BinarySimpleCountCollection(differentIntervalsFile).hasSameIntervalHeader(first));
+    }
+
+    @Test
+    public void testSimpleCountCollectionRoundTrip() {
+        final File outputFile = createTempFile("BinaryReadCountCollection", ".counts");
+        final SimpleCountCollection simpleCounts = new SimpleCountCollection(
+                new SimpleSampleLocatableMetadata("test-sample", SEQUENCE_DICTIONARY),
+                Arrays.asList(
+                        new SimpleCount(INTERVALS.get(0), 7),
+                        new SimpleCount(INTERVALS.get(1), 0),
+                        new SimpleCount(INTERVALS.get(2), 123456)));
+        simpleCounts.writeBinary(outputFile);
+        Assert.assertEquals(SimpleCountCollection.read(outputFile), simpleCounts);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonIntegerCounts() {
+        BinarySimpleCountCollection.write(createTempFile("BinaryReadCountCollection", ".counts"),
+                new SimpleSampleLocatableMetadata("test-sample", SEQUENCE_DICTIONARY), INTERVALS, new double[]{1, 2.5, 3});
+    }
+
+    @Test(expectedExceptions = UserException.MalformedFile.class)
+    public void testTruncatedFile() throws IOException {
+        final File outputFile = createTempFile("BinaryReadCountCollection", ".counts");
+        BinarySimpleCountCollection.write(outputFile,
+                new SimpleSampleLocatableMetadata("test-sample", SEQUENCE_DICTIONARY), INTERVALS, new double[]{1, 2, 3});
+        try (final FileOutputStream outputStream = new FileOutputStream(outputFile, true)) {
+            outputStream.write(0);
+        }
+        new BinarySimpleCountCollection(outputFile);
+    }
+
+    @Test
+    public void testNonBinaryFile() {
+        final File tsvFile = createTempFile("BinaryReadCountCollection", ".tsv");
+        new SimpleCountCollection(
+                new SimpleSampleLocatableMetadata("test-sample", SEQUENCE_DICTIONARY),
+                Arrays.asList(new SimpleCount(INTERVALS.get(0), 1))).write(tsvFile);
+        Assert.assertFalse(BinarySimpleCountCollection.isBinaryFile(tsvFile));
+        Assert.assertFalse(BinarySimpleCountCollection.isBinaryFile(createTempFile("empty", ".counts")));
+    }
+}
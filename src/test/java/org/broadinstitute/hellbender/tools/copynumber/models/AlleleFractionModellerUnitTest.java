@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSam
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.ModeledSegment;
 import org.broadinstitute.hellbender.utils.mcmc.Decile;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
+import org.broadinstitute.hellbender.utils.mcmc.PosteriorSummaryUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -61,6 +62,51 @@ public final class AlleleFractionModellerUnitTest extends GATKBaseTest {
         assertAlleleFractionPosteriorCenters(modeller, simulatedData);
     }
 
+    @Test
+    public void testMCMCWithMultipleChains() {
+        final double meanBias = 1.2;
+        final double biasVariance = 0.04;
+        final double outlierProbability = 0.02;
+        final AlleleFractionGlobalParameters globalParameters = new AlleleFractionGlobalParameters(meanBias, biasVariance, outlierProbability);
+        final double minorAlleleFractionPriorAlpha = 1.;
+        final AlleleFractionPrior prior = new AlleleFractionPrior(minorAlleleFractionPriorAlpha);
+        final int numSegments = 50;
+        final double averageHetsPerSegment = 50.;
+        final double averageDepth = 50.;
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final int numChains = 3;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                "test-sample",
+                new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
+                        .collect(Collectors.toList())));
+        final AlleleFractionSimulatedData simulatedData = new AlleleFractionSimulatedData(
+                metadata, globalParameters, numSegments, averageHetsPerSegment, averageDepth, rng);
+
+        final AlleleFractionModeller singleChainModeller = new AlleleFractionModeller(simulatedData.getData().getAllelicCounts(), simulatedData.getData().getSegments(), prior);
+        singleChainModeller.fitMCMC(numSamples, numBurnIn);
+        final AlleleFractionModeller modeller = new AlleleFractionModeller(simulatedData.getData().getAllelicCounts(), simulatedData.getData().getSegments(), prior);
+        modeller.fitMCMC(numSamples, numBurnIn, numChains);
+
+        //samples are pooled in chain order, with the first chain identical to that from a single-chain fit
+        final List<Double> singleChainSamples = singleChainModeller.getMeanBiasSamples();
+        final List<Double> samples = modeller.getMeanBiasSamples();
+        Assert.assertEquals(samples.size(), numChains * (numSamples - numBurnIn));
+        Assert.assertEquals(samples.subList(0, numSamples - numBurnIn), singleChainSamples);
+        Assert.assertEquals(samples.stream().mapToDouble(x -> x).average().getAsDouble(),
+                singleChainSamples.stream().mapToDouble(x -> x).average().getAsDouble(), ABSOLUTE_TOLERANCE);
+
+        //chains have converged
+        Assert.assertFalse(modeller.getGlobalParameterPotentialScaleReductionFactors().isEmpty());
+        modeller.getGlobalParameterPotentialScaleReductionFactors().values()
+                .forEach(r -> Assert.assertTrue(r < PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD));
+        Assert.assertEquals(modeller.getMinorFractionsPotentialScaleReductionFactors().size(), numSegments);
+        Assert.assertTrue(singleChainModeller.getGlobalParameterPotentialScaleReductionFactors().isEmpty());
+    }
+
     static void assertAlleleFractionPosteriorCenters(final AlleleFractionModeller modeller,
                                                      final AlleleFractionSimulatedData simulatedData) {
         final AlleleFractionState trueState = simulatedData.getTrueState();
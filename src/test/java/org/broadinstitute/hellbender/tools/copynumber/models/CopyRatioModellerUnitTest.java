@@ -11,6 +11,7 @@ import org.broadinstitute.hellbender.tools.copynumber.formats.metadata.SimpleSam
 import org.broadinstitute.hellbender.tools.copynumber.formats.records.ModeledSegment;
 import org.broadinstitute.hellbender.utils.mcmc.Decile;
 import org.broadinstitute.hellbender.utils.mcmc.DecileCollection;
+import org.broadinstitute.hellbender.utils.mcmc.PosteriorSummaryUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -56,6 +57,46 @@ public final class CopyRatioModellerUnitTest extends GATKBaseTest {
         assertCopyRatioPosteriorCenters(modeller, simulatedData);
     }
 
+    @Test
+    public void testMCMCWithMultipleChains() {
+        final double variance = 0.01;
+        final double outlierProbability = 0.05;
+        final int numSegments = 100;
+        final double averageIntervalsPerSegment = 100.;
+        final int numSamples = 150;
+        final int numBurnIn = 50;
+        final int numChains = 3;
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+
+        final SampleLocatableMetadata metadata = new SimpleSampleLocatableMetadata(
+                "test-sample",
+                new SAMSequenceDictionary(IntStream.range(0, numSegments)
+                        .mapToObj(i -> new SAMSequenceRecord("chr" + i + 1, 10000))
+                        .collect(Collectors.toList())));
+        final CopyRatioSimulatedData simulatedData = new CopyRatioSimulatedData(
+                metadata, variance, outlierProbability, numSegments, averageIntervalsPerSegment, rng);
+
+        final CopyRatioModeller singleChainModeller = new CopyRatioModeller(simulatedData.getData().getCopyRatios(), simulatedData.getData().getSegments());
+        singleChainModeller.fitMCMC(numSamples, numBurnIn);
+        final CopyRatioModeller modeller = new CopyRatioModeller(simulatedData.getData().getCopyRatios(), simulatedData.getData().getSegments());
+        modeller.fitMCMC(numSamples, numBurnIn, numChains);
+
+        //samples are pooled in chain order, with the first chain identical to that from a single-chain fit
+        final List<Double> singleChainSamples = singleChainModeller.getVarianceSamples();
+        final List<Double> samples = modeller.getVarianceSamples();
+        Assert.assertEquals(samples.size(), numChains * (numSamples - numBurnIn));
+        Assert.assertEquals(samples.subList(0, numSamples - numBurnIn), singleChainSamples);
+        Assert.assertEquals(samples.stream().mapToDouble(x -> x).average().getAsDouble(),
+                singleChainSamples.stream().mapToDouble(x -> x).average().getAsDouble(), ABSOLUTE_TOLERANCE);
+
+        //chains have converged
+        Assert.assertFalse(modeller.getGlobalParameterPotentialScaleReductionFactors().isEmpty());
+        modeller.getGlobalParameterPotentialScaleReductionFactors().values()
+                .forEach(r -> Assert.assertTrue(r < PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD));
+        Assert.assertEquals(modeller.getSegmentMeansPotentialScaleReductionFactors().size(), numSegments);
+        Assert.assertTrue(singleChainModeller.getGlobalParameterPotentialScaleReductionFactors().isEmpty());
+    }
+
     static void assertCopyRatioPosteriorCenters(final CopyRatioModeller modeller,
                                                 final CopyRatioSimulatedData simulatedData) {
         final CopyRatioState trueState = simulatedData.getTrueState();
@@ -53,6 +53,100 @@ public final class HDF5UtilsUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "testChunkedDoubleMatrixWriterData")
+    public Object[][] dataChunkedDoubleMatrixWriter() {
+        //number of rows, number of columns, maximum chunk size
+        return new Object[][] {
+                new Object[] {1, 10, 10},
+                new Object[] {23, 10, 10},
+                new Object[] {23, 10, 95},
+                new Object[] {23, 10, 230},
+                new Object[] {23, 10, 1000}
+        };
+    }
+
+    @Test(dataProvider = "testChunkedDoubleMatrixWriterData")
+    public void testChunkedDoubleMatrixWriter(final int numRows,
+                                              final int numColumns,
+                                              final int maxChunkSize) {
+        final String matrixPath = "/test/matrix";
+        final String expectedMatrixPath = "/test/expected_matrix";
+        final RealMatrix matrix = createMatrixOfGaussianValues(numRows, numColumns, 0., 1.);
+        final File tempOutputHD5 = IOUtils.createTempFile("chunked-matrix-", ".hd5");
+        try (final HDF5File hdf5File = new HDF5File(tempOutputHD5, HDF5File.OpenMode.CREATE)) {
+            try (final HDF5Utils.ChunkedDoubleMatrixWriter writer =
+                         new HDF5Utils.ChunkedDoubleMatrixWriter(hdf5File, matrixPath, numColumns, maxChunkSize)) {
+                for (final double[] row : matrix.getData()) {
+                    writer.writeRow(row);
+                }
+                Assert.assertEquals(writer.getNumRowsWritten(), numRows);
+            }
+            HDF5Utils.writeChunkedDoubleMatrix(hdf5File, expectedMatrixPath, matrix.getData(), maxChunkSize);
+        }
+
+        try (final HDF5File hdf5FileForReading = new HDF5File(tempOutputHD5, HDF5File.OpenMode.READ_ONLY)) {
+            //the writer uses the same layout as writeChunkedDoubleMatrix
+            for (final String subPath : new String[] {HDF5Utils.NUMBER_OF_ROWS_SUB_PATH, HDF5Utils.NUMBER_OF_COLUMNS_SUB_PATH, HDF5Utils.NUMBER_OF_CHUNKS_SUB_PATH}) {
+                Assert.assertEquals(hdf5FileForReading.readDouble(matrixPath + subPath), hdf5FileForReading.readDouble(expectedMatrixPath + subPath));
+            }
+            assertEqualsMatrix(new Array2DRowRealMatrix(HDF5Utils.readChunkedDoubleMatrix(hdf5FileForReading, matrixPath), false), matrix, 0.);
+            Assert.assertEquals(HDF5Utils.readNumberOfRows(hdf5FileForReading, matrixPath), numRows);
+
+            final double[][] result = new double[numRows][];
+            HDF5Utils.readChunkedDoubleMatrix(hdf5FileForReading, matrixPath,
+                    (firstRowIndex, matrixChunk) -> System.arraycopy(matrixChunk, 0, result, firstRowIndex, matrixChunk.length));
+            assertEqualsMatrix(new Array2DRowRealMatrix(result, false), matrix, 0.);
+        }
+    }
+
+    @DataProvider(name = "testTiledDoubleMatrixData")
+    public Object[][] dataTiledDoubleMatrix() {
+        //number of rows, number of columns, maximum block size
+        return new Object[][] {
+                new Object[] {1, 1, 1},
+                new Object[] {17, 13, 1},
+                new Object[] {17, 13, 30},
+                new Object[] {17, 13, 100},
+                new Object[] {13, 17, 100},
+                new Object[] {17, 13, 1000}
+        };
+    }
+
+    @Test(dataProvider = "testTiledDoubleMatrixData")
+    public void testTiledDoubleMatrix(final int numRows,
+                                      final int numColumns,
+                                      final int maxBlockSize) {
+        final RealMatrix matrix = createMatrixOfGaussianValues(numRows, numColumns, 0., 1.);
+        final File tempOutputHD5 = IOUtils.createTempFile("tiled-matrix-", ".hd5");
+        try (final HDF5File hdf5File = new HDF5File(tempOutputHD5, HDF5File.OpenMode.CREATE)) {
+            final HDF5TiledDoubleMatrix tiledMatrix = new HDF5TiledDoubleMatrix(hdf5File, "/test/matrix", numRows, numColumns, maxBlockSize);
+            for (final double[] row : matrix.getData()) {
+                Assert.assertFalse(tiledMatrix.isComplete());
+                tiledMatrix.writeRow(row);
+            }
+            Assert.assertTrue(tiledMatrix.isComplete());
+            if (maxBlockSize >= Math.max(numRows, numColumns)) {
+                Assert.assertTrue(tiledMatrix.getNumRowsPerBlock() * numColumns <= maxBlockSize);
+                Assert.assertTrue(tiledMatrix.getNumColumnsPerBlock() * numRows <= maxBlockSize);
+            }
+
+            for (int rowBlockIndex = 0; rowBlockIndex < tiledMatrix.getNumRowBlocks(); rowBlockIndex++) {
+                final double[][] rowBlock = tiledMatrix.readRowBlock(rowBlockIndex);
+                final int firstRow = tiledMatrix.getRowBlockStart(rowBlockIndex);
+                for (int i = 0; i < rowBlock.length; i++) {
+                    Assert.assertEquals(rowBlock[i], matrix.getRow(firstRow + i));
+                }
+            }
+            for (int columnBlockIndex = 0; columnBlockIndex < tiledMatrix.getNumColumnBlocks(); columnBlockIndex++) {
+                final double[][] transposedColumnBlock = tiledMatrix.readTransposedColumnBlock(columnBlockIndex);
+                final int firstColumn = tiledMatrix.getColumnBlockStart(columnBlockIndex);
+                for (int j = 0; j < transposedColumnBlock.length; j++) {
+                    Assert.assertEquals(transposedColumnBlock[j], matrix.getColumn(firstColumn + j));
+                }
+            }
+        }
+    }
+
     private static RealMatrix createMatrixOfGaussianValues(final int numRows,
                                                            final int numColumns,
                                                            final double mean,
@@ -8,7 +8,9 @@ import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
@@ -143,6 +145,54 @@ public final class KernelSegmenterUnitTest extends GATKBaseTest {
         Assert.assertEquals(changepoints.subList(0, changepointsExpected.size()), changepointsExpected);
     }
 
+    @DataProvider(name = "dataNumThreads")
+    public Object[][] dataNumThreads() {
+        return new Object[][]{{1}, {2}, {8}};
+    }
+
+    @Test(dataProvider = "dataNumThreads")
+    public void testFindChangepointsInParallel(final int numThreads) {
+        final int maxNumChangepoints = 25;
+        final int kernelApproximationDimension = 20;
+        final List<Integer> windowSizes = Arrays.asList(8, 16, 32, 64);
+        final double numChangepointsPenaltyLinearFactor = 2.;
+        final double numChangepointsPenaltyLogLinearFactor = 2.;
+        final BiFunction<Double, Double, Double> kernel = (x, y) -> Math.exp(-(x - y) * (x - y));
+
+        //use the data from all test cases as separate data sets, keyed in reverse order to check that the input order is kept
+        final Object[][] testCases = dataKernelSegmenter();
+        final Map<String, List<Double>> dataSets = new LinkedHashMap<>();
+        for (int i = testCases.length - 1; i >= 0; i--) {
+            @SuppressWarnings("unchecked")
+            final List<Double> data = (List<Double>) testCases[i][0];
+            dataSets.put("dataSet" + i, data);
+        }
+
+        final Map<String, List<Integer>> changepointsPerDataSet = KernelSegmenter.findChangepointsInParallel(dataSets, numThreads,
+                segmenter -> segmenter.findChangepoints(maxNumChangepoints, kernel, kernelApproximationDimension, windowSizes,
+                        numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, ChangepointSortOrder.INDEX));
+
+        Assert.assertEquals(changepointsPerDataSet.keySet().stream().collect(Collectors.toList()),
+                dataSets.keySet().stream().collect(Collectors.toList()));
+        for (final Map.Entry<String, List<Double>> dataSet : dataSets.entrySet()) {
+            final List<Integer> changepointsExpected = new KernelSegmenter<>(dataSet.getValue())
+                    .findChangepoints(maxNumChangepoints, kernel, kernelApproximationDimension, windowSizes,
+                            numChangepointsPenaltyLinearFactor, numChangepointsPenaltyLogLinearFactor, ChangepointSortOrder.INDEX);
+            Assert.assertEquals(changepointsPerDataSet.get(dataSet.getKey()), changepointsExpected);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFindChangepointsInParallelFailure() {
+        //failures in any of the data sets are propagated to the caller
+        final Map<String, List<Double>> dataSets = new LinkedHashMap<>();
+        dataSets.put("dataSet0", Arrays.asList(1., 2., 3.));
+        dataSets.put("dataSet1", Arrays.asList(4., 5., 6.));
+        KernelSegmenter.findChangepointsInParallel(dataSets, 2,
+                segmenter -> segmenter.findChangepoints(25, (x, y) -> x * y, 20, Collections.emptyList(),
+                        0., 0., ChangepointSortOrder.INDEX));
+    }
+
     @Test(expectedExceptions = IllegalArgumentException.class)
     public void testKernelSegmenterEmptyWindowSizes() {
         final int maxNumChangepoints = 25;
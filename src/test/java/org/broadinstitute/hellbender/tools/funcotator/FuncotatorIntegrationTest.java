@@ -894,6 +894,43 @@ public class FuncotatorIntegrationTest extends CommandLineProgramTest {
         Assert.assertEquals(Sets.intersection(funcotationKeys, PIK3CA_VCF_HG19_INPUT_FIELDS).size(), 0);
     }
 
+    @Test
+    public void testMultithreadedGencodeAnnotationMatchesSingleThreaded() {
+        final FuncotatorArgumentDefinitions.OutputFormatType outputFormatType = FuncotatorArgumentDefinitions.OutputFormatType.VCF;
+
+        final List<List<VariantContext>> results = new ArrayList<>();
+        for ( final int annotationThreads : new int[] {1, 3} ) {
+            final File outputFile = getOutputFile(outputFormatType);
+
+            final ArgumentsBuilder arguments = createBaselineArgumentsForFuncotator(
+                    PIK3CA_VCF_HG19,
+                    outputFile,
+                    b37Chr3Ref,
+                    DS_PIK3CA_DIR,
+                    FuncotatorTestConstants.REFERENCE_VERSION_HG19,
+                    outputFormatType,
+                    false);
+
+            arguments.addArgument(FuncotatorArgumentDefinitions.TRANSCRIPT_SELECTION_MODE_LONG_NAME, TranscriptSelectionMode.ALL.toString());
+            arguments.addArgument(FuncotatorArgumentDefinitions.ANNOTATION_THREADS_LONG_NAME, String.valueOf(annotationThreads));
+
+            // We need this argument since we are testing on a subset of b37
+            arguments.addBooleanArgument(FuncotatorArgumentDefinitions.FORCE_B37_TO_HG19_REFERENCE_CONTIG_CONVERSION, true);
+
+            runCommandLine(arguments);
+
+            results.add(VariantContextTestUtils.readEntireVCFIntoMemory(outputFile.getAbsolutePath()).getRight());
+        }
+
+        final List<VariantContext> expected = results.get(0);
+        final List<VariantContext> actual = results.get(1);
+        Assert.assertTrue(expected.size() > 0);
+        Assert.assertEquals(actual.size(), expected.size());
+        for ( int i = 0; i < expected.size(); ++i ) {
+            Assert.assertEquals(actual.get(i).toStringDecodeGenotypes(), expected.get(i).toStringDecodeGenotypes());
+        }
+    }
+
     @DataProvider
     public Object[][] provideTNVcfs() {
         // These two VCFs are exactly the same, except how the sample names are handled.
@@ -0,0 +1,143 @@
+package org.broadinstitute.hellbender.tools.funcotator;
+
+import htsjdk.tribble.Feature;
+import htsjdk.tribble.SimpleFeature;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unit test class for the {@link WindowedFeatureCache} class.
+ */
+public class WindowedFeatureCacheUnitTest extends GATKBaseTest {
+
+    //==================================================================================================================
+    // Helper Methods:
+
+    /**
+     * @return Random features on contigs "1" and "2", sorted by contig and start, some of which are much longer than the windows.
+     */
+    private static List<Feature> createSortedFeatures(final Random random) {
+        final List<Feature> features = new ArrayList<>();
+        for ( final String contig : Arrays.asList("1", "2") ) {
+            final List<Feature> contigFeatures = new ArrayList<>();
+            for ( int i = 0; i < 2000; ++i ) {
+                final int start = 1 + random.nextInt(100000);
+                final int length = random.nextInt(10) == 0 ? random.nextInt(5000) : random.nextInt(20);
+                contigFeatures.add(new SimpleFeature(contig, start, start + length));
+            }
+            contigFeatures.sort(Comparator.comparingInt(Feature::getStart));
+            features.addAll(contigFeatures);
+        }
+        return features;
+    }
+
+    private static List<Feature> bruteForceQuery(final List<Feature> features, final SimpleInterval interval) {
+        return features.stream()
+                .filter(f -> f.getContig().equals(interval.getContig()) && f.getStart() <= interval.getEnd() && f.getEnd() >= interval.getStart())
+                .collect(Collectors.toList());
+    }
+
+    //==================================================================================================================
+    // Data Providers:
+
+    @DataProvider
+    private Object[][] provideCacheSizes() {
+        return new Object[][] {
+                { 1, 1 },
+                { 100, 1 },
+                { 1000, 4 },
+                { 100000, 2 },
+        };
+    }
+
+    //==================================================================================================================
+    // Tests:
+
+    @Test(dataProvider = "provideCacheSizes")
+    public void testQueriesMatchBruteForce(final int windowSize, final int maxWindows) {
+        final Random random = new Random(1234L);
+        final List<Feature> features = createSortedFeatures(random);
+        final Function<SimpleInterval, List<? extends Feature>> loader = window -> bruteForceQuery(features, window);
+
+        final WindowedFeatureCache<Feature> cache = new WindowedFeatureCache<>("test", windowSize, maxWindows);
+
+        // Mostly increasing queries, with some that step backwards and some that span several windows:
+        for ( final String contig : Arrays.asList("1", "2") ) {
+            int position = 1;
+            while ( position < 101000 ) {
+                final int start = Math.max(1, random.nextInt(5) == 0 ? position - random.nextInt(500) : position);
+                final int end = start + (random.nextInt(10) == 0 ? random.nextInt(3000) : random.nextInt(3));
+                final SimpleInterval interval = new SimpleInterval(contig, start, end);
+
+                Assert.assertEquals(cache.getFeatures(interval, loader), bruteForceQuery(features, interval), "Mismatch at " + interval);
+                position += random.nextInt(200);
+            }
+        }
+
+        Assert.assertTrue(cache.getNumQueries() > 0);
+        Assert.assertTrue(cache.getNumWindowsLoaded() > 0);
+        if ( windowSize == 100000 ) {
+            // Each contig spans two windows, and each window is loaded exactly once:
+            Assert.assertEquals(cache.getNumWindowsLoaded(), 4);
+            Assert.assertEquals(cache.getNumCacheHits(), cache.getNumQueries() - 4);
+        }
+    }
+
+    @Test
+    public void testHitsAndEviction() {
+        final List<Feature> features = Arrays.asList(
+                new SimpleFeature("1", 5, 15),
+                new SimpleFeature("1", 12, 12),
+                new SimpleFeature("1", 25, 40)
+        );
+        final List<SimpleInterval> loadedWindows = new ArrayList<>();
+        final Function<SimpleInterval, List<? extends Feature>> loader = window -> {
+            loadedWindows.add(window);
+            return bruteForceQuery(features, window);
+        };
+
+        final WindowedFeatureCache<Feature> cache = new WindowedFeatureCache<>("test", 10, 2);
+
+        // Spans windows [1, 10] and [11, 20]:
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 8, 12), loader), features.subList(0, 2));
+        Assert.assertEquals(loadedWindows, Arrays.asList(new SimpleInterval("1", 1, 10), new SimpleInterval("1", 11, 20)));
+        Assert.assertEquals(cache.getNumCacheHits(), 0);
+
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 14, 14), loader), features.subList(0, 1));
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 3, 3), loader), Collections.emptyList());
+        Assert.assertEquals(cache.getNumCacheHits(), 2);
+        Assert.assertEquals(loadedWindows.size(), 2);
+
+        // Loads [21, 30] and evicts [11, 20], the least recently used window:
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 30, 30), loader), features.subList(2, 3));
+        Assert.assertEquals(cache.getNumWindowsEvicted(), 1);
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 5, 5), loader), features.subList(0, 1));
+        Assert.assertEquals(loadedWindows.size(), 3);
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("1", 12, 12), loader), features.subList(0, 2));
+        Assert.assertEquals(loadedWindows.size(), 4);
+        Assert.assertEquals(loadedWindows.get(3), new SimpleInterval("1", 11, 20));
+
+        // Other contigs have their own windows:
+        Assert.assertEquals(cache.getFeatures(new SimpleInterval("2", 12, 12), loader), Collections.emptyList());
+        Assert.assertEquals(loadedWindows.get(4), new SimpleInterval("2", 11, 20));
+        Assert.assertEquals(cache.getNumQueries(), 7);
+        Assert.assertEquals(cache.getNumCacheHits(), 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveWindowSize() {
+        new WindowedFeatureCache<>("test", 0, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNonPositiveMaxWindows() {
+        new WindowedFeatureCache<>("test", 10, 0);
+    }
+}
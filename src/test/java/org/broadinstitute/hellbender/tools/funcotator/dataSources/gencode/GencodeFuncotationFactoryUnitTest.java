@@ -1521,6 +1521,33 @@ public class GencodeFuncotationFactoryUnitTest extends GATKBaseTest {
     }
 
 
+    @Test
+    public void testIgrFuncotationsHaveNcbiBuildBeforeAnyGenicVariant() {
+        final SimpleInterval variantInterval = new SimpleInterval("1", 1000, 1000);
+        try ( final ReferenceDataSource referenceDataSource = ReferenceDataSource.of(IOUtils.getPath(hg19MiniReference));
+              final GencodeFuncotationFactory funcotationFactory = new GencodeFuncotationFactory(
+                      IOUtils.getPath(CNTN4_GENCODE_TRANSCRIPT_FASTA_FILE),
+                      "VERSION",
+                      GencodeFuncotationFactory.DEFAULT_NAME,
+                      FuncotatorArgumentDefinitions.TRANSCRIPT_SELECTION_MODE_DEFAULT_VALUE,
+                      new HashSet<>(),
+                      new LinkedHashMap<>(),
+                      GencodeFuncotationFactory.DEFAULT_TRANSCRIPT_CACHE_SIZE,
+                      "hg19") ) {
+            final ReferenceContext referenceContext = new ReferenceContext(referenceDataSource, variantInterval);
+            final Allele refAllele = Allele.create(referenceContext.getBases(), true);
+            final VariantContext vc = new VariantContextBuilder()
+                    .alleles(Arrays.asList(refAllele, Allele.create(refAllele.basesMatch("A") ? "C" : "A", false)))
+                    .chr(variantInterval.getContig()).start(variantInterval.getStart()).stop(variantInterval.getEnd())
+                    .make();
+
+            final List<Funcotation> funcotations = funcotationFactory.createFuncotationsOnVariant(vc, referenceContext, Collections.emptyList());
+            Assert.assertEquals(funcotations.size(), 1);
+            Assert.assertEquals(((GencodeFuncotation) funcotations.get(0)).getVariantClassification(), GencodeFuncotation.VariantClassification.IGR);
+            Assert.assertEquals(((GencodeFuncotation) funcotations.get(0)).getNcbiBuild(), "hg19");
+        }
+    }
+
     /**
      * This test (of {@link GencodeFuncotationFactory#createFuncotationsOnVariant}) makes sure that if multiple gene features are detected, there is still only one transcript returned
      *  when in the BEST_EFFECT or CANONICAL selection mode.  And tests that ALL has multiple transcripts returned.
@@ -0,0 +1,185 @@
+package org.broadinstitute.hellbender.tools.funcotator.dataSources.gencode;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.tribble.AbstractFeatureReader;
+import htsjdk.tribble.FeatureReader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.tools.funcotator.FuncotatorTestConstants;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.codecs.gencode.GencodeGtfCodec;
+import org.broadinstitute.hellbender.utils.codecs.gencode.GencodeGtfFeature;
+import org.broadinstitute.hellbender.utils.codecs.gencode.GencodeGtfGeneFeature;
+import org.broadinstitute.hellbender.utils.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit test class for the {@link GencodeGtfSnapshot} class.
+ */
+public class GencodeGtfSnapshotUnitTest extends GATKBaseTest {
+
+    private static final String CNTN4_GTF = FuncotatorTestConstants.FUNCOTATOR_TEST_DIR + "gencode.v19.CNTN4.annotation.gtf";
+    private static final String MUC16_GTF = FuncotatorTestConstants.FUNCOTATOR_TEST_DIR + "gencode.v19.MUC16.non-basic.gtf";
+
+    //==================================================================================================================
+    // Helper Methods:
+
+    private static List<GencodeGtfGeneFeature> readGenes(final Path gtfFile) throws IOException {
+        final List<GencodeGtfGeneFeature> genes = new ArrayList<>();
+        try ( final FeatureReader<GencodeGtfFeature> reader = AbstractFeatureReader.getFeatureReader(gtfFile.toUri().toString(), new GencodeGtfCodec(), false) ) {
+            for ( final GencodeGtfFeature feature : reader.iterator() ) {
+                genes.add((GencodeGtfGeneFeature) feature);
+            }
+        }
+        return genes;
+    }
+
+    private Path copyToTempDir(final String gtfFile) throws IOException {
+        final Path source = IOUtils.getPath(gtfFile);
+        final Path copy = createTempDir("gencodeSnapshot").toPath().resolve(source.getFileName().toString());
+        Files.copy(source, copy);
+        return copy;
+    }
+
+    //==================================================================================================================
+    // Data Providers:
+
+    @DataProvider
+    private Object[][] provideGtfFiles() {
+        return new Object[][] {
+                { CNTN4_GTF },
+                { MUC16_GTF },
+        };
+    }
+
+    //==================================================================================================================
+    // Tests:
+
+    @Test(dataProvider = "provideGtfFiles")
+    public void testGeneRoundTrip(final String gtfFile) throws IOException {
+        for ( final GencodeGtfGeneFeature gene : readGenes(IOUtils.getPath(gtfFile)) ) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            GencodeGtfSnapshot.writeGene(new DataOutputStream(bytes), gene);
+
+            final GencodeGtfGeneFeature decoded = GencodeGtfSnapshot.readGene(
+                    new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), gene.getUcscGenomeVersion());
+            Assert.assertEquals(decoded, gene);
+            Assert.assertEquals(decoded.getTranscripts(), gene.getTranscripts());
+            Assert.assertEquals(decoded.getUcscGenomeVersion(), gene.getUcscGenomeVersion());
+        }
+    }
+
+    @Test(dataProvider = "provideGtfFiles")
+    public void testOverlappingGenesMatchGtf(final String gtfFile) throws IOException {
+        final Path gtf = copyToTempDir(gtfFile);
+        final Path snapshotFile = GencodeGtfSnapshot.getSnapshotPath(gtf);
+        GencodeGtfSnapshot.create(gtf, IOUtils.getPath(hg19MiniReference), snapshotFile);
+
+        final List<GencodeGtfGeneFeature> genes = readGenes(gtf);
+        final String contig = genes.get(0).getContig();
+        final int minStart = genes.stream().mapToInt(GencodeGtfGeneFeature::getStart).min().getAsInt();
+        final int maxEnd = genes.stream().mapToInt(GencodeGtfGeneFeature::getEnd).max().getAsInt();
+        final int step = Math.max(1, (maxEnd - minStart) / 500);
+
+        try ( final GencodeGtfSnapshot snapshot = GencodeGtfSnapshot.open(snapshotFile) ) {
+            Assert.assertEquals(snapshot.getContigs(), new HashSet<>(Arrays.asList(contig)));
+            Assert.assertEquals(snapshot.getUcscGenomeVersion(), genes.get(0).getUcscGenomeVersion());
+            Assert.assertTrue(snapshot.getOverlappingGenes(new SimpleInterval("chrNotThere", 1, 100)).isEmpty());
+
+            // Query points and short intervals across (and just outside) the span of the genes, and compare
+            // against a brute-force overlap:
+            for ( int start = minStart - 1000; start <= maxEnd + 1000; start += step ) {
+                for ( final int length : new int[] { 1, 1000 } ) {
+                    final SimpleInterval interval = new SimpleInterval(contig, Math.max(1, start), Math.max(1, start) + length - 1);
+                    final List<GencodeGtfGeneFeature> expected = genes.stream().filter(g -> g.overlaps(interval)).collect(Collectors.toList());
+                    final List<GencodeGtfGeneFeature> actual = snapshot.getOverlappingGenes(interval);
+                    Assert.assertEquals(new HashSet<>(actual), new HashSet<>(expected), "Mismatch at " + interval);
+                    Assert.assertEquals(actual.size(), expected.size(), "Mismatch at " + interval);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTranscriptSequencesMatchFasta() throws IOException {
+        final Path gtf = copyToTempDir(CNTN4_GTF);
+        final Path snapshotFile = GencodeGtfSnapshot.getSnapshotPath(gtf);
+        GencodeGtfSnapshot.create(gtf, IOUtils.getPath(hg19MiniReference), snapshotFile);
+
+        try ( final ReferenceDataSource fasta = ReferenceDataSource.of(IOUtils.getPath(hg19MiniReference));
+              final ReferenceDataSource snapshotSequences = GencodeGtfSnapshot.open(snapshotFile).getTranscriptSequenceDataSource() ) {
+
+            Assert.assertEquals(snapshotSequences.getSequenceDictionary().getSequences().stream().map(SAMSequenceRecord::getSequenceName).collect(Collectors.toList()),
+                    fasta.getSequenceDictionary().getSequences().stream().map(SAMSequenceRecord::getSequenceName).collect(Collectors.toList()));
+
+            for ( final SAMSequenceRecord sequence : fasta.getSequenceDictionary().getSequences() ) {
+                final int length = sequence.getSequenceLength();
+                for ( final int[] range : new int[][] { {1, length}, {1, 1}, {length, length}, {length / 3, length / 2} } ) {
+                    Assert.assertEquals(
+                            snapshotSequences.queryAndPrefetch(sequence.getSequenceName(), range[0], range[1]).getBases(),
+                            fasta.queryAndPrefetch(sequence.getSequenceName(), range[0], range[1]).getBases());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testOpenIfUpToDate() throws IOException {
+        final Path gtf = copyToTempDir(CNTN4_GTF);
+        final Path fasta = IOUtils.getPath(hg19MiniReference);
+        final Path snapshotFile = GencodeGtfSnapshot.getSnapshotPath(gtf);
+
+        Assert.assertNull(GencodeGtfSnapshot.open(snapshotFile, gtf, fasta));
+
+        GencodeGtfSnapshot.create(gtf, fasta, snapshotFile);
+        try ( final GencodeGtfSnapshot snapshot = GencodeGtfSnapshot.open(snapshotFile, gtf, fasta) ) {
+            Assert.assertNotNull(snapshot);
+        }
+        Assert.assertNull(GencodeGtfSnapshot.open(snapshotFile, gtf, IOUtils.getPath(hg19MiniReference + ".fai")));
+
+        // An edit that keeps the size of the GTF file the same (we set the modification time explicitly, in case the
+        // file system's timestamps are too coarse to tell the edit apart):
+        final FileTime lastModifiedTime = Files.getLastModifiedTime(gtf);
+        final byte[] gtfBytes = Files.readAllBytes(gtf);
+        final byte[] editedGtfBytes = gtfBytes.clone();
+        editedGtfBytes[0] = (byte) (editedGtfBytes[0] == '#' ? ' ' : '#');
+        Files.write(gtf, editedGtfBytes);
+        Files.setLastModifiedTime(gtf, FileTime.fromMillis(lastModifiedTime.toMillis() + 2000));
+        Assert.assertNull(GencodeGtfSnapshot.open(snapshotFile, gtf, fasta));
+
+        Files.write(gtf, gtfBytes);
+        Files.setLastModifiedTime(gtf, lastModifiedTime);
+        try ( final GencodeGtfSnapshot snapshot = GencodeGtfSnapshot.open(snapshotFile, gtf, fasta) ) {
+            Assert.assertNotNull(snapshot);
+        }
+        Files.write(gtf, "\n".getBytes(), StandardOpenOption.APPEND);
+        Assert.assertNull(GencodeGtfSnapshot.open(snapshotFile, gtf, fasta));
+
+        // Unreadable snapshots are not used either:
+        Files.write(snapshotFile, "not a snapshot".getBytes());
+        Assert.assertNull(GencodeGtfSnapshot.open(snapshotFile, gtf, fasta));
+    }
+
+    @Test
+    public void testGetSnapshotPath() {
+        Assert.assertEquals(GencodeGtfSnapshot.getSnapshotPath(IOUtils.getPath("/some/dir/gencode.gtf")),
+                IOUtils.getPath("/some/dir/gencode.gtf" + GencodeGtfSnapshot.SNAPSHOT_EXTENSION));
+    }
+}
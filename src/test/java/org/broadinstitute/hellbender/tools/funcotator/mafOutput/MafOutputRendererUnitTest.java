@@ -19,10 +19,11 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Unit test class for the {@link MafOutputRenderer}.
@@ -128,6 +129,47 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
         return createMafOutputRenderer(getSafeNonExistentFile("TestMafOutputFile"));
     }
 
+    private static MafOutputRenderer createMafOutputRendererWithoutDataSources(final Path outputFile) {
+        final LinkedHashMap<String, String> overrides = new LinkedHashMap<>();
+        overrides.put("center", "OVERRIDE_CENTER");
+        return new MafOutputRenderer(outputFile, Collections.emptyList(), new VCFHeader(), new LinkedHashMap<>(), overrides, new HashSet<>());
+    }
+
+    private static TableFuncotation createAliasedFuncotation(final String alt, final String chromosome, final int start, final int end,
+                                                             final String variantType, final String ref, final String other) {
+        final Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("Gencode_19_hugoSymbol", "GENE" + start);
+        fields.put("Gencode_19_chromosome", chromosome);
+        fields.put("Gencode_19_start", String.valueOf(start));
+        fields.put("Gencode_19_end", String.valueOf(end));
+        fields.put("Gencode_19_variantClassification", GencodeFuncotation.VariantClassification.MISSENSE.toString());
+        fields.put("Gencode_19_variantType", variantType);
+        // "ref" is an alias of both Reference_Allele and Tumor_Seq_Allele1, but only the first may use it:
+        fields.put("ref", ref);
+        fields.put(MafOutputRendererConstants.FieldName_Tumor_Seq_Allele2, alt);
+        fields.put("Gencode_19_otherTranscripts", "TX1_" + GencodeFuncotation.VariantClassification.NONSENSE + VcfOutputRenderer.OTHER_TRANSCRIPT_DELIMITER + "TX2_INTRON");
+        fields.put(MafOutputRendererConstants.FieldName_dbSNP_RS, other);
+        return TableFuncotation.create(fields, Allele.create(alt), "TestDataSource", null);
+    }
+
+    /**
+     * @return The data rows (i.e. non-comment rows after the column header) of the given MAF file.
+     */
+    private static List<String> readMafDataRows(final List<String> lines) {
+        final List<String> rows = new ArrayList<>();
+        boolean seenColumnHeader = false;
+        for ( final String line : lines ) {
+            if ( line.startsWith(MafOutputRendererConstants.COMMENT_STRING) ) {
+                continue;
+            }
+            if ( seenColumnHeader ) {
+                rows.add(line);
+            }
+            seenColumnHeader = true;
+        }
+        return rows;
+    }
+
     //==================================================================================================================
     // Data Providers:
 
@@ -716,4 +758,84 @@ public class MafOutputRendererUnitTest extends GATKBaseTest {
             throw new GATKException("ERROR comparing text files: " + outFile.toURI().toString() + " and " + expectedFile.toURI().toString(), ex);
         }
     }
+
+    @Test
+    public void testCompiledRowsMatchGeneralRendering() throws IOException {
+        final VariantContext snp = new VariantContextBuilder().chr("chr3").start(100).stop(100).alleles("A", "T").make();
+        final VariantContext insertion = new VariantContextBuilder().chr("chr3").start(200).stop(200).alleles("C", "CGT").make();
+        final VariantContext deletion = new VariantContextBuilder().chr("chrM").start(300).stop(302).alleles("TCC", "T").make();
+        final VariantContext multiallelic = new VariantContextBuilder().chr("chr4").start(400).stop(400).alleles("G", "C", "T").make();
+
+        final List<VariantContext> variants = Arrays.asList(snp, insertion, deletion, multiallelic, snp);
+        final List<List<Funcotation>> funcotations = Arrays.asList(
+                Collections.singletonList(createAliasedFuncotation("T", "chr3", 100, 100, "SNP", "A", "")),
+                Collections.singletonList(createAliasedFuncotation("CGT", "chr3", 200, 200, MafOutputRendererConstants.FieldValue_Variant_Type_Insertion, "C", "rs1")),
+                Collections.singletonList(createAliasedFuncotation("T", MafOutputRendererConstants.FieldValue_Gencode_Chromosome_Mito, 300, 302, MafOutputRendererConstants.FieldValue_Variant_Type_Deletion, "TCC", "rs2")),
+                Arrays.asList(
+                        createAliasedFuncotation("C", "chr4", 400, 400, "SNP", "G", "rs3"),
+                        createAliasedFuncotation("T", "chr4", 400, 400, "SNP", "G", "rs4"),
+                        TableFuncotation.create(Collections.singletonList(MafOutputRendererConstants.FieldName_dbSNP_RS), Collections.singletonList("rs5"), Allele.create("T"), "Other", null)
+                ),
+                // A field that is not a column of the header, which must still be rendered as before (i.e. appended):
+                Collections.singletonList(
+                        TableFuncotation.create(Collections.singletonList("UNEXPECTED_FIELD"), Collections.singletonList("X"), Allele.create("T"), "Other", null)
+                )
+        );
+
+        final Path outputFile = getSafeNonExistentPath("compiledRows.maf");
+        final List<String> expectedRows = new ArrayList<>();
+        try ( final MafOutputRenderer renderer = createMafOutputRendererWithoutDataSources(outputFile) ) {
+            for ( int i = 0; i < variants.size(); ++i ) {
+                final FuncotationMap funcotationMap = FuncotationMap.createNoTranscriptInfo(funcotations.get(i));
+                renderer.write(variants.get(i), funcotationMap);
+
+                // The funcotation map now also holds the custom MAF funcotations, so we can render the expected rows:
+                for ( final Allele altAllele : variants.get(i).getAlternateAlleles() ) {
+                    for ( final String txId : funcotationMap.getTranscriptList() ) {
+                        expectedRows.add(String.join(MafOutputRendererConstants.FIELD_DELIMITER,
+                                renderer.createMafCompliantOutputMap(altAllele, funcotationMap.get(txId)).values()) + MafOutputRendererConstants.FIELD_DELIMITER);
+                    }
+                }
+            }
+
+            // All rows but the first (which defines the columns) and the last (which has an unexpected field) use the compiled layout:
+            Assert.assertEquals(renderer.numRowsRenderedWithCompiledLayout, 4);
+        }
+
+        final List<String> rows = readMafDataRows(Files.readAllLines(outputFile));
+        Assert.assertEquals(rows, expectedRows);
+
+        // Spot check a few of the values:
+        Assert.assertTrue(rows.get(0).contains(MafOutputRendererConstants.FIELD_DELIMITER + "OVERRIDE_CENTER" + MafOutputRendererConstants.FIELD_DELIMITER));
+        Assert.assertTrue(rows.get(1).contains(MafOutputRendererConstants.FIELD_DELIMITER + "GT" + MafOutputRendererConstants.FIELD_DELIMITER));
+        Assert.assertTrue(rows.get(2).contains(MafOutputRendererConstants.FIELD_DELIMITER + MafOutputRendererConstants.FieldValue_Chromosome_Mito + MafOutputRendererConstants.FIELD_DELIMITER));
+        Assert.assertTrue(rows.get(4).contains("rs5"));
+        Assert.assertTrue(rows.get(5).endsWith(MafOutputRendererConstants.FIELD_DELIMITER + "X" + MafOutputRendererConstants.FIELD_DELIMITER));
+    }
+
+    @Test
+    public void testGzippedOutput() throws IOException {
+        final Path plainFile = getSafeNonExistentPath("plain.maf");
+        final Path gzippedFile = getSafeNonExistentPath("gzipped.maf.gz");
+
+        // Enough rows for several output blocks:
+        final int numVariants = 2 * MafOutputRenderer.OUTPUT_BLOCK_SIZE / 500;
+        try ( final MafOutputRenderer plainRenderer = createMafOutputRendererWithoutDataSources(plainFile);
+              final MafOutputRenderer gzippedRenderer = createMafOutputRendererWithoutDataSources(gzippedFile) ) {
+            for ( int i = 1; i <= numVariants; ++i ) {
+                final VariantContext variant = new VariantContextBuilder().chr("chr1").start(i).stop(i).alleles("A", "T").make();
+                final List<Funcotation> funcotations = Collections.singletonList(createAliasedFuncotation("T", "chr1", i, i, "SNP", "A", "rs" + i));
+                plainRenderer.write(variant, FuncotationMap.createNoTranscriptInfo(funcotations));
+                gzippedRenderer.write(variant, FuncotationMap.createNoTranscriptInfo(funcotations));
+            }
+        }
+
+        final List<String> gzippedLines = new ArrayList<>();
+        try ( final BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(gzippedFile)))) ) {
+            reader.lines().forEach(gzippedLines::add);
+        }
+        final List<String> plainRows = readMafDataRows(Files.readAllLines(plainFile));
+        Assert.assertEquals(plainRows.size(), numVariants);
+        Assert.assertEquals(readMafDataRows(gzippedLines), plainRows);
+    }
 }
@@ -59,4 +59,51 @@ public final class BwaSparkIntegrationTest extends CommandLineProgramTest {
 
         SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
     }
+
+    @Test
+    public void testPairedEndMultithreaded() throws Exception {
+        final File expectedSam = getTestFile("bwa.sam");
+
+        final File ref = getTestFile("ref.fa");
+        final File input = getTestFile("R.bam");
+
+        final File output = createTempFile("bwa", ".bam");
+        Assert.assertTrue(output.delete());
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(StandardArgumentDefinitions.REFERENCE_LONG_NAME, ref);
+        args.addFileArgument(StandardArgumentDefinitions.INPUT_LONG_NAME, input);
+        args.addBooleanArgument(GATKSparkTool.SHARDED_OUTPUT_LONG_NAME, true);
+        args.addArgument(GATKSparkTool.NUM_REDUCERS_LONG_NAME,"1");
+        args.addOutput(output);
+        args.addFileArgument(BwaArgumentCollection.BWA_MEM_INDEX_IMAGE_FULL_NAME, getTestFile("ref.fa.img"));
+        args.addArgument(BwaArgumentCollection.BWA_THREADS_FULL_NAME, "2");
+        args.addBooleanArgument(BwaArgumentCollection.WARM_UP_INDEX_IMAGE_FULL_NAME, true);
+        this.runCommandLine(args.getArgsArray());
+
+        SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
+    }
+
+    @Test
+    public void testSingleEndBatched() throws Exception {
+        final File expectedSam = getTestFile("seBwa.bam");
+
+        final File ref = getTestFile("ref.fa");
+        final File input = getTestFile("seR.bam");
+        final File output = createTempFile("bwa", ".bam");
+        Assert.assertTrue(output.delete());
+
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addFileArgument(StandardArgumentDefinitions.REFERENCE_LONG_NAME, ref);
+        args.addFileArgument(StandardArgumentDefinitions.INPUT_LONG_NAME, input);
+        args.addBooleanArgument(GATKSparkTool.SHARDED_OUTPUT_LONG_NAME, true);
+        args.addArgument(GATKSparkTool.NUM_REDUCERS_LONG_NAME,"1");
+        args.addOutput(output);
+        args.add("--" + BwaArgumentCollection.SINGLE_END_ALIGNMENT_FULL_NAME);
+        args.addArgument(BwaArgumentCollection.BWA_THREADS_FULL_NAME, "2");
+        args.addArgument(BwaArgumentCollection.READS_PER_BATCH_FULL_NAME, "3");
+        this.runCommandLine(args.getArgsArray());
+
+        SamAssertionUtils.assertSamsEqual(new File(output, "part-r-00000.bam"), expectedSam);
+    }
 }
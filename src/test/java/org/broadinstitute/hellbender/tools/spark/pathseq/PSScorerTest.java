@@ -418,6 +418,36 @@ public class PSScorerTest extends CommandLineProgramTest {
         checkComputedScores(resultMap, divideByGenomeLength, notNormalizedByKingdom);
     }
 
+    @Test
+    public void testAccumulateTaxScoresMerge() {
+        final PSTree tree = new PSTree(1);
+        tree.addNode(2, "n2", 1, 0, PSTaxonomyConstants.KINGDOM_RANK_NAME);
+        tree.addNode(3, "n3", 2, 100, "species");
+        tree.addNode(4, "n4", 1, 0, PSTaxonomyConstants.SUPERKINGDOM_RANK_NAME);
+        tree.addNode(5, "n5", 2, 100, "species");
+        tree.addNode(6, "n6", 4, 100, "species");
+        tree.addNode(7, "n7", 4, 100, "species");
+        final List<PSPathogenAlignmentHit> readTaxHits = new ArrayList<>();
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(4), 2)); //Invalid hit, ref length 0
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(3), 2));
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(3, 6, 3), 2));
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(5), 2));
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(6), 1));
+        readTaxHits.add(new PSPathogenAlignmentHit(Arrays.asList(8), 2)); //Invalid hit, not in tree
+
+        //Scores accumulated over "partitions" and merged should be the same as those accumulated in one pass
+        final PSScoreAccumulator.PartialScores partialA = PSScorer.accumulateTaxScores(readTaxHits.subList(0, 3).iterator(), tree, true);
+        final PSScoreAccumulator.PartialScores partialB = PSScorer.accumulateTaxScores(readTaxHits.subList(3, 6).iterator(), tree, true);
+        final PSScoreAccumulator.PartialScores empty = new PSScoreAccumulator.PartialScores();
+        Assert.assertEquals(partialA.size(), 5);
+        Assert.assertEquals(partialB.size(), 5);
+        final PSScoreAccumulator.PartialScores merged = empty.merge(partialB).merge(empty).merge(partialA);
+        Assert.assertEquals(merged.size(), 6);
+
+        final Map<Integer, PSPathogenTaxonScore> resultMap = PSScorer.computeNormalizedScores(merged.toTaxonScores(tree), tree, true);
+        checkComputedScores(resultMap, true, true);
+    }
+
     private static void checkComputedScores(final Map<Integer,PSPathogenTaxonScore> resultMap, final boolean divideByGenomeLength,
                                            final boolean notNormalizeByKingdom) {
         double score3 = 0.5 * 2.0 + 2.0;
@@ -0,0 +1,140 @@
+package org.broadinstitute.hellbender.tools.spark.sv.utils;
+
+import org.apache.spark.api.java.JavaSparkContext;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
+import org.broadinstitute.hellbender.utils.spark.SparkUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.*;
+
+public class SpillingKmerCounterUnitTest extends GATKBaseTest {
+    private static final int KSIZE = 51;
+
+    private static Map<SVKmer, Integer> randomKmerCounts( final int nDistinctKmers, final int maxCount ) {
+        final Random random = new Random(47L);
+        final Map<SVKmer, Integer> expected = new HashMap<>();
+        final byte[] bases = new byte[KSIZE];
+        final byte[] calls = {'A', 'C', 'G', 'T'};
+        while ( expected.size() < nDistinctKmers ) {
+            for ( int idx = 0; idx != KSIZE; ++idx ) bases[idx] = calls[random.nextInt(4)];
+            final SVKmer kmer = SVKmerizer.toKmer(bases, new SVKmerLong(KSIZE)).canonical(KSIZE);
+            expected.put(kmer, 1 + random.nextInt(maxCount));
+        }
+        return expected;
+    }
+
+    @DataProvider(name = "memoryLimits")
+    public Object[][] getMemoryLimits() {
+        // the last case spills more than MAX_RUNS_PER_MERGE runs, which forces merging in batches
+        return new Object[][] { {1000000, false}, {1000, true}, {257, true}, {7, true} };
+    }
+
+    @Test(dataProvider = "memoryLimits", groups = "sv")
+    public void testCounts( final int maxKmersInMemory, final boolean expectSpills ) {
+        final Map<SVKmer, Integer> expected = randomKmerCounts(1000, 5);
+
+        // add each kmer count times, in round-robin order so that a kmer's counts are spread across spills
+        final List<SVKmer> kmers = new ArrayList<>(expected.keySet());
+        final Map<SVKmer, Integer> remaining = new HashMap<>(expected);
+        try ( final SpillingKmerCounter counter = new SpillingKmerCounter(10, maxKmersInMemory, null) ) {
+            boolean added = true;
+            while ( added ) {
+                added = false;
+                for ( final SVKmer kmer : kmers ) {
+                    final int count = remaining.get(kmer);
+                    if ( count > 0 ) {
+                        counter.add((SVKmerLong)kmer);
+                        remaining.put(kmer, count - 1);
+                        added = true;
+                    }
+                }
+            }
+            Assert.assertEquals(counter.getNSpills() > 0, expectSpills);
+
+            final Map<SVKmer, Integer> actual = new HashMap<>();
+            SVKmerLong prevKmer = null;
+            for ( final KmerAndCount kmerAndCount : counter ) {
+                Assert.assertNull(actual.put(kmerAndCount.getKey(), kmerAndCount.grabCount()));
+                if ( expectSpills ) {
+                    if ( prevKmer != null ) Assert.assertTrue(prevKmer.compareTo(kmerAndCount) < 0);
+                    prevKmer = new SVKmerLong(kmerAndCount);
+                }
+            }
+            Assert.assertEquals(actual, expected);
+        }
+    }
+
+    @Test(groups = "sv")
+    public void testAddWithCountAndCleanup() {
+        final Map<SVKmer, Integer> expected = randomKmerCounts(500, 1000);
+        final File spillDir = createTempDir("kmerSpills");
+        try ( final SpillingKmerCounter counter = new SpillingKmerCounter(0, 100, spillDir) ) {
+            for ( final Map.Entry<SVKmer, Integer> entry : expected.entrySet() ) {
+                final int count = entry.getValue();
+                counter.add((SVKmerLong)entry.getKey(), count / 2 + 1);
+                if ( count > 1 ) counter.add((SVKmerLong)entry.getKey(), count - count / 2 - 1);
+            }
+            final SVKmer extraKmer = expected.keySet().iterator().next();
+            counter.add((SVKmerLong)extraKmer, 1);
+            expected.put(extraKmer, expected.get(extraKmer) + 1);
+            Assert.assertTrue(counter.getNSpills() > 0);
+            Assert.assertTrue(spillDir.listFiles().length > 0);
+
+            final Map<SVKmer, Integer> actual = new HashMap<>();
+            counter.forEach(kmerAndCount -> actual.put(kmerAndCount.getKey(), kmerAndCount.grabCount()));
+            Assert.assertEquals(actual, expected);
+            Assert.assertEquals(spillDir.listFiles().length, 0);
+        }
+    }
+
+    @Test(groups = "sv")
+    public void testCloseDeletesSpills() {
+        final File spillDir = createTempDir("kmerSpills");
+        final SpillingKmerCounter counter = new SpillingKmerCounter(0, 10, spillDir);
+        randomKmerCounts(100, 1).keySet().forEach(kmer -> counter.add((SVKmerLong)kmer));
+        final Iterator<KmerAndCount> itr = counter.iterator();
+        Assert.assertTrue(itr.hasNext());
+        itr.next();
+        Assert.assertTrue(spillDir.listFiles().length > 0);
+        counter.close();
+        Assert.assertEquals(spillDir.listFiles().length, 0);
+    }
+
+    private static int countSpillFiles( final File dir ) {
+        final File[] spillFiles = dir.listFiles((d, name) -> name.startsWith("kmerCounts") && name.endsWith(".run"));
+        return spillFiles == null ? 0 : spillFiles.length;
+    }
+
+    @Test(groups = "sv")
+    public void testSparkTaskCounterIsClosedWhenTaskCompletes() {
+        final JavaSparkContext ctx = SparkContextFactory.getTestSparkContext();
+        final File scratchDir = SparkUtils.getLocalScratchDirectory();
+        final int nSpillFilesBefore = countSpillFiles(scratchDir);
+        // the task spills, but never iterates the counts
+        final List<Integer> nSpillFilesInTask = ctx.parallelize(Collections.singletonList(0), 1)
+                .map(i -> {
+                    final SpillingKmerCounter counter = SpillingKmerCounter.forSparkTask(0, 10);
+                    randomKmerCounts(100, 1).keySet().forEach(kmer -> counter.add((SVKmerLong)kmer));
+                    return countSpillFiles(SparkUtils.getLocalScratchDirectory());
+                })
+                .collect();
+        Assert.assertTrue(nSpillFilesInTask.get(0) > nSpillFilesBefore);
+        Assert.assertEquals(countSpillFiles(scratchDir), nSpillFilesBefore);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, groups = "sv")
+    public void testIterateTwice() {
+        final SpillingKmerCounter counter = new SpillingKmerCounter(10);
+        counter.iterator();
+        counter.iterator();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, groups = "sv")
+    public void testNonPositiveCount() {
+        new SpillingKmerCounter(10).add(new SVKmerLong(KSIZE), 0);
+    }
+}
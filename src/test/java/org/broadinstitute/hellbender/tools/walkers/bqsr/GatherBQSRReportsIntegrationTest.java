@@ -6,6 +6,7 @@ import org.broadinstitute.hellbender.utils.test.ArgumentsBuilder;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.test.IntegrationTestSpec;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -14,8 +15,13 @@ public final class GatherBQSRReportsIntegrationTest extends CommandLineProgramTe
 
     private static final String testDir = GATKBaseTest.publicTestDir + "/org/broadinstitute/hellbender/utils/recalibration/";
 
-    @Test
-    public void testCombine5Reports() throws Exception {
+    @DataProvider(name = "readerThreads")
+    public Object[][] makeReaderThreads() {
+        return new Object[][] { {1}, {3} };
+    }
+
+    @Test(dataProvider = "readerThreads")
+    public void testCombine5Reports(final int readerThreads) throws Exception {
         final File recal1 = new File(testDir + "HiSeq.1mb.1RG.sg1.table");
         final File recal2 = new File(testDir + "HiSeq.1mb.1RG.sg2.table");
         final File recal3 = new File(testDir + "HiSeq.1mb.1RG.sg3.table");
@@ -36,6 +42,8 @@ public final class GatherBQSRReportsIntegrationTest extends CommandLineProgramTe
         args.add(recal4.getAbsolutePath());
         args.add("--input");
         args.add(recal5.getAbsolutePath());
+        args.add("--" + GatherBQSRReports.READER_THREADS_LONG_NAME);
+        args.add(readerThreads);
 
         final File outFile = GATKBaseTest.createTempFile("bqsr.", "table");
         args.add("-O");
@@ -16,6 +16,7 @@ import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.io.File;
@@ -24,13 +25,21 @@ import java.util.*;
 
 public class HaplotypeCallerEngineUnitTest extends GATKBaseTest {
 
-    @Test
-    public void testIsActive() throws IOException {
+    @DataProvider(name = "isActivePrescreenSettings")
+    public Object[][] makeIsActivePrescreenSettings() {
+        // prescreen max evidence, validate prescreen
+        return new Object[][]{{-1, false}, {0, false}, {0, true}};
+    }
+
+    @Test(dataProvider = "isActivePrescreenSettings")
+    public void testIsActive(final int prescreenMaxEvidence, final boolean validatePrescreen) throws IOException {
         final File testBam = new File(NA12878_20_21_WGS_bam);
         final Path reference = Paths.get(b37_reference_20_21);
         final SimpleInterval shardInterval = new SimpleInterval("20", 10000000, 10001000);
         final SimpleInterval paddedShardInterval = new SimpleInterval(shardInterval.getContig(), shardInterval.getStart() - 100, shardInterval.getEnd() + 100);
         final HaplotypeCallerArgumentCollection hcArgs = new HaplotypeCallerArgumentCollection();
+        hcArgs.activeRegionPrescreenMaxEvidence = prescreenMaxEvidence;
+        hcArgs.validateActiveRegionPrescreen = validatePrescreen;
 
         // We expect isActive() to return 1.0 for the sites below, and 0.0 for all other sites
         final List<SimpleInterval> expectedActiveSites = Arrays.asList(
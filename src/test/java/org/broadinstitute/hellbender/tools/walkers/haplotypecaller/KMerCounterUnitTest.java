@@ -86,4 +86,29 @@ public final class KMerCounterUnitTest extends GATKBaseTest {
         Assert.assertEquals(list.get(0).getKmer().bases(), kmer2.getBytes());
         Assert.assertEquals(list.get(1).getKmer().bases(), kmer1.getBytes());
     }
+
+    @Test
+    public void testAddAllKmers() {
+        for ( final int kmerLength : Arrays.asList(1, 3, PackedKmer.MAX_LENGTH, PackedKmer.MAX_LENGTH + 1) ) {
+            final byte[] sequence = ("ACGTTTACGNACGTTTACGTACGTTTACGTAACCGGTTACGTTTACGTACGTTTACGTAAa" +
+                    "ACGTTTACGTACGTTTACGTACGTTTACGTAACCGGTTACGTTTACGTACGTTTACGTAA").getBytes();
+            final KMerCounter counter = new KMerCounter(kmerLength);
+            final KMerCounter expected = new KMerCounter(kmerLength);
+            counter.addAllKmers(sequence);
+            counter.addAllKmers(Arrays.copyOf(sequence, kmerLength - 1));
+            for ( int offset = 0; offset <= sequence.length - kmerLength; offset++ ) {
+                expected.addKmer(new Kmer(sequence, offset, kmerLength), 1);
+            }
+            Assert.assertEquals(counter.getCountedKmers().size(), expected.getCountedKmers().size());
+            for ( final KMerCounter.CountedKmer countedKmer : expected.getCountedKmers() ) {
+                Assert.assertEquals(counter.getKmerCount(countedKmer.getKmer()), countedKmer.getCount(), countedKmer.toString());
+            }
+
+            // counts added after the counts have been queried must be merged with the previous ones
+            counter.addAllKmers(sequence);
+            for ( final KMerCounter.CountedKmer countedKmer : expected.getCountedKmers() ) {
+                Assert.assertEquals(counter.getKmerCount(countedKmer.getKmer()), 2 * countedKmer.getCount(), countedKmer.toString());
+            }
+        }
+    }
 }
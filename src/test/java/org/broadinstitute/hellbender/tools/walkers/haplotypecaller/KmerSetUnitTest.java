@@ -0,0 +1,81 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class KmerSetUnitTest extends GATKBaseTest {
+    private static final byte[] SEQUENCE = "ACGTTGCANNACGTAGGCTAACGTTGCAACGTTGCAACGTTGCAnACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCA".getBytes();
+
+    @DataProvider(name = "kmerLengths")
+    public Object[][] makeKmerLengths() {
+        return new Object[][]{{1}, {3}, {8}, {PackedKmer.MAX_LENGTH}, {PackedKmer.MAX_LENGTH + 1}, {50}};
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testKmerSet(final int kmerLength) {
+        final KmerSet set = new KmerSet(kmerLength);
+        final Set<Kmer> expected = new HashSet<>();
+        for ( int start = 0; start <= SEQUENCE.length - kmerLength; start++ ) {
+            final Kmer kmer = new Kmer(SEQUENCE, start, kmerLength);
+            Assert.assertEquals(set.contains(SEQUENCE, start), expected.contains(kmer));
+            Assert.assertEquals(set.add(SEQUENCE, start), expected.add(kmer));
+            Assert.assertTrue(set.contains(kmer));
+            Assert.assertEquals(set.size(), expected.size());
+        }
+        Assert.assertEquals(set.toKmers(), expected);
+        Assert.assertFalse(set.contains(new Kmer(Arrays.copyOf(SEQUENCE, kmerLength + 1))));
+
+        set.clear();
+        Assert.assertTrue(set.isEmpty());
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testAddAllWithRepeats(final int kmerLength) {
+        final KmerSet set = new KmerSet(kmerLength);
+        final KmerSet repeated = new KmerSet(kmerLength);
+        set.addAll(SEQUENCE, 2, SEQUENCE.length - 1, repeated);
+
+        final Set<Kmer> expected = new HashSet<>();
+        final Set<Kmer> expectedRepeated = new HashSet<>();
+        for ( int start = 2; start <= SEQUENCE.length - 1 - kmerLength; start++ ) {
+            final Kmer kmer = new Kmer(SEQUENCE, start, kmerLength);
+            if ( ! expected.add(kmer) ) {
+                expectedRepeated.add(kmer);
+            }
+        }
+        Assert.assertEquals(set.toKmers(), expected);
+        Assert.assertEquals(repeated.toKmers(), expectedRepeated);
+
+        final KmerSet union = new KmerSet(kmerLength);
+        union.add("ACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCA".getBytes(), 0);
+        union.addAll(set);
+        Assert.assertEquals(union.size(), set.size() + (set.contains("ACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCA".getBytes(), 0) ? 0 : 1));
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testKmerMap(final int kmerLength) {
+        final KmerMap<Integer> map = new KmerMap<>(kmerLength);
+        final Map<Kmer, Integer> expected = new LinkedHashMap<>();
+        for ( int start = 0; start <= SEQUENCE.length - kmerLength; start++ ) {
+            final Kmer kmer = new Kmer(SEQUENCE, start, kmerLength);
+            Assert.assertEquals(map.containsKey(SEQUENCE, start), expected.containsKey(kmer));
+            Assert.assertEquals(map.get(SEQUENCE, start), expected.get(kmer));
+            Assert.assertEquals(map.put(SEQUENCE, start, start), expected.put(kmer, start));
+            Assert.assertEquals(map.get(kmer), Integer.valueOf(start));
+            Assert.assertEquals(map.size(), expected.size());
+        }
+        Assert.assertEquals(new HashSet<>(map.values()), new HashSet<>(expected.values()));
+        Assert.assertNull(map.get(new Kmer(Arrays.copyOf(SEQUENCE, kmerLength + 1))));
+
+        for ( final Map.Entry<Kmer, Integer> entry : expected.entrySet() ) {
+            Assert.assertEquals(map.remove(entry.getKey().bases()), entry.getValue());
+            Assert.assertNull(map.remove(entry.getKey().bases()));
+        }
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.remove(new byte[kmerLength + 1]));
+    }
+}
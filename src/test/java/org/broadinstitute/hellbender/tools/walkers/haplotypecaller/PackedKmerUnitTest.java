@@ -0,0 +1,65 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class PackedKmerUnitTest extends GATKBaseTest {
+    @DataProvider(name = "kmerLengths")
+    public Object[][] makeKmerLengths() {
+        return new Object[][]{{1}, {2}, {10}, {16}, {30}, {PackedKmer.MAX_LENGTH}};
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testPackAndUnpack(final int length) {
+        final Random random = new Random(length);
+        final byte[] sequence = new byte[200];
+        for ( int i = 0; i < sequence.length; i++ ) {
+            sequence[i] = "ACGT".getBytes()[random.nextInt(4)];
+        }
+        final Map<Long, Kmer> kmersByPackedValue = new HashMap<>();
+        for ( int start = 0; start <= sequence.length - length; start++ ) {
+            final long packed = PackedKmer.pack(sequence, start, length);
+            Assert.assertTrue(packed >= 0);
+            Assert.assertEquals(PackedKmer.unpack(packed, length), Arrays.copyOfRange(sequence, start, start + length));
+            // kmers have the same packed value if and only if they are equal
+            final Kmer kmer = new Kmer(sequence, start, length);
+            final Kmer previous = kmersByPackedValue.putIfAbsent(packed, kmer);
+            Assert.assertTrue(previous == null || previous.equals(kmer));
+        }
+        Assert.assertEquals(kmersByPackedValue.size(), new HashSet<>(kmersByPackedValue.values()).size());
+    }
+
+    @Test(dataProvider = "kmerLengths")
+    public void testRoll(final int length) {
+        final byte[] sequence = "ACGTTGCANNACGTAGGCTAACGTTGCAACGTTGCAACGTTGCAnACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCAACGTTGCA".getBytes();
+        long packed = PackedKmer.NOT_PACKABLE;
+        for ( int start = 0; start <= sequence.length - length; start++ ) {
+            packed = PackedKmer.roll(packed, sequence, start, length);
+            Assert.assertEquals(packed, PackedKmer.pack(sequence, start, length), "kmer at " + start);
+        }
+    }
+
+    @Test
+    public void testNotPackable() {
+        for ( final String kmer : Arrays.asList("N", "ACGTN", "acgt", "ACGTR", "*") ) {
+            Assert.assertEquals(PackedKmer.pack(kmer.getBytes(), 0, kmer.length()), PackedKmer.NOT_PACKABLE, kmer);
+        }
+        Assert.assertTrue(PackedKmer.canPack(PackedKmer.MAX_LENGTH));
+        Assert.assertFalse(PackedKmer.canPack(PackedKmer.MAX_LENGTH + 1));
+        Assert.assertFalse(PackedKmer.canPack(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPackTooLong() {
+        PackedKmer.pack(new byte[PackedKmer.MAX_LENGTH + 1], 0, PackedKmer.MAX_LENGTH + 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnpackNotPackable() {
+        PackedKmer.unpack(PackedKmer.NOT_PACKABLE, 10);
+    }
+}
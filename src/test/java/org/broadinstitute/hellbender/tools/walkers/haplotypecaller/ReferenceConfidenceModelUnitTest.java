@@ -4,12 +4,15 @@ import com.google.common.base.Strings;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
 import htsjdk.variant.variantcontext.*;
+import htsjdk.variant.variantcontext.writer.VariantContextWriter;
+import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFHeaderLine;
 import htsjdk.variant.vcf.VCFSimpleHeaderLine;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.HomogeneousPloidyModel;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.IndependentSampleGenotypesModel;
 import org.broadinstitute.hellbender.tools.walkers.genotyper.PloidyModel;
+import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.GenomeLoc;
 import org.broadinstitute.hellbender.utils.GenomeLocParser;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -18,6 +21,7 @@ import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
 import org.broadinstitute.hellbender.utils.genotyper.ReadLikelihoods;
 import org.broadinstitute.hellbender.utils.genotyper.SampleList;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
 import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -26,6 +30,7 @@ import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.GATKVariantContextUtils;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
+import org.broadinstitute.hellbender.utils.variant.writers.GVCFWriter;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
@@ -122,6 +127,38 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testCountNonRefEvidence() {
+        final String ref = "ACGTACGTACGTACGTACGT";
+        final Random random = new Random(7);
+        final List<String> cigars = Arrays.asList("20M", "20M", "20M", "8M1I11M", "9M2D11M", "3S17M", "12M8S", "10M1I9M");
+        for ( int trial = 0; trial < 50; trial++ ) {
+            final List<PileupElement> elements = new ArrayList<>();
+            for ( int i = 0; i < 1 + random.nextInt(30); i++ ) {
+                final byte[] bases = ref.getBytes();
+                final byte[] quals = new byte[bases.length];
+                for ( int j = 0; j < bases.length; j++ ) {
+                    quals[j] = (byte) (5 + random.nextInt(35));
+                    if ( random.nextInt(10) == 0 ) {
+                        bases[j] = BaseUtils.BASES[random.nextInt(4)];
+                    }
+                }
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, 1, bases, quals, cigars.get(random.nextInt(cigars.size())));
+                elements.add(PileupElement.createPileupForReadAndOffset(read, 9));
+            }
+            final ReadPileup pileup = new ReadPileup(new SimpleInterval("1", 10, 10), elements);
+            final byte refBase = ref.getBytes()[9];
+
+            final int expected = model.calcGenotypeLikelihoodsOfRefVsAny(2, pileup, refBase, (byte) 10, null).nonRefDepth;
+            Assert.assertEquals(ReferenceConfidenceModel.countNonRefEvidence(pileup, refBase, (byte) 10, Integer.MAX_VALUE), expected);
+            for ( final int maxCount : Arrays.asList(0, 1, 3) ) {
+                final int count = ReferenceConfidenceModel.countNonRefEvidence(pileup, refBase, (byte) 10, maxCount);
+                // the count is exact up to maxCount and stops as soon as it exceeds it
+                Assert.assertEquals(count, Math.min(expected, maxCount + 1));
+            }
+        }
+    }
+
     @Test
     public void testWorstGL() {
         final GenotypeLikelihoods gq10 = GenotypeLikelihoods.fromPLField("0,10,100");
@@ -321,6 +358,76 @@ public final class ReferenceConfidenceModelUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testRefConfidenceWithGVCFWriter() {
+        final PloidyModel ploidyModel = new HomogeneousPloidyModel(samples,2);
+        final RefConfData xxxdata = new RefConfData("ACGTAACCGGTT", 0);
+        final int start = xxxdata.getStart();
+        final VariantContext vcMiddle = GATKVariantContextUtils.makeFromAlleles("test", "chr1", start + 2, Arrays.asList("A", "C"));
+        final VariantContext vcDel = GATKVariantContextUtils.makeFromAlleles("test", "chr1", start + 4, Arrays.asList("AAC", "A"));
+        final VariantContext vcNonRef = new VariantContextBuilder(vcMiddle)
+                .genotypes(new GenotypeBuilder(samples.getSample(0), vcMiddle.getAlleles()).GQ(30).DP(3).PL(new int[]{30, 0, 50}).make()).make();
+        final VariantContext vcDelNonRef = new VariantContextBuilder(vcDel)
+                .genotypes(new GenotypeBuilder(samples.getSample(0), vcDel.getAlleles()).GQ(30).DP(3).PL(new int[]{30, 0, 50}).make()).make();
+
+        for ( int nReads = 0; nReads < 4; nReads++ ) {
+            for ( final List<VariantContext> calls : Arrays.asList(Collections.<VariantContext>emptyList(), Collections.singletonList(vcNonRef), Arrays.asList(vcNonRef, vcDelNonRef)) ) {
+                final RefConfData data = new RefConfData("ACGTAACCGGTT", 0);
+                final List<Haplotype> haplotypes = Arrays.asList(data.getRefHap());
+                for ( int i = 0; i < nReads; i++ ) {
+                    data.getActiveRegion().add(data.makeRead(i, data.getRefLength() - i));
+                }
+                final ReadLikelihoods<Haplotype> likelihoods = createDummyStratifiedReadMap(data.getRefHap(), samples, data.getActiveRegion());
+
+                final List<VariantContext> expected = new ArrayList<>();
+                final GVCFWriter expectedWriter = new GVCFWriter(new CollectingWriter(expected), Arrays.asList(5, 10, 20), 2);
+                model.calculateRefConfidence(data.getRefHap(), haplotypes, data.getPaddedRefLoc(), data.getActiveRegion(), likelihoods, ploidyModel, calls)
+                        .forEach(expectedWriter::add);
+                expectedWriter.close();
+
+                final List<VariantContext> actual = new ArrayList<>();
+                final GVCFWriter writer = new GVCFWriter(new CollectingWriter(actual), Arrays.asList(5, 10, 20), 2);
+                model.calculateRefConfidence(data.getRefHap(), haplotypes, data.getPaddedRefLoc(), data.getActiveRegion(), likelihoods, ploidyModel, calls, false, Collections.emptyList(), writer);
+                writer.close();
+
+                Assert.assertEquals(actual.size(), expected.size());
+                for ( int i = 0; i < actual.size(); i++ ) {
+                    Assert.assertEquals(actual.get(i).getStart(), expected.get(i).getStart());
+                    Assert.assertEquals(actual.get(i).getEnd(), expected.get(i).getEnd());
+                    Assert.assertEquals(actual.get(i).getAlleles(), expected.get(i).getAlleles());
+                    Assert.assertEquals(actual.get(i).getGenotype(0).toString(), expected.get(i).getGenotype(0).toString());
+                }
+            }
+        }
+    }
+
+    private static final class CollectingWriter implements VariantContextWriter {
+        private final List<VariantContext> written;
+
+        private CollectingWriter(final List<VariantContext> written) {
+            this.written = written;
+        }
+
+        @Override
+        public void writeHeader(final VCFHeader header) {}
+
+        @Override
+        public void setHeader(final VCFHeader header) {}
+
+        @Override
+        public void close() {}
+
+        @Override
+        public boolean checkError() {
+            return false;
+        }
+
+        @Override
+        public void add(final VariantContext vc) {
+            written.add(vc);
+        }
+    }
+
     /**
      * Create a context that maps each read to the reference haplotype with log10 L of 0
      * @param refHaplotype a non-null reference haplotype
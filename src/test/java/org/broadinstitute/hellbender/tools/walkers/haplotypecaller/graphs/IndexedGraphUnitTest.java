@@ -0,0 +1,187 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.jgrapht.alg.CycleDetector;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class IndexedGraphUnitTest extends GATKBaseTest {
+    private static SeqGraph makeRandomGraph(final Random random, final int numVertices, final int numEdges) {
+        final SeqGraph graph = new SeqGraph(11);
+        final List<SeqVertex> vertices = new ArrayList<>(numVertices);
+        for ( int i = 0; i < numVertices; i++ ) {
+            final SeqVertex v = new SeqVertex("ACGT".substring(i % 4, i % 4 + 1));
+            vertices.add(v);
+            graph.addVertex(v);
+        }
+        for ( int i = 0; i < numEdges; i++ ) {
+            // mostly forward edges, so that there are long chains and only a few cycles
+            final int source = random.nextInt(numVertices);
+            final int target = random.nextInt(10) == 0 ? random.nextInt(numVertices) : Math.min(numVertices - 1, source + 1 + random.nextInt(3));
+            if ( graph.getEdge(vertices.get(source), vertices.get(target)) == null ) {
+                graph.addEdge(vertices.get(source), vertices.get(target), new BaseEdge(random.nextInt(20) == 0, 1 + random.nextInt(4)));
+            }
+        }
+        return graph;
+    }
+
+    @DataProvider(name = "randomGraphs")
+    public Object[][] makeRandomGraphs() {
+        final List<Object[]> tests = new ArrayList<>();
+        final Random random = new Random(13);
+        for ( final int numVertices : Arrays.asList(1, 2, 5, 20, 100) ) {
+            for ( final double edgesPerVertex : Arrays.asList(0.5, 1.0, 1.5, 3.0) ) {
+                for ( int trial = 0; trial < 5; trial++ ) {
+                    tests.add(new Object[]{makeRandomGraph(random, numVertices, (int) (numVertices * edgesPerVertex))});
+                }
+            }
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "randomGraphs")
+    public void testAdjacency(final SeqGraph graph) {
+        final IndexedGraph<SeqVertex, BaseEdge> indexedGraph = new IndexedGraph<>(graph);
+        Assert.assertEquals(indexedGraph.numberOfVertices(), graph.vertexSet().size());
+        Assert.assertEquals(indexedGraph.numberOfEdges(), graph.edgeSet().size());
+        for ( final SeqVertex vertex : graph.vertexSet() ) {
+            final int v = indexedGraph.getVertexId(vertex);
+            Assert.assertSame(indexedGraph.getVertex(v), vertex);
+            final List<BaseEdge> outgoing = new ArrayList<>();
+            for ( int i = 0; i < indexedGraph.outDegreeOf(v); i++ ) {
+                outgoing.add(indexedGraph.getEdge(indexedGraph.outgoingEdge(v, i)));
+            }
+            Assert.assertEquals(outgoing, new ArrayList<>(graph.outgoingEdgesOf(vertex)));
+            final List<BaseEdge> incoming = new ArrayList<>();
+            for ( int i = 0; i < indexedGraph.inDegreeOf(v); i++ ) {
+                final int e = indexedGraph.incomingEdge(v, i);
+                incoming.add(indexedGraph.getEdge(e));
+                Assert.assertEquals(indexedGraph.getEdgeTarget(e), v);
+                Assert.assertSame(indexedGraph.getVertex(indexedGraph.getEdgeSource(e)), graph.getEdgeSource(indexedGraph.getEdge(e)));
+                Assert.assertEquals(indexedGraph.getPruningMultiplicity(e), indexedGraph.getEdge(e).getPruningMultiplicity());
+                Assert.assertEquals(indexedGraph.isRef(e), indexedGraph.getEdge(e).isRef());
+            }
+            Assert.assertEquals(incoming, new ArrayList<>(graph.incomingEdgesOf(vertex)));
+        }
+        Assert.assertEquals(indexedGraph.getVertexId(new SeqVertex("A")), -1);
+    }
+
+    @Test(dataProvider = "randomGraphs")
+    public void testHasCycles(final SeqGraph graph) {
+        Assert.assertEquals(new IndexedGraph<>(graph).hasCycles(), new CycleDetector<>(graph).detectCycles());
+    }
+
+    @Test(dataProvider = "randomGraphs")
+    public void testReachableFrom(final SeqGraph graph) {
+        final IndexedGraph<SeqVertex, BaseEdge> indexedGraph = new IndexedGraph<>(graph);
+        final SeqVertex start = graph.vertexSet().iterator().next();
+        for ( final boolean followIncomingEdges : Arrays.asList(true, false) ) {
+            for ( final boolean followOutgoingEdges : Arrays.asList(true, false) ) {
+                final Set<SeqVertex> expected = new HashSet<>(Collections.singleton(start));
+                final Deque<SeqVertex> toVisit = new ArrayDeque<>(expected);
+                while ( ! toVisit.isEmpty() ) {
+                    final SeqVertex v = toVisit.pop();
+                    final List<SeqVertex> neighbors = new ArrayList<>();
+                    if ( followIncomingEdges ) {
+                        neighbors.addAll(graph.incomingVerticesOf(v));
+                    }
+                    if ( followOutgoingEdges ) {
+                        neighbors.addAll(graph.outgoingVerticesOf(v));
+                    }
+                    neighbors.stream().filter(expected::add).forEach(toVisit::push);
+                }
+                final boolean[] reached = indexedGraph.reachableFrom(indexedGraph.getVertexId(start), followIncomingEdges, followOutgoingEdges);
+                Assert.assertEquals(new HashSet<>(indexedGraph.getVertices(reached)), expected);
+            }
+        }
+    }
+
+    @Test(dataProvider = "randomGraphs")
+    public void testLinearChainEdgesToKeep(final SeqGraph graph) {
+        final IndexedGraph<SeqVertex, BaseEdge> indexedGraph = new IndexedGraph<>(graph);
+        for ( final int pruneFactor : Arrays.asList(1, 2, 3, 5) ) {
+            // straightforward implementation on the graph itself, following the definition of a linear chain
+            final Set<BaseEdge> expected = new HashSet<>();
+            for ( final SeqVertex start : graph.vertexSet() ) {
+                final int outDegree = graph.outDegreeOf(start);
+                final int inDegree = graph.inDegreeOf(start);
+                if ( ! (outDegree > 1 || inDegree > 1 || (inDegree == 0 && outDegree > 0)) ) {
+                    continue;
+                }
+                for ( final BaseEdge firstEdge : graph.outgoingEdgesOf(start) ) {
+                    final Path<SeqVertex, BaseEdge> chain = extendLinearChain(new Path<>(new Path<>(start, graph), firstEdge));
+                    if ( chain.getEdges().stream().anyMatch(e -> e.getPruningMultiplicity() >= pruneFactor || e.isRef()) ) {
+                        expected.addAll(chain.getEdges());
+                    }
+                }
+            }
+            Assert.assertEquals(new HashSet<>(indexedGraph.getEdges(indexedGraph.findLinearChainEdgesToKeep(pruneFactor))), expected);
+        }
+    }
+
+    private static Path<SeqVertex, BaseEdge> extendLinearChain(final Path<SeqVertex, BaseEdge> path) {
+        final SeqVertex last = path.getLastVertex();
+        final Set<BaseEdge> outEdges = path.getGraph().outgoingEdgesOf(last);
+        if ( outEdges.size() != 1 || path.getGraph().inDegreeOf(last) > 1 ) {
+            return path;
+        }
+        final BaseEdge next = outEdges.iterator().next();
+        return path.containsVertex(path.getGraph().getEdgeTarget(next)) ? path : extendLinearChain(new Path<>(path, next));
+    }
+
+    @Test(dataProvider = "randomGraphs")
+    public void testCycleEdgesAndDeadVertices(final SeqGraph graph) {
+        final IndexedGraph<SeqVertex, BaseEdge> indexedGraph = new IndexedGraph<>(graph);
+        // limit the size of the graph, as the search explores every path
+        if ( graph.vertexSet().size() > 20 ) {
+            return;
+        }
+        final List<SeqVertex> vertices = new ArrayList<>(graph.vertexSet());
+        final Set<SeqVertex> sources = new LinkedHashSet<>(Arrays.asList(vertices.get(0), vertices.get(vertices.size() / 3)));
+        final Set<SeqVertex> sinks = new HashSet<>(Collections.singleton(vertices.get(vertices.size() - 1)));
+
+        final Set<BaseEdge> expectedEdges = new HashSet<>();
+        final Set<SeqVertex> expectedVertices = new HashSet<>();
+        boolean expectedFoundSomePath = false;
+        for ( final SeqVertex source : sources ) {
+            expectedFoundSomePath = findGuiltyVerticesAndEdges(graph, source, sinks, expectedEdges, expectedVertices, new HashSet<>()) || expectedFoundSomePath;
+        }
+
+        final int[] sourceIds = sources.stream().mapToInt(indexedGraph::getVertexId).toArray();
+        final boolean[] isSink = new boolean[indexedGraph.numberOfVertices()];
+        sinks.forEach(v -> isSink[indexedGraph.getVertexId(v)] = true);
+        final boolean[] edgesToRemove = new boolean[indexedGraph.numberOfEdges()];
+        final boolean[] verticesToRemove = new boolean[indexedGraph.numberOfVertices()];
+        final boolean foundSomePath = indexedGraph.findCycleEdgesAndDeadVertices(sourceIds, isSink, edgesToRemove, verticesToRemove);
+
+        Assert.assertEquals(foundSomePath, expectedFoundSomePath);
+        Assert.assertEquals(new HashSet<>(indexedGraph.getEdges(edgesToRemove)), expectedEdges);
+        Assert.assertEquals(new HashSet<>(indexedGraph.getVertices(verticesToRemove)), expectedVertices);
+    }
+
+    private static boolean findGuiltyVerticesAndEdges(final SeqGraph graph, final SeqVertex currentVertex, final Set<SeqVertex> sinks,
+                                                      final Set<BaseEdge> edgesToRemove, final Set<SeqVertex> verticesToRemove,
+                                                      final Set<SeqVertex> parentVertices) {
+        if ( sinks.contains(currentVertex) ) {
+            return true;
+        }
+        parentVertices.add(currentVertex);
+        boolean reachesSink = false;
+        for ( final BaseEdge edge : graph.outgoingEdgesOf(currentVertex) ) {
+            final SeqVertex child = graph.getEdgeTarget(edge);
+            if ( parentVertices.contains(child) ) {
+                edgesToRemove.add(edge);
+            } else {
+                reachesSink = findGuiltyVerticesAndEdges(graph, child, sinks, edgesToRemove, verticesToRemove, parentVertices) || reachesSink;
+            }
+        }
+        parentVertices.remove(currentVertex);
+        if ( ! reachesSink ) {
+            verticesToRemove.add(currentVertex);
+        }
+        return reachesSink;
+    }
+}
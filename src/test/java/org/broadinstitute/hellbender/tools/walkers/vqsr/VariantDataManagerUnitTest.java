@@ -127,4 +127,25 @@ public class VariantDataManagerUnitTest extends GATKBaseTest {
             Assert.assertFalse( datum.isAggregate );
         }
     }
+
+    @Test
+    public final void testAnnotationMatrix() {
+        final List<VariantDatum> theData = new ArrayList<>();
+        for( int iii = 0; iii < 3; iii++ ) {
+            final VariantDatum datum = new VariantDatum();
+            datum.annotations = new double[]{iii, 10.0 + iii};
+            datum.isNull = new boolean[]{false, false};
+            theData.add(datum);
+        }
+
+        final VariantDataManager.AnnotationMatrix matrix = new VariantDataManager.AnnotationMatrix(theData);
+        Assert.assertEquals(matrix.getNumData(), 3);
+        Assert.assertEquals(matrix.getNumAnnotations(), 2);
+        Assert.assertEquals(matrix.getValues(), new double[]{0.0, 1.0, 2.0, 10.0, 11.0, 12.0});
+        Assert.assertEquals(matrix.getColumnOffset(1), 3);
+        for( int iii = 0; iii < 3; iii++ ) {
+            Assert.assertEquals(matrix.get(iii, 0), theData.get(iii).annotations[0]);
+            Assert.assertEquals(matrix.get(iii, 1), theData.get(iii).annotations[1]);
+        }
+    }
 }
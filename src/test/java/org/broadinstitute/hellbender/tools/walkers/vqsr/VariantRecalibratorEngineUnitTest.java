@@ -0,0 +1,86 @@
+package org.broadinstitute.hellbender.tools.walkers.vqsr;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class VariantRecalibratorEngineUnitTest extends GATKBaseTest {
+
+    // Data in three clusters, a few of which have a missing annotation
+    private static List<VariantDatum> makeData( final int numData, final int numAnnotations ) {
+        final Random random = new Random(42);
+        final List<VariantDatum> data = new ArrayList<>();
+        for( int iii = 0; iii < numData; iii++ ) {
+            final VariantDatum datum = new VariantDatum();
+            datum.annotations = new double[numAnnotations];
+            datum.isNull = new boolean[numAnnotations];
+            final double center = 2.0 * random.nextInt(3);
+            for( int jjj = 0; jjj < numAnnotations; jjj++ ) {
+                datum.annotations[jjj] = center + random.nextGaussian() * (0.5 + 0.2 * jjj);
+                datum.isNull[jjj] = random.nextInt(100) == 0;
+            }
+            datum.prior = 2.0;
+            data.add(datum);
+        }
+        return data;
+    }
+
+    private static List<VariantDatum> fitAndEvaluate( final int numThreads ) {
+        final VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
+        VRAC.MODEL_THREADS = numThreads;
+        final VariantRecalibratorEngine engine = new VariantRecalibratorEngine(VRAC);
+
+        Utils.resetRandomGenerator();
+        final List<VariantDatum> data = makeData(3 * GaussianMixtureModel.BLOCK_SIZE + 17, 4);
+        final GaussianMixtureModel goodModel = engine.generateModel(data.subList(0, 2000), 3);
+        engine.evaluateData(data, goodModel, false);
+        final GaussianMixtureModel badModel = engine.generateModel(data.subList(2000, data.size()), 2);
+        engine.evaluateData(data, badModel, true);
+        engine.close();
+
+        Assert.assertFalse(goodModel.failedToConverge);
+        Assert.assertFalse(badModel.failedToConverge);
+        return data;
+    }
+
+    @Test
+    public void testResultsDoNotDependOnNumberOfThreads() {
+        final List<VariantDatum> expected = fitAndEvaluate(1);
+        for( final int numThreads : new int[]{2, 5} ) {
+            final List<VariantDatum> actual = fitAndEvaluate(numThreads);
+            for( int iii = 0; iii < expected.size(); iii++ ) {
+                // exact comparison: the parallel reductions must not change the order of any floating point operation
+                Assert.assertEquals(actual.get(iii).lod, expected.get(iii).lod, 0.0);
+                Assert.assertEquals(actual.get(iii).annotations, expected.get(iii).annotations);
+            }
+        }
+    }
+
+    @Test
+    public void testBlockEvaluationMatchesSingleDatumEvaluation() {
+        final VariantRecalibratorArgumentCollection VRAC = new VariantRecalibratorArgumentCollection();
+        final VariantRecalibratorEngine engine = new VariantRecalibratorEngine(VRAC);
+        Utils.resetRandomGenerator();
+        final List<VariantDatum> data = makeData(500, 3);
+        final GaussianMixtureModel model = engine.generateModel(data, 3);
+        engine.close();
+        model.precomputeDenominatorForEvaluation();
+
+        final List<VariantDatum> completeData = new ArrayList<>();
+        for( final VariantDatum datum : data ) {
+            if( !GaussianMixtureModel.hasNullAnnotation(datum) ) {
+                completeData.add(datum);
+            }
+        }
+        final double[] lods = new double[completeData.size() + 1];
+        model.evaluateData(completeData, lods, 1);
+        for( int iii = 0; iii < completeData.size(); iii++ ) {
+            Assert.assertEquals(lods[iii + 1], model.evaluateDatum(completeData.get(iii)), 0.0);
+        }
+    }
+}
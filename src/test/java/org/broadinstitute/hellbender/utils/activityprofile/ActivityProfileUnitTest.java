@@ -112,10 +112,10 @@ public class ActivityProfileUnitTest extends GATKBaseTest {
             profile.add(new ActivityProfileState(new SimpleInterval(loc), p));
             Assert.assertFalse(profile.isEmpty(), "Profile shouldn't be empty after adding a state");
         }
-        Assert.assertEquals(genomeLocParser.createGenomeLoc(profile.regionStartLoc), genomeLocParser.createGenomeLoc(cfg.regionStart.getContig(), cfg.regionStart.getStart(), cfg.regionStart.getStart() ), "Start loc should be the start of the region");
+        Assert.assertEquals(genomeLocParser.createGenomeLoc(profile.getContig(), profile.getSpan().getStart(), profile.getSpan().getStart()), genomeLocParser.createGenomeLoc(cfg.regionStart.getContig(), cfg.regionStart.getStart(), cfg.regionStart.getStart() ), "Start loc should be the start of the region");
 
         Assert.assertEquals(profile.size(), cfg.probs.size(), "Should have exactly the number of states we expected to add");
-        assertProbsAreEqual(profile.stateList, cfg.probs);
+        assertProbsAreEqual(profile.getStateList(), cfg.probs);
 
         // TODO -- reanble tests
         //assertRegionsAreEqual(profile.createActiveRegions(0, 100), cfg.expectedRegions);
@@ -453,4 +453,30 @@ public class ActivityProfileUnitTest extends GATKBaseTest {
         Assert.assertEquals(region.getSpan().getStart(), 1, "Region should start at 1");
         Assert.assertEquals(region.getSpan().size(), expectedRegionSize, "Incorrect region size; cut must have been incorrect");
     }
+
+    @Test
+    public void testPoppedStatesMatchAddedStates() {
+        // add and pop many more states than fit in the initial buffer, so that it wraps around and grows
+        final ActivityProfile profile = new ActivityProfile(MAX_PROB_PROPAGATION_DISTANCE, ACTIVE_PROB_THRESHOLD, header);
+        final String contig = genomeLocParser.getSequenceDictionary().getSequences().get(0).getSequenceName();
+        final Random random = new Random(7);
+        final List<Double> addedProbs = new ArrayList<>();
+        final List<ActivityProfileState> poppedStates = new ArrayList<>();
+        for ( int i = 0; i < 5000; i++ ) {
+            final double prob = random.nextInt(5) == 0 ? random.nextDouble() : 0.0;
+            profile.add(new ActivityProfileState(new SimpleInterval(contig, i + 1, i + 1), prob));
+            addedProbs.add(prob);
+            if ( random.nextInt(i < 2500 ? 20 : 500) == 0 ) {
+                profile.popReadyAssemblyRegions(0, 1, 50, false).forEach(region -> poppedStates.addAll(region.getSupportingStates()));
+            }
+        }
+        profile.popReadyAssemblyRegions(0, 1, 50, true).forEach(region -> poppedStates.addAll(region.getSupportingStates()));
+
+        Assert.assertTrue(profile.isEmpty());
+        Assert.assertEquals(poppedStates.size(), addedProbs.size());
+        for ( int i = 0; i < poppedStates.size(); i++ ) {
+            Assert.assertEquals(poppedStates.get(i).getLoc(), new SimpleInterval(contig, i + 1, i + 1));
+            Assert.assertEquals(poppedStates.get(i).isActiveProb(), addedProbs.get(i));
+        }
+    }
 }
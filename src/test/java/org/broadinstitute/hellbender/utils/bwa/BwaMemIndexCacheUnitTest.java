@@ -0,0 +1,128 @@
+package org.broadinstitute.hellbender.utils.bwa;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class BwaMemIndexCacheUnitTest extends GATKBaseTest {
+
+    private static final String IMAGE_PATH = publicTestDir + "hg19mini.fasta.img";
+
+    @AfterMethod
+    public void closeAll() {
+        BwaMemIndexCache.closeInstances();
+    }
+
+    @Test
+    public void testGetInstanceIsCached() {
+        final BwaMemIndex index1 = BwaMemIndexCache.getInstance(IMAGE_PATH);
+        final BwaMemIndex index2 = BwaMemIndexCache.getInstance(IMAGE_PATH);
+        Assert.assertSame(index1, index2);
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 0);
+        BwaMemIndexCache.closeInstance(IMAGE_PATH);
+        Assert.assertFalse(index1.isOpen());
+        final BwaMemIndex index3 = BwaMemIndexCache.getInstance(IMAGE_PATH);
+        Assert.assertNotSame(index1, index3);
+        Assert.assertTrue(index3.isOpen());
+    }
+
+    @Test
+    public void testCloseIsDeferredUntilRelease() {
+        final BwaMemIndex index1 = BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+        final BwaMemIndex index2 = BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+        Assert.assertSame(index1, index2);
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 2);
+
+        BwaMemIndexCache.closeInstance(IMAGE_PATH);
+        Assert.assertTrue(index1.isOpen());
+        Assert.assertNull(BwaMemIndexCache.getStatistics(IMAGE_PATH));
+
+        BwaMemIndexCache.releaseInstance(index1);
+        Assert.assertTrue(index1.isOpen());
+        BwaMemIndexCache.releaseInstance(index2);
+        Assert.assertFalse(index1.isOpen());
+    }
+
+    @Test
+    public void testReleaseAfterReopen() {
+        final BwaMemIndex oldIndex = BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+        BwaMemIndexCache.closeInstance(IMAGE_PATH);
+        final BwaMemIndex newIndex = BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+        Assert.assertNotSame(oldIndex, newIndex);
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 1);
+
+        // releasing the old instance closes it, and leaves the new one alone
+        BwaMemIndexCache.releaseInstance(oldIndex);
+        Assert.assertFalse(oldIndex.isOpen());
+        Assert.assertTrue(newIndex.isOpen());
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 1);
+
+        BwaMemIndexCache.releaseInstance(newIndex);
+        Assert.assertTrue(newIndex.isOpen());
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 0);
+        BwaMemIndexCache.closeInstance(IMAGE_PATH);
+        Assert.assertFalse(newIndex.isOpen());
+    }
+
+    @Test
+    public void testReleaseKeepsInstanceCached() {
+        final BwaMemIndex index1 = BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+        BwaMemIndexCache.releaseInstance(index1);
+        Assert.assertTrue(index1.isOpen());
+        Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 0);
+        Assert.assertSame(BwaMemIndexCache.acquireInstance(IMAGE_PATH), index1);
+        BwaMemIndexCache.releaseInstance(index1);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testReleaseWithoutAcquire() {
+        BwaMemIndexCache.releaseInstance(BwaMemIndexCache.getInstance(IMAGE_PATH));
+    }
+
+    @Test
+    public void testConcurrentAcquireLoadsOnce() throws Exception {
+        final int nThreads = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<BwaMemIndex>> futures = IntStream.range(0, nThreads)
+                    .mapToObj(i -> executor.submit(() -> {
+                        start.await();
+                        return BwaMemIndexCache.acquireInstance(IMAGE_PATH);
+                    }))
+                    .collect(Collectors.toList());
+            start.countDown();
+            final BwaMemIndex first = futures.get(0).get();
+            for ( final Future<BwaMemIndex> future : futures ) {
+                Assert.assertSame(future.get(), first);
+            }
+            Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), nThreads);
+            for ( final Future<BwaMemIndex> future : futures ) {
+                BwaMemIndexCache.releaseInstance(future.get());
+            }
+            Assert.assertEquals(BwaMemIndexCache.getReferenceCount(IMAGE_PATH), 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        Assert.assertNull(BwaMemIndexCache.getStatistics(IMAGE_PATH));
+        BwaMemIndexCache.getInstance(IMAGE_PATH);
+        BwaMemIndexCache.recordAlignment(IMAGE_PATH, 10, 1000L);
+        BwaMemIndexCache.recordAlignment(IMAGE_PATH, 5, 500L);
+        final BwaMemIndexCache.IndexStatistics stats = BwaMemIndexCache.getStatistics(IMAGE_PATH);
+        Assert.assertEquals(stats.getIndexImageFile(), IMAGE_PATH);
+        Assert.assertTrue(stats.getLoadTimeNanos() > 0);
+        Assert.assertEquals(stats.getNAlignmentBatches(), 2);
+        Assert.assertEquals(stats.getNAlignedSequences(), 15);
+        Assert.assertEquals(stats.getAlignmentNanos(), 1500L);
+    }
+}
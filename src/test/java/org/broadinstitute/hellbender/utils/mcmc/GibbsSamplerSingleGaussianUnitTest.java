@@ -198,4 +198,46 @@ public final class GibbsSamplerSingleGaussianUnitTest extends GATKBaseTest {
                 relativeError(meanPosteriorStandardDeviation, MEAN_POSTERIOR_STANDARD_DEVIATION_TRUTH),
                 0., RELATIVE_ERROR_THRESHOLD_FOR_STANDARD_DEVIATIONS);
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that independent chains run in parallel do not depend on the number of threads, that the first chain is
+     * identical to that generated by a single {@link GibbsSampler}, and that the chains converge from different
+     * initial states.
+     */
+    @Test
+    public void testRunMCMCInParallelOnSingleGaussianModel() {
+        final int numChains = 4;
+        final GibbsSampler<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection> gibbsSampler =
+                new GibbsSampler<>(NUM_SAMPLES, new GaussianModeller(VARIANCE_INITIAL, MEAN_INITIAL, datapointsList).model);
+        gibbsSampler.runMCMC();
+        final List<Double> expectedFirstChainMeanSamples = gibbsSampler.getSamples(GaussianParameter.MEAN, Double.class, NUM_BURN_IN);
+
+        final List<List<Double>> meanChainSamplesSingleThread = runChains(numChains, 1);
+        final List<List<Double>> meanChainSamples = runChains(numChains, numChains);
+        Assert.assertEquals(meanChainSamples, meanChainSamplesSingleThread);
+        Assert.assertEquals(meanChainSamples.get(0), expectedFirstChainMeanSamples);
+        Assert.assertNotEquals(meanChainSamples.get(1), meanChainSamples.get(0));
+        Assert.assertTrue(PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(meanChainSamples)
+                < PosteriorSummaryUtils.POTENTIAL_SCALE_REDUCTION_FACTOR_THRESHOLD);
+    }
+
+    private List<List<Double>> runChains(final int numChains,
+                                         final int numThreads) {
+        final ParameterizedModel<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection> model =
+                new GaussianModeller(VARIANCE_INITIAL, MEAN_INITIAL, datapointsList).model;
+        final List<ParameterizedModel<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection>> models = new ArrayList<>();
+        models.add(model);
+        for (int chain = 1; chain < numChains; chain++) {
+            final double meanInitial = MEAN_INITIAL + (chain % 2 == 0 ? chain : -chain);
+            models.add(model.copy(state -> new ParameterizedState<>(Arrays.asList(
+                    new Parameter<>(GaussianParameter.VARIANCE, state.get(GaussianParameter.VARIANCE, Double.class)),
+                    new Parameter<>(GaussianParameter.MEAN, meanInitial)))));
+        }
+        final List<List<Double>> meanChainSamples = new ArrayList<>();
+        for (final GibbsSampler<GaussianParameter, ParameterizedState<GaussianParameter>, GaussianDataCollection> gibbsSampler :
+                GibbsSampler.runMCMCInParallel(NUM_SAMPLES, models, numThreads)) {
+            meanChainSamples.add(gibbsSampler.getSamples(GaussianParameter.MEAN, Double.class, NUM_BURN_IN));
+        }
+        return meanChainSamples;
+    }
+}
@@ -100,4 +100,47 @@ public final class PosteriorSummaryUtilsUnitTest extends GATKBaseTest {
         Assert.assertTrue(withinRelativeError(result.getLower(), expected.getLower(), relativeError));
         Assert.assertTrue(withinRelativeError(result.getUpper(), expected.getUpper(), relativeError));
     }
-}
\ No newline at end of file
+
+    @DataProvider(name = "dataPotentialScaleReductionFactor")
+    public Object[][] dataPotentialScaleReductionFactor() {
+        final RandomGenerator rng = RandomGeneratorFactory.createRandomGenerator(new Random(RANDOM_SEED));
+        final List<List<Double>> convergedChains = Arrays.asList(
+                toList(new NormalDistribution(rng, 0., 1.).sample(1000)),
+                toList(new NormalDistribution(rng, 0., 1.).sample(1000)),
+                toList(new NormalDistribution(rng, 0., 1.).sample(1000)));
+        //for chains of n samples with unit within-chain variance and means differing by 2, R ~ sqrt((n - 1) / n + 2)
+        final List<List<Double>> unconvergedChains = Arrays.asList(
+                toList(new NormalDistribution(rng, 0., 1.).sample(1000)),
+                toList(new NormalDistribution(rng, 2., 1.).sample(1000)));
+        //W = 2 and B = 4, so R = sqrt((W / 2 + B / 2) / W)
+        final List<List<Double>> shiftedChains = Arrays.asList(
+                toList(new double[]{0., 2.}),
+                toList(new double[]{-2., 0.}));
+        return new Object[][]{
+                //chain samples, expected, tolerance
+                {convergedChains, 1., 0.01},
+                {unconvergedChains, Math.sqrt(999. / 1000. + 2.), 0.1},
+                {shiftedChains, Math.sqrt(1.5), 1E-10},
+                {Arrays.asList(identicalSamples, identicalSamples), 1., 0.},
+                {Arrays.asList(identicalSamples, Collections.nCopies(1000, 2.)), Double.POSITIVE_INFINITY, 0.},
+                {Arrays.asList(withNaNSamples, withNaNSamples), Double.NaN, 0.}
+        };
+    }
+
+    @Test(dataProvider = "dataPotentialScaleReductionFactor")
+    public void testCalculatePotentialScaleReductionFactor(final List<List<Double>> chainSamples,
+                                                           final double expected,
+                                                           final double tolerance) {
+        Assert.assertEquals(PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(chainSamples), expected, tolerance);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCalculatePotentialScaleReductionFactorSingleChain() {
+        PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(Collections.singletonList(normalSamples));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCalculatePotentialScaleReductionFactorUnequalChains() {
+        PosteriorSummaryUtils.calculatePotentialScaleReductionFactor(Arrays.asList(normalSamples, normalSamplesSmall));
+    }
+}
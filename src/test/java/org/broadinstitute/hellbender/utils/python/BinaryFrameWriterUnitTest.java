@@ -0,0 +1,90 @@
+package org.broadinstitute.hellbender.utils.python;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+public class BinaryFrameWriterUnitTest extends GATKBaseTest {
+
+    private static ByteBuffer getFrames(final BinaryFrameWriter frameWriter) {
+        return ByteBuffer.wrap(frameWriter.getStream().toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int readHeader(final ByteBuffer frames, final BinaryFrameWriter.FrameType expectedType) {
+        Assert.assertEquals(frames.get(), expectedType.getCode());
+        return frames.getInt();
+    }
+
+    @Test
+    public void testFrameLayout() {
+        final BinaryFrameWriter frameWriter = new BinaryFrameWriter()
+                .writeString("ACGTé")
+                .writeBytes(new byte[] {1, 2, 3})
+                .writeInt8Array(new byte[] {-1, 127})
+                .writeInt(-7)
+                .writeIntArray(new int[] {Integer.MIN_VALUE, 0, 0x01020304})
+                .writeLongArray(new long[] {Long.MAX_VALUE})
+                .writeFloatArray(new float[] {0.5f, -2.25f})
+                .writeDoubleArray(new double[] {})
+                .writeDoubleArray(new double[] {Math.PI});
+        final ByteBuffer frames = getFrames(frameWriter);
+
+        final byte[] stringBytes = "ACGTé".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.STRING), stringBytes.length);
+        final byte[] actualStringBytes = new byte[stringBytes.length];
+        frames.get(actualStringBytes);
+        Assert.assertEquals(actualStringBytes, stringBytes);
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.BYTES), 3);
+        Assert.assertEquals(new byte[] {frames.get(), frames.get(), frames.get()}, new byte[] {1, 2, 3});
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.INT8_ARRAY), 2);
+        Assert.assertEquals(new byte[] {frames.get(), frames.get()}, new byte[] {-1, 127});
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.INT32_ARRAY), 4);
+        Assert.assertEquals(frames.getInt(), -7);
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.INT32_ARRAY), 12);
+        Assert.assertEquals(frames.getInt(), Integer.MIN_VALUE);
+        Assert.assertEquals(frames.getInt(), 0);
+        Assert.assertEquals(frames.get(), 4);   // little-endian
+        Assert.assertEquals(frames.get(), 3);
+        Assert.assertEquals(frames.get(), 2);
+        Assert.assertEquals(frames.get(), 1);
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.INT64_ARRAY), 8);
+        Assert.assertEquals(frames.getLong(), Long.MAX_VALUE);
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.FLOAT32_ARRAY), 8);
+        Assert.assertEquals(frames.getFloat(), 0.5f);
+        Assert.assertEquals(frames.getFloat(), -2.25f);
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.FLOAT64_ARRAY), 0);
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.FLOAT64_ARRAY), 8);
+        Assert.assertEquals(frames.getDouble(), Math.PI);
+
+        Assert.assertFalse(frames.hasRemaining());
+    }
+
+    @Test
+    public void testLargeArray() {
+        // larger than the initial size of the conversion buffer, and written after a smaller array
+        final double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 1.5;
+        }
+        final ByteBuffer frames = getFrames(new BinaryFrameWriter().writeDoubleArray(new double[] {1.0}).writeDoubleArray(values));
+
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.FLOAT64_ARRAY), Double.BYTES);
+        Assert.assertEquals(frames.getDouble(), 1.0);
+        Assert.assertEquals(readHeader(frames, BinaryFrameWriter.FrameType.FLOAT64_ARRAY), values.length * Double.BYTES);
+        for (final double value : values) {
+            Assert.assertEquals(frames.getDouble(), value);
+        }
+        Assert.assertFalse(frames.hasRemaining());
+    }
+}
@@ -8,12 +8,16 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 // Beware TestNG has a bug where it throws ArrayIndexOutOfBoundsException instead of TimeoutException
 // exception when the test time exceeds the timeOut threshold. This is fixed but not yet released:
@@ -218,6 +222,114 @@ public class StreamingPythonScriptExecutorUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test(groups = "python", dataProvider="supportedPythonVersions", dependsOnMethods = "testPythonExists", timeOut=20000)
+    public void testQueuedBatchWrites(final PythonScriptExecutor.PythonExecutableName executableName) throws IOException {
+        final String PYTHON_OPEN_TEMP_FILE      = "tempFile = open('%s', 'w')" + NL;
+        final String PYTHON_TRANSFER_FIFO_TO_TEMP_FILE = "for i in range(%s):\n    tempFile.write(tool.readDataFIFO())" + NL + NL;
+        final String PYTHON_CLOSE_TEMP_FILE     = "tempFile.close()" + NL;
+        final int BATCH_COUNT = 50;
+        final int BATCH_SIZE = 1000;
+        final int MAX_BATCHES_IN_FLIGHT = 3;
+
+        final List<String> linesWrittenToFIFO = new ArrayList<>();
+        final StreamingPythonScriptExecutor<String> streamingPythonExecutor =
+                new StreamingPythonScriptExecutor<>(executableName, false);
+        Assert.assertTrue(streamingPythonExecutor.start(Collections.emptyList()));
+        final File tempFile = createTempFile("pythonQueuedBatchTest", "txt");
+        streamingPythonExecutor.initStreamWriter(AsynchronousStreamWriter.stringSerializer);
+
+        try {
+            streamingPythonExecutor.sendSynchronousCommand(String.format(PYTHON_OPEN_TEMP_FILE, tempFile.getAbsolutePath()));
+
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                final List<String> fifoData = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    fifoData.add(String.format("batch %d line %d", batch, i) + NL);
+                }
+                linesWrittenToFIFO.addAll(fifoData);
+
+                if (streamingPythonExecutor.getNumQueuedBatches() == MAX_BATCHES_IN_FLIGHT) {
+                    Assert.assertNotNull(streamingPythonExecutor.waitForOldestQueuedBatchCompletion());
+                }
+                streamingPythonExecutor.startQueuedBatchWrite(String.format(PYTHON_TRANSFER_FIFO_TO_TEMP_FILE, BATCH_SIZE), fifoData);
+            }
+            while (streamingPythonExecutor.getNumQueuedBatches() > 0) {
+                Assert.assertNotNull(streamingPythonExecutor.waitForOldestQueuedBatchCompletion());
+            }
+            Assert.assertNull(streamingPythonExecutor.waitForOldestQueuedBatchCompletion());
+
+            streamingPythonExecutor.sendSynchronousCommand(PYTHON_CLOSE_TEMP_FILE);
+        }
+        finally {
+            streamingPythonExecutor.terminate();
+            Assert.assertFalse(streamingPythonExecutor.getProcess().isAlive());
+        }
+
+        try (final FileInputStream fis= new FileInputStream(tempFile);
+             final BufferedLineReader br = new BufferedLineReader(fis)) {
+            linesWrittenToFIFO.forEach(expectedLine -> Assert.assertEquals(br.readLine() + NL, expectedLine));
+        }
+    }
+
+    @Test(groups = "python", dataProvider="supportedPythonVersions", dependsOnMethods = "testPythonExists", timeOut=20000)
+    public void testBinaryFrameRoundTrip(final PythonScriptExecutor.PythonExecutableName executableName) throws IOException {
+        final String PYTHON_OPEN_TEMP_FILE      = "tempFile = open('%s', 'w', encoding='utf-8')" + NL;
+        final String PYTHON_TRANSFER_FRAMES_TO_TEMP_FILE =
+                "for i in range(%s):\n" +
+                "    name = tool.readDataFrame()\n" +
+                "    ints = tool.readDataFrame()\n" +
+                "    doubles = tool.readDataFrame()\n" +
+                "    tempFile.write(name + ' ' + ','.join(str(v) for v in ints.tolist()) + ' ' + ','.join(str(v) for v in doubles.tolist()) + ' ' + \n" +
+                "                   ','.join(str(v) for v in tool.readDataFrame().tolist()) + ' ' + str(list(tool.readDataFrame())) + '\\n')" + NL + NL;
+        final String PYTHON_CLOSE_TEMP_FILE     = "tempFile.close()" + NL;
+        final int BATCH_COUNT = 5;
+        final int BATCH_SIZE = 200;
+
+        final Function<Integer, ByteArrayOutputStream> itemSerializer =
+                i -> new BinaryFrameWriter()
+                        .writeString("item\u00e9" + i)
+                        .writeIntArray(new int[] {i, -i, Integer.MAX_VALUE})
+                        .writeDoubleArray(new double[] {i + 0.5, -0.25})
+                        .writeInt8Array(new byte[] {(byte) i.intValue(), -1})
+                        .writeBytes(new byte[] {'a', (byte) i.intValue()})
+                        .getStream();
+
+        final List<String> expectedLines = new ArrayList<>();
+        long expectedBytes = 0;
+        final StreamingPythonScriptExecutor<Integer> streamingPythonExecutor =
+                new StreamingPythonScriptExecutor<>(executableName, false);
+        Assert.assertTrue(streamingPythonExecutor.start(Collections.emptyList()));
+        final File tempFile = createTempFile("pythonBinaryFrameTest", "txt");
+        streamingPythonExecutor.initStreamWriter(itemSerializer, StreamingPythonScriptExecutor.DataTransferMode.BINARY_FRAMES);
+        Assert.assertEquals(streamingPythonExecutor.getDataTransferMode(), StreamingPythonScriptExecutor.DataTransferMode.BINARY_FRAMES);
+
+        try {
+            streamingPythonExecutor.sendSynchronousCommand(String.format(PYTHON_OPEN_TEMP_FILE, tempFile.getAbsolutePath()));
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                final List<Integer> items = new ArrayList<>(BATCH_SIZE);
+                for (int i = batch * BATCH_SIZE; i < (batch + 1) * BATCH_SIZE; i++) {
+                    items.add(i);
+                    expectedBytes += itemSerializer.apply(i).size();
+                    expectedLines.add(String.format("item\u00e9%d %d,%d,%d %s,-0.25 %d,-1 [97, %d]",
+                            i, i, -i, Integer.MAX_VALUE, Double.toString(i + 0.5), (byte) i, i & 0xFF));
+                }
+                streamingPythonExecutor.startBatchWrite(String.format(PYTHON_TRANSFER_FRAMES_TO_TEMP_FILE, BATCH_SIZE), items);
+                Assert.assertNotNull(streamingPythonExecutor.waitForPreviousBatchCompletion());
+            }
+            streamingPythonExecutor.sendSynchronousCommand(PYTHON_CLOSE_TEMP_FILE);
+
+            Assert.assertEquals(streamingPythonExecutor.getNumItemsWritten(), BATCH_COUNT * BATCH_SIZE);
+            Assert.assertEquals(streamingPythonExecutor.getNumBytesWritten(), expectedBytes);
+        }
+        finally {
+            streamingPythonExecutor.terminate();
+            Assert.assertFalse(streamingPythonExecutor.getProcess().isAlive());
+        }
+
+        final List<String> actualLines = Files.readAllLines(tempFile.toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(actualLines, expectedLines);
+    }
+
     @Test(groups = "python", dataProvider="supportedPythonVersions", dependsOnMethods = "testPythonExists",
             expectedExceptions = PythonScriptExecutorException.class)
     public void testRaisePythonException(final PythonScriptExecutor.PythonExecutableName executableName) {
@@ -0,0 +1,127 @@
+package org.broadinstitute.hellbender.utils.read;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public final class MemoryBudgetedReadQueueUnitTest extends GATKBaseTest {
+    private static final SAMFileHeader HEADER = ArtificialReadUtils.createArtificialSamHeader(2, 1, 100000);
+
+    private static List<GATKRead> makeReads(final int numReads) {
+        final List<GATKRead> reads = new ArrayList<>(numReads);
+        for ( int i = 0; i < numReads; i++ ) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(HEADER, "read" + i, 0, 1 + i / 10, 100);
+            read.setAttribute("NM", i % 3);
+            reads.add(read);
+        }
+        return reads;
+    }
+
+    private static void assertSameRead(final GATKRead actual, final GATKRead expected) {
+        Assert.assertEquals(actual.getName(), expected.getName());
+        Assert.assertEquals(actual.getContig(), expected.getContig());
+        Assert.assertEquals(actual.getStart(), expected.getStart());
+        Assert.assertEquals(actual.getCigar(), expected.getCigar());
+        Assert.assertEquals(actual.getBases(), expected.getBases());
+        Assert.assertEquals(actual.getBaseQualities(), expected.getBaseQualities());
+        Assert.assertEquals(actual.getAttributeAsInteger("NM"), expected.getAttributeAsInteger("NM"));
+    }
+
+    @Test
+    public void testNoBudget() {
+        final List<GATKRead> reads = makeReads(1000);
+        final MemoryBudgetedReadQueue queue = new MemoryBudgetedReadQueue(HEADER, MemoryBudgetedReadQueue.NO_BUDGET);
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertNull(queue.peek());
+
+        long expectedFootprint = 0;
+        for ( final GATKRead read : reads ) {
+            Assert.assertTrue(queue.add(read));
+            expectedFootprint += MemoryBudgetedReadQueue.estimateFootprint(read);
+        }
+        Assert.assertEquals(queue.size(), reads.size());
+        Assert.assertEquals(queue.getFootprint(), expectedFootprint);
+        Assert.assertEquals(queue.getPeakFootprint(), expectedFootprint);
+        Assert.assertEquals(queue.getNumSpilled(), 0);
+        Assert.assertEquals(queue.getNumDownsampled(), 0);
+
+        for ( final GATKRead read : reads ) {
+            Assert.assertSame(queue.peek(), read);
+            Assert.assertSame(queue.remove(), read);
+        }
+        Assert.assertTrue(queue.isEmpty());
+        Assert.assertEquals(queue.getFootprint(), 0);
+        Assert.assertEquals(queue.getPeakFootprint(), expectedFootprint);
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testRemoveFromEmptyQueue() {
+        new MemoryBudgetedReadQueue(HEADER, 1000).remove();
+    }
+
+    @DataProvider(name = "interleavings")
+    public Object[][] makeInterleavings() {
+        return new Object[][] { {1}, {3}, {50}, {Integer.MAX_VALUE} };
+    }
+
+    @Test(dataProvider = "interleavings")
+    public void testSpillingPreservesOrderAndContent(final int addsPerRemove) {
+        final List<GATKRead> reads = makeReads(1000);
+        // large enough that nothing is downsampled, but too small to keep all reads as objects
+        final long budget = 4 * reads.size() * MemoryBudgetedReadQueue.estimateFootprint(reads.get(0)) / 5;
+        final MemoryBudgetedReadQueue queue = new MemoryBudgetedReadQueue(HEADER, budget);
+
+        final List<GATKRead> returned = new ArrayList<>();
+        int numAdded = 0;
+        while ( numAdded < reads.size() ) {
+            for ( int i = 0; i < addsPerRemove && numAdded < reads.size(); i++, numAdded++ ) {
+                Assert.assertTrue(queue.add(reads.get(numAdded)));
+            }
+            returned.add(queue.remove());
+        }
+        while ( ! queue.isEmpty() ) {
+            returned.add(queue.remove());
+        }
+
+        Assert.assertEquals(returned.size(), reads.size());
+        for ( int i = 0; i < reads.size(); i++ ) {
+            assertSameRead(returned.get(i), reads.get(i));
+        }
+        Assert.assertEquals(queue.getFootprint(), 0);
+        Assert.assertEquals(queue.getNumDownsampled(), 0);
+        Assert.assertEquals(queue.getNumSpilled() > 0, addsPerRemove > 1);
+    }
+
+    @Test
+    public void testDownsamplingBoundsFootprint() {
+        Utils.resetRandomGenerator();
+        final List<GATKRead> reads = makeReads(20000);
+        final long budget = 200 * MemoryBudgetedReadQueue.estimateFootprint(reads.get(0));
+        final MemoryBudgetedReadQueue queue = new MemoryBudgetedReadQueue(HEADER, budget);
+
+        final List<GATKRead> retained = new ArrayList<>();
+        for ( final GATKRead read : reads ) {
+            if ( queue.add(read) ) {
+                retained.add(read);
+            }
+        }
+        Assert.assertEquals(queue.size(), retained.size());
+        Assert.assertEquals(queue.getNumDownsampled(), reads.size() - retained.size());
+        Assert.assertTrue(queue.getNumDownsampled() > 0);
+        Assert.assertTrue(queue.getNumSpilled() > 0);
+        Assert.assertTrue(queue.getPeakFootprint() <= 2 * budget + MemoryBudgetedReadQueue.estimateFootprint(reads.get(0)), "peak footprint " + queue.getPeakFootprint() + " is far over budget " + budget);
+
+        // the retained reads come back in their original order
+        for ( final GATKRead read : retained ) {
+            assertSameRead(queue.remove(), read);
+        }
+        Assert.assertTrue(queue.isEmpty());
+    }
+}
@@ -64,6 +64,26 @@ public final class RecalibrationReportUnitTest extends GATKBaseTest {
         assertReportsAreEquivalent(originalReport, calculatedReport);
     }
 
+    @Test(dataProvider = "tables")
+    public void testGatherBQSRWithThreads(List<File> inputTables, File expectedOutputTable) {
+        final GATKReport serial = RecalibrationReport.gatherReports(inputTables);
+        final GATKReport parallel = RecalibrationReport.gatherReports(inputTables, 3);
+        assertReportsAreEquivalent(serial, parallel);
+    }
+
+    @Test
+    public void testGatherBinaryReports() {
+        final List<File> binaryInputs = new ArrayList<>();
+        for (final File input : recalFiles) {
+            final File binaryInput = GATKBaseTest.createTempFile("BQSRgathererTest", GATKReport.BINARY_REPORT_EXTENSION);
+            new GATKReport(input).print(binaryInput);
+            binaryInputs.add(binaryInput);
+        }
+        final File output = GATKBaseTest.createTempFile("BQSRgathererTest", GATKReport.BINARY_REPORT_EXTENSION);
+        RecalibrationReport.gatherReportsIntoOneFile(binaryInputs, output);
+        assertReportsAreEquivalent(new GATKReport(recal_original), new GATKReport(output));
+    }
+
     private static void assertReportsAreEquivalent(final GATKReport originalReport, final GATKReport calculatedReport) {
 
         final ByteArrayOutputStream original = new ByteArrayOutputStream();
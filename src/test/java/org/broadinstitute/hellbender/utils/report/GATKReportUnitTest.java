@@ -1,14 +1,18 @@
 package org.broadinstitute.hellbender.utils.report;
 
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Random;
 
 
@@ -141,7 +145,19 @@ public final class GATKReportUnitTest extends GATKBaseTest {
 
     @Test
     public void testGATKReportGatherer() throws FileNotFoundException {
+        final GATKReport report1 = makeGatheredReport();
 
+        File file = createTempFile("GATKReportGatherer-UnitTest", ".tbl");
+        try (final PrintStream ps = new PrintStream(file)) {
+            report1.print(ps);
+            GATKReport inputRead = new GATKReport(file);
+            Assert.assertTrue(report1.isSameFormat(inputRead));
+            Assert.assertTrue(report1.equals(inputRead));
+        }
+
+    }
+
+    private static GATKReport makeGatheredReport() {
         GATKReport report1, report2, report3;
         report1 = new GATKReport();
         report1.addTable(TABLE_NAME, "Description", 2);
@@ -195,15 +211,90 @@ public final class GATKReportUnitTest extends GATKBaseTest {
         report1.getTable("Table3").set("5", "a", "c4g34");
         report1.getTable("Table3").set("573s", "a", "fDlwueg");
         report1.getTable("Table3").set("ZZZ", "a", "Dfs");
+        return report1;
+    }
 
+    private static String printToString(final GATKReport report) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final PrintStream ps = new PrintStream(bytes)) {
+            report.print(ps);
+        }
+        return bytes.toString();
+    }
 
-        File file = createTempFile("GATKReportGatherer-UnitTest", ".tbl");
-        try (final PrintStream ps = new PrintStream(file)) {
-            report1.print(ps);
-            GATKReport inputRead = new GATKReport(file);
-            Assert.assertTrue(report1.isSameFormat(inputRead));
-            Assert.assertTrue(report1.equals(inputRead));
+    @Test
+    public void testBinaryRoundTrip() {
+        final GATKReport report = makeGatheredReport();
+        final File file = createTempFile("GATKReportBinary-UnitTest", GATKReport.BINARY_REPORT_EXTENSION);
+        report.print(file);
+
+        final GATKReport inputRead = new GATKReport(file);
+        Assert.assertTrue(report.isSameFormat(inputRead));
+        Assert.assertTrue(report.equals(inputRead));
+        Assert.assertEquals(inputRead.getTable("Table2").get(2, "SomeFloat"), 535646345.657453464576);
+        Assert.assertEquals(printToString(inputRead), printToString(report));
+    }
+
+    @Test
+    public void testBinaryDecimalsAreRoundedAsInText() {
+        final GATKReport report = new GATKReport();
+        report.addTable("Decimals", "decimals with different formats", 2);
+        final GATKReportTable table = report.getTable("Decimals");
+        table.addColumn("Errors", "%.2f");
+        table.addColumn("EmpiricalQuality", "%.4f");
+        table.set(0, "Errors", 12.3456789);
+        table.set(0, "EmpiricalQuality", 27.123456789);
+        table.set(1, "Errors", 0.005);
+        table.set(1, "EmpiricalQuality", 45.00004999);
+
+        final File textFile = createTempFile("GATKReportDecimals-UnitTest", ".tbl");
+        report.print(textFile);
+        final File binaryFile = createTempFile("GATKReportDecimals-UnitTest", GATKReport.BINARY_REPORT_EXTENSION);
+        report.print(binaryFile);
+
+        final GATKReportTable textRead = new GATKReport(textFile).getTable("Decimals");
+        final GATKReportTable binaryRead = new GATKReport(binaryFile).getTable("Decimals");
+        Assert.assertEquals(binaryRead.get(0, "Errors"), 12.35);
+        Assert.assertEquals(binaryRead.get(0, "EmpiricalQuality"), 27.1235);
+        for ( int row = 0; row < table.getNumRows(); row++ ) {
+            for ( final String column : Arrays.asList("Errors", "EmpiricalQuality") ) {
+                Assert.assertEquals(binaryRead.get(row, column), textRead.get(row, column));
+            }
         }
+    }
+
+    @Test
+    public void testPrintToTextFile() {
+        final GATKReport report = makeGatheredReport();
+        final File file = createTempFile("GATKReportText-UnitTest", ".tbl");
+        report.print(file);
+
+        final GATKReport inputRead = new GATKReport(file);
+        Assert.assertTrue(report.equals(inputRead));
+        Assert.assertEquals(printToString(inputRead), printToString(report));
+    }
+
+    @DataProvider(name = "reportExtensions")
+    public Object[][] makeReportExtensions() {
+        return new Object[][] { {".tbl"}, {GATKReport.BINARY_REPORT_EXTENSION} };
+    }
+
+    @Test(dataProvider = "reportExtensions")
+    public void testLoadTables(final String extension) {
+        final GATKReport report = makeGatheredReport();
+        final File file = createTempFile("GATKReportLoadTables-UnitTest", extension);
+        report.print(file);
+
+        final GATKReport inputRead = GATKReport.loadTables(file.getPath(), Arrays.asList("Table2", "Table3"));
+        Assert.assertEquals(inputRead.getTables().size(), 2);
+        Assert.assertTrue(inputRead.getTable("Table2").equals(report.getTable("Table2")));
+        Assert.assertTrue(inputRead.getTable("Table3").equals(report.getTable("Table3")));
+    }
 
+    @Test(dataProvider = "reportExtensions", expectedExceptions = GATKException.class)
+    public void testLoadMissingTable(final String extension) {
+        final File file = createTempFile("GATKReportLoadTables-UnitTest", extension);
+        makeGatheredReport().print(file);
+        GATKReport.loadTables(file.getPath(), Collections.singleton("NoSuchTable"));
     }
 }
@@ -131,4 +131,68 @@ public class AsynchronousStreamWriterUnitTest {
         }
     }
 
+    @Test
+    public void testQueuedBatchesAreWrittenInOrder() throws IOException, InterruptedException, ExecutionException {
+        final int BATCH_COUNT = 20;
+        final int BATCH_SIZE = 50;
+
+        final List<String> expectedItems = new ArrayList<>();
+        // a multi-threaded executor, like the one used by the streaming process controller, so that the queued
+        // batches could run concurrently if they were not ordered
+        final ExecutorService executorService = Executors.newCachedThreadPool();
+        AsynchronousStreamWriter<String> asyncWriteService = null;
+        try (final ByteArrayOutputStream streamWriter = new ByteArrayOutputStream()) {
+            asyncWriteService = new AsynchronousStreamWriter<>(executorService, streamWriter, AsynchronousStreamWriter.stringSerializer);
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                final List<String> batchItems = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    batchItems.add(batch + ":" + i + "\n");
+                }
+                expectedItems.addAll(batchItems);
+                asyncWriteService.queueBatchWrite(batchItems);
+                Assert.assertEquals(asyncWriteService.getNumQueuedBatches(), batch + 1);
+            }
+
+            for (int batch = 0; batch < BATCH_COUNT; batch++) {
+                final Future<Integer> batchResult = asyncWriteService.waitForOldestQueuedBatchCompletion();
+                Assert.assertEquals(batchResult.get(TIMEOUT_TIME, TIMEOUT_TIMEUNIT).intValue(), BATCH_SIZE);
+            }
+            Assert.assertNull(asyncWriteService.waitForOldestQueuedBatchCompletion());
+            Assert.assertEquals(asyncWriteService.getNumQueuedBatches(), 0);
+            Assert.assertTrue(asyncWriteService.terminate());
+
+            try (final ByteArrayInputStream is= new ByteArrayInputStream(streamWriter.toByteArray());
+                 final BufferedLineReader br = new BufferedLineReader(is)) {
+                expectedItems.forEach(expectedLine -> Assert.assertEquals(br.readLine() + '\n', expectedLine));
+                Assert.assertNull(br.readLine());
+            }
+        } catch (TimeoutException e) {
+            throw new AssertionError("Timed out waiting for a queued batch", e);
+        } finally {
+            if (asyncWriteService != null) {
+                asyncWriteService.terminate();
+            }
+            executorService.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testStartBatchWhileQueuedBatchOutstanding() throws IOException {
+        final List<String> batchItems = new ArrayList<>();
+        batchItems.add("item");
+
+        AsynchronousStreamWriter<String> asyncWriteService = null;
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try (final ByteArrayOutputStream streamWriter = new ByteArrayOutputStream()) {
+            asyncWriteService = new AsynchronousStreamWriter<>(executorService, streamWriter, AsynchronousStreamWriter.stringSerializer);
+            asyncWriteService.queueBatchWrite(batchItems);
+            asyncWriteService.startBatchWrite(batchItems);
+        } finally {
+            if (asyncWriteService != null) {
+                asyncWriteService.terminate();
+            }
+            executorService.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,136 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.read.CigarUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class SmithWatermanBandedJavaAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Override
+    protected SmithWatermanBandedJavaAligner getAligner() {
+        return new SmithWatermanBandedJavaAligner();
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    /**
+     * Introduces the given numbers of substitutions and indels (of random lengths up to {@code maxIndelLength}),
+     * and trims the ends by up to {@code maxTrimLength} bases.
+     */
+    private static byte[] mutate(final Random random, final byte[] bases, final int numSubstitutions, final int numIndels,
+                                 final int maxIndelLength, final int maxTrimLength) {
+        final List<Byte> mutated = new ArrayList<>(bases.length);
+        for (final byte base : bases) {
+            mutated.add(base);
+        }
+        for (int n = 0; n < numSubstitutions; n++) {
+            mutated.set(random.nextInt(mutated.size()), BASES[random.nextInt(BASES.length)]);
+        }
+        for (int n = 0; n < numIndels && mutated.size() > maxIndelLength + 1; n++) {
+            final int position = random.nextInt(mutated.size() - maxIndelLength);
+            final int length = 1 + random.nextInt(maxIndelLength);
+            for (int k = 0; k < length; k++) {
+                if (random.nextBoolean()) {
+                    mutated.add(position, BASES[random.nextInt(BASES.length)]);
+                } else {
+                    mutated.remove(position);
+                }
+            }
+        }
+        final int start = maxTrimLength == 0 ? 0 : random.nextInt(maxTrimLength + 1);
+        final int end = mutated.size() - (maxTrimLength == 0 ? 0 : random.nextInt(maxTrimLength + 1));
+        final byte[] result = new byte[Math.max(1, end - start)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mutated.get(Math.min(start + i, mutated.size() - 1));
+        }
+        return result;
+    }
+
+    @DataProvider(name = "BandedAlignmentsMatchFullAlignments")
+    public Object[][] makeBandedAlignmentsMatchFullAlignments() {
+        //ref length, substitutions, indels, max indel length, max trim length, band width
+        final List<Object[]> tests = new ArrayList<>();
+        for (final int bandWidth : new int[]{0, 1, 4, SmithWatermanBandedJavaAligner.DEFAULT_BAND_WIDTH}) {
+            tests.add(new Object[]{100, 0, 0, 0, 0, bandWidth});
+            tests.add(new Object[]{100, 3, 0, 0, 0, bandWidth});
+            tests.add(new Object[]{300, 5, 2, 10, 0, bandWidth});
+            tests.add(new Object[]{300, 5, 3, 40, 20, bandWidth});
+            tests.add(new Object[]{200, 30, 10, 5, 50, bandWidth});
+            tests.add(new Object[]{150, 150, 0, 0, 0, bandWidth});      //unrelated sequences require the full matrices
+            tests.add(new Object[]{20, 2, 1, 3, 5, bandWidth});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "BandedAlignmentsMatchFullAlignments")
+    public void testBandedAlignmentsMatchFullAlignments(final int refLength, final int numSubstitutions, final int numIndels,
+                                                        final int maxIndelLength, final int maxTrimLength, final int bandWidth) {
+        final Random random = new Random(refLength * 31 + numIndels * 7 + bandWidth);
+        final SmithWatermanBandedJavaAligner bandedAligner = new SmithWatermanBandedJavaAligner(bandWidth);
+        final SmithWatermanJavaAligner fullAligner = SmithWatermanJavaAligner.getInstance();
+        final SWParameters[] parametersToTest = {
+                SmithWatermanAligner.ORIGINAL_DEFAULT,
+                SmithWatermanAligner.STANDARD_NGS,
+                CigarUtils.NEW_SW_PARAMETERS,
+                CigarUtils.ALIGNMENT_TO_BEST_HAPLOTYPE_SW_PARAMETERS};
+        for (int trial = 0; trial < 20; trial++) {
+            final byte[] ref = randomBases(random, refLength);
+            final byte[] alt = mutate(random, ref, numSubstitutions, numIndels, maxIndelLength, maxTrimLength);
+            for (final SWParameters parameters : parametersToTest) {
+                for (final SWOverhangStrategy strategy : SWOverhangStrategy.values()) {
+                    //check both orientations, so that the longer sequence is the reference in some alignments and the alternate in others
+                    for (final boolean swap : new boolean[]{false, true}) {
+                        final byte[] reference = swap ? alt : ref;
+                        final byte[] alternate = swap ? ref : alt;
+                        final SmithWatermanAlignment expected = fullAligner.align(reference, alternate, parameters, strategy);
+                        final SmithWatermanAlignment result = bandedAligner.align(reference, alternate, parameters, strategy);
+                        Assert.assertEquals(result.getCigar(), expected.getCigar(), strategy + " " + new String(reference) + " " + new String(alternate));
+                        Assert.assertEquals(result.getAlignmentOffset(), expected.getAlignmentOffset());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNearDiagonalAlignmentsUseTheBand() {
+        final Random random = new Random(41);
+        final SmithWatermanBandedJavaAligner aligner = new SmithWatermanBandedJavaAligner();
+        final SmithWatermanJavaAligner fullAligner = SmithWatermanJavaAligner.getInstance();
+        final int numAlignments = 20;
+        for (int trial = 0; trial < numAlignments; trial++) {
+            final byte[] ref = randomBases(random, 500);
+            // a few substitutions and short indels keep the optimal alignment close to the main diagonal
+            final byte[] alt = mutate(random, ref, 5, 2, 3, 0);
+            final SmithWatermanAlignment expected = fullAligner.align(ref, alt, SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+            final SmithWatermanAlignment result = aligner.align(ref, alt, SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+            Assert.assertEquals(result.getCigar(), expected.getCigar());
+            Assert.assertEquals(result.getAlignmentOffset(), expected.getAlignmentOffset());
+        }
+        Assert.assertEquals(aligner.getNumBandedAlignments(), numAlignments);
+        Assert.assertEquals(aligner.getNumFullAlignments(), 0);
+    }
+
+    @Test
+    public void testUnrelatedSequencesUseTheFullMatrices() {
+        final Random random = new Random(17);
+        final SmithWatermanBandedJavaAligner aligner = new SmithWatermanBandedJavaAligner(1);
+        aligner.align(randomBases(random, 200), randomBases(random, 200), SmithWatermanAligner.STANDARD_NGS, SWOverhangStrategy.SOFTCLIP);
+        Assert.assertEquals(aligner.getNumBandedAlignments(), 0);
+        Assert.assertEquals(aligner.getNumFullAlignments(), 1);
+    }
+}
@@ -0,0 +1,132 @@
+package org.broadinstitute.hellbender.utils.svd;
+
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public final class RandomizedTruncatedSVDUnitTest extends GATKBaseTest {
+    private static final int RANDOM_SEED = 7;
+    private static final double TOLERANCE = 1E-8;
+
+    /**
+     * An in-memory matrix read in blocks of {@code numRowsPerBlock} rows.
+     */
+    private static RandomizedTruncatedSVD.RowBlockMatrix asRowBlockMatrix(final double[][] matrix,
+                                                                          final int numRowsPerBlock) {
+        return new RandomizedTruncatedSVD.RowBlockMatrix() {
+            @Override
+            public int getNumRows() {
+                return matrix.length;
+            }
+
+            @Override
+            public int getNumColumns() {
+                return matrix[0].length;
+            }
+
+            @Override
+            public void forEachRowBlock(final RandomizedTruncatedSVD.RowBlockConsumer rowBlockConsumer) {
+                for (int firstRowIndex = 0; firstRowIndex < matrix.length; firstRowIndex += numRowsPerBlock) {
+                    rowBlockConsumer.accept(firstRowIndex,
+                            Arrays.copyOfRange(matrix, firstRowIndex, Math.min(firstRowIndex + numRowsPerBlock, matrix.length)));
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a matrix with rank {@code rank} plus a small amount of noise.
+     */
+    private static double[][] simulateMatrix(final int numRows,
+                                             final int numColumns,
+                                             final int rank,
+                                             final double noise) {
+        final Random random = new Random(RANDOM_SEED);
+        final double[][] matrix = new double[numRows][numColumns];
+        for (int k = 0; k < rank; k++) {
+            final double scale = 100. / (k + 1);
+            final double[] u = random.doubles(numRows).map(x -> x - 0.5).toArray();
+            final double[] v = random.doubles(numColumns).map(x -> x - 0.5).toArray();
+            for (int i = 0; i < numRows; i++) {
+                for (int j = 0; j < numColumns; j++) {
+                    matrix[i][j] += scale * u[i] * v[j];
+                }
+            }
+        }
+        for (final double[] row : matrix) {
+            for (int j = 0; j < numColumns; j++) {
+                row[j] += noise * random.nextGaussian();
+            }
+        }
+        return matrix;
+    }
+
+    @DataProvider(name = "dataRandomizedTruncatedSVD")
+    public Object[][] dataRandomizedTruncatedSVD() {
+        //number of rows, number of columns, rank, noise, number of singular values, oversampling, rows per block,
+        //tolerance relative to the largest singular value
+        return new Object[][]{
+                {50, 30, 30, 1., 30, 0, 7, TOLERANCE},      //full decomposition is exact
+                {30, 50, 30, 1., 30, 5, 30, TOLERANCE},     //full decomposition is exact
+                {80, 60, 5, 0., 5, 10, 9, TOLERANCE},       //exactly low rank
+                {80, 60, 5, 1E-6, 5, 10, 1, 1E-5},          //low rank plus noise
+                {60, 80, 60, 0., 3, 10, 100, 1E-2}          //only largest singular values of full-rank matrix requested
+        };
+    }
+
+    @Test(dataProvider = "dataRandomizedTruncatedSVD")
+    public void testRandomizedTruncatedSVD(final int numRows,
+                                           final int numColumns,
+                                           final int rank,
+                                           final double noise,
+                                           final int numSingularValues,
+                                           final int oversampling,
+                                           final int numRowsPerBlock,
+                                           final double relativeTolerance) {
+        final double[][] matrix = simulateMatrix(numRows, numColumns, rank, noise);
+        final RandomizedTruncatedSVD svd = RandomizedTruncatedSVD.compute(
+                asRowBlockMatrix(matrix, numRowsPerBlock), numSingularValues, oversampling, 2, RANDOM_SEED);
+        final SingularValueDecomposition exactSVD = new SingularValueDecomposition(new Array2DRowRealMatrix(matrix));
+
+        //singular values agree (relative to the largest)
+        final double[] singularValues = svd.getSingularValues();
+        Assert.assertEquals(singularValues.length, numSingularValues);
+        final double largestSingularValue = exactSVD.getSingularValues()[0];
+        final double tolerance = relativeTolerance * largestSingularValue;
+        for (int k = 0; k < numSingularValues; k++) {
+            Assert.assertEquals(singularValues[k], exactSVD.getSingularValues()[k], tolerance);
+        }
+
+        //singular vectors are orthonormal and satisfy A v_k = s_k u_k
+        final RealMatrix u = new Array2DRowRealMatrix(svd.getLeftSingularVectors(), false);
+        final RealMatrix vt = new Array2DRowRealMatrix(svd.getTransposedRightSingularVectors(), false);
+        Assert.assertEquals(u.getRowDimension(), numRows);
+        Assert.assertEquals(u.getColumnDimension(), numSingularValues);
+        Assert.assertEquals(vt.getRowDimension(), numSingularValues);
+        Assert.assertEquals(vt.getColumnDimension(), numColumns);
+        final RealMatrix utu = u.transpose().multiply(u);
+        final RealMatrix vtv = vt.multiply(vt.transpose());
+        final RealMatrix av = new Array2DRowRealMatrix(matrix, false).multiply(vt.transpose());
+        for (int k = 0; k < numSingularValues; k++) {
+            for (int l = 0; l < numSingularValues; l++) {
+                Assert.assertEquals(utu.getEntry(k, l), k == l ? 1. : 0., TOLERANCE);
+                Assert.assertEquals(vtv.getEntry(k, l), k == l ? 1. : 0., TOLERANCE);
+            }
+            for (int i = 0; i < numRows; i++) {
+                Assert.assertEquals(av.getEntry(i, k), singularValues[k] * u.getEntry(i, k), tolerance);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooManySingularValues() {
+        RandomizedTruncatedSVD.compute(asRowBlockMatrix(simulateMatrix(10, 5, 2, 0.), 3), 6, 0, 0, RANDOM_SEED);
+    }
+}
@@ -0,0 +1,104 @@
+package org.broadinstitute.hellbender.utils.tsv;
+
+import com.opencsv.CSVParser;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link TableLineReader}.
+ */
+public final class TableLineReaderUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "linesData")
+    public Object[][] linesData() {
+        return new Object[][]{
+                {"", new String[]{}},
+                {"a", new String[]{"a"}},
+                {"a\n", new String[]{"a"}},
+                {"a\nb", new String[]{"a", "b"}},
+                {"a\r\nb\r\n", new String[]{"a", "b"}},
+                {"a\rb\r", new String[]{"a", "b"}},
+                {"\n\n", new String[]{"", ""}},
+                {"\r\n\r\n", new String[]{"", ""}},
+                {"\r\r\n\n", new String[]{"", "", ""}},
+                {"a\tb\r\n\tc\t\n", new String[]{"a\tb", "\tc\t"}},
+        };
+    }
+
+    @Test(dataProvider = "linesData")
+    public void testLines(final String text, final String[] expected) throws IOException {
+        Assert.assertEquals(readLines(new StringReader(text)), Arrays.asList(expected));
+    }
+
+    @Test
+    public void testLinesLongerThanBuffer() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final StringBuilder line = new StringBuilder();
+            for (int j = 0; j < i * 10000; j++) {
+                line.append((char) ('a' + (i + j) % 26));
+            }
+            expected.add(line.toString());
+            text.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        // a reader returning few characters at a time splits line terminators between reads
+        final Reader trickleReader = new StringReader(text.toString()) {
+            @Override
+            public int read(final char[] buffer, final int offset, final int length) throws IOException {
+                return super.read(buffer, offset, Math.min(length, 7));
+            }
+        };
+        Assert.assertEquals(readLines(trickleReader), expected);
+    }
+
+    @Test
+    public void testLineNeedsParser() throws IOException {
+        final TableLineReader reader = new TableLineReader(new StringReader("a\tb\n\"a\"\tb\na\\\tb\n"));
+        Assert.assertTrue(reader.nextLine());
+        Assert.assertFalse(reader.lineNeedsParser());
+        Assert.assertEquals(reader.getLineNumber(), 1);
+        Assert.assertTrue(reader.nextLine());
+        Assert.assertTrue(reader.lineNeedsParser());
+        Assert.assertTrue(reader.nextLine());
+        Assert.assertTrue(reader.lineNeedsParser());
+        Assert.assertEquals(reader.getLineNumber(), 3);
+        Assert.assertFalse(reader.nextLine());
+        reader.close();
+    }
+
+    @DataProvider(name = "splitData")
+    public Object[][] splitData() {
+        return new Object[][]{
+                {""}, {"a"}, {"\t"}, {"a\t"}, {"\ta"}, {"a\tbb\t\tc"}, {" a \t b "}, {"\t\t\t"}, {"#a\tb"}
+        };
+    }
+
+    @Test(dataProvider = "splitData")
+    public void testSplitMatchesParser(final String line) throws IOException {
+        final CSVParser parser = new CSVParser(TableUtils.COLUMN_SEPARATOR, TableUtils.QUOTE_CHARACTER, TableUtils.ESCAPE_CHARACTER);
+        Assert.assertEquals(TableLineReader.split(line.toCharArray(), 0, line.length()), parser.parseLine(line));
+        final String padded = "xx" + line + "yy";
+        Assert.assertEquals(TableLineReader.split(padded.toCharArray(), 2, 2 + line.length()), parser.parseLine(line));
+    }
+
+    private static List<String> readLines(final Reader reader) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (final TableLineReader lineReader = new TableLineReader(reader)) {
+            while (lineReader.nextLine()) {
+                lines.add(lineReader.getLine());
+                Assert.assertEquals(lineReader.getLineNumber(), lines.size());
+            }
+        }
+        return lines;
+    }
+}
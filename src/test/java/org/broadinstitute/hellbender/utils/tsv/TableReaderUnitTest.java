@@ -158,6 +158,25 @@ public class TableReaderUnitTest extends GATKBaseTest {
         reader.close();
     }
 
+    @Test
+    public void testLineTerminators() throws IOException {
+        final String text = String.join("\r\n", "col1.str\tcol2.int\tcol3.dbl", "a\t1\t1.0", "#comment")
+                + "\r" + "b\t2\t2.0" + "\n" + "\"multi\r\nline\"\t3\t3.0" + "\r\n" + "d\t4\t4.0";
+        final List<Long> lineNumbers = new ArrayList<>();
+        final List<String> values = new ArrayList<>();
+        try (final TableReader<String> reader = new TableReader<String>(new StringReader(text)) {
+            @Override
+            protected String createRecord(final DataLine dataLine) {
+                lineNumbers.add(dataLine.getLineNumber());
+                return dataLine.get("col1.str");
+            }
+        }) {
+            values.addAll(reader.toList());
+        }
+        Assert.assertEquals(values, Arrays.asList("a", "b", "multi\nline", "d"));
+        Assert.assertEquals(lineNumbers, Arrays.asList(2L, 4L, 6L, 7L));
+    }
+
     @Test(dataProvider = "ordinaryValuesData")
     public void testStandardValuesUsingReader(final String[] lines) throws IOException {
         final File testFile = createTestInput(lines);
@@ -396,6 +396,44 @@ public class GVCFWriterUnitTest extends GATKBaseTest {
         assertGoodVC(mockWriter.emitted.get(2), CHR1, 4, 7, false);
     }
 
+    @Test
+    public void testAddHomRefSite() {
+        final List<VariantContext> vcs = Arrays.asList(
+                makeHomRef(1), makeHomRef(2), makeHomRef(3, 15), makeHomRef(4, 17), makeHomRef(5, 50),
+                makeDeletion(6, 3), makeHomRef(7), makeHomRef(8, 99), makeHomRef(9, 150),
+                makeNonRef(CHR1, 10), makeHomRef(11, 5), makeHomRef(20, 5),
+                makeHomRef(CHR2, 21, 5), makeHomRef(CHR2, 22, 5));
+
+        final MockWriter expectedWriter = new MockWriter();
+        final GVCFWriter writer = new GVCFWriter(expectedWriter, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+        vcs.forEach(writer::add);
+        writer.close();
+
+        final MockWriter mockWriter = new MockWriter();
+        final GVCFWriter siteWriter = new GVCFWriter(mockWriter, standardPartition, HomoSapiensConstants.DEFAULT_PLOIDY);
+        for (final VariantContext vc : vcs) {
+            final Genotype g = vc.getGenotype(0);
+            if (vc.hasAlternateAllele(Allele.NON_REF_ALLELE)) {
+                siteWriter.addHomRefSite(SAMPLE_NAME, vc.getContig(), vc.getStart(), vc.getReference(), g.getPloidy(), g.getGQ(), g.getDP(), g.getPL());
+            } else {
+                siteWriter.add(vc);
+            }
+        }
+        siteWriter.close();
+
+        Assert.assertEquals(mockWriter.emitted.size(), expectedWriter.emitted.size());
+        for (int i = 0; i < mockWriter.emitted.size(); i++) {
+            final VariantContext actual = mockWriter.emitted.get(i);
+            final VariantContext expected = expectedWriter.emitted.get(i);
+            Assert.assertEquals(actual.getContig(), expected.getContig());
+            Assert.assertEquals(actual.getStart(), expected.getStart());
+            Assert.assertEquals(actual.getEnd(), expected.getEnd());
+            Assert.assertEquals(actual.getAlleles(), expected.getAlleles());
+            Assert.assertEquals(actual.getAttributes(), expected.getAttributes());
+            Assert.assertEquals(actual.getGenotype(0).toString(), expected.getGenotype(0).toString());
+        }
+    }
+
     @DataProvider(name = "GoodBandPartitionData")
     public Object[][] makeBandPartitionData() {
         return new Object[][]{
@@ -7,6 +7,7 @@ import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.variantcontext.VariantContextBuilder;
 import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.variant.GATKVCFConstants;
 import org.broadinstitute.hellbender.utils.variant.HomoSapiensConstants;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
@@ -162,6 +163,33 @@ public class HomRefBlockUnitTest extends GATKBaseTest {
         Assert.assertTrue(genotype.getAlleles().stream().allMatch(a -> a.equals(REF)));
     }
 
+    @Test
+    public void testAddValuesWithoutStartingVC() {
+        final HomRefBlock block = new HomRefBlock("20", 1, REF, 10, 20, HomoSapiensConstants.DEFAULT_PLOIDY);
+        Assert.assertNull(block.getStartingVC());
+        Assert.assertEquals(block.getContig(), "20");
+        Assert.assertEquals(block.getStart(), 1);
+        Assert.assertEquals(block.getPloidy(), HomoSapiensConstants.DEFAULT_PLOIDY);
+
+        final int[] PLs = {0, 10, 100};
+        block.add(1, 15, 6, PLs, null);
+        block.add(2, 17, 10, new int[]{0, 5, 80}, null);
+        Assert.assertEquals(PLs, new int[]{0, 10, 100}); //the PLs passed in should not be modified
+        Assert.assertTrue(block.isContiguous("20", 3));
+        Assert.assertFalse(block.isContiguous("21", 3));
+
+        final VariantContext newVc = block.toVariantContext(SAMPLE_NAME);
+        Assert.assertEquals(newVc.getContig(), "20");
+        Assert.assertEquals(newVc.getStart(), 1);
+        Assert.assertEquals(newVc.getEnd(), 2);
+        Assert.assertEquals(newVc.getAlleles(), Arrays.asList(REF, Allele.NON_REF_ALLELE));
+        final Genotype genotype = newVc.getGenotype(0);
+        Assert.assertEquals(genotype.getDP(), 8);
+        Assert.assertEquals(genotype.getGQ(), 5);
+        Assert.assertEquals(genotype.getPL(), new int[]{0, 5, 80});
+        Assert.assertEquals(genotype.getExtendedAttribute(GATKVCFConstants.MIN_DP_FORMAT_KEY), 6);
+    }
+
     public static HomRefBlock getHomRefBlock(VariantContext vc) {
         return new HomRefBlock(vc, 10, 20, HomoSapiensConstants.DEFAULT_PLOIDY);
     }